@@ -0,0 +1,138 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine;
+
+import com.parrot.drone.groundsdk.device.DeviceState;
+import com.parrot.drone.groundsdk.device.Drone;
+import com.parrot.drone.groundsdk.device.instrument.Altimeter;
+import com.parrot.drone.groundsdk.internal.device.DeviceConnectorCore;
+import com.parrot.drone.groundsdk.internal.device.DroneCore;
+import com.parrot.drone.sdkcore.arsdk.ArsdkCommandReplay;
+import com.parrot.drone.sdkcore.arsdk.ArsdkEncoder;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureCommon;
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandCapture;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.parrot.drone.groundsdk.DeviceStateMatcher.stateIs;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class ArsdkCommandReplayTests extends ArsdkEngineTestBase {
+
+    private File mCapture;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        mArsdkEngine.start();
+        try {
+            mCapture = File.createTempFile("replay", ".acap");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public void teardown() {
+        //noinspection ResultOfMethodCallIgnored
+        mCapture.delete();
+        super.teardown();
+    }
+
+    @Test
+    public void testCaptureHeader() throws IOException {
+        try (ArsdkCommandCapture.Writer ignored = ArsdkCommandCapture.Writer.create(mCapture, "123",
+                Drone.Model.ANAFI_4K.id(), "Drone1")) {
+            // header only
+        }
+
+        try (ArsdkCommandCapture.Reader reader = ArsdkCommandCapture.Reader.open(mCapture)) {
+            assertThat(reader.getUid(), is("123"));
+            assertThat(reader.getType(), is(Drone.Model.ANAFI_4K.id()));
+            assertThat(reader.getName(), is("Drone1"));
+            assertThat(reader.next(), is(false));
+        }
+    }
+
+    @Test
+    public void testReplay() throws IOException, InterruptedException {
+        try (ArsdkCommandCapture.Writer writer = ArsdkCommandCapture.Writer.create(mCapture, "123",
+                Drone.Model.ANAFI_4K.id(), "Drone1")) {
+            record(writer, ArsdkCommandCapture.DIRECTION_SENT, ArsdkFeatureCommon.Common.encodeCurrentDateTime(""));
+            record(writer, ArsdkCommandCapture.DIRECTION_SENT, ArsdkFeatureCommon.Settings.encodeAllSettings());
+            record(writer, ArsdkCommandCapture.DIRECTION_RECEIVED,
+                    ArsdkEncoder.encodeCommonSettingsStateAllSettingsChanged());
+            record(writer, ArsdkCommandCapture.DIRECTION_SENT, ArsdkFeatureCommon.Common.encodeAllStates());
+            record(writer, ArsdkCommandCapture.DIRECTION_RECEIVED,
+                    ArsdkEncoder.encodeCommonCommonStateAllStatesChanged());
+            record(writer, ArsdkCommandCapture.DIRECTION_RECEIVED,
+                    ArsdkEncoder.encodeArdrone3PilotingStateAltitudeChanged(12.5));
+        }
+
+        try (ArsdkCommandReplay replay = ArsdkCommandReplay.open(mMockArsdkCore, 1, Backend.TYPE_NET, mCapture)) {
+            DroneCore drone = mDroneStore.get("123");
+            assertThat(drone, notNullValue());
+            assertThat(drone.getName(), is("Drone1"));
+
+            drone.connect(DeviceConnectorCore.LOCAL_WIFI, null);
+            assertThat(drone.getDeviceStateCore(), stateIs(DeviceState.ConnectionState.CONNECTING));
+
+            assertThat(replay.run(ArsdkCommandReplay.SPEED_UNLIMITED), is(3));
+
+            assertThat(drone.getDeviceStateCore(), stateIs(DeviceState.ConnectionState.CONNECTED));
+            Altimeter altimeter = drone.getInstrumentStore().get(mMockSession, Altimeter.class);
+            assertThat(altimeter, notNullValue());
+            assertThat(altimeter.getTakeOffRelativeAltitude(), is(12.5));
+
+            // engine sent the same commands as the captured session
+            assertThat(replay.getCapturedSentCount(), is(3));
+            assertThat(replay.getDevice().getSentCount(), is(3));
+        }
+    }
+
+    private static void record(ArsdkCommandCapture.Writer writer, @ArsdkCommandCapture.Direction int direction,
+                               ArsdkCommand command) throws IOException {
+        try {
+            writer.record(direction, command);
+        } finally {
+            command.release();
+        }
+    }
+}
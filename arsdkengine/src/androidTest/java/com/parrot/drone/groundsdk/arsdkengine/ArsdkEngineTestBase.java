@@ -71,6 +71,9 @@ import org.junit.Rule;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
@@ -101,6 +104,8 @@ public class ArsdkEngineTestBase {
 
     protected MockSession mMockSession;
 
+    protected MockEngineThread mMockEngineThread;
+
     final Context mContext = mock(Context.class);
 
     @Before
@@ -134,6 +139,13 @@ public class ArsdkEngineTestBase {
                 mMockArsdkCore = MockArsdkCore.create(arsdkListener);
                 return mMockArsdkCore;
             }
+
+            @NonNull
+            @Override
+            protected EngineThread createEngineThread() {
+                mMockEngineThread = new MockEngineThread();
+                return mMockEngineThread;
+            }
         };
     }
 
@@ -152,6 +164,29 @@ public class ArsdkEngineTestBase {
         TestExecutor.teardown();
     }
 
+    /** Engine thread that runs posted runnables on demand, on the calling thread. */
+    protected static final class MockEngineThread extends EngineThread {
+
+        private final Queue<Runnable> mPending = new ArrayDeque<>();
+
+        @Override
+        public void post(@NonNull Runnable runnable) {
+            mPending.add(runnable);
+        }
+
+        @Override
+        public void quit() {
+            mPending.clear();
+        }
+
+        public void runPending() {
+            Runnable runnable;
+            while ((runnable = mPending.poll()) != null) {
+                runnable.run();
+            }
+        }
+    }
+
     protected void resetEngine() {
         mArsdkEngine.requestStop(null);
         mArsdkEngine.stop();
@@ -0,0 +1,235 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.groundsdk.device.Drone;
+import com.parrot.drone.groundsdk.device.instrument.Altimeter;
+import com.parrot.drone.groundsdk.device.instrument.AttitudeIndicator;
+import com.parrot.drone.groundsdk.device.instrument.BatteryInfo;
+import com.parrot.drone.groundsdk.device.instrument.Gps;
+import com.parrot.drone.groundsdk.device.instrument.Speedometer;
+import com.parrot.drone.groundsdk.internal.component.ComponentStore;
+import com.parrot.drone.groundsdk.internal.device.DroneCore;
+import com.parrot.drone.sdkcore.arsdk.ArsdkEncoder;
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures throughput, allocations and notification latency of the ArsdkEngine -> DeviceController -> component
+ * controller -> ComponentCore path, for scripted Anafi telemetry bursts injected through {@link
+ * com.parrot.drone.sdkcore.arsdk.MockArsdkCore#commandReceived}.
+ * <p>
+ * Commands are encoded before measurement starts, so that only engine dispatch is measured. Latency is measured from
+ * command injection to the first component observer notification it triggers.
+ * <p>
+ * This is an instrumented benchmark, run on a device like other {@code androidTest} suites, not a JMH benchmark
+ * running on a plain JVM: the engine and groundsdk internals depend on Android framework classes (Looper, Handler,
+ * Context, SharedPreferences...) that have no JVM implementation in this tree. The native layer is stubbed by {@link
+ * com.parrot.drone.sdkcore.arsdk.MockArsdkCore} and main thread dispatch is made direct by {@code TestExecutor}.
+ */
+public class TelemetryDispatchBenchmark extends ArsdkEngineTestBase {
+
+    private static final String TAG = "TelemetryDispatchBench";
+
+    /** Telemetry ticks per measured burst; each tick carries attitude, speed, altitude and position. */
+    private static final int TICKS = 2000;
+
+    /** Battery level is sent every this many ticks. */
+    private static final int BATTERY_TICK_INTERVAL = 10;
+
+    /** Commands per measured burst. */
+    private static final int BURST_LENGTH = TICKS * 4 + TICKS / BATTERY_TICK_INTERVAL;
+
+    private static final int WARMUP_ITERATIONS = 2;
+
+    private static final int ITERATIONS = 5;
+
+    /** Runtime statistic giving the total count of bytes allocated by the process. */
+    private static final String BYTES_ALLOCATED_STAT = "art.gc.bytes-allocated";
+
+    private DroneCore mDrone;
+
+    /** Injection time of the command being dispatched, {@code 0} once its first notification is recorded. */
+    private long mCommandStart;
+
+    /** Notification latencies of dispatched commands, in nanoseconds. Allocated once, outside of measurement. */
+    private long[] mLatencies;
+
+    /** Count of recorded latencies. */
+    private int mLatencyCount;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        mArsdkEngine.start();
+        mMockArsdkCore.addDevice("123", Drone.Model.ANAFI_4K.id(), "Drone1", 1, Backend.TYPE_NET);
+        mDrone = mDroneStore.get("123");
+        assert mDrone != null;
+        mLatencies = new long[BURST_LENGTH];
+
+        ComponentStore.Observer observer = () -> {
+            if (mCommandStart != 0) {
+                mLatencies[mLatencyCount++] = System.nanoTime() - mCommandStart;
+                mCommandStart = 0;
+            }
+        };
+        mDrone.getInstrumentStore().registerObserver(AttitudeIndicator.class, observer);
+        mDrone.getInstrumentStore().registerObserver(Speedometer.class, observer);
+        mDrone.getInstrumentStore().registerObserver(Altimeter.class, observer);
+        mDrone.getInstrumentStore().registerObserver(Gps.class, observer);
+        mDrone.getInstrumentStore().registerObserver(BatteryInfo.class, observer);
+
+        connectDrone(mDrone, 1);
+    }
+
+    @Test
+    public void benchmarkTelemetryBurst() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            ArsdkCommand[] burst = encodeBurst(i);
+            dispatch(burst);
+            release(burst);
+        }
+
+        long totalNanos = 0, totalBytes = 0;
+        int totalCommands = 0;
+        long[] allLatencies = new long[0];
+        for (int i = 0; i < ITERATIONS; i++) {
+            ArsdkCommand[] burst = encodeBurst(WARMUP_ITERATIONS + i);
+            long bytesBefore = bytesAllocated();
+            long start = System.nanoTime();
+            dispatch(burst);
+            totalNanos += System.nanoTime() - start;
+            totalBytes += bytesAllocated() - bytesBefore;
+            totalCommands += burst.length;
+            release(burst);
+
+            // each command changes some value, hence should trigger exactly one notification
+            assertThat(mLatencyCount, is(burst.length));
+            allLatencies = Arrays.copyOf(allLatencies, allLatencies.length + mLatencyCount);
+            System.arraycopy(mLatencies, 0, allLatencies, allLatencies.length - mLatencyCount, mLatencyCount);
+        }
+
+        Arrays.sort(allLatencies);
+        Log.i(TAG, String.format(Locale.US, "%.0f commands/s, %.0f bytes allocated/command, notification latency "
+                                            + "p50 %.1f us, p99 %.1f us, max %.1f us",
+                totalCommands / (totalNanos / 1e9), (double) totalBytes / totalCommands,
+                percentile(allLatencies, 0.50) / 1e3, percentile(allLatencies, 0.99) / 1e3,
+                allLatencies[allLatencies.length - 1] / 1e3));
+    }
+
+    /**
+     * Dispatches a burst of commands, recording notification latency for each.
+     *
+     * @param burst commands to dispatch
+     */
+    private void dispatch(@NonNull ArsdkCommand[] burst) {
+        mLatencyCount = 0;
+        for (ArsdkCommand command : burst) {
+            mCommandStart = System.nanoTime();
+            mMockArsdkCore.commandReceived(1, command);
+        }
+        mCommandStart = 0;
+    }
+
+    /**
+     * Releases dispatched commands back to their pool.
+     *
+     * @param burst commands to release
+     */
+    private static void release(@NonNull ArsdkCommand[] burst) {
+        for (ArsdkCommand command : burst) {
+            command.release();
+        }
+    }
+
+    /**
+     * Encodes a telemetry burst, as sent by an Anafi in flight.
+     *
+     * @param seed value making this burst's values different from other bursts
+     *
+     * @return encoded commands
+     */
+    @NonNull
+    private static ArsdkCommand[] encodeBurst(int seed) {
+        ArsdkCommand[] burst = new ArsdkCommand[BURST_LENGTH];
+        int i = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            float t = seed * TICKS + tick;
+            burst[i++] = ArsdkEncoder.encodeArdrone3PilotingStateAttitudeChanged(
+                    (float) Math.sin(t / 100), (float) Math.cos(t / 100), t / 1000);
+            burst[i++] = ArsdkEncoder.encodeArdrone3PilotingStateSpeedChanged(t / 10, -t / 10, 0.5F);
+            burst[i++] = ArsdkEncoder.encodeArdrone3PilotingStateAltitudeChanged(10 + t / 100);
+            burst[i++] = ArsdkEncoder.encodeArdrone3PilotingStatePositionChanged(48.87 + t * 1e-7, 2.35 + t * 1e-7,
+                    10 + t / 100);
+            if (tick % BATTERY_TICK_INTERVAL == 0) {
+                burst[i++] = ArsdkEncoder.encodeCommonCommonStateBatteryStateChanged(
+                        100 - (seed * TICKS / BATTERY_TICK_INTERVAL + tick / BATTERY_TICK_INTERVAL) % 100);
+            }
+        }
+        return burst;
+    }
+
+    /**
+     * Retrieves the total count of bytes allocated by the process so far.
+     *
+     * @return allocated bytes
+     */
+    private static long bytesAllocated() {
+        return Long.parseLong(Debug.getRuntimeStat(BYTES_ALLOCATED_STAT));
+    }
+
+    /**
+     * Retrieves a percentile from sorted values.
+     *
+     * @param sorted     sorted values
+     * @param percentile percentile to retrieve, in [0, 1] range
+     *
+     * @return percentile value
+     */
+    private static long percentile(@NonNull long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.blackbox;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.EnvironmentData;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.Event;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.FlightData;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.LocationInfo;
+import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.PilotingCommand;
+import com.parrot.drone.groundsdk.device.Drone;
+import com.parrot.drone.groundsdk.internal.device.DroneCore;
+import com.parrot.drone.sdkcore.TimeProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BlackBoxImplTests {
+
+    /** Black box buffer capacity, in seconds; small enough for the recorded session to wrap the buffers around. */
+    private static final int BUFFER_CAPACITY = 2;
+
+    /** Current mock time, in milliseconds. */
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        TimeProvider.setInstance(new TimeProvider() {
+
+            @Override
+            public long getElapsedRealtime() {
+                return mTime;
+            }
+        });
+    }
+
+    @After
+    public void teardown() {
+        TimeProvider.resetDefault();
+    }
+
+    @Test
+    public void testLegacyParity() {
+        mTime = 1000;
+        BlackBoxImpl blackBox = new BlackBoxImpl(BUFFER_CAPACITY, new DroneCore("123", Drone.Model.ANAFI_4K,
+                "Drone", null));
+        blackBox.mHeader.setVersion("1.6.2", "HW_01");
+        LegacyBlackBox legacyBlackBox = new LegacyBlackBox(BUFFER_CAPACITY, blackBox.mHeader);
+
+        FlightData.Builder flightInfo = new FlightData.Builder();
+        EnvironmentData.Builder environmentInfo = new EnvironmentData.Builder();
+        PilotingCommand.Encoder pcmdEncoder = new PilotingCommand.Encoder.Anafi();
+        long flightTimeStamp = 0;
+        long environmentTimeStamp = 0;
+
+        // record a 12 seconds session at 5 Hz; flight data change every other sample, environment data every other
+        // second, so that unchanged samples get discarded
+        for (int tick = 0; tick < 60; tick++) {
+            mTime = 1000 + tick * 200;
+
+            int step = tick / 2;
+            float[] speed = {0.1f * (step + 1), -0.02f * step, 1e-3f + step};
+            float[] attitude = {(float) (Math.PI / (step + 3)), -0.3f * step, 1.5f + step / 7f};
+            double altitude = 100.1 + step * 0.3;
+            float height = 1.7f * step;
+            pcmdEncoder.setRoll(step % 3 * 10);
+            pcmdEncoder.setPitch(-step);
+            pcmdEncoder.setYaw(step * 2);
+            pcmdEncoder.setGaz(50 - step);
+            PilotingCommand pcmd = pcmdEncoder.getPilotingCommand();
+
+            flightInfo.setSpeed(speed[0], speed[1], speed[2]);
+            flightInfo.setAttitude(attitude[0], attitude[1], attitude[2]);
+            flightInfo.setAltitude(altitude);
+            flightInfo.setHeightAboveGround(height);
+            flightInfo.setDronePilotingCommand(pcmd);
+            blackBox.addFlightInfo(flightInfo);
+
+            if (tick % 2 == 0) {
+                flightTimeStamp = mTime;
+            }
+            legacyBlackBox.addFlightInfo(new LegacyBlackBox.FlightSample(flightTimeStamp, speed, attitude, altitude,
+                    height, new int[] {pcmd.getRoll(), pcmd.getPitch(), pcmd.getYaw(), pcmd.getGaz(),
+                                       pcmd.getFlag()}));
+
+            if (tick % 5 == 0) {
+                step = tick / 10;
+                double[] droneLocation = {48.878744 + step * 1e-5, 2.367717 - step * 1e-5, 35.5 + step};
+                double[] controllerLocation = {48.8787, 2.3677 + step * 1e-6, 0.1 * step};
+                int[] remotePcmd = {step, -step, 2 * step, -2 * step, step % 3};
+                int wifiSignal = -40 - step;
+                int batteryVoltage = 12000 - 10 * step;
+
+                Location location = new Location("test");
+                location.setLatitude(controllerLocation[0]);
+                location.setLongitude(controllerLocation[1]);
+                location.setAltitude(controllerLocation[2]);
+                environmentInfo.setDroneLocation(new LocationInfo(droneLocation[0], droneLocation[1],
+                        droneLocation[2]));
+                environmentInfo.setControllerLocation(location);
+                environmentInfo.setRemotePilotingCommand(remotePcmd[0], remotePcmd[1], remotePcmd[2], remotePcmd[3],
+                        remotePcmd[4]);
+                environmentInfo.setWifiSignal(wifiSignal);
+                environmentInfo.setBatteryVoltage(batteryVoltage);
+                blackBox.addEnvironmentInfo(environmentInfo);
+
+                if (tick % 10 == 0) {
+                    environmentTimeStamp = mTime;
+                }
+                legacyBlackBox.addEnvironmentInfo(new LegacyBlackBox.EnvironmentSample(environmentTimeStamp,
+                        droneLocation, controllerLocation, remotePcmd, wifiSignal, batteryVoltage));
+            }
+
+            if (tick % 20 == 0) {
+                Event event = Event.flyingStateChange(tick / 20);
+                blackBox.addEvent(event);
+                legacyBlackBox.addEvent(event);
+            }
+        }
+
+        JsonElement json = write(blackBox::writeTo);
+        JsonElement legacyJson = write(legacyBlackBox::writeTo);
+
+        assertThat(json.getAsJsonObject().getAsJsonArray("datas_5Hz").size(), is(5 * BUFFER_CAPACITY));
+        assertThat(json.getAsJsonObject().getAsJsonArray("datas_1Hz").size(), is(BUFFER_CAPACITY));
+        assertSameJson("", json, legacyJson);
+    }
+
+    /** A black box writer. */
+    private interface BlackBoxWriter {
+
+        /**
+         * Writes a black box JSON document to the given stream.
+         *
+         * @param stream stream to write to
+         *
+         * @throws IOException in case writing failed
+         */
+        void writeTo(@NonNull ByteArrayOutputStream stream) throws IOException;
+    }
+
+    @NonNull
+    private static JsonElement write(@NonNull BlackBoxWriter writer) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            writer.writeTo(output);
+            return new JsonParser().parse(output.toString("UTF-8"));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Asserts that two JSON documents hold the same members and the same values, formatted the same way.
+     * <p>
+     * Object member order is not compared: reflective serialization follows the runtime field order, which is not
+     * specified.
+     *
+     * @param path     path of the compared elements in the document, for failure messages
+     * @param actual   actual JSON element
+     * @param expected expected JSON element
+     */
+    private static void assertSameJson(@NonNull String path, @NonNull JsonElement actual,
+                                       @NonNull JsonElement expected) {
+        if (expected.isJsonObject()) {
+            assertThat(path, actual.isJsonObject(), is(true));
+            JsonObject actualObject = actual.getAsJsonObject();
+            JsonObject expectedObject = expected.getAsJsonObject();
+            assertThat(path, actualObject.entrySet().size(), is(expectedObject.entrySet().size()));
+            for (Map.Entry<String, JsonElement> member : expectedObject.entrySet()) {
+                String memberPath = path + "/" + member.getKey();
+                assertThat(memberPath, actualObject.has(member.getKey()), is(true));
+                assertSameJson(memberPath, actualObject.get(member.getKey()), member.getValue());
+            }
+        } else if (expected.isJsonArray()) {
+            assertThat(path, actual.isJsonArray(), is(true));
+            JsonArray actualArray = actual.getAsJsonArray();
+            JsonArray expectedArray = expected.getAsJsonArray();
+            assertThat(path, actualArray.size(), is(expectedArray.size()));
+            for (int i = 0; i < expectedArray.size(); i++) {
+                assertSameJson(path + "/" + i, actualArray.get(i), expectedArray.get(i));
+            }
+        } else {
+            // compare primitives textually, so that a different number formatting fails
+            assertThat(path, actual.toString(), is(expected.toString()));
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.blackbox;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.Event;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.HeaderInfo;
+import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.LocationInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedList;
+
+/**
+ * Former black box implementation, which keeps each recorded sample as an object and serializes the whole black box
+ * through Gson reflection.
+ * <p>
+ * Kept as a reference for {@link BlackBoxImplTests} to check that {@link BlackBoxImpl} produces the same document.
+ */
+final class LegacyBlackBox {
+
+    /** JSon serializer thread-safe singleton. */
+    private static final Gson JSON_SERIALIZER = new GsonBuilder()
+            .excludeFieldsWithModifiers(0)
+            .excludeFieldsWithoutExposeAnnotation()
+            .create();
+
+    /** Black box header. */
+    @Expose
+    @SerializedName("header")
+    @NonNull
+    private final HeaderInfo mHeader;
+
+    /** Black box list of events. */
+    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection") // read when serialized to json
+    @Expose
+    @SerializedName("datas")
+    @NonNull
+    private final LinkedList<Event> mEvents;
+
+    /** Black box flight data sample buffer. */
+    @Expose
+    @SerializedName("datas_5Hz")
+    @NonNull
+    private final LinkedList<FlightSample> mFlightInfos;
+
+    /** Black box environment data sample buffer. */
+    @Expose
+    @SerializedName("datas_1Hz")
+    @NonNull
+    private final LinkedList<EnvironmentSample> mEnvironmentInfos;
+
+    /** Maximum amount of samples in the flight data circular buffer. */
+    private final int mMaxFlightSamples;
+
+    /** Maximum amount of samples in the environment data circular buffer. */
+    private final int mMaxEnvironmentSamples;
+
+    /**
+     * Constructor.
+     *
+     * @param bufferCapacity circular buffers capacity, in seconds
+     * @param header         black box header
+     */
+    LegacyBlackBox(int bufferCapacity, @NonNull HeaderInfo header) {
+        mHeader = header;
+        mEvents = new LinkedList<>();
+        mFlightInfos = new LinkedList<>();
+        mEnvironmentInfos = new LinkedList<>();
+        mMaxFlightSamples = 5 * bufferCapacity;
+        mMaxEnvironmentSamples = bufferCapacity;
+    }
+
+    /**
+     * Records an event in the black box.
+     *
+     * @param event event to record
+     */
+    void addEvent(@NonNull Event event) {
+        mEvents.add(event);
+    }
+
+    /**
+     * Records a new flight data sample in the black box.
+     *
+     * @param info flight data sample to record
+     */
+    void addFlightInfo(@NonNull FlightSample info) {
+        addInfo(info, mFlightInfos, mMaxFlightSamples);
+    }
+
+    /**
+     * Records a new environment data sample in the black box.
+     *
+     * @param info environment data sample to record
+     */
+    void addEnvironmentInfo(@NonNull EnvironmentSample info) {
+        addInfo(info, mEnvironmentInfos, mMaxEnvironmentSamples);
+    }
+
+    /**
+     * Writes the black box JSON document to the given stream.
+     *
+     * @param stream stream to write to
+     *
+     * @throws IOException in case writing failed
+     */
+    void writeTo(@NonNull OutputStream stream) throws IOException {
+        try {
+            Writer writer = new OutputStreamWriter(stream);
+            JSON_SERIALIZER.toJson(this, writer);
+            writer.flush();
+        } catch (JsonIOException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Records the given info sample to the given sample buffer.
+     * <p>
+     * The sample is discarded in case its timestamp is the same as the buffer head. If adding the sample would exceed
+     * the buffer capacity, then the eldest element is removed beforehand.
+     *
+     * @param info           sample to record
+     * @param buffer         buffer to record to
+     * @param bufferCapacity buffer capacity to respect
+     * @param <T>            type of sample
+     */
+    private static <T extends TimeStampedSample> void addInfo(@NonNull T info, @NonNull LinkedList<T> buffer,
+                                                              int bufferCapacity) {
+        TimeStampedSample head = buffer.peekLast();
+        if (head == null || head.mTimeStamp != info.mTimeStamp) {
+            if (buffer.size() >= bufferCapacity) {
+                buffer.removeFirst();
+            }
+            buffer.addLast(info);
+        }
+    }
+
+    /** Base class for timestamped data samples. */
+    static class TimeStampedSample {
+
+        /** Timestamp, in milliseconds. */
+        @Expose
+        @SerializedName("timestamp")
+        @JsonAdapter(TimeStampAdapter.class)
+        final long mTimeStamp;
+
+        /**
+         * Constructor.
+         *
+         * @param timeStamp sample timestamp, in milliseconds
+         */
+        TimeStampedSample(long timeStamp) {
+            mTimeStamp = timeStamp;
+        }
+    }
+
+    /** A GSON adapter that serializes the timestamp as a double in seconds. */
+    private static final class TimeStampAdapter extends TypeAdapter<Long> {
+
+        @Override
+        public void write(JsonWriter out, Long value) throws IOException {
+            out.value(value / 1000.0);
+        }
+
+        @Override
+        public Long read(JsonReader in) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Piloting command information. */
+    private static class PilotingCommandInfo {
+
+        /** Piloting command roll. */
+        @Expose
+        @SerializedName("roll")
+        private final int mRoll;
+
+        /** Piloting command pitch. */
+        @Expose
+        @SerializedName("pitch")
+        private final int mPitch;
+
+        /** Piloting command yaw. */
+        @Expose
+        @SerializedName("yaw")
+        private final int mYaw;
+
+        /** Piloting command gaz. */
+        @Expose
+        @SerializedName("gaz")
+        private final int mGaz;
+
+        /**
+         * Constructor.
+         *
+         * @param roll  piloting command roll
+         * @param pitch piloting command pitch
+         * @param yaw   piloting command yaw
+         * @param gaz   piloting command gaz
+         */
+        PilotingCommandInfo(int roll, int pitch, int yaw, int gaz) {
+            mRoll = roll;
+            mPitch = pitch;
+            mYaw = yaw;
+            mGaz = gaz;
+        }
+    }
+
+    /** Black box flight data sample. */
+    static final class FlightSample extends TimeStampedSample {
+
+        /** Drone speed. */
+        private static final class SpeedInfo {
+
+            /** Drone speed X component. */
+            @Expose
+            @SerializedName("vx")
+            private final float mX;
+
+            /** Drone speed Y component. */
+            @Expose
+            @SerializedName("vy")
+            private final float mY;
+
+            /** Drone speed Z component. */
+            @Expose
+            @SerializedName("vz")
+            private final float mZ;
+
+            /**
+             * Constructor.
+             *
+             * @param x drone speed X component
+             * @param y drone speed Y component
+             * @param z drone speed Z component
+             */
+            SpeedInfo(float x, float y, float z) {
+                mX = x;
+                mY = y;
+                mZ = z;
+            }
+        }
+
+        /** Drone attitude. */
+        private static final class AttitudeInfo {
+
+            /** Drone attitude roll. */
+            @Expose
+            @SerializedName("roll")
+            private final float mRoll;
+
+            /** Drone attitude pitch. */
+            @Expose
+            @SerializedName("pitch")
+            private final float mPitch;
+
+            /** Drone attitude yaw. */
+            @Expose
+            @SerializedName("yaw")
+            private final float mYaw;
+
+            /**
+             * Constructor.
+             *
+             * @param roll  drone attitude roll
+             * @param pitch drone attitude pitch
+             * @param yaw   drone attitude yaw
+             */
+            AttitudeInfo(float roll, float pitch, float yaw) {
+                mRoll = roll;
+                mPitch = pitch;
+                mYaw = yaw;
+            }
+        }
+
+        /** Drone piloting command. */
+        private static final class DronePilotingCommand extends PilotingCommandInfo {
+
+            /** Piloting command flag. */
+            @Expose
+            @SerializedName("flag")
+            private final int mFlag;
+
+            /**
+             * Constructor.
+             *
+             * @param roll  piloting command roll
+             * @param pitch piloting command pitch
+             * @param yaw   piloting command yaw
+             * @param gaz   piloting command gaz
+             * @param flag  piloting command flag
+             */
+            DronePilotingCommand(int roll, int pitch, int yaw, int gaz, int flag) {
+                super(roll, pitch, yaw, gaz);
+                mFlag = flag;
+            }
+        }
+
+        /** Drone speed. */
+        @Expose
+        @SerializedName("product_speed")
+        @NonNull
+        private final SpeedInfo mSpeed;
+
+        /** Drone attitude. */
+        @Expose
+        @SerializedName("product_angles")
+        @NonNull
+        private final AttitudeInfo mAttitude;
+
+        /** Drone altitude. */
+        @Expose
+        @SerializedName("product_alt")
+        private final double mAltitude;
+
+        /** Drone height above ground level. */
+        @Expose
+        @SerializedName("product_height_above_ground")
+        private final float mHeightAboveGround;
+
+        /** Drone piloting command. */
+        @Expose
+        @SerializedName("device_pcmd")
+        @NonNull
+        private final DronePilotingCommand mDronePcmd;
+
+        /**
+         * Constructor.
+         *
+         * @param timeStamp         sample timestamp, in milliseconds
+         * @param speed             drone speed, in X, Y, Z order
+         * @param attitude          drone attitude, in roll, pitch, yaw order
+         * @param altitude          drone altitude
+         * @param heightAboveGround drone height above ground level
+         * @param pcmd              drone piloting command, in roll, pitch, yaw, gaz, flag order
+         */
+        FlightSample(long timeStamp, @NonNull float[] speed, @NonNull float[] attitude, double altitude,
+                     float heightAboveGround, @NonNull int[] pcmd) {
+            super(timeStamp);
+            mSpeed = new SpeedInfo(speed[0], speed[1], speed[2]);
+            mAttitude = new AttitudeInfo(attitude[0], attitude[1], attitude[2]);
+            mAltitude = altitude;
+            mHeightAboveGround = heightAboveGround;
+            mDronePcmd = new DronePilotingCommand(pcmd[0], pcmd[1], pcmd[2], pcmd[3], pcmd[4]);
+        }
+    }
+
+    /** Black box environment data sample. */
+    static final class EnvironmentSample extends TimeStampedSample {
+
+        /** Controller piloting command. */
+        private static final class RcPilotingCommand extends PilotingCommandInfo {
+
+            /** Piloting command source. */
+            @Expose
+            @SerializedName("source")
+            private final int mSource;
+
+            /**
+             * Constructor.
+             *
+             * @param roll   piloting command roll
+             * @param pitch  piloting command pitch
+             * @param yaw    piloting command yaw
+             * @param gaz    piloting command gaz
+             * @param source piloting command source
+             */
+            RcPilotingCommand(int roll, int pitch, int yaw, int gaz, int source) {
+                super(roll, pitch, yaw, gaz);
+                mSource = source;
+            }
+        }
+
+        /** Drone geo location. */
+        @Expose
+        @SerializedName("product_gps")
+        @NonNull
+        private final LocationInfo mDroneLocation;
+
+        /** Controller geo location. */
+        @Expose
+        @SerializedName("device_gps")
+        @NonNull
+        private final LocationInfo mControllerLocation;
+
+        /** Controller piloting command. */
+        @Expose
+        @SerializedName("mpp_pcmd")
+        @NonNull
+        private final RcPilotingCommand mRemotePcmd;
+
+        /** Wifi signal level. */
+        @Expose
+        @SerializedName("wifi_rssi")
+        private final int mWifiSignal;
+
+        /** Battery voltage. */
+        @Expose
+        @SerializedName("product_battery_voltage")
+        private final int mBatteryVoltage;
+
+        /**
+         * Constructor.
+         *
+         * @param timeStamp          sample timestamp, in milliseconds
+         * @param droneLocation      drone geo location, in latitude, longitude, altitude order
+         * @param controllerLocation controller geo location, in latitude, longitude, altitude order
+         * @param pcmd               controller piloting command, in roll, pitch, yaw, gaz, source order
+         * @param wifiSignal         wifi signal level
+         * @param batteryVoltage     battery voltage
+         */
+        EnvironmentSample(long timeStamp, @NonNull double[] droneLocation, @NonNull double[] controllerLocation,
+                          @NonNull int[] pcmd, int wifiSignal, int batteryVoltage) {
+            super(timeStamp);
+            mDroneLocation = new LocationInfo(droneLocation[0], droneLocation[1], droneLocation[2]);
+            mControllerLocation = new LocationInfo(controllerLocation[0], controllerLocation[1],
+                    controllerLocation[2]);
+            mRemotePcmd = new RcPilotingCommand(pcmd[0], pcmd[1], pcmd[2], pcmd[3], pcmd[4]);
+            mWifiSignal = wifiSignal;
+            mBatteryVoltage = batteryVoltage;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
+
+import android.location.Location;
+
+import com.parrot.drone.groundsdk.arsdkengine.ArsdkEngineTestBase;
+import com.parrot.drone.groundsdk.device.Drone;
+import com.parrot.drone.groundsdk.device.pilotingitf.Activable;
+import com.parrot.drone.groundsdk.device.pilotingitf.FollowMePilotingItf;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.device.DroneCore;
+import com.parrot.drone.groundsdk.internal.tasks.TestExecutor;
+import com.parrot.drone.groundsdk.internal.utility.SystemBarometer;
+import com.parrot.drone.groundsdk.internal.utility.SystemLocation;
+import com.parrot.drone.sdkcore.arsdk.ArsdkEncoder;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureArdrone3;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureFollowMe;
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.Expectation;
+import com.parrot.drone.sdkcore.arsdk.ExpectedCmd;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+
+public class ControllerInfoUplinkTests extends ArsdkEngineTestBase {
+
+    private DroneCore mDrone;
+
+    private SystemBarometer.Monitor mBarometerMonitor;
+
+    private SystemLocation.Monitor mLocationMonitor;
+
+    @Override
+    public void setUp() {
+        super.setUp();
+        // flying: 200ms, tracking: 100ms, landed: 1s; all multiples of Anafi piloting command loop period (50ms)
+        GroundSdkConfig.get().setControllerInfoUplinkPeriods(200, 100, 1000);
+
+        mArsdkEngine.start();
+        mMockArsdkCore.addDevice("123", Drone.Model.ANAFI_4K.id(), "Drone1", 1, Backend.TYPE_NET);
+        mDrone = mDroneStore.get("123");
+        assert mDrone != null;
+    }
+
+    @Test
+    public void testLandedRate() {
+        connect();
+
+        // a burst of measurements should not be sent immediately
+        mBarometerMonitor.onAirPressureMeasure(100000, 1);
+        mBarometerMonitor.onAirPressureMeasure(100001, 2);
+        mLocationMonitor.onLocationChanged(location(48.8, 2.3, 3));
+        mLocationMonitor.onLocationChanged(location(48.9, 2.4, 4));
+
+        mockTimePasses(950);
+
+        // only the latest measurements should be sent, after the landed period
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoBarometer(100001, 2)));
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoGps(
+                48.9, 2.4, 10, 5, -1, 0, 0, 0, 4)));
+        mockTimePasses(50);
+        mMockArsdkCore.assertNoExpectation();
+
+        // unchanged measurements should only be sent again after the refresh period
+        mBarometerMonitor.onAirPressureMeasure(100001, 3);
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoBarometer(100001, 3)));
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoGps(
+                48.9, 2.4, 10, 5, -1, 0, 0, 0, 4)));
+        mockTimePasses(1000);
+        mMockArsdkCore.assertNoExpectation();
+    }
+
+    @Test
+    public void testFlyingRate() {
+        connect();
+
+        // mock drone flying
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeArdrone3PilotingStateFlyingStateChanged(
+                ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.FLYING));
+
+        mBarometerMonitor.onAirPressureMeasure(100000, 1);
+        mockTimePasses(150);
+
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoBarometer(100000, 1)));
+        mockTimePasses(50);
+        mMockArsdkCore.assertNoExpectation();
+
+        // only changed measurements should be sent
+        mBarometerMonitor.onAirPressureMeasure(100000, 2);
+        mLocationMonitor.onLocationChanged(location(48.8, 2.3, 3));
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoGps(
+                48.8, 2.3, 10, 5, -1, 0, 0, 0, 3)));
+        mockTimePasses(200);
+        mMockArsdkCore.assertNoExpectation();
+
+        // pending measurements should be dropped on disconnection
+        mBarometerMonitor.onAirPressureMeasure(100002, 4);
+        disconnectDrone(mDrone, 1);
+        mockTimePasses(1000);
+    }
+
+    @Test
+    public void testTrackingRate() {
+        connect();
+
+        // mock drone flying, with follow me available, then activate follow me
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeFollowMeModeInfo(ArsdkFeatureFollowMe.Mode.GEOGRAPHIC,
+                ArsdkFeatureFollowMe.Input.toBitField(ArsdkFeatureFollowMe.Input.values()),
+                ArsdkFeatureFollowMe.Input.toBitField(ArsdkFeatureFollowMe.Input.values())));
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeArdrone3PilotingStateFlyingStateChanged(
+                ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.FLYING));
+
+        FollowMePilotingItf followMe = mDrone.getPilotingItfStore().get(mMockSession, FollowMePilotingItf.class);
+        assert followMe != null;
+        mMockArsdkCore.expect(new Expectation.Command(1,
+                ExpectedCmd.followMeStart(ArsdkFeatureFollowMe.Mode.GEOGRAPHIC)));
+        assertThat(followMe.activate(), is(true));
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeFollowMeState(
+                ArsdkFeatureFollowMe.Mode.GEOGRAPHIC, ArsdkFeatureFollowMe.Behavior.FOLLOW, null, 0));
+        assertThat(followMe.getState(), is(Activable.State.ACTIVE));
+
+        // measurements should be sent at tracking rate
+        mLocationMonitor.onLocationChanged(location(48.8, 2.3, 3));
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoGps(
+                48.8, 2.3, 10, 5, -1, 0, 0, 0, 3)));
+        mockTimePasses(100);
+        mMockArsdkCore.assertNoExpectation();
+
+        mLocationMonitor.onLocationChanged(location(48.9, 2.4, 4));
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.controllerInfoGps(
+                48.9, 2.4, 10, 5, -1, 0, 0, 0, 4)));
+        mockTimePasses(100);
+        mMockArsdkCore.assertNoExpectation();
+    }
+
+    @Test
+    public void testImmediateUplink() {
+        GroundSdkConfig.get().setControllerInfoUplinkPeriods(0, 1, 1);
+        mMockArsdkCore.addDevice("456", Drone.Model.ANAFI_4K.id(), "Drone2", 2, Backend.TYPE_NET);
+        DroneCore drone = mDroneStore.get("456");
+        assert drone != null;
+
+        connectDrone(drone, 2);
+        captureMonitors();
+
+        // each measurement should be sent as soon as it is received
+        mMockArsdkCore.expect(new Expectation.Command(2, ExpectedCmd.controllerInfoBarometer(100000, 1)));
+        mBarometerMonitor.onAirPressureMeasure(100000, 1);
+        mMockArsdkCore.expect(new Expectation.Command(2, ExpectedCmd.controllerInfoBarometer(100000, 2)));
+        mBarometerMonitor.onAirPressureMeasure(100000, 2);
+        mMockArsdkCore.assertNoExpectation();
+    }
+
+    private void connect() {
+        connectDrone(mDrone, 1, () -> mMockArsdkCore.commandReceived(1,
+                ArsdkEncoder.encodeArdrone3PilotingStateFlyingStateChanged(
+                        ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.LANDED)));
+        captureMonitors();
+    }
+
+    private void captureMonitors() {
+        ArgumentCaptor<SystemBarometer.Monitor> barometerCaptor = ArgumentCaptor.forClass(
+                SystemBarometer.Monitor.class);
+        verify(mMockBarometer).monitorWith(barometerCaptor.capture());
+        mBarometerMonitor = barometerCaptor.getValue();
+
+        ArgumentCaptor<SystemLocation.Monitor> locationCaptor = ArgumentCaptor.forClass(SystemLocation.Monitor.class);
+        verify(mMockLocation).monitorWith(locationCaptor.capture());
+        mLocationMonitor = locationCaptor.getValue();
+    }
+
+    private static void mockTimePasses(long millis) {
+        TestExecutor.mockTimePasses(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Location location(double latitude, double longitude, long time) {
+        Location location = new Location("test");
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        location.setAltitude(10);
+        location.setAccuracy(5);
+        location.setTime(time);
+        return location;
+    }
+}
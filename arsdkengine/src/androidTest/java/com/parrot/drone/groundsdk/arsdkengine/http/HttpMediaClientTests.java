@@ -34,6 +34,7 @@ package com.parrot.drone.groundsdk.arsdkengine.http;
 
 import android.os.ConditionVariable;
 import android.os.Parcel;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
@@ -58,9 +59,14 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -75,6 +81,7 @@ import static com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItemMatcher.m
 import static com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItemMatcher.mediaListEquals;
 import static com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItemMatcher.mediaResourceEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.any;
@@ -83,6 +90,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
@@ -98,6 +106,17 @@ public class HttpMediaClientTests {
     private static final File DOWNLOADED_MEDIA = new File(
             ApplicationProvider.getApplicationContext().getCacheDir(), "media.test");
 
+    private static final File PARTIAL_MEDIA = new File(DOWNLOADED_MEDIA.getParentFile(),
+            "." + DOWNLOADED_MEDIA.getName() + ".part");
+
+    private static final File MEDIA_VALIDATOR = new File(DOWNLOADED_MEDIA.getParentFile(),
+            "." + DOWNLOADED_MEDIA.getName() + ".validator");
+
+    private static final File MEDIA_SEGMENTS = new File(DOWNLOADED_MEDIA.getParentFile(),
+            "." + DOWNLOADED_MEDIA.getName() + ".segments");
+
+    private static final String ETAG = "\"1f2e3d\"";
+
     // 100 / 99 => mocks 99% progress, then 100% progress
     private static final byte[] MEDIA_DATA = new byte[Math.round(100f * HttpMediaClient.CHUNK_SIZE / 99)];
 
@@ -222,6 +241,15 @@ public class HttpMediaClientTests {
         if (DOWNLOADED_MEDIA.exists()) {
             assertThat(DOWNLOADED_MEDIA.delete(), is(true));
         }
+        if (PARTIAL_MEDIA.exists()) {
+            assertThat(PARTIAL_MEDIA.delete(), is(true));
+        }
+        if (MEDIA_VALIDATOR.exists()) {
+            assertThat(MEDIA_VALIDATOR.delete(), is(true));
+        }
+        if (MEDIA_SEGMENTS.exists()) {
+            assertThat(MEDIA_SEGMENTS.delete(), is(true));
+        }
         mMockService = new MockHttpService();
         mClient = new HttpMediaClient(mMockService.mSession);
         mFgLock = new ConditionVariable();
@@ -234,6 +262,58 @@ public class HttpMediaClientTests {
         TestExecutor.teardown();
     }
 
+    /**
+     * Mocks data received by a previous download attempt.
+     *
+     * @param length    amount of {@link #MEDIA_DATA} received, {@code -1} to keep existing partial data
+     * @param validator recorded validator of received data
+     *
+     * @throws IOException in case writing failed
+     */
+    private static void mockPartialData(int length, @NonNull String validator) throws IOException {
+        if (length >= 0) {
+            try (FileOutputStream stream = new FileOutputStream(PARTIAL_MEDIA)) {
+                stream.write(MEDIA_DATA, 0, length);
+            }
+        }
+        try (DataOutputStream stream = new DataOutputStream(new FileOutputStream(MEDIA_VALIDATOR))) {
+            stream.writeUTF(validator);
+        }
+    }
+
+    private static void assertDownloaded(@NonNull byte[] data) throws IOException {
+        assertThat(DOWNLOADED_MEDIA.exists(), is(true));
+        byte[] fileData = new byte[data.length];
+        try (FileInputStream stream = new FileInputStream(DOWNLOADED_MEDIA)) {
+            assertThat(stream.read(fileData), is(data.length));
+            assertThat(fileData, is(data));
+            assertThat(stream.read(), is(-1));
+        }
+    }
+
+    private static void assertDownloaded(long size, int version) throws IOException {
+        assertThat(DOWNLOADED_MEDIA.length(), is(size));
+        byte[] buffer = new byte[HttpMediaClient.CHUNK_SIZE];
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(DOWNLOADED_MEDIA))) {
+            long position = 0;
+            int len;
+            while ((len = stream.read(buffer)) > 0) {
+                for (int i = 0; i < len; i++, position++) {
+                    if (buffer[i] != MockRangeServer.byteAt(position, version)) {
+                        throw new AssertionError("Content mismatch at " + position);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertEventuallyDeleted(@NonNull File file) {
+        for (int i = 0; i < 100 && file.exists(); i++) {
+            SystemClock.sleep(10);
+        }
+        assertThat(file.exists(), is(false));
+    }
+
     private static <T> T openLockWhen(@NonNull T cb, @NonNull ConditionVariable lock) {
         return doAnswer((invocation) -> {
             lock.open();
@@ -690,6 +770,221 @@ public class HttpMediaClientTests {
         }
     }
 
+    @Test
+    public void testDownloadResume() throws IOException {
+        int offset = MEDIA_DATA.length / 2;
+        mockPartialData(offset, ETAG);
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        HttpRequest request = mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+        assertThat(request, notNullValue());
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL)
+                .header("Range", "bytes=" + offset + "-")
+                .header("If-Range", ETAG));
+
+        mMockService.mockResponse(it -> it
+                .code(206)
+                .header("ETag", ETAG)
+                .header("Content-Range", "bytes " + offset + "-" + (MEDIA_DATA.length - 1) + "/" + MEDIA_DATA.length)
+                .body(ResponseBody.create(Arrays.copyOfRange(MEDIA_DATA, offset, MEDIA_DATA.length),
+                        MediaType.parse("application/octet-stream"))));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestProgress(50);
+        verify(mProgressCb).onRequestProgress(100);
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+
+        assertThat(PARTIAL_MEDIA.exists(), is(false));
+        assertThat(MEDIA_VALIDATOR.exists(), is(false));
+        assertDownloaded(MEDIA_DATA);
+    }
+
+    @Test
+    public void testDownloadResumeAfterRemoteChange() throws IOException {
+        // partial data of a previous version of the media
+        byte[] previous = MEDIA_DATA.clone();
+        previous[0]++;
+        try (FileOutputStream stream = new FileOutputStream(PARTIAL_MEDIA)) {
+            stream.write(previous, 0, previous.length / 2);
+        }
+        mockPartialData(-1, "\"previous\"");
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL)
+                .header("Range", "bytes=" + previous.length / 2 + "-")
+                .header("If-Range", "\"previous\""));
+
+        // server does not honor If-Range and sends requested range of the new version
+        mMockService.mockResponse(it -> it
+                .code(206)
+                .header("ETag", ETAG)
+                .header("Content-Range", "bytes " + previous.length / 2 + "-" + (MEDIA_DATA.length - 1) + "/"
+                                         + MEDIA_DATA.length)
+                .body(ResponseBody.create(Arrays.copyOfRange(MEDIA_DATA, previous.length / 2, MEDIA_DATA.length),
+                        MediaType.parse("application/octet-stream"))));
+
+        // partial data is dropped and the whole media is requested again
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL));
+
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .header("ETag", ETAG)
+                .body(ResponseBody.create(MEDIA_DATA, MediaType.parse("application/octet-stream"))));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertDownloaded(MEDIA_DATA);
+    }
+
+    @Test
+    public void testDownloadResumeFullContentResponse() throws IOException {
+        mockPartialData(MEDIA_DATA.length / 2, "\"previous\"");
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL)
+                .header("If-Range", "\"previous\""));
+
+        // remote content changed: whole content is sent
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .header("ETag", ETAG)
+                .body(ResponseBody.create(MEDIA_DATA, MediaType.parse("application/octet-stream"))));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertDownloaded(MEDIA_DATA);
+    }
+
+    @Test
+    public void testDownloadResumeUnexpectedRange() throws IOException {
+        int offset = MEDIA_DATA.length / 2;
+        mockPartialData(offset, ETAG);
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL)
+                .header("Range", "bytes=" + offset + "-"));
+
+        // range starting elsewhere than requested
+        mMockService.mockResponse(it -> it
+                .code(206)
+                .header("Content-Range", "bytes 0-" + (MEDIA_DATA.length - 1) + "/" + MEDIA_DATA.length)
+                .body(ResponseBody.create(MEDIA_DATA, MediaType.parse("application/octet-stream"))));
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL));
+
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .header("ETag", ETAG)
+                .body(ResponseBody.create(MEDIA_DATA, MediaType.parse("application/octet-stream"))));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertDownloaded(MEDIA_DATA);
+    }
+
+    @Test
+    public void testDownloadNoResumeWithoutValidator() throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(PARTIAL_MEDIA)) {
+            stream.write(MEDIA_DATA, 0, MEDIA_DATA.length / 2);
+        }
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL));
+
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .body(ResponseBody.create(MEDIA_DATA, MediaType.parse("application/octet-stream"))));
+
+        mFgLock.block();
+
+        verify(mProgressCb, never()).onRequestProgress(50);
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertDownloaded(MEDIA_DATA);
+    }
+
+    @Test
+    public void testDownloadFailureKeepsPartialData() {
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        HttpRequest request = mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+        assertThat(request, notNullValue());
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL));
+
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .header("ETag", ETAG)
+                .body(ResponseBody.create(new Buffer().write(MEDIA_DATA),
+                        MediaType.parse("application/octet-stream"),
+                        MEDIA_DATA.length * 2)));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.FAILED, HttpRequest.STATUS_CODE_UNKNOWN);
+
+        assertThat(DOWNLOADED_MEDIA.exists(), is(false));
+        assertThat(PARTIAL_MEDIA.length(), is((long) MEDIA_DATA.length));
+        assertThat(MEDIA_VALIDATOR.exists(), is(true));
+    }
+
+    @Test
+    public void testDownloadFailureWithoutValidatorDropsPartialData() {
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        mClient.download(MEDIA_URL, DOWNLOADED_MEDIA, mProgressCb);
+
+        mMockService.assertPendingRequest(it -> it
+                .get()
+                .url("http://test" + MEDIA_URL));
+
+        mMockService.mockResponse(it -> it
+                .code(200)
+                .body(ResponseBody.create(new Buffer().write(MEDIA_DATA),
+                        MediaType.parse("application/octet-stream"),
+                        MEDIA_DATA.length * 2)));
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.FAILED, HttpRequest.STATUS_CODE_UNKNOWN);
+
+        assertThat(DOWNLOADED_MEDIA.exists(), is(false));
+        assertThat(PARTIAL_MEDIA.exists(), is(false));
+    }
+
     @Test
     public void testDownloadServerFailure() {
         openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
@@ -788,6 +1083,78 @@ public class HttpMediaClientTests {
         verify(mProgressCb).onRequestComplete(HttpRequest.Status.CANCELED, HttpRequest.STATUS_CODE_UNKNOWN);
 
         assertThat(DOWNLOADED_MEDIA.exists(), is(false));
+        // cancellation is notified before the download thread stops
+        assertEventuallyDeleted(PARTIAL_MEDIA);
+        assertEventuallyDeleted(MEDIA_VALIDATOR);
+    }
+
+    @Test
+    public void testSegmentedDownload() throws IOException {
+        MockRangeServer server = new MockRangeServer(2 * HttpMediaClient.MIN_SEGMENT_SIZE);
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        new HttpMediaClient(new HttpSession(server)).download(MEDIA_URL, DOWNLOADED_MEDIA,
+                2 * HttpMediaClient.MIN_SEGMENT_SIZE, 2, mProgressCb);
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestProgress(100);
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertThat(server.mRangeRequests.get(), is(2));
+        assertThat(server.mFullRequests.get(), is(0));
+        assertDownloaded(2 * HttpMediaClient.MIN_SEGMENT_SIZE, 0);
+        assertThat(PARTIAL_MEDIA.exists(), is(false));
+        assertThat(MEDIA_SEGMENTS.exists(), is(false));
+        assertThat(MEDIA_VALIDATOR.exists(), is(false));
+    }
+
+    @Test
+    public void testSegmentedDownloadRangeIgnored() throws IOException {
+        MockRangeServer server = new MockRangeServer(2 * HttpMediaClient.MIN_SEGMENT_SIZE);
+        server.ignoreRange();
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        new HttpMediaClient(new HttpSession(server)).download(MEDIA_URL, DOWNLOADED_MEDIA,
+                2 * HttpMediaClient.MIN_SEGMENT_SIZE, 2, mProgressCb);
+
+        mFgLock.block();
+
+        // segments are dropped, then the whole media is downloaded in a single request
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertThat(server.mFullRequests.get(), greaterThanOrEqualTo(2));
+        assertDownloaded(2 * HttpMediaClient.MIN_SEGMENT_SIZE, 0);
+        assertThat(MEDIA_SEGMENTS.exists(), is(false));
+    }
+
+    @Test
+    public void testSegmentedDownloadResumeAfterRemoteChange() throws IOException {
+        long size = 2 * HttpMediaClient.MIN_SEGMENT_SIZE;
+        MockRangeServer server = new MockRangeServer(size);
+        server.setVersion(2);
+
+        // mock half of each segment received from version 1
+        try (RandomAccessFile partial = new RandomAccessFile(PARTIAL_MEDIA, "rw")) {
+            partial.setLength(size);
+        }
+        try (DataOutputStream stream = new DataOutputStream(new FileOutputStream(MEDIA_SEGMENTS))) {
+            stream.writeInt(2);
+            stream.writeLong(size);
+            stream.writeLong(size / 4);
+            stream.writeLong(size / 2 + size / 4);
+        }
+        try (DataOutputStream stream = new DataOutputStream(new FileOutputStream(MEDIA_VALIDATOR))) {
+            stream.writeUTF(MockRangeServer.etag(1));
+        }
+
+        openLockWhen(mProgressCb, mFgLock).onRequestComplete(any(), anyInt());
+
+        new HttpMediaClient(new HttpSession(server)).download(MEDIA_URL, DOWNLOADED_MEDIA, size, 2, mProgressCb);
+
+        mFgLock.block();
+
+        verify(mProgressCb).onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        assertThat(server.mRangeRequests.get(), is(0));
+        assertDownloaded(size, 2);
     }
 
     @Test
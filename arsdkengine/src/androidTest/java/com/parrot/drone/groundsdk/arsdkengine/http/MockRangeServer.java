@@ -0,0 +1,157 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.http;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Mocks a server serving a synthetic content of arbitrary size, honoring range requests, unless configured otherwise.
+ * <p>
+ * Content is generated on the fly from a byte position and a version, so that large contents can be served without
+ * being held in memory.
+ */
+final class MockRangeServer implements Interceptor {
+
+    private final long mSize;
+
+    private volatile int mVersion;
+
+    private volatile boolean mHonorRange;
+
+    final AtomicInteger mRangeRequests;
+
+    final AtomicInteger mFullRequests;
+
+    MockRangeServer(long size) {
+        mSize = size;
+        mHonorRange = true;
+        mRangeRequests = new AtomicInteger();
+        mFullRequests = new AtomicInteger();
+    }
+
+    void setVersion(int version) {
+        mVersion = version;
+    }
+
+    void ignoreRange() {
+        mHonorRange = false;
+    }
+
+    static String etag(int version) {
+        return "\"v" + version + "\"";
+    }
+
+    static byte byteAt(long position, int version) {
+        return (byte) (position * 31 + (position >>> 13) + version * 101);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) {
+        Request request = chain.request();
+        String range = request.header("Range"), ifRange = request.header("If-Range");
+        int version = mVersion;
+        Response.Builder response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .message("")
+                .header("ETag", etag(version));
+        long first = 0, last = mSize - 1;
+        if (mHonorRange && range != null && (ifRange == null || ifRange.equals(etag(version)))) {
+            mRangeRequests.incrementAndGet();
+            int dash = range.indexOf('-');
+            first = Long.parseLong(range.substring("bytes=".length(), dash));
+            if (dash < range.length() - 1) {
+                last = Long.parseLong(range.substring(dash + 1));
+            }
+            response.code(206).header("Content-Range", "bytes " + first + "-" + last + "/" + mSize);
+        } else {
+            mFullRequests.incrementAndGet();
+            response.code(200);
+        }
+        return response.body(ResponseBody.create(Okio.buffer(new ContentSource(first, last + 1, version)),
+                MediaType.parse("application/octet-stream"), last + 1 - first))
+                       .build();
+    }
+
+    private static final class ContentSource implements Source {
+
+        private final int mVersion;
+
+        private final long mEnd;
+
+        private long mPosition;
+
+        ContentSource(long start, long end, int version) {
+            mPosition = start;
+            mEnd = end;
+            mVersion = version;
+        }
+
+        @Override
+        public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+            if (mPosition == mEnd) {
+                return -1;
+            }
+            long count = Math.min(byteCount, mEnd - mPosition);
+            for (long i = 0; i < count; i++) {
+                sink.writeByte(byteAt(mPosition++, mVersion));
+            }
+            return count;
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -32,12 +32,15 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.flightdata;
 
+import androidx.annotation.NonNull;
+
 import com.parrot.drone.groundsdk.arsdkengine.ArsdkEngineTestBase;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudClient;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudInfo;
 import com.parrot.drone.groundsdk.arsdkengine.http.MockHttpPud;
 import com.parrot.drone.groundsdk.device.Drone;
 import com.parrot.drone.groundsdk.device.peripheral.FlightDataDownloader;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.MockHttpSession;
@@ -46,10 +49,15 @@ import com.parrot.drone.sdkcore.arsdk.ArsdkEncoder;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureArdrone3;
 import com.parrot.drone.sdkcore.arsdk.Backend;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -66,6 +74,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class AnafiFlightDataDownloaderTests extends ArsdkEngineTestBase {
@@ -93,6 +103,11 @@ public class AnafiFlightDataDownloaderTests extends ArsdkEngineTestBase {
 
     private static final File FLIGHTDATA_STORAGE = new File("/tmp");
 
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private FlightDataStorage mMockStorage;
+
     private DroneCore mDrone;
 
     private FlightDataDownloader mFlightDataDownloader;
@@ -112,13 +127,14 @@ public class AnafiFlightDataDownloaderTests extends ArsdkEngineTestBase {
     public void setUp() {
         super.setUp();
 
-        FlightDataStorage mockStorage = mock(FlightDataStorage.class);
-        doReturn(FLIGHTDATA_STORAGE).when(mockStorage).getWorkDir();
-        mUtilities.registerUtility(FlightDataStorage.class, mockStorage);
+        mMockStorage = mock(FlightDataStorage.class);
+        doReturn(FLIGHTDATA_STORAGE).when(mMockStorage).getWorkDir();
+        mUtilities.registerUtility(FlightDataStorage.class, mMockStorage);
 
         mClient = mock(HttpPudClient.class);
         doReturn(DUMMY_REQUEST).when(mClient).listPuds(any());
         doReturn(DUMMY_REQUEST).when(mClient).downloadPud(any(), any(), any(), any());
+        doReturn(DUMMY_REQUEST).when(mClient).downloadPud(any(), any(), any(HttpRequest.StatusCallback.class));
         doReturn(DUMMY_REQUEST).when(mClient).deletePud(any(), any());
         MockHttpSession.registerOnly(mClient);
 
@@ -420,4 +436,188 @@ public class AnafiFlightDataDownloaderTests extends ArsdkEngineTestBase {
         assertThat(mChangeCnt, is(4));
         assertThat(mFlightDataDownloader, wasInterruptedAfter(1));
     }
+
+    @Test
+    public void testPipelinedDownload() {
+        GroundSdkConfig.get().setFlightDataPrefetchDepth(2);
+
+        connectDrone(mDrone, 1);
+
+        assertThat(mChangeCnt, is(1));
+        assertThat(mFlightDataDownloader, isIdle());
+
+        verify(mClient).listPuds(mResultCallbackCaptor.capture());
+
+        // mock listing successful result
+        mResultCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, REPORT_LIST_2);
+
+        // raw transfer of first pud should be started
+        assertThat(mChangeCnt, is(2));
+        assertThat(mFlightDataDownloader, isDownloading(0));
+        assertThat(mFlightDataDownloader.getLatestTotalCount(), is(2));
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_1"), eq(new File(FLIGHTDATA_STORAGE, "pud_1.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock 1st transfer completion; conversion fails since there is no actual raw file
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+
+        assertThat(mChangeCnt, is(3));
+        assertThat(mFlightDataDownloader, isDownloading(0));
+        assertThat(mFlightDataDownloader.getStageProgress(FlightDataDownloader.Stage.TRANSFER), is(1));
+
+        // deletion should be deferred until all puds are processed
+        verify(mClient, never()).deletePud(any(), any());
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_2"), eq(new File(FLIGHTDATA_STORAGE, "pud_2.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock 2nd transfer completion
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+
+        // all puds should be deleted together
+        verify(mClient).deletePud(eq("pud_1"), any());
+        verify(mClient).deletePud(eq("pud_2"), any());
+
+        assertThat(mChangeCnt, is(4));
+        assertThat(mFlightDataDownloader, hasDownloadedSuccessfully(0));
+        assertThat(mFlightDataDownloader.getStageProgress(FlightDataDownloader.Stage.TRANSFER), is(2));
+    }
+
+    @Test
+    public void testPipelinedTransferCancel() {
+        GroundSdkConfig.get().setFlightDataPrefetchDepth(2);
+
+        connectDrone(mDrone, 1);
+
+        verify(mClient).listPuds(mResultCallbackCaptor.capture());
+
+        // mock listing successful result
+        mResultCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, REPORT_LIST_2);
+
+        assertThat(mChangeCnt, is(2));
+        assertThat(mFlightDataDownloader, isDownloading(0));
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_1"), eq(new File(FLIGHTDATA_STORAGE, "pud_1.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock transfer cancel
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.CANCELED,
+                HttpRequest.STATUS_CODE_UNKNOWN);
+
+        assertThat(mChangeCnt, is(3));
+        assertThat(mFlightDataDownloader, wasInterruptedAfter(0));
+        verify(mClient, never()).deletePud(any(), any());
+    }
+
+    @Test
+    public void testPipelinedConversion() throws IOException {
+        GroundSdkConfig.get().setFlightDataPrefetchDepth(1);
+        File workDir = mTemporaryFolder.newFolder();
+        doReturn(workDir).when(mMockStorage).getWorkDir();
+
+        connectDrone(mDrone, 1);
+
+        verify(mClient).listPuds(mResultCallbackCaptor.capture());
+
+        // mock listing successful result
+        mResultCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, REPORT_LIST_2);
+
+        assertThat(mChangeCnt, is(2));
+        assertThat(mFlightDataDownloader, isDownloading(0));
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_1"), eq(new File(workDir, "pud_1.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock 1st transfer completion, with a valid raw pud
+        writeRawPud(new File(workDir, "pud_1.raw.tmp"));
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+
+        // converted pud should be ready, raw file removed, deletion deferred
+        verify(mMockStorage).notifyFlightDataFileReady(new File(workDir, "pud_1"));
+        assertThat(new File(workDir, "pud_1").exists(), is(true));
+        assertThat(new File(workDir, "pud_1.raw.tmp").exists(), is(false));
+        verify(mClient, never()).deletePud(any(), any());
+
+        assertThat(mChangeCnt, is(3));
+        assertThat(mFlightDataDownloader, isDownloading(1));
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_2"), eq(new File(workDir, "pud_2.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock 2nd transfer completion
+        writeRawPud(new File(workDir, "pud_2.raw.tmp"));
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+
+        verify(mMockStorage).notifyFlightDataFileReady(new File(workDir, "pud_2"));
+
+        // all puds should be deleted together
+        verify(mClient).deletePud(eq("pud_1"), any());
+        verify(mClient).deletePud(eq("pud_2"), any());
+
+        assertThat(mChangeCnt, is(4));
+        assertThat(mFlightDataDownloader, hasDownloadedSuccessfully(2));
+    }
+
+    @Test
+    public void testPipelinedInterruptionDeletesProcessedPuds() throws IOException {
+        GroundSdkConfig.get().setFlightDataPrefetchDepth(2);
+        File workDir = mTemporaryFolder.newFolder();
+        doReturn(workDir).when(mMockStorage).getWorkDir();
+
+        connectDrone(mDrone, 1);
+
+        verify(mClient).listPuds(mResultCallbackCaptor.capture());
+        mResultCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, REPORT_LIST_2);
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_1"), eq(new File(workDir, "pud_1.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock 1st transfer completion, pud gets converted
+        writeRawPud(new File(workDir, "pud_1.raw.tmp"));
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+        verify(mMockStorage).notifyFlightDataFileReady(new File(workDir, "pud_1"));
+
+        verify(mClient).downloadPud(eq("/data/pud/pud_2"), eq(new File(workDir, "pud_2.raw.tmp")),
+                mStatusCallbackCaptor.capture());
+
+        // mock data sync unavailable - make drone flying
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeArdrone3PilotingStateFlyingStateChanged(
+                ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.FLYING));
+        verify(mClient).dispose();
+
+        // mock 2nd transfer cancel
+        mStatusCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.CANCELED,
+                HttpRequest.STATUS_CODE_UNKNOWN);
+
+        assertThat(mFlightDataDownloader, wasInterruptedAfter(1));
+        verify(mClient, never()).deletePud(any(), any());
+
+        // mock data sync available again - make drone landed
+        mMockArsdkCore.commandReceived(1, ArsdkEncoder.encodeArdrone3PilotingStateFlyingStateChanged(
+                ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.LANDED));
+
+        verify(mClient, times(2)).listPuds(mResultCallbackCaptor.capture());
+        mResultCallbackCaptor.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, REPORT_LIST_2);
+
+        // converted pud should be deleted, and not transferred again
+        verify(mClient).deletePud(eq("pud_1"), any());
+        verify(mClient, never()).deletePud(eq("pud_2"), any());
+        verify(mClient).downloadPud(eq("/data/pud/pud_1"), any(), any(HttpRequest.StatusCallback.class));
+        verify(mClient, times(2)).downloadPud(eq("/data/pud/pud_2"), eq(new File(workDir, "pud_2.raw.tmp")),
+                any(HttpRequest.StatusCallback.class));
+        assertThat(mFlightDataDownloader.getLatestTotalCount(), is(1));
+    }
+
+    private static void writeRawPud(@NonNull File file) throws IOException {
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(("{details_headers : [\n"
+                          + "  {\n"
+                          + "    name: \"foo\",\n"
+                          + "    type: \"bar\",\n"
+                          + "    size: 4\n"
+                          + "  }\n"
+                          + "]}\0").getBytes());
+        }
+    }
 }
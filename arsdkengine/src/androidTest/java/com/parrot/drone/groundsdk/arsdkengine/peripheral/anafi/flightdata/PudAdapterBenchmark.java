@@ -0,0 +1,177 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.flightdata;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Compares {@link PudAdapter} and {@link LegacyPudAdapter} conversion time on a synthetic 100 MB PUD file.
+ */
+public class PudAdapterBenchmark {
+
+    private static final String TAG = "PudAdapterBench";
+
+    private static final long PUD_SIZE = 100L * 1024 * 1024;
+
+    private static final int WARMUP_ITERATIONS = 1;
+
+    private static final int ITERATIONS = 3;
+
+    private static final String HEADER = "{\"version\":\"1.0\",\"product_id\":2324,\"details_headers\":["
+                                         + "{\"name\":\"time\",\"type\":\"integer\",\"size\":4},"
+                                         + "{\"name\":\"battery_level\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"controller_gps_longitude\",\"type\":\"double\",\"size\":8},"
+                                         + "{\"name\":\"controller_gps_latitude\",\"type\":\"double\",\"size\":8},"
+                                         + "{\"name\":\"flying_state\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"alert_state\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"wifi_signal\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"product_gps_available\",\"type\":\"boolean\",\"size\":1},"
+                                         + "{\"name\":\"product_gps_longitude\",\"type\":\"double\",\"size\":8},"
+                                         + "{\"name\":\"product_gps_latitude\",\"type\":\"double\",\"size\":8},"
+                                         + "{\"name\":\"product_gps_position_error\",\"type\":\"integer\",\"size\":4},"
+                                         + "{\"name\":\"product_gps_sv_number\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"speed_vx\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"speed_vy\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"speed_vz\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"angle_phi\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"angle_theta\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"angle_psi\",\"type\":\"float\",\"size\":4},"
+                                         + "{\"name\":\"altitude\",\"type\":\"integer\",\"size\":4},"
+                                         + "{\"name\":\"flip_type\",\"type\":\"integer\",\"size\":1},"
+                                         + "{\"name\":\"speed\",\"type\":\"float\",\"size\":4}"
+                                         + "]}";
+
+    private static final int LINE_SIZE = 4 + 1 + 8 + 8 + 1 + 1 + 1 + 1 + 8 + 8 + 4 + 1 + 4 * 6 + 4 + 1 + 4;
+
+    private static File sPud;
+
+    @BeforeClass
+    public static void generatePud() throws IOException {
+        sPud = new File(ApplicationProvider.getApplicationContext().getCacheDir(), "bench.pud");
+        ByteBuffer line = ByteBuffer.allocate(LINE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(sPud))) {
+            out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            out.write(0);
+            // one line every 5 ms keeps time coherent
+            for (int i = 0; (long) i * LINE_SIZE < PUD_SIZE; i++) {
+                line.clear();
+                line.putInt(i * 5).put((byte) 80).putDouble(2.35 + i * 1e-7).putDouble(48.87 + i * 1e-7)
+                    .put((byte) (i < 100 ? 0 : 2)).put((byte) 0).put((byte) -40).put((byte) 1)
+                    .putDouble(2.35 + i * 1e-7).putDouble(48.87 + i * 1e-7).putInt(3).put((byte) 12)
+                    .putFloat(i % 7).putFloat(i % 5).putFloat(0.5f).putFloat(0.01f).putFloat(-0.02f)
+                    .putFloat(i % 360).putInt(i % 1000).put((byte) 0).putFloat(1.5f);
+                out.write(line.array(), 0, LINE_SIZE);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void deletePud() {
+        //noinspection ResultOfMethodCallIgnored
+        sPud.delete();
+    }
+
+    @Test
+    public void benchmarkLegacyAdapter() throws IOException {
+        run("legacy", LegacyPudAdapter::adapt);
+    }
+
+    @Test
+    public void benchmarkAdapter() throws IOException {
+        run("column plan", PudAdapter::adapt);
+    }
+
+    private interface Adapter {
+
+        void adapt(@NonNull InputStream from, @NonNull OutputStream to) throws IOException;
+    }
+
+    private static void run(@NonNull String name, @NonNull Adapter adapter) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            convert(adapter);
+        }
+        long totalNanos = 0;
+        long outputSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            outputSize = convert(adapter);
+            totalNanos += System.nanoTime() - start;
+        }
+        Log.i(TAG, String.format(Locale.US, "%s: %.1f ms per %d MB PUD (%d bytes of JSON)", name,
+                totalNanos / 1e6 / ITERATIONS, sPud.length() / (1024 * 1024), outputSize));
+    }
+
+    private static long convert(@NonNull Adapter adapter) throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        // as in production, where the HTTP response body stream is buffered, both adapters get a buffered stream
+        try (InputStream input = new BufferedInputStream(new FileInputStream(sPud))) {
+            adapter.adapt(input, output);
+        }
+        return output.mCount;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        long mCount;
+
+        @Override
+        public void write(int b) {
+            mCount++;
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) {
+            mCount += len;
+        }
+    }
+}
@@ -34,6 +34,7 @@ package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.flightdata;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.RawRes;
 import androidx.test.core.app.ApplicationProvider;
 
@@ -915,6 +916,44 @@ public class PudAdapterTests {
         // add more test files...
     }
 
+    @Test
+    public void testRealPudLegacyParity() {
+        Context context = ApplicationProvider.getApplicationContext();
+        assertLegacyParity(context.getResources().openRawResource(R.raw.anafi_binary_pud_1),
+                context.getResources().openRawResource(R.raw.anafi_binary_pud_1));
+    }
+
+    @Test
+    public void testFloatLegacyParity() {
+        byte[] header = ("{details_headers : [\n"
+                         + "  {\n"
+                         + "    name: \"angle_phi\",\n"
+                         + "    type: \"float\",\n"
+                         + "    size: 4\n"
+                         + "  }\n"
+                         + "]}\0").getBytes();
+        float[] values = {0.1f, -0.02f, 1.5f, 0, -0f, 1e-10f, 123456.79f, Float.MAX_VALUE, Float.MIN_VALUE,
+                          Float.NaN, Float.POSITIVE_INFINITY};
+        ByteBuffer pud = ByteBuffer.allocate(header.length + values.length * 4).order(ByteOrder.LITTLE_ENDIAN)
+                                   .put(header);
+        for (float value : values) {
+            pud.putFloat(value);
+        }
+        assertLegacyParity(new ByteArrayInputStream(pud.array()), new ByteArrayInputStream(pud.array()));
+    }
+
+    private static void assertLegacyParity(@NonNull InputStream input, @NonNull InputStream legacyInput) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream legacyOutput = new ByteArrayOutputStream();
+        try {
+            PudAdapter.adapt(input, output);
+            LegacyPudAdapter.adapt(legacyInput, legacyOutput);
+            assertThat(output.toString("UTF-8"), is(legacyOutput.toString("UTF-8")));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     private static void testRealValidPud(@RawRes int binaryPudRes, @RawRes int jsonPudRes) {
         Context context = ApplicationProvider.getApplicationContext();
 
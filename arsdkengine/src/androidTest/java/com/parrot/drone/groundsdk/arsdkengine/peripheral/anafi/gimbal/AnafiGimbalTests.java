@@ -370,6 +370,26 @@ public class AnafiGimbalTests extends ArsdkEngineTestBase {
         assertThat(mGimbal.getMaxSpeed(Gimbal.Axis.ROLL), doubleSettingIsUpToDateAt(-3, 3, 3));
     }
 
+    @Test
+    public void testMaxSpeedSuperseded() {
+        connectDrone(mDrone, 1, () -> mMockArsdkCore.commandReceived(1,
+                encodeCapabilities(Axis.PITCH, Axis.ROLL),
+                ArsdkEncoder.encodeGimbalMaxSpeed(0, -1, 1, 0,
+                        -2, 2, 1,
+                        -3, 3, 3)));
+
+        // change max speeds while previous commands are still waiting to be sent
+        mMockArsdkCore.holdCommands(1);
+        mGimbal.getMaxSpeed(Gimbal.Axis.PITCH).setValue(2);
+        mGimbal.getMaxSpeed(Gimbal.Axis.ROLL).setValue(1);
+
+        assertThat(mGimbal.getMaxSpeed(Gimbal.Axis.ROLL), doubleSettingIsUpdatingTo(-3, 1, 3));
+
+        // only the latest max speeds are sent
+        mMockArsdkCore.expect(new Expectation.Command(1, ExpectedCmd.gimbalSetMaxSpeed(0, 0, 2, 1)));
+        mMockArsdkCore.releaseCommands(1);
+    }
+
     @Test
     public void testAttitudeBounds() {
         connectDrone(mDrone, 1, () -> mMockArsdkCore.commandReceived(1,
@@ -45,6 +45,7 @@ import com.parrot.drone.groundsdk.MockAppStorageProvider;
 import com.parrot.drone.groundsdk.Ref;
 import com.parrot.drone.groundsdk.arsdkengine.ArsdkEngineTestBase;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaClient;
+import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaIndexingState;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItem;
 import com.parrot.drone.groundsdk.arsdkengine.http.MockHttpMedia;
 import com.parrot.drone.groundsdk.arsdkengine.test.R;
@@ -116,15 +117,19 @@ import static com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.media.Medi
 import static com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.media.MediaItemImplMatcher.mediaResourceImplEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -317,7 +322,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
 
         doReturn(DUMMY_REQUEST).when(mMockHttpClient).browse(any(), any());
         doReturn(DUMMY_REQUEST).when(mMockHttpClient).fetch(any(), any(), any());
-        doReturn(DUMMY_REQUEST).when(mMockHttpClient).download(any(), any(), any());
+        doReturn(DUMMY_REQUEST).when(mMockHttpClient).download(any(), any(), anyLong(), anyInt(), any());
         doReturn(DUMMY_REQUEST).when(mMockHttpClient).deleteMedia(any(), any());
         doReturn(DUMMY_REQUEST).when(mMockHttpClient).deleteResource(any(), any());
         doReturn(DUMMY_REQUEST).when(mMockHttpClient).deleteAll(any());
@@ -481,12 +486,87 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
         clearInvocations(mMockHttpClient);
         mMediaClientListenerCaptor.getValue().onMediaAdded(MOCK_PHOTO);
 
+        // check that media list is updated without browsing again
+        verify(mMockHttpClient, never()).browse(any(), any());
+        assertThat(mChangeCnt, is(2));
+
+        // mock indexed event from web-socket
+        mMediaClientListenerCaptor.getValue().onIndexingStateChanged(HttpMediaIndexingState.INDEXED);
+
         // check that media list is refreshed
         verify(mMockHttpClient).browse(eq(MediaStore.StorageType.INTERNAL), mBrowseCb.capture());
         mBrowseCb.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, Arrays.asList(
                 MOCK_PHOTO, MOCK_VIDEO));
 
+        assertThat(mChangeCnt, is(3));
+    }
+
+    @Test
+    public void testBrowseIncrementalUpdate() {
+        connectDrone(mDrone, 1);
+        clearInvocations(mMockHttpClient);
+
+        Ref<List<MediaItem>> listRef = mMediaStore.browse(list -> mChangeCnt++);
+
+        verify(mMockHttpClient).browse(any(), mBrowseCb.capture());
+        verify(mMockHttpClient).setListener(mMediaClientListenerCaptor.capture());
+        mBrowseCb.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200,
+                Collections.singletonList(MOCK_PHOTO));
+
+        assertThat(mChangeCnt, is(1));
+        assertThat(listRef.get(), contains(hasName("media1")));
+
+        HttpMediaClient.Listener listener = mMediaClientListenerCaptor.getValue();
+        clearInvocations(mMockHttpClient);
+
+        // media added
+        listener.onMediaAdded(MOCK_VIDEO);
+
         assertThat(mChangeCnt, is(2));
+        assertThat(listRef.get(), contains(hasName("media1"), hasName("media2")));
+
+        // resource removed
+        listener.onResourceRemoved("media1-res1");
+
+        assertThat(mChangeCnt, is(3));
+        assertThat(listRef.get(), contains(
+                allOf(hasName("media1"), containsResources(hasSize(JPG2_SIZE))),
+                hasName("media2")));
+
+        // resource added
+        listener.onResourceAdded(MockHttpMedia.resource("media1", "media1-res3", HttpMediaItem.Resource.Type.PHOTO,
+                HttpMediaItem.Resource.Format.DNG, DATE_1, JPG1_SIZE, 0, "/data/media/media1_res3.dng", null, null,
+                null, 32, 32, false));
+
+        assertThat(mChangeCnt, is(4));
+        assertThat(listRef.get(), contains(
+                allOf(hasName("media1"), containsResources(
+                        hasFormat(MediaItem.Resource.Format.JPG), hasFormat(MediaItem.Resource.Format.DNG))),
+                hasName("media2")));
+
+        // media removed
+        listener.onMediaRemoved("media1");
+
+        assertThat(mChangeCnt, is(5));
+        assertThat(listRef.get(), contains(hasName("media2")));
+
+        // removal of unknown media is ignored
+        listener.onMediaRemoved("media1");
+
+        assertThat(mChangeCnt, is(5));
+
+        verify(mMockHttpClient, never()).browse(any(), any());
+
+        // resource added to unknown media, list is browsed again
+        listener.onResourceAdded(MockHttpMedia.resource("media5", "media5-res1", HttpMediaItem.Resource.Type.PHOTO,
+                HttpMediaItem.Resource.Format.JPG, DATE_1, JPG1_SIZE, 0, "/data/media/media5_res1.jpg", null, null,
+                null, 32, 32, false));
+
+        verify(mMockHttpClient).browse(any(), mBrowseCb.capture());
+        mBrowseCb.getValue().onRequestComplete(HttpRequest.Status.SUCCESS, 200, Arrays.asList(MOCK_PHOTO, MOCK_VIDEO));
+
+        assertThat(mChangeCnt, is(6));
+        assertThat(listRef.get(), contains(hasName("media1"), hasName("media2")));
     }
 
     @Test
@@ -626,7 +706,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
                 hasCurrentMedia(listRef.get().get(0))));
 
         verify(mMockHttpClient).download(eq("/data/media/media1_res1.jpg"),
-                eq(new File("/tmp/media1-res1")), mDownloadCb.capture());
+                eq(new File("/tmp/media1-res1")), eq(JPG1_SIZE), eq(1), mDownloadCb.capture());
 
         clearInvocations(mMockHttpClient);
         mDownloadCb.getValue().onRequestProgress(50);
@@ -676,7 +756,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
                 hasCurrentMedia(listRef.get().get(0))));
 
         verify(mMockHttpClient).download(eq("/data/media/media1_res2.jpg"),
-                eq(new File("/tmp/media1-res2")), mDownloadCb.capture());
+                eq(new File("/tmp/media1-res2")), eq(JPG2_SIZE), eq(1), mDownloadCb.capture());
 
         onNextChange(() -> {
             assertThat(mChangeCnt, is(5));
@@ -710,7 +790,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
                 hasCurrentMedia(listRef.get().get(1))));
 
         verify(mMockHttpClient).download(eq("/data/media/media2_res1.mp4"),
-                eq(new File("/tmp/media2-res1")), mDownloadCb.capture());
+                eq(new File("/tmp/media2-res1")), eq(MP4_SIZE), eq(1), mDownloadCb.capture());
 
         onNextChange(() -> {
             assertThat(mChangeCnt, is(7));
@@ -781,7 +861,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
                 hasCurrentMedia(listRef.get().get(0))));
 
         verify(mMockHttpClient).download(eq("/data/media/media1_res1.jpg"),
-                eq(new File("/tmp/media1-res1")), mDownloadCb.capture());
+                eq(new File("/tmp/media1-res1")), eq(JPG1_SIZE), eq(1), mDownloadCb.capture());
 
         clearInvocations(mMockHttpClient);
         mDownloadCb.getValue().onRequestComplete(HttpRequest.Status.FAILED, 404);
@@ -800,7 +880,7 @@ public class AnafiMediaStoreTests extends ArsdkEngineTestBase {
                 hasCurrentMedia(listRef.get().get(0))));
 
         verify(mMockHttpClient).download(eq("/data/media/media1_res2.jpg"),
-                eq(new File("/tmp/media1-res2")), mDownloadCb.capture());
+                eq(new File("/tmp/media1-res2")), eq(JPG2_SIZE), eq(1), mDownloadCb.capture());
 
         clearInvocations(mMockHttpClient);
         mDownloadCb.getValue().onRequestComplete(HttpRequest.Status.FAILED, 500);
@@ -37,15 +37,20 @@ import com.parrot.drone.groundsdk.device.Drone;
 import com.parrot.drone.groundsdk.device.peripheral.DevToolbox;
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
+import com.parrot.drone.groundsdk.internal.tasks.TestExecutor;
 import com.parrot.drone.sdkcore.arsdk.ArsdkEncoder;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureDebug;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureGeneric;
 import com.parrot.drone.sdkcore.arsdk.Backend;
 import com.parrot.drone.sdkcore.arsdk.Expectation;
 import com.parrot.drone.sdkcore.arsdk.ExpectedCmd;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
 
+import org.hamcrest.Matcher;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.parrot.drone.groundsdk.DebugSettingMatcher.hasName;
 import static com.parrot.drone.groundsdk.DebugSettingMatcher.hasRange;
 import static com.parrot.drone.groundsdk.DebugSettingMatcher.hasStep;
@@ -56,6 +61,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -175,7 +181,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                 allOf(hasName("label7"), isReadOnly(true), isUpdating(false), hasValue(100), hasStep(false),
                         hasRange(5, 6)),
                 allOf(hasName("label8"), isReadOnly(true), isUpdating(false), hasValue(-100), hasStep(0.5),
-                        hasRange(5, 6.5))));
+                        hasRange(5, 6.5)),
+                mCommandMetricsMatcher));
     }
 
     @Test
@@ -189,7 +196,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         ArsdkFeatureDebug.SettingType.BOOL, ArsdkFeatureDebug.SettingMode.READ_WRITE, "", "", "", "1"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue(true))));
+                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue(true)),
+                mCommandMetricsMatcher));
 
         DevToolbox.BooleanDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.BooleanDebugSetting.class);
@@ -230,7 +238,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         ArsdkFeatureDebug.SettingType.BOOL, ArsdkFeatureDebug.SettingMode.READ_ONLY, "", "", "", "1"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue(true))));
+                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue(true)),
+                mCommandMetricsMatcher));
 
         DevToolbox.BooleanDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.BooleanDebugSetting.class);
@@ -254,7 +263,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         "val"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue("val"))));
+                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue("val")),
+                mCommandMetricsMatcher));
 
         DevToolbox.TextDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.TextDebugSetting.class);
@@ -284,7 +294,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         "val"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue("val"))));
+                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue("val")),
+                mCommandMetricsMatcher));
 
         DevToolbox.TextDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.TextDebugSetting.class);
@@ -308,7 +319,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         "0"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue(0))));
+                allOf(hasName("label1"), isReadOnly(false), isUpdating(false), hasValue(0)),
+                mCommandMetricsMatcher));
 
         DevToolbox.NumericDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.NumericDebugSetting.class);
@@ -338,7 +350,8 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
                         "0"));
         assertThat(mChangeCnt, is(1));
         assertThat(mDevToolbox.getDebugSettings(), contains(
-                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue(0))));
+                allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue(0)),
+                mCommandMetricsMatcher));
 
         DevToolbox.NumericDebugSetting setting =
                 mDevToolbox.getDebugSettings().get(0).as(DevToolbox.NumericDebugSetting.class);
@@ -350,6 +363,49 @@ public class DebugDevToolboxTests extends ArsdkEngineTestBase {
         assertThat(setting, allOf(hasName("label1"), isReadOnly(true), isUpdating(false), hasValue(0)));
     }
 
+    @Test
+    public void testCommandMetricsSetting() {
+        ArsdkCommandMetrics.get().reset();
+        connectDrone(mDrone, 1, mGetAllDebugSettingsRunnable);
+        assertThat(mChangeCnt, is(0));
+
+        mMockArsdkCore.commandReceived(1,
+                ArsdkEncoder.encodeDebugSettingsInfo(ArsdkFeatureGeneric.ListFlags.toBitField(
+                        ArsdkFeatureGeneric.ListFlags.FIRST, ArsdkFeatureGeneric.ListFlags.LAST), 1, "label1",
+                        ArsdkFeatureDebug.SettingType.BOOL, ArsdkFeatureDebug.SettingMode.READ_WRITE, "", "", "", "1"));
+        assertThat(mChangeCnt, is(1));
+
+        DevToolbox.TextDebugSetting setting =
+                mDevToolbox.getDebugSettings().get(1).as(DevToolbox.TextDebugSetting.class);
+        assertThat(setting, allOf(hasName(DebugDevToolbox.COMMAND_METRICS_SETTING_NAME), isReadOnly(true),
+                isUpdating(false)));
+        assertThat(setting.getValue(), containsString("rx queue delay: count: 0"));
+
+        // metrics are not writable
+        assertThat(setting.setValue("newVal"), is(false));
+        assertThat(mChangeCnt, is(1));
+
+        // unchanged metrics should not trigger a change
+        TestExecutor.mockTimePasses(DebugDevToolbox.COMMAND_METRICS_REFRESH_PERIOD, TimeUnit.MILLISECONDS);
+        assertThat(mChangeCnt, is(1));
+
+        // metrics should be refreshed periodically
+        ArsdkCommandMetrics.get().getRxQueueDelay().record(TimeUnit.MILLISECONDS.toNanos(2));
+        TestExecutor.mockTimePasses(DebugDevToolbox.COMMAND_METRICS_REFRESH_PERIOD, TimeUnit.MILLISECONDS);
+        assertThat(mChangeCnt, is(2));
+        assertThat(setting.getValue(), containsString("rx queue delay: count: 1"));
+
+        // refresh should stop when disconnected
+        disconnectDrone(mDrone, 1);
+        assertThat(mChangeCnt, is(3));
+        ArsdkCommandMetrics.get().getRxQueueDelay().record(TimeUnit.MILLISECONDS.toNanos(2));
+        TestExecutor.mockTimePasses(DebugDevToolbox.COMMAND_METRICS_REFRESH_PERIOD, TimeUnit.MILLISECONDS);
+        assertThat(mChangeCnt, is(3));
+    }
+
+    private final Matcher<DevToolbox.DebugSetting> mCommandMetricsMatcher = allOf(
+            hasName(DebugDevToolbox.COMMAND_METRICS_SETTING_NAME), isReadOnly(true), isUpdating(false));
+
     private final Runnable mGetAllDebugSettingsRunnable = () -> mMockArsdkCore.expect(
             new Expectation.Command(1, ExpectedCmd.debugGetAllSettings(), false));
 }
@@ -0,0 +1,299 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class JournalStoreBackendTests {
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(ApplicationProvider.getApplicationContext().getCacheDir(), "journal-tests");
+        deleteDirectory();
+    }
+
+    @After
+    public void teardown() {
+        deleteDirectory();
+    }
+
+    @Test
+    public void testEmpty() {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        assertThat(backend.isEmpty(), is(true));
+        assertThat(backend.keys(), empty());
+        assertThat(backend.load("device-1"), nullValue());
+    }
+
+    @Test
+    public void testStoreAndReload() throws JSONException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        backend.store("device-1", new JSONObject().put("name", "drone").put("model", 2308)
+                                                  .put("camera", new JSONObject().put("mode", "photo")));
+        backend.store("device-2", new JSONObject().put("name", "rc"));
+        backend.flush();
+
+        backend = new JournalStoreBackend(mDirectory);
+        assertThat(backend.keys(), containsInAnyOrder("device-1", "device-2"));
+        JSONObject device = backend.load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+        assertThat(device.getInt("model"), is(2308));
+        assertThat(device.getJSONObject("camera").getString("mode"), is("photo"));
+    }
+
+    @Test
+    public void testUpdate() throws JSONException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        JSONObject content = new JSONObject().put("name", "drone").put("camera", new JSONObject().put("mode", "photo"));
+        backend.store("device-1", content);
+        backend.flush();
+
+        content.put("camera", new JSONObject().put("mode", "recording"));
+        content.remove("name");
+        backend.update("device-1", content, new HashSet<>(Arrays.asList("camera", "name")));
+
+        // visible immediately, before being written
+        JSONObject device = backend.load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.has("name"), is(false));
+        assertThat(device.getJSONObject("camera").getString("mode"), is("recording"));
+
+        backend.flush();
+        device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.has("name"), is(false));
+        assertThat(device.getJSONObject("camera").getString("mode"), is("recording"));
+    }
+
+    @Test
+    public void testRemove() throws JSONException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        backend.store("device-1", new JSONObject().put("name", "drone"));
+        backend.flush();
+        backend.update("device-1", null, Collections.singleton("name"));
+        backend.flush();
+
+        assertThat(new JournalStoreBackend(mDirectory).keys(), empty());
+    }
+
+    @Test
+    public void testDispose() throws JSONException, InterruptedException {
+        int writerCount = writerThreadCount();
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        backend.store("device-1", new JSONObject().put("name", "drone"));
+        assertThat(writerThreadCount(), is(writerCount + 1));
+
+        // pending changes are written upon dispose
+        backend.dispose();
+        JSONObject device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+
+        // writer thread terminates
+        for (int i = 0; i < 100 && writerThreadCount() > writerCount; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(writerThreadCount(), is(writerCount));
+
+        // backend remains usable
+        backend.store("device-1", new JSONObject().put("name", "other"));
+        backend.dispose();
+        device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("other"));
+    }
+
+    @Test
+    public void testCoalescing() throws JSONException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        JSONObject content = new JSONObject();
+        for (int i = 0; i < 100; i++) {
+            content.put("key" + i, i);
+            backend.update("device-1", content, Collections.singleton("key" + i));
+        }
+        backend.flush();
+
+        assertThat(backend.getWriteCount(), lessThan(100));
+        JSONObject device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.length(), is(100));
+    }
+
+    @Test
+    public void testCompaction() throws JSONException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        JSONObject content = new JSONObject().put("value", 0);
+        backend.store("device-1", content);
+        backend.flush();
+        File journal = journalFile();
+        long initialLength = journal.length();
+
+        for (int i = 1; i <= JournalStoreBackend.COMPACTION_THRESHOLD * 2; i++) {
+            content.put("value", i);
+            backend.update("device-1", content, Collections.singleton("value"));
+            backend.flush();
+        }
+
+        assertThat(journal.length(), lessThan(initialLength * JournalStoreBackend.COMPACTION_THRESHOLD));
+        JSONObject device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getInt("value"), is(JournalStoreBackend.COMPACTION_THRESHOLD * 2));
+    }
+
+    @Test
+    public void testTruncatedRecord() throws JSONException, IOException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        JSONObject content = new JSONObject().put("name", "drone");
+        backend.store("device-1", content);
+        backend.flush();
+        content.put("model", 2308);
+        backend.update("device-1", content, Collections.singleton("model"));
+        backend.flush();
+
+        // simulate an interrupted append
+        try (FileOutputStream out = new FileOutputStream(journalFile(), true)) {
+            out.write(new byte[] {1, 0, 4, 'n', 'a'});
+        }
+
+        backend = new JournalStoreBackend(mDirectory);
+        JSONObject device = backend.load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+        assertThat(device.getInt("model"), is(2308));
+
+        // subsequent appends must remain readable
+        device.put("serial", "PI040");
+        backend.update("device-1", device, Collections.singleton("serial"));
+        backend.flush();
+
+        device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+        assertThat(device.getInt("model"), is(2308));
+        assertThat(device.getString("serial"), is("PI040"));
+    }
+
+    @Test
+    public void testBadRecordType() throws JSONException, IOException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        backend.store("device-1", new JSONObject().put("name", "drone").put("model", 2308));
+        backend.flush();
+
+        try (FileOutputStream out = new FileOutputStream(journalFile(), true)) {
+            out.write(new byte[] {42, 0, 4, 'n', 'a', 'm', 'e'});
+        }
+
+        // records before the bad one are kept
+        backend = new JournalStoreBackend(mDirectory);
+        JSONObject device = backend.load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+        assertThat(device.getInt("model"), is(2308));
+
+        // and the journal gets rewritten without the bad record
+        backend.flush();
+        device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+        assertThat(device.getInt("model"), is(2308));
+    }
+
+    @Test
+    public void testCorruptRecordLength() throws JSONException, IOException {
+        JournalStoreBackend backend = new JournalStoreBackend(mDirectory);
+        backend.store("device-1", new JSONObject().put("name", "drone"));
+        backend.flush();
+
+        // put record claiming a huge value length
+        try (FileOutputStream out = new FileOutputStream(journalFile(), true)) {
+            out.write(new byte[] {1, 0, 4, 'n', 'a', 'm', 'e', 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, '"'});
+        }
+
+        JSONObject device = new JournalStoreBackend(mDirectory).load("device-1");
+        assertThat(device, notNullValue());
+        assertThat(device.getString("name"), is("drone"));
+    }
+
+    private File journalFile() {
+        File[] files = mDirectory.listFiles();
+        assertThat(files, notNullValue());
+        assertThat(files.length, is(1));
+        return files[0];
+    }
+
+    private static int writerThreadCount() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("persistent-store")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void deleteDirectory() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        mDirectory.delete();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Measures the cost of committing a fully populated Anafi preset, setting by setting, as happens when all settings are
+ * received from a drone upon connection.
+ */
+public class PersistentStoreBenchmark {
+
+    private static final String TAG = "PersistentStoreBench";
+
+    private static final int ITERATIONS = 20;
+
+    /** Preset components, each with its setting count. */
+    private static final Object[][] ANAFI_PRESET = {
+            {"camera", 40}, {"gimbal", 12}, {"wifiAccessPoint", 6}, {"geofence", 4}, {"returnHome", 8},
+            {"manualCopter", 14}, {"flightPlan", 4}, {"lookAt", 2}, {"followMe", 6}, {"antiflickering", 2},
+            {"precisehome", 2}, {"thermalControl", 6}, {"streamServer", 2}, {"magnetometer", 2}, {"battery", 2},
+            {"leds", 2}, {"systemInfo", 4}, {"targetTracker", 4}, {"pilotingControl", 2}, {"geoTimelapse", 4},
+    };
+
+    @Test
+    public void benchmarkConnectBurst() throws JSONException {
+        Context context = ApplicationProvider.getApplicationContext();
+        File directory = new File(context.getCacheDir(), "journal-bench");
+
+        long sharedPrefsNanos = 0, journalNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            SharedPreferencesStoreBackend sharedPrefs = new SharedPreferencesStoreBackend(context);
+            long start = System.nanoTime();
+            connectBurst(new PersistentStore(context, sharedPrefs));
+            sharedPrefs.flush();
+            sharedPrefsNanos += System.nanoTime() - start;
+
+            JournalStoreBackend journal = new JournalStoreBackend(directory);
+            start = System.nanoTime();
+            connectBurst(new PersistentStore(context, journal));
+            journal.flush();
+            journalNanos += System.nanoTime() - start;
+            journal.dispose();
+        }
+
+        Log.i(TAG, String.format(Locale.US, "connect burst: shared preferences %.2f ms, journal %.2f ms",
+                sharedPrefsNanos / 1e6 / ITERATIONS, journalNanos / 1e6 / ITERATIONS));
+    }
+
+    /**
+     * Commits each setting of the Anafi preset, one by one.
+     * <p>
+     * Callers must wait for the backend to complete writing for the measure to be meaningful.
+     *
+     * @param store persistent store to commit settings to
+     *
+     * @throws JSONException should not happen
+     */
+    private static void connectBurst(@NonNull PersistentStore store) throws JSONException {
+        PersistentStore.Dictionary preset = store.getPreset("preset-bench", null);
+        for (Object[] component : ANAFI_PRESET) {
+            PersistentStore.Dictionary dict = preset.getDictionary((String) component[0]);
+            for (int setting = 0; setting < (int) component[1]; setting++) {
+                dict.put("setting" + setting, new JSONObject()
+                        .put("value", Math.random())
+                        .put("range", new JSONArray().put(0).put(100))).commit();
+            }
+        }
+    }
+}
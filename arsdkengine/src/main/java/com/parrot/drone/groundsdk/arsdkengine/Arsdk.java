@@ -39,6 +39,7 @@ import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DeviceController;
 import com.parrot.drone.groundsdk.device.DeviceConnector;
 import com.parrot.drone.groundsdk.device.DeviceModel;
 import com.parrot.drone.groundsdk.device.DeviceState;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.DeviceConnectorCore;
 import com.parrot.drone.groundsdk.internal.device.DeviceModels;
 import com.parrot.drone.sdkcore.arsdk.ArsdkCore;
@@ -55,6 +56,7 @@ import com.parrot.drone.sdkcore.arsdk.flightlog.ArsdkFlightLogDownloadRequest;
 import com.parrot.drone.sdkcore.stream.SdkCoreStream;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Set;
@@ -67,6 +69,12 @@ import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG;
  */
 class Arsdk {
 
+    /** Name of the folder, in application files directory, where command captures are stored. */
+    private static final String COMMAND_CAPTURE_DIRECTORY = "arsdk-captures";
+
+    /** Command capture file extension. */
+    private static final String COMMAND_CAPTURE_EXT = ".acap";
+
     /** Arsdk engine instance. */
     @NonNull
     private final ArsdkEngine mEngine;
@@ -75,6 +83,10 @@ class Arsdk {
     @NonNull
     private final ArsdkCore mArsdkCore;
 
+    /** Directory where command captures are stored, {@code null} if command capture is disabled. */
+    @Nullable
+    private final File mCommandCaptureDirectory;
+
     /**
      * Constructor.
      *
@@ -83,6 +95,8 @@ class Arsdk {
     Arsdk(@NonNull ArsdkEngine engine) {
         mEngine = engine;
         mArsdkCore = mEngine.createArsdkCore(mArsdkCoreListener);
+        mCommandCaptureDirectory = GroundSdkConfig.get().isArsdkCommandCaptureEnabled() ?
+                new File(mEngine.getContext().getFilesDir(), COMMAND_CAPTURE_DIRECTORY) : null;
     }
 
     /**
@@ -256,6 +270,12 @@ class Arsdk {
             return true;
         }
 
+        @Override
+        public boolean sendCommand(@NonNull ArsdkCommand command, long supersedeKey) {
+            mDevice.sendCommand(command, supersedeKey);
+            return true;
+        }
+
         @Override
         public void setNoAckCommandLoopPeriod(int period) {
             mDevice.setNoAckCommandLoopPeriod(period);
@@ -321,6 +341,14 @@ class Arsdk {
 
         @Override
         public void onConnected() {
+            if (mCommandCaptureDirectory != null) {
+                mDevice.startCommandCapture(new File(mCommandCaptureDirectory,
+                        mDevice.getUid() + "-" + System.currentTimeMillis() + COMMAND_CAPTURE_EXT));
+            }
+            ArsdkDevice.CommandInterceptor interceptor = mDeviceController.getCommandInterceptor();
+            if (interceptor != null) {
+                mDevice.setCommandInterceptor(interceptor);
+            }
             LocalDeviceProvider provider = getProviderForBackendType(mDevice.getBackendType());
             assert provider != null;
             mDeviceController.onLinkConnected(provider, this);
@@ -328,6 +356,12 @@ class Arsdk {
 
         @Override
         public void onDisconnected(boolean removing) {
+            if (mCommandCaptureDirectory != null) {
+                mDevice.stopCommandCapture();
+            }
+            if (mDeviceController.getCommandInterceptor() != null) {
+                mDevice.setCommandInterceptor(null);
+            }
             mDeviceController.onLinkDisconnected(removing);
             if (removing) {
                 // disconnected because the device is about to be removed, remove the provider
@@ -64,6 +64,7 @@ import com.parrot.drone.sdkcore.arsdk.backend.mux.ArsdkDebugMuxBackendController
 import com.parrot.drone.sdkcore.arsdk.backend.mux.ArsdkUsbMuxBackendController;
 import com.parrot.drone.sdkcore.arsdk.backend.net.ArsdkWifiBackendController;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
 
 import java.io.PrintWriter;
 import java.util.HashMap;
@@ -72,6 +73,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Ground sdk engine implementation for arsdk.
@@ -106,6 +108,10 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
     @Nullable
     private BlackBoxRecorder mBlackBoxRecorder;
 
+    /** Engine thread, {@code null} when disabled or when the engine is stopped. */
+    @Nullable
+    private EngineThread mEngineThread;
+
     /**
      * Constructor.
      *
@@ -116,7 +122,8 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
         // TODO: add arsdkengine configuration API. For now enable log on all builds
         ArsdkCore.setCommandLogLevel(ArsdkCommand.LOG_LEVEL_ACKNOWLEDGED_WITHOUT_FREQUENT);
         publishUtility(RcUsbAccessoryManager.class, this);
-        mPersistentStore = AppDefaults.importTo(new PersistentStore(getContext()));
+        mPersistentStore = AppDefaults.importTo(new PersistentStore(getContext(),
+                GroundSdkConfig.get(getContext()).isPersistentStoreJournalEnabled()));
 
         mEphemerisStore = EphemerisStore.get(getContext());
         mDeviceControllers = new HashMap<>();
@@ -175,6 +182,10 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
             mBlackBoxRecorder = new BlackBoxRecorder(this, blackBoxStorage);
         }
 
+        if (GroundSdkConfig.get(getContext()).isEngineThreadEnabled()) {
+            mEngineThread = createEngineThread();
+        }
+
         // create all known devices
         for (String uid : mPersistentStore.getDevicesUid()) {
             PersistentStore.Dictionary deviceDict = mPersistentStore.getDevice(uid);
@@ -225,6 +236,11 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
         tryStop();
     }
 
+    @Override
+    protected void onStop() {
+        mPersistentStore.dispose();
+    }
+
     @Override
     public void manageRcAccessory(@NonNull UsbAccessory rcAccessory) {
         if (mUsbBackendController != null) {
@@ -262,6 +278,31 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
         return mBlackBoxRecorder;
     }
 
+    /**
+     * Retrieves the engine thread.
+     * <p>
+     * Device controllers created while the engine thread is enabled offload decoding of high-rate telemetry from the
+     * main thread to the engine thread.
+     *
+     * @return engine thread, {@code null} if disabled
+     */
+    @Nullable
+    public final EngineThread getEngineThread() {
+        return mEngineThread;
+    }
+
+    /**
+     * Factory function to create the engine thread.
+     * <p>
+     * This is to allow mocking the engine thread for unit tests.
+     *
+     * @return a new engine thread instance
+     */
+    @NonNull
+    EngineThread createEngineThread() {
+        return EngineThread.create("arsdkengine");
+    }
+
     /**
      * Factory function to create arsdk controller.
      * <p>
@@ -274,8 +315,10 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
     @NonNull
     ArsdkCore createArsdkCore(@NonNull ArsdkCore.Listener listener) {
         Context context = getContext();
+        GroundSdkConfig config = GroundSdkConfig.get();
         return new ArsdkCore(mBackendControllers, listener, getControllerDescriptor(),
-                getControllerVersion(context), GroundSdkConfig.get().isVideoDecodingEnabled());
+                getControllerVersion(context), config.isVideoDecodingEnabled(),
+                TimeUnit.MILLISECONDS.toNanos(config.getMainDispatchSliceBudget()));
     }
 
     /**
@@ -391,6 +434,11 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
             iterator.next().forceStop();
             iterator.remove();
         }
+
+        if (mEngineThread != null) {
+            mEngineThread.quit();
+            mEngineThread = null;
+        }
     }
 
     /**
@@ -421,6 +469,7 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
     public void dump(@NonNull PrintWriter writer, @NonNull Set<String> args) {
         if (args.isEmpty() || args.contains("--help")) {
             writer.write("\t--controllers: dumps devices controllers\n");
+            writer.write("\t--cmd-metrics: dumps received and sent commands metrics\n");
         } else {
             if (args.contains("--controllers") || args.contains("--all")) {
                 writer.write("Device controllers: " + mDeviceControllers.size() + "\n");
@@ -428,6 +477,13 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
                     controller.dump(writer, args, "\t");
                 }
             }
+            if (args.contains("--cmd-metrics") || args.contains("--all")) {
+                writer.write("Command metrics:\n");
+                ArsdkCommandMetrics.get().dump(writer, "\t");
+                for (DeviceController<?> controller : mDeviceControllers.values()) {
+                    controller.dumpCommandHandling(writer, "\t");
+                }
+            }
         }
         mPersistentStore.dump(writer, args);
         mArsdk.dump(writer, args);
@@ -0,0 +1,115 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Engine thread, where device controllers offload received commands processing from the main thread.
+ * <p>
+ * Work posted to the engine thread must not access components, nor any other main thread state; it produces immutable
+ * results that are then applied on the main thread.
+ */
+public abstract class EngineThread {
+
+    /**
+     * Creates a new engine thread, backed by a dedicated looper thread.
+     *
+     * @param name thread name
+     *
+     * @return a new, started engine thread
+     */
+    @NonNull
+    static EngineThread create(@NonNull String name) {
+        return new LooperEngineThread(name);
+    }
+
+    /**
+     * Posts a runnable for execution on the engine thread.
+     * <p>
+     * May be called from any thread.
+     *
+     * @param runnable runnable to execute
+     */
+    public abstract void post(@NonNull Runnable runnable);
+
+    /**
+     * Stops the engine thread.
+     * <p>
+     * Pending runnables are dropped.
+     */
+    public abstract void quit();
+
+    /** Engine thread implementation backed by an {@code HandlerThread}. */
+    private static final class LooperEngineThread extends EngineThread {
+
+        /** Looper thread. */
+        @NonNull
+        private final HandlerThread mThread;
+
+        /** Handler on the looper thread. */
+        @NonNull
+        private final Handler mHandler;
+
+        /**
+         * Constructor.
+         *
+         * @param name thread name
+         */
+        LooperEngineThread(@NonNull String name) {
+            mThread = new HandlerThread(name, Process.THREAD_PRIORITY_DISPLAY);
+            mThread.start();
+            mHandler = new Handler(mThread.getLooper());
+        }
+
+        @Override
+        public void post(@NonNull Runnable runnable) {
+            mHandler.post(runnable);
+        }
+
+        @Override
+        public void quit() {
+            mThread.quit();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return mThread.getName();
+        }
+    }
+}
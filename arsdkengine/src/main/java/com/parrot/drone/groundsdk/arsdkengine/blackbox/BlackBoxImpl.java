@@ -37,63 +37,52 @@ import androidx.annotation.NonNull;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.EnvironmentData;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.Event;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.FlightData;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.HeaderInfo;
-import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.TimeStampedData;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
 import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Black box data.
+ * <p>
+ * Flight and environment data samples are recorded in preallocated circular buffers, which do not allocate while
+ * recording. The JSON black box document is only produced when the black box is {@link #writeTo written}, by
+ * streaming each recorded sample to the destination.
  */
 class BlackBoxImpl implements BlackBoxStorage.BlackBox {
 
-    /** JSon serializer thread-safe singleton. */
+    /** JSon serializer thread-safe singleton, used to serialize header and events. */
     private static final Gson JSON_SERIALIZER = new GsonBuilder()
             .excludeFieldsWithModifiers(0)
             .excludeFieldsWithoutExposeAnnotation()
             .create();
 
     /** Black box header. */
-    @Expose
-    @SerializedName("header")
     @NonNull
     final HeaderInfo mHeader;
 
     /** Black box list of events. */
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection") // read when serialized to json
-    @Expose
-    @SerializedName("datas")
     @NonNull
-    private final LinkedList<Event> mEvents;
+    private final List<Event> mEvents;
 
     /** Black box flight data sample buffer. */
-    @Expose
-    @SerializedName("datas_5Hz")
     @NonNull
-    private final LinkedList<FlightData> mFlightInfos;
+    private final FlightData.Buffer mFlightInfos;
 
     /** Black box environment data sample buffer. */
-    @Expose
-    @SerializedName("datas_1Hz")
     @NonNull
-    private final LinkedList<EnvironmentData> mEnvironmentInfos;
-
-    /** Maximum amount of samples in the flight data circular buffer. */
-    private final int mMaxFlightSamples;
-
-    /** Maximum amount of samples in the environment data circular buffer. */
-    private final int mMaxEnvironmentSamples;
+    private final EnvironmentData.Buffer mEnvironmentInfos;
 
     /**
      * Constructor.
@@ -103,11 +92,9 @@ class BlackBoxImpl implements BlackBoxStorage.BlackBox {
      */
     BlackBoxImpl(int bufferCapacity, @NonNull DroneCore drone) {
         mHeader = new HeaderInfo(drone);
-        mEvents = new LinkedList<>();
-        mFlightInfos = new LinkedList<>();
-        mEnvironmentInfos = new LinkedList<>();
-        mMaxFlightSamples = 5 * bufferCapacity;
-        mMaxEnvironmentSamples = bufferCapacity;
+        mEvents = new ArrayList<>();
+        mFlightInfos = new FlightData.Buffer(5 * bufferCapacity);
+        mEnvironmentInfos = new EnvironmentData.Buffer(bufferCapacity);
     }
 
     /**
@@ -121,55 +108,44 @@ class BlackBoxImpl implements BlackBoxStorage.BlackBox {
 
     /**
      * Records a new flight data sample in the black box.
+     * <p>
+     * The sample is discarded in case it did not change since the latest recorded sample.
      *
-     * @param info flight data sample to record
+     * @param info flight data to record a sample from
      */
-    void addFlightInfo(@NonNull FlightData info) {
-        addInfo(info, mFlightInfos, mMaxFlightSamples);
+    void addFlightInfo(@NonNull FlightData.Builder info) {
+        info.recordTo(mFlightInfos);
     }
 
     /**
      * Records a new environment data sample in the black box.
+     * <p>
+     * The sample is discarded in case it did not change since the latest recorded sample.
      *
-     * @param info environment data sample to record
+     * @param info environment data to record a sample from
      */
-    void addEnvironmentInfo(@NonNull EnvironmentData info) {
-        addInfo(info, mEnvironmentInfos, mMaxEnvironmentSamples);
+    void addEnvironmentInfo(@NonNull EnvironmentData.Builder info) {
+        info.recordTo(mEnvironmentInfos);
     }
 
     @Override
     public void writeTo(@NonNull OutputStream stream) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
         try {
-            Writer writer = new OutputStreamWriter(stream);
-            JSON_SERIALIZER.toJson(this, writer);
+            writer.beginObject();
+            writer.name("header");
+            JSON_SERIALIZER.toJson(mHeader, HeaderInfo.class, writer);
+            writer.name("datas").beginArray();
+            for (Event event : mEvents) {
+                JSON_SERIALIZER.toJson(event, event.getClass(), writer);
+            }
+            writer.endArray();
+            mFlightInfos.writeJson(writer.name("datas_5Hz"));
+            mEnvironmentInfos.writeJson(writer.name("datas_1Hz"));
+            writer.endObject();
             writer.flush();
         } catch (JsonIOException e) {
             throw new IOException(e);
         }
     }
-
-    /**
-     * Records the given info sample to the given sample buffer.
-     * <p>
-     * This method compares the timestamps of the current buffer head and of the sample to be added; in case they are
-     * the same, then the sample is discarded.
-     * <p>
-     * This method ensures that the destination buffer never grows past a given capacity. If adding a new sample would
-     * exceed this capacity, then the eldest element is removed beforehand.
-     *
-     * @param info           sample to record
-     * @param buffer         buffer to record to
-     * @param bufferCapacity buffer capacity to respect
-     * @param <T>            type of sample
-     */
-    private static <T extends TimeStampedData> void addInfo(@NonNull T info, @NonNull LinkedList<T> buffer,
-                                                            int bufferCapacity) {
-        TimeStampedData head = buffer.peekLast();
-        if (head == null || head.timeStampDiffersFrom(info)) {
-            if (buffer.size() >= bufferCapacity) {
-                buffer.removeFirst();
-            }
-            buffer.addLast(info);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -36,14 +36,17 @@ import android.location.Location;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Black box environment data sample.
  * <p>
  * Contains information such as current drone geo location, controller geo location, controller piloting command, wifi
  * signal level.
+ * <p>
+ * Samples are recorded in a {@link Buffer}.
  */
 public final class EnvironmentData extends TimeStampedData {
 
@@ -52,7 +55,7 @@ public final class EnvironmentData extends TimeStampedData {
      */
     public static final class Builder {
 
-        /** Mutable environment data, serves as a base to produce immutable samples. */
+        /** Mutable environment data, serves as a base to record samples. */
         @NonNull
         private final EnvironmentData mTemplate;
 
@@ -125,26 +128,91 @@ public final class EnvironmentData extends TimeStampedData {
         }
 
         /**
-         * Generates a new sample from current data.
+         * Records a new sample from current data.
          *
-         * @return a new immutable environment data sample.
+         * @param buffer buffer to record the sample to
          */
+        public void recordTo(@NonNull Buffer buffer) {
+            buffer.record(mTemplate);
+        }
+    }
+
+    /**
+     * Environment data samples circular buffer.
+     */
+    public static final class Buffer extends SampleBuffer<EnvironmentData> {
+
+        /** Drone geo locations, in latitude, longitude, altitude order; 3 values per sample. */
+        @NonNull
+        private final double[] mDroneLocations;
+
+        /** Controller geo locations, in latitude, longitude, altitude order; 3 values per sample. */
         @NonNull
-        public EnvironmentData build() {
-            return new EnvironmentData(mTemplate);
+        private final double[] mControllerLocations;
+
+        /** Controller piloting commands, in roll, pitch, yaw, gaz, source order; 5 values per sample. */
+        @NonNull
+        private final int[] mPcmds;
+
+        /** Wifi signal levels. */
+        @NonNull
+        private final int[] mWifiSignals;
+
+        /** Battery voltages. */
+        @NonNull
+        private final int[] mBatteryVoltages;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity buffer capacity, in samples
+         */
+        public Buffer(int capacity) {
+            super(capacity);
+            mDroneLocations = new double[3 * capacity];
+            mControllerLocations = new double[3 * capacity];
+            mPcmds = new int[5 * capacity];
+            mWifiSignals = new int[capacity];
+            mBatteryVoltages = new int[capacity];
+        }
+
+        @Override
+        void store(int slot, @NonNull EnvironmentData sample) {
+            int offset = 3 * slot;
+            mDroneLocations[offset] = sample.mDroneLocation.getLatitude();
+            mDroneLocations[offset + 1] = sample.mDroneLocation.getLongitude();
+            mDroneLocations[offset + 2] = sample.mDroneLocation.getAltitude();
+            mControllerLocations[offset] = sample.mControllerLocation.getLatitude();
+            mControllerLocations[offset + 1] = sample.mControllerLocation.getLongitude();
+            mControllerLocations[offset + 2] = sample.mControllerLocation.getAltitude();
+            offset = 5 * slot;
+            sample.mRemotePcmd.copyTo(mPcmds, offset);
+            mPcmds[offset + 4] = sample.mRemotePcmd.mSource;
+            mWifiSignals[slot] = sample.mWifiSignal;
+            mBatteryVoltages[slot] = sample.mBatteryVoltage;
+        }
+
+        @Override
+        void writeSample(@NonNull JsonWriter writer, int slot) throws IOException {
+            int offset = 3 * slot;
+            writeLocation(writer.name("product_gps"), mDroneLocations, offset);
+            writeLocation(writer.name("device_gps"), mControllerLocations, offset);
+            offset = 5 * slot;
+            writer.name("mpp_pcmd").beginObject();
+            writer.name("source").value(mPcmds[offset + 4]);
+            writePilotingCommand(writer, mPcmds, offset);
+            writer.endObject();
+            writer.name("wifi_rssi").value(mWifiSignals[slot]);
+            writer.name("product_battery_voltage").value(mBatteryVoltages[slot]);
         }
     }
 
 
     /** Drone geo location. */
-    @Expose
-    @SerializedName("product_gps")
     @NonNull
     private final LocationInfo mDroneLocation;
 
     /** Controller geo location. */
-    @Expose
-    @SerializedName("device_gps")
     @NonNull
     private final LocationInfo mControllerLocation;
 
@@ -154,8 +222,6 @@ public final class EnvironmentData extends TimeStampedData {
     private static final class RcPilotingCommand extends PilotingCommandInfo {
 
         /** Piloting command source. */
-        @Expose
-        @SerializedName("source")
         private int mSource;
 
         /**
@@ -177,38 +243,16 @@ public final class EnvironmentData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        RcPilotingCommand() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other piloting command info to copy data from
-         */
-        RcPilotingCommand(@NonNull RcPilotingCommand other) {
-            super(other);
-            mSource = other.mSource;
-        }
     }
 
     /** Controller piloting command. */
-    @Expose
-    @SerializedName("mpp_pcmd")
     @NonNull
     private final RcPilotingCommand mRemotePcmd;
 
     /** Wifi signal level. */
-    @Expose
-    @SerializedName("wifi_rssi")
     private int mWifiSignal;
 
     /** Battery voltage. */
-    @Expose
-    @SerializedName("product_battery_voltage")
     private int mBatteryVoltage;
 
     /**
@@ -219,18 +263,4 @@ public final class EnvironmentData extends TimeStampedData {
         mControllerLocation = new LocationInfo();
         mRemotePcmd = new RcPilotingCommand();
     }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other environment info to copy data from
-     */
-    private EnvironmentData(@NonNull EnvironmentData other) {
-        super(other);
-        mWifiSignal = other.mWifiSignal;
-        mBatteryVoltage = other.mBatteryVoltage;
-        mDroneLocation = new LocationInfo(other.mDroneLocation);
-        mControllerLocation = new LocationInfo(other.mControllerLocation);
-        mRemotePcmd = new RcPilotingCommand(other.mRemotePcmd);
-    }
 }
@@ -34,14 +34,17 @@ package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
 import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.PilotingCommand;
 
+import java.io.IOException;
+
 /**
  * Black box flight data sample.
  * <p>
  * Contains information such as current drone speed, attitude, altitude and piloting command.
+ * <p>
+ * Samples are recorded in a {@link Buffer}.
  */
 public final class FlightData extends TimeStampedData {
 
@@ -50,7 +53,7 @@ public final class FlightData extends TimeStampedData {
      */
     public static final class Builder {
 
-        /** Mutable flight data, serves as a base to produce immutable samples. */
+        /** Mutable flight data, serves as a base to record samples. */
         @NonNull
         private final FlightData mTemplate;
 
@@ -124,13 +127,90 @@ public final class FlightData extends TimeStampedData {
         }
 
         /**
-         * Generates a new sample from current data.
+         * Records a new sample from current data.
          *
-         * @return a new immutable flight data sample.
+         * @param buffer buffer to record the sample to
          */
+        public void recordTo(@NonNull Buffer buffer) {
+            buffer.record(mTemplate);
+        }
+    }
+
+    /**
+     * Flight data samples circular buffer.
+     */
+    public static final class Buffer extends SampleBuffer<FlightData> {
+
+        /** Drone speeds, in X, Y, Z order; 3 values per sample. */
+        @NonNull
+        private final float[] mSpeeds;
+
+        /** Drone attitudes, in roll, pitch, yaw order; 3 values per sample. */
+        @NonNull
+        private final float[] mAttitudes;
+
+        /** Drone altitudes. */
+        @NonNull
+        private final double[] mAltitudes;
+
+        /** Drone heights above ground level. */
         @NonNull
-        public FlightData build() {
-            return new FlightData(mTemplate);
+        private final float[] mHeights;
+
+        /** Drone piloting commands, in roll, pitch, yaw, gaz, flag order; 5 values per sample. */
+        @NonNull
+        private final int[] mPcmds;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity buffer capacity, in samples
+         */
+        public Buffer(int capacity) {
+            super(capacity);
+            mSpeeds = new float[3 * capacity];
+            mAttitudes = new float[3 * capacity];
+            mAltitudes = new double[capacity];
+            mHeights = new float[capacity];
+            mPcmds = new int[5 * capacity];
+        }
+
+        @Override
+        void store(int slot, @NonNull FlightData sample) {
+            int offset = 3 * slot;
+            mSpeeds[offset] = sample.mSpeed.mX;
+            mSpeeds[offset + 1] = sample.mSpeed.mY;
+            mSpeeds[offset + 2] = sample.mSpeed.mZ;
+            mAttitudes[offset] = sample.mAttitude.mRoll;
+            mAttitudes[offset + 1] = sample.mAttitude.mPitch;
+            mAttitudes[offset + 2] = sample.mAttitude.mYaw;
+            mAltitudes[slot] = sample.mAltitude;
+            mHeights[slot] = sample.mHeightAboveGround;
+            offset = 5 * slot;
+            sample.mDronePcmd.copyTo(mPcmds, offset);
+            mPcmds[offset + 4] = sample.mDronePcmd.mFlag;
+        }
+
+        @Override
+        void writeSample(@NonNull JsonWriter writer, int slot) throws IOException {
+            int offset = 3 * slot;
+            writer.name("product_speed").beginObject();
+            writeFloat(writer.name("vx"), mSpeeds[offset]);
+            writeFloat(writer.name("vy"), mSpeeds[offset + 1]);
+            writeFloat(writer.name("vz"), mSpeeds[offset + 2]);
+            writer.endObject();
+            writer.name("product_angles").beginObject();
+            writeFloat(writer.name("roll"), mAttitudes[offset]);
+            writeFloat(writer.name("pitch"), mAttitudes[offset + 1]);
+            writeFloat(writer.name("yaw"), mAttitudes[offset + 2]);
+            writer.endObject();
+            writer.name("product_alt").value(mAltitudes[slot]);
+            writeFloat(writer.name("product_height_above_ground"), mHeights[slot]);
+            offset = 5 * slot;
+            writer.name("device_pcmd").beginObject();
+            writer.name("flag").value(mPcmds[offset + 4]);
+            writePilotingCommand(writer, mPcmds, offset);
+            writer.endObject();
         }
     }
 
@@ -140,18 +220,12 @@ public final class FlightData extends TimeStampedData {
     private static final class SpeedInfo {
 
         /** Drone speed X component. */
-        @Expose
-        @SerializedName("vx")
         private float mX;
 
         /** Drone speed Y component. */
-        @Expose
-        @SerializedName("vy")
         private float mY;
 
         /** Drone speed Z component. */
-        @Expose
-        @SerializedName("vz")
         private float mZ;
 
         /**
@@ -179,28 +253,9 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        SpeedInfo() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other speed info to copy data from
-         */
-        SpeedInfo(@NonNull SpeedInfo other) {
-            mX = other.mX;
-            mY = other.mY;
-            mZ = other.mZ;
-        }
     }
 
     /** Drone speed. */
-    @Expose
-    @SerializedName("product_speed")
     @NonNull
     private final SpeedInfo mSpeed;
 
@@ -210,18 +265,12 @@ public final class FlightData extends TimeStampedData {
     private static final class AttitudeInfo {
 
         /** Drone attitude roll. */
-        @Expose
-        @SerializedName("roll")
         private float mRoll;
 
         /** Drone attitude pitch. */
-        @Expose
-        @SerializedName("pitch")
         private float mPitch;
 
         /** Drone attitude yaw. */
-        @Expose
-        @SerializedName("yaw")
         private float mYaw;
 
         /**
@@ -249,39 +298,16 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        AttitudeInfo() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other attitude info to copy data from
-         */
-        AttitudeInfo(@NonNull AttitudeInfo other) {
-            mRoll = other.mRoll;
-            mPitch = other.mPitch;
-            mYaw = other.mYaw;
-        }
     }
 
     /** Drone attitude. */
-    @Expose
-    @SerializedName("product_angles")
     @NonNull
     private final AttitudeInfo mAttitude;
 
     /** Drone altitude. */
-    @Expose
-    @SerializedName("product_alt")
     private double mAltitude;
 
     /** Drone height above ground level. */
-    @Expose
-    @SerializedName("product_height_above_ground")
     private float mHeightAboveGround;
 
     /**
@@ -290,8 +316,6 @@ public final class FlightData extends TimeStampedData {
     private static final class DronePilotingCommand extends PilotingCommandInfo {
 
         /** Piloting command flag. */
-        @Expose
-        @SerializedName("flag")
         private int mFlag;
 
         /**
@@ -313,27 +337,9 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        DronePilotingCommand() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other piloting command info to copy data from
-         */
-        DronePilotingCommand(@NonNull DronePilotingCommand other) {
-            super(other);
-            mFlag = other.mFlag;
-        }
     }
 
     /** Drone piloting command. */
-    @Expose
-    @SerializedName("device_pcmd")
     @NonNull
     private final DronePilotingCommand mDronePcmd;
 
@@ -345,18 +351,4 @@ public final class FlightData extends TimeStampedData {
         mAttitude = new AttitudeInfo();
         mDronePcmd = new DronePilotingCommand();
     }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other flight info to copy data from
-     */
-    private FlightData(@NonNull FlightData other) {
-        super(other);
-        mSpeed = new SpeedInfo(other.mSpeed);
-        mAttitude = new AttitudeInfo(other.mAttitude);
-        mAltitude = other.mAltitude;
-        mHeightAboveGround = other.mHeightAboveGround;
-        mDronePcmd = new DronePilotingCommand(other.mDronePcmd);
-    }
 }
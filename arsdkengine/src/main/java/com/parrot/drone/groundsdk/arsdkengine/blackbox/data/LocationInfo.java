@@ -88,6 +88,33 @@ public final class LocationInfo {
         this(other.mLatitude, other.mLongitude, other.mAltitude);
     }
 
+    /**
+     * Gets latitude.
+     *
+     * @return latitude value
+     */
+    double getLatitude() {
+        return mLatitude;
+    }
+
+    /**
+     * Gets longitude.
+     *
+     * @return longitude value
+     */
+    double getLongitude() {
+        return mLongitude;
+    }
+
+    /**
+     * Gets altitude.
+     *
+     * @return altitude value
+     */
+    double getAltitude() {
+        return mAltitude;
+    }
+
     /**
      * Updates location information.
      *
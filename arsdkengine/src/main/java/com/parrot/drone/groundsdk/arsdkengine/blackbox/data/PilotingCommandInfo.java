@@ -34,32 +34,21 @@ package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
-
 /**
  * Piloting command information.
  */
 class PilotingCommandInfo {
 
     /** Piloting command roll. */
-    @Expose
-    @SerializedName("roll")
     private int mRoll;
 
     /** Piloting command pitch. */
-    @Expose
-    @SerializedName("pitch")
     private int mPitch;
 
     /** Piloting command yaw. */
-    @Expose
-    @SerializedName("yaw")
     private int mYaw;
 
     /** Piloting command gaz. */
-    @Expose
-    @SerializedName("gaz")
     private int mGaz;
 
     /**
@@ -69,15 +58,18 @@ class PilotingCommandInfo {
     }
 
     /**
-     * Copy constructor.
+     * Copies piloting command values to an array.
+     * <p>
+     * Values are copied in the following order: roll, pitch, yaw, gaz.
      *
-     * @param other piloting command info to copy data from
+     * @param dst    array to copy values to
+     * @param offset index in {@code dst} where to copy the first value
      */
-    PilotingCommandInfo(@NonNull PilotingCommandInfo other) {
-        mRoll = other.mRoll;
-        mPitch = other.mPitch;
-        mYaw = other.mYaw;
-        mGaz = other.mGaz;
+    void copyTo(@NonNull int[] dst, int offset) {
+        dst[offset] = mRoll;
+        dst[offset + 1] = mPitch;
+        dst[offset + 2] = mYaw;
+        dst[offset + 3] = mGaz;
     }
 
     /**
@@ -0,0 +1,195 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Fixed capacity circular buffer of timestamped data samples.
+ * <p>
+ * Samples are not stored as objects; instead, subclasses copy each recorded sample values into preallocated primitive
+ * arrays, one array (or one array slice) per sample field, so that recording a sample never allocates.
+ * <p>
+ * When the buffer is full, recording a new sample overwrites the eldest one.
+ *
+ * @param <T> type of sample
+ */
+public abstract class SampleBuffer<T extends TimeStampedData> {
+
+    /** Buffer capacity, in samples. */
+    final int mCapacity;
+
+    /** Recorded samples timestamps, in milliseconds. */
+    @NonNull
+    private final long[] mTimeStamps;
+
+    /** Index where the next sample will be recorded. */
+    private int mNext;
+
+    /** Amount of samples currently recorded. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity buffer capacity, in samples
+     */
+    SampleBuffer(int capacity) {
+        mCapacity = capacity;
+        mTimeStamps = new long[capacity];
+    }
+
+    /**
+     * Gets the amount of samples currently recorded.
+     *
+     * @return recorded sample count
+     */
+    public final int size() {
+        return mSize;
+    }
+
+    /**
+     * Records a sample.
+     * <p>
+     * The sample is discarded in case its timestamp is the same as the latest recorded sample.
+     *
+     * @param sample sample to record
+     */
+    final void record(@NonNull T sample) {
+        if (mCapacity == 0) {
+            return;
+        }
+        long timeStamp = sample.getTimeStamp();
+        if (mSize > 0 && mTimeStamps[(mNext + mCapacity - 1) % mCapacity] == timeStamp) {
+            return;
+        }
+        mTimeStamps[mNext] = timeStamp;
+        store(mNext, sample);
+        mNext = (mNext + 1) % mCapacity;
+        if (mSize < mCapacity) {
+            mSize++;
+        }
+    }
+
+    /**
+     * Encodes all recorded samples as a JSON array, from eldest to latest.
+     *
+     * @param writer JSON writer to encode samples to
+     *
+     * @throws IOException in case encoding failed
+     */
+    public final void writeJson(@NonNull JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int i = 0; i < mSize; i++) {
+            int slot = (mNext + mCapacity - mSize + i) % mCapacity;
+            writer.beginObject();
+            writeSample(writer, slot);
+            writer.name("timestamp").value(mTimeStamps[slot] / 1000.0);
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Copies sample values to the given buffer slot.
+     *
+     * @param slot   buffer slot where to copy sample values
+     * @param sample sample to copy values from
+     */
+    abstract void store(int slot, @NonNull T sample);
+
+    /**
+     * Encodes the sample values recorded at the given buffer slot as JSON object members.
+     * <p>
+     * Sample timestamp is encoded by the caller.
+     *
+     * @param writer JSON writer to encode sample values to
+     * @param slot   buffer slot of the sample to encode
+     *
+     * @throws IOException in case encoding failed
+     */
+    abstract void writeSample(@NonNull JsonWriter writer, int slot) throws IOException;
+
+    /**
+     * Encodes a float value.
+     * <p>
+     * Float values are encoded with float precision, i.e. as {@link Float#toString(float)} would.
+     *
+     * @param writer JSON writer to encode the value to
+     * @param value  value to encode
+     *
+     * @throws IOException in case encoding failed
+     */
+    static void writeFloat(@NonNull JsonWriter writer, float value) throws IOException {
+        writer.value(Float.valueOf(value));
+    }
+
+    /**
+     * Encodes piloting command values as JSON object members.
+     *
+     * @param writer JSON writer to encode values to
+     * @param values array containing piloting command values, in the order defined by
+     *               {@link PilotingCommandInfo#copyTo(int[], int)}
+     * @param offset index of the first value in {@code values}
+     *
+     * @throws IOException in case encoding failed
+     */
+    static void writePilotingCommand(@NonNull JsonWriter writer, @NonNull int[] values, int offset)
+            throws IOException {
+        writer.name("roll").value(values[offset])
+              .name("pitch").value(values[offset + 1])
+              .name("yaw").value(values[offset + 2])
+              .name("gaz").value(values[offset + 3]);
+    }
+
+    /**
+     * Encodes a geo location as a JSON object.
+     *
+     * @param writer JSON writer to encode the location to
+     * @param values array containing location values, in latitude, longitude, altitude order
+     * @param offset index of the first value in {@code values}
+     *
+     * @throws IOException in case encoding failed
+     */
+    static void writeLocation(@NonNull JsonWriter writer, @NonNull double[] values, int offset) throws IOException {
+        writer.beginObject()
+              .name("latitude").value(values[offset])
+              .name("longitude").value(values[offset + 1])
+              .name("altitude").value(values[offset + 2])
+              .endObject();
+    }
+}
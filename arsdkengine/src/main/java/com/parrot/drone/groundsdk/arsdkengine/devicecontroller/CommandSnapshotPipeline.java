@@ -0,0 +1,369 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
+
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.groundsdk.arsdkengine.EngineThread;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
+import com.parrot.drone.sdkcore.arsdk.device.ArsdkDevice;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offloads decoding of received commands that have registered {@link DeviceComponentController.SnapshotDecoder
+ * snapshot decoders} to the engine thread.
+ * <p>
+ * Such commands are intercepted on the pomp thread and decoded on the engine thread into immutable snapshots. Only the
+ * latest snapshots for each command are kept until the main thread applies them; older ones are dropped. Once
+ * snapshots are applied, the command is forwarded to the remaining component controllers and to the black box session
+ * through the regular {@link DeviceController#onCommandReceived} path.
+ * <p>
+ * Note that applied commands are not ordered with respect to commands dispatched on the main thread through the
+ * regular path, nor with respect to each other; hence, snapshot decoders may only be registered for commands that
+ * convey a complete state, superseding any previously received one, such as telemetry events.
+ */
+final class CommandSnapshotPipeline implements ArsdkDevice.CommandInterceptor {
+
+    /**
+     * Computes the routing key of a command.
+     *
+     * @param featureId command feature uid
+     * @param commandId command uid
+     *
+     * @return command key: feature uid in 16 upper bits, command uid in 16 lower bits
+     */
+    static int commandKey(int featureId, int commandId) {
+        return featureId << 16 | commandId;
+    }
+
+    /**
+     * Computes the routing key of a command.
+     *
+     * @param command command
+     *
+     * @return command key
+     */
+    static int commandKey(@NonNull ArsdkCommand command) {
+        return commandKey(command.getFeatureId(), command.getCommandId());
+    }
+
+    /** Snapshot decoders registered for a given command, along with the component controllers that own them. */
+    static final class Route {
+
+        /** Component controllers owning each decoder, in registration order. */
+        @NonNull
+        private DeviceComponentController<?, ?>[] mOwners;
+
+        /** Snapshot decoders, in registration order. */
+        @NonNull
+        private DeviceComponentController.SnapshotDecoder[] mDecoders;
+
+        /**
+         * Constructor.
+         *
+         * @param owner   component controller owning the decoder
+         * @param decoder snapshot decoder
+         */
+        Route(@NonNull DeviceComponentController<?, ?> owner,
+              @NonNull DeviceComponentController.SnapshotDecoder decoder) {
+            mOwners = new DeviceComponentController<?, ?>[] {owner};
+            mDecoders = new DeviceComponentController.SnapshotDecoder[] {decoder};
+        }
+
+        /**
+         * Adds a decoder to this route.
+         *
+         * @param owner   component controller owning the decoder
+         * @param decoder snapshot decoder
+         */
+        void add(@NonNull DeviceComponentController<?, ?> owner,
+                 @NonNull DeviceComponentController.SnapshotDecoder decoder) {
+            mOwners = Arrays.copyOf(mOwners, mOwners.length + 1);
+            mOwners[mOwners.length - 1] = owner;
+            mDecoders = Arrays.copyOf(mDecoders, mDecoders.length + 1);
+            mDecoders[mDecoders.length - 1] = decoder;
+        }
+
+        /**
+         * Tells whether the given component controller owns a decoder in this route.
+         *
+         * @param controller component controller to test
+         *
+         * @return {@code true} if the controller owns a decoder in this route, otherwise {@code false}
+         */
+        boolean isOwnedBy(@NonNull DeviceComponentController<?, ?> controller) {
+            for (DeviceComponentController<?, ?> owner : mOwners) {
+                if (owner == controller) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Decodes a command into snapshots.
+         *
+         * @param command command to decode
+         *
+         * @return decoded snapshots, by decoder; {@code null} entries for decoders that produced no snapshot
+         */
+        @NonNull
+        Runnable[] decode(@NonNull ArsdkCommand command) {
+            Runnable[] snapshots = new Runnable[mDecoders.length];
+            for (int i = 0; i < mDecoders.length; i++) {
+                snapshots[i] = mDecoders[i].decode(command);
+            }
+            return snapshots;
+        }
+
+        /**
+         * Applies snapshots to components.
+         * <p>
+         * Must be called on main thread.
+         *
+         * @param snapshots snapshots to apply, as returned by {@link #decode}
+         */
+        void apply(@NonNull Runnable[] snapshots) {
+            for (int i = 0; i < mOwners.length; i++) {
+                if (snapshots[i] != null) {
+                    mOwners[i].applySnapshot(snapshots[i]);
+                }
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return Arrays.toString(mOwners);
+        }
+    }
+
+    /** Latest snapshots decoded from a command, pending application on main thread. */
+    private static final class Entry {
+
+        /** Copy of the decoded command. */
+        @NonNull
+        final ArsdkCommand mCommand;
+
+        /** Decoded snapshots. */
+        @NonNull
+        final Runnable[] mSnapshots;
+
+        /** Pipeline generation when the command was intercepted. */
+        final int mGeneration;
+
+        /** Time at which the command was intercepted, in nanoseconds, from {@link System#nanoTime()}. */
+        final long mInterceptTime;
+
+        /**
+         * Constructor.
+         *
+         * @param command       decoded command copy
+         * @param snapshots     decoded snapshots
+         * @param generation    pipeline generation
+         * @param interceptTime command interception time, in nanoseconds
+         */
+        Entry(@NonNull ArsdkCommand command, @NonNull Runnable[] snapshots, int generation, long interceptTime) {
+            mCommand = command;
+            mSnapshots = snapshots;
+            mGeneration = generation;
+            mInterceptTime = interceptTime;
+        }
+    }
+
+    /** Device controller that applies snapshots. */
+    @NonNull
+    private final DeviceController<?> mDeviceController;
+
+    /** Engine thread where commands are decoded. */
+    @NonNull
+    private final EngineThread mEngineThread;
+
+    /**
+     * Snapshot routes, by command key.
+     * <p>
+     * Only modified on main thread while component controllers are created, before the pipeline is installed as a
+     * device command interceptor; read-only afterwards.
+     */
+    @NonNull
+    private final SparseArray<Route> mRoutes;
+
+    /** Pipeline generation, incremented each time pending snapshots must be discarded. */
+    @NonNull
+    private final AtomicInteger mGeneration;
+
+    /** Lock protecting {@link #mPending} and {@link #mDrainScheduled}. */
+    @NonNull
+    private final Object mLock;
+
+    /** Entries pending application on main thread, by command key. */
+    @NonNull
+    private SparseArray<Entry> mPending;
+
+    /** Entries being applied on main thread; swapped with {@link #mPending} when draining. Main thread only. */
+    @NonNull
+    private SparseArray<Entry> mDraining;
+
+    /** {@code true} when a drain of pending entries is scheduled on main thread. */
+    private boolean mDrainScheduled;
+
+    /** Count of commands intercepted. */
+    @NonNull
+    private final AtomicLong mInterceptedCount;
+
+    /** Count of decoded snapshots dropped because superseded before being applied. */
+    @NonNull
+    private final AtomicLong mSupersededCount;
+
+    /**
+     * Constructor.
+     *
+     * @param deviceController device controller that applies snapshots
+     * @param engineThread     engine thread where commands are decoded
+     * @param routes           snapshot routes, by command key
+     */
+    CommandSnapshotPipeline(@NonNull DeviceController<?> deviceController, @NonNull EngineThread engineThread,
+                            @NonNull SparseArray<Route> routes) {
+        mDeviceController = deviceController;
+        mEngineThread = engineThread;
+        mRoutes = routes;
+        mGeneration = new AtomicInteger();
+        mLock = new Object();
+        mPending = new SparseArray<>();
+        mDraining = new SparseArray<>();
+        mInterceptedCount = new AtomicLong();
+        mSupersededCount = new AtomicLong();
+    }
+
+    @Override
+    public boolean interceptCommand(@NonNull ArsdkCommand command) {
+        int key = commandKey(command);
+        Route route = mRoutes.get(key);
+        if (route == null) {
+            return false;
+        }
+        mInterceptedCount.incrementAndGet();
+        ArsdkCommand copy = ArsdkCommand.Pool.DEFAULT.obtain(command.getNativePtr());
+        int generation = mGeneration.get();
+        long interceptTime = System.nanoTime();
+        mEngineThread.post(() -> decode(key, route, copy, generation, interceptTime));
+        return true;
+    }
+
+    /**
+     * Discards all pending snapshots.
+     * <p>
+     * Commands intercepted before this call will not be applied.
+     * <p>
+     * Must be called on main thread.
+     */
+    void reset() {
+        mGeneration.incrementAndGet();
+    }
+
+    /**
+     * Decodes an intercepted command and queues resulting snapshots for application on main thread.
+     * <p>
+     * Called on engine thread.
+     *
+     * @param key           command key
+     * @param route         snapshot route for the command
+     * @param command       copy of the intercepted command, released by this method or once snapshots are applied
+     * @param generation    pipeline generation when the command was intercepted
+     * @param interceptTime command interception time, in nanoseconds
+     */
+    private void decode(int key, @NonNull Route route, @NonNull ArsdkCommand command, int generation,
+                        long interceptTime) {
+        if (generation != mGeneration.get()) {
+            command.release();
+            return;
+        }
+        Entry entry = new Entry(command, route.decode(command), generation, interceptTime);
+        Entry superseded;
+        boolean scheduleDrain;
+        synchronized (mLock) {
+            superseded = mPending.get(key);
+            mPending.put(key, entry);
+            scheduleDrain = !mDrainScheduled;
+            mDrainScheduled = true;
+        }
+        if (superseded != null) {
+            mSupersededCount.incrementAndGet();
+            superseded.mCommand.release();
+        }
+        if (scheduleDrain) {
+            Executor.postOnMainThread(mDrain);
+        }
+    }
+
+    /** Applies all pending snapshots, on main thread. */
+    private final Runnable mDrain = () -> {
+        SparseArray<Entry> entries;
+        synchronized (mLock) {
+            entries = mPending;
+            mPending = mDraining;
+            mDraining = entries;
+            mDrainScheduled = false;
+        }
+        int generation = mGeneration.get();
+        for (int i = 0, N = entries.size(); i < N; i++) {
+            Entry entry = entries.valueAt(i);
+            if (entry.mGeneration == generation) {
+                ArsdkCommandMetrics.get().onCommandProcessed(System.nanoTime() - entry.mInterceptTime);
+                mDeviceController.onSnapshotsDecoded(entry.mCommand, entry.mSnapshots);
+            }
+            entry.mCommand.release();
+        }
+        entries.clear();
+    };
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "Snapshot pipeline: " + mRoutes.size() + " commands [intercepted: "
+                     + mInterceptedCount.get() + ", superseded: " + mSupersededCount.get() + ", engine thread: "
+                     + mEngineThread + "]\n");
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureControllerInfo;
+
+import java.io.PrintWriter;
+
+/**
+ * Governs the rate at which controller barometer and location measurements are sent to the drone.
+ * <p>
+ * System sensors callback at a rate that depends on the device hardware. When an uplink period is configured, this
+ * class only keeps the latest measurements and sends them once per period, skipping those that did not change since
+ * they were last sent (which are still refreshed once per second). The period depends on the drone activity, see
+ * {@link Rate}, and is a multiple of the drone piloting command loop period.
+ * <p>
+ * When no uplink period is configured, each measurement is sent as soon as it is received.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+final class ControllerInfoUplink {
+
+    /** Uplink rate, depending on the drone activity. */
+    enum Rate {
+
+        /** Drone is landed. */
+        LANDED,
+
+        /** Drone is flying. */
+        FLYING,
+
+        /** Drone is flying and tracks the controller. */
+        TRACKING
+    }
+
+    /** Period after which a measurement that did not change is sent again, in milliseconds. */
+    private static final int REFRESH_PERIOD = 1000;
+
+    /** Drone controller that sends the measurements. */
+    @NonNull
+    private final DroneController mDroneController;
+
+    /** Uplink period while the drone flies, in milliseconds. {@code 0} when measurements are sent immediately. */
+    private final int mFlyingPeriod;
+
+    /** Uplink period while the drone tracks the controller, in milliseconds. */
+    private final int mTrackingPeriod;
+
+    /** Uplink period while the drone is landed, in milliseconds. */
+    private final int mLandedPeriod;
+
+    /** Latest barometer measurement. */
+    @NonNull
+    private final Measurement mBarometer;
+
+    /** Latest location measurement. */
+    @NonNull
+    private final Measurement mGps;
+
+    /** Current uplink rate. */
+    @NonNull
+    private Rate mRate;
+
+    /** Current uplink period, in milliseconds. {@code 0} when the uplink is not started. */
+    private int mPeriod;
+
+    /** Latest measured atmospheric pressure, in pascals. */
+    private double mPressure;
+
+    /** Latest atmospheric pressure measurement timestamp. */
+    private long mPressureTimestamp;
+
+    /** Latest measured latitude, in degrees. */
+    private double mLatitude;
+
+    /** Latest measured longitude, in degrees. */
+    private double mLongitude;
+
+    /** Latest measured altitude, in meters. */
+    private float mAltitude;
+
+    /** Latest measured horizontal accuracy, in meters. */
+    private float mAccuracy;
+
+    /** Latest measured north speed, in meters per second. */
+    private float mNorthSpeed;
+
+    /** Latest measured east speed, in meters per second. */
+    private float mEastSpeed;
+
+    /** Latest location measurement timestamp, in milliseconds since epoch. */
+    private long mLocationTime;
+
+    /**
+     * Constructor.
+     *
+     * @param droneController drone controller that sends the measurements
+     * @param loopPeriod      drone piloting command loop period, in milliseconds
+     */
+    ControllerInfoUplink(@NonNull DroneController droneController, int loopPeriod) {
+        mDroneController = droneController;
+        GroundSdkConfig config = GroundSdkConfig.get();
+        mFlyingPeriod = alignPeriod(config.getControllerInfoUplinkPeriod(), loopPeriod);
+        mTrackingPeriod = alignPeriod(config.getControllerInfoUplinkTrackingPeriod(), loopPeriod);
+        mLandedPeriod = alignPeriod(config.getControllerInfoUplinkLandedPeriod(), loopPeriod);
+        mBarometer = new Measurement();
+        mGps = new Measurement();
+        mRate = Rate.LANDED;
+    }
+
+    /**
+     * Starts the uplink.
+     * <p>
+     * Called when the drone is connected.
+     */
+    void start() {
+        if (mFlyingPeriod > 0 && mPeriod == 0) {
+            mPeriod = periodOf(mRate);
+            Executor.schedule(mTick, mPeriod);
+        }
+    }
+
+    /**
+     * Stops the uplink.
+     * <p>
+     * Called when the drone is disconnected. Pending measurements are dropped.
+     */
+    void stop() {
+        Executor.unschedule(mTick);
+        mPeriod = 0;
+        mRate = Rate.LANDED;
+        mBarometer.reset();
+        mGps.reset();
+    }
+
+    /**
+     * Updates the uplink rate.
+     *
+     * @param rate new uplink rate
+     */
+    void setRate(@NonNull Rate rate) {
+        if (mRate != rate) {
+            mRate = rate;
+            if (mPeriod > 0) {
+                Executor.unschedule(mTick);
+                mPeriod = periodOf(mRate);
+                Executor.schedule(mTick, mPeriod);
+            }
+        }
+    }
+
+    /**
+     * Processes a system atmospheric pressure measurement.
+     *
+     * @param pressure  atmospheric pressure, in pascals
+     * @param timestamp measurement timestamp
+     */
+    void onPressure(double pressure, long timestamp) {
+        if (mFlyingPeriod == 0) {
+            mBarometer.mReceivedCount++;
+            sendBarometer(pressure, timestamp);
+        } else {
+            mBarometer.update(Double.compare(pressure, mPressure) != 0);
+            mPressure = pressure;
+            mPressureTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Processes a system geographic location change.
+     *
+     * @param location new location
+     */
+    void onLocation(@NonNull Location location) {
+        // same as Free Flight 4
+        // TODO : why use getTime() (milliseconds) vs getElapsedRealTimeNanos() ? what relationship with
+        // TODO   other timestamps: time we send to the drone, pcmd timestamps, barometer timestamps
+        // TODO   (which is in _nanoseconds_), etc. ?
+        double northSpeed = 0, eastSpeed = 0;
+        if (location.hasSpeed() && location.hasBearing()) {
+            double speed = location.getSpeed(), bearing = Math.toRadians(location.getBearing());
+            northSpeed = Math.cos(bearing) * speed;
+            eastSpeed = Math.sin(bearing) * speed;
+        }
+        if (mFlyingPeriod == 0) {
+            mGps.mReceivedCount++;
+            sendGps(location.getLatitude(), location.getLongitude(), (float) location.getAltitude(),
+                    location.getAccuracy(), (float) northSpeed, (float) eastSpeed, location.getTime());
+        } else {
+            mGps.update(Double.compare(location.getLatitude(), mLatitude) != 0
+                        || Double.compare(location.getLongitude(), mLongitude) != 0
+                        || Float.compare((float) location.getAltitude(), mAltitude) != 0
+                        || Float.compare(location.getAccuracy(), mAccuracy) != 0
+                        || Float.compare((float) northSpeed, mNorthSpeed) != 0
+                        || Float.compare((float) eastSpeed, mEastSpeed) != 0);
+            mLatitude = location.getLatitude();
+            mLongitude = location.getLongitude();
+            mAltitude = (float) location.getAltitude();
+            mAccuracy = location.getAccuracy();
+            mNorthSpeed = (float) northSpeed;
+            mEastSpeed = (float) eastSpeed;
+            mLocationTime = location.getTime();
+        }
+    }
+
+    /** Sends latest measurements to the drone, once per uplink period. */
+    private final Runnable mTick = new Runnable() {
+
+        @Override
+        public void run() {
+            if (mBarometer.shouldSend(mPeriod)) {
+                sendBarometer(mPressure, mPressureTimestamp);
+            }
+            if (mGps.shouldSend(mPeriod)) {
+                sendGps(mLatitude, mLongitude, mAltitude, mAccuracy, mNorthSpeed, mEastSpeed, mLocationTime);
+            }
+            Executor.schedule(this, mPeriod);
+        }
+    };
+
+    /**
+     * Sends a barometer measurement to the drone.
+     *
+     * @param pressure  atmospheric pressure, in pascals
+     * @param timestamp measurement timestamp
+     */
+    private void sendBarometer(double pressure, long timestamp) {
+        // same as Free Flight 4
+        // TODO : what relationship with other timestamps ( time we send to the drone, pcmd timestamps,
+        // TODO   barometer timestamps, etc.) ?
+        mBarometer.mSentCount++;
+        mDroneController.sendCommand(ArsdkFeatureControllerInfo.encodeBarometer((float) pressure, timestamp));
+    }
+
+    /**
+     * Sends a location measurement to the drone.
+     *
+     * @param latitude   latitude, in degrees
+     * @param longitude  longitude, in degrees
+     * @param altitude   altitude, in meters
+     * @param accuracy   horizontal accuracy, in meters
+     * @param northSpeed north speed, in meters per second
+     * @param eastSpeed  east speed, in meters per second
+     * @param time       measurement timestamp, in milliseconds since epoch
+     */
+    private void sendGps(double latitude, double longitude, float altitude, float accuracy, float northSpeed,
+                         float eastSpeed, long time) {
+        mGps.mSentCount++;
+        mDroneController.sendCommand(ArsdkFeatureControllerInfo.encodeGps(latitude, longitude, altitude, accuracy,
+                -1, northSpeed, eastSpeed, 0, time));
+    }
+
+    /**
+     * Gives the uplink period for the given rate.
+     *
+     * @param rate uplink rate
+     *
+     * @return corresponding uplink period, in milliseconds
+     */
+    private int periodOf(@NonNull Rate rate) {
+        switch (rate) {
+            case LANDED:
+                return mLandedPeriod;
+            case TRACKING:
+                return mTrackingPeriod;
+            case FLYING:
+            default:
+                return mFlyingPeriod;
+        }
+    }
+
+    /**
+     * Rounds up an uplink period to a multiple of the piloting command loop period.
+     *
+     * @param period     uplink period to align, in milliseconds
+     * @param loopPeriod piloting command loop period, in milliseconds, {@code 0} if the drone has no such loop
+     *
+     * @return aligned uplink period, in milliseconds
+     */
+    private static int alignPeriod(int period, int loopPeriod) {
+        return loopPeriod > 0 ? (period + loopPeriod - 1) / loopPeriod * loopPeriod : period;
+    }
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "ControllerInfoUplink: " + mRate + " [period: " + mPeriod + "ms]\n");
+        writer.write(prefix + "\t- Barometer: received: " + mBarometer.mReceivedCount
+                     + ", sent: " + mBarometer.mSentCount + "\n");
+        writer.write(prefix + "\t- Gps: received: " + mGps.mReceivedCount + ", sent: " + mGps.mSentCount + "\n");
+    }
+
+    /** Tracks whether the latest value of a measurement must be sent. */
+    private static final class Measurement {
+
+        /** {@code true} once a value has been received. */
+        private boolean mAvailable;
+
+        /** {@code true} when the latest value changed since it was last sent. */
+        private boolean mChanged;
+
+        /** Time elapsed since the latest value was last sent, in milliseconds. */
+        private int mAge;
+
+        /** Count of received values. */
+        private long mReceivedCount;
+
+        /** Count of sent values. */
+        private long mSentCount;
+
+        /**
+         * Called when a new value is received.
+         *
+         * @param changed {@code true} if the value differs from the previous one
+         */
+        void update(boolean changed) {
+            mReceivedCount++;
+            mChanged |= changed || !mAvailable;
+            mAvailable = true;
+        }
+
+        /**
+         * Tells whether the latest value must be sent on this uplink tick.
+         *
+         * @param period time elapsed since the previous tick, in milliseconds
+         *
+         * @return {@code true} if the latest value must be sent, otherwise {@code false}
+         */
+        boolean shouldSend(int period) {
+            if (!mAvailable) {
+                return false;
+            }
+            mAge += period;
+            if (mChanged || mAge >= REFRESH_PERIOD) {
+                mChanged = false;
+                mAge = 0;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Forgets the latest value.
+         */
+        void reset() {
+            mAvailable = mChanged = false;
+            mAge = 0;
+        }
+    }
+}
@@ -33,6 +33,7 @@
 package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.component.ComponentStore;
@@ -45,6 +46,32 @@ import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
  */
 public abstract class DeviceComponentController<TYPE, CTRL extends DeviceController> {
 
+    /**
+     * Decodes a received command into an immutable snapshot of the state it conveys.
+     * <p>
+     * Decoders may run on the engine thread, hence must not access the component nor any other controller state. The
+     * returned snapshot is applied to the component on the main thread.
+     * <p>
+     * A decoder may be called concurrently from the engine and main threads, hence must not keep any decoding state
+     * between calls.
+     */
+    public interface SnapshotDecoder {
+
+        /**
+         * Decodes a received command.
+         *
+         * @param command command to decode
+         *
+         * @return a snapshot that applies the decoded state to the component when run, {@code null} if the command
+         *         conveys nothing to apply
+         */
+        @Nullable
+        Runnable decode(@NonNull ArsdkCommand command);
+    }
+
+    /** Empty feature uid list, declared by component controllers that are not interested in any command. */
+    private static final int[] NO_FEATURES = {};
+
     /** The device controller that owns this component controller. */
     @NonNull
     protected final CTRL mDeviceController;
@@ -53,6 +80,15 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
     @NonNull
     protected final ComponentStore<TYPE> mComponentStore;
 
+    /** Count of received commands handled by this controller. */
+    private long mHandledCommandCount;
+
+    /** Total time spent handling received commands, in nanoseconds. */
+    private long mCommandHandlingTime;
+
+    /** Longest time spent handling a received command, in nanoseconds. */
+    private long mMaxCommandHandlingTime;
+
     /**
      * Constructor.
      *
@@ -151,9 +187,28 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
 
     }
 
+    /**
+     * Gets the uids of the features whose commands this component controller must receive.
+     * <p>
+     * Called once, when the component controller is registered to its device controller, in order to fill in the
+     * device controller command routing table. Afterwards, only received commands that belong to one of the declared
+     * features are forwarded to {@link #onCommandReceived}.
+     * <p>
+     * Sub classes that override {@link #onCommandReceived} <strong>MUST</strong> also override this method. Default
+     * implementation declares no feature.
+     *
+     * @return uids of the features this component controller is interested in
+     */
+    @NonNull
+    protected int[] getCommandFeatureIds() {
+        return NO_FEATURES;
+    }
+
     /**
      * Called when a command has been received from the managed device.
      * <p>
+     * Only called for commands that belong to one of the features declared by {@link #getCommandFeatureIds()}.
+     * <p>
      * May be overridden by sub classes. Default implementation does nothing.
      *
      * @param command the command received
@@ -162,6 +217,87 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
 
     }
 
+    /**
+     * Forwards a received command to {@link #onCommandReceived}, measuring the time spent handling it.
+     *
+     * @param command the command received
+     */
+    final void handleCommand(@NonNull ArsdkCommand command) {
+        long start = System.nanoTime();
+        onCommandReceived(command);
+        recordCommandHandling(System.nanoTime() - start);
+    }
+
+    /**
+     * Records time spent handling a received command.
+     *
+     * @param elapsed handling time, in nanoseconds
+     */
+    private void recordCommandHandling(long elapsed) {
+        mHandledCommandCount++;
+        mCommandHandlingTime += elapsed;
+        if (elapsed > mMaxCommandHandlingTime) {
+            mMaxCommandHandlingTime = elapsed;
+        }
+    }
+
+    /**
+     * Registers a snapshot decoder for a received command.
+     * <p>
+     * Commands with the given feature and command uids are then handed to the decoder instead of
+     * {@link #onCommandReceived}. When the {@link com.parrot.drone.groundsdk.arsdkengine.EngineThread engine thread}
+     * is enabled, the decoder runs on the engine thread and only the latest snapshot is applied on the main thread;
+     * otherwise, the decoder runs on the main thread and the snapshot is applied immediately.
+     * <p>
+     * Decoders may only be registered for commands that convey a complete state, superseding any previously received
+     * one. Must be called from the component controller constructor.
+     *
+     * @param featureId uid of the command feature
+     * @param commandId uid of the command
+     * @param decoder   decoder to register
+     */
+    protected final void registerSnapshotDecoder(int featureId, int commandId, @NonNull SnapshotDecoder decoder) {
+        mDeviceController.addSnapshotRoute(featureId, commandId, this, decoder);
+    }
+
+    /**
+     * Applies a decoded snapshot, measuring the time spent as command handling time.
+     *
+     * @param snapshot snapshot to apply
+     */
+    final void applySnapshot(@NonNull Runnable snapshot) {
+        long start = System.nanoTime();
+        snapshot.run();
+        recordCommandHandling(System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the count of received commands handled by this controller.
+     *
+     * @return handled commands count
+     */
+    final long getHandledCommandCount() {
+        return mHandledCommandCount;
+    }
+
+    /**
+     * Gets the total time spent handling received commands.
+     *
+     * @return command handling time, in nanoseconds
+     */
+    final long getCommandHandlingTime() {
+        return mCommandHandlingTime;
+    }
+
+    /**
+     * Gets the longest time spent handling a received command.
+     *
+     * @return maximum command handling time, in nanoseconds
+     */
+    final long getMaxCommandHandlingTime() {
+        return mMaxCommandHandlingTime;
+    }
+
     /**
      * Called when the owning controller is stopped.
      * <p>
@@ -182,6 +318,23 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
         return mDeviceController.sendCommand(command);
     }
 
+    /**
+     * Send a setting command to the managed device, superseding any command of the same type not sent yet.
+     * <p>
+     * Use for commands that carry a complete setting value, produced in bursts by continuous UI controls (such as
+     * sliders), so that intermediate values still waiting for the pomp thread when a newer value is sent are dropped.
+     * Commands already handed over to the native command interface are sent anyway.
+     *
+     * @param command       the command to send
+     * @param discriminator discriminates between commands of the same type that set distinct settings (for instance,
+     *                      the id of the camera or gimbal the command applies to)
+     *
+     * @return {@code true} if the command was sent, otherwise {@code false}
+     */
+    protected final boolean sendSupersedingCommand(@NonNull ArsdkCommand command, int discriminator) {
+        return mDeviceController.sendCommand(command, DeviceController.supersedeKey(command, discriminator));
+    }
+
     /**
      * Tells if component settings can be changed while not connected and must restored when connected.
      *
@@ -33,6 +33,7 @@
 package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
 
 import android.text.TextUtils;
+import android.util.SparseArray;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
@@ -40,6 +41,7 @@ import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.arsdkengine.ArsdkEngine;
 import com.parrot.drone.groundsdk.arsdkengine.DeviceProvider;
+import com.parrot.drone.groundsdk.arsdkengine.EngineThread;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.BlackBoxRecorder;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.BlackBoxSession;
 import com.parrot.drone.groundsdk.arsdkengine.persistence.PersistentStore;
@@ -56,6 +58,7 @@ import com.parrot.drone.sdkcore.arsdk.blackbox.ArsdkBlackBoxRequest;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
 import com.parrot.drone.sdkcore.arsdk.crashml.ArsdkCrashmlDownloadRequest;
+import com.parrot.drone.sdkcore.arsdk.device.ArsdkDevice;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkRequest;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkTcpProxy;
 import com.parrot.drone.sdkcore.arsdk.firmware.ArsdkFirmwareUploadRequest;
@@ -72,6 +75,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -163,6 +167,16 @@ public abstract class DeviceController<D extends DeviceCore> {
          */
         boolean sendCommand(@NonNull ArsdkCommand command);
 
+        /**
+         * Sends a command to the controlled device, superseding any command with the same supersede key not sent yet.
+         *
+         * @param command      command to send
+         * @param supersedeKey key identifying the setting that the command sets
+         *
+         * @return {@code true} if the command could be sent, otherwise {@code false}
+         */
+        boolean sendCommand(@NonNull ArsdkCommand command, long supersedeKey);
+
         /**
          * Configures the non-acknowledged command loop period.
          * <p>
@@ -302,6 +316,36 @@ public abstract class DeviceController<D extends DeviceCore> {
     @NonNull
     private final List<DeviceComponentController<?, ?>> mComponentControllers;
 
+    /**
+     * Received commands routing table.
+     * <p>
+     * Maps a command feature uid to the component controllers that declared interest in that feature, in registration
+     * order.
+     */
+    @NonNull
+    private final SparseArray<DeviceComponentController<?, ?>[]> mCommandRoutes;
+
+    /**
+     * Received commands snapshot routing table.
+     * <p>
+     * Maps a command key (feature uid and command uid) to the snapshot decoders that component controllers registered
+     * for that command. Such commands are not forwarded to the owning component controllers' {@link
+     * DeviceComponentController#onCommandReceived} method.
+     */
+    @NonNull
+    private final SparseArray<CommandSnapshotPipeline.Route> mSnapshotRoutes;
+
+    /** Offloads snapshot decoding to the engine thread. {@code null} when the engine thread is disabled. */
+    @Nullable
+    private final CommandSnapshotPipeline mSnapshotPipeline;
+
+    /**
+     * Snapshots already decoded from the command being processed by {@link #onCommandReceived}, {@code null} if they
+     * must be decoded on main thread.
+     */
+    @Nullable
+    private Runnable[] mDecodedSnapshots;
+
     /** Registered providers for this device controller, by connector. */
     @NonNull
     private final Map<DeviceConnector, DeviceProvider> mDeviceProviders;
@@ -364,6 +408,11 @@ public abstract class DeviceController<D extends DeviceCore> {
         mConnectionState = ControllerConnectionState.DISCONNECTED;
         mDevice = deviceFactory.create(mDeviceDelegate);
         mComponentControllers = new ArrayList<>();
+        mCommandRoutes = new SparseArray<>();
+        mSnapshotRoutes = new SparseArray<>();
+        EngineThread engineThread = engine.getEngineThread();
+        mSnapshotPipeline = engineThread == null ? null
+                : new CommandSnapshotPipeline(this, engineThread, mSnapshotRoutes);
         mDeviceProviders = new HashMap<>();
         mNoAckLoopPeriod = nonAckLoopPeriod;
         PersistentStore persistentStore = engine.getPersistentStore();
@@ -548,6 +597,37 @@ public abstract class DeviceController<D extends DeviceCore> {
         return false;
     }
 
+    /**
+     * Sends a command to the managed device, superseding any command with the same supersede key not sent yet.
+     *
+     * @param command      the command to send.
+     * @param supersedeKey key identifying the setting that the command sets, see {@link #supersedeKey}
+     *
+     * @return {@code true} when the command could be sent, otherwise {@code false}
+     */
+    public final boolean sendCommand(@NonNull ArsdkCommand command, long supersedeKey) {
+        if (mBackend != null) {
+            return mBackend.sendCommand(command, supersedeKey);
+        } else {
+            command.release();
+        }
+        return false;
+    }
+
+    /**
+     * Computes the supersede key of a command.
+     *
+     * @param command       command to compute the key of
+     * @param discriminator discriminates between commands of the same type that set distinct settings (for instance,
+     *                      the id of the camera or gimbal the command applies to)
+     *
+     * @return supersede key: feature uid in 16 upper bits, then command uid on 16 bits, then discriminator
+     */
+    static long supersedeKey(@NonNull ArsdkCommand command, int discriminator) {
+        return (long) command.getFeatureId() << 48 | (long) command.getCommandId() << 32
+               | (discriminator & 0xFFFFFFFFL);
+    }
+
     /**
      * Updates the managed device's firmware.
      *
@@ -593,7 +673,10 @@ public abstract class DeviceController<D extends DeviceCore> {
     /**
      * Called when a command is received from the controlled device.
      * <p>
-     * Forwards the command to all controller's component controllers. <br/>
+     * Applies snapshots decoded from the command by registered
+     * {@link DeviceComponentController.SnapshotDecoder snapshot decoders}, if any, then forwards the command to the
+     * other component controllers that declared interest in the command's feature, then to the black box session, if
+     * any. <br/>
      * Subclasses may override this method to perform further processing, but <strong>MUST</strong> call super in that
      * case.
      *
@@ -601,15 +684,55 @@ public abstract class DeviceController<D extends DeviceCore> {
      */
     @CallSuper
     public void onCommandReceived(@NonNull ArsdkCommand command) {
-        // Note: intentional classic for-loop, otherwise an iterator is allocated for each received command.
-        for (int i = 0, N = mComponentControllers.size(); i < N; i++) {
-            mComponentControllers.get(i).onCommandReceived(command);
+        CommandSnapshotPipeline.Route snapshotRoute = mSnapshotRoutes.size() == 0 ? null
+                : mSnapshotRoutes.get(CommandSnapshotPipeline.commandKey(command));
+        if (snapshotRoute != null) {
+            snapshotRoute.apply(mDecodedSnapshots == null ? snapshotRoute.decode(command) : mDecodedSnapshots);
+        }
+        DeviceComponentController<?, ?>[] controllers = mCommandRoutes.get(command.getFeatureId());
+        if (controllers != null) {
+            for (DeviceComponentController<?, ?> controller : controllers) {
+                if (snapshotRoute == null || !snapshotRoute.isOwnedBy(controller)) {
+                    controller.handleCommand(command);
+                }
+            }
         }
         if (mBlackBoxSession != null) {
             mBlackBoxSession.onCommandReceived(command);
         }
     }
 
+    /**
+     * Called on main thread when snapshots have been decoded on the engine thread from a received command.
+     * <p>
+     * Processes the command through {@link #onCommandReceived}, applying the given snapshots instead of decoding the
+     * command again.
+     *
+     * @param command   received command
+     * @param snapshots snapshots decoded from the command
+     */
+    final void onSnapshotsDecoded(@NonNull ArsdkCommand command, @NonNull Runnable[] snapshots) {
+        mDecodedSnapshots = snapshots;
+        try {
+            onCommandReceived(command);
+        } finally {
+            mDecodedSnapshots = null;
+        }
+    }
+
+    /**
+     * Gets the interceptor that offloads decoding of received commands to the engine thread.
+     * <p>
+     * The backend should install this interceptor on the device while connected.
+     *
+     * @return command interceptor, {@code null} if the engine thread is disabled or if no component controller
+     *         registered any snapshot decoder
+     */
+    @Nullable
+    public final ArsdkDevice.CommandInterceptor getCommandInterceptor() {
+        return mSnapshotRoutes.size() == 0 ? null : mSnapshotPipeline;
+    }
+
     /**
      * Forces the controller to stop.
      * <p>
@@ -940,12 +1063,57 @@ public abstract class DeviceController<D extends DeviceCore> {
 
     /**
      * Registers the given component controllers.
+     * <p>
+     * Each controller is also added to the command routing table, for each feature it
+     * {@link DeviceComponentController#getCommandFeatureIds() declares interest in}.
      *
      * @param controllers component controllers to register
      */
     final void registerComponentControllers(@NonNull DeviceComponentController<?, ?>... controllers) {
-        mComponentControllers.addAll(Arrays.asList(controllers));
-        mComponentControllers.removeAll(Collections.<DeviceComponentController<?, ?>>singleton(null));
+        for (DeviceComponentController<?, ?> controller : controllers) {
+            if (controller != null) {
+                mComponentControllers.add(controller);
+                for (int featureId : controller.getCommandFeatureIds()) {
+                    addCommandRoute(featureId, controller);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a snapshot route to the given component controller for the given command.
+     *
+     * @param featureId  uid of the command feature
+     * @param commandId  uid of the command
+     * @param controller component controller that owns the decoder
+     * @param decoder    decoder to route commands to
+     */
+    final void addSnapshotRoute(int featureId, int commandId, @NonNull DeviceComponentController<?, ?> controller,
+                                @NonNull DeviceComponentController.SnapshotDecoder decoder) {
+        int key = CommandSnapshotPipeline.commandKey(featureId, commandId);
+        CommandSnapshotPipeline.Route route = mSnapshotRoutes.get(key);
+        if (route == null) {
+            mSnapshotRoutes.put(key, new CommandSnapshotPipeline.Route(controller, decoder));
+        } else {
+            route.add(controller, decoder);
+        }
+    }
+
+    /**
+     * Adds a route to the given component controller for commands of the given feature.
+     *
+     * @param featureId  uid of the command feature to route
+     * @param controller component controller to route commands to
+     */
+    private void addCommandRoute(int featureId, @NonNull DeviceComponentController<?, ?> controller) {
+        DeviceComponentController<?, ?>[] controllers = mCommandRoutes.get(featureId);
+        if (controllers == null) {
+            controllers = new DeviceComponentController<?, ?>[] {controller};
+        } else if (!Arrays.asList(controllers).contains(controller)) {
+            controllers = Arrays.copyOf(controllers, controllers.length + 1);
+            controllers[controllers.length - 1] = controller;
+        }
+        mCommandRoutes.put(featureId, controllers);
     }
 
     /**
@@ -1165,6 +1333,9 @@ public abstract class DeviceController<D extends DeviceCore> {
         if (mConnectionState != ControllerConnectionState.DISCONNECTED) {
             mConnectionState = ControllerConnectionState.DISCONNECTED;
             mBackend = null;
+            if (mSnapshotPipeline != null) {
+                mSnapshotPipeline.reset();
+            }
             if (mHttpSession != null) {
                 mHttpSession.dispose();
                 mHttpSession = null;
@@ -1221,6 +1392,45 @@ public abstract class DeviceController<D extends DeviceCore> {
         writer.write(prefix + "\tProviders: "
                      + (mDeviceProviders.isEmpty() ? "None" : TextUtils.join(", ", mDeviceProviders.values()))
                      + " [active: " + mActiveProvider + "]\n");
+        writer.write(prefix + "\tCommand routes: " + mCommandRoutes.size() + " features\n");
+        for (int i = 0, N = mCommandRoutes.size(); i < N; i++) {
+            writer.write(prefix + "\t\t" + String.format(Locale.US, "0x%04X", mCommandRoutes.keyAt(i)) + ": "
+                         + TextUtils.join(", ", mCommandRoutes.valueAt(i)) + "\n");
+        }
+        writer.write(prefix + "\tSnapshot routes: " + mSnapshotRoutes.size() + " commands\n");
+        for (int i = 0, N = mSnapshotRoutes.size(); i < N; i++) {
+            writer.write(prefix + "\t\t" + String.format(Locale.US, "0x%08X", mSnapshotRoutes.keyAt(i)) + ": "
+                         + mSnapshotRoutes.valueAt(i) + "\n");
+        }
+        if (mSnapshotPipeline != null) {
+            mSnapshotPipeline.dump(writer, prefix + "\t");
+        }
+    }
+
+    /**
+     * Debug dump of the time spent by each component controller handling received commands.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    public void dumpCommandHandling(@NonNull PrintWriter writer, @NonNull String prefix) {
+        List<DeviceComponentController<?, ?>> controllers = new ArrayList<>();
+        for (DeviceComponentController<?, ?> controller : mComponentControllers) {
+            if (controller.getHandledCommandCount() > 0) {
+                controllers.add(controller);
+            }
+        }
+        Collections.sort(controllers, (lhs, rhs) ->
+                Long.compare(rhs.getCommandHandlingTime(), lhs.getCommandHandlingTime()));
+        writer.write(prefix + this + " command handling:\n");
+        for (DeviceComponentController<?, ?> controller : controllers) {
+            long count = controller.getHandledCommandCount();
+            long total = controller.getCommandHandlingTime();
+            writer.write(prefix + "\t" + controller.getClass().getSimpleName() + String.format(Locale.US,
+                    " [count: %d, total: %.3fms, mean: %dus, max: %dus]\n", count, total / 1e6,
+                    TimeUnit.NANOSECONDS.toMicros(total / count),
+                    TimeUnit.NANOSECONDS.toMicros(controller.getMaxCommandHandlingTime())));
+        }
     }
 
     @NonNull
@@ -47,13 +47,14 @@ import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.ActivablePilotingItfCo
 import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.PilotingCommand;
 import com.parrot.drone.groundsdk.device.DeviceConnector;
 import com.parrot.drone.groundsdk.device.Drone;
+import com.parrot.drone.groundsdk.device.pilotingitf.FollowMePilotingItf;
+import com.parrot.drone.groundsdk.device.pilotingitf.LookAtPilotingItf;
 import com.parrot.drone.groundsdk.facility.firmware.FirmwareVersion;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
 import com.parrot.drone.groundsdk.internal.utility.DroneStore;
 import com.parrot.drone.groundsdk.internal.utility.SystemBarometer;
 import com.parrot.drone.groundsdk.internal.utility.SystemLocation;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureCommon;
-import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureControllerInfo;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.stream.SdkCoreStream;
 import com.parrot.drone.sdkcore.ulog.ULog;
@@ -77,6 +78,10 @@ public abstract class DroneController extends DeviceController<DroneCore> {
     @NonNull
     private final EphemerisUploadProtocol mEphemerisUploadProtocol;
 
+    /** Governs the rate at which controller barometer and location are sent to the drone. */
+    @NonNull
+    private final ControllerInfoUplink mControllerInfoUplink;
+
     /** {@code true} when the controlled drone is landed or in emergency state. */
     private boolean mLanded;
 
@@ -99,6 +104,7 @@ public abstract class DroneController extends DeviceController<DroneCore> {
                 pcmdEncoder.getPilotingCommandLoopPeriod());
         mActivationController = new PilotingItfActivationController(this, pcmdEncoder, defaultPilotingItfFactory);
         mEphemerisUploadProtocol = ephemerisUploadProtocol;
+        mControllerInfoUplink = new ControllerInfoUplink(this, pcmdEncoder.getPilotingCommandLoopPeriod());
         mLanded = true;
     }
 
@@ -152,6 +158,7 @@ public abstract class DroneController extends DeviceController<DroneCore> {
     @Override
     void onProtocolConnected() {
         mActivationController.onConnected();
+        mControllerInfoUplink.start();
 
         SystemLocation location = getEngine().getUtility(SystemLocation.class);
         if (location != null) {
@@ -184,6 +191,7 @@ public abstract class DroneController extends DeviceController<DroneCore> {
         if (barometer != null) {
             barometer.disposeMonitor(mBarometerMonitor);
         }
+        mControllerInfoUplink.stop();
 
         mActivationController.onDisconnected();
         // activation controller must be notified of disconnection before all piloting interfaces are notified
@@ -235,6 +243,7 @@ public abstract class DroneController extends DeviceController<DroneCore> {
         if (mLanded != landed) {
             mLanded = landed;
             notifyDataSyncConditionsChanged();
+            updateControllerInfoUplinkRate();
             if (mLanded) {
                 // When the drone is landed, video streaming is not critical, so we can use fused location
                 SystemLocation location = getEngine().getUtility(SystemLocation.class);
@@ -252,6 +261,28 @@ public abstract class DroneController extends DeviceController<DroneCore> {
         }
     }
 
+    /**
+     * Called back when the active piloting interface changes.
+     */
+    void onActivePilotingItfChanged() {
+        updateControllerInfoUplinkRate();
+    }
+
+    /**
+     * Adapts the controller barometer and location uplink rate to the drone current activity.
+     */
+    private void updateControllerInfoUplinkRate() {
+        ActivablePilotingItfController pilotingItf = mActivationController.getActivePilotingItf();
+        if (mLanded) {
+            mControllerInfoUplink.setRate(ControllerInfoUplink.Rate.LANDED);
+        } else if (pilotingItf != null && (pilotingItf.getPilotingItf() instanceof FollowMePilotingItf
+                                           || pilotingItf.getPilotingItf() instanceof LookAtPilotingItf)) {
+            mControllerInfoUplink.setRate(ControllerInfoUplink.Rate.TRACKING);
+        } else {
+            mControllerInfoUplink.setRate(ControllerInfoUplink.Rate.FLYING);
+        }
+    }
+
     /**
      * Checks if the local connection uses wifi.
      *
@@ -335,34 +366,17 @@ public abstract class DroneController extends DeviceController<DroneCore> {
                 }
             };
 
-    /** Processes system atmospheric pressure measurements and sends them to the drone. */
-    private final SystemBarometer.Monitor mBarometerMonitor = (pressure, measureTimeStamp) -> {
-        // same as Free Flight 4
-        // TODO : what relationship with other timestamps ( time we send to the drone, pcmd timestamps,
-        // TODO   barometer timestamps, etc.) ?
-        sendCommand(ArsdkFeatureControllerInfo.encodeBarometer((float) pressure, measureTimeStamp));
-    };
-
-    /** Processes system geographic location changes and sends them to the drone. */
-    private final SystemLocation.Monitor mLocationMonitor = location -> {
-        // same as Free Flight 4
-        // TODO : why use getTime() (milliseconds) vs getElapsedRealTimeNanos() ? what relationship with
-        // TODO   other timestamps: time we send to the drone, pcmd timestamps, barometer timestamps
-        // TODO   (which is in _nanoseconds_), etc. ?
-        double northSpeed = 0, eastSpeed = 0;
-        if (location.hasSpeed() && location.hasBearing()) {
-            double speed = location.getSpeed(), bearing = Math.toRadians(location.getBearing());
-            northSpeed = Math.cos(bearing) * speed;
-            eastSpeed = Math.sin(bearing) * speed;
-        }
-        sendCommand(ArsdkFeatureControllerInfo.encodeGps(location.getLatitude(), location.getLongitude(),
-                (float) location.getAltitude(), location.getAccuracy(), -1, (float) northSpeed,
-                (float) eastSpeed, 0, location.getTime()));
-    };
+    /** Processes system atmospheric pressure measurements and forwards them to the controller info uplink. */
+    private final SystemBarometer.Monitor mBarometerMonitor = (pressure, measureTimeStamp) ->
+            mControllerInfoUplink.onPressure(pressure, measureTimeStamp);
+
+    /** Processes system geographic location changes and forwards them to the controller info uplink. */
+    private final SystemLocation.Monitor mLocationMonitor = location -> mControllerInfoUplink.onLocation(location);
 
     @Override
     public void dump(@NonNull PrintWriter writer, @NonNull Set<String> args, @NonNull String prefix) {
         super.dump(writer, args, prefix);
         mActivationController.dump(writer, prefix + "\t");
+        mControllerInfoUplink.dump(writer, prefix + "\t");
     }
 }
@@ -100,6 +100,16 @@ public class PilotingItfActivationController {
         return mDroneController;
     }
 
+    /**
+     * Gets the controller of the currently active piloting interface.
+     *
+     * @return the active piloting interface controller, {@code null} if none
+     */
+    @Nullable
+    ActivablePilotingItfController getActivePilotingItf() {
+        return mCurrentPilotingItf;
+    }
+
     /**
      * Activates the piloting interface of the given controller.
      *
@@ -178,6 +188,7 @@ public class PilotingItfActivationController {
     public void onInactive(@NonNull ActivablePilotingItfController pilotingItf) {
         if (pilotingItf == mCurrentPilotingItf) {
             mCurrentPilotingItf = null;
+            mDroneController.onActivePilotingItfChanged();
         }
         if (mConnected && mCurrentPilotingItf == null) {
             if (mNextPilotingItf != null) {
@@ -208,6 +219,7 @@ public class PilotingItfActivationController {
             } else {
                 stopPilotingCommandLoop();
             }
+            mDroneController.onActivePilotingItfChanged();
         }
     }
 
@@ -32,6 +32,7 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.http;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -44,16 +45,34 @@ import com.parrot.drone.groundsdk.device.peripheral.MediaStore;
 import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
-import com.parrot.drone.groundsdk.internal.http.ProgressCaptor;
+import com.parrot.drone.groundsdk.internal.http.HttpTransport;
 import com.parrot.drone.groundsdk.internal.io.Files;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.groundsdk.internal.tasks.Task;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import okhttp3.ResponseBody;
@@ -64,6 +83,8 @@ import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 import retrofit2.http.Streaming;
@@ -88,6 +109,30 @@ public class HttpMediaClient extends HttpClient {
     @VisibleForTesting // tests refer to this to test progress
     static final int CHUNK_SIZE = 8192; // we use the same size as Okio segments, for consistency
 
+    /**
+     * Minimal size of a segment, in bytes, when a download is split in segments downloaded concurrently.
+     */
+    @VisibleForTesting
+    static final long MIN_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /** Amount of data, in bytes, received for a segment between two records of the segment progress. */
+    private static final long SEGMENT_CHECKPOINT = 1024 * 1024;
+
+    /** Suffix of the hidden file where a media/resource is downloaded, before being moved to its destination. */
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /** Suffix of the hidden file where progress of each segment of a segmented download is recorded. */
+    private static final String SEGMENTS_SUFFIX = ".segments";
+
+    /** Suffix of the hidden file where the validator of the content being downloaded is recorded. */
+    private static final String VALIDATOR_SUFFIX = ".validator";
+
+    /** HTTP status code for partial content, in response to a range request. */
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /** HTTP status code for an unsatisfiable range request. */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
     /** An interface for receiving media events. */
     public interface Listener {
 
@@ -425,6 +470,8 @@ public class HttpMediaClient extends HttpClient {
         Task<T> fetchTask = Executor.runInBackground(() -> {
             Response<ResponseBody> response = fetchCall.execute();
             if (fetchCall.isCanceled()) {
+                // release the connection, and the transport slot it holds
+                closeQuietly(response);
                 // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
                 // to restore the interruption status after the call
                 throw new InterruptedException("Canceled retrofit call");
@@ -459,6 +506,12 @@ public class HttpMediaClient extends HttpClient {
 
     /**
      * Downloads a media/resource.
+     * <p>
+     * Data is received in a hidden partial file next to {@code dest}, which is renamed to {@code dest} once the download
+     * completes successfully. In case the download fails, the partial file is kept if the server provided a validator
+     * ({@code ETag} or {@code Last-Modified}) for the content, so that a subsequent download of the same media/resource
+     * to the same destination resumes from already received data, provided that the remote content did not change in
+     * the meantime. Partial data is deleted when the download is canceled, or when it cannot be resumed.
      *
      * @param url      url of the media/resource to download
      * @param dest     file where to store the downloaded media/resource
@@ -469,41 +522,38 @@ public class HttpMediaClient extends HttpClient {
     @NonNull
     public HttpRequest download(@NonNull String url, @NonNull File dest,
                                 @NonNull HttpRequest.ProgressStatusCallback callback) {
-        Call<ResponseBody> downloadCall = mService.download(url);
-        Task<Void> downloadTask = Executor.runInBackground((Callable<Void>) () -> {
-            Response<ResponseBody> response = downloadCall.execute();
-            if (downloadCall.isCanceled()) {
-                // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
-                // to restore the interruption status after the call
-                throw new InterruptedException("Canceled retrofit call");
-            }
-
-            ResponseBody body = response.body();
-            if (!response.isSuccessful()) {
-                throw new HttpException(response.message(), response.code());
-            }
+        return download(url, dest, 0, 1, callback);
+    }
 
-            assert body != null;
-            body = ProgressCaptor.captureOf(body,
-                    percent -> Executor.postOnMainThread(() -> callback.onRequestProgress(percent)));
-            try {
-                Files.writeFile(body.byteStream(), dest, CHUNK_SIZE);
-                long received = dest.length();
-                long expected = body.contentLength();
-                if (received != expected) {
-                    throw new IOException("Received content mismatch [expected: " + expected
-                                          + ", received: " + received + "]");
-                }
-                return null;
-            } catch (IOException | InterruptedException e) {
-                // ensure we cleanup the file before getting out of the background task
-                if (dest.exists() && !dest.delete() && ULog.w(TAG_HTTP)) {
-                    ULog.w(TAG_HTTP, "Could not clean up partially downloaded file: " + dest);
-                }
-                throw e;
-            } finally {
-                body.close();
-            }
+    /**
+     * Downloads a media/resource, possibly using several concurrent connections.
+     * <p>
+     * When more than one connection is requested and the media/resource is large enough, the media/resource is split
+     * in as many segments, of at least {@link #MIN_SEGMENT_SIZE} bytes each, which are downloaded concurrently using
+     * HTTP range requests and written directly at their position in the partial file. Download progress of each segment
+     * is recorded alongside the partial file so that an interrupted download can be resumed as well. In case the server
+     * does not honor range requests, received segment data is discarded and the media/resource is downloaded in a
+     * single request.
+     *
+     * @param url         url of the media/resource to download
+     * @param dest        file where to store the downloaded media/resource
+     * @param size        media/resource size, in bytes, if known, otherwise {@code 0}; required to download segments
+     * @param connections maximum number of concurrent connections to use
+     * @param callback    callback notified of request progress and completion status
+     *
+     * @return the ongoing request, that can be canceled
+     *
+     * @see #download(String, File, HttpRequest.ProgressStatusCallback)
+     */
+    @NonNull
+    public HttpRequest download(@NonNull String url, @NonNull File dest, @IntRange(from = 0) long size,
+                                @IntRange(from = 1) int connections,
+                                @NonNull HttpRequest.ProgressStatusCallback callback) {
+        RangeDownload download = new RangeDownload((range, ifRange) -> mService.download(url, range, ifRange), dest,
+                size, connections, callback);
+        Task<Void> downloadTask = Executor.runInBackground((Callable<Void>) () -> {
+            download.run();
+            return null;
         }).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
@@ -519,11 +569,716 @@ public class HttpMediaClient extends HttpClient {
         });
 
         return bookRequest(() -> {
-            downloadCall.cancel();
+            download.cancel();
             downloadTask.cancel();
         });
     }
 
+    /**
+     * Closes a response body, ignoring errors.
+     *
+     * @param response response whose body must be closed
+     */
+    private static void closeQuietly(@NonNull Response<ResponseBody> response) {
+        ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+        if (body != null) {
+            body.close();
+        }
+    }
+
+    /**
+     * A resumable download, either sequential or split in concurrently downloaded segments.
+     * <p>
+     * {@link #run()} executes the download on the calling (background) thread, while {@link #cancel()} may be called
+     * from any thread.
+     */
+    private static final class RangeDownload {
+
+        /** Creates download calls. */
+        interface CallFactory {
+
+            /**
+             * Creates a download call.
+             *
+             * @param range   value of the HTTP {@code Range} header, {@code null} to download the whole content
+             * @param ifRange value of the HTTP {@code If-Range} header, {@code null} to not send it
+             *
+             * @return a new call
+             */
+            @NonNull
+            Call<ResponseBody> create(@Nullable String range, @Nullable String ifRange);
+        }
+
+        /** Thrown when the server does not honor a segment range request, or when remote content changed. */
+        private static final class RangeMismatchException extends IOException {
+
+            /**
+             * Constructor.
+             *
+             * @param message exception message
+             */
+            RangeMismatchException(@NonNull String message) {
+                super(message);
+            }
+        }
+
+        /** Creates download calls. */
+        @NonNull
+        private final CallFactory mCallFactory;
+
+        /** Final download destination. */
+        @NonNull
+        private final File mDest;
+
+        /** Partial file, where data is received. */
+        @NonNull
+        private final File mPartialFile;
+
+        /** Segment file, where progress of each segment is recorded when downloading segments. */
+        @NonNull
+        private final File mSegmentFile;
+
+        /** Validator file, where the validator of the remote content is recorded, if provided by the server. */
+        @NonNull
+        private final File mValidatorFile;
+
+        /** Expected content size, {@code 0} if unknown. */
+        private final long mSize;
+
+        /** Maximum number of concurrent connections. */
+        private final int mConnections;
+
+        /** Callback notified of progress. */
+        @NonNull
+        private final HttpRequest.ProgressCallback mCallback;
+
+        /** Ongoing calls. Guarded by {@code this}. */
+        @NonNull
+        private final List<Call<ResponseBody>> mCalls;
+
+        /** {@code true} when the download has been canceled. Guarded by {@code this}. */
+        private boolean mCanceled;
+
+        /** Expected total content size, once known. */
+        private volatile long mTotal;
+
+        /** Validator of the remote content being downloaded in segments, {@code null} until known. */
+        @NonNull
+        private final AtomicReference<String> mSegmentsValidator;
+
+        /** Amount of received data so far, including data received by previous attempts. */
+        @NonNull
+        private final AtomicLong mReceived;
+
+        /** Amount of data received since progress was last notified. */
+        @NonNull
+        private final AtomicLong mUnreported;
+
+        /** Last notified progress. */
+        @NonNull
+        private final AtomicInteger mProgress;
+
+        /**
+         * Constructor.
+         *
+         * @param callFactory creates download calls
+         * @param dest        final download destination
+         * @param size        expected content size, {@code 0} if unknown
+         * @param connections maximum number of concurrent connections
+         * @param callback    callback notified of progress
+         */
+        RangeDownload(@NonNull CallFactory callFactory, @NonNull File dest, long size, int connections,
+                      @NonNull HttpRequest.ProgressCallback callback) {
+            mCallFactory = callFactory;
+            mDest = dest;
+            mPartialFile = new File(dest.getParentFile(), "." + dest.getName() + PARTIAL_SUFFIX);
+            mSegmentFile = new File(dest.getParentFile(), "." + dest.getName() + SEGMENTS_SUFFIX);
+            mValidatorFile = new File(dest.getParentFile(), "." + dest.getName() + VALIDATOR_SUFFIX);
+            mSize = size;
+            mConnections = connections;
+            mCallback = callback;
+            mCalls = new ArrayList<>();
+            mReceived = new AtomicLong();
+            mUnreported = new AtomicLong();
+            mProgress = new AtomicInteger();
+            mSegmentsValidator = new AtomicReference<>();
+        }
+
+        /**
+         * Runs the download.
+         *
+         * @throws IOException          in case the download failed
+         * @throws InterruptedException in case the download was canceled
+         */
+        void run() throws IOException, InterruptedException {
+            Files.makeDirectories(mPartialFile.getParentFile());
+            int segmentCount = mConnections > 1 ? (int) Math.min(mConnections, mSize / MIN_SEGMENT_SIZE) : 1;
+            try {
+                if (segmentCount > 1) {
+                    try {
+                        downloadSegments(segmentCount);
+                    } catch (RangeMismatchException e) {
+                        if (ULog.w(TAG_HTTP)) {
+                            ULog.w(TAG_HTTP, "Segmented download failed, downloading in a single request: "
+                                             + e.getMessage());
+                        }
+                        discardPartialData();
+                        downloadSequentially();
+                    }
+                } else {
+                    if (mSegmentFile.exists()) {
+                        // partial file was preallocated by a segmented download and cannot be appended to
+                        discardPartialData();
+                    }
+                    downloadSequentially();
+                }
+            } catch (IOException | InterruptedException e) {
+                if (isCanceled() || e instanceof HttpException || !mValidatorFile.exists()) {
+                    // received data will not, or cannot be resumed
+                    discardPartialData();
+                }
+                throw e;
+            }
+            delete(mSegmentFile);
+            delete(mValidatorFile);
+            if (mDest.exists()) {
+                delete(mDest);
+            }
+            if (!mPartialFile.renameTo(mDest)) {
+                throw new IOException("Could not move " + mPartialFile + " to " + mDest);
+            }
+        }
+
+        /**
+         * Cancels the download.
+         */
+        void cancel() {
+            synchronized (this) {
+                mCanceled = true;
+                abortCalls();
+            }
+        }
+
+        /**
+         * Tells whether the download has been canceled.
+         *
+         * @return {@code true} if the download has been canceled, otherwise {@code false}
+         */
+        private synchronized boolean isCanceled() {
+            return mCanceled;
+        }
+
+        /**
+         * Cancels all ongoing calls.
+         * <p>
+         * Contrary to {@link #cancel()}, subsequent calls may still be executed.
+         */
+        private synchronized void abortCalls() {
+            for (Call<ResponseBody> call : mCalls) {
+                call.cancel();
+            }
+            mCalls.clear();
+        }
+
+        /**
+         * Downloads the content in one request, appending to already received data, if any.
+         * <p>
+         * Already received data is resumed only if the validator of the remote content was recorded when that data was
+         * received. The validator is sent along with the range request, so that the server sends the whole content
+         * instead in case it changed meanwhile.
+         *
+         * @throws IOException          in case the download failed
+         * @throws InterruptedException in case the download was canceled
+         */
+        private void downloadSequentially() throws IOException, InterruptedException {
+            long offset = mPartialFile.length();
+            String validator = offset > 0 ? loadValidator() : null;
+            if (offset > 0 && validator == null) {
+                // received data cannot be checked against remote content, restart from scratch
+                discardPartialData();
+                offset = 0;
+            }
+            Response<ResponseBody> response = execute(offset > 0 ? "bytes=" + offset + "-" : null, validator);
+            if (offset > 0 && (response.code() == HTTP_RANGE_NOT_SATISFIABLE
+                               || response.code() == HTTP_PARTIAL_CONTENT && !resumes(response, offset, validator))) {
+                // partial file does not match remote content anymore, restart from scratch
+                closeQuietly(response);
+                discardPartialData();
+                offset = 0;
+                response = execute(null, null);
+            }
+            ResponseBody body = checkResponse(response);
+            try {
+                if (response.code() != HTTP_PARTIAL_CONTENT) {
+                    // whole content received, either because no range was requested or because remote content changed
+                    offset = 0;
+                }
+                if (offset == 0) {
+                    saveValidator(validatorOf(response));
+                }
+                long total = offset + body.contentLength();
+                startProgress(offset, total);
+                try (FileOutputStream out = new FileOutputStream(mPartialFile, offset > 0)) {
+                    byte[] buffer = new byte[CHUNK_SIZE];
+                    InputStream in = body.byteStream();
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        checkInterrupted();
+                        out.write(buffer, 0, len);
+                        onReceived(len);
+                    }
+                }
+                checkInterrupted();
+                long received = mPartialFile.length();
+                if (received != total) {
+                    throw new IOException("Received content mismatch [expected: " + total
+                                          + ", received: " + received + "]");
+                }
+            } finally {
+                body.close();
+            }
+        }
+
+        /**
+         * Downloads the content in concurrent segments, resuming each segment from its recorded progress, if any.
+         *
+         * @param segmentCount number of segments to split the content into
+         *
+         * @throws IOException          in case the download failed
+         * @throws InterruptedException in case the download was canceled
+         */
+        private void downloadSegments(int segmentCount) throws IOException, InterruptedException {
+            long[] positions = loadSegments(segmentCount);
+            String validator = positions == null ? null : loadValidator();
+            if (validator == null) {
+                // received data, if any, cannot be checked against remote content, restart from scratch
+                positions = null;
+            }
+            mSegmentsValidator.set(validator);
+            long[] ends = new long[segmentCount];
+            long segmentSize = mSize / segmentCount;
+            long done = 0;
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * segmentSize;
+                ends[i] = i == segmentCount - 1 ? mSize : start + segmentSize;
+                if (positions == null) {
+                    done = 0;
+                } else {
+                    done += positions[i] - start;
+                }
+            }
+            if (positions == null) {
+                positions = new long[segmentCount];
+                for (int i = 0; i < segmentCount; i++) {
+                    positions[i] = i * segmentSize;
+                }
+                discardPartialData();
+            }
+            startProgress(done, mSize);
+
+            ExecutorService pool = Executors.newFixedThreadPool(segmentCount);
+            try (RandomAccessFile partialFile = new RandomAccessFile(mPartialFile, "rw");
+                 RandomAccessFile segmentFile = new RandomAccessFile(mSegmentFile, "rw")) {
+                partialFile.setLength(mSize);
+                FileChannel data = partialFile.getChannel(), segments = segmentFile.getChannel();
+                writeSegmentHeader(segments, segmentCount, positions);
+                List<Future<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < segmentCount; i++) {
+                    int index = i;
+                    long position = positions[i], end = ends[i];
+                    futures.add(pool.submit(() -> {
+                        downloadSegment(index, position, end, data, segments);
+                        return null;
+                    }));
+                }
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        } else if (cause instanceof InterruptedException) {
+                            throw (InterruptedException) cause;
+                        }
+                        throw new IOException(cause);
+                    }
+                }
+                checkInterrupted();
+            } catch (IOException | InterruptedException e) {
+                // stop other segments
+                abortCalls();
+                throw e;
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        /**
+         * Downloads a segment.
+         *
+         * @param index    segment index
+         * @param position position where to start receiving segment data
+         * @param end      segment end position, exclusive
+         * @param data     channel to write segment data to
+         * @param segments channel to record segment progress to
+         *
+         * @throws IOException          in case the download failed
+         * @throws InterruptedException in case the download was canceled
+         */
+        private void downloadSegment(int index, long position, long end, @NonNull FileChannel data,
+                                     @NonNull FileChannel segments) throws IOException, InterruptedException {
+            if (position >= end) {
+                return;
+            }
+            Response<ResponseBody> response = execute("bytes=" + position + "-" + (end - 1), mSegmentsValidator.get());
+            if (response.isSuccessful()) {
+                long[] range = parseContentRange(response);
+                if (response.code() != HTTP_PARTIAL_CONTENT || range == null || range[0] != position
+                    || range[1] != end - 1 || range[2] != mSize) {
+                    closeQuietly(response);
+                    throw new RangeMismatchException("Segment " + index + " range not honored [code: "
+                                                     + response.code() + ", Content-Range: "
+                                                     + response.headers().get("Content-Range") + "]");
+                }
+                checkSegmentValidator(validatorOf(response));
+            }
+            ResponseBody body = checkResponse(response);
+            ByteBuffer progress = ByteBuffer.allocate(8);
+            try {
+                ReadableByteChannel in = Channels.newChannel(body.byteStream());
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+                long checkpoint = position + SEGMENT_CHECKPOINT;
+                while (position < end) {
+                    checkInterrupted();
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    if (in.read(buffer) < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    int len = buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        position += data.write(buffer, position);
+                    }
+                    onReceived(len);
+                    if (position >= checkpoint || position == end) {
+                        progress.clear();
+                        progress.putLong(0, position);
+                        segments.write(progress, segmentOffset(index));
+                        checkpoint = position + SEGMENT_CHECKPOINT;
+                    }
+                }
+                if (position != end) {
+                    throw new IOException("Segment " + index + " content mismatch [expected end: " + end
+                                          + ", received end: " + position + "]");
+                }
+            } finally {
+                body.close();
+            }
+        }
+
+        /**
+         * Checks that a segment response validator matches the one of other segments.
+         * <p>
+         * The first received validator is recorded, so that the download may be resumed later.
+         *
+         * @param validator received validator, {@code null} if none
+         *
+         * @throws RangeMismatchException in case the validator does not match the one of other segments
+         */
+        private void checkSegmentValidator(@Nullable String validator) throws RangeMismatchException {
+            if (validator != null && mSegmentsValidator.compareAndSet(null, validator)) {
+                saveValidator(validator);
+                return;
+            }
+            String expected = mSegmentsValidator.get();
+            if (expected != null && !expected.equals(validator)) {
+                throw new RangeMismatchException("Remote content changed [expected: " + expected + ", received: "
+                                                 + validator + "]");
+            }
+        }
+
+        /**
+         * Loads recorded segment positions.
+         *
+         * @param segmentCount expected number of segments
+         *
+         * @return recorded segment positions, or {@code null} if there is no record or if it does not match the
+         *         expected number of segments and content size
+         */
+        @Nullable
+        private long[] loadSegments(int segmentCount) {
+            if (!mSegmentFile.exists() || mPartialFile.length() != mSize) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new FileInputStream(mSegmentFile))) {
+                if (in.readInt() != segmentCount || in.readLong() != mSize) {
+                    return null;
+                }
+                long[] positions = new long[segmentCount];
+                for (int i = 0; i < segmentCount; i++) {
+                    positions[i] = in.readLong();
+                }
+                return positions;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Writes segment record.
+         *
+         * @param segments     channel to write to
+         * @param segmentCount number of segments
+         * @param positions    current segment positions
+         *
+         * @throws IOException in case writing failed
+         */
+        private void writeSegmentHeader(@NonNull FileChannel segments, int segmentCount, @NonNull long[] positions)
+                throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(segmentOffset(segmentCount));
+            header.putInt(segmentCount).putLong(mSize);
+            for (long position : positions) {
+                header.putLong(position);
+            }
+            header.flip();
+            segments.truncate(0);
+            while (header.hasRemaining()) {
+                segments.write(header, header.position());
+            }
+        }
+
+        /**
+         * Gives the offset of a segment position in the segment record.
+         *
+         * @param index segment index
+         *
+         * @return segment position offset
+         */
+        private static int segmentOffset(int index) {
+            return 4 + 8 + 8 * index; // segment count (int), content size (long), then one position (long) per segment
+        }
+
+        /**
+         * Loads the recorded validator of the remote content.
+         *
+         * @return recorded validator, {@code null} if none
+         */
+        @Nullable
+        private String loadValidator() {
+            if (!mValidatorFile.exists()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new FileInputStream(mValidatorFile))) {
+                return in.readUTF();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Records the validator of the remote content.
+         *
+         * @param validator validator to record, {@code null} to delete any recorded validator
+         */
+        private void saveValidator(@Nullable String validator) {
+            if (validator == null) {
+                delete(mValidatorFile);
+                return;
+            }
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(mValidatorFile))) {
+                out.writeUTF(validator);
+            } catch (IOException e) {
+                // download cannot be resumed, but may still complete
+                delete(mValidatorFile);
+            }
+        }
+
+        /**
+         * Deletes all received data and associated records.
+         */
+        private void discardPartialData() {
+            delete(mPartialFile);
+            delete(mSegmentFile);
+            delete(mValidatorFile);
+        }
+
+        /**
+         * Executes a download call.
+         *
+         * @param range   value of the HTTP {@code Range} header, {@code null} to download the whole content
+         * @param ifRange value of the HTTP {@code If-Range} header, {@code null} to not send it
+         *
+         * @return call response
+         *
+         * @throws IOException          in case the call failed
+         * @throws InterruptedException in case the download was canceled
+         */
+        @NonNull
+        private Response<ResponseBody> execute(@Nullable String range, @Nullable String ifRange)
+                throws IOException, InterruptedException {
+            Call<ResponseBody> call = mCallFactory.create(range, ifRange);
+            synchronized (this) {
+                if (mCanceled || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Canceled download");
+                }
+                mCalls.add(call);
+            }
+            Response<ResponseBody> response = call.execute();
+            if (call.isCanceled()) {
+                // release the connection, and the transport slot it holds
+                closeQuietly(response);
+                // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
+                // to restore the interruption status after the call
+                throw new InterruptedException("Canceled retrofit call");
+            }
+            return response;
+        }
+
+        /**
+         * Checks that a response is successful.
+         *
+         * @param response response to check
+         *
+         * @return response body
+         *
+         * @throws HttpException in case the response is not successful
+         */
+        @NonNull
+        private static ResponseBody checkResponse(@NonNull Response<ResponseBody> response) throws HttpException {
+            if (!response.isSuccessful()) {
+                closeQuietly(response);
+                throw new HttpException(response.message(), response.code());
+            }
+            ResponseBody body = response.body();
+            assert body != null;
+            return body;
+        }
+
+        /**
+         * Tells whether a partial content response resumes already received data.
+         *
+         * @param response  partial content response
+         * @param offset    amount of already received data, in bytes
+         * @param validator recorded validator of already received data
+         *
+         * @return {@code true} if the response content starts at {@code offset} and matches {@code validator}
+         */
+        private static boolean resumes(@NonNull Response<ResponseBody> response, long offset,
+                                       @NonNull String validator) {
+            long[] range = parseContentRange(response);
+            String received = validatorOf(response);
+            return range != null && range[0] == offset && (received == null || received.equals(validator));
+        }
+
+        /**
+         * Parses the {@code Content-Range} header of a response.
+         *
+         * @param response response to parse
+         *
+         * @return first byte position, last byte position and complete length, the latter being {@code -1} if unknown;
+         *         {@code null} if the response has no valid byte range
+         */
+        @Nullable
+        private static long[] parseContentRange(@NonNull Response<ResponseBody> response) {
+            String range = response.headers().get("Content-Range"); // bytes <first>-<last>/<length or *>
+            if (range == null || !range.startsWith("bytes ")) {
+                return null;
+            }
+            int dash = range.indexOf('-'), slash = range.indexOf('/');
+            if (dash < 0 || slash < dash) {
+                return null;
+            }
+            try {
+                String length = range.substring(slash + 1).trim();
+                return new long[] {
+                        Long.parseLong(range.substring(6, dash).trim()),
+                        Long.parseLong(range.substring(dash + 1, slash).trim()),
+                        length.equals("*") ? -1 : Long.parseLong(length)};
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Gets the validator of a response content.
+         *
+         * @param response response to get the validator of
+         *
+         * @return response {@code ETag}, if present and strong, otherwise response {@code Last-Modified} date, if
+         *         present, otherwise {@code null}
+         */
+        @Nullable
+        private static String validatorOf(@NonNull Response<ResponseBody> response) {
+            String etag = response.headers().get("ETag");
+            return etag != null && !etag.startsWith("W/") ? etag : response.headers().get("Last-Modified");
+        }
+
+        /**
+         * Checks whether the download has been canceled.
+         *
+         * @throws InterruptedException in case the download was canceled or the current thread interrupted
+         */
+        private void checkInterrupted() throws InterruptedException {
+            boolean canceled;
+            synchronized (this) {
+                canceled = mCanceled;
+            }
+            if (canceled || Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        /**
+         * Initializes progress.
+         *
+         * @param received amount of data already received, in bytes
+         * @param total    expected total content size, in bytes
+         */
+        private void startProgress(long received, long total) {
+            mTotal = total;
+            mReceived.set(received);
+            mUnreported.set(0);
+            int progress = total > 0 ? Math.round(received * 100f / total) : 0;
+            mProgress.set(progress);
+            if (progress > 0) {
+                Executor.postOnMainThread(() -> mCallback.onRequestProgress(progress));
+            }
+        }
+
+        /**
+         * Accounts for received data, notifying progress if it changed.
+         *
+         * @param count amount of received data, in bytes
+         */
+        private void onReceived(long count) {
+            long received = mReceived.addAndGet(count);
+            mUnreported.addAndGet(count);
+            long total = mTotal;
+            int progress = total > 0 ? Math.round(received * 100f / total) : 0;
+            int last = mProgress.get();
+            if (progress > last && mProgress.compareAndSet(last, progress)) {
+                long transferred = mUnreported.getAndSet(0);
+                Executor.postOnMainThread(() -> {
+                    mCallback.onRequestTransfer(transferred);
+                    mCallback.onRequestProgress(progress);
+                });
+            }
+        }
+
+        /**
+         * Deletes a file, logging failure.
+         *
+         * @param file file to delete
+         */
+        private static void delete(@NonNull File file) {
+            if (file.exists() && !file.delete() && ULog.w(TAG_HTTP)) {
+                ULog.w(TAG_HTTP, "Could not delete file: " + file);
+            }
+        }
+    }
+
     @Nullable
     private static String convert(@Nullable MediaStore.StorageType storageType) {
         if (storageType == null) return null;
@@ -556,15 +1311,19 @@ public class HttpMediaClient extends HttpClient {
          * This endpoint is intended to be used to download large files, that are dumped directly to the system storage
          * without being held in their totality in memory.
          *
-         * @param url url of the media/resource to download
+         * @param url     url of the media/resource to download
+         * @param range   value of the HTTP {@code Range} header, {@code null} to download the whole media/resource
+         * @param ifRange value of the HTTP {@code If-Range} header, {@code null} to not send it
          *
          * @return a retrofit call for sending the request out. The received response body does not contain any data
          *         per-se but provides a connected input stream that can be read to receive data progressively
          */
         @GET
+        @Headers(HttpTransport.BULK)
         @Streaming
         @NonNull
-        Call<ResponseBody> download(@NonNull @Url String url);
+        Call<ResponseBody> download(@NonNull @Url String url, @Nullable @Header("Range") String range,
+                                    @Nullable @Header("If-Range") String ifRange);
 
         /**
          * Fetches a media/resource file from the drone.
@@ -746,6 +746,34 @@ public final class HttpMediaItem implements Iterable<HttpMediaItem.Resource> {
         return thermal;
     }
 
+    /**
+     * Creates a copy of this media item, with a different set of resources.
+     * <p>
+     * Used to apply resource added/removed notifications to a known media item without fetching it again.
+     *
+     * @param resources resources of the copy
+     *
+     * @return a new media item, identical to this one, except for its resources
+     */
+    @NonNull
+    public HttpMediaItem withResources(@NonNull Collection<Resource> resources) {
+        HttpMediaItem copy = new HttpMediaItem();
+        copy.mediaId = mediaId;
+        copy.type = type;
+        copy.datetime = datetime;
+        copy.size = size;
+        copy.runId = runId;
+        copy.thumbnail = thumbnail;
+        copy.expectedCount = expectedCount;
+        copy.replayUrl = replayUrl;
+        copy.gps = gps;
+        copy.photoMode = photoMode;
+        copy.panoramaType = panoramaType;
+        copy.thermal = thermal;
+        copy.resources = resources.toArray(new Resource[0]);
+        return copy;
+    }
+
     @NonNull
     @Override
     public Iterator<Resource> iterator() {
@@ -37,6 +37,7 @@ import androidx.annotation.NonNull;
 import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
+import com.parrot.drone.groundsdk.internal.http.HttpTransport;
 import com.parrot.drone.groundsdk.internal.io.Files;
 import com.parrot.drone.groundsdk.internal.io.IoStreams;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
@@ -59,6 +60,7 @@ import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 import retrofit2.http.Streaming;
 import retrofit2.http.Url;
@@ -192,6 +194,11 @@ public class HttpPudClient extends HttpClient {
         Task<Void> downloadTask = Executor.runInBackground((Callable<Void>) () -> {
             Response<ResponseBody> response = downloadCall.execute();
             if (downloadCall.isCanceled()) {
+                // release the connection, and the transport slot it holds
+                ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+                if (body != null) {
+                    body.close();
+                }
                 // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
                 // to restore the interruption status after the call
                 throw new InterruptedException("Canceled retrofit call");
@@ -303,6 +310,7 @@ public class HttpPudClient extends HttpClient {
          *
          * @return a retrofit call with a response body containing report data
          */
+        @Headers(HttpTransport.BULK)
         @Streaming
         @GET
         Call<ResponseBody> downloadPud(@Url String url);
@@ -38,6 +38,7 @@ import androidx.annotation.Nullable;
 import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
+import com.parrot.drone.groundsdk.internal.http.HttpTransport;
 import com.parrot.drone.groundsdk.internal.io.Files;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.groundsdk.internal.tasks.Task;
@@ -56,6 +57,7 @@ import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 import retrofit2.http.Streaming;
@@ -293,6 +295,7 @@ public class HttpReportClient extends HttpClient {
          *
          * @return a retrofit call with a response body containing report data
          */
+        @Headers(HttpTransport.BULK)
         @Streaming
         @GET
         Call<ResponseBody> downloadReport(@Url String url, @Nullable @Query("anonymous") String anonymous);
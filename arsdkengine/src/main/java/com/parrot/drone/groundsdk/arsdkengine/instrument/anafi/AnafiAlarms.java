@@ -90,6 +90,15 @@ public class AnafiAlarms extends DroneInstrumentController {
         mAlarms.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {
+                ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureArdrone3.SettingsState.UID,
+                ArsdkFeatureBattery.UID, ArsdkFeatureCommon.CommonState.UID, ArsdkFeatureControllerInfo.UID
+        };
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -33,6 +33,7 @@
 package com.parrot.drone.groundsdk.arsdkengine.instrument.anafi;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DroneController;
 import com.parrot.drone.groundsdk.arsdkengine.instrument.DroneInstrumentController;
@@ -43,10 +44,16 @@ import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 /** Altimeter instrument controller for Anafi family drones. */
 public class AnafiAltimeter extends DroneInstrumentController {
 
+    /** Value sent by drone when latitude/longitude or altitude are not available. */
+    private static final double VALUE_UNAVAILABLE = 500;
+
     /** The altimeter from which this object is the backend. */
     @NonNull
     private final AltimeterCore mAltimeter;
 
+    /** Whether a GPS location changed event was received once. */
+    private boolean mUseOnGpsLocationChanged;
+
     /**
      * Constructor.
      *
@@ -55,6 +62,15 @@ public class AnafiAltimeter extends DroneInstrumentController {
     public AnafiAltimeter(@NonNull DroneController droneController) {
         super(droneController);
         mAltimeter = new AltimeterCore(mComponentStore);
+        PilotingStateDecoder decoder = new PilotingStateDecoder();
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.POSITIONCHANGED_UID, decoder);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.SPEEDCHANGED_UID, decoder);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.ALTITUDECHANGED_UID, decoder);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.GPSLOCATIONCHANGED_UID, decoder);
     }
 
     @Override
@@ -67,61 +83,71 @@ public class AnafiAltimeter extends DroneInstrumentController {
         mAltimeter.unpublish();
     }
 
-    @Override
-    public void onCommandReceived(@NonNull ArsdkCommand command) {
-        if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
-            ArsdkFeatureArdrone3.PilotingState.decode(command, mPilotingStateCallback);
+    /**
+     * Updates the absolute altitude.
+     *
+     * @param latitude  received latitude
+     * @param longitude received longitude
+     * @param altitude  received altitude
+     */
+    private void updateAbsoluteAltitude(double latitude, double longitude, double altitude) {
+        if (Double.compare(altitude, VALUE_UNAVAILABLE) != 0
+            || (Double.compare(latitude, VALUE_UNAVAILABLE) != 0
+                && Double.compare(longitude, VALUE_UNAVAILABLE) != 0)) {
+            mAltimeter.updateAbsoluteAltitude(altitude);
+        } else {
+            mAltimeter.resetAbsoluteAltitude();
         }
+        mAltimeter.notifyUpdated();
     }
 
-    /** Callbacks called when a command of the feature ArsdkFeatureArdrone3.PilotingState is decoded. */
-    private final ArsdkFeatureArdrone3.PilotingState.Callback mPilotingStateCallback =
-            new ArsdkFeatureArdrone3.PilotingState.Callback() {
-
-                /** Value sent by drone when latitude/longitude or altitude are not available. */
-                private static final double VALUE_UNAVAILABLE = 500;
-
-                /** Whether the {@link #onGpsLocationChanged} callback was triggered once. */
-                private boolean mUseOnGpsLocationChanged;
-
-                @Override
-                public void onPositionChanged(double latitude, double longitude, double altitude) {
-                    if (mUseOnGpsLocationChanged) {
-                        return;
-                    }
-                    if (Double.compare(altitude, VALUE_UNAVAILABLE) != 0
-                        || (Double.compare(latitude, VALUE_UNAVAILABLE) != 0
-                            && Double.compare(longitude, VALUE_UNAVAILABLE) != 0)) {
-                        mAltimeter.updateAbsoluteAltitude(altitude);
-                    } else {
-                        mAltimeter.resetAbsoluteAltitude();
-                    }
-                    mAltimeter.notifyUpdated();
-                }
+    /** Decodes position, speed and altitude telemetry into snapshots. */
+    private final class PilotingStateDecoder implements SnapshotDecoder {
 
-                @Override
-                public void onSpeedChanged(float speedX, float speedY, float speedZ) {
-                    // z-axis points down, yet we want positive speeds when the drone goes up, hence the minus
-                    mAltimeter.updateVerticalSpeed(-speedZ).notifyUpdated();
-                }
+        @Nullable
+        @Override
+        public Runnable decode(@NonNull ArsdkCommand command) {
+            // decoding may run concurrently on the engine and main threads, so each call gets its own callback
+            PilotingStateCallback callback = new PilotingStateCallback();
+            ArsdkFeatureArdrone3.PilotingState.decode(command, callback);
+            return callback.mSnapshot;
+        }
+    }
 
-                @Override
-                public void onAltitudeChanged(double altitude) {
-                    mAltimeter.updateTakeOffRelativeAltitude(altitude).notifyUpdated();
-                }
+    /** Collects the snapshot of a single decoded command. */
+    private final class PilotingStateCallback implements ArsdkFeatureArdrone3.PilotingState.Callback {
 
-                @Override
-                public void onGpsLocationChanged(double latitude, double longitude, double altitude,
-                                                 int latitudeAccuracy, int longitudeAccuracy, int altitudeAccuracy) {
-                    mUseOnGpsLocationChanged = true;
-                    if (Double.compare(altitude, VALUE_UNAVAILABLE) != 0
-                        || (Double.compare(latitude, VALUE_UNAVAILABLE) != 0
-                            && Double.compare(longitude, VALUE_UNAVAILABLE) != 0)) {
-                        mAltimeter.updateAbsoluteAltitude(altitude);
-                    } else {
-                        mAltimeter.resetAbsoluteAltitude();
-                    }
-                    mAltimeter.notifyUpdated();
+        /** Snapshot of the decoded command. */
+        @Nullable
+        private Runnable mSnapshot;
+
+        @Override
+        public void onPositionChanged(double latitude, double longitude, double altitude) {
+            mSnapshot = () -> {
+                if (!mUseOnGpsLocationChanged) {
+                    updateAbsoluteAltitude(latitude, longitude, altitude);
                 }
             };
+        }
+
+        @Override
+        public void onSpeedChanged(float speedX, float speedY, float speedZ) {
+            // z-axis points down, yet we want positive speeds when the drone goes up, hence the minus
+            mSnapshot = () -> mAltimeter.updateVerticalSpeed(-speedZ).notifyUpdated();
+        }
+
+        @Override
+        public void onAltitudeChanged(double altitude) {
+            mSnapshot = () -> mAltimeter.updateTakeOffRelativeAltitude(altitude).notifyUpdated();
+        }
+
+        @Override
+        public void onGpsLocationChanged(double latitude, double longitude, double altitude,
+                                         int latitudeAccuracy, int longitudeAccuracy, int altitudeAccuracy) {
+            mSnapshot = () -> {
+                mUseOnGpsLocationChanged = true;
+                updateAbsoluteAltitude(latitude, longitude, altitude);
+            };
+        }
+    }
 }
@@ -33,6 +33,7 @@
 package com.parrot.drone.groundsdk.arsdkengine.instrument.anafi;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DroneController;
 import com.parrot.drone.groundsdk.arsdkengine.instrument.DroneInstrumentController;
@@ -55,6 +56,8 @@ public class AnafiAttitudeIndicator extends DroneInstrumentController {
     public AnafiAttitudeIndicator(@NonNull DroneController droneController) {
         super(droneController);
         mAttitudeIndicator = new AttitudeIndicatorCore(mComponentStore);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.ATTITUDECHANGED_UID, new PilotingStateDecoder());
     }
 
     @Override
@@ -67,21 +70,31 @@ public class AnafiAttitudeIndicator extends DroneInstrumentController {
         mAttitudeIndicator.unpublish();
     }
 
-    @Override
-    public void onCommandReceived(@NonNull ArsdkCommand command) {
-        if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
-            ArsdkFeatureArdrone3.PilotingState.decode(command, mPilotingStateCallback);
+    /** Decodes attitude telemetry into snapshots. */
+    private final class PilotingStateDecoder implements SnapshotDecoder {
+
+        @Nullable
+        @Override
+        public Runnable decode(@NonNull ArsdkCommand command) {
+            // decoding may run concurrently on the engine and main threads, so each call gets its own callback
+            PilotingStateCallback callback = new PilotingStateCallback();
+            ArsdkFeatureArdrone3.PilotingState.decode(command, callback);
+            return callback.mSnapshot;
         }
     }
 
-    /** Callbacks called when a command of the feature ArsdkFeatureArdrone3.PilotingState is decoded. */
-    private final ArsdkFeatureArdrone3.PilotingState.Callback mPilotingStateCallback =
-            new ArsdkFeatureArdrone3.PilotingState.Callback() {
+    /** Collects the snapshot of a single decoded command. */
+    private final class PilotingStateCallback implements ArsdkFeatureArdrone3.PilotingState.Callback {
+
+        /** Snapshot of the decoded command. */
+        @Nullable
+        private Runnable mSnapshot;
 
-                @Override
-                public void onAttitudeChanged(float roll, float pitch, float yaw) {
-                    mAttitudeIndicator.updatePitch(Math.toDegrees(pitch)).updateRoll(Math.toDegrees(roll))
-                                      .notifyUpdated();
-                }
-            };
-}
\ No newline at end of file
+        @Override
+        public void onAttitudeChanged(float roll, float pitch, float yaw) {
+            double pitchDegrees = Math.toDegrees(pitch);
+            double rollDegrees = Math.toDegrees(roll);
+            mSnapshot = () -> mAttitudeIndicator.updatePitch(pitchDegrees).updateRoll(rollDegrees).notifyUpdated();
+        }
+    }
+}
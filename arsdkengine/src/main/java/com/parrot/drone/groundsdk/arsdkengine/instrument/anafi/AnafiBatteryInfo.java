@@ -68,6 +68,12 @@ public class AnafiBatteryInfo extends DroneInstrumentController {
         mBatteryInfo.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCommon.CommonState.UID, ArsdkFeatureBattery.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
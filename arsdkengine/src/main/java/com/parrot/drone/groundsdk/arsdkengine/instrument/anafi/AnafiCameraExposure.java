@@ -89,6 +89,12 @@ public final class AnafiCameraExposure extends DroneInstrumentController {
         mHasReceivedValues = false;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCamera.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureCamera.UID) {
@@ -69,6 +69,12 @@ public class AnafiCompass extends DroneInstrumentController {
         mCompass.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.PilotingState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
@@ -99,6 +99,12 @@ public class AnafiFlightMeter extends DroneInstrumentController {
         mFlightMeter.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.SettingsState.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.SettingsState.UID) {
@@ -72,6 +72,12 @@ public class AnafiFlyingIndicators extends DroneInstrumentController {
         mFlyingIndicator.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.PilotingState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
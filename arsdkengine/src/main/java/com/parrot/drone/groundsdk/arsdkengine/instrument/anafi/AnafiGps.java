@@ -111,6 +111,15 @@ public class AnafiGps extends DroneInstrumentController {
         mGps.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {
+                ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureArdrone3.GPSSettingsState.UID,
+                ArsdkFeatureArdrone3.GPSState.UID
+        };
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
@@ -70,6 +70,12 @@ public class AnafiPhotoProgressIndicator extends DroneInstrumentController {
                                .unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCamera.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureCamera.UID) {
@@ -71,6 +71,12 @@ public class AnafiRadio extends DroneInstrumentController {
         mRadio.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureWifi.UID, ArsdkFeatureCommon.CommonState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
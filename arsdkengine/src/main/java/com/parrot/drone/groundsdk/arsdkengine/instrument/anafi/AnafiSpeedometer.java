@@ -33,6 +33,7 @@
 package com.parrot.drone.groundsdk.arsdkengine.instrument.anafi;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DroneController;
 import com.parrot.drone.groundsdk.arsdkengine.instrument.DroneInstrumentController;
@@ -47,6 +48,9 @@ public class AnafiSpeedometer extends DroneInstrumentController {
     @NonNull
     private final SpeedometerCore mSpeedometer;
 
+    /** Current drone yaw in radians. */
+    private float mYaw;
+
     /**
      * Constructor.
      *
@@ -55,6 +59,13 @@ public class AnafiSpeedometer extends DroneInstrumentController {
     public AnafiSpeedometer(@NonNull DroneController droneController) {
         super(droneController);
         mSpeedometer = new SpeedometerCore(mComponentStore);
+        PilotingStateDecoder decoder = new PilotingStateDecoder();
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.SPEEDCHANGED_UID, decoder);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.ATTITUDECHANGED_UID, decoder);
+        registerSnapshotDecoder(ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.PilotingState.AIRSPEEDCHANGED_UID, decoder);
     }
 
     @Override
@@ -67,41 +78,51 @@ public class AnafiSpeedometer extends DroneInstrumentController {
         mSpeedometer.unpublish();
     }
 
-    @Override
-    public void onCommandReceived(@NonNull ArsdkCommand command) {
-        if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
-            ArsdkFeatureArdrone3.PilotingState.decode(command, mPilotingStateCallback);
+    /** Decodes speed and attitude telemetry into snapshots. */
+    private final class PilotingStateDecoder implements SnapshotDecoder {
+
+        @Nullable
+        @Override
+        public Runnable decode(@NonNull ArsdkCommand command) {
+            // decoding may run concurrently on the engine and main threads, so each call gets its own callback
+            PilotingStateCallback callback = new PilotingStateCallback();
+            ArsdkFeatureArdrone3.PilotingState.decode(command, callback);
+            return callback.mSnapshot;
         }
     }
 
-    /** Callbacks called when a command of the feature ArsdkFeatureArdrone3.PilotingState is decoded. */
-    private final ArsdkFeatureArdrone3.PilotingState.Callback mPilotingStateCallback =
-            new ArsdkFeatureArdrone3.PilotingState.Callback() {
-
-                /** Current drone yaw in radians. */
-                private float mYaw;
-
-                @Override
-                public void onSpeedChanged(float speedX, float speedY, float speedZ) {
-                    double sin = Math.sin(mYaw);
-                    double cos = Math.cos(mYaw);
-                    mSpeedometer.updateGroundSpeed(Math.sqrt(Math.pow(speedX, 2) + Math.pow(speedY, 2)))
-                                .updateNorthSpeed(speedX)
-                                .updateEastSpeed(speedY)
-                                .updateDownSpeed(speedZ)
-                                .updateForwardSpeed(cos * speedX + sin * speedY)
-                                .updateRightSpeed(-sin * speedX + cos * speedY)
-                                .notifyUpdated();
-                }
-
-                @Override
-                public void onAttitudeChanged(float roll, float pitch, float yaw) {
-                    mYaw = yaw;
-                }
-
-                @Override
-                public void onAirSpeedChanged(float airspeed) {
-                    mSpeedometer.updateAirSpeed(airspeed).notifyUpdated();
-                }
+    /** Collects the snapshot of a single decoded command. */
+    private final class PilotingStateCallback implements ArsdkFeatureArdrone3.PilotingState.Callback {
+
+        /** Snapshot of the decoded command. */
+        @Nullable
+        private Runnable mSnapshot;
+
+        @Override
+        public void onSpeedChanged(float speedX, float speedY, float speedZ) {
+            double groundSpeed = Math.sqrt(Math.pow(speedX, 2) + Math.pow(speedY, 2));
+            mSnapshot = () -> {
+                // yaw is only known on main thread, where the latest attitude snapshot was applied
+                double sin = Math.sin(mYaw);
+                double cos = Math.cos(mYaw);
+                mSpeedometer.updateGroundSpeed(groundSpeed)
+                            .updateNorthSpeed(speedX)
+                            .updateEastSpeed(speedY)
+                            .updateDownSpeed(speedZ)
+                            .updateForwardSpeed(cos * speedX + sin * speedY)
+                            .updateRightSpeed(-sin * speedX + cos * speedY)
+                            .notifyUpdated();
             };
+        }
+
+        @Override
+        public void onAttitudeChanged(float roll, float pitch, float yaw) {
+            mSnapshot = () -> mYaw = yaw;
+        }
+
+        @Override
+        public void onAirSpeedChanged(float airspeed) {
+            mSnapshot = () -> mSpeedometer.updateAirSpeed(airspeed).notifyUpdated();
+        }
+    }
 }
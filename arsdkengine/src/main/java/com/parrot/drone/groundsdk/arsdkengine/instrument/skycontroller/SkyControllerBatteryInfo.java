@@ -67,6 +67,12 @@ public class SkyControllerBatteryInfo extends RCInstrumentController {
         mBatteryInfo.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.SkyControllerState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -69,6 +69,12 @@ public class SkyControllerCompass extends RCInstrumentController {
         mCompass.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.SkyControllerState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureSkyctrl.SkyControllerState.UID) {
@@ -78,6 +78,12 @@ public class AnafiBatteryGaugeUpdater extends DronePeripheralController {
         mGaugeUpdater.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureGaugeFwUpdater.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureGaugeFwUpdater.UID) {
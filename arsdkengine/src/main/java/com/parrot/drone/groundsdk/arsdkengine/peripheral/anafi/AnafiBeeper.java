@@ -96,6 +96,12 @@ public final class AnafiBeeper extends DronePeripheralController {
         mBeeper.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.SoundState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.SoundState.UID) {
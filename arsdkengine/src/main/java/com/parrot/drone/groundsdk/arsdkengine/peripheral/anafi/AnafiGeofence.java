@@ -150,6 +150,12 @@ public final class AnafiGeofence extends DronePeripheralController {
         mGeofence.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.GPSSettingsState.UID, ArsdkFeatureArdrone3.PilotingSettingsState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         switch (command.getFeatureId()) {
@@ -107,6 +107,12 @@ public class AnafiLeds extends DronePeripheralController {
         }
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureLeds.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureLeds.UID) {
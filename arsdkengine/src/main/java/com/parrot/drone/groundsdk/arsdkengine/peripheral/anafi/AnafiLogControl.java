@@ -81,6 +81,12 @@ public class AnafiLogControl extends DronePeripheralController {
         forget();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSecurityEdition.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureSecurityEdition.UID) {
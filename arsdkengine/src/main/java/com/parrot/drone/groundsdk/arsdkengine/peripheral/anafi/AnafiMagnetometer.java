@@ -80,6 +80,12 @@ public final class AnafiMagnetometer extends DronePeripheralController {
         mMagnetometer.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCommon.CalibrationState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureCommon.CalibrationState.UID) {
@@ -79,6 +79,12 @@ public class AnafiPilotingControl extends DronePeripheralController {
         mPilotingControl.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeaturePilotingStyle.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeaturePilotingStyle.UID) {
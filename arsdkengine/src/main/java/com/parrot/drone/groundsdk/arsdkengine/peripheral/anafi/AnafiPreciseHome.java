@@ -112,6 +112,12 @@ public class AnafiPreciseHome extends DronePeripheralController {
         }
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeaturePreciseHome.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeaturePreciseHome.UID) {
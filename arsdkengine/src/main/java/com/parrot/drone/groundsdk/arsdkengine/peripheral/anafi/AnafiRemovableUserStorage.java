@@ -102,6 +102,12 @@ public class AnafiRemovableUserStorage extends DronePeripheralController {
         mPendingState = null;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureUserStorage.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureUserStorage.UID) {
@@ -63,6 +63,12 @@ public final class AnafiSystemInfo extends SystemInfoControllerBase {
         return sendCommand(ArsdkFeatureCommon.Settings.encodeReset());
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCommon.SettingsState.UID, ArsdkFeatureArdrone3.SettingsState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -98,6 +98,12 @@ public class AnafiTargetTracker extends DronePeripheralController {
         mTracker.publish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureFollowMe.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureFollowMe.UID) {
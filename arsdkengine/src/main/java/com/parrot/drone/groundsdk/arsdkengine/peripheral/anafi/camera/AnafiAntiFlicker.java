@@ -155,6 +155,12 @@ public final class AnafiAntiFlicker extends DronePeripheralController {
         mAntiFlicker.publish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCamera.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureCamera.UID) {
@@ -175,6 +175,12 @@ public final class AnafiCameraRouter extends DronePeripheralController {
         forEachCameraController(CameraControllerBase::onPresetChange);
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCamera.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureCamera.UID) {
@@ -364,7 +370,7 @@ public final class AnafiCameraRouter extends DronePeripheralController {
                                            @NonNull CameraExposure.IsoSensitivity manualIsoSensitivity,
                                            @NonNull CameraExposure.IsoSensitivity maxIsoSensitivity,
                                            @NonNull CameraExposure.AutoExposureMeteringMode autoExposureMeteringMode) {
-            return sendCommand(ArsdkFeatureCamera.encodeSetExposureSettings(mInfo.mId,
+            return sendSupersedingCommand(ArsdkFeatureCamera.encodeSetExposureSettings(mInfo.mId,
                     ExposureModeAdapter.from(mode), ShutterSpeedAdapter.from(manualShutterSpeed),
                     IsoSensitivityAdapter.from(manualIsoSensitivity),
                     IsoSensitivityAdapter.from(maxIsoSensitivity),
@@ -401,7 +407,8 @@ public final class AnafiCameraRouter extends DronePeripheralController {
          * @return {@code true} if any command was sent to the device, otherwise false
          */
         final boolean sendEvCompensation(@NonNull CameraEvCompensation ev) {
-            return sendCommand(ArsdkFeatureCamera.encodeSetEvCompensation(mInfo.mId, EvCompensationAdapter.from(ev)));
+            return sendSupersedingCommand(ArsdkFeatureCamera.encodeSetEvCompensation(mInfo.mId,
+                    EvCompensationAdapter.from(ev)));
         }
 
         /**
@@ -414,8 +421,8 @@ public final class AnafiCameraRouter extends DronePeripheralController {
          */
         final boolean sendWhiteBalance(@NonNull CameraWhiteBalance.Mode mode,
                                        @NonNull CameraWhiteBalance.Temperature temperature) {
-            return sendCommand(ArsdkFeatureCamera.encodeSetWhiteBalance(mInfo.mId, WhiteBalanceModeAdapter.from(mode),
-                    TemperatureAdapter.from(temperature)));
+            return sendSupersedingCommand(ArsdkFeatureCamera.encodeSetWhiteBalance(mInfo.mId,
+                    WhiteBalanceModeAdapter.from(mode), TemperatureAdapter.from(temperature)));
         }
 
         /**
@@ -451,7 +458,8 @@ public final class AnafiCameraRouter extends DronePeripheralController {
          * @return {@code true} if any command was sent to the device, otherwise false
          */
         final boolean sendStyleParameters(int saturation, int contrast, int sharpness) {
-            return sendCommand(ArsdkFeatureCamera.encodeSetStyleParams(mInfo.mId, saturation, contrast, sharpness));
+            return sendSupersedingCommand(ArsdkFeatureCamera.encodeSetStyleParams(mInfo.mId, saturation, contrast,
+                    sharpness));
         }
 
         /**
@@ -870,6 +878,17 @@ public final class AnafiCameraRouter extends DronePeripheralController {
         private boolean sendCommand(@NonNull ArsdkCommand command) {
             return mInfo.mRouter.sendCommand(command);
         }
+
+        /**
+         * Sends a setting command to the drone, superseding any command of the same type for this camera not sent yet.
+         *
+         * @param command command to send
+         *
+         * @return {@code true} if the command was sent, otherwise {@code false}
+         */
+        private boolean sendSupersedingCommand(@NonNull ArsdkCommand command) {
+            return mInfo.mRouter.sendSupersedingCommand(command, mInfo.mId);
+        }
     }
 
     /** Callbacks called when a command of the feature ArsdkFeatureCamera is decoded. */
@@ -49,6 +49,7 @@ import com.parrot.drone.groundsdk.device.peripheral.camera.CameraWhiteBalance;
 import com.parrot.drone.groundsdk.device.peripheral.camera.CameraZoom;
 import com.parrot.drone.groundsdk.internal.device.peripheral.camera.BlendedThermalCameraCore;
 import com.parrot.drone.groundsdk.internal.device.peripheral.camera.CameraAlignmentSettingCore;
+import com.parrot.drone.groundsdk.internal.device.peripheral.camera.CameraCapabilityIndex;
 import com.parrot.drone.groundsdk.internal.device.peripheral.camera.CameraCore;
 import com.parrot.drone.groundsdk.internal.device.peripheral.camera.CameraExposureLockCore;
 import com.parrot.drone.groundsdk.internal.device.peripheral.camera.CameraExposureSettingCore;
@@ -1824,15 +1825,12 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
      */
     @Nullable
     private CameraPhoto.Mode validatePhotoMode(@Nullable CameraPhoto.Mode mode) {
-        EnumSet<CameraPhoto.Mode> supportedModes = mCamera.photo().supportedModes();
-        if (supportedModes.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraPhoto.Mode, ?, ?> capabilities = mCamera.photo().capabilities();
         if (mode == null) {
             mode = mPhotoMode;
         }
-        if (mode == null || !supportedModes.contains(mode)) {
-            mode = supportedModes.iterator().next();
+        if (mode == null || !capabilities.contains(mode)) {
+            mode = capabilities.firstValue();
         }
         return mode;
     }
@@ -1854,15 +1852,12 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
      */
     @Nullable
     private CameraPhoto.Format validateFormat(@NonNull CameraPhoto.Mode mode, @Nullable CameraPhoto.Format format) {
-        EnumSet<CameraPhoto.Format> supportedFormats = mCamera.photo().supportedFormatsFor(mode);
-        if (supportedFormats.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraPhoto.Mode, CameraPhoto.Format, ?> capabilities = mCamera.photo().capabilities();
         if (format == null) {
             format = mFormats.get(mode);
         }
-        if (format == null || !supportedFormats.contains(format)) {
-            format = supportedFormats.iterator().next();
+        if (format == null || !capabilities.contains(mode, format)) {
+            format = capabilities.firstValueFor(mode);
         }
         return format;
     }
@@ -1887,16 +1882,13 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
     private CameraPhoto.FileFormat validateFileFormat(@NonNull CameraPhoto.Mode mode,
                                                       @NonNull CameraPhoto.Format format,
                                                       @Nullable CameraPhoto.FileFormat fileFormat) {
-        EnumSet<CameraPhoto.FileFormat> supportedFileFormats =
-                mCamera.photo().supportedFileFormatsFor(mode, format);
-        if (supportedFileFormats.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraPhoto.Mode, CameraPhoto.Format, CameraPhoto.FileFormat> capabilities =
+                mCamera.photo().capabilities();
         if (fileFormat == null) {
             fileFormat = mFileFormats.get(mode);
         }
-        if (fileFormat == null || !supportedFileFormats.contains(fileFormat)) {
-            fileFormat = supportedFileFormats.iterator().next();
+        if (fileFormat == null || !capabilities.contains(mode, format, fileFormat)) {
+            fileFormat = capabilities.firstValueFor(mode, format);
         }
         return fileFormat;
     }
@@ -2015,15 +2007,12 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
      */
     @Nullable
     private CameraRecording.Mode validateRecordingMode(@Nullable CameraRecording.Mode mode) {
-        EnumSet<CameraRecording.Mode> supportedModes = mCamera.recording().supportedModes();
-        if (supportedModes.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraRecording.Mode, ?, ?> capabilities = mCamera.recording().capabilities();
         if (mode == null) {
             mode = mRecordingMode;
         }
-        if (mode == null || !supportedModes.contains(mode)) {
-            mode = supportedModes.iterator().next();
+        if (mode == null || !capabilities.contains(mode)) {
+            mode = capabilities.firstValue();
         }
         return mode;
     }
@@ -2046,15 +2035,13 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
     @Nullable
     private CameraRecording.Resolution validateResolution(@NonNull CameraRecording.Mode mode,
                                                           @Nullable CameraRecording.Resolution resolution) {
-        EnumSet<CameraRecording.Resolution> supportedResolutions = mCamera.recording().supportedResolutionsFor(mode);
-        if (supportedResolutions.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, ?> capabilities =
+                mCamera.recording().capabilities();
         if (resolution == null) {
             resolution = mResolutions.get(mode);
         }
-        if (resolution == null || !supportedResolutions.contains(resolution)) {
-            resolution = supportedResolutions.iterator().next();
+        if (resolution == null || !capabilities.contains(mode, resolution)) {
+            resolution = capabilities.firstValueFor(mode);
         }
         return resolution;
     }
@@ -2079,16 +2066,13 @@ final class CameraController extends AnafiCameraRouter.CameraControllerBase {
     private CameraRecording.Framerate validateFramerate(@NonNull CameraRecording.Mode mode,
                                                         @NonNull CameraRecording.Resolution resolution,
                                                         @Nullable CameraRecording.Framerate framerate) {
-        EnumSet<CameraRecording.Framerate> supportedFramerates =
-                mCamera.recording().supportedFrameratesFor(mode, resolution);
-        if (supportedFramerates.isEmpty()) {
-            return null;
-        }
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate>
+                capabilities = mCamera.recording().capabilities();
         if (framerate == null) {
             framerate = mFramerates.get(mode);
         }
-        if (framerate == null || !supportedFramerates.contains(framerate)) {
-            framerate = supportedFramerates.iterator().next();
+        if (framerate == null || !capabilities.contains(mode, resolution, framerate)) {
+            framerate = capabilities.firstValueFor(mode, resolution);
         }
         return framerate;
     }
@@ -40,15 +40,38 @@ import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudClient;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudInfo;
 import com.parrot.drone.groundsdk.arsdkengine.peripheral.PeripheralController;
 import com.parrot.drone.groundsdk.device.peripheral.FlightDataDownloader;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.peripheral.FlightDataDownloaderCore;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.Task;
 import com.parrot.drone.groundsdk.internal.utility.FlightDataStorage;
+import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 
-/** FlightDataDownloader peripheral controller for Anafi family drones. */
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_STORAGE;
+
+/**
+ * FlightDataDownloader peripheral controller for Anafi family drones.
+ * <p>
+ * When {@link GroundSdkConfig#getFlightDataPrefetchDepth() flight data prefetch depth} is {@code 0}, each PUD is
+ * transferred and converted in one go, then deleted from the drone before the next one is processed.
+ * <p>
+ * Otherwise, PUD transfer and conversion are pipelined: raw PUDs are transferred from the drone while previous ones are
+ * converted on a background thread, with up to the configured depth of raw PUDs waiting for conversion. PUDs are
+ * deleted from the drone once all of them have been processed. In case processing is interrupted, PUDs that were
+ * processed already are deleted when the download restarts.
+ */
 public final class AnafiFlightDataDownloader extends PeripheralController<DeviceController<?>> {
 
     /**
@@ -65,6 +88,9 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
         return storage == null ? null : new AnafiFlightDataDownloader(controller, storage);
     }
 
+    /** Extension of raw PUD files, transferred but not yet converted. */
+    private static final String RAW_FILE_EXT = ".raw" + FlightDataStorage.TMP_FILE_EXT;
+
     /** Flight data storage. */
     @NonNull
     private final FlightDataStorage mStorage;
@@ -80,9 +106,35 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
     /** Queue of PUD to be downloaded. Empty when not downloading or done. */
     private final Queue<HttpPudInfo> mPendingPuds;
 
+    /** Queue of transferred raw PUDs waiting for conversion. Only used in pipelined mode. */
+    private final Queue<RawPud> mPendingConversions;
+
+    /**
+     * Names of processed PUDs, to be deleted from the drone once all PUDs are processed, or when the download restarts
+     * after an interruption. Only used in pipelined mode.
+     */
+    private final List<String> mPendingDeletions;
+
+    /** Current raw PUD transfer request. Only used in pipelined mode. */
+    @Nullable
+    private HttpRequest mTransferRequest;
+
+    /** Current raw PUD conversion task. Only used in pipelined mode. */
+    @Nullable
+    private Task<Boolean> mConversionTask;
+
+    /** Maximum count of raw PUDs waiting for conversion. {@code 0} when not pipelined. */
+    private int mPrefetchDepth;
+
     /** Current downloaded PUD files count. {@code 0} when not downloading. */
     private int mDownloadedCount;
 
+    /** Current transferred PUD files count. {@code 0} when not downloading. */
+    private int mTransferredCount;
+
+    /** Current deleted PUD files count. {@code 0} when not downloading. */
+    private int mDeletedCount;
+
     /**
      * Constructor.
      *
@@ -95,6 +147,8 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
         mStorage = storage;
         mDownloader = new FlightDataDownloaderCore(mComponentStore);
         mPendingPuds = new LinkedList<>();
+        mPendingConversions = new LinkedList<>();
+        mPendingDeletions = new ArrayList<>();
     }
 
     @Override
@@ -112,33 +166,69 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
         if (allowed) {
             mHttpClient = mDeviceController.getHttpClient(HttpPudClient.class);
             if (mHttpClient != null) {
-                mPendingPuds.clear();
-                mDownloadedCount = 0;
+                reset();
+                mPrefetchDepth = GroundSdkConfig.get().getFlightDataPrefetchDepth();
                 mHttpClient.listPuds((status, code, puds) -> {
                     if (status != HttpRequest.Status.SUCCESS) {
                         return;
                     }
-                    // validate received puds
+                    // validate received puds, skipping those processed before an interruption
                     if (puds != null) for (HttpPudInfo pud : puds) {
-                        if (HttpPudInfo.isValid(pud)) {
+                        if (HttpPudInfo.isValid(pud) && !mPendingDeletions.contains(pud.getName())) {
                             mPendingPuds.add(pud);
                         }
                     }
+                    deleteProcessedPuds();
                     if (!mPendingPuds.isEmpty()) {
                         mDownloader.updateDownloadingFlag(true)
                                    .updateCompletionStatus(FlightDataDownloader.CompletionStatus.NONE)
+                                   .updateTotalCount(mPendingPuds.size())
                                    .updateDownloadedCount(0)
+                                   .updateTransferredCount(0)
+                                   .updateDeletedCount(0)
                                    .notifyUpdated();
-                        downloadNextPud();
+                        if (mPrefetchDepth == 0) {
+                            downloadNextPud();
+                        } else {
+                            processPuds();
+                        }
                     }
                 });
             }
         } else if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
+            boolean pipelined = mPrefetchDepth > 0;
+            reset();
+            if (pipelined && mDownloader.isDownloading()) {
+                // ongoing conversion, if any, is aborted
+                mDownloader.updateDownloadingFlag(false)
+                           .updateCompletionStatus(FlightDataDownloader.CompletionStatus.INTERRUPTED)
+                           .notifyUpdated();
+            }
         }
     }
 
+    /**
+     * Resets download state, aborting and cleaning up any ongoing pipelined processing.
+     * <p>
+     * Names of processed PUDs are kept, so that these PUDs get deleted from the drone when the download restarts.
+     */
+    private void reset() {
+        mPendingPuds.clear();
+        if (mConversionTask != null) {
+            mConversionTask.cancel();
+            mConversionTask = null;
+        }
+        // transfer request, if any, has already been canceled by http client disposal
+        mTransferRequest = null;
+        for (RawPud rawPud : mPendingConversions) {
+            deleteFile(rawPud.mRawFile);
+        }
+        mPendingConversions.clear();
+        mDownloadedCount = mTransferredCount = mDeletedCount = 0;
+    }
+
     /**
      * Downloads the next available pud from the drone.
      */
@@ -163,11 +253,13 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
                 } else {
                     if (status == HttpRequest.Status.SUCCESS) {
                         mDownloadedCount++;
-                        mDownloader.updateDownloadedCount(mDownloadedCount);
+                        mTransferredCount++;
+                        mDownloader.updateTransferredCount(mTransferredCount)
+                                   .updateDownloadedCount(mDownloadedCount);
                         mStorage.notifyFlightDataFileReady(dest);
                     }
                     // delete this pud
-                    mHttpClient.deletePud(name, HttpRequest.StatusCallback.IGNORE);
+                    deletePud(name);
                     // process next pud
                     downloadNextPud();
                 }
@@ -175,4 +267,184 @@ public final class AnafiFlightDataDownloader extends PeripheralController<Device
         }
         mDownloader.notifyUpdated();
     }
+
+    /**
+     * Advances the transfer and conversion stages of the pipeline, and completes the download once both are done.
+     * <p>
+     * Caller is responsible for notifying the peripheral of changes.
+     */
+    private void processPuds() {
+        assert mHttpClient != null;
+
+        // conversion stage
+        if (mConversionTask == null && !mPendingConversions.isEmpty()) {
+            convertPud(mPendingConversions.remove());
+        }
+
+        // transfer stage, bounded by the count of raw puds waiting for conversion
+        if (mTransferRequest == null && mPendingConversions.size() < mPrefetchDepth && !mPendingPuds.isEmpty()) {
+            transferPud(mPendingPuds.remove());
+        }
+
+        if (mTransferRequest == null && mConversionTask == null && mPendingPuds.isEmpty()
+            && mPendingConversions.isEmpty() && mDownloader.isDownloading()) {
+            // all puds are processed, delete them all at once from the drone
+            deleteProcessedPuds();
+            mDownloader.updateDownloadingFlag(false)
+                       .updateCompletionStatus(FlightDataDownloader.CompletionStatus.SUCCESS);
+        }
+    }
+
+    /**
+     * Transfers the given raw PUD from the drone.
+     *
+     * @param pud PUD to transfer
+     */
+    private void transferPud(@NonNull HttpPudInfo pud) {
+        assert mHttpClient != null;
+
+        String url = pud.getUrl();
+        String name = pud.getName();
+        assert url != null && name != null;
+        File dest = new File(mStorage.getWorkDir(), name);
+        File rawFile = new File(mStorage.getWorkDir(), name + RAW_FILE_EXT);
+        mTransferRequest = mHttpClient.downloadPud(url, rawFile, (status, code) -> {
+            mTransferRequest = null;
+            if (status == HttpRequest.Status.CANCELED) {
+                deleteFile(rawFile);
+                if (mHttpClient != null) {
+                    deleteProcessedPuds();
+                }
+                reset();
+                mDownloader.updateDownloadingFlag(false)
+                           .updateCompletionStatus(FlightDataDownloader.CompletionStatus.INTERRUPTED)
+                           .notifyUpdated();
+                return;
+            }
+            if (status == HttpRequest.Status.SUCCESS) {
+                mTransferredCount++;
+                mDownloader.updateTransferredCount(mTransferredCount);
+                mPendingConversions.add(new RawPud(name, rawFile, dest));
+            } else {
+                deleteFile(rawFile);
+                mPendingDeletions.add(name);
+            }
+            processPuds();
+            mDownloader.notifyUpdated();
+        });
+    }
+
+    /**
+     * Converts the given raw PUD in background.
+     *
+     * @param rawPud raw PUD to convert
+     */
+    private void convertPud(@NonNull RawPud rawPud) {
+        Task<Boolean> task = Executor.runInBackground(rawPud::convert);
+        mConversionTask = task;
+        task.whenComplete((converted, error, canceled) -> {
+            if (canceled || mConversionTask != task) {
+                return;
+            }
+            mConversionTask = null;
+            if (converted == Boolean.TRUE) {
+                mDownloadedCount++;
+                mDownloader.updateDownloadedCount(mDownloadedCount);
+                mStorage.notifyFlightDataFileReady(rawPud.mDestFile);
+            }
+            mPendingDeletions.add(rawPud.mName);
+            processPuds();
+            mDownloader.notifyUpdated();
+        });
+    }
+
+    /**
+     * Deletes from the drone all PUDs processed so far.
+     */
+    private void deleteProcessedPuds() {
+        for (String name : mPendingDeletions) {
+            deletePud(name);
+        }
+        mPendingDeletions.clear();
+    }
+
+    /**
+     * Deletes the given PUD from the drone.
+     *
+     * @param name name of the PUD to delete
+     */
+    private void deletePud(@NonNull String name) {
+        assert mHttpClient != null;
+        mHttpClient.deletePud(name, (status, code) -> {
+            if (status == HttpRequest.Status.SUCCESS) {
+                mDeletedCount++;
+                mDownloader.updateDeletedCount(mDeletedCount).notifyUpdated();
+            }
+        });
+    }
+
+    /**
+     * Deletes the given local file, if it exists.
+     *
+     * @param file file to delete
+     */
+    private static void deleteFile(@NonNull File file) {
+        if (file.exists() && !file.delete() && ULog.w(TAG_STORAGE)) {
+            ULog.w(TAG_STORAGE, "Could not delete PUD file: " + file);
+        }
+    }
+
+    /** A transferred PUD, waiting for conversion. */
+    private static final class RawPud {
+
+        /** PUD name on the drone. */
+        @NonNull
+        final String mName;
+
+        /** Raw PUD file, as transferred from the drone. */
+        @NonNull
+        final File mRawFile;
+
+        /** Converted PUD destination file. */
+        @NonNull
+        final File mDestFile;
+
+        /**
+         * Constructor.
+         *
+         * @param name     PUD name on the drone
+         * @param rawFile  raw PUD file
+         * @param destFile converted PUD destination file
+         */
+        RawPud(@NonNull String name, @NonNull File rawFile, @NonNull File destFile) {
+            mName = name;
+            mRawFile = rawFile;
+            mDestFile = destFile;
+        }
+
+        /**
+         * Converts the raw PUD file to the destination file.
+         * <p>
+         * Called on a background thread. Raw file is always deleted upon return.
+         *
+         * @return {@code true} if conversion succeeded, otherwise {@code false}
+         */
+        boolean convert() {
+            File tmpFile = new File(mDestFile.getPath() + FlightDataStorage.TMP_FILE_EXT);
+            boolean converted = false;
+            try (InputStream input = new FileInputStream(mRawFile);
+                 OutputStream output = new FileOutputStream(tmpFile)) {
+                PudAdapter.adapt(input, output);
+                converted = true;
+            } catch (IOException ignored) {
+                // converted stays false
+            }
+            converted = converted && tmpFile.renameTo(mDestFile);
+            if (!converted) {
+                deleteFile(tmpFile);
+            }
+            deleteFile(mRawFile);
+            return converted;
+        }
+    }
 }
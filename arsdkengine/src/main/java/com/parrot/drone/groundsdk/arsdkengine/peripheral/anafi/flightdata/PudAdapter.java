@@ -39,7 +39,6 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
@@ -49,25 +48,25 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonWriter;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureArdrone3;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
-import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Adapts PUD received from the drone in their JSON/binary format, to the JSON format suitable for upload on server.
+ * <p>
+ * Column descriptors are compiled once into a {@link ColumnPlan}; binary data lines are then decoded in place from a
+ * buffer and written straight to JSON output, without allocating any intermediate object per line or per field.
  */
 final class PudAdapter {
 
@@ -92,12 +91,18 @@ final class PudAdapter {
     /** Marker value used when some time info is not known yet. */
     private static final long TIME_UNKNOWN = -1;
 
+    /** Marker value used when some coordinate is not known. */
+    private static final double COORD_UNKNOWN = 500;
+
     /** Name for the columns description field in both input {@link #mHeader} and output JSON. */
     private static final String COLUMNS_DESCRIPTION_TAG = "details_headers";
 
     /** Type token for parsing JSON columns descriptor list from {@link #mHeader}. */
     private static final Type COLUMNS_DESCRIPTION_TYPE = new TypeToken<List<ColumnDescriptor>>() {}.getType();
 
+    /** Input buffer size, in bytes. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /** GSON instance used to parse and serialize JSON data. */
     @NonNull
     private final Gson mGson;
@@ -114,9 +119,9 @@ final class PudAdapter {
     @NonNull
     private final JsonObject mHeader;
 
-    /** Columns type descriptors, parsed from {@link #mHeader}. */
+    /** Input buffer. Always in read mode, i.e. data to be parsed lies between position and limit. */
     @NonNull
-    private final List<ColumnDescriptor> mDescriptors;
+    private ByteBuffer mBuffer;
 
     /** Latest alert state parsed from input binary data. {@code null} if none. Used to compute {@link #mAlertCount}. */
     @Nullable
@@ -137,13 +142,17 @@ final class PudAdapter {
     /** Device GPS availability, parsed from input binary data. */
     private boolean mGpsAvailable;
 
-    /** First meaningful device location parsed from binary data. */
-    @Nullable
-    private Location mFirstDeviceLocation;
+    /** First meaningful device latitude parsed from binary data, {@link #COORD_UNKNOWN} if none yet. */
+    private double mFirstDeviceLatitude;
 
-    /** Latest meaningful controller location parsed from binary data. */
-    @NonNull
-    private Location mLatestControllerLocation;
+    /** First meaningful device longitude parsed from binary data, {@link #COORD_UNKNOWN} if none yet. */
+    private double mFirstDeviceLongitude;
+
+    /** Latest meaningful controller latitude parsed from binary data, {@link #COORD_UNKNOWN} if none yet. */
+    private double mLatestControllerLatitude;
+
+    /** Latest meaningful controller longitude parsed from binary data, {@link #COORD_UNKNOWN} if none yet. */
+    private double mLatestControllerLongitude;
 
     /**
      * Constructor.
@@ -155,16 +164,29 @@ final class PudAdapter {
      */
     private PudAdapter(@NonNull InputStream input, @NonNull OutputStream output) throws IOException {
         mInput = input;
-        mWriter = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        mWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        // allow NaN and infinite values in binary data, as they are when serialized through Gson
+        mWriter.setLenient(true);
         mGson = new Gson();
-        mDescriptors = new ArrayList<>();
-        mLatestControllerLocation = new Location();
+        mBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        mBuffer.flip();
         mFlightStartTime = TIME_UNKNOWN;
+        mFirstDeviceLatitude = mFirstDeviceLongitude = COORD_UNKNOWN;
+        mLatestControllerLatitude = mLatestControllerLongitude = COORD_UNKNOWN;
 
         ByteArrayOutputStream headerBuffer = new ByteArrayOutputStream();
-        int readByte;
-        while ((readByte = input.read()) > 0) { // read until EOF or first null separator marking end of JSON header
-            headerBuffer.write(readByte);
+        boolean separatorFound = false;
+        // read until EOF or first null separator marking end of JSON header
+        while (!separatorFound && ensureAvailable(1)) {
+            byte[] data = mBuffer.array();
+            int start = mBuffer.arrayOffset() + mBuffer.position(), end = mBuffer.arrayOffset() + mBuffer.limit();
+            int separator = start;
+            while (separator < end && data[separator] != 0) {
+                separator++;
+            }
+            headerBuffer.write(data, start, separator - start);
+            separatorFound = separator < end;
+            mBuffer.position(mBuffer.position() + separator - start + (separatorFound ? 1 : 0));
         }
 
         try {
@@ -183,9 +205,9 @@ final class PudAdapter {
         // being output JSON object
         mWriter.beginObject();
 
-        adaptColumnDescriptors();
+        ColumnPlan plan = adaptColumnDescriptors();
 
-        adaptBinaryData();
+        adaptBinaryData(plan);
 
         // write collected data to header
         mHeader.addProperty("crash", mAlertCount);
@@ -193,9 +215,9 @@ final class PudAdapter {
         mHeader.addProperty("run_time", mFlyingTime);
         mHeader.addProperty("gps_available", mGpsAvailable);
 
-        Location location = mFirstDeviceLocation == null ? mLatestControllerLocation : mFirstDeviceLocation;
-        mHeader.addProperty("gps_latitude", location.latitude);
-        mHeader.addProperty("gps_longitude", location.longitude);
+        boolean deviceLocationKnown = isValidLocation(mFirstDeviceLatitude, mFirstDeviceLongitude);
+        mHeader.addProperty("gps_latitude", deviceLocationKnown ? mFirstDeviceLatitude : mLatestControllerLatitude);
+        mHeader.addProperty("gps_longitude", deviceLocationKnown ? mFirstDeviceLongitude : mLatestControllerLongitude);
 
         // remove original columns description
         mHeader.remove(COLUMNS_DESCRIPTION_TAG);
@@ -217,9 +239,12 @@ final class PudAdapter {
      * Note that descriptor without type pass validation, but they are not written to output and the corresponding field
      * in binary data won't be parsed and written to output.
      *
+     * @return the plan compiled from column descriptors, used to decode binary data
+     *
      * @throws IOException in case parsing failed
      */
-    private void adaptColumnDescriptors() throws IOException {
+    @NonNull
+    private ColumnPlan adaptColumnDescriptors() throws IOException {
         // begin output descriptor array
         mWriter.name(COLUMNS_DESCRIPTION_TAG).beginArray();
 
@@ -239,17 +264,15 @@ final class PudAdapter {
             if (descriptor == null) {
                 throw new IOException("Null column " + i + " descriptor");
             }
-            if (descriptor.getSize() <= 0) {
+            if (descriptor.mSize <= 0) {
                 throw new IOException("Invalid column " + i + " descriptor size");
             }
-            if (TextUtils.isEmpty(descriptor.getName())) {
+            if (TextUtils.isEmpty(descriptor.mName)) {
                 throw new IOException("Invalid column " + i + " descriptor name");
             }
-            if (descriptor.getType() != null) { // add to final column description only if the type is known
-                mWriter.value(descriptor.getName());
+            if (descriptor.mType != null) { // add to final column description only if the type is known
+                mWriter.value(descriptor.mName);
             }
-            // but keep track of it anyway in order to skip binary value during parsing
-            mDescriptors.add(descriptor);
         }
 
         // write speed descriptor name
@@ -257,6 +280,8 @@ final class PudAdapter {
 
         // end output descriptor array
         mWriter.endArray();
+
+        return new ColumnPlan(descriptors);
     }
 
     /**
@@ -265,17 +290,18 @@ final class PudAdapter {
      * Parsing stops in case of EOF (in which case, the line being currently parsed is dropped), or in case time parsed
      * from binary data appears inconsistent.
      *
+     * @param plan column plan to decode binary data with
+     *
      * @throws IOException in case parsing failed
      */
-    private void adaptBinaryData() throws IOException {
+    private void adaptBinaryData(@NonNull ColumnPlan plan) throws IOException {
         // begin output data lines array
         mWriter.name("details_data").beginArray();
 
-        // parse all input line by line
-        boolean parseNext;
-        do {
-            parseNext = adaptNextBinaryLine();
-        } while (parseNext);
+        // parse all input line by line; stop on EOF, in which case any incomplete line is dropped
+        while (ensureAvailable(plan.mLineSize) && adaptNextBinaryLine(plan)) {
+            mBuffer.position(mBuffer.position() + plan.mLineSize);
+        }
 
         // finalize flying time if necessary
         if (mFlightStartTime != TIME_UNKNOWN) {
@@ -287,109 +313,239 @@ final class PudAdapter {
     }
 
     /**
-     * Parses the next binary data line and writes it, properly adapted, to JSON output.
+     * Parses the binary data line at the current buffer position and writes it, properly adapted, to JSON output.
      * <p>
-     * In case of EOF during line parsing, then the line is dropped, and this method returns {@code false} so that
-     * parsing stops.
+     * The line is processed in two passes: first, values that are tracked to compute header data are processed, in
+     * column order; then, in case parsing may proceed, all line values are written to JSON output.
+     *
+     * @param plan column plan to decode the line with
      *
      * @return {@code true} if parsing may proceed with the next line, otherwise {@code false}
      *
      * @throws IOException in case parsing failed.
      */
-    private boolean adaptNextBinaryLine() throws IOException {
-        // Keeps track of device latitude & longitude as read in line.
-        Location deviceLocation = new Location();
-
-        // Keeps track of controller latitude & longitude as read in line.
-        Location controllerLocation = new Location();
+    private boolean adaptNextBinaryLine(@NonNull ColumnPlan plan) throws IOException {
+        int line = mBuffer.position();
 
-        // Keeps track of time as read in line
-        long time = TIME_UNKNOWN;
-
-        // will contain the sum of squared speeds from all axis read in line.
+        double deviceLatitude = COORD_UNKNOWN, deviceLongitude = COORD_UNKNOWN;
+        double controllerLatitude = COORD_UNKNOWN, controllerLongitude = COORD_UNKNOWN;
         double speedSquare = 0;
 
-        // JSON data line to write once parsing is successful.
-        JsonArray lineToWrite = new JsonArray();
-
-        try {
-            for (ColumnDescriptor descriptor : mDescriptors) {
-                byte[] fieldData = descriptor.readNextField(mInput);
-
-                assert descriptor.getName() != null; // validated when mDescriptors is built
-                switch (descriptor.getName()) {
-                    case "time":
-                        time = descriptor.parseAsInt(fieldData);
-                        break;
-                    case "speed_vx":
-                    case "speed_vy":
-                    case "speed_vz":
-                        speedSquare += Math.pow(descriptor.parseAsNumber(fieldData).doubleValue(), 2);
-                        break;
-                    case "product_gps_available":
-                        mGpsAvailable |= descriptor.parseAsBoolean(fieldData);
-                        break;
-                    case "product_gps_latitude":
-                        deviceLocation.latitude = descriptor.parseAsDouble(fieldData);
-                        break;
-                    case "product_gps_longitude":
-                        deviceLocation.longitude = descriptor.parseAsDouble(fieldData);
-                        break;
-                    case "controller_gps_latitude":
-                        controllerLocation.latitude = descriptor.parseAsDouble(fieldData);
-                        break;
-                    case "controller_gps_longitude":
-                        controllerLocation.longitude = descriptor.parseAsDouble(fieldData);
-                        break;
-                    case "alert_state":
-                        ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState alert =
-                                ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState.fromValue(
-                                        descriptor.parseAsInt(fieldData));
-                        if (alert != null) {
-                            processAlertState(alert);
-                        }
-                        break;
-                    case "flying_state":
-                        ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState state =
-                                ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.fromValue(
-                                        descriptor.parseAsInt(fieldData));
-                        if (state != null) {
-                            processFlyingState(state);
-                        }
-                        break;
-                }
-
-                // update latest time
-                if (time != TIME_UNKNOWN) {
+        for (int i = 0; i < plan.mTrackedColumns.length; i++) {
+            int column = plan.mTrackedColumns[i];
+            int offset = line + plan.mOffsets[column];
+            switch (plan.mTrackedRoles[i]) {
+                case ColumnPlan.ROLE_TIME:
+                    long time = readInt(plan, column, offset, ColumnDescriptor.Type.INTEGER);
                     if (time < mLatestTime || time > mLatestTime + MAX_TIME_INTERVAL) {
                         return false; // stop parsing if time is incoherent
                     }
                     mLatestTime = time;
-                }
-
-                // write data
-                descriptor.appendData(fieldData, lineToWrite);
+                    break;
+                case ColumnPlan.ROLE_SPEED:
+                    speedSquare += Math.pow(readNumber(plan, column, offset), 2);
+                    break;
+                case ColumnPlan.ROLE_GPS_AVAILABLE:
+                    plan.checkType(column, ColumnDescriptor.Type.BOOLEAN);
+                    mGpsAvailable |= mBuffer.get(offset) != 0;
+                    break;
+                case ColumnPlan.ROLE_DEVICE_LATITUDE:
+                    deviceLatitude = readDouble(plan, column, offset);
+                    break;
+                case ColumnPlan.ROLE_DEVICE_LONGITUDE:
+                    deviceLongitude = readDouble(plan, column, offset);
+                    break;
+                case ColumnPlan.ROLE_CONTROLLER_LATITUDE:
+                    controllerLatitude = readDouble(plan, column, offset);
+                    break;
+                case ColumnPlan.ROLE_CONTROLLER_LONGITUDE:
+                    controllerLongitude = readDouble(plan, column, offset);
+                    break;
+                case ColumnPlan.ROLE_ALERT_STATE:
+                    ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState alert =
+                            ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState.fromValue(
+                                    readInt(plan, column, offset, ColumnDescriptor.Type.INTEGER));
+                    if (alert != null) {
+                        processAlertState(alert);
+                    }
+                    break;
+                case ColumnPlan.ROLE_FLYING_STATE:
+                    ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState state =
+                            ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.fromValue(
+                                    readInt(plan, column, offset, ColumnDescriptor.Type.INTEGER));
+                    if (state != null) {
+                        processFlyingState(state);
+                    }
+                    break;
             }
+        }
 
-            // update known device and controller location
-            if (controllerLocation.isValid()) {
-                mLatestControllerLocation = controllerLocation;
+        // write data
+        mWriter.beginArray();
+        for (int column = 0; column < plan.mTypes.length; column++) {
+            ColumnDescriptor.Type type = plan.mTypes[column];
+            if (type == null) {
+                continue; // field data is not written (column is ignored)
             }
-            if (mFirstDeviceLocation == null && deviceLocation.isValid()) {
-                mFirstDeviceLocation = deviceLocation;
+            int offset = line + plan.mOffsets[column];
+            switch (type) {
+                case STRING:
+                    mWriter.value(new String(mBuffer.array(), mBuffer.arrayOffset() + offset, plan.mSizes[column],
+                            StandardCharsets.UTF_8));
+                    break;
+                case INTEGER:
+                    mWriter.value(readInt(plan, column, offset, type));
+                    break;
+                case BOOLEAN:
+                    mWriter.value(mBuffer.get(offset) != 0);
+                    break;
+                case FLOAT:
+                    // same digits as value(Number) on a boxed Float, without boxing each field of each row
+                    mWriter.jsonValue(Float.toString(readFloat(plan, column, offset)));
+                    break;
+                case DOUBLE:
+                    mWriter.value(readDouble(plan, column, offset));
+                    break;
             }
+        }
+        // write computed speed value
+        mWriter.value(Math.sqrt(speedSquare));
+        mWriter.endArray();
 
-            // write computed speed value
-            lineToWrite.add(Math.sqrt(speedSquare));
+        // update known device and controller location
+        if (isValidLocation(controllerLatitude, controllerLongitude)) {
+            mLatestControllerLatitude = controllerLatitude;
+            mLatestControllerLongitude = controllerLongitude;
+        }
+        if (!isValidLocation(mFirstDeviceLatitude, mFirstDeviceLongitude)
+            && isValidLocation(deviceLatitude, deviceLongitude)) {
+            mFirstDeviceLatitude = deviceLatitude;
+            mFirstDeviceLongitude = deviceLongitude;
+        }
 
-            // write line data array
-            mGson.toJson(lineToWrite, mWriter);
+        return true;
+    }
 
+    /**
+     * Ensures that at least the given amount of bytes are available to read from the input buffer.
+     * <p>
+     * Reads more data from the input stream if required, possibly growing the buffer.
+     *
+     * @param count amount of bytes that must be available
+     *
+     * @return {@code true} if the requested amount of bytes is available, {@code false} if EOF was reached before
+     *
+     * @throws IOException in case reading failed
+     */
+    private boolean ensureAvailable(int count) throws IOException {
+        if (mBuffer.remaining() >= count) {
             return true;
-        } catch (EOFException e) {
-            // could not parse line entirely, drop it and stop parsing
-            return false;
         }
+        if (mBuffer.capacity() < count) {
+            mBuffer = ByteBuffer.allocate(count).order(ByteOrder.LITTLE_ENDIAN).put(mBuffer);
+        } else {
+            mBuffer.compact();
+        }
+        // buffer is now in write mode
+        while (mBuffer.position() < count) {
+            int read = mInput.read(mBuffer.array(), mBuffer.arrayOffset() + mBuffer.position(), mBuffer.remaining());
+            if (read == -1) {
+                mBuffer.flip();
+                return false;
+            }
+            mBuffer.position(mBuffer.position() + read);
+        }
+        mBuffer.flip();
+        return true;
+    }
+
+    /**
+     * Reads an integer field from the input buffer.
+     *
+     * @param plan   column plan
+     * @param column field column
+     * @param offset field offset in the input buffer
+     * @param type   type of the field; if not {@link ColumnDescriptor.Type#INTEGER}, parsing fails
+     *
+     * @return integer field value
+     *
+     * @throws IOException in case the field cannot be parsed as an integer
+     */
+    private int readInt(@NonNull ColumnPlan plan, int column, int offset, @Nullable ColumnDescriptor.Type type)
+            throws IOException {
+        plan.checkType(column, type);
+        switch (plan.mSizes[column]) {
+            case 1:
+                return mBuffer.get(offset);
+            case 2:
+                return mBuffer.getShort(offset);
+            case 4:
+                return mBuffer.getInt(offset);
+        }
+        throw new IOException("Cannot parse integer of size " + plan.mSizes[column]);
+    }
+
+    /**
+     * Reads a float field from the input buffer.
+     *
+     * @param plan   column plan
+     * @param column field column
+     * @param offset field offset in the input buffer
+     *
+     * @return float field value
+     *
+     * @throws IOException in case the field cannot be parsed as a float
+     */
+    private float readFloat(@NonNull ColumnPlan plan, int column, int offset) throws IOException {
+        if (plan.mSizes[column] < Float.BYTES) {
+            throw new IOException("Cannot parse float of size " + plan.mSizes[column]);
+        }
+        return mBuffer.getFloat(offset);
+    }
+
+    /**
+     * Reads a double field from the input buffer.
+     *
+     * @param plan   column plan
+     * @param column field column
+     * @param offset field offset in the input buffer
+     *
+     * @return double field value
+     *
+     * @throws IOException in case the field is not a {@link ColumnDescriptor.Type#DOUBLE} or cannot be parsed
+     */
+    private double readDouble(@NonNull ColumnPlan plan, int column, int offset) throws IOException {
+        plan.checkType(column, ColumnDescriptor.Type.DOUBLE);
+        if (plan.mSizes[column] < Double.BYTES) {
+            throw new IOException("Cannot parse double of size " + plan.mSizes[column]);
+        }
+        return mBuffer.getDouble(offset);
+    }
+
+    /**
+     * Reads any kind of number field from the input buffer.
+     * <p>
+     * This method supports parsing any of {@link ColumnDescriptor.Type#INTEGER}, {@link ColumnDescriptor.Type#FLOAT}
+     * or {@link ColumnDescriptor.Type#DOUBLE} fields.
+     *
+     * @param plan   column plan
+     * @param column field column
+     * @param offset field offset in the input buffer
+     *
+     * @return number field value
+     *
+     * @throws IOException in case the field cannot be parsed as a number
+     */
+    private double readNumber(@NonNull ColumnPlan plan, int column, int offset) throws IOException {
+        ColumnDescriptor.Type type = plan.mTypes[column];
+        if (type == ColumnDescriptor.Type.INTEGER) {
+            return readInt(plan, column, offset, type);
+        } else if (type == ColumnDescriptor.Type.FLOAT) {
+            return readFloat(plan, column, offset);
+        } else if (type == ColumnDescriptor.Type.DOUBLE) {
+            return readDouble(plan, column, offset);
+        }
+        throw new IOException("Cannot parse field " + plan.describe(column) + " as number");
     }
 
     /**
@@ -448,124 +604,180 @@ final class PudAdapter {
     }
 
     /**
-     * Parses data as an UTF-8 string.
+     * Tells whether the given location is valid, i.e. that both latitude and longitude have meaningful values.
      *
-     * @param data data to parse
+     * @param latitude  location latitude
+     * @param longitude location longitude
      *
-     * @return string representation of the given data
+     * @return {@code true} if the location is valid, otherwise {@code false}
      */
-    @NonNull
-    private static String parseString(@NonNull byte[] data) {
-        return new String(data, StandardCharsets.UTF_8);
+    private static boolean isValidLocation(double latitude, double longitude) {
+        return Double.compare(latitude, COORD_UNKNOWN) != 0 && Double.compare(longitude, COORD_UNKNOWN) != 0;
     }
 
     /**
-     * Parses data as an integer.
-     *
-     * @param data data to parse
-     *
-     * @return integer representation of the given data
-     *
-     * @throws IOException in case the given data cannot be parsed to an integer
+     * Binary data decoding plan, compiled from column descriptors.
+     * <p>
+     * Resolves each column to its offset in a binary data line, and each column that is tracked to compute header
+     * data to its role, so that no column name lookup occurs when decoding lines.
      */
-    private static int parseInt(@NonNull byte[] data) throws IOException {
-        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        if (data.length == 1) {
-            return buffer.get();
-        } else if (data.length == 2) {
-            return buffer.getShort();
-        } else if (data.length == 4) {
-            return buffer.getInt();
-        }
-        throw new IOException("Cannot parse integer: " + Arrays.toString(data));
-    }
+    private static final class ColumnPlan {
 
-    /**
-     * Parses data as a boolean.
-     *
-     * @param data data to parse
-     *
-     * @return boolean representation of the given data
-     *
-     * @throws IOException in case the given data cannot be parsed to a boolean
-     */
-    private static boolean parseBoolean(@NonNull byte[] data) throws IOException {
-        if (data.length > 0) {
-            return data[0] != 0;
-        }
-        throw new IOException("Cannot parse boolean: " + Arrays.toString(data));
-    }
+        /** Column containing time info. */
+        static final int ROLE_TIME = 0;
 
-    /**
-     * Parses data as a float.
-     *
-     * @param data data to parse
-     *
-     * @return float representation of the given data
-     *
-     * @throws IOException in case the given data cannot be parsed to a float
-     */
-    private static float parseFloat(@NonNull byte[] data) throws IOException {
-        try {
-            return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getFloat();
-        } catch (BufferOverflowException e) {
-            throw new IOException(e);
-        }
-    }
+        /** Column containing a speed component. */
+        static final int ROLE_SPEED = 1;
 
-    /**
-     * Parses data as a double.
-     *
-     * @param data data to parse
-     *
-     * @return double representation of the given data
-     *
-     * @throws IOException in case the given data cannot be parsed to a double
-     */
-    private static double parseDouble(@NonNull byte[] data) throws IOException {
-        try {
-            return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getDouble();
-        } catch (BufferOverflowException e) {
-            throw new IOException(e);
-        }
-    }
+        /** Column containing device GPS availability. */
+        static final int ROLE_GPS_AVAILABLE = 2;
 
-    /**
-     * Data class representing a Location with a latitude and a longitude.
-     */
-    private static final class Location {
+        /** Column containing device latitude. */
+        static final int ROLE_DEVICE_LATITUDE = 3;
+
+        /** Column containing device longitude. */
+        static final int ROLE_DEVICE_LONGITUDE = 4;
+
+        /** Column containing controller latitude. */
+        static final int ROLE_CONTROLLER_LATITUDE = 5;
+
+        /** Column containing controller longitude. */
+        static final int ROLE_CONTROLLER_LONGITUDE = 6;
+
+        /** Column containing alert state. */
+        static final int ROLE_ALERT_STATE = 7;
+
+        /** Column containing flying state. */
+        static final int ROLE_FLYING_STATE = 8;
+
+        /** Column names. */
+        @NonNull
+        private final String[] mNames;
+
+        /** Column types, {@code null} for columns of unknown type. */
+        @NonNull
+        final ColumnDescriptor.Type[] mTypes;
 
-        /** Marker value used when some coordinate is not known. */
-        private static final double COORD_UNKNOWN = 500;
+        /** Column sizes, in bytes. */
+        @NonNull
+        final int[] mSizes;
 
-        /** Location latitude. */
-        double latitude;
+        /** Column offsets in a binary data line, in bytes. */
+        @NonNull
+        final int[] mOffsets;
 
-        /** Location longitude. */
-        double longitude;
+        /** Tracked columns, in column order. */
+        @NonNull
+        final int[] mTrackedColumns;
+
+        /** Role of each tracked column. */
+        @NonNull
+        final int[] mTrackedRoles;
+
+        /** Binary data line size, in bytes. */
+        final int mLineSize;
 
         /**
          * Constructor.
+         *
+         * @param descriptors validated column descriptors
+         */
+        ColumnPlan(@NonNull List<ColumnDescriptor> descriptors) {
+            int count = descriptors.size();
+            mNames = new String[count];
+            mTypes = new ColumnDescriptor.Type[count];
+            mSizes = new int[count];
+            mOffsets = new int[count];
+            int[] trackedColumns = new int[count];
+            int[] trackedRoles = new int[count];
+            int trackedCount = 0;
+            int offset = 0;
+            for (int column = 0; column < count; column++) {
+                ColumnDescriptor descriptor = descriptors.get(column);
+                assert descriptor.mName != null; // validated by caller
+                mNames[column] = descriptor.mName;
+                mTypes[column] = descriptor.mType;
+                mSizes[column] = descriptor.mSize;
+                mOffsets[column] = offset;
+                offset += descriptor.mSize;
+                int role = roleOf(descriptor.mName);
+                if (role >= 0) {
+                    trackedColumns[trackedCount] = column;
+                    trackedRoles[trackedCount] = role;
+                    trackedCount++;
+                }
+            }
+            mLineSize = offset;
+            mTrackedColumns = new int[trackedCount];
+            mTrackedRoles = new int[trackedCount];
+            System.arraycopy(trackedColumns, 0, mTrackedColumns, 0, trackedCount);
+            System.arraycopy(trackedRoles, 0, mTrackedRoles, 0, trackedCount);
+        }
+
+        /**
+         * Checks a column type against a specific type.
+         *
+         * @param column column to check
+         * @param type   type to check against
+         *
+         * @throws IOException in case the column is not of the specified type
+         */
+        void checkType(int column, @Nullable ColumnDescriptor.Type type) throws IOException {
+            if (mTypes[column] != type) {
+                throw new IOException("Cannot parse field " + describe(column) + " as " + type);
+            }
+        }
+
+        /**
+         * Describes a column, for error reporting.
+         *
+         * @param column column to describe
+         *
+         * @return column description
          */
-        Location() {
-            latitude = COORD_UNKNOWN;
-            longitude = COORD_UNKNOWN;
+        @NonNull
+        String describe(int column) {
+            return "[name: " + mNames[column] + ", size:" + mSizes[column] + ", type: " + mTypes[column] + "]";
         }
 
         /**
-         * Tells whether the location data is valid, i.e. that both latitude and longitude have meaningful values
+         * Resolves the role of a column from its name.
          *
-         * @return {@code true} if the location is valid, otherwise {@code false}
+         * @param name column name
+         *
+         * @return column role, {@code -1} if the column is not tracked
          */
-        boolean isValid() {
-            return Double.compare(latitude, COORD_UNKNOWN) != 0 && Double.compare(longitude, COORD_UNKNOWN) != 0;
+        private static int roleOf(@NonNull String name) {
+            switch (name) {
+                case "time":
+                    return ROLE_TIME;
+                case "speed_vx":
+                case "speed_vy":
+                case "speed_vz":
+                    return ROLE_SPEED;
+                case "product_gps_available":
+                    return ROLE_GPS_AVAILABLE;
+                case "product_gps_latitude":
+                    return ROLE_DEVICE_LATITUDE;
+                case "product_gps_longitude":
+                    return ROLE_DEVICE_LONGITUDE;
+                case "controller_gps_latitude":
+                    return ROLE_CONTROLLER_LATITUDE;
+                case "controller_gps_longitude":
+                    return ROLE_CONTROLLER_LONGITUDE;
+                case "alert_state":
+                    return ROLE_ALERT_STATE;
+                case "flying_state":
+                    return ROLE_FLYING_STATE;
+            }
+            return -1;
         }
     }
 
     /**
      * A column type descriptor, as parsed from JSON {@link #mHeader}.
      */
-    private static class ColumnDescriptor {
+    private static final class ColumnDescriptor {
 
         /** Column name. */
         @SuppressWarnings("unused")
@@ -607,170 +819,5 @@ final class PudAdapter {
         @SuppressWarnings("unused")
         @SerializedName("size")
         private int mSize;
-
-        /**
-         * Retrieves the column name.
-         *
-         * @return column name.
-         */
-        @Nullable
-        String getName() {
-            return mName;
-        }
-
-        /**
-         * Retrieves the column type.
-         *
-         * @return column type
-         */
-        @Nullable
-        Type getType() {
-            return mType;
-        }
-
-        /**
-         * Retrieves the column size.
-         *
-         * @return column size, in bytes.
-         */
-        int getSize() {
-            return mSize;
-        }
-
-        /**
-         * Reads the next field corresponding to this descriptor.
-         *
-         * @param input input stream to read next field from
-         *
-         * @return a byte array containing field data
-         *
-         * @throws IOException  in case reading failed
-         * @throws EOFException in case the end of stream is reached
-         */
-        @NonNull
-        byte[] readNextField(@NonNull InputStream input) throws IOException {
-            // read column data
-            byte[] data = new byte[mSize];
-            int remaining = data.length;
-            while (remaining > 0) {
-                int read = input.read(data, data.length - remaining, remaining);
-                if (read == -1) {
-                    throw new EOFException("Binary data underflow");
-                }
-                remaining -= read;
-            }
-            return data;
-        }
-
-        /**
-         * Parses data as an integer.
-         *
-         * @param data data to parse
-         *
-         * @return integer representation of the given data
-         *
-         * @throws IOException in case this descriptor type is not {@link Type#INTEGER}
-         */
-        int parseAsInt(@NonNull byte[] data) throws IOException {
-            checkType(Type.INTEGER);
-            return parseInt(data);
-        }
-
-        /**
-         * Parses data as a boolean.
-         *
-         * @param data data to parse
-         *
-         * @return boolean representation of the given data
-         *
-         * @throws IOException in case this descriptor type is not {@link Type#BOOLEAN}
-         */
-        boolean parseAsBoolean(@NonNull byte[] data) throws IOException {
-            checkType(Type.BOOLEAN);
-            return parseBoolean(data);
-        }
-
-        /**
-         * Parses data as a double.
-         *
-         * @param data data to parse
-         *
-         * @return double representation of the given data
-         *
-         * @throws IOException in case this descriptor type is not {@link Type#DOUBLE}
-         */
-        double parseAsDouble(@NonNull byte[] data) throws IOException {
-            checkType(Type.DOUBLE);
-            return parseDouble(data);
-        }
-
-        /**
-         * Parses data as any kind of number.
-         * <p>
-         * This method supports parsing any of {@link Type#INTEGER}, {@link Type#FLOAT} or {@link Type#DOUBLE}.
-         *
-         * @param data data to parse
-         *
-         * @return Number representation of the given data
-         *
-         * @throws IOException in case this descriptor type is not {@link Type#FLOAT}
-         */
-        @NonNull
-        Number parseAsNumber(@NonNull byte[] data) throws IOException {
-            if (mType == Type.INTEGER) {
-                return parseInt(data);
-            } else if (mType == Type.FLOAT) {
-                return parseFloat(data);
-            } else if (mType == Type.DOUBLE) {
-                return parseDouble(data);
-            } else {
-                throw new IOException("Cannot parse field [name: " + mName + ", size:" + mSize + ", type: " + mType
-                                      + "] as number");
-            }
-        }
-
-        /**
-         * Checks this descriptor type against a specific type.
-         *
-         * @param type type to check against
-         *
-         * @throws IOException in case this descriptor is not of the specified type
-         */
-        private void checkType(@NonNull Type type) throws IOException {
-            if (mType != type) {
-                throw new IOException("Cannot parse field [name: " + mName + ", size:" + mSize + ", type: " + mType
-                                      + "] as " + type.name());
-            }
-        }
-
-        /**
-         * Adapts raw data to this descriptor format and appends it to a JSON array.
-         *
-         * @param data  data to adapt
-         * @param array JSON array to add adapted data to
-         *
-         * @throws IOException in case data cannot be adapted to this descriptor format
-         */
-        void appendData(@NonNull byte[] data, @NonNull JsonArray array) throws IOException {
-            if (mType != null) { // otherwise field data is not written (column is ignored)
-                switch (mType) {
-                    case STRING:
-                        array.add(parseString(data));
-                        break;
-                    case INTEGER:
-                        array.add(parseInt(data));
-                        break;
-                    case BOOLEAN:
-                        array.add(parseBoolean(data));
-                        break;
-                    case FLOAT:
-                        array.add(parseFloat(data));
-                        break;
-                    case DOUBLE:
-                        array.add(parseDouble(data));
-                        break;
-                }
-            }
-        }
     }
 }
@@ -316,10 +316,10 @@ public final class AnafiGimbal extends DronePeripheralController {
             Double yaw = maxSpeeds.get(Axis.YAW);
             Double pitch = maxSpeeds.get(Axis.PITCH);
             Double roll = maxSpeeds.get(Axis.ROLL);
-            updating = sendCommand(ArsdkFeatureGimbal.encodeSetMaxSpeed(0,
+            updating = sendSupersedingCommand(ArsdkFeatureGimbal.encodeSetMaxSpeed(0,
                     yaw != null ? (float) yaw.doubleValue() : 0f,
                     pitch != null ? (float) pitch.doubleValue() : 0f,
-                    roll != null ? (float) roll.doubleValue() : 0f));
+                    roll != null ? (float) roll.doubleValue() : 0f), 0);
         }
 
         mMaxSpeeds = maxSpeeds;
@@ -438,6 +438,12 @@ public final class AnafiGimbal extends DronePeripheralController {
         return updating;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureGimbal.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureGimbal.UID) {
@@ -41,47 +41,97 @@ import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureGimbal.FrameOfReference;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
 
-import java.util.EnumMap;
-import java.util.EnumSet;
-
-/** Gimbal control command encoder. */
+/**
+ * Gimbal control command encoder.
+ * <p>
+ * Control state is written by API calls on any thread, and read by {@link #encodeNoAckCmd()} on the pomp loop on each
+ * tick. Writers are serialized by the encoder lock, and publish their state to the pomp loop through a sequence lock:
+ * the pomp loop never blocks, never allocates, and retries reading until it gets a consistent snapshot. State version
+ * is given by the sequence counter, which only advances when the state actually changes.
+ */
 class GimbalControlCommandEncoder implements ArsdkNoAckCmdEncoder {
 
     /** Maximum number of time the command should be sent with the same value. */
     private static final int GIMBAL_COMMANDS_REPETITIONS = 10;
 
-    // region synchronized vars
+    /** Index of yaw axis in target arrays. */
+    private static final int YAW = 0;
+
+    /** Index of pitch axis in target arrays. */
+    private static final int PITCH = 1;
+
+    /** Index of roll axis in target arrays. */
+    private static final int ROLL = 2;
+
+    // region writer vars, guarded by this
 
     /** Desired control mode. */
     @NonNull
     private ArsdkFeatureGimbal.ControlMode mControlMode;
 
-    /** Set of desired stabilized axes. */
+    /** Mask of desired stabilized axes. */
+    private int mStabilizedAxes;
+
+    /** Mask of axes that should be controlled. */
+    private int mTargetAxes;
+
+    /**
+     * Mask of axes for which a target, possibly {@code null}, has been given since last reset. Only used to detect
+     * changes: giving a {@code null} target for the first time on some axis is considered a change.
+     */
+    private int mTargetKeys;
+
+    /** Desired targets, by axis index. Value for an axis is meaningless if the axis is not in {@link #mTargetAxes}. */
     @NonNull
-    private final EnumSet<Gimbal.Axis> mStabilizedAxes;
+    private final double[] mTargets;
+    // endregion writer vars
+
+    // region published vars, written under sequence lock, read by pomp loop
+
+    /**
+     * Sequence counter. Odd while published state is being written, even otherwise. Advances by 2 each time the
+     * published state changes.
+     */
+    private volatile int mSequence;
 
-    /** Desired targets. Value for an axis is null if this axis should not be controlled. */
+    /** Published control mode. */
     @NonNull
-    private final EnumMap<Gimbal.Axis, Double> mTargets;
-    // endregion synchronized vars
+    private volatile ArsdkFeatureGimbal.ControlMode mPublishedControlMode;
+
+    /** Published mask of stabilized axes. */
+    private volatile int mPublishedStabilizedAxes;
+
+    /** Published mask of controlled axes. */
+    private volatile int mPublishedTargetAxes;
+
+    /** Published yaw target. */
+    private volatile double mPublishedYaw;
+
+    /** Published pitch target. */
+    private volatile double mPublishedPitch;
+
+    /** Published roll target. */
+    private volatile double mPublishedRoll;
+    // endregion published vars
 
     // region pomp loop access only vars
 
+    /** Sequence of the latest snapshot. */
+    private int mLatestSequence;
+
     /** Latest control mode. */
     @NonNull
     private ArsdkFeatureGimbal.ControlMode mLatestControlMode;
 
-    /** Latest stabilized axes. */
-    @NonNull
-    private EnumSet<Gimbal.Axis> mLatestStabilizedAxes;
+    /** Latest mask of stabilized axes. */
+    private int mLatestStabilizedAxes;
 
-    /** Latest target. */
-    @NonNull
-    private EnumMap<Gimbal.Axis, Double> mLatestTargets;
+    /** Latest mask of controlled axes. */
+    private int mLatestTargetAxes;
 
-    /** Frames of reference. */
+    /** Latest targets, by axis index. */
     @NonNull
-    private final EnumMap<Gimbal.Axis, FrameOfReference> mFramesOfReference;
+    private final double[] mLatestTargets;
 
     /** Remaining command repetition count. */
     private int mRepetitions;
@@ -91,84 +141,89 @@ class GimbalControlCommandEncoder implements ArsdkNoAckCmdEncoder {
      * Constructor.
      */
     GimbalControlCommandEncoder() {
-        mControlMode = mLatestControlMode = ArsdkFeatureGimbal.ControlMode.POSITION;
-        mStabilizedAxes = EnumSet.noneOf(Gimbal.Axis.class);
-        mTargets = new EnumMap<>(Gimbal.Axis.class);
-        mLatestTargets = new EnumMap<>(Gimbal.Axis.class);
-        mLatestStabilizedAxes = EnumSet.noneOf(Gimbal.Axis.class);
-        mFramesOfReference = new EnumMap<>(Gimbal.Axis.class);
+        mControlMode = mPublishedControlMode = mLatestControlMode = ArsdkFeatureGimbal.ControlMode.POSITION;
+        mTargets = new double[3];
+        mLatestTargets = new double[3];
     }
 
     @Nullable
     @Override
     public ArsdkCommand encodeNoAckCmd() {
-        ArsdkFeatureGimbal.ControlMode controlMode;
-        EnumSet<Gimbal.Axis> stabilizedAxes;
-        EnumMap<Gimbal.Axis, Double> targets;
-        synchronized (this) {
-            controlMode = mControlMode;
-            stabilizedAxes = mStabilizedAxes;
-            targets = mTargets;
-        }
-
-        // if control, target or stabilization has changed
-        if (mLatestControlMode != controlMode || !mLatestStabilizedAxes.equals(stabilizedAxes)
-            || !mLatestTargets.equals(targets)) {
-            mLatestControlMode = controlMode;
-            mLatestStabilizedAxes = stabilizedAxes.clone();
-            mLatestTargets = targets.clone();
+        int sequence = mSequence;
+        if (sequence != mLatestSequence) {
+            readSnapshot();
             mRepetitions = GIMBAL_COMMANDS_REPETITIONS;
         }
 
         // only decrement the counter if the control is in position,
         // or if the control is in velocity and all velocity targets are null or zero
         if (mRepetitions >= 0 &&
-            (controlMode == ArsdkFeatureGimbal.ControlMode.POSITION || containsOnlyZeros(targets))) {
+            (mLatestControlMode == ArsdkFeatureGimbal.ControlMode.POSITION || containsOnlyZeros())) {
             mRepetitions--;
         }
 
         if (mRepetitions >= 0) {
-            for (Gimbal.Axis axis : EnumSet.allOf(Gimbal.Axis.class)) {
-                if (targets.get(axis) != null) {
-                    mFramesOfReference.put(axis, stabilizedAxes.contains(axis) ? FrameOfReference.ABSOLUTE :
-                            FrameOfReference.RELATIVE);
-                } else {
-                    mFramesOfReference.put(axis, FrameOfReference.NONE);
-                }
-            }
-
-            Double yaw = targets.get(Gimbal.Axis.YAW);
-            Double pitch = targets.get(Gimbal.Axis.PITCH);
-            Double roll = targets.get(Gimbal.Axis.ROLL);
-            //noinspection ConstantConditions: mFramesOfReference always as a value for all axes
             return ArsdkFeatureGimbal.encodeSetTarget(0,
-                    controlMode,
-                    mFramesOfReference.get(Gimbal.Axis.YAW),
-                    yaw != null ? (float) yaw.doubleValue() : 0f,
-                    mFramesOfReference.get(Gimbal.Axis.PITCH),
-                    pitch != null ? (float) pitch.doubleValue() : 0f,
-                    mFramesOfReference.get(Gimbal.Axis.ROLL),
-                    roll != null ? (float) roll.doubleValue() : 0f);
+                    mLatestControlMode,
+                    frameOfReference(YAW), (float) mLatestTargets[YAW],
+                    frameOfReference(PITCH), (float) mLatestTargets[PITCH],
+                    frameOfReference(ROLL), (float) mLatestTargets[ROLL]);
         }
         return null;
     }
 
     /**
-     * Tells if the given map has only null or zero values.
+     * Reads a consistent snapshot of published state into latest state.
+     * <p>
+     * Called on pomp loop only.
+     */
+    private void readSnapshot() {
+        int sequence;
+        do {
+            sequence = mSequence;
+            while ((sequence & 1) != 0) {
+                // a writer is publishing, wait for it to complete
+                Thread.yield();
+                sequence = mSequence;
+            }
+            mLatestControlMode = mPublishedControlMode;
+            mLatestStabilizedAxes = mPublishedStabilizedAxes;
+            mLatestTargetAxes = mPublishedTargetAxes;
+            mLatestTargets[YAW] = mPublishedYaw;
+            mLatestTargets[PITCH] = mPublishedPitch;
+            mLatestTargets[ROLL] = mPublishedRoll;
+        } while (sequence != mSequence);
+        mLatestSequence = sequence;
+    }
+
+    /**
+     * Gives the frame of reference to use for the given axis, according to latest state.
      *
-     * @param map the map to check
+     * @param axis axis index
+     *
+     * @return frame of reference for the given axis
+     */
+    @NonNull
+    private FrameOfReference frameOfReference(int axis) {
+        int bit = 1 << axis;
+        if ((mLatestTargetAxes & bit) == 0) {
+            return FrameOfReference.NONE;
+        }
+        return (mLatestStabilizedAxes & bit) != 0 ? FrameOfReference.ABSOLUTE : FrameOfReference.RELATIVE;
+    }
+
+    /**
+     * Tells if latest targets are all either not controlled or zero.
      *
-     * @return {@code true} if the map contains only null or zeros, otherwise {@code false}
+     * @return {@code true} if latest targets are only absent or zeros, otherwise {@code false}
      */
-    private static boolean containsOnlyZeros(@NonNull EnumMap<Gimbal.Axis, Double> map) {
-        boolean onlyZeros = true;
-        for (Double target : map.values()) {
-            if (target != null && target != 0.0) {
-                onlyZeros = false;
-                break;
+    private boolean containsOnlyZeros() {
+        for (int axis = YAW; axis <= ROLL; axis++) {
+            if ((mLatestTargetAxes & (1 << axis)) != 0 && mLatestTargets[axis] != 0.0) {
+                return false;
             }
         }
-        return onlyZeros;
+        return true;
     }
 
     /**
@@ -181,17 +236,19 @@ class GimbalControlCommandEncoder implements ArsdkNoAckCmdEncoder {
      */
     synchronized void control(@NonNull Gimbal.ControlMode mode, @Nullable Double yaw, @Nullable Double pitch,
                               @Nullable Double roll) {
-        switch (mode) {
-            case POSITION:
-                mControlMode = ArsdkFeatureGimbal.ControlMode.POSITION;
-                break;
-            case VELOCITY:
-                mControlMode = ArsdkFeatureGimbal.ControlMode.VELOCITY;
-                break;
+        boolean changed = false;
+        ArsdkFeatureGimbal.ControlMode controlMode = mode == Gimbal.ControlMode.VELOCITY ?
+                ArsdkFeatureGimbal.ControlMode.VELOCITY : ArsdkFeatureGimbal.ControlMode.POSITION;
+        if (mControlMode != controlMode) {
+            mControlMode = controlMode;
+            changed = true;
+        }
+        changed |= setTarget(YAW, yaw);
+        changed |= setTarget(PITCH, pitch);
+        changed |= setTarget(ROLL, roll);
+        if (changed) {
+            publish();
         }
-        mTargets.put(Gimbal.Axis.YAW, yaw);
-        mTargets.put(Gimbal.Axis.PITCH, pitch);
-        mTargets.put(Gimbal.Axis.ROLL, roll);
     }
 
     /**
@@ -203,17 +260,21 @@ class GimbalControlCommandEncoder implements ArsdkNoAckCmdEncoder {
      *                       only be sent when a target for this axis is set
      */
     synchronized void setStabilization(@NonNull Gimbal.Axis axis, boolean stabilized, @Nullable Double targetAttitude) {
-        if (stabilized) {
-            mStabilizedAxes.add(axis);
-        } else {
-            mStabilizedAxes.remove(axis);
-        }
+        int index = indexOf(axis);
+        int bit = 1 << index;
+        int stabilizedAxes = stabilized ? mStabilizedAxes | bit : mStabilizedAxes & ~bit;
+        boolean changed = stabilizedAxes != mStabilizedAxes;
+        mStabilizedAxes = stabilizedAxes;
 
         if (mControlMode == ArsdkFeatureGimbal.ControlMode.POSITION) {
-            mTargets.put(axis, targetAttitude);
-        } else if (mTargets.get(axis) == null) {
+            changed |= setTarget(index, targetAttitude);
+        } else if ((mTargetAxes & bit) == 0) {
             // In velocity mode, target should not be null to change stabilization
-            mTargets.put(axis, 0.0);
+            changed |= setTarget(index, 0.0);
+        }
+
+        if (changed) {
+            publish();
         }
     }
 
@@ -223,13 +284,87 @@ class GimbalControlCommandEncoder implements ArsdkNoAckCmdEncoder {
      * The encoder should not be registered to be executed in the pomp loop when this method is called.
      */
     void reset() {
-        // we allow to modify these vars outside of the pomp loop without synchronizing them because the encoder
-        // is not registered to be executed in the pomp loop.
-        mControlMode = mLatestControlMode = ArsdkFeatureGimbal.ControlMode.POSITION;
-        mTargets.clear();
-        mLatestTargets.clear();
-        mStabilizedAxes.clear();
-        mLatestStabilizedAxes.clear();
+        synchronized (this) {
+            mControlMode = ArsdkFeatureGimbal.ControlMode.POSITION;
+            mStabilizedAxes = mTargetAxes = mTargetKeys = 0;
+            mTargets[YAW] = mTargets[PITCH] = mTargets[ROLL] = 0;
+            publish();
+        }
+        // we allow to modify these vars outside of the pomp loop because the encoder is not registered to be executed
+        // in the pomp loop.
+        readSnapshot();
         mRepetitions = 0;
     }
+
+    /**
+     * Sets the target of an axis.
+     * <p>
+     * Must be called with the encoder lock held.
+     *
+     * @param axis   axis index
+     * @param target axis target, {@code null} if the axis should not be controlled
+     *
+     * @return {@code true} if the target changed, otherwise {@code false}
+     */
+    private boolean setTarget(int axis, @Nullable Double target) {
+        int bit = 1 << axis;
+        if (target == null) {
+            if ((mTargetAxes & bit) == 0) {
+                if ((mTargetKeys & bit) != 0) {
+                    return false;
+                }
+                mTargetKeys |= bit;
+                return true;
+            }
+            mTargetAxes &= ~bit;
+            mTargets[axis] = 0;
+        } else {
+            double value = target;
+            // compare as Double.equals would, so that NaN and signed zeros are handled as before
+            if ((mTargetAxes & bit) != 0
+                && Double.doubleToLongBits(mTargets[axis]) == Double.doubleToLongBits(value)) {
+                return false;
+            }
+            mTargetAxes |= bit;
+            mTargetKeys |= bit;
+            mTargets[axis] = value;
+        }
+        return true;
+    }
+
+    /**
+     * Publishes writer state to the pomp loop.
+     * <p>
+     * Must be called with the encoder lock held.
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField") // writers are serialized by the encoder lock
+    private void publish() {
+        mSequence++;
+        mPublishedControlMode = mControlMode;
+        mPublishedStabilizedAxes = mStabilizedAxes;
+        mPublishedTargetAxes = mTargetAxes;
+        mPublishedYaw = mTargets[YAW];
+        mPublishedPitch = mTargets[PITCH];
+        mPublishedRoll = mTargets[ROLL];
+        mSequence++;
+    }
+
+    /**
+     * Gives the index of an axis in target arrays.
+     *
+     * @param axis axis
+     *
+     * @return axis index
+     */
+    private static int indexOf(@NonNull Gimbal.Axis axis) {
+        switch (axis) {
+            case YAW:
+                return YAW;
+            case PITCH:
+                return PITCH;
+            case ROLL:
+                return ROLL;
+        }
+        throw new IllegalArgumentException("Unsupported axis: " + axis);
+    }
 }
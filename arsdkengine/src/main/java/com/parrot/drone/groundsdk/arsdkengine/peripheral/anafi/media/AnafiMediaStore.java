@@ -44,6 +44,7 @@ import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaIndexingState;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItem;
 import com.parrot.drone.groundsdk.arsdkengine.peripheral.DronePeripheralController;
 import com.parrot.drone.groundsdk.device.peripheral.MediaStore;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaItemCore;
 import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaRequest;
 import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaResourceCore;
@@ -54,6 +55,7 @@ import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
 import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_MEDIA;
@@ -69,9 +71,12 @@ public final class AnafiMediaStore extends DronePeripheralController {
     @Nullable
     private HttpMediaClient mMediaClient;
 
-    /** Caches last media list browse result, when content changes are being watched; {@code null} otherwise. */
-    @Nullable
-    private List<MediaItemImpl> mCachedMediaList;
+    /**
+     * Indexed media model, populated from last media list browse result and kept up-to-date from media notifications
+     * when content changes are being watched; out of sync otherwise.
+     */
+    @NonNull
+    private final MediaModel mMediaModel;
 
     /**
      * Constructor.
@@ -80,7 +85,8 @@ public final class AnafiMediaStore extends DronePeripheralController {
      */
     public AnafiMediaStore(@NonNull DroneController droneController) {
         super(droneController);
-        mMediaStore = new MediaStoreCore(mComponentStore, mBackend);
+        mMediaStore = new MediaStoreCore(mComponentStore, droneController.getUid(), mBackend);
+        mMediaModel = new MediaModel();
     }
 
     @Override
@@ -90,6 +96,12 @@ public final class AnafiMediaStore extends DronePeripheralController {
         mMediaStore.publish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureMediastore.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -101,7 +113,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
     @Override
     protected void onDisconnecting() {
         mMediaStore.unpublish();
-        mCachedMediaList = null;
+        mMediaModel.invalidate();
         if (mMediaClient != null) {
             mMediaClient.dispose();
         }
@@ -118,7 +130,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
                     }
 
                     if (state == ArsdkFeatureMediastore.State.NOT_AVAILABLE) {
-                        clearCachedMediaList();
+                        invalidateMediaModel();
                         mMediaStore.updatePhotoMediaCount(0)
                                    .updateVideoMediaCount(0)
                                    .updatePhotoResourceCount(0)
@@ -155,7 +167,14 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Media added: " + media.getId());
             }
-            clearCachedMediaList();
+            if (!mMediaModel.isSynced()) {
+                mMediaStore.notifyObservers();
+            } else {
+                MediaItemImpl added = mMediaModel.addMedia(media);
+                if (added != null) {
+                    mMediaStore.notifyObservers(Collections.singletonList(added), Collections.emptyList());
+                }
+            }
         }
 
         @Override
@@ -163,7 +182,12 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Media removed: " + mediaId);
             }
-            clearCachedMediaList();
+            mMediaStore.evictThumbnails(mediaId);
+            if (!mMediaModel.isSynced()) {
+                mMediaStore.notifyObservers();
+            } else if (mMediaModel.removeMedia(mediaId)) {
+                mMediaStore.notifyObservers(Collections.emptyList(), Collections.singletonList(mediaId));
+            }
         }
 
         @Override
@@ -171,7 +195,11 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "All media removed");
             }
-            clearCachedMediaList();
+            mMediaStore.evictAllThumbnails();
+            if (mMediaModel.isSynced()) {
+                mMediaModel.reset(Collections.emptyList());
+            }
+            mMediaStore.notifyObservers();
         }
 
         @Override
@@ -179,7 +207,19 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Resource added: " + resource.getId());
             }
-            clearCachedMediaList();
+            if (!mMediaModel.isSynced()) {
+                mMediaStore.notifyObservers();
+            } else {
+                MediaItemImpl updated = mMediaModel.addResource(resource);
+                if (updated != null) {
+                    mMediaStore.notifyObservers(Collections.singletonList(updated), Collections.emptyList());
+                } else if (resource.isValid()) {
+                    // resource of an unknown media: some notification was missed, browse everything again
+                    ULog.w(TAG_MEDIA, "Resource " + resource.getId() + " added to unknown media "
+                                      + resource.getMediaId() + ", refreshing media list");
+                    invalidateMediaModel();
+                }
+            }
         }
 
         @Override
@@ -187,7 +227,14 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Resource removed: " + resourceId);
             }
-            clearCachedMediaList();
+            if (!mMediaModel.isSynced()) {
+                mMediaStore.notifyObservers();
+            } else {
+                MediaItemImpl updated = mMediaModel.removeResource(resourceId);
+                if (updated != null) {
+                    mMediaStore.notifyObservers(Collections.singletonList(updated), Collections.emptyList());
+                }
+            }
         }
 
         @Override
@@ -196,16 +243,16 @@ public final class AnafiMediaStore extends DronePeripheralController {
                 ULog.d(TAG_MEDIA, "Indexing state changed: " + state);
             }
             if (state == HttpMediaIndexingState.INDEXED) {
-                clearCachedMediaList();
+                invalidateMediaModel();
             }
         }
     };
 
     /**
-     * Clears cached media list and notifies store content change.
+     * Invalidates the media model and notifies store content change, so that the media list is browsed again.
      */
-    private void clearCachedMediaList() {
-        mCachedMediaList = null;
+    private void invalidateMediaModel() {
+        mMediaModel.invalidate();
         mMediaStore.notifyObservers();
     }
 
@@ -229,7 +276,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (mMediaClient != null) {
                 mMediaClient.setListener(null);
                 mWatching = false;
-                mCachedMediaList = null;
+                mMediaModel.invalidate();
             }
         }
 
@@ -238,8 +285,8 @@ public final class AnafiMediaStore extends DronePeripheralController {
         public MediaRequest browse(@Nullable MediaStore.StorageType storageType,
                                    @NonNull MediaRequest.ResultCallback<List<? extends MediaItemCore>> callback) {
             MediaRequest request = null;
-            if (mCachedMediaList != null) {
-                callback.onRequestComplete(MediaRequest.Status.SUCCESS, mCachedMediaList);
+            if (mMediaModel.isSynced()) {
+                callback.onRequestComplete(MediaRequest.Status.SUCCESS, mMediaModel.getMedias());
             } else if (mMediaClient == null) {
                 callback.onRequestComplete(MediaRequest.Status.FAILED, null);
             } else {
@@ -249,7 +296,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
                             assert result != null;
                             List<MediaItemImpl> list = MediaItemImpl.from(result);
                             if (mWatching) {
-                                mCachedMediaList = list;
+                                mMediaModel.reset(list);
                             }
                             callback.onRequestComplete(MediaRequest.Status.SUCCESS, list);
                             break;
@@ -277,8 +324,14 @@ public final class AnafiMediaStore extends DronePeripheralController {
 
             File dest = new File(destDir, resource.getUid());
             return mMediaClient.download(MediaResourceImpl.unwrap(resource).getDownloadUrl(), dest,
+                    resource.getSize(), GroundSdkConfig.get().getMediaDownloadConnections(),
                     new HttpRequest.ProgressStatusCallback() {
 
+                        @Override
+                        public void onRequestTransfer(long byteCount) {
+                            callback.onRequestTransfer(byteCount);
+                        }
+
                         @Override
                         public void onRequestProgress(int progress) {
                             callback.onRequestProgress(progress);
@@ -336,6 +389,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             return mMediaClient.deleteMedia(media.getUid(), (status, code) -> {
                 switch (status) {
                     case SUCCESS:
+                        mMediaStore.evictThumbnails(media.getUid());
                         callback.onRequestComplete(MediaRequest.Status.SUCCESS);
                         break;
                     case FAILED:
@@ -382,6 +436,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             return mMediaClient.deleteAll((status, code) -> {
                 switch (status) {
                     case SUCCESS:
+                        mMediaStore.evictAllThumbnails();
                         callback.onRequestComplete(MediaRequest.Status.SUCCESS);
                         break;
                     case FAILED:
@@ -72,6 +72,18 @@ final class MediaItemImpl implements MediaItemCore {
                          .collect(Collectors.toList());
     }
 
+    /**
+     * Builds a {@code MediaItemImpl} instance from an {@code HttpMediaItem}.
+     *
+     * @param httpMedia http media item to convert
+     *
+     * @return a corresponding {@code MediaItemImpl} instance, or {@code null} if the HTTP item does not pass validation
+     */
+    @Nullable
+    static MediaItemImpl from(@NonNull HttpMediaItem httpMedia) {
+        return httpMedia.isValid() ? new MediaItemImpl(httpMedia) : null;
+    }
+
     /**
      * Unwraps a media item to its internal {@code MediaItemImpl} representation.
      * <p>
@@ -186,6 +198,53 @@ final class MediaItemImpl implements MediaItemCore {
         return Collections.unmodifiableList(mResources);
     }
 
+    /**
+     * Creates a copy of this media with the given resource added, or replaced if a resource with the same identifier
+     * already exists.
+     *
+     * @param resource resource to add
+     *
+     * @return a new {@code MediaItemImpl} instance, or {@code null} if the resource does not pass validation
+     */
+    @Nullable
+    MediaItemImpl withResource(@NonNull HttpMediaItem.Resource resource) {
+        if (!resource.isValid()) {
+            return null;
+        }
+        List<HttpMediaItem.Resource> resources = new ArrayList<>();
+        boolean replaced = false;
+        for (HttpMediaItem.Resource it : mHttpMedia) {
+            if (it.getId() != null && it.getId().equals(resource.getId())) {
+                resources.add(resource);
+                replaced = true;
+            } else {
+                resources.add(it);
+            }
+        }
+        if (!replaced) {
+            resources.add(resource);
+        }
+        return new MediaItemImpl(mHttpMedia.withResources(resources));
+    }
+
+    /**
+     * Creates a copy of this media with the given resource removed.
+     *
+     * @param resourceId identifier of the resource to remove
+     *
+     * @return a new {@code MediaItemImpl} instance
+     */
+    @NonNull
+    MediaItemImpl withoutResource(@NonNull String resourceId) {
+        List<HttpMediaItem.Resource> resources = new ArrayList<>();
+        for (HttpMediaItem.Resource it : mHttpMedia) {
+            if (!resourceId.equals(it.getId())) {
+                resources.add(it);
+            }
+        }
+        return new MediaItemImpl(mHttpMedia.withResources(resources));
+    }
+
     /**
      * Retrieves the URL to use to fetch the thumbnail for this media.
      *
@@ -0,0 +1,240 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexed in-memory model of the drone media store content.
+ * <p>
+ * The model is populated from a full media list browse, then kept up-to-date by applying media and resource
+ * added/removed notifications, so that the whole list does not need to be fetched again upon each change.
+ * <p>
+ * Medias are indexed by identifier and retain the order in which they were first received; resources are indexed by
+ * identifier to their owning media.
+ */
+final class MediaModel {
+
+    /** Medias, by media identifier. */
+    @NonNull
+    private final Map<String, MediaItemImpl> mMedias;
+
+    /** Resources, by resource identifier. */
+    @NonNull
+    private final Map<String, MediaResourceImpl> mResources;
+
+    /** Immutable snapshot of current media list; {@code null} when the model changed since the last snapshot. */
+    @Nullable
+    private List<MediaItemImpl> mSnapshot;
+
+    /** {@code true} when the model is in sync with the drone content, {@code false} until populated by a browse. */
+    private boolean mSynced;
+
+    /**
+     * Constructor.
+     */
+    MediaModel() {
+        mMedias = new LinkedHashMap<>();
+        mResources = new HashMap<>();
+    }
+
+    /**
+     * Tells whether the model is in sync with the drone content.
+     * <p>
+     * Notifications cannot be applied to a model which is not in sync; a full browse is required instead.
+     *
+     * @return {@code true} if the model is in sync, otherwise {@code false}
+     */
+    boolean isSynced() {
+        return mSynced;
+    }
+
+    /**
+     * Populates the model from a full media list.
+     * <p>
+     * The model is in sync after this call.
+     *
+     * @param medias complete media list
+     */
+    void reset(@NonNull Collection<MediaItemImpl> medias) {
+        clear();
+        for (MediaItemImpl media : medias) {
+            index(media);
+        }
+        mSynced = true;
+    }
+
+    /**
+     * Clears the model.
+     * <p>
+     * The model is out of sync after this call, until {@link #reset repopulated}.
+     */
+    void invalidate() {
+        clear();
+        mSynced = false;
+    }
+
+    /**
+     * Retrieves current media list.
+     *
+     * @return an immutable snapshot of all medias in the model
+     */
+    @NonNull
+    List<MediaItemImpl> getMedias() {
+        if (mSnapshot == null) {
+            mSnapshot = Collections.unmodifiableList(new ArrayList<>(mMedias.values()));
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Adds a media to the model, or replaces the media with the same identifier.
+     *
+     * @param httpMedia media to add
+     *
+     * @return the added media, or {@code null} if the media does not pass validation and was not added
+     */
+    @Nullable
+    MediaItemImpl addMedia(@NonNull HttpMediaItem httpMedia) {
+        MediaItemImpl media = MediaItemImpl.from(httpMedia);
+        if (media != null) {
+            unindex(mMedias.get(media.getUid()));
+            index(media);
+        }
+        return media;
+    }
+
+    /**
+     * Removes a media from the model.
+     *
+     * @param mediaId identifier of the media to remove
+     *
+     * @return {@code true} if the media was removed, {@code false} if it was unknown
+     */
+    boolean removeMedia(@NonNull String mediaId) {
+        MediaItemImpl media = mMedias.remove(mediaId);
+        if (media != null) {
+            unindex(media);
+            mSnapshot = null;
+        }
+        return media != null;
+    }
+
+    /**
+     * Adds a resource to its owning media, or replaces the resource with the same identifier.
+     *
+     * @param resource resource to add
+     *
+     * @return the updated owning media, or {@code null} if the owning media is unknown or if the resource does not pass
+     *         validation
+     */
+    @Nullable
+    MediaItemImpl addResource(@NonNull HttpMediaItem.Resource resource) {
+        String mediaId = resource.getMediaId();
+        MediaItemImpl media = mediaId == null ? null : mMedias.get(mediaId);
+        MediaItemImpl updated = media == null ? null : media.withResource(resource);
+        if (updated != null) {
+            unindex(media);
+            index(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Removes a resource from its owning media.
+     *
+     * @param resourceId identifier of the resource to remove
+     *
+     * @return the updated owning media, or {@code null} if the resource is unknown
+     */
+    @Nullable
+    MediaItemImpl removeResource(@NonNull String resourceId) {
+        MediaResourceImpl resource = mResources.get(resourceId);
+        MediaItemImpl updated = null;
+        if (resource != null) {
+            MediaItemImpl media = resource.getMedia();
+            updated = media.withoutResource(resourceId);
+            unindex(media);
+            index(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Clears all medias and resources.
+     */
+    private void clear() {
+        mMedias.clear();
+        mResources.clear();
+        mSnapshot = null;
+    }
+
+    /**
+     * Indexes a media and its resources.
+     * <p>
+     * A media with the same identifier is replaced in place, retaining its position in the media list.
+     *
+     * @param media media to index
+     */
+    private void index(@NonNull MediaItemImpl media) {
+        mMedias.put(media.getUid(), media);
+        for (MediaResourceImpl resource : media.getResources()) {
+            mResources.put(resource.getUid(), resource);
+        }
+        mSnapshot = null;
+    }
+
+    /**
+     * Unindexes the resources of a media.
+     *
+     * @param media media whose resources must be unindexed, may be {@code null}
+     */
+    private void unindex(@Nullable MediaItemImpl media) {
+        if (media != null) {
+            for (MediaResourceImpl resource : media.getResources()) {
+                mResources.remove(resource.getUid());
+            }
+        }
+    }
+}
@@ -155,6 +155,12 @@ public class AnafiThermalControl extends DronePeripheralController {
         }
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureThermal.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureThermal.UID) {
@@ -175,6 +175,12 @@ public class AnafiWifiAccessPoint extends DronePeripheralController {
         }
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureWifi.UID, ArsdkFeatureCommon.SettingsState.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
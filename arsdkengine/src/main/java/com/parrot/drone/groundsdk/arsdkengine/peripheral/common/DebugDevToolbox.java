@@ -41,9 +41,11 @@ import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DroneController;
 import com.parrot.drone.groundsdk.arsdkengine.peripheral.DronePeripheralController;
 import com.parrot.drone.groundsdk.device.peripheral.DevToolbox;
 import com.parrot.drone.groundsdk.internal.device.peripheral.DevToolboxCore;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureDebug;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureGeneric;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.util.ArrayList;
@@ -54,6 +56,18 @@ import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG;
 /** DevToolbox peripheral controller for Debug feature supporting drones. */
 public class DebugDevToolbox extends DronePeripheralController {
 
+    /** Name of the local, read-only setting giving command metrics. */
+    static final String COMMAND_METRICS_SETTING_NAME = "sdk.command_metrics";
+
+    /** Uid of the command metrics setting; device settings uids are positive. */
+    private static final int COMMAND_METRICS_SETTING_UID = -1;
+
+    /** Count of most received commands listed in the command metrics setting. */
+    private static final int COMMAND_METRICS_TOP_COUNT = 5;
+
+    /** Command metrics setting refresh period, in milliseconds. */
+    static final long COMMAND_METRICS_REFRESH_PERIOD = 1000;
+
     /** The DevToolbox peripheral for which this object is the backend. */
     @NonNull
     private final DevToolboxCore mDevToolbox;
@@ -62,6 +76,10 @@ public class DebugDevToolbox extends DronePeripheralController {
     @NonNull
     private final SparseArray<DevToolboxCore.DebugSettingCore> mSettings;
 
+    /** Local setting giving command metrics, listed after device settings. */
+    @NonNull
+    private final DevToolboxCore.TextDebugSettingCore mCommandMetricsSetting;
+
     /**
      * Constructor.
      *
@@ -71,6 +89,8 @@ public class DebugDevToolbox extends DronePeripheralController {
         super(droneController);
         mDevToolbox = new DevToolboxCore(mComponentStore, mBackend);
         mSettings = new SparseArray<>();
+        mCommandMetricsSetting = mDevToolbox.createDebugSetting(COMMAND_METRICS_SETTING_UID,
+                COMMAND_METRICS_SETTING_NAME, true, "");
     }
 
     @Override
@@ -82,9 +102,16 @@ public class DebugDevToolbox extends DronePeripheralController {
 
     @Override
     protected final void onDisconnected() {
+        Executor.unschedule(mCommandMetricsRefresh);
         mDevToolbox.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureDebug.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -154,6 +181,7 @@ public class DebugDevToolbox extends DronePeripheralController {
                                    String rangeStep, String value) {
             if (ArsdkFeatureGeneric.ListFlags.EMPTY.inBitField(listFlags)) {
                 mSettings.clear();
+                Executor.unschedule(mCommandMetricsRefresh);
                 mDevToolbox.unpublish();
             } else {
                 if (ArsdkFeatureGeneric.ListFlags.FIRST.inBitField(listFlags)) {
@@ -172,12 +200,18 @@ public class DebugDevToolbox extends DronePeripheralController {
                 }
 
                 if (ArsdkFeatureGeneric.ListFlags.LAST.inBitField(listFlags) && mSettings.size() > 0) {
-                    List<DevToolbox.DebugSetting> settingsArray = new ArrayList<>(mSettings.size());
+                    List<DevToolbox.DebugSetting> settingsArray = new ArrayList<>(mSettings.size() + 1);
                     for (int i = 0; i < mSettings.size(); i++) {
                         settingsArray.add(mSettings.valueAt(i));
                     }
-                    mDevToolbox.updateDebugSettings(settingsArray).notifyUpdated();
+                    settingsArray.add(mCommandMetricsSetting);
+                    mDevToolbox.updateDebugSettings(settingsArray)
+                               .updateDebugSettingValue(mCommandMetricsSetting,
+                                       ArsdkCommandMetrics.get().summary(COMMAND_METRICS_TOP_COUNT))
+                               .notifyUpdated();
                     mDevToolbox.publish();
+                    Executor.unschedule(mCommandMetricsRefresh);
+                    Executor.schedule(mCommandMetricsRefresh, COMMAND_METRICS_REFRESH_PERIOD);
                 }
             }
         }
@@ -212,6 +246,17 @@ public class DebugDevToolbox extends DronePeripheralController {
         }
     };
 
+    /** Refreshes the command metrics setting value, then schedules itself for next refresh. */
+    private final Runnable mCommandMetricsRefresh = new Runnable() {
+
+        @Override
+        public void run() {
+            mDevToolbox.updateDebugSettingValue(mCommandMetricsSetting,
+                    ArsdkCommandMetrics.get().summary(COMMAND_METRICS_TOP_COUNT)).notifyUpdated();
+            Executor.schedule(this, COMMAND_METRICS_REFRESH_PERIOD);
+        }
+    };
+
     /** Backend of DroneFinderCore implementation. */
     @SuppressWarnings("FieldCanBeLocal")
     private final DevToolboxCore.Backend mBackend = setting -> {
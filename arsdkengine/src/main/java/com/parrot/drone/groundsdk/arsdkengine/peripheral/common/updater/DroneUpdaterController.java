@@ -62,6 +62,12 @@ final class DroneUpdaterController extends UpdaterController {
         super(deviceController, firmwareStore, firmwareDownloader, updater);
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureCommon.CommonState.UID, ArsdkFeatureArdrone3.PilotingState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         super.onCommandReceived(command);
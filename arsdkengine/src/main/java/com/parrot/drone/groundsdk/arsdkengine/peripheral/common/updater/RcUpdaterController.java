@@ -60,6 +60,12 @@ final class RcUpdaterController extends UpdaterController {
         super(deviceController, firmwareStore, firmwareDownloader, updater);
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.SkyControllerState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         super.onCommandReceived(command);
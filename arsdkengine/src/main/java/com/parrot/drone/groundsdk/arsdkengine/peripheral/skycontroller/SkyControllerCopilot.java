@@ -119,6 +119,12 @@ public class SkyControllerCopilot extends RCPeripheralController {
         mCopilot.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.CoPilotingState.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         switch (command.getFeatureId()) {
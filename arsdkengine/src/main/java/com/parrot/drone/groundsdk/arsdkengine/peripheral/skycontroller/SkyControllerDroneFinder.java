@@ -81,6 +81,12 @@ public class SkyControllerDroneFinder extends PeripheralController<ProxyDeviceCo
         mDroneFinder.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureDroneManager.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -72,6 +72,12 @@ public class SkyControllerMagnetometer extends RCPeripheralController {
         mMagnetometer.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.CalibrationState.UID};
+    }
+
     @Override
     public void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureSkyctrl.CalibrationState.UID) {
@@ -51,6 +51,12 @@ public class SkyControllerSystemInfo extends SystemInfoControllerBase {
         super(rcController);
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureSkyctrl.SettingsState.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
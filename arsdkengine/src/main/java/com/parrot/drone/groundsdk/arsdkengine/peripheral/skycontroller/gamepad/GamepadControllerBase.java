@@ -263,6 +263,12 @@ abstract class GamepadControllerBase extends RCPeripheralController {
         mGrabRequestFromVirtualGamepad = mVirtualGamepadGrabbed = mVirtualGamepadPreempted = false;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureMapper.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
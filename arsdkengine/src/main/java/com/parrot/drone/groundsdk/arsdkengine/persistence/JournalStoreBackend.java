@@ -0,0 +1,661 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_STORAGE;
+
+/**
+ * A store backend that persists each root dictionary in its own journal file.
+ * <p>
+ * A journal file is made of a header, followed by an append-only log of records, each record either setting or
+ * removing one root entry of the dictionary:
+ * <pre>
+ * header: int magic, UTF root key
+ * record: byte {@link #RECORD_PUT}, UTF entry key, int value length, value bytes (UTF-8 JSON)
+ *       | byte {@link #RECORD_REMOVE}, UTF entry key
+ * </pre>
+ * Updates are applied immediately to an in-memory copy of the store content, then coalesced and written on a
+ * dedicated background thread after a short {@link #COMMIT_WINDOW window}, so that a burst of commits (such as when
+ * receiving all settings from a device upon connection) results in a single write of the changed entries only.
+ * <p>
+ * When the log of a journal grows over {@link #COMPACTION_THRESHOLD} records, the journal is compacted in the
+ * background by rewriting it with one record per current entry.
+ */
+final class JournalStoreBackend implements StoreBackend {
+
+    /** Journal directory name, in application files directory. */
+    static final String DIRECTORY_NAME = "arsdkenginestore";
+
+    /** Window during which commits are coalesced before being written, in milliseconds. */
+    static final long COMMIT_WINDOW = 100;
+
+    /** Amount of log records in a journal above which the journal gets compacted. */
+    @VisibleForTesting
+    static final int COMPACTION_THRESHOLD = 256;
+
+    /** Journal file header magic. */
+    private static final int MAGIC = 0x4A524E31; // 'JRN1'
+
+    /** Journal file name suffix. */
+    private static final String FILE_SUFFIX = ".jrn";
+
+    /** Record setting a root entry value. */
+    private static final byte RECORD_PUT = 1;
+
+    /** Record removing a root entry. */
+    private static final byte RECORD_REMOVE = 2;
+
+    /** Returned by {@link #readRecords} when the journal ends with a truncated or corrupt record. */
+    private static final int DAMAGED = -1;
+
+    /** Directory containing journal files. */
+    @NonNull
+    private final File mDirectory;
+
+    /**
+     * Background thread writing journals, started upon the first change following construction or {@link #dispose
+     * disposal}; {@code null} when not started.
+     * <p>
+     * Guarded by {@code this}.
+     */
+    @Nullable
+    private ScheduledExecutorService mWriter;
+
+    /**
+     * Current store content, by root key. Each root dictionary content is a map of root entry key to the entry
+     * serialized JSON value.
+     * <p>
+     * Guarded by {@code this}.
+     */
+    @NonNull
+    private final Map<String, Map<String, String>> mContent;
+
+    /**
+     * Changes not written yet, by root key. Each change is the set of root entry keys whose value must be written, or
+     * {@code null} if the whole journal must be rewritten.
+     * <p>
+     * Guarded by {@code this}.
+     */
+    @NonNull
+    private final Map<String, Set<String>> mPendingChanges;
+
+    /** Current amount of records in each journal, by root key. Only accessed from writer thread. */
+    @NonNull
+    private final Map<String, Integer> mJournalSizes;
+
+    /** {@code true} when pending changes are scheduled to be written. Guarded by {@code this}. */
+    private boolean mFlushScheduled;
+
+    /** Amount of updates received. Guarded by {@code this}. */
+    private int mUpdateCount;
+
+    /** Amount of journal writes performed. Guarded by {@code this}. */
+    private int mWriteCount;
+
+    /**
+     * Constructor.
+     * <p>
+     * Loads all existing journals from the given directory.
+     *
+     * @param directory directory where journals are stored
+     */
+    JournalStoreBackend(@NonNull File directory) {
+        mDirectory = directory;
+        mContent = new HashMap<>();
+        mPendingChanges = new LinkedHashMap<>();
+        mJournalSizes = new HashMap<>();
+        loadJournals();
+    }
+
+    /**
+     * Tells whether this backend does not contain any data yet.
+     *
+     * @return {@code true} if the backend is empty, otherwise {@code false}
+     */
+    synchronized boolean isEmpty() {
+        return mContent.isEmpty();
+    }
+
+    /**
+     * Imports all content from another backend.
+     * <p>
+     * Used to migrate existing content when the journal is first created.
+     *
+     * @param other backend to import content from
+     */
+    void importFrom(@NonNull StoreBackend other) {
+        for (String key : other.keys()) {
+            store(key, other.load(key));
+        }
+    }
+
+    @NonNull
+    @Override
+    public synchronized Set<String> keys() {
+        return new HashSet<>(mContent.keySet());
+    }
+
+    @Nullable
+    @Override
+    public synchronized JSONObject load(@NonNull String key) {
+        Map<String, String> entries = mContent.get(key);
+        if (entries == null) {
+            return null;
+        }
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                json.put(entry.getKey(), new JSONTokener(entry.getValue()).nextValue());
+            }
+        } catch (JSONException e) {
+            ULog.e(TAG_STORAGE, "Failed to load " + key, e);
+            return null;
+        }
+        return json;
+    }
+
+    @Override
+    public void store(@NonNull String key, @Nullable JSONObject content) {
+        Map<String, String> entries = content == null ? null : new HashMap<>();
+        if (entries != null) {
+            for (Iterator<String> iter = content.keys(); iter.hasNext(); ) {
+                String entryKey = iter.next();
+                entries.put(entryKey, serialize(content.opt(entryKey)));
+            }
+        }
+        synchronized (this) {
+            if (entries == null || entries.isEmpty()) {
+                mContent.remove(key);
+            } else {
+                mContent.put(key, entries);
+            }
+            mPendingChanges.put(key, null);
+            onChanged();
+        }
+    }
+
+    @Override
+    public void update(@NonNull String key, @Nullable JSONObject content, @NonNull Set<String> changedEntries) {
+        if (content == null || content.length() == 0) {
+            store(key, null);
+            return;
+        }
+        // serialize changed values on caller thread, since content may be further modified after this call
+        Map<String, String> values = new HashMap<>();
+        for (String entryKey : changedEntries) {
+            Object value = content.opt(entryKey);
+            values.put(entryKey, value == null ? null : serialize(value));
+        }
+        synchronized (this) {
+            Map<String, String> entries = mContent.get(key);
+            if (entries == null) {
+                entries = new HashMap<>();
+                mContent.put(key, entries);
+            }
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                if (value.getValue() == null) {
+                    entries.remove(value.getKey());
+                } else {
+                    entries.put(value.getKey(), value.getValue());
+                }
+            }
+            if (!mPendingChanges.containsKey(key)) {
+                mPendingChanges.put(key, new HashSet<>(values.keySet()));
+            } else {
+                Set<String> pending = mPendingChanges.get(key);
+                if (pending != null) {
+                    pending.addAll(values.keySet());
+                }
+            }
+            onChanged();
+        }
+    }
+
+    @NonNull
+    @Override
+    public synchronized Map<String, ?> content() {
+        Map<String, String> content = new HashMap<>();
+        for (String key : mContent.keySet()) {
+            content.put(key, String.valueOf(load(key)));
+        }
+        return content;
+    }
+
+    @Override
+    public void dispose() {
+        ScheduledExecutorService writer;
+        synchronized (this) {
+            writer = mWriter;
+            mWriter = null;
+        }
+        if (writer != null) {
+            flush(writer);
+            // only the scheduled commit of the changes that were just written may remain
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes all pending changes synchronously.
+     * <p>
+     * Used in tests and benchmarks.
+     */
+    @VisibleForTesting
+    void flush() {
+        ScheduledExecutorService writer;
+        synchronized (this) {
+            writer = mWriter;
+        }
+        if (writer != null) {
+            flush(writer);
+        }
+    }
+
+    /**
+     * Writes all pending changes on the given writer thread, and waits for completion.
+     *
+     * @param writer writer thread
+     */
+    private void flush(@NonNull ScheduledExecutorService writer) {
+        try {
+            writer.submit(this::writePendingChanges).get();
+        } catch (Exception e) {
+            ULog.e(TAG_STORAGE, "Failed to flush journals", e);
+        }
+    }
+
+    /**
+     * Gets the amount of times pending changes have been written to journals.
+     * <p>
+     * Used in tests and benchmarks.
+     *
+     * @return journal write count
+     */
+    @VisibleForTesting
+    synchronized int getWriteCount() {
+        return mWriteCount;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "Journal [dir: " + mDirectory + ", updates: " + mUpdateCount + ", writes: " + mWriteCount
+               + ", pending: " + mPendingChanges.size() + "]";
+    }
+
+    /**
+     * Called when some content changed.
+     * <p>
+     * Schedules pending changes to be written, unless already scheduled. Starts the writer thread if needed.
+     * <p>
+     * Must be called with {@code this} lock held.
+     */
+    private void onChanged() {
+        mUpdateCount++;
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            if (mWriter == null) {
+                mWriter = Executors.newSingleThreadScheduledExecutor(
+                        runnable -> new Thread(runnable, "persistent-store"));
+            }
+            mWriter.schedule(this::writePendingChanges, COMMIT_WINDOW, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending changes to journals.
+     * <p>
+     * Called on writer thread.
+     */
+    private void writePendingChanges() {
+        Map<String, Map<String, String>> appends = new HashMap<>();
+        Map<String, Map<String, String>> rewrites = new HashMap<>();
+        synchronized (this) {
+            mFlushScheduled = false;
+            if (mPendingChanges.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Set<String>> change : mPendingChanges.entrySet()) {
+                String key = change.getKey();
+                Map<String, String> entries = mContent.get(key);
+                Set<String> changedEntries = change.getValue();
+                if (entries == null) {
+                    rewrites.put(key, null);
+                } else if (changedEntries == null) {
+                    rewrites.put(key, new HashMap<>(entries));
+                } else {
+                    Map<String, String> values = new HashMap<>();
+                    for (String entryKey : changedEntries) {
+                        values.put(entryKey, entries.get(entryKey));
+                    }
+                    appends.put(key, values);
+                }
+            }
+            mPendingChanges.clear();
+            mWriteCount++;
+        }
+
+        for (Map.Entry<String, Map<String, String>> rewrite : rewrites.entrySet()) {
+            rewriteJournal(rewrite.getKey(), rewrite.getValue());
+        }
+
+        for (Map.Entry<String, Map<String, String>> append : appends.entrySet()) {
+            String key = append.getKey();
+            Integer size = mJournalSizes.get(key);
+            if (size == null || size + append.getValue().size() > COMPACTION_THRESHOLD) {
+                Map<String, String> entries;
+                synchronized (this) {
+                    entries = mContent.get(key);
+                    entries = entries == null ? null : new HashMap<>(entries);
+                }
+                rewriteJournal(key, entries);
+            } else {
+                appendToJournal(key, append.getValue());
+            }
+        }
+    }
+
+    /**
+     * Appends records to a journal.
+     * <p>
+     * Called on writer thread.
+     *
+     * @param key    root key of the journal
+     * @param values changed entries values; a {@code null} value denotes a removed entry
+     */
+    private void appendToJournal(@NonNull String key, @NonNull Map<String, String> values) {
+        FileOutputStream fileStream = null;
+        try {
+            fileStream = new FileOutputStream(journalFile(key), true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream));
+            writeRecords(out, values);
+            out.flush();
+            fileStream.getFD().sync();
+            //noinspection ConstantConditions: mJournalSizes contains key, see writePendingChanges
+            mJournalSizes.put(key, mJournalSizes.get(key) + values.size());
+        } catch (IOException e) {
+            ULog.e(TAG_STORAGE, "Failed to append to journal " + key, e);
+            // journal state is unknown, rewrite it fully next time
+            mJournalSizes.remove(key);
+        } finally {
+            close(fileStream);
+        }
+    }
+
+    /**
+     * Rewrites a journal with one record per entry.
+     * <p>
+     * Called on writer thread.
+     *
+     * @param key     root key of the journal
+     * @param entries journal entries, {@code null} to delete the journal
+     */
+    private void rewriteJournal(@NonNull String key, @Nullable Map<String, String> entries) {
+        File file = journalFile(key);
+        if (entries == null) {
+            mJournalSizes.remove(key);
+            if (file.exists() && !file.delete()) {
+                ULog.w(TAG_STORAGE, "Failed to delete journal " + file);
+            }
+            return;
+        }
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            ULog.e(TAG_STORAGE, "Failed to create journal directory " + mDirectory);
+            return;
+        }
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileOutputStream fileStream = null;
+        try {
+            fileStream = new FileOutputStream(tmpFile);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream));
+            out.writeInt(MAGIC);
+            out.writeUTF(key);
+            writeRecords(out, entries);
+            out.flush();
+            fileStream.getFD().sync();
+            close(fileStream);
+            fileStream = null;
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Could not rename " + tmpFile + " to " + file);
+            }
+            mJournalSizes.put(key, entries.size());
+        } catch (IOException e) {
+            ULog.e(TAG_STORAGE, "Failed to write journal " + key, e);
+            mJournalSizes.remove(key);
+        } finally {
+            close(fileStream);
+        }
+    }
+
+    /**
+     * Loads all journals from the journal directory.
+     * <p>
+     * A journal that ends with a truncated or corrupt record is loaded up to its last valid record, then scheduled to
+     * be rewritten, so that subsequent appends do not land after the damaged tail.
+     */
+    private void loadJournals() {
+        File[] files = mDirectory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(readFile(file)));
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Bad journal header");
+                }
+                String key = in.readUTF();
+                Map<String, String> entries = new HashMap<>();
+                int size = readRecords(in, entries);
+                if (!entries.isEmpty()) {
+                    mContent.put(key, entries);
+                }
+                if (size == DAMAGED) {
+                    ULog.w(TAG_STORAGE, "Journal " + file + " is damaged, rewriting it");
+                    synchronized (this) {
+                        mPendingChanges.put(key, null);
+                        onChanged();
+                    }
+                } else {
+                    mJournalSizes.put(key, size);
+                }
+            } catch (IOException e) {
+                ULog.e(TAG_STORAGE, "Failed to load journal " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the file of a journal.
+     *
+     * @param key root key of the journal
+     *
+     * @return journal file
+     */
+    @NonNull
+    private File journalFile(@NonNull String key) {
+        try {
+            return new File(mDirectory, URLEncoder.encode(key, "UTF-8") + FILE_SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e); // UTF-8 is always supported
+        }
+    }
+
+    /**
+     * Writes records.
+     *
+     * @param out    stream to write to
+     * @param values entries values; a {@code null} value denotes a removed entry
+     *
+     * @throws IOException in case writing failed
+     */
+    private static void writeRecords(@NonNull DataOutputStream out, @NonNull Map<String, String> values)
+            throws IOException {
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (value.getValue() == null) {
+                out.writeByte(RECORD_REMOVE);
+                out.writeUTF(value.getKey());
+            } else {
+                byte[] bytes = value.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeByte(RECORD_PUT);
+                out.writeUTF(value.getKey());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads all records until the end of the journal and applies them.
+     * <p>
+     * Reading stops at the first truncated or corrupt record, which may result from the process being killed while
+     * appending; all records before it are applied.
+     *
+     * @param in      stream to read from, must report the exact amount of remaining bytes through {@code available()}
+     * @param entries map where to apply read records
+     *
+     * @return the amount of records read, or {@link #DAMAGED} if the journal ends with a truncated or corrupt record
+     *
+     * @throws IOException in case reading failed
+     */
+    private static int readRecords(@NonNull DataInputStream in, @NonNull Map<String, String> entries)
+            throws IOException {
+        int count = 0;
+        try {
+            while (in.available() > 0) {
+                byte type = in.readByte();
+                String entryKey = in.readUTF();
+                if (type == RECORD_PUT) {
+                    int length = in.readInt();
+                    if (length < 0 || length > in.available()) {
+                        ULog.w(TAG_STORAGE, "Bad journal record length: " + length);
+                        return DAMAGED;
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    entries.put(entryKey, new String(bytes, StandardCharsets.UTF_8));
+                } else if (type == RECORD_REMOVE) {
+                    entries.remove(entryKey);
+                } else {
+                    ULog.w(TAG_STORAGE, "Bad journal record type: " + type);
+                    return DAMAGED;
+                }
+                count++;
+            }
+            return count;
+        } catch (EOFException e) {
+            return DAMAGED;
+        }
+    }
+
+    /**
+     * Reads a whole file.
+     *
+     * @param file file to read
+     *
+     * @return file content
+     *
+     * @throws IOException in case reading failed
+     */
+    @NonNull
+    private static byte[] readFile(@NonNull File file) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            byte[] content = new byte[(int) file.length()];
+            in.readFully(content);
+            return content;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Serializes a JSON value.
+     *
+     * @param value value to serialize
+     *
+     * @return serialized JSON value
+     */
+    @NonNull
+    private static String serialize(@NonNull Object value) {
+        return value instanceof String ? JSONObject.quote((String) value) : value.toString();
+    }
+
+    /**
+     * Closes a stream, ignoring any error.
+     *
+     * @param stream stream to close, may be {@code null}
+     */
+    private static void close(@Nullable Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -33,7 +33,6 @@
 package com.parrot.drone.groundsdk.arsdkengine.persistence;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -44,6 +43,7 @@ import com.parrot.drone.groundsdk.device.DeviceModel;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -53,7 +53,10 @@ import java.util.Objects;
 import java.util.Set;
 
 /**
- * A persistent store backed by a shared preferences file storing json data.
+ * A persistent store of json data.
+ * <p>
+ * Data is persisted either in a shared preferences file, or in journal files where only changed entries are written
+ * upon commit; see {@link StoreBackend}.
  */
 public class PersistentStore {
 
@@ -378,25 +381,19 @@ public class PersistentStore {
         }
     }
 
-    /** Shared preferences file name. */
-    private static final String STORE_NAME = "arsdkenginestore";
-
-    /** Shared preferences key for version (int). */
-    private static final String KEY_VERSION = "version";
-
-    /** shared preferences key prefix for each device (content: json as String). */
+    /** Store key prefix for each device (content: json as String). */
     private static final String KEY_DEVICE_PREFIX = "device-";
 
-    /** Shared preferences key prefix for each preset (content: json as String). */
+    /** Store key prefix for each preset (content: json as String). */
     private static final String KEY_PRESET_PREFIX = "preset-";
 
     /** Application context. */
     @NonNull
     final Context mContext;
 
-    /** Shared preferences backing the preference store. */
+    /** Backend where the store content is persisted. */
     @NonNull
-    private final SharedPreferences mPrefs;
+    private final StoreBackend mBackend;
 
     /** Dictionary observers, by root dictionary. */
     @NonNull
@@ -408,14 +405,62 @@ public class PersistentStore {
      * @param context application context
      */
     public PersistentStore(@NonNull Context context) {
+        this(context, false);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * When {@code journaled} is {@code true} and the journal directory does not exist yet, all content is imported
+     * from the shared preferences store, which is left untouched.
+     *
+     * @param context   application context
+     * @param journaled {@code true} to persist content in journal files, {@code false} to use shared preferences
+     */
+    public PersistentStore(@NonNull Context context, boolean journaled) {
+        this(context, journaled ? createJournalBackend(context) : new SharedPreferencesStoreBackend(context));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context application context
+     * @param backend backend where to persist store content
+     */
+    @VisibleForTesting
+    PersistentStore(@NonNull Context context, @NonNull StoreBackend backend) {
         mContext = context;
-        mPrefs = context.getSharedPreferences(STORE_NAME, Context.MODE_PRIVATE);
+        mBackend = backend;
         mObservers = new HashMap<>();
-        int version = mPrefs.getInt(KEY_VERSION, 0);
-        if (version == 0) {
-            version = 1;
-            mPrefs.edit().putInt(KEY_VERSION, version).apply();
+    }
+
+    /**
+     * Creates a journal store backend in application files directory.
+     * <p>
+     * In case the journal directory does not exist yet, all content from the shared preferences store is imported.
+     *
+     * @param context application context
+     *
+     * @return a new journal store backend
+     */
+    @NonNull
+    private static StoreBackend createJournalBackend(@NonNull Context context) {
+        File directory = new File(context.getFilesDir(), JournalStoreBackend.DIRECTORY_NAME);
+        boolean migrate = !directory.exists();
+        JournalStoreBackend backend = new JournalStoreBackend(directory);
+        if (migrate) {
+            backend.importFrom(new SharedPreferencesStoreBackend(context));
         }
+        return backend;
+    }
+
+    /**
+     * Releases all resources held by the store.
+     * <p>
+     * All committed changes are persisted before this method returns. The store remains usable afterwards.
+     */
+    public void dispose() {
+        mBackend.dispose();
     }
 
     /**
@@ -426,7 +471,7 @@ public class PersistentStore {
     @NonNull
     public final Set<String> getDevicesUid() {
         Set<String> uids = new HashSet<>();
-        for (String key : mPrefs.getAll().keySet()) {
+        for (String key : mBackend.keys()) {
             if (key.startsWith(KEY_DEVICE_PREFIX)) {
                 uids.add(keyToDeviceUid(key));
             }
@@ -509,16 +554,7 @@ public class PersistentStore {
      */
     @Nullable
     JSONObject loadContent(@NonNull String key) {
-        String content = mPrefs.getString(key, null);
-        JSONObject json = null;
-        if (content != null) {
-            try {
-                json = new JSONObject(content);
-            } catch (JSONException e) {
-                // ignore
-            }
-        }
-        return json;
+        return mBackend.load(key);
     }
 
     /**
@@ -528,13 +564,19 @@ public class PersistentStore {
      * @param content JSON content to store
      */
     void storeContent(@NonNull String key, @Nullable JSONObject content) {
-        SharedPreferences.Editor editor = mPrefs.edit();
-        if (content == null) {
-            editor.remove(key);
-        } else {
-            editor.putString(key, content.toString());
-        }
-        editor.apply();
+        mBackend.store(key, content);
+    }
+
+    /**
+     * Updates the JSON content stored at the given key in the persistent store.
+     *
+     * @param key            the key where to store the content
+     * @param content        JSON content to store
+     * @param changedEntries keys of the root entries that changed since the content was last stored
+     */
+    private void updateContent(@NonNull String key, @Nullable JSONObject content,
+                               @NonNull Set<String> changedEntries) {
+        mBackend.update(key, content, changedEntries);
     }
 
     /**
@@ -596,6 +638,13 @@ public class PersistentStore {
         /** {@code true} when the dictionary has been changed. */
         private boolean mChanged;
 
+        /** {@code true} when the dictionary has been cleared, so that it must be stored again as a whole. */
+        private boolean mCleared;
+
+        /** Keys of the root entries that changed since last commit. */
+        @NonNull
+        private final Set<String> mChangedKeys;
+
         /**
          * Constructor.
          *
@@ -605,14 +654,20 @@ public class PersistentStore {
         RootDictionary(@NonNull String key, @NonNull PersistentStore persistentStore) {
             super(key, persistentStore.loadContent(key), null);
             mPersistentStore = persistentStore;
+            mChangedKeys = new HashSet<>();
         }
 
         @Override
         public void commit() {
             super.commit();
             if (mChanged) {
-                mPersistentStore.storeContent(mKey, mJson);
-                mChanged = false;
+                if (mCleared) {
+                    mPersistentStore.storeContent(mKey, mJson);
+                } else {
+                    mPersistentStore.updateContent(mKey, mJson, mChangedKeys);
+                }
+                mChanged = mCleared = false;
+                mChangedKeys.clear();
                 mPersistentStore.notifyDictionaryChange(this);
             }
         }
@@ -620,7 +675,7 @@ public class PersistentStore {
         @NonNull
         @Override
         public Dictionary clear() {
-            mChanged = true;
+            mChanged = mCleared = true;
             return super.clear();
         }
 
@@ -633,6 +688,7 @@ public class PersistentStore {
         protected void doUpdate(@NonNull String key, @Nullable Object value) {
             super.doUpdate(key, value);
             mChanged = true;
+            mChangedKeys.add(key);
         }
 
         /**
@@ -642,6 +698,7 @@ public class PersistentStore {
          */
         RootDictionary reload() {
             mJson = mPersistentStore.loadContent(mKey);
+            mChangedKeys.clear();
             return this;
         }
     }
@@ -658,7 +715,8 @@ public class PersistentStore {
             writer.write("\t--fake: dumps drones as fake drones\n");
         } else if (args.contains("--persistent-store") || args.contains("--all")) {
             writer.write("Persistent store:\n");
-            writer.write("\t" + mPrefs.getAll() + "\n");
+            writer.write("\tBackend: " + mBackend + "\n");
+            writer.write("\t" + mBackend.content() + "\n");
         }
     }
 
@@ -673,6 +731,6 @@ public class PersistentStore {
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     @NonNull
     Map<String, ?> content() {
-        return mPrefs.getAll();
+        return mBackend.content();
     }
 }
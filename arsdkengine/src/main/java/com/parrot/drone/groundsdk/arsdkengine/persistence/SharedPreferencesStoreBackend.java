@@ -0,0 +1,146 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A store backend backed by a shared preferences file, where each root dictionary is stored as a JSON string.
+ * <p>
+ * Each update serializes the whole root dictionary content.
+ */
+final class SharedPreferencesStoreBackend implements StoreBackend {
+
+    /** Shared preferences file name. */
+    static final String STORE_NAME = "arsdkenginestore";
+
+    /** Shared preferences key for version (int). */
+    private static final String KEY_VERSION = "version";
+
+    /** Shared preferences backing the store. */
+    @NonNull
+    private final SharedPreferences mPrefs;
+
+    /**
+     * Constructor.
+     *
+     * @param context application context
+     */
+    SharedPreferencesStoreBackend(@NonNull Context context) {
+        mPrefs = context.getSharedPreferences(STORE_NAME, Context.MODE_PRIVATE);
+        int version = mPrefs.getInt(KEY_VERSION, 0);
+        if (version == 0) {
+            version = 1;
+            mPrefs.edit().putInt(KEY_VERSION, version).apply();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Set<String> keys() {
+        Set<String> keys = new HashSet<>(mPrefs.getAll().keySet());
+        keys.remove(KEY_VERSION);
+        return keys;
+    }
+
+    @Nullable
+    @Override
+    public JSONObject load(@NonNull String key) {
+        String content = mPrefs.getString(key, null);
+        JSONObject json = null;
+        if (content != null) {
+            try {
+                json = new JSONObject(content);
+            } catch (JSONException e) {
+                // ignore
+            }
+        }
+        return json;
+    }
+
+    @Override
+    public void store(@NonNull String key, @Nullable JSONObject content) {
+        SharedPreferences.Editor editor = mPrefs.edit();
+        if (content == null) {
+            editor.remove(key);
+        } else {
+            editor.putString(key, content.toString());
+        }
+        editor.apply();
+    }
+
+    @Override
+    public void update(@NonNull String key, @Nullable JSONObject content, @NonNull Set<String> changedEntries) {
+        store(key, content);
+    }
+
+    @NonNull
+    @Override
+    public Map<String, ?> content() {
+        return mPrefs.getAll();
+    }
+
+    @Override
+    public void dispose() {
+        flush();
+    }
+
+    /**
+     * Waits until all previously applied changes are written to disk.
+     * <p>
+     * Used in benchmarks.
+     */
+    @VisibleForTesting
+    void flush() {
+        // writes are serialized, so a synchronous commit returns only once all prior asynchronous applies completed
+        mPrefs.edit().commit();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SharedPreferences [name: " + STORE_NAME + "]";
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage backend of a {@link PersistentStore}.
+ * <p>
+ * A backend stores root dictionaries JSON content, each at a given root key.
+ * <p>
+ * All methods are called from the <strong>MAIN</strong> thread.
+ */
+interface StoreBackend {
+
+    /**
+     * Gets all root keys stored in the backend.
+     *
+     * @return a new set containing all stored root keys
+     */
+    @NonNull
+    Set<String> keys();
+
+    /**
+     * Loads the JSON content stored at the given root key.
+     *
+     * @param key the root key of the content to load
+     *
+     * @return a new JSONObject instance with the content, or {@code null} if nothing is stored for that key or it
+     *         could not be parsed
+     */
+    @Nullable
+    JSONObject load(@NonNull String key);
+
+    /**
+     * Stores the given JSON content at the given root key, replacing any existing content.
+     *
+     * @param key     the root key where to store the content
+     * @param content JSON content to store, {@code null} to remove any content stored for that key
+     */
+    void store(@NonNull String key, @Nullable JSONObject content);
+
+    /**
+     * Updates the JSON content stored at the given root key.
+     * <p>
+     * Implementations may only persist the entries whose key is listed in {@code changedEntries}; all other entries
+     * of {@code content} are considered unchanged since last call.
+     *
+     * @param key            the root key where to store the content
+     * @param content        new JSON content, {@code null} to remove any content stored for that key
+     * @param changedEntries keys of the root entries that changed since the content was last stored
+     */
+    void update(@NonNull String key, @Nullable JSONObject content, @NonNull Set<String> changedEntries);
+
+    /**
+     * Retrieves the whole backend content.
+     * <p>
+     * Used for debug dump and tests.
+     *
+     * @return backend content, a map of each key to the corresponding content
+     */
+    @NonNull
+    Map<String, ?> content();
+
+    /**
+     * Releases all resources held by the backend.
+     * <p>
+     * Any pending change is persisted before this method returns. The backend remains usable afterwards.
+     */
+    void dispose();
+}
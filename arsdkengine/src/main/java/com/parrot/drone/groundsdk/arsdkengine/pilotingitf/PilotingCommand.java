@@ -236,6 +236,14 @@ public final class PilotingCommand {
                         mPCmd.mGaz, nextSequenceNumber());
             }
 
+            @Override
+            public boolean encodeNoAckCmd(@NonNull ArsdkCommand command) {
+                // re-encode into the loop's reusable command, so that no command is obtained from the pool each tick
+                ArsdkFeatureArdrone3.Piloting.encodePCMD(command, mPCmd.getFlag(), mPCmd.mRoll, -mPCmd.mPitch,
+                        mPCmd.mYaw, mPCmd.mGaz, nextSequenceNumber());
+                return true;
+            }
+
             /**
              * Generates subsequent piloting command sequence number and timestamp.
              *
@@ -97,6 +97,12 @@ public class AnafiAnimationPilotingItf extends PilotingItfController {
         mAnimationItf.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureAnimation.UID};
+    }
+
     @Override
     protected void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -192,6 +192,15 @@ public class AnafiFlightPlanPilotingItf extends ActivablePilotingItfController {
         mPilotingItf.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {
+                ArsdkFeatureCommon.FlightPlanState.UID, ArsdkFeatureCommon.MavlinkState.UID,
+                ArsdkFeatureCommon.FlightPlanSettingsState.UID
+        };
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -339,6 +339,14 @@ public class AnafiGuidedPilotingItf extends ActivablePilotingItfController {
         return null;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {
+                ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureArdrone3.PilotingEvent.UID, ArsdkFeatureMove.UID
+        };
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -214,6 +214,15 @@ public class AnafiManualPilotingItf extends ActivablePilotingItfController {
         mPilotingItf.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {
+                ArsdkFeatureArdrone3.PilotingSettingsState.UID, ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.SpeedSettingsState.UID
+        };
+    }
+
     @Override
     public final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -244,6 +244,12 @@ public class AnafiPointOfInterestPilotingItf extends ActivablePilotingItfControl
         return null;
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureArdrone3.PilotingState.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         if (command.getFeatureId() == ArsdkFeatureArdrone3.PilotingState.UID) {
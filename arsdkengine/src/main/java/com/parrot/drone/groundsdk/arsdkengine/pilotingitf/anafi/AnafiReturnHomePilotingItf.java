@@ -221,6 +221,12 @@ public class AnafiReturnHomePilotingItf extends ActivablePilotingItfController {
         mPilotingItf.unpublish();
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureRth.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -121,6 +121,12 @@ abstract class AnafiTrackingPilotingItfBase extends ActivablePilotingItfControll
         sendCommand(ArsdkFeatureFollowMe.encodeStop());
     }
 
+    @NonNull
+    @Override
+    protected int[] getCommandFeatureIds() {
+        return new int[] {ArsdkFeatureFollowMe.UID, ArsdkFeatureArdrone3.PilotingState.UID};
+    }
+
     @Override
     protected final void onCommandReceived(@NonNull ArsdkCommand command) {
         int featureId = command.getFeatureId();
@@ -32,13 +32,21 @@
 
 package com.parrot.drone.groundsdk.internal.component;
 
+import androidx.annotation.NonNull;
+
 import com.parrot.drone.groundsdk.internal.session.MockSession;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -256,4 +264,111 @@ public class ComponentStoreTest {
         mStore.remove(SubCompImpl.DESC);
         mStore.unregisterObserver(MainComp.class, observer6);
     }
+
+    @Test
+    public void testCoalescedNotifications() {
+        List<Runnable> scheduledFlushes = new ArrayList<>();
+        ComponentNotifier.setScheduler(new ComponentNotifier.Scheduler() {
+
+            @Override
+            public void schedule(@NonNull Runnable flush) {
+                scheduledFlushes.add(flush);
+            }
+
+            @Override
+            public void cancel(@NonNull Runnable flush) {
+                scheduledFlushes.remove(flush);
+            }
+        });
+        ComponentNotifier.resetCounters();
+        ComponentDescriptor<CompType, SubComp> coalescableDesc = SubCompImpl.DESC.coalescable();
+        try {
+            ComponentStore.Observer mainObserver = () -> mainChangeCnt++;
+            mStore.registerObserver(MainComp.class, mainObserver);
+            ComponentStore.Observer subObserver = () -> subChangeCnt++;
+            mStore.registerObserver(SubComp.class, subObserver);
+
+            // add sub component, check main and sub listener notified synchronously
+            mStore.add(new SubCompImpl(), SubCompImpl.DESC);
+            assertThat(mainChangeCnt, is(1));
+            assertThat(subChangeCnt, is(1));
+            assertThat(scheduledFlushes, empty());
+
+            // notify updated several times, check not notified until flushed
+            mStore.notifyUpdated(coalescableDesc);
+            mStore.notifyUpdated(coalescableDesc);
+            mStore.notifyUpdated(coalescableDesc);
+            assertThat(mainChangeCnt, is(1));
+            assertThat(subChangeCnt, is(1));
+            assertThat(scheduledFlushes, hasSize(1));
+
+            // flush, check each observer notified once
+            scheduledFlushes.remove(0).run();
+            assertThat(mainChangeCnt, is(2));
+            assertThat(subChangeCnt, is(2));
+            assertThat(ComponentNotifier.getDeliveredCount(), is(2L));
+            assertThat(ComponentNotifier.getCoalescedCount(), is(4L));
+            assertThat(ComponentNotifier.getFlushCount(), is(1L));
+
+            // notify updated, then unregister sub observer, check only main observer notified on flush
+            mStore.notifyUpdated(coalescableDesc);
+            mStore.unregisterObserver(SubComp.class, subObserver);
+            scheduledFlushes.remove(0).run();
+            assertThat(mainChangeCnt, is(3));
+            assertThat(subChangeCnt, is(2));
+            assertThat(ComponentNotifier.getDeliveredCount(), is(3L));
+
+            // notify updated, then remove component, check pending notification superseded by removal
+            mStore.notifyUpdated(coalescableDesc);
+            mStore.remove(SubCompImpl.DESC);
+            assertThat(mainChangeCnt, is(4));
+            scheduledFlushes.remove(0).run();
+            assertThat(mainChangeCnt, is(4));
+            assertThat(ComponentNotifier.getDeliveredCount(), is(3L));
+            assertThat(ComponentNotifier.getCoalescedCount(), is(5L));
+
+            mStore.unregisterObserver(MainComp.class, mainObserver);
+        } finally {
+            ComponentNotifier.setScheduler(null);
+        }
+    }
+
+    @Test
+    public void testTransientStatesNotCoalesced() {
+        List<Runnable> scheduledFlushes = new ArrayList<>();
+        ComponentNotifier.setScheduler(new ComponentNotifier.Scheduler() {
+
+            @Override
+            public void schedule(@NonNull Runnable flush) {
+                scheduledFlushes.add(flush);
+            }
+
+            @Override
+            public void cancel(@NonNull Runnable flush) {
+                scheduledFlushes.remove(flush);
+            }
+        });
+        try {
+            String[] state = {"idle"};
+            List<String> observedStates = new ArrayList<>();
+            ComponentStore.Observer observer = () -> observedStates.add(state[0]);
+            mStore.registerObserver(MainComp.class, observer);
+            mStore.add(new MainCompImpl(), MainCompImpl.DESC);
+            assertThat(observedStates, contains("idle"));
+
+            // publish a transient result, then reset it in the same main loop turn
+            state[0] = "success";
+            mStore.notifyUpdated(MainCompImpl.DESC);
+            state[0] = "idle";
+            mStore.notifyUpdated(MainCompImpl.DESC);
+
+            // component did not opt in to coalescing, check transient result observed
+            assertThat(observedStates, contains("idle", "success", "idle"));
+            assertThat(scheduledFlushes, empty());
+
+            mStore.unregisterObserver(MainComp.class, observer);
+        } finally {
+            ComponentNotifier.setScheduler(null);
+        }
+    }
 }
@@ -133,4 +133,44 @@ public class FlightDataDownloaderTest {
         assertThat(mComponentChangeCnt, is(6));
         assertThat(mFlightDataDownloader, wasInterruptedAfter(0));
     }
+
+    @Test
+    public void testStageProgress() {
+        mFlightDataDownloaderImpl.publish();
+        assertThat(mComponentChangeCnt, is(1));
+        assertThat(mFlightDataDownloader.getLatestTotalCount(), is(0));
+        for (FlightDataDownloader.Stage stage : FlightDataDownloader.Stage.values()) {
+            assertThat(mFlightDataDownloader.getStageProgress(stage), is(0));
+        }
+
+        // report download start
+        mFlightDataDownloaderImpl.updateDownloadingFlag(true)
+                                 .updateTotalCount(3)
+                                 .notifyUpdated();
+        assertThat(mComponentChangeCnt, is(2));
+        assertThat(mFlightDataDownloader.getLatestTotalCount(), is(3));
+
+        // report transfer progress
+        mFlightDataDownloaderImpl.updateTransferredCount(2).notifyUpdated();
+        assertThat(mComponentChangeCnt, is(3));
+        assertThat(mFlightDataDownloader.getStageProgress(FlightDataDownloader.Stage.TRANSFER), is(2));
+
+        // report conversion progress
+        mFlightDataDownloaderImpl.updateDownloadedCount(1).notifyUpdated();
+        assertThat(mComponentChangeCnt, is(4));
+        assertThat(mFlightDataDownloader.getStageProgress(FlightDataDownloader.Stage.CONVERSION), is(1));
+        assertThat(mFlightDataDownloader, isDownloading(1));
+
+        // report deletion progress
+        mFlightDataDownloaderImpl.updateDeletedCount(1).notifyUpdated();
+        assertThat(mComponentChangeCnt, is(5));
+        assertThat(mFlightDataDownloader.getStageProgress(FlightDataDownloader.Stage.DELETION), is(1));
+
+        // check that changes are not reported for updating to the same values
+        mFlightDataDownloaderImpl.updateTotalCount(3)
+                                 .updateTransferredCount(2)
+                                 .updateDeletedCount(1)
+                                 .notifyUpdated();
+        assertThat(mComponentChangeCnt, is(5));
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.camera;
+
+import com.parrot.drone.groundsdk.device.peripheral.camera.CameraRecording;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CameraCapabilityIndexTest {
+
+    private static CameraCapabilityIndex.Builder<CameraRecording.Mode, CameraRecording.Resolution,
+            CameraRecording.Framerate> builder() {
+        return new CameraCapabilityIndex.Builder<>(CameraRecording.Mode.class, CameraRecording.Resolution.class,
+                CameraRecording.Framerate.class);
+    }
+
+    @Test
+    public void testEmpty() {
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index =
+                CameraCapabilityIndex.empty(CameraRecording.Mode.class, CameraRecording.Resolution.class,
+                        CameraRecording.Framerate.class);
+
+        assertThat(index.values(), empty());
+        assertThat(index.valuesFor(CameraRecording.Mode.STANDARD), empty());
+        assertThat(index.valuesFor(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_UHD_4K), empty());
+        assertThat(index.firstValue(), nullValue());
+        assertThat(index.firstValueFor(CameraRecording.Mode.STANDARD), nullValue());
+        assertThat(index.firstValueFor(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_UHD_4K),
+                nullValue());
+        assertThat(index.contains(CameraRecording.Mode.STANDARD), is(false));
+        assertThat(index, is(builder().build()));
+    }
+
+    @Test
+    public void testCombinations() {
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K, CameraRecording.Resolution.RES_1080P),
+                        EnumSet.of(CameraRecording.Framerate.FPS_24, CameraRecording.Framerate.FPS_30), true)
+                         .add(EnumSet.of(CameraRecording.Mode.STANDARD, CameraRecording.Mode.SLOW_MOTION),
+                                 EnumSet.of(CameraRecording.Resolution.RES_1080P),
+                                 EnumSet.of(CameraRecording.Framerate.FPS_30, CameraRecording.Framerate.FPS_60),
+                                 false)
+                         .build();
+
+        assertThat(index.values(), containsInAnyOrder(CameraRecording.Mode.STANDARD,
+                CameraRecording.Mode.SLOW_MOTION));
+        assertThat(index.valuesFor(CameraRecording.Mode.STANDARD), containsInAnyOrder(
+                CameraRecording.Resolution.RES_UHD_4K, CameraRecording.Resolution.RES_1080P));
+        assertThat(index.valuesFor(CameraRecording.Mode.SLOW_MOTION), containsInAnyOrder(
+                CameraRecording.Resolution.RES_1080P));
+        assertThat(index.valuesFor(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_1080P),
+                containsInAnyOrder(CameraRecording.Framerate.FPS_24, CameraRecording.Framerate.FPS_30,
+                        CameraRecording.Framerate.FPS_60));
+        assertThat(index.valuesFor(CameraRecording.Mode.SLOW_MOTION, CameraRecording.Resolution.RES_UHD_4K), empty());
+
+        assertThat(index.contains(CameraRecording.Mode.HIGH_FRAMERATE), is(false));
+        assertThat(index.contains(CameraRecording.Mode.SLOW_MOTION, CameraRecording.Resolution.RES_1080P), is(true));
+        assertThat(index.contains(CameraRecording.Mode.SLOW_MOTION, CameraRecording.Resolution.RES_1080P,
+                CameraRecording.Framerate.FPS_24), is(false));
+        assertThat(index.contains(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_1080P,
+                CameraRecording.Framerate.FPS_60), is(true));
+
+        // HDR availability from the first capability declaring a combination is kept
+        assertThat(index.isHdrAvailable(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_1080P,
+                CameraRecording.Framerate.FPS_30), is(true));
+        assertThat(index.isHdrAvailable(CameraRecording.Mode.STANDARD, CameraRecording.Resolution.RES_1080P,
+                CameraRecording.Framerate.FPS_60), is(false));
+        assertThat(index.isHdrAvailable(CameraRecording.Mode.HIGH_FRAMERATE, CameraRecording.Resolution.RES_1080P,
+                CameraRecording.Framerate.FPS_30), is(false));
+
+        // first values follow enum order, as EnumSet iteration does
+        assertThat(index.firstValue(), is(EnumSet.copyOf(index.values()).iterator().next()));
+        assertThat(index.firstValueFor(CameraRecording.Mode.STANDARD),
+                is(EnumSet.copyOf(index.valuesFor(CameraRecording.Mode.STANDARD)).iterator().next()));
+    }
+
+    @Test
+    public void testViewsAndCopies() {
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K),
+                        EnumSet.of(CameraRecording.Framerate.FPS_30), false)
+                         .build();
+
+        // views are shared
+        Set<CameraRecording.Mode> modes = index.values();
+        assertThat(index.values(), sameInstance(modes));
+
+        // copies are owned by the caller and do not alter the index
+        EnumSet<CameraRecording.Mode> copy = index.copyValues();
+        assertThat(copy, not(sameInstance(index.copyValues())));
+        copy.clear();
+        assertThat(index.contains(CameraRecording.Mode.STANDARD), is(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() {
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K),
+                        EnumSet.of(CameraRecording.Framerate.FPS_30), false)
+                         .build();
+
+        index.valuesFor(CameraRecording.Mode.STANDARD).clear();
+    }
+
+    @Test
+    public void testEquality() {
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index1 =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K),
+                        EnumSet.of(CameraRecording.Framerate.FPS_30), false)
+                         .build();
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index2 =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K),
+                        EnumSet.of(CameraRecording.Framerate.FPS_30), false)
+                         .build();
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> index3 =
+                builder().add(EnumSet.of(CameraRecording.Mode.STANDARD),
+                        EnumSet.of(CameraRecording.Resolution.RES_UHD_4K),
+                        EnumSet.of(CameraRecording.Framerate.FPS_30), true)
+                         .build();
+
+        assertThat(index1, is(index2));
+        assertThat(index1.hashCode(), is(index2.hashCode()));
+        assertThat(index1, not(index3));
+    }
+}
@@ -289,4 +289,60 @@ public class MediaThumbnailCacheTest {
 
         verify(mRequestCb1, times(2)).onThumbnailAvailable(BITMAP);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentFetch() {
+        mCache = new MediaThumbnailCache(mBackend, 3 * BITMAP.getAllocationByteCount(), null, null, 2);
+
+        MediaResourceCore resource1 = mock(MediaResourceCore.class), resource2 = mock(MediaResourceCore.class),
+                resource3 = mock(MediaResourceCore.class);
+
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource1), mRequestCb1);
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource2), mRequestCb1);
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource3), mRequestCb1);
+
+        // only 2 fetches should be started
+        verify(mBackend).fetchThumbnail(eq(resource1), mFetchCb.capture());
+        verify(mBackend).fetchThumbnail(eq(resource2), any());
+        verifyNoMoreInteractions(mBackend);
+
+        // complete first fetch
+        mFetchCb.getValue().onRequestComplete(MediaRequest.Status.SUCCESS, BITMAP);
+
+        verify(mRequestCb1).onThumbnailAvailable(BITMAP);
+
+        // third fetch should start
+        verify(mBackend).fetchThumbnail(eq(resource3), any());
+    }
+
+    @Test
+    public void testMostRecentRequestFirst() {
+        MediaResourceCore resource1 = mock(MediaResourceCore.class), resource2 = mock(MediaResourceCore.class),
+                resource3 = mock(MediaResourceCore.class);
+
+        mCache.getThumbnail(ThumbnailProvider.wrap(mMedia), mRequestCb1);
+
+        verify(mBackend).fetchThumbnail(eq(mMedia), mFetchCb.capture());
+
+        // queue 3 requests while first one is being processed, then request first queued one again
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource1), mRequestCb2);
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource2), mRequestCb2);
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource3), mRequestCb2);
+        mCache.getThumbnail(ThumbnailProvider.wrap(resource1), mRequestCb2);
+
+        // complete first fetch, resource 1 should be fetched next, then resource 3, then resource 2
+        mFetchCb.getValue().onRequestComplete(MediaRequest.Status.SUCCESS, BITMAP);
+
+        verify(mBackend).fetchThumbnail(eq(resource1), mFetchCb.capture());
+        verifyNoMoreInteractions(mBackend);
+
+        mFetchCb.getValue().onRequestComplete(MediaRequest.Status.SUCCESS, BITMAP);
+
+        verify(mBackend).fetchThumbnail(eq(resource3), mFetchCb.capture());
+        verifyNoMoreInteractions(mBackend);
+
+        mFetchCb.getValue().onRequestComplete(MediaRequest.Status.SUCCESS, BITMAP);
+
+        verify(mBackend).fetchThumbnail(eq(resource2), mFetchCb.capture());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.parrot.drone.groundsdk.test.R;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+public class ThumbnailDiskCacheTest {
+
+    private static final Bitmap BITMAP = BitmapFactory.decodeResource(
+            ApplicationProvider.getApplicationContext().getResources(), R.drawable.test_thumbnail);
+
+    private static final long TIMEOUT = 5000;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private ThumbnailDiskCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new ThumbnailDiskCache(mTemporaryFolder.getRoot(), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testRemoveMedia() throws InterruptedException {
+        mCache.store("drone", "1/media-1000", BITMAP);
+        mCache.store("drone", "1/resource-1-0-1000-100", BITMAP);
+        mCache.store("drone", "10/media-2000", BITMAP);
+        mCache.store("other", "1/media-1000", BITMAP);
+        awaitFiles("drone", "1%2Fmedia-1000", "1%2Fresource-1-0-1000-100", "10%2Fmedia-2000");
+        awaitFiles("other", "1%2Fmedia-1000");
+
+        // removes the media and its resources thumbnails, for this device only
+        mCache.remove("drone", ThumbnailProvider.mediaKeyPrefix("1"));
+        awaitFiles("drone", "10%2Fmedia-2000");
+        awaitFiles("other", "1%2Fmedia-1000");
+    }
+
+    @Test
+    public void testRemoveAll() throws InterruptedException {
+        mCache.store("drone", "1/media-1000", BITMAP);
+        mCache.store("drone", "2/media-2000", BITMAP);
+        mCache.store("other", "1/media-1000", BITMAP);
+        awaitFiles("drone", "1%2Fmedia-1000", "2%2Fmedia-2000");
+        awaitFiles("other", "1%2Fmedia-1000");
+
+        mCache.remove("drone", null);
+        awaitFiles("drone");
+        awaitFiles("other", "1%2Fmedia-1000");
+    }
+
+    private void awaitFiles(@NonNull String deviceUid, @NonNull String... expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        List<String> files = files(deviceUid);
+        while (!files.containsAll(Arrays.asList(expected)) || files.size() != expected.length) {
+            if (System.currentTimeMillis() > deadline) {
+                break;
+            }
+            Thread.sleep(10);
+            files = files(deviceUid);
+        }
+        if (expected.length == 0) {
+            assertThat(files, empty());
+        } else {
+            assertThat(files, containsInAnyOrder(expected));
+        }
+    }
+
+    @NonNull
+    private List<String> files(@NonNull String deviceUid) {
+        String[] names = new File(mTemporaryFolder.getRoot(), deviceUid).list((dir, name) -> !name.endsWith(".tmp"));
+        return names == null ? Collections.emptyList() : Arrays.asList(names);
+    }
+}
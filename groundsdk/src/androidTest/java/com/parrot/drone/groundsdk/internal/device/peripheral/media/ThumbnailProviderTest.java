@@ -0,0 +1,91 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ThumbnailProviderTest {
+
+    @Mock
+    private MediaItemCore mMedia, mOtherMedia;
+
+    @Mock
+    private MediaResourceCore mResource, mOtherResource;
+
+    @Test
+    public void testMediaKey() {
+        doReturn("1").when(mMedia).getUid();
+        doReturn(new Date(1000)).when(mMedia).getCreationDate();
+        String key = ThumbnailProvider.wrap(mMedia).getKey();
+        assertThat(key, startsWith(ThumbnailProvider.mediaKeyPrefix("1")));
+        assertThat(ThumbnailProvider.wrap(mMedia).getKey(), is(key));
+
+        // same uid, reused for another media
+        doReturn("1").when(mOtherMedia).getUid();
+        doReturn(new Date(2000)).when(mOtherMedia).getCreationDate();
+        assertThat(ThumbnailProvider.wrap(mOtherMedia).getKey(), not(key));
+    }
+
+    @Test
+    public void testResourceKey() {
+        doReturn("1").when(mMedia).getUid();
+        doReturn("1-0").when(mResource).getUid();
+        doReturn(mMedia).when(mResource).getMedia();
+        doReturn(new Date(1000)).when(mResource).getCreationDate();
+        doReturn(100L).when(mResource).getSize();
+        String key = ThumbnailProvider.wrap(mResource).getKey();
+        assertThat(key, startsWith(ThumbnailProvider.mediaKeyPrefix("1")));
+
+        // same uid, reused for another resource of another size
+        doReturn("1-0").when(mOtherResource).getUid();
+        doReturn(mMedia).when(mOtherResource).getMedia();
+        doReturn(new Date(1000)).when(mOtherResource).getCreationDate();
+        doReturn(200L).when(mOtherResource).getSize();
+        assertThat(ThumbnailProvider.wrap(mOtherResource).getKey(), not(key));
+
+        // resource thumbnail key differs from its media thumbnail key
+        doReturn(new Date(1000)).when(mMedia).getCreationDate();
+        assertThat(ThumbnailProvider.wrap(mMedia).getKey(), not(key));
+    }
+}
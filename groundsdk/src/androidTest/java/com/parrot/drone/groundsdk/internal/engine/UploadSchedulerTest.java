@@ -0,0 +1,261 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.engine;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.parrot.drone.groundsdk.internal.http.HttpRequest;
+import com.parrot.drone.groundsdk.internal.tasks.TestExecutor;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class UploadSchedulerTest {
+
+    private static final String NAME = "test";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private MockBackend mBackend;
+
+    private UploadScheduler<String> mScheduler;
+
+    @BeforeClass
+    public static void load() {
+        TestExecutor.setup();
+    }
+
+    @AfterClass
+    public static void unload() {
+        TestExecutor.teardown();
+    }
+
+    @Before
+    public void setUp() {
+        clearPersistence();
+        mBackend = new MockBackend();
+    }
+
+    @After
+    public void teardown() {
+        if (mScheduler != null) {
+            mScheduler.dispose();
+        }
+        clearPersistence();
+    }
+
+    @Test
+    public void testParallelism() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 2, 0);
+        mBackend.queue("a", 10).queue("b", 10).queue("c", 10);
+
+        mScheduler.kick();
+
+        assertThat(mBackend.mStarted, contains("a", "b"));
+        assertThat(mScheduler.getUploadingCount(), is(2));
+        assertThat(mScheduler.getWaitingCount(), is(1));
+
+        mBackend.complete("a", UploadScheduler.Result.SUCCESS);
+
+        assertThat(mBackend.mStarted, contains("a", "b", "c"));
+        assertThat(mScheduler.getUploadingCount(), is(2));
+        assertThat(mScheduler.getWaitingCount(), is(0));
+    }
+
+    @Test
+    public void testByteBudget() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 3, 100);
+        mBackend.queue("a", 60).queue("b", 60).queue("c", 30).queue("d", 200);
+
+        mScheduler.kick();
+
+        // b does not fit in remaining budget, c does
+        assertThat(mBackend.mStarted, contains("a", "c"));
+
+        mBackend.complete("a", UploadScheduler.Result.SUCCESS);
+        assertThat(mBackend.mStarted, contains("a", "c", "b"));
+
+        mBackend.complete("b", UploadScheduler.Result.SUCCESS);
+        mBackend.complete("c", UploadScheduler.Result.SUCCESS);
+
+        // oversized item goes alone
+        assertThat(mBackend.mStarted, contains("a", "c", "b", "d"));
+    }
+
+    @Test
+    public void testBackoff() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 1, 0);
+        mBackend.queue("a", 10);
+
+        mScheduler.kick();
+        mBackend.complete("a", UploadScheduler.Result.SERVER_ERROR);
+
+        assertThat(mScheduler.isBackingOff(), is(true));
+        assertThat(mScheduler.getUploadingCount(), is(0));
+        assertThat(mScheduler.getWaitingCount(), is(1));
+
+        // server backoff is not ended by connectivity changes
+        mScheduler.resume();
+        assertThat(mBackend.mStarted, contains("a"));
+
+        TestExecutor.mockTimePasses(30, TimeUnit.SECONDS);
+        assertThat(mBackend.mStarted, contains("a", "a"));
+        assertThat(mScheduler.isBackingOff(), is(false));
+
+        // consecutive failure doubles delay
+        mBackend.complete("a", UploadScheduler.Result.SERVER_ERROR);
+        TestExecutor.mockTimePasses(30, TimeUnit.SECONDS);
+        assertThat(mBackend.mStarted, contains("a", "a"));
+        TestExecutor.mockTimePasses(30, TimeUnit.SECONDS);
+        assertThat(mBackend.mStarted, contains("a", "a", "a"));
+    }
+
+    @Test
+    public void testNetworkBackoffEndsOnResume() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 1, 0);
+        mBackend.queue("a", 10);
+
+        mScheduler.kick();
+        mBackend.complete("a", UploadScheduler.Result.NETWORK_ERROR);
+        assertThat(mScheduler.isBackingOff(), is(true));
+
+        mScheduler.resume();
+        assertThat(mScheduler.isBackingOff(), is(false));
+        assertThat(mBackend.mStarted, contains("a", "a"));
+    }
+
+    @Test
+    public void testCanceled() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 1, 0);
+        mBackend.queue("a", 10);
+
+        mScheduler.kick();
+        mBackend.complete("a", UploadScheduler.Result.CANCELED);
+
+        // canceled uploads neither back off nor restart by themselves
+        assertThat(mScheduler.isBackingOff(), is(false));
+        assertThat(mBackend.mStarted, contains("a"));
+
+        mScheduler.kick();
+        assertThat(mBackend.mStarted, contains("a", "a"));
+    }
+
+    @Test
+    public void testBackoffPersistence() {
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 1, 0);
+        mBackend.queue("a", 10);
+
+        mScheduler.kick();
+        mBackend.complete("a", UploadScheduler.Result.REJECTED);
+        mScheduler.dispose();
+
+        // mock application restart
+        mBackend = new MockBackend();
+        mBackend.queue("b", 10);
+        mScheduler = new UploadScheduler<>(mContext, NAME, mBackend, 1, 0);
+
+        assertThat(mScheduler.isBackingOff(), is(true));
+        mScheduler.kick();
+        assertThat(mBackend.mStarted, empty());
+    }
+
+    private void clearPersistence() {
+        mContext.getSharedPreferences(UploadScheduler.PREF_FILE, Context.MODE_PRIVATE).edit().clear().commit();
+    }
+
+    private static final class MockBackend implements UploadScheduler.Backend<String> {
+
+        final Map<String, Long> mQueue = new LinkedHashMap<>();
+
+        final List<String> mStarted = new ArrayList<>();
+
+        final Map<String, UploadScheduler.Completion> mCompletions = new HashMap<>();
+
+        MockBackend queue(@NonNull String item, long size) {
+            mQueue.put(item, size);
+            return this;
+        }
+
+        void complete(@NonNull String item, @NonNull UploadScheduler.Result result) {
+            if (result == UploadScheduler.Result.SUCCESS || result == UploadScheduler.Result.REJECTED) {
+                mQueue.remove(item);
+            }
+            UploadScheduler.Completion completion = mCompletions.remove(item);
+            assert completion != null;
+            completion.onUploadComplete(result);
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> candidates() {
+            return new ArrayList<>(mQueue.keySet());
+        }
+
+        @Override
+        public long sizeOf(@NonNull String item) {
+            Long size = mQueue.get(item);
+            return size == null ? 0 : size;
+        }
+
+        @NonNull
+        @Override
+        public HttpRequest upload(@NonNull String item, @NonNull UploadScheduler.Completion completion) {
+            mStarted.add(item);
+            mCompletions.put(item, completion);
+            return () -> {};
+        }
+
+        @Override
+        public void onStateChanged() {
+        }
+    }
+}
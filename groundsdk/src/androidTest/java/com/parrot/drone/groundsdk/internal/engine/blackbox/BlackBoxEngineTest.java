@@ -43,6 +43,7 @@ import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.MockComponentStore;
 import com.parrot.drone.groundsdk.internal.engine.MockEngineController;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.http.HttpBlackBoxClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.MockHttpSession;
@@ -134,6 +135,7 @@ public class BlackBoxEngineTest {
 
     @Before
     public void setUp() {
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
         GroundSdkConfig.loadDefaults();
         GroundSdkConfig.get().enableBlackBoxSupport(true, 0, "blackbox");
         mMockConnectivity = mock(SystemConnectivity.class);
@@ -173,6 +175,7 @@ public class BlackBoxEngineTest {
     @After
     public void teardown() {
         MockHttpSession.resetDefaultClients();
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
     }
 
     @Test
@@ -403,10 +406,16 @@ public class BlackBoxEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
-        // upload should resume from the failed report
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(4));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
+        // upload should resume from the next report
         verify(mMockHttpClient, times(1)).upload(eq(BLACKBOX_B), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
         assertThat(mFacilityChangeCnt, is(5));
@@ -450,9 +459,15 @@ public class BlackBoxEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(4));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
         // upload should resume from the failed blackbox
         verify(mMockHttpClient, times(2)).upload(eq(BLACKBOX_A), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
@@ -32,14 +32,16 @@
 
 package com.parrot.drone.groundsdk.internal.engine.crashreport;
 
-import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
 
 import com.parrot.drone.groundsdk.MockAppStorageProvider;
 import com.parrot.drone.groundsdk.facility.CrashReporter;
 import com.parrot.drone.groundsdk.facility.Facility;
 import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.MockComponentStore;
 import com.parrot.drone.groundsdk.internal.engine.MockEngineController;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.http.HttpCrashMlClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.MockHttpSession;
@@ -120,6 +122,8 @@ public class CrashReportEngineTest {
 
     @Before
     public void setUp() {
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
+        GroundSdkConfig.loadDefaults();
         mMockConnectivity = mock(SystemConnectivity.class);
         mMockUserAccountInfo = mock(UserAccountInfo.class);
         doReturn(MOCK_ACCOUNT).when(mMockUserAccountInfo).getAccountIdentifier();
@@ -136,7 +140,7 @@ public class CrashReportEngineTest {
 
         UtilityRegistry utilities = new UtilityRegistry();
         mEngine = mock(CrashReportEngine.class, withSettings()
-                .useConstructor(MockEngineController.create(mock(Context.class),
+                .useConstructor(MockEngineController.create(ApplicationProvider.getApplicationContext(),
                         utilities.registerUtility(SystemConnectivity.class, mMockConnectivity)
                                  .registerUtility(UserAccountInfo.class, mMockUserAccountInfo), mFacilityStore))
                 .defaultAnswer(CALLS_REAL_METHODS));
@@ -154,6 +158,7 @@ public class CrashReportEngineTest {
     @After
     public void teardown() {
         MockHttpSession.resetDefaultClients();
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
     }
 
     @Test
@@ -367,9 +372,15 @@ public class CrashReportEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(5));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
         // upload should resume from the failed report
         verify(mMockHttpClient, times(1)).upload(eq(REPORT_B), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
@@ -418,9 +429,15 @@ public class CrashReportEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(5));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
         // upload should resume from the failed report
         verify(mMockHttpClient, times(2)).upload(eq(REPORT_A), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
@@ -32,14 +32,16 @@
 
 package com.parrot.drone.groundsdk.internal.engine.flightlog;
 
-import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
 
 import com.parrot.drone.groundsdk.MockAppStorageProvider;
 import com.parrot.drone.groundsdk.facility.Facility;
 import com.parrot.drone.groundsdk.facility.FlightLogReporter;
 import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.MockComponentStore;
 import com.parrot.drone.groundsdk.internal.engine.MockEngineController;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.http.HttpFlightLogClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.MockHttpSession;
@@ -119,6 +121,8 @@ public class FlightLogEngineTest {
 
     @Before
     public void setUp() {
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
+        GroundSdkConfig.loadDefaults();
         mMockConnectivity = mock(SystemConnectivity.class);
         mMockUserAccountInfo = mock(UserAccountInfo.class);
         doReturn(MOCK_ACCOUNT).when(mMockUserAccountInfo).getAccountIdentifier();
@@ -135,7 +139,7 @@ public class FlightLogEngineTest {
 
         UtilityRegistry utilities = new UtilityRegistry();
         mEngine = mock(FlightLogEngine.class, withSettings()
-                .useConstructor(MockEngineController.create(mock(Context.class),
+                .useConstructor(MockEngineController.create(ApplicationProvider.getApplicationContext(),
                         utilities.registerUtility(SystemConnectivity.class, mMockConnectivity)
                                  .registerUtility(UserAccountInfo.class, mMockUserAccountInfo), mFacilityStore))
                 .defaultAnswer(CALLS_REAL_METHODS));
@@ -153,6 +157,7 @@ public class FlightLogEngineTest {
     @After
     public void teardown() {
         MockHttpSession.resetDefaultClients();
+        ApplicationProvider.getApplicationContext().deleteSharedPreferences(UploadScheduler.PREF_FILE);
     }
 
     @Test
@@ -354,9 +359,15 @@ public class FlightLogEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(4));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
         // upload should resume from the failed report
         verify(mMockHttpClient, times(1)).upload(eq(FLIGHT_LOG_B), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
@@ -401,9 +412,15 @@ public class FlightLogEngineTest {
 
         verifyNoMoreInteractions(mMockHttpClient);
 
-        // mock internet available again (to trigger the upload queue)
+        // mock internet available again, upload queue should still back off
         mockInternetAvailable();
 
+        verifyNoMoreInteractions(mMockHttpClient);
+        assertThat(mFacilityChangeCnt, is(4));
+
+        // mock backoff delay elapses
+        TestExecutor.mockTimePasses(1, TimeUnit.HOURS);
+
         // upload should resume from the failed flight log
         verify(mMockHttpClient, times(2)).upload(eq(FLIGHT_LOG_A), eq(MOCK_ACCOUNT), cbCaptor.capture());
 
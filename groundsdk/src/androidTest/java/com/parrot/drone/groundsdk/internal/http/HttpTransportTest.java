@@ -0,0 +1,298 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.http;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HttpTransportTest {
+
+    private static final long TIMEOUT = 5;
+
+    private MockServer mServer;
+
+    private HttpTransport.CallFactory mCallFactory;
+
+    private Results mResults;
+
+    @Before
+    public void setUp() {
+        mServer = new MockServer();
+        mCallFactory = HttpTransport.newCallFactory(new OkHttpClient.Builder().addInterceptor(mServer).build());
+        mResults = new Results();
+    }
+
+    @After
+    public void teardown() {
+        mCallFactory.cancelAll();
+        mServer.mResponses.release(100);
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BULK), is(0));
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BACKGROUND), is(0));
+    }
+
+    @Test
+    public void testPriorityOf() {
+        assertThat(HttpTransport.priorityOf(request(null)), is(HttpTransport.Priority.INTERACTIVE));
+        assertThat(HttpTransport.priorityOf(request("INTERACTIVE")), is(HttpTransport.Priority.INTERACTIVE));
+        assertThat(HttpTransport.priorityOf(request("BULK")), is(HttpTransport.Priority.BULK));
+        assertThat(HttpTransport.priorityOf(request(" BACKGROUND")), is(HttpTransport.Priority.BACKGROUND));
+        assertThat(HttpTransport.priorityOf(request("unknown")), is(HttpTransport.Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testAnnotationHeaders() {
+        assertThat(HttpTransport.BULK, is("Request-Priority: BULK"));
+        assertThat(HttpTransport.BACKGROUND, is("Request-Priority: BACKGROUND"));
+        assertThat(HttpTransport.INTERACTIVE, is("Request-Priority: INTERACTIVE"));
+    }
+
+    @Test
+    public void testBulkConcurrencyLimit() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            mCallFactory.newCall(request("BULK")).enqueue(mResults);
+        }
+
+        // only 4 bulk requests are sent, without priority header
+        for (int i = 0; i < 4; i++) {
+            assertThat(mServer.takeRequest().header(HttpTransport.PRIORITY_HEADER), nullValue());
+        }
+        mServer.assertNoRequest();
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BULK), is(4));
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(1));
+
+        // slot is still held while the response body is not consumed
+        mServer.respond(1);
+        Response response = mResults.takeResponse();
+        mServer.assertNoRequest();
+
+        // closing the body lets the waiting request start
+        response.close();
+        mServer.takeRequest();
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BULK), is(4));
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(0));
+    }
+
+    @Test
+    public void testBackgroundHeldBackByInteractive() throws InterruptedException {
+        mCallFactory.newCall(request(null)).enqueue(mResults);
+        mServer.takeRequest();
+
+        // background request waits while an interactive request is being sent
+        mCallFactory.newCall(request("BACKGROUND")).enqueue(mResults);
+        mServer.assertNoRequest();
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BACKGROUND), is(1));
+
+        // interactive request releases its slot once its response is received
+        mServer.respond(1);
+        mResults.takeResponse().close();
+        mServer.takeRequest();
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BACKGROUND), is(1));
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BACKGROUND), is(0));
+    }
+
+    @Test
+    public void testReleaseOnCancel() throws InterruptedException {
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Call call = mCallFactory.newCall(request("BULK"));
+            call.enqueue(mResults);
+            calls.add(call);
+        }
+        for (int i = 0; i < 4; i++) {
+            mServer.takeRequest();
+        }
+        // responses are received but bodies are left open, so all slots remain held
+        mServer.respond(4);
+        for (int i = 0; i < 4; i++) {
+            mResults.takeResponse();
+        }
+
+        // canceling a waiting call reports failure without sending it
+        Call waiting = mCallFactory.newCall(request("BULK"));
+        waiting.enqueue(mResults);
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(1));
+        waiting.cancel();
+        assertThat(mResults.take(), instanceOf(IOException.class));
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(0));
+        mServer.assertNoRequest();
+
+        // canceling a call whose body is left open releases its slot
+        mCallFactory.newCall(request("BULK")).enqueue(mResults);
+        mServer.assertNoRequest();
+        calls.get(0).cancel();
+        mServer.takeRequest();
+        assertThat(HttpTransport.runningCount(HttpTransport.Priority.BULK), is(4));
+    }
+
+    @Test
+    public void testSynchronousCallCanceledWhileWaiting() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            mCallFactory.newCall(request("BULK")).enqueue(mResults);
+            mServer.takeRequest();
+        }
+
+        Call call = mCallFactory.newCall(request("BULK"));
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                call.execute();
+            } catch (IOException e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (HttpTransport.waitingCount(HttpTransport.Priority.BULK) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(1));
+
+        call.cancel();
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertThat(error.get(), instanceOf(IOException.class));
+        assertThat(HttpTransport.waitingCount(HttpTransport.Priority.BULK), is(0));
+        mServer.assertNoRequest();
+    }
+
+    private static Request request(String priority) {
+        Request.Builder builder = new Request.Builder().url("http://test");
+        if (priority != null) {
+            builder.header(HttpTransport.PRIORITY_HEADER, priority);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Mock server that holds each request until told to respond.
+     */
+    private static final class MockServer implements Interceptor {
+
+        final BlockingQueue<Request> mRequests = new LinkedBlockingQueue<>();
+
+        final Semaphore mResponses = new Semaphore(0);
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            mRequests.add(chain.request());
+            try {
+                mResponses.acquire();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return new Response.Builder()
+                    .request(chain.request())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create("content", MediaType.parse("text/plain")))
+                    .build();
+        }
+
+        void respond(int count) {
+            mResponses.release(count);
+        }
+
+        @NonNull
+        Request takeRequest() throws InterruptedException {
+            Request request = mRequests.poll(TIMEOUT, TimeUnit.SECONDS);
+            assertThat(request, notNullValue());
+            return request;
+        }
+
+        void assertNoRequest() throws InterruptedException {
+            assertThat(mRequests.poll(200, TimeUnit.MILLISECONDS), nullValue());
+        }
+    }
+
+    /**
+     * Collects call results, either responses or failures.
+     */
+    private static final class Results implements Callback {
+
+        private final BlockingQueue<Object> mResults = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            mResults.add(e);
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) {
+            mResults.add(response);
+        }
+
+        @NonNull
+        Object take() throws InterruptedException {
+            Object result = mResults.poll(TIMEOUT, TimeUnit.SECONDS);
+            assertThat(result, notNullValue());
+            return result;
+        }
+
+        @NonNull
+        Response takeResponse() throws InterruptedException {
+            Object result = take();
+            assertThat(result, instanceOf(Response.class));
+            return (Response) result;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class FragmentedMp4WriterTest {
+
+    private static final byte[] SPS = {0x67, 0x64, 0x00, 0x28, (byte) 0xAC};
+
+    private static final byte[] PPS = {0x68, (byte) 0xEE, 0x3C, (byte) 0x80};
+
+    private ByteArrayOutputStream mOutput;
+
+    private FragmentedMp4Writer mWriter;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        mWriter = new FragmentedMp4Writer(Channels.newChannel(mOutput));
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+        ByteBuffer sps = ByteBuffer.wrap(SPS), pps = ByteBuffer.wrap(PPS);
+        mWriter.writeHeader(sps, pps, 1280, 720);
+
+        // parameter sets buffers are left untouched
+        assertThat(sps.remaining(), is(SPS.length));
+        assertThat(pps.remaining(), is(PPS.length));
+
+        ByteBuffer file = ByteBuffer.wrap(mOutput.toByteArray());
+        assertThat(boxTypes(file), contains("ftyp", "moov"));
+
+        ByteBuffer moov = child(file, "moov");
+        assertThat(boxTypes(moov), contains("mvhd", "trak", "mvex"));
+
+        ByteBuffer tkhd = child(child(moov, "trak"), "tkhd");
+        assertThat(tkhd.getInt(tkhd.position() + 76), is(1280 << 16));
+        assertThat(tkhd.getInt(tkhd.position() + 80), is(720 << 16));
+
+        ByteBuffer stbl = child(child(child(child(moov, "trak"), "mdia"), "minf"), "stbl");
+        assertThat(boxTypes(stbl), contains("stsd", "stts", "stsc", "stsz", "stco"));
+
+        ByteBuffer avc1 = child(stbl, "stsd");
+        avc1.position(avc1.position() + 8);
+        avc1 = child(avc1, "avc1");
+        assertThat((int) avc1.getShort(avc1.position() + 24), is(1280));
+        assertThat((int) avc1.getShort(avc1.position() + 26), is(720));
+        avc1.position(avc1.position() + 78);
+
+        ByteBuffer avcC = child(avc1, "avcC");
+        byte[] expected = new byte[11 + SPS.length + PPS.length];
+        ByteBuffer.wrap(expected)
+                  .put(new byte[] {1, 0x64, 0x00, 0x28, (byte) 0xFF, (byte) 0xE1})
+                  .putShort((short) SPS.length).put(SPS)
+                  .put((byte) 1)
+                  .putShort((short) PPS.length).put(PPS);
+        assertThat(bytes(avcC), is(expected));
+    }
+
+    @Test
+    public void testSamples() throws IOException {
+        mWriter.writeHeader(ByteBuffer.wrap(SPS), ByteBuffer.wrap(PPS), 1280, 720);
+        int headerSize = mOutput.size();
+
+        ByteBuffer key = ByteBuffer.allocateDirect(8).putInt(4).putInt(0x65888888);
+        key.flip();
+        ByteBuffer delta = ByteBuffer.allocateDirect(6).putInt(2).putShort((short) 0x4199);
+        delta.flip();
+
+        mWriter.writeSample(key, 0, 3000, true);
+        mWriter.writeSample(delta, 3000, 3003, false);
+
+        assertThat(key.hasRemaining(), is(false));
+        assertThat(delta.hasRemaining(), is(false));
+
+        ByteBuffer file = ByteBuffer.wrap(mOutput.toByteArray());
+        file.position(headerSize);
+        assertThat(boxTypes(file), contains("moof", "mdat", "moof", "mdat"));
+
+        assertFragment(file, 1, 0, 3000, 8, FragmentedMp4Writer.SAMPLE_FLAGS_SYNC);
+        assertThat(bytes(child(file, "mdat")), is(new byte[] {0, 0, 0, 4, 0x65, (byte) 0x88, (byte) 0x88,
+                                                              (byte) 0x88}));
+        skip(file);
+        skip(file);
+
+        assertFragment(file, 2, 3000, 3003, 6, FragmentedMp4Writer.SAMPLE_FLAGS_NON_SYNC);
+        skip(file);
+        assertThat(bytes(child(file, "mdat")), is(new byte[] {0, 0, 0, 2, 0x41, (byte) 0x99}));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSampleBeforeHeader() throws IOException {
+        mWriter.writeSample(ByteBuffer.allocate(4), 0, 3000, true);
+    }
+
+    private static void assertFragment(ByteBuffer file, int sequence, long decodeTime, int duration, int size,
+                                       int flags) {
+        int moofStart = file.position();
+        ByteBuffer moof = child(file, "moof");
+        assertThat(boxTypes(moof), contains("mfhd", "traf"));
+        assertThat(child(moof, "mfhd").getInt(4), is(sequence));
+
+        ByteBuffer traf = child(moof, "traf");
+        assertThat(boxTypes(traf), contains("tfhd", "tfdt", "trun"));
+        assertThat(child(traf, "tfdt").getLong(4), is(decodeTime));
+
+        ByteBuffer trun = child(traf, "trun");
+        assertThat(trun.getInt(4), is(1));
+        // data offset, from moof start, points to mdat payload
+        int dataOffset = trun.getInt(8);
+        assertThat(moofStart + dataOffset, is(moofStart + file.getInt(moofStart) + 8));
+        assertThat(trun.getInt(12), is(duration));
+        assertThat(trun.getInt(16), is(size));
+        assertThat(trun.getInt(20), is(flags));
+    }
+
+    private static List<String> boxTypes(ByteBuffer parent) {
+        List<String> types = new ArrayList<>();
+        ByteBuffer buffer = parent.duplicate();
+        while (buffer.hasRemaining()) {
+            int size = buffer.getInt(buffer.position());
+            types.add(type(buffer));
+            buffer.position(buffer.position() + size);
+        }
+        return types;
+    }
+
+    private static ByteBuffer child(ByteBuffer parent, String type) {
+        ByteBuffer buffer = parent.duplicate();
+        while (buffer.hasRemaining()) {
+            int size = buffer.getInt(buffer.position());
+            if (type(buffer).equals(type)) {
+                buffer.limit(buffer.position() + size).position(buffer.position() + 8);
+                return buffer.slice();
+            }
+            buffer.position(buffer.position() + size);
+        }
+        throw new AssertionError("No " + type + " box");
+    }
+
+    private static void skip(ByteBuffer buffer) {
+        buffer.position(buffer.position() + buffer.getInt(buffer.position()));
+    }
+
+    private static String type(ByteBuffer buffer) {
+        byte[] type = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            type[i] = buffer.get(buffer.position() + 4 + i);
+        }
+        return new String(type, StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
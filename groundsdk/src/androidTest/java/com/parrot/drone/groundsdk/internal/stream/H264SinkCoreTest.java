@@ -0,0 +1,98 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class H264SinkCoreTest {
+
+    private static final byte[] SPS = {0x67, 0x64, 0x00, 0x28, (byte) 0xAC};
+
+    private static final byte[] PPS = {0x68, (byte) 0xEE, 0x3C, (byte) 0x80};
+
+    @Test
+    public void testParameterSetFourBytesStartCode() {
+        ByteBuffer sps = H264SinkCore.parameterSet(withStartCode(new byte[] {0, 0, 0, 1}, SPS));
+        assertThat(toArray(sps), is(SPS));
+        assertThat(sps.isReadOnly(), is(true));
+    }
+
+    @Test
+    public void testParameterSetThreeBytesStartCode() {
+        ByteBuffer pps = H264SinkCore.parameterSet(withStartCode(new byte[] {0, 0, 1}, PPS));
+        assertThat(toArray(pps), is(PPS));
+        assertThat(pps.isReadOnly(), is(true));
+    }
+
+    @Test
+    public void testParameterSetRaw() {
+        ByteBuffer sps = H264SinkCore.parameterSet(ByteBuffer.wrap(SPS));
+        assertThat(toArray(sps), is(SPS));
+        assertThat(sps.isReadOnly(), is(true));
+    }
+
+    @Test
+    public void testParameterSetFromPosition() {
+        ByteBuffer buffer = ByteBuffer.allocate(SPS.length + 6).put(new byte[] {0x12, 0x34, 0, 0, 0, 1}).put(SPS);
+        buffer.position(2);
+        ByteBuffer sps = H264SinkCore.parameterSet(buffer);
+        assertThat(toArray(sps), is(SPS));
+        // slice starts at the NAL unit header, so that clearing it does not expose the start code
+        sps.clear();
+        assertThat(sps.get(0), is(SPS[0]));
+        assertThat(sps.remaining(), is(SPS.length));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void testParameterSetNotWritable() {
+        H264SinkCore.parameterSet(ByteBuffer.wrap(PPS.clone())).put(0, (byte) 0);
+    }
+
+    private static ByteBuffer withStartCode(byte[] startCode, byte[] nalu) {
+        ByteBuffer buffer = ByteBuffer.allocate(startCode.length + nalu.length).put(startCode).put(nalu);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class Mp4RecorderTest {
+
+    private static final File FILE = new File("test.mp4");
+
+    @Mock
+    private H264Sink mSink;
+
+    @Mock
+    private H264Sink.StreamInfo mStreamInfo;
+
+    @Mock
+    private Mp4Recorder.Listener mListener;
+
+    private ByteArrayOutputStream mOutput;
+
+    private Mp4Recorder mRecorder;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        mRecorder = new Mp4Recorder(FILE, mListener, file -> Channels.newChannel(mOutput));
+    }
+
+    @Test
+    public void testRecord() {
+        doReturn(ByteBuffer.wrap(new byte[] {0x67, 0x64, 0x00, 0x28})).when(mStreamInfo).sps();
+        doReturn(ByteBuffer.wrap(new byte[] {0x68, (byte) 0xEE})).when(mStreamInfo).pps();
+        doReturn(1280).when(mStreamInfo).width();
+        doReturn(720).when(mStreamInfo).height();
+
+        mRecorder.onStart(mSink, mStreamInfo);
+
+        H264Sink.AccessUnit delta0 = mock(H264Sink.AccessUnit.class);
+        mRecorder.onAccessUnit(mSink, delta0);
+
+        // recording waits for a key frame
+        verify(delta0).release();
+        verifyZeroInteractions(mListener);
+        assertThat(mOutput.size(), is(0));
+
+        H264Sink.AccessUnit key = accessUnit(true, 1000000);
+        mRecorder.onAccessUnit(mSink, key);
+
+        verify(mListener).onRecordStarted(FILE);
+        int headerSize = mOutput.size();
+        assertThat(headerSize > 0, is(true));
+        // key frame is kept until its duration is known
+        verify(key, never()).release();
+
+        H264Sink.AccessUnit delta1 = accessUnit(false, 1033333);
+        mRecorder.onAccessUnit(mSink, delta1);
+
+        verify(key).release();
+        verify(delta1, never()).release();
+        assertThat(mOutput.size(), is(headerSize + 108 + 8));
+
+        mRecorder.onStop(mSink);
+
+        verify(delta1).release();
+        assertThat(mOutput.size(), is(headerSize + 2 * (108 + 8)));
+        verify(mListener).onRecordStopped(eq(FILE), isNull());
+
+        // subsequent sessions are ignored
+        mRecorder.onStart(mSink, mStreamInfo);
+        H264Sink.AccessUnit key2 = mock(H264Sink.AccessUnit.class);
+        mRecorder.onAccessUnit(mSink, key2);
+        verify(key2).release();
+        assertThat(mOutput.size(), is(headerSize + 2 * (108 + 8)));
+    }
+
+    @Test
+    public void testOpenFailure() {
+        IOException error = new IOException();
+        mRecorder = new Mp4Recorder(FILE, mListener, file -> {
+            throw error;
+        });
+        mRecorder.onStart(mSink, mStreamInfo);
+
+        H264Sink.AccessUnit key = mock(H264Sink.AccessUnit.class);
+        doReturn(true).when(key).isKeyFrame();
+        mRecorder.onAccessUnit(mSink, key);
+
+        verify(key).release();
+        verify(mListener).onRecordStopped(FILE, error);
+        verify(mListener, never()).onRecordStarted(any());
+    }
+
+    private H264Sink.AccessUnit accessUnit(boolean keyFrame, long timestamp) {
+        H264Sink.AccessUnit accessUnit = mock(H264Sink.AccessUnit.class);
+        doReturn(ByteBuffer.allocateDirect(8).putInt(4).putInt(keyFrame ? 0x65000000 : 0x41000000).flip())
+                .when(accessUnit).data();
+        if (keyFrame) {
+            doReturn(true).when(accessUnit).isKeyFrame();
+        }
+        doReturn(timestamp).when(accessUnit).ntpTimestamp();
+        return accessUnit;
+    }
+}
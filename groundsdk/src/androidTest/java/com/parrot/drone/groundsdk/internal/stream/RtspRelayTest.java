@@ -0,0 +1,636 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class RtspRelayTest {
+
+    private static final byte[] SPS = {0x67, 0x64, 0x00, 0x28, (byte) 0xAC, 0x2B};
+
+    private static final byte[] PPS = {0x68, (byte) 0xEE, 0x3C, (byte) 0x80};
+
+    private static final H264Sink SINK = () -> {};
+
+    private static final int TIMEOUT = 5000;
+
+    private RtspRelay mRelay;
+
+    private H264Sink.Callback mFeed;
+
+    private RtspClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mRelay = new RtspRelay(InetAddress.getLoopbackAddress(), 0, 1024, 1);
+        mRelay.start();
+        mFeed = mRelay.sinkCallback();
+        mClient = new RtspClient(mRelay.getPort());
+    }
+
+    private void restart(long sessionTimeout, long writeTimeout) throws IOException {
+        mClient.close();
+        mRelay.stop();
+        mRelay = new RtspRelay(InetAddress.getLoopbackAddress(), 0, 1024, 1);
+        mRelay.setTimeouts(sessionTimeout, writeTimeout);
+        mRelay.start();
+        mFeed = mRelay.sinkCallback();
+        mClient = new RtspClient(mRelay.getPort());
+    }
+
+    @After
+    public void teardown() throws IOException {
+        mClient.close();
+        mRelay.stop();
+    }
+
+    @Test
+    public void testLifecycle() {
+        assertThat(mRelay.getAddress(), is(InetAddress.getLoopbackAddress()));
+        assertThat(mRelay.getPort(), greaterThan(0));
+
+        mRelay.stop();
+        assertThat(mRelay.getAddress(), nullValue());
+        assertThat(mRelay.getPort(), is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartAfterStop() throws IOException {
+        mRelay.stop();
+        mRelay.start();
+    }
+
+    @Test
+    public void testMaxSessions() throws IOException {
+        assertThat(mClient.request("OPTIONS", "*").mStatus, is(200));
+
+        // relay is full, extra client must be disconnected
+        RtspClient rejected = new RtspClient(mRelay.getPort());
+        try {
+            rejected.request("OPTIONS", "*");
+            fail("Extra client not rejected");
+        } catch (IOException expected) {
+            // connection closed by the relay
+        } finally {
+            rejected.close();
+        }
+
+        // once the first client leaves, a new one may connect
+        mClient.close();
+        reconnect();
+    }
+
+    @Test
+    public void testSetupInvalidTransport() throws IOException {
+        mFeed.onStart(SINK, new StreamInfo());
+        assertThat(mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP;unicast;client_port=70000-70001").mStatus, is(461));
+        assertThat(mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP;unicast;client_port=65535-65536").mStatus, is(461));
+        assertThat(mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP;unicast;client_port=-2-1").mStatus, is(461));
+        assertThat(mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=255-256").mStatus, is(461));
+
+        // session still usable
+        assertThat(mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=0-1").mStatus, is(200));
+    }
+
+    @Test
+    public void testMalformedRequestClosesSession() throws IOException {
+        try {
+            mClient.request("OPTIONS", "*", "Content-Length: -1000000");
+            fail("Malformed request not rejected");
+        } catch (IOException expected) {
+            // connection closed by the relay
+        }
+        mClient.close();
+
+        // relay still serves clients
+        reconnect();
+    }
+
+    @Test
+    public void testSilentClientTimesOut() throws IOException {
+        restart(300, RtspRelay.WRITE_TIMEOUT);
+
+        // client connects but never sends anything
+        mClient.awaitClosed();
+
+        // slot is released
+        reconnect();
+    }
+
+    @Test
+    public void testKeepAlive() throws IOException, InterruptedException {
+        restart(300, RtspRelay.WRITE_TIMEOUT);
+        mFeed.onStart(SINK, new StreamInfo());
+        Response response = mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=0-1");
+        assertThat(response.mHeaders.get("session"), containsString(";timeout=1"));
+        mClient.mSession = response.mHeaders.get("session").split(";")[0];
+
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(100);
+            assertThat(mClient.request("GET_PARAMETER", mClient.mUrl).mStatus, is(200));
+        }
+    }
+
+    @Test
+    public void testStalledClientClosed() throws IOException {
+        restart(RtspRelay.SESSION_TIMEOUT, 300);
+        mFeed.onStart(SINK, new StreamInfo());
+        Response response = mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=0-1");
+        mClient.mSession = response.mHeaders.get("session").split(";")[0];
+        assertThat(mClient.request("PLAY", mClient.mUrl).mStatus, is(200));
+        awaitClient();
+
+        // client stops reading, so that sending blocks once socket buffers are full
+        for (int i = 0; i < 200; i++) {
+            mFeed.onAccessUnit(SINK, new AccessUnit(i % 10 == 0, i * 33333L, nalUnit(i % 10 == 0 ? 5 : 1, 14000)));
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!mRelay.getClientStats().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertThat(mRelay.getClientStats().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDescribe() throws IOException {
+        assertThat(mClient.request("OPTIONS", "*").mStatus, is(200));
+
+        // stream not started yet
+        assertThat(mClient.request("DESCRIBE", mClient.mUrl).mStatus, is(503));
+
+        mFeed.onStart(SINK, new StreamInfo());
+
+        Response response = mClient.request("DESCRIBE", mClient.mUrl);
+        assertThat(response.mStatus, is(200));
+        assertThat(response.mHeaders.get("content-type"), is("application/sdp"));
+        assertThat(response.mBody, containsString("a=rtpmap:96 H264/90000"));
+        assertThat(response.mBody, containsString("profile-level-id=640028"));
+        assertThat(response.mBody, containsString("sprop-parameter-sets="
+                                                  + Base64.encodeToString(SPS, Base64.NO_WRAP) + ","
+                                                  + Base64.encodeToString(PPS, Base64.NO_WRAP)));
+
+        assertThat(mClient.request("PLAY", mClient.mUrl).mStatus, is(455));
+        assertThat(mClient.request("DESCRIBE", "rtsp://127.0.0.1/other").mStatus, is(404));
+    }
+
+    @Test
+    public void testInterleaved() throws IOException {
+        mFeed.onStart(SINK, new StreamInfo());
+        Response response = mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=2-3");
+        assertThat(response.mStatus, is(200));
+        assertThat(response.mHeaders.get("transport"), containsString("interleaved=2-3"));
+        mClient.mSession = response.mHeaders.get("session").split(";")[0];
+        assertThat(mClient.request("PLAY", mClient.mUrl).mStatus, is(200));
+        awaitClient();
+
+        byte[] large = nalUnit(5, 3000);
+        byte[] small = nalUnit(5, 100);
+        AccessUnit key = new AccessUnit(true, 1000000, small, large);
+        mFeed.onAccessUnit(SINK, key);
+        AccessUnit delta = new AccessUnit(false, 1033333, nalUnit(1, 200));
+        mFeed.onAccessUnit(SINK, delta);
+
+        assertThat(key.mReleased, is(true));
+        assertThat(delta.mReleased, is(true));
+
+        List<byte[]> packets = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            packets.add(mClient.readInterleaved(2));
+        }
+        assertPackets(packets, key, delta);
+
+        RtspRelay.ClientStats stats = mRelay.getClientStats().get(0);
+        assertThat(stats.isInterleaved(), is(true));
+        assertThat(stats.getPacketsDropped(), is(0L));
+
+        assertThat(mClient.request("TEARDOWN", mClient.mUrl).mStatus, is(200));
+    }
+
+    @Test
+    public void testUdp() throws IOException {
+        mFeed.onStart(SINK, new StreamInfo());
+        try (DatagramSocket rtp = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            rtp.setSoTimeout(TIMEOUT);
+            int port = rtp.getLocalPort();
+            Response response = mClient.request("SETUP", mClient.mUrl + "/track0",
+                    "Transport: RTP/AVP;unicast;client_port=" + port + "-" + (port + 1));
+            assertThat(response.mStatus, is(200));
+            assertThat(response.mHeaders.get("transport"), containsString("server_port="));
+            mClient.mSession = response.mHeaders.get("session").split(";")[0];
+            assertThat(mClient.request("PLAY", mClient.mUrl).mStatus, is(200));
+            awaitClient();
+
+            AccessUnit key = new AccessUnit(true, 1000000, nalUnit(5, 100), nalUnit(5, 3000));
+            mFeed.onAccessUnit(SINK, key);
+            AccessUnit delta = new AccessUnit(false, 1033333, nalUnit(1, 200));
+            mFeed.onAccessUnit(SINK, delta);
+
+            List<byte[]> packets = new ArrayList<>();
+            byte[] buffer = new byte[2048];
+            for (int i = 0; i < 7; i++) {
+                DatagramPacket datagram = new DatagramPacket(buffer, buffer.length);
+                rtp.receive(datagram);
+                byte[] packet = new byte[datagram.getLength()];
+                System.arraycopy(buffer, 0, packet, 0, packet.length);
+                packets.add(packet);
+            }
+            assertPackets(packets, key, delta);
+
+            RtspRelay.ClientStats stats = mRelay.getClientStats().get(0);
+            assertThat(stats.isInterleaved(), is(false));
+            assertThat(stats.getPacketsSent(), is(7L));
+        }
+    }
+
+    @Test
+    public void testSlowClientDropsToKeyFrame() throws IOException {
+        mFeed.onStart(SINK, new StreamInfo());
+        Response response = mClient.request("SETUP", mClient.mUrl + "/track0",
+                "Transport: RTP/AVP/TCP;unicast;interleaved=0-1");
+        mClient.mSession = response.mHeaders.get("session").split(";")[0];
+        assertThat(mClient.request("PLAY", mClient.mUrl).mStatus, is(200));
+        awaitClient();
+
+        // feed much more than socket buffers and the ring can hold while the client does not read; each access unit
+        // spans about 10 packets, each GOP 10 access units, so that the last GOP still fits in the ring
+        int accessUnits = 2000;
+        for (int i = 0; i < accessUnits; i++) {
+            mFeed.onAccessUnit(SINK, new AccessUnit(i % 10 == 0, i * 33333L, nalUnit(i % 10 == 0 ? 5 : 1, 14000)));
+        }
+        int lastTimestamp = (int) ((accessUnits - 1) * 33333L * 9 / 100);
+
+        // read until the last packet; after each gap, the client must resume at a key frame
+        int previousSequence = -1;
+        int gaps = 0;
+        while (true) {
+            ByteBuffer packet = ByteBuffer.wrap(mClient.readInterleaved(0));
+            int sequence = packet.getShort(2) & 0xFFFF;
+            if (previousSequence >= 0 && sequence != ((previousSequence + 1) & 0xFFFF)) {
+                gaps++;
+                assertThat(packet.get(12) & 0x1F, is(7)); // SPS, first packet of a key frame
+            }
+            previousSequence = sequence;
+            if ((packet.get(1) & 0x80) != 0 && packet.getInt(4) == lastTimestamp) {
+                break;
+            }
+        }
+        assertThat(gaps, greaterThan(0));
+
+        RtspRelay.ClientStats stats = mRelay.getClientStats().get(0);
+        assertThat(stats.getResyncs(), greaterThan(0L));
+        assertThat(stats.getPacketsDropped(), greaterThan(0L));
+        assertThat(stats.getMaxLatency(), greaterThan(0L));
+    }
+
+    private void reconnect() throws IOException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (true) {
+            mClient = new RtspClient(mRelay.getPort());
+            try {
+                assertThat(mClient.request("OPTIONS", "*").mStatus, is(200));
+                return;
+            } catch (IOException e) {
+                mClient.close();
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void awaitClient() {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (mRelay.getClientStats().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertThat(mRelay.getClientStats().size(), is(1));
+    }
+
+    private static void assertPackets(@NonNull List<byte[]> packets, @NonNull AccessUnit key,
+                                      @NonNull AccessUnit delta) {
+        // SPS, PPS, small NAL unit, large NAL unit in 3 FU-A packets, then delta NAL unit
+        int firstSequence = ByteBuffer.wrap(packets.get(0)).getShort(2) & 0xFFFF;
+        for (int i = 0; i < packets.size(); i++) {
+            ByteBuffer packet = ByteBuffer.wrap(packets.get(i));
+            assertThat(packet.get(0) & 0xFF, is(0x80));
+            assertThat(packet.get(1) & 0x7F, is(RtpH264Packetizer.PAYLOAD_TYPE));
+            assertThat(packet.getShort(2) & 0xFFFF, is((firstSequence + i) & 0xFFFF));
+            assertThat(packet.getInt(4), is(i < 6 ? 90000 : 92999));
+            // marker on the last packet of each access unit
+            assertThat((packet.get(1) & 0x80) != 0, is(i == 5 || i == 6));
+        }
+        assertThat(payload(packets.get(0)), is(SPS));
+        assertThat(payload(packets.get(1)), is(PPS));
+        assertThat(payload(packets.get(2)), is(key.mNalUnits[0]));
+
+        byte[] large = key.mNalUnits[1];
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        reassembled.write((packets.get(3)[12] & 0xE0) | (packets.get(3)[13] & 0x1F));
+        for (int i = 3; i <= 5; i++) {
+            byte[] payload = payload(packets.get(i));
+            assertThat(payload[0] & 0x1F, is(28));
+            assertThat(payload[1] & 0xC0, is(i == 3 ? 0x80 : i == 5 ? 0x40 : 0));
+            reassembled.write(payload, 2, payload.length - 2);
+        }
+        assertThat(reassembled.toByteArray(), is(large));
+
+        assertThat(payload(packets.get(6)), is(delta.mNalUnits[0]));
+    }
+
+    private static byte[] payload(@NonNull byte[] packet) {
+        byte[] payload = new byte[packet.length - RtpH264Packetizer.HEADER_SIZE];
+        System.arraycopy(packet, RtpH264Packetizer.HEADER_SIZE, payload, 0, payload.length);
+        return payload;
+    }
+
+    private static byte[] nalUnit(int type, int length) {
+        byte[] nal = new byte[length];
+        nal[0] = (byte) (0x60 | type);
+        for (int i = 1; i < length; i++) {
+            nal[i] = (byte) i;
+        }
+        return nal;
+    }
+
+    private static final class StreamInfo implements H264Sink.StreamInfo {
+
+        @Override
+        public int width() {
+            return 1280;
+        }
+
+        @Override
+        public int height() {
+            return 720;
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer sps() {
+            return ByteBuffer.wrap(SPS).asReadOnlyBuffer();
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer pps() {
+            return ByteBuffer.wrap(PPS).asReadOnlyBuffer();
+        }
+    }
+
+    private static final class AccessUnit implements H264Sink.AccessUnit {
+
+        final byte[][] mNalUnits;
+
+        private final ByteBuffer mData;
+
+        private final boolean mKeyFrame;
+
+        private final long mTimestamp;
+
+        boolean mReleased;
+
+        AccessUnit(boolean keyFrame, long timestamp, @NonNull byte[]... nalUnits) {
+            mNalUnits = nalUnits;
+            int length = 0;
+            for (byte[] nal : nalUnits) {
+                length += 4 + nal.length;
+            }
+            mData = ByteBuffer.allocateDirect(length);
+            for (byte[] nal : nalUnits) {
+                mData.putInt(nal.length).put(nal);
+            }
+            mData.flip();
+            mKeyFrame = keyFrame;
+            mTimestamp = timestamp;
+        }
+
+        @Override
+        public long nativePtr() {
+            return 0;
+        }
+
+        @NonNull
+        @Override
+        public H264Sink.StreamInfo streamInfo() {
+            return new StreamInfo();
+        }
+
+        @NonNull
+        @Override
+        public H264Sink.Format format() {
+            return H264Sink.Format.AVCC;
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer data() {
+            return mData;
+        }
+
+        @Override
+        public boolean isKeyFrame() {
+            return mKeyFrame;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return true;
+        }
+
+        @Override
+        public boolean isSilent() {
+            return false;
+        }
+
+        @Override
+        public long ntpTimestamp() {
+            return mTimestamp;
+        }
+
+        @Override
+        public long captureTimestamp() {
+            return 0;
+        }
+
+        @Override
+        public void copyTo(@NonNull ByteBuffer dest) {
+            dest.put(mData.duplicate());
+        }
+
+        @NonNull
+        @Override
+        public H264Sink.AccessUnit retain() {
+            return this;
+        }
+
+        @Override
+        public void release() {
+            mReleased = true;
+        }
+    }
+
+    private static final class Response {
+
+        final int mStatus;
+
+        final Map<String, String> mHeaders;
+
+        final String mBody;
+
+        Response(int status, @NonNull Map<String, String> headers, @NonNull String body) {
+            mStatus = status;
+            mHeaders = headers;
+            mBody = body;
+        }
+    }
+
+    private static final class RtspClient {
+
+        final String mUrl;
+
+        String mSession;
+
+        private final Socket mSocket;
+
+        private final DataInputStream mIn;
+
+        private int mCSeq;
+
+        RtspClient(int port) throws IOException {
+            mUrl = "rtsp://127.0.0.1:" + port + RtspRelay.PATH;
+            mSocket = new Socket();
+            mSocket.setReceiveBufferSize(4096);
+            mSocket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            mSocket.setSoTimeout(TIMEOUT);
+            mIn = new DataInputStream(mSocket.getInputStream());
+        }
+
+        Response request(@NonNull String method, @NonNull String uri, @NonNull String... headers) throws IOException {
+            StringBuilder request = new StringBuilder(method).append(' ').append(uri).append(" RTSP/1.0\r\n")
+                                                             .append("CSeq: ").append(++mCSeq).append("\r\n");
+            if (mSession != null) {
+                request.append("Session: ").append(mSession).append("\r\n");
+            }
+            for (String header : headers) {
+                request.append(header).append("\r\n");
+            }
+            request.append("\r\n");
+            mSocket.getOutputStream().write(request.toString().getBytes(StandardCharsets.UTF_8));
+
+            String statusLine = readLine(mIn);
+            Map<String, String> responseHeaders = new HashMap<>();
+            for (String line = readLine(mIn); !line.isEmpty(); line = readLine(mIn)) {
+                int colon = line.indexOf(':');
+                responseHeaders.put(line.substring(0, colon).trim().toLowerCase(Locale.US),
+                        line.substring(colon + 1).trim());
+            }
+            assertThat(responseHeaders.get("cseq"), is(Integer.toString(mCSeq)));
+            String contentLength = responseHeaders.get("content-length");
+            byte[] body = new byte[contentLength == null ? 0 : Integer.parseInt(contentLength)];
+            mIn.readFully(body);
+            return new Response(Integer.parseInt(statusLine.split(" ")[1]), responseHeaders,
+                    new String(body, StandardCharsets.UTF_8));
+        }
+
+        byte[] readInterleaved(int channel) throws IOException {
+            assertThat(mIn.readByte(), is((byte) '$'));
+            assertThat(mIn.readUnsignedByte(), is(channel));
+            byte[] packet = new byte[mIn.readUnsignedShort()];
+            mIn.readFully(packet);
+            return packet;
+        }
+
+        void awaitClosed() throws IOException {
+            //noinspection StatementWithEmptyBody
+            while (mIn.read() >= 0) {
+            }
+        }
+
+        void close() throws IOException {
+            mSocket.close();
+        }
+
+        private static String readLine(@NonNull InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Connection closed");
+                }
+                if (c != '\r') {
+                    line.write(c);
+                }
+            }
+            return new String(line.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RtspSessionTest {
+
+    @Test
+    public void testParseRequest() throws IOException {
+        ByteBuffer in = buffer("OPTIONS * RTSP/1.0\r\nCSeq: 1\r\n\r\n"
+                               + "SET_PARAMETER rtsp://host/live RTSP/1.0\r\nCSeq: 2\r\nContent-Length: 4\r\n\r\nabcd");
+
+        RtspSession.Request request = RtspSession.parseRequest(in);
+        assertThat(request.mMethod, is("OPTIONS"));
+        assertThat(request.mUri, is("*"));
+        assertThat(request.header("cseq"), is("1"));
+
+        request = RtspSession.parseRequest(in);
+        assertThat(request.mMethod, is("SET_PARAMETER"));
+        assertThat(request.header("cseq"), is("2"));
+        assertThat(in.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void testParseIncompleteRequest() throws IOException {
+        ByteBuffer in = buffer("OPTIONS * RTSP/1.0\r\nCSeq: 1\r\n");
+        assertThat(RtspSession.parseRequest(in), nullValue());
+        assertThat(in.position(), is(0));
+
+        // body not fully received yet
+        in = buffer("SET_PARAMETER * RTSP/1.0\r\nContent-Length: 10\r\n\r\nabcd");
+        assertThat(RtspSession.parseRequest(in), nullValue());
+        assertThat(in.position(), is(0));
+    }
+
+    @Test
+    public void testParseSkipsInterleavedFrames() throws IOException {
+        ByteBuffer rtcp = ByteBuffer.allocate(8).put((byte) '$').put((byte) 1).putShort((short) 4).putInt(0);
+        rtcp.flip();
+        ByteBuffer request = buffer("OPTIONS * RTSP/1.0\r\n\r\n");
+        ByteBuffer in = ByteBuffer.allocate(rtcp.remaining() + request.remaining()).put(rtcp).put(request);
+        in.flip();
+
+        assertThat(RtspSession.parseRequest(in).mMethod, is("OPTIONS"));
+        assertThat(in.hasRemaining(), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseNegativeContentLength() throws IOException {
+        RtspSession.parseRequest(buffer("OPTIONS * RTSP/1.0\r\nContent-Length: -1000000\r\n\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseSmallNegativeContentLength() throws IOException {
+        RtspSession.parseRequest(buffer("OPTIONS * RTSP/1.0\r\nContent-Length: -4\r\n\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseOversizedContentLength() throws IOException {
+        RtspSession.parseRequest(buffer("OPTIONS * RTSP/1.0\r\nContent-Length: 2147483647\r\n\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseInvalidContentLength() throws IOException {
+        RtspSession.parseRequest(buffer("OPTIONS * RTSP/1.0\r\nContent-Length: 1e3\r\n\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseMalformedRequestLine() throws IOException {
+        RtspSession.parseRequest(buffer("GET /\r\n\r\n"));
+    }
+
+    @NonNull
+    private static ByteBuffer buffer(@NonNull String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -109,4 +109,45 @@ public interface FlightDataDownloader extends Peripheral {
      */
     @IntRange(from = 0)
     int getLatestDownloadCount();
+
+    /**
+     * Flight data download stage.
+     * <p>
+     * Each flight data file goes through all stages in order.
+     */
+    enum Stage {
+
+        /** Raw flight data file is transferred from the device. */
+        TRANSFER,
+
+        /** Transferred file is converted and stored on the user device. */
+        CONVERSION,
+
+        /** File is deleted from the device. */
+        DELETION
+    }
+
+    /**
+     * Retrieves the total count of flight data files to process in the latest download.
+     * <p>
+     * This count includes files that failed to be downloaded. It is reset when flight data files download starts
+     * again.
+     *
+     * @return latest total flight data files count
+     */
+    @IntRange(from = 0)
+    int getLatestTotalCount();
+
+    /**
+     * Retrieves the count of flight data files that went through the given stage in the latest download.
+     * <p>
+     * Counts are reset to {@code 0} when flight data files download starts again. The {@link Stage#CONVERSION} count
+     * is the same as {@link #getLatestDownloadCount()}.
+     *
+     * @param stage download stage
+     *
+     * @return count of flight data files that completed the given stage
+     */
+    @IntRange(from = 0)
+    int getStageProgress(@NonNull Stage stage);
 }
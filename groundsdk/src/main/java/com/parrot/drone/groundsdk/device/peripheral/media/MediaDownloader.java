@@ -111,6 +111,16 @@ public interface MediaDownloader {
     @IntRange(from = 0, to = 100)
     int getCurrentFileProgress();
 
+    /**
+     * Retrieves the aggregate download throughput.
+     * <p>
+     * This is the average rate at which data has been received since the download task started.
+     *
+     * @return download throughput, in bytes per second
+     */
+    @IntRange(from = 0)
+    long getThroughput();
+
     /**
      * Retrieves the downloaded file.
      * <p>
@@ -133,6 +133,51 @@ public final class GroundSdkConfig {
         }
     }
 
+    /**
+     * Component change notification mode.
+     * <p>
+     * Supported values are:
+     * <ul>
+     * <li>{@code IMMEDIATE} to notify component observers as soon as a component changes, </li>
+     * <li>{@code FRAME} to notify component observers at most once per display frame, </li>
+     * <li>{@code TICK} to notify component observers at most once per configured tick period. </li>
+     * </ul>
+     */
+    public enum ComponentNotificationMode {
+
+        /** Component observers are notified synchronously, as soon as a component changes. */
+        IMMEDIATE("IMMEDIATE"),
+
+        /** Component changes are collected and notified once per display frame. */
+        FRAME("FRAME"),
+
+        /** Component changes are collected and notified once per configured tick period. */
+        TICK("TICK");
+
+        /** String used in resources for this setting value. */
+        @NonNull
+        private final String mKey;
+
+        /**
+         * Constructor.
+         *
+         * @param key String used in resources for this setting value
+         */
+        ComponentNotificationMode(@NonNull String key) {
+            mKey = key;
+        }
+
+        /**
+         * Gets the storage string key.
+         *
+         * @return storage string key
+         */
+        @NonNull
+        String getKey() {
+            return mKey;
+        }
+    }
+
     /** Singleton instance. */
     @Nullable
     private static GroundSdkConfig sInstance;
@@ -191,6 +236,15 @@ public final class GroundSdkConfig {
     /** {@code true} if video decoding is enabled. */
     private boolean mVideoDecodingEnabled;
 
+    /** {@code true} if devices settings are persisted in journal files. */
+    private boolean mPersistentStoreJournalEnabled;
+
+    /** {@code true} if commands exchanged with connected devices are captured to files. */
+    private boolean mArsdkCommandCaptureEnabled;
+
+    /** {@code true} if device controllers offload received telemetry processing to a dedicated engine thread. */
+    private boolean mEngineThreadEnabled;
+
     /** {@code true} if auto-connection should start immediately when the first session is opened. */
     private boolean mAutoConnectionAtStartup;
 
@@ -205,6 +259,14 @@ public final class GroundSdkConfig {
     @NonNull
     private OfflineSettingsMode mOfflineSettingsMode;
 
+    /** Component change notification mode. */
+    @NonNull
+    private ComponentNotificationMode mComponentNotificationMode;
+
+    /** Component change notification period, in milliseconds, when notification mode is {@code TICK}. */
+    @IntRange(from = 1)
+    private final int mComponentNotificationTick;
+
     /** Supported device models. */
     @NonNull
     private Set<DeviceModel> mSupportedDevices;
@@ -241,6 +303,61 @@ public final class GroundSdkConfig {
     @IntRange(from = 0)
     private final long mThumbnailCacheSize;
 
+    /** Media thumbnail max disk cache size, in bytes. {@code 0} when the disk cache is disabled. */
+    @IntRange(from = 0)
+    private final long mThumbnailDiskCacheSize;
+
+    /** Maximum number of media thumbnails fetched concurrently. */
+    @IntRange(from = 1)
+    private final int mThumbnailMaxConcurrentFetches;
+
+    /** Maximum number of concurrent connections used to download a single media resource. */
+    @IntRange(from = 1)
+    private final int mMediaDownloadConnections;
+
+    /** Maximum number of reports uploaded concurrently by each reporter engine. */
+    @IntRange(from = 1)
+    private final int mReportUploadParallelism;
+
+    /**
+     * Maximum cumulated size of reports uploaded concurrently by each reporter engine, in bytes. {@code 0} when
+     * unlimited.
+     */
+    @IntRange(from = 0)
+    private final long mReportUploadByteBudget;
+
+    /**
+     * Maximum count of flight data files transferred from the device ahead of their conversion. {@code 0} when
+     * transfer and conversion are not pipelined.
+     */
+    @IntRange(from = 0)
+    private int mFlightDataPrefetchDepth;
+
+    /**
+     * Period at which controller location and barometer are sent to a flying drone, in milliseconds. {@code 0} when
+     * each system sensor update is sent as soon as it is received.
+     */
+    @IntRange(from = 0)
+    private int mControllerInfoUplinkPeriod;
+
+    /**
+     * Period at which controller location and barometer are sent to a drone tracking the controller, in
+     * milliseconds.
+     */
+    @IntRange(from = 1)
+    private int mControllerInfoUplinkTrackingPeriod;
+
+    /** Period at which controller location and barometer are sent to a landed drone, in milliseconds. */
+    @IntRange(from = 1)
+    private int mControllerInfoUplinkLandedPeriod;
+
+    /**
+     * Maximum time spent dispatching device events on the main thread in one go, in milliseconds. {@code 0} when
+     * unlimited.
+     */
+    @IntRange(from = 0)
+    private int mMainDispatchSliceBudget;
+
     /** True if the config has been locked and cannot be change anymore. */
     private boolean mLocked;
 
@@ -314,6 +431,9 @@ public final class GroundSdkConfig {
         mCrashReportEnabled = resources.getBoolean(R.bool.gsdk_crash_report_enabled);
         mFlightLogEnabled = resources.getBoolean(R.bool.gsdk_flight_log_enabled);
         mVideoDecodingEnabled = resources.getBoolean(R.bool.gsdk_video_decoding_enabled);
+        mPersistentStoreJournalEnabled = resources.getBoolean(R.bool.gsdk_persistent_store_journal_enabled);
+        mArsdkCommandCaptureEnabled = resources.getBoolean(R.bool.gsdk_arsdk_command_capture_enabled);
+        mEngineThreadEnabled = resources.getBoolean(R.bool.gsdk_engine_thread_enabled);
         mFirmwareEnabled = resources.getBoolean(R.bool.gsdk_firmware_enabled);
         mAlternateFirmwareServer = resources.getString(R.string.gsdk_firmware_server);
         mBlackBoxEnabled = resources.getBoolean(R.bool.gsdk_blackbox_enabled);
@@ -325,6 +445,8 @@ public final class GroundSdkConfig {
         mAutoSelectWifiCountry = resources.getBoolean(R.bool.gsdk_auto_select_wifi_country);
         mReverseGeocoderDefaultCountryCode = resources.getString(R.string.gsdk_reverse_geocoder_default_country_code);
         mOfflineSettingsMode = offlineSettingsModeFromString(resources.getString(R.string.gsdk_offline_settings_mode));
+        mComponentNotificationMode = componentNotificationModeFromString(
+                resources.getString(R.string.gsdk_component_notification_mode));
         mSupportedDevices = deviceModelsFromStringArray(resources.getStringArray(R.array.gsdk_supported_devices));
         mApplicationPackage = context.getPackageName();
         try {
@@ -367,6 +489,62 @@ public final class GroundSdkConfig {
         if (mThumbnailCacheSize < 0) {
             throw new ConfigurationError("gsdk_media_thumbnail_cache_size must be positive");
         }
+
+        mThumbnailDiskCacheSize = resources.getInteger(R.integer.gsdk_media_thumbnail_disk_cache_size);
+        if (mThumbnailDiskCacheSize < 0) {
+            throw new ConfigurationError("gsdk_media_thumbnail_disk_cache_size must be positive");
+        }
+
+        mThumbnailMaxConcurrentFetches = resources.getInteger(R.integer.gsdk_media_thumbnail_max_concurrent_fetches);
+        if (mThumbnailMaxConcurrentFetches < 1) {
+            throw new ConfigurationError("gsdk_media_thumbnail_max_concurrent_fetches must be strictly positive");
+        }
+
+        mMediaDownloadConnections = resources.getInteger(R.integer.gsdk_media_download_connections);
+        if (mMediaDownloadConnections < 1) {
+            throw new ConfigurationError("gsdk_media_download_connections must be strictly positive");
+        }
+
+        mReportUploadParallelism = resources.getInteger(R.integer.gsdk_report_upload_parallelism);
+        if (mReportUploadParallelism < 1) {
+            throw new ConfigurationError("gsdk_report_upload_parallelism must be strictly positive");
+        }
+
+        mReportUploadByteBudget = resources.getInteger(R.integer.gsdk_report_upload_byte_budget);
+        if (mReportUploadByteBudget < 0) {
+            throw new ConfigurationError("gsdk_report_upload_byte_budget must be positive");
+        }
+
+        mFlightDataPrefetchDepth = resources.getInteger(R.integer.gsdk_flight_data_prefetch_depth);
+        if (mFlightDataPrefetchDepth < 0) {
+            throw new ConfigurationError("gsdk_flight_data_prefetch_depth must be positive");
+        }
+
+        mControllerInfoUplinkPeriod = resources.getInteger(R.integer.gsdk_controller_info_uplink_period);
+        if (mControllerInfoUplinkPeriod < 0) {
+            throw new ConfigurationError("gsdk_controller_info_uplink_period must be positive");
+        }
+
+        mControllerInfoUplinkTrackingPeriod = resources.getInteger(
+                R.integer.gsdk_controller_info_uplink_tracking_period);
+        if (mControllerInfoUplinkTrackingPeriod < 1) {
+            throw new ConfigurationError("gsdk_controller_info_uplink_tracking_period must be strictly positive");
+        }
+
+        mControllerInfoUplinkLandedPeriod = resources.getInteger(R.integer.gsdk_controller_info_uplink_landed_period);
+        if (mControllerInfoUplinkLandedPeriod < 1) {
+            throw new ConfigurationError("gsdk_controller_info_uplink_landed_period must be strictly positive");
+        }
+
+        mMainDispatchSliceBudget = resources.getInteger(R.integer.gsdk_main_dispatch_slice_budget);
+        if (mMainDispatchSliceBudget < 0) {
+            throw new ConfigurationError("gsdk_main_dispatch_slice_budget must be positive");
+        }
+
+        mComponentNotificationTick = resources.getInteger(R.integer.gsdk_component_notification_tick);
+        if (mComponentNotificationTick < 1) {
+            throw new ConfigurationError("gsdk_component_notification_tick must be strictly positive");
+        }
     }
 
     /**
@@ -382,6 +560,9 @@ public final class GroundSdkConfig {
         mCrashReportEnabled = false;
         mFlightLogEnabled = false;
         mVideoDecodingEnabled = true;
+        mPersistentStoreJournalEnabled = false;
+        mArsdkCommandCaptureEnabled = false;
+        mEngineThreadEnabled = false;
         mFirmwareEnabled = false;
         mAlternateFirmwareServer = "";
         mBlackBoxEnabled = false;
@@ -393,6 +574,8 @@ public final class GroundSdkConfig {
         mAutoSelectWifiCountry = false;
         mReverseGeocoderDefaultCountryCode = "";
         mOfflineSettingsMode = OfflineSettingsMode.MODEL;
+        mComponentNotificationMode = ComponentNotificationMode.IMMEDIATE;
+        mComponentNotificationTick = 1;
         mSupportedDevices = DeviceModels.ALL;
         mApplicationPackage = "test";
         mApplicationVersion = "0.0.0";
@@ -402,6 +585,16 @@ public final class GroundSdkConfig {
         mFlightLogQuota = 0;
         mGutmaLogQuota = 0;
         mThumbnailCacheSize = 0;
+        mThumbnailDiskCacheSize = 0;
+        mThumbnailMaxConcurrentFetches = 1;
+        mMediaDownloadConnections = 1;
+        mReportUploadParallelism = 1;
+        mReportUploadByteBudget = 0;
+        mFlightDataPrefetchDepth = 0;
+        mControllerInfoUplinkPeriod = 0;
+        mControllerInfoUplinkTrackingPeriod = 1;
+        mControllerInfoUplinkLandedPeriod = 1;
+        mMainDispatchSliceBudget = 0;
     }
 
     /**
@@ -420,6 +613,23 @@ public final class GroundSdkConfig {
         return OfflineSettingsMode.MODEL;
     }
 
+    /**
+     * Gets {@link ComponentNotificationMode} enum value from a string.
+     *
+     * @param modeStr string to parse
+     *
+     * @return Corresponding {@link ComponentNotificationMode} enum value, or
+     *         {@link ComponentNotificationMode#IMMEDIATE} if not found.
+     */
+    private static ComponentNotificationMode componentNotificationModeFromString(@NonNull String modeStr) {
+        for (ComponentNotificationMode mode : ComponentNotificationMode.values()) {
+            if (mode.getKey().equals(modeStr)) {
+                return mode;
+            }
+        }
+        return ComponentNotificationMode.IMMEDIATE;
+    }
+
     /**
      * Builds a set of {@code DeviceModel} from a string array.
      * <p>
@@ -613,6 +823,33 @@ public final class GroundSdkConfig {
         return mVideoDecodingEnabled;
     }
 
+    /**
+     * Tells whether devices settings are persisted in journal files.
+     *
+     * @return {@code true} if the persistent store journal is enabled, {@code false} otherwise
+     */
+    public boolean isPersistentStoreJournalEnabled() {
+        return mPersistentStoreJournalEnabled;
+    }
+
+    /**
+     * Tells whether commands exchanged with connected devices are captured to files.
+     *
+     * @return {@code true} if command capture is enabled, {@code false} otherwise
+     */
+    public boolean isArsdkCommandCaptureEnabled() {
+        return mArsdkCommandCaptureEnabled;
+    }
+
+    /**
+     * Tells whether device controllers offload received telemetry processing to a dedicated engine thread.
+     *
+     * @return {@code true} if the engine thread is enabled, {@code false} otherwise
+     */
+    public boolean isEngineThreadEnabled() {
+        return mEngineThreadEnabled;
+    }
+
     /**
      * Tells whether auto-connection should start automatically when first session is opened.
      *
@@ -652,6 +889,27 @@ public final class GroundSdkConfig {
         return mOfflineSettingsMode;
     }
 
+    /**
+     * Tells how component changes are notified to observers.
+     *
+     * @return current component notification mode
+     */
+    @NonNull
+    public ComponentNotificationMode getComponentNotificationMode() {
+        return mComponentNotificationMode;
+    }
+
+    /**
+     * Gives the component change notification period, used when notification mode is
+     * {@link ComponentNotificationMode#TICK}.
+     *
+     * @return component notification period, in milliseconds
+     */
+    @IntRange(from = 1)
+    public int getComponentNotificationTick() {
+        return mComponentNotificationTick;
+    }
+
     /**
      * Retrieves the set of supported device models.
      *
@@ -762,6 +1020,111 @@ public final class GroundSdkConfig {
         return mThumbnailCacheSize;
     }
 
+    /**
+     * Gives media thumbnails disk cache maximum allowed size, in bytes.
+     *
+     * @return thumbnail disk cache size, {@code 0} if the disk cache is disabled
+     */
+    @IntRange(from = 0)
+    public long getThumbnailDiskCacheSize() {
+        return mThumbnailDiskCacheSize;
+    }
+
+    /**
+     * Gives the maximum number of media thumbnails fetched concurrently.
+     *
+     * @return maximum concurrent thumbnail fetches
+     */
+    @IntRange(from = 1)
+    public int getThumbnailMaxConcurrentFetches() {
+        return mThumbnailMaxConcurrentFetches;
+    }
+
+    /**
+     * Gives the maximum number of concurrent connections used to download a single media resource.
+     *
+     * @return maximum concurrent connections per media resource download
+     */
+    @IntRange(from = 1)
+    public int getMediaDownloadConnections() {
+        return mMediaDownloadConnections;
+    }
+
+    /**
+     * Gives the maximum number of reports uploaded concurrently by each reporter engine.
+     *
+     * @return maximum concurrent report uploads
+     */
+    @IntRange(from = 1)
+    public int getReportUploadParallelism() {
+        return mReportUploadParallelism;
+    }
+
+    /**
+     * Gives the maximum cumulated size of reports uploaded concurrently by each reporter engine.
+     *
+     * @return concurrent report upload byte budget, in bytes, {@code 0} when unlimited
+     */
+    @IntRange(from = 0)
+    public long getReportUploadByteBudget() {
+        return mReportUploadByteBudget;
+    }
+
+    /**
+     * Gives the maximum count of flight data files transferred from the device and waiting for their conversion.
+     *
+     * @return flight data prefetch depth, {@code 0} when transfer and conversion are not pipelined
+     */
+    @IntRange(from = 0)
+    public int getFlightDataPrefetchDepth() {
+        return mFlightDataPrefetchDepth;
+    }
+
+    /**
+     * Gives the period at which controller location and barometer are sent to a flying drone.
+     *
+     * @return controller info uplink period, in milliseconds, {@code 0} when each system sensor update is sent as soon
+     *         as it is received
+     */
+    @IntRange(from = 0)
+    public int getControllerInfoUplinkPeriod() {
+        return mControllerInfoUplinkPeriod;
+    }
+
+    /**
+     * Gives the period at which controller location and barometer are sent to a drone tracking the controller.
+     * <p>
+     * Not used when {@link #getControllerInfoUplinkPeriod() uplink period} is {@code 0}.
+     *
+     * @return controller info uplink period while the drone tracks the controller, in milliseconds
+     */
+    @IntRange(from = 1)
+    public int getControllerInfoUplinkTrackingPeriod() {
+        return mControllerInfoUplinkTrackingPeriod;
+    }
+
+    /**
+     * Gives the period at which controller location and barometer are sent to a landed drone.
+     * <p>
+     * Not used when {@link #getControllerInfoUplinkPeriod() uplink period} is {@code 0}.
+     *
+     * @return controller info uplink period while the drone is landed, in milliseconds
+     */
+    @IntRange(from = 1)
+    public int getControllerInfoUplinkLandedPeriod() {
+        return mControllerInfoUplinkLandedPeriod;
+    }
+
+    /**
+     * Gives the maximum time spent dispatching device events on the main thread in one go.
+     *
+     * @return main dispatch slice budget, in milliseconds, {@code 0} when unlimited
+     */
+    @IntRange(from = 0)
+    public int getMainDispatchSliceBudget() {
+        return mMainDispatchSliceBudget;
+    }
+
     /**
      * Sets the application key.
      *
@@ -899,6 +1262,42 @@ public final class GroundSdkConfig {
         mFlightDataQuota = quota;
     }
 
+    /**
+     * Sets the maximum count of flight data files transferred from the device and waiting for their conversion.
+     *
+     * @param depth flight data prefetch depth, {@code 0} to not pipeline transfer and conversion
+     */
+    public void setFlightDataPrefetchDepth(@IntRange(from = 0) int depth) {
+        checkLocked();
+        mFlightDataPrefetchDepth = depth;
+    }
+
+    /**
+     * Sets the periods at which controller location and barometer are sent to connected drones.
+     *
+     * @param period         uplink period while the drone flies, in milliseconds, {@code 0} to send each system sensor
+     *                       update as soon as it is received
+     * @param trackingPeriod uplink period while the drone tracks the controller, in milliseconds
+     * @param landedPeriod   uplink period while the drone is landed, in milliseconds
+     */
+    public void setControllerInfoUplinkPeriods(@IntRange(from = 0) int period, @IntRange(from = 1) int trackingPeriod,
+                                               @IntRange(from = 1) int landedPeriod) {
+        checkLocked();
+        mControllerInfoUplinkPeriod = period;
+        mControllerInfoUplinkTrackingPeriod = trackingPeriod;
+        mControllerInfoUplinkLandedPeriod = landedPeriod;
+    }
+
+    /**
+     * Sets the maximum time spent dispatching device events on the main thread in one go.
+     *
+     * @param budget main dispatch slice budget, in milliseconds, {@code 0} to dispatch all pending events at once
+     */
+    public void setMainDispatchSliceBudget(@IntRange(from = 0) int budget) {
+        checkLocked();
+        mMainDispatchSliceBudget = budget;
+    }
+
     /**
      * Enables flight log synchronization.
      * <p>
@@ -941,6 +1340,45 @@ public final class GroundSdkConfig {
         mVideoDecodingEnabled = enable;
     }
 
+    /**
+     * Enables the persistent store journal.
+     * <p>
+     * If enabled, devices settings are persisted in journal files where only changed settings are written, instead of
+     * shared preferences.
+     *
+     * @param enable {@code true} to enable the persistent store journal, {@code false} to disable it.
+     */
+    public void enablePersistentStoreJournal(boolean enable) {
+        checkLocked();
+        mPersistentStoreJournalEnabled = enable;
+    }
+
+    /**
+     * Enables command capture.
+     * <p>
+     * If enabled, all commands exchanged with each connected device are captured to a file, until the device
+     * disconnects.
+     *
+     * @param enable {@code true} to enable command capture, {@code false} to disable it.
+     */
+    public void enableArsdkCommandCapture(boolean enable) {
+        checkLocked();
+        mArsdkCommandCaptureEnabled = enable;
+    }
+
+    /**
+     * Enables the engine thread.
+     * <p>
+     * If enabled, device controllers decode high-rate telemetry received from connected devices on a dedicated thread,
+     * and only apply the latest decoded values to components on the main thread.
+     *
+     * @param enable {@code true} to enable the engine thread, {@code false} to disable it.
+     */
+    public void enableEngineThread(boolean enable) {
+        checkLocked();
+        mEngineThreadEnabled = enable;
+    }
+
     /**
      * Configures whether auto-connection should be started automatically when the first session starts.
      *
@@ -973,6 +1411,16 @@ public final class GroundSdkConfig {
         mOfflineSettingsMode = mode;
     }
 
+    /**
+     * Configures component notification mode.
+     *
+     * @param mode new component notification mode
+     */
+    public void setComponentNotificationMode(@NonNull ComponentNotificationMode mode) {
+        checkLocked();
+        mComponentNotificationMode = mode;
+    }
+
     /**
      * Configures supported device models.
      *
@@ -50,6 +50,7 @@ import com.parrot.drone.groundsdk.device.DroneListEntry;
 import com.parrot.drone.groundsdk.device.RemoteControl;
 import com.parrot.drone.groundsdk.device.RemoteControlListEntry;
 import com.parrot.drone.groundsdk.facility.Facility;
+import com.parrot.drone.groundsdk.internal.component.ComponentNotifier;
 import com.parrot.drone.groundsdk.internal.component.ComponentRef;
 import com.parrot.drone.groundsdk.internal.component.ComponentStore;
 import com.parrot.drone.groundsdk.internal.device.DeviceCore;
@@ -62,7 +63,9 @@ import com.parrot.drone.groundsdk.internal.device.DroneProxy;
 import com.parrot.drone.groundsdk.internal.device.RemoteControlCore;
 import com.parrot.drone.groundsdk.internal.device.RemoteControlListEntryCore;
 import com.parrot.drone.groundsdk.internal.device.RemoteControlProxy;
+import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaStoreCore;
 import com.parrot.drone.groundsdk.internal.engine.EnginesController;
+import com.parrot.drone.groundsdk.internal.http.HttpTransport;
 import com.parrot.drone.groundsdk.internal.session.Session;
 import com.parrot.drone.groundsdk.internal.session.SessionManager;
 import com.parrot.drone.groundsdk.internal.stream.FileReplayRef;
@@ -149,6 +152,8 @@ public class GroundSdkCore {
     protected GroundSdkCore(@NonNull Application application) {
         mContext = application;
         GroundSdkConfig.lock(mContext);
+        GroundSdkConfig config = GroundSdkConfig.get();
+        ComponentNotifier.configure(config.getComponentNotificationMode(), config.getComponentNotificationTick());
         mSessionManager = new SessionManager(application, mSessionManagerListener);
         mDroneStore = new DeviceStoreCore.Drone();
         mRemoteControlStore = new DeviceStoreCore.RemoteControl();
@@ -564,5 +569,8 @@ public class GroundSdkCore {
         self.mSessionManager.dump(writer, args);
         self.mEnginesController.dump(writer, args);
         Executor.dump(writer, args);
+        MediaStoreCore.dump(writer, args);
+        ComponentNotifier.dump(writer, args);
+        HttpTransport.dump(writer, args);
     }
 }
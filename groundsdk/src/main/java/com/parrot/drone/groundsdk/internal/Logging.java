@@ -84,6 +84,9 @@ public final class Logging {
     /** Tag for HMD logs. */
     public static final ULogTag TAG_HMD = new ULogTag("gsdk.hmd");
 
+    /** Tag for video stream logs. */
+    public static final ULogTag TAG_STREAM = new ULogTag("gsdk.stream");
+
     /**
      * Private constructor for static utility class.
      */
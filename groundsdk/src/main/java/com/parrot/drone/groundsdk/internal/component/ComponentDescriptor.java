@@ -80,6 +80,9 @@ public final class ComponentDescriptor<TYPE, API extends TYPE> {
     @Nullable
     private final ComponentDescriptor<TYPE, ? super API> mParentDescriptor;
 
+    /** {@code true} when updates of the component may be coalesced. */
+    private final boolean mCoalescable;
+
     /**
      * Constructor.
      *
@@ -88,8 +91,35 @@ public final class ComponentDescriptor<TYPE, API extends TYPE> {
      */
     private ComponentDescriptor(@NonNull Class<API> apiClass,
                                 @Nullable ComponentDescriptor<TYPE, ? super API> parentDescriptor) {
+        this(apiClass, parentDescriptor, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param apiClass         class defining the component API
+     * @param parentDescriptor parent descriptor of the component
+     * @param coalescable      {@code true} when updates of the component may be coalesced
+     */
+    private ComponentDescriptor(@NonNull Class<API> apiClass,
+                                @Nullable ComponentDescriptor<TYPE, ? super API> parentDescriptor,
+                                boolean coalescable) {
         mApiClass = apiClass;
         mParentDescriptor = parentDescriptor;
+        mCoalescable = coalescable;
+    }
+
+    /**
+     * Makes a copy of this descriptor whose component updates may be {@link ComponentNotifier coalesced}.
+     * <p>
+     * Only components whose every state is meaningful on its own, such as high-rate instruments, should opt in, since
+     * observers are not notified of intermediate states when updates are coalesced.
+     *
+     * @return a new component descriptor
+     */
+    @NonNull
+    public ComponentDescriptor<TYPE, API> coalescable() {
+        return new ComponentDescriptor<>(mApiClass, mParentDescriptor, true);
     }
 
     /**
@@ -111,4 +141,13 @@ public final class ComponentDescriptor<TYPE, API extends TYPE> {
     ComponentDescriptor<TYPE, ? super API> getParentDescriptor() {
         return mParentDescriptor;
     }
+
+    /**
+     * Tells whether updates of the component may be coalesced.
+     *
+     * @return {@code true} if component updates may be coalesced, otherwise {@code false}
+     */
+    boolean isCoalescable() {
+        return mCoalescable;
+    }
 }
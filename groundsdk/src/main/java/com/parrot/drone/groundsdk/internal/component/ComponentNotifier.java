@@ -0,0 +1,352 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.component;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Coalesces component change notifications.
+ * <p>
+ * By default, component changes are notified to observers synchronously, each time a component is updated. When
+ * coalescing is enabled, updated components are instead collected, and their observers are notified when the next
+ * flush occurs, either on the next display frame, or at the end of the current tick period. Each observer is notified
+ * at most once per flush, whatever the number of changes that occurred on the observed component(s) in between.
+ * <p>
+ * Only updates of components whose descriptor is {@link ComponentDescriptor#coalescable() coalescable} are coalesced.
+ * Other components, which may publish transient states that observers must not miss, as well as component publication
+ * and unpublication, are always notified synchronously.
+ * <p>
+ * This class must only be used from the main thread.
+ */
+public final class ComponentNotifier {
+
+    /**
+     * Schedules flushes of pending notifications.
+     */
+    @VisibleForTesting
+    interface Scheduler {
+
+        /**
+         * Schedules a flush.
+         *
+         * @param flush runnable to run when the flush must occur
+         */
+        void schedule(@NonNull Runnable flush);
+
+        /**
+         * Cancels a scheduled flush.
+         *
+         * @param flush flush runnable to cancel
+         */
+        void cancel(@NonNull Runnable flush);
+    }
+
+    /** Flush scheduler, {@code null} when notifications are not coalesced. */
+    @Nullable
+    private static Scheduler sScheduler;
+
+    /** Stores that have pending notifications, in order of first change. */
+    @NonNull
+    private static final Set<ComponentStore<?>> DIRTY_STORES = new LinkedHashSet<>();
+
+    /** Stores being flushed. Reused across flushes. */
+    @NonNull
+    private static final List<ComponentStore<?>> FLUSHING_STORES = new ArrayList<>();
+
+    /** {@code true} when a flush is scheduled. */
+    private static boolean sFlushScheduled;
+
+    /** Count of notifications absorbed because the observer was already due to be notified. */
+    private static long sCoalescedCount;
+
+    /** Count of notifications delivered to observers by a flush. */
+    private static long sDeliveredCount;
+
+    /** Count of flushes. */
+    private static long sFlushCount;
+
+    /** Flushes pending notifications. */
+    private static final Runnable FLUSH = ComponentNotifier::flush;
+
+    /**
+     * Configures the notification mode.
+     *
+     * @param mode notification mode
+     * @param tick notification period, in milliseconds, used in {@link GroundSdkConfig.ComponentNotificationMode#TICK
+     *             TICK} mode
+     */
+    public static void configure(@NonNull GroundSdkConfig.ComponentNotificationMode mode,
+                                 @IntRange(from = 1) int tick) {
+        switch (mode) {
+            case IMMEDIATE:
+                setScheduler(null);
+                break;
+            case FRAME:
+                setScheduler(new FrameScheduler());
+                break;
+            case TICK:
+                setScheduler(new TickScheduler(tick));
+                break;
+        }
+    }
+
+    /**
+     * Sets the flush scheduler.
+     * <p>
+     * Pending notifications, if any, are flushed immediately.
+     *
+     * @param scheduler flush scheduler, {@code null} to disable coalescing
+     */
+    @VisibleForTesting
+    static void setScheduler(@Nullable Scheduler scheduler) {
+        if (sScheduler != null && sFlushScheduled) {
+            sScheduler.cancel(FLUSH);
+        }
+        flush();
+        sScheduler = scheduler;
+    }
+
+    /**
+     * Tells whether notifications are currently coalesced.
+     *
+     * @return {@code true} if notifications are coalesced, otherwise {@code false}
+     */
+    static boolean isCoalescing() {
+        return sScheduler != null;
+    }
+
+    /**
+     * Called when a store gets pending notifications.
+     *
+     * @param store store with pending notifications
+     */
+    static void onStoreDirty(@NonNull ComponentStore<?> store) {
+        DIRTY_STORES.add(store);
+        if (!sFlushScheduled && sScheduler != null) {
+            sFlushScheduled = true;
+            sScheduler.schedule(FLUSH);
+        }
+    }
+
+    /**
+     * Called when a store drops all its pending notifications.
+     *
+     * @param store store without pending notifications anymore
+     */
+    static void onStoreClean(@NonNull ComponentStore<?> store) {
+        DIRTY_STORES.remove(store);
+    }
+
+    /**
+     * Called when a notification is absorbed because the observer was already due to be notified.
+     */
+    static void onNotificationCoalesced() {
+        sCoalescedCount++;
+    }
+
+    /**
+     * Called when a flush delivers a notification to an observer.
+     */
+    static void onNotificationDelivered() {
+        sDeliveredCount++;
+    }
+
+    /**
+     * Flushes all pending notifications.
+     */
+    @VisibleForTesting
+    static void flush() {
+        sFlushScheduled = false;
+        if (DIRTY_STORES.isEmpty()) {
+            return;
+        }
+        sFlushCount++;
+        // observers may update components while being notified, which will be flushed next time
+        FLUSHING_STORES.addAll(DIRTY_STORES);
+        DIRTY_STORES.clear();
+        for (int i = 0, n = FLUSHING_STORES.size(); i < n; i++) {
+            FLUSHING_STORES.get(i).flushPendingNotifications();
+        }
+        FLUSHING_STORES.clear();
+    }
+
+    /**
+     * Gives the count of notifications absorbed because the observer was already due to be notified.
+     *
+     * @return coalesced notification count
+     */
+    public static long getCoalescedCount() {
+        return sCoalescedCount;
+    }
+
+    /**
+     * Gives the count of notifications delivered to observers when flushing.
+     *
+     * @return delivered notification count
+     */
+    public static long getDeliveredCount() {
+        return sDeliveredCount;
+    }
+
+    /**
+     * Gives the count of flushes that delivered notifications.
+     *
+     * @return flush count
+     */
+    public static long getFlushCount() {
+        return sFlushCount;
+    }
+
+    /**
+     * Resets notification counters.
+     */
+    @VisibleForTesting
+    static void resetCounters() {
+        sCoalescedCount = sDeliveredCount = sFlushCount = 0;
+    }
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param args   command line arguments to process
+     */
+    public static void dump(@NonNull PrintWriter writer, @NonNull Set<String> args) {
+        if (args.isEmpty() || args.contains("--help")) {
+            writer.write("\t--notifications: dumps component notification statistics\n");
+        } else if (args.contains("--notifications") || args.contains("--all")) {
+            writer.write("Component notifications: " + (sScheduler == null ? "immediate" : sScheduler) + "\n");
+            writer.write("\tFlushes: " + sFlushCount + "\n");
+            writer.write("\tDelivered: " + sDeliveredCount + "\n");
+            writer.write("\tCoalesced: " + sCoalescedCount + "\n");
+            writer.write("\tDirty stores: " + DIRTY_STORES.size() + "\n");
+        }
+    }
+
+    /**
+     * Flushes notifications on next display frame.
+     */
+    private static final class FrameScheduler implements Scheduler, Choreographer.FrameCallback {
+
+        /** Flush to run on next frame, {@code null} when none is scheduled. */
+        @Nullable
+        private Runnable mFlush;
+
+        @Override
+        public void schedule(@NonNull Runnable flush) {
+            mFlush = flush;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable flush) {
+            mFlush = null;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            Runnable flush = mFlush;
+            mFlush = null;
+            if (flush != null) {
+                flush.run();
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "once per frame";
+        }
+    }
+
+    /**
+     * Flushes notifications at the end of the current tick period.
+     */
+    private static final class TickScheduler implements Scheduler {
+
+        /** Main thread handler. */
+        @NonNull
+        private final Handler mHandler;
+
+        /** Tick period, in milliseconds. */
+        private final int mTick;
+
+        /**
+         * Constructor.
+         *
+         * @param tick tick period, in milliseconds
+         */
+        TickScheduler(int tick) {
+            mHandler = new Handler(Looper.getMainLooper());
+            mTick = tick;
+        }
+
+        @Override
+        public void schedule(@NonNull Runnable flush) {
+            mHandler.postDelayed(flush, mTick);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable flush) {
+            mHandler.removeCallbacks(flush);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "once per " + mTick + " ms";
+        }
+    }
+
+    /**
+     * Private constructor for static utility class.
+     */
+    private ComponentNotifier() {
+    }
+}
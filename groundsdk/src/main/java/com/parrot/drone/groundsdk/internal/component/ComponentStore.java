@@ -38,8 +38,11 @@ import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.groundsdk.internal.session.Session;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -68,12 +71,22 @@ public class ComponentStore<TYPE> {
     @NonNull
     private final HashMap<Class<? extends TYPE>, List<Observer>> mComponentObservers;
 
+    /** Observers to notify on next flush, when notifications are {@link ComponentNotifier coalesced}. */
+    @NonNull
+    private final Set<Observer> mPendingObservers;
+
+    /** Observers being notified by a flush. Reused across flushes. */
+    @NonNull
+    private final List<Observer> mFlushingObservers;
+
     /**
      * Constructor.
      */
     public ComponentStore() {
         mComponents = new HashMap<>();
         mComponentObservers = new HashMap<>();
+        mPendingObservers = new LinkedHashSet<>();
+        mFlushingObservers = new ArrayList<>();
     }
 
     /**
@@ -112,6 +125,9 @@ public class ComponentStore<TYPE> {
         if (observers != null) {
             observers.remove(observer);
         }
+        if (mPendingObservers.remove(observer) && mPendingObservers.isEmpty()) {
+            ComponentNotifier.onStoreClean(this);
+        }
 
         if (!hasObserver(klass)) {
             ComponentCore component = mComponents.get(klass);
@@ -124,16 +140,37 @@ public class ComponentStore<TYPE> {
     /**
      * Notify all observers that an existing component has been updated.
      * <p>
-     * This method notify all direct observers, and all observers of the parents components.
+     * This method notify all direct observers, and all observers of the parents components. When notifications are
+     * {@link ComponentNotifier coalesced} and the component {@link ComponentDescriptor#coalescable() opted in},
+     * observers are notified on next flush instead.
      *
      * @param descriptor descriptor or the component to notify changes
      */
     void notifyUpdated(@NonNull ComponentDescriptor<TYPE, ?> descriptor) {
         if (mComponents.containsKey(descriptor.getApiClass())) {
-            notifyChanged(descriptor);
+            if (descriptor.isCoalescable() && ComponentNotifier.isCoalescing()) {
+                postChanged(descriptor);
+            } else {
+                notifyChanged(descriptor);
+            }
         }
     }
 
+    /**
+     * Notifies observers that have been collected since the previous flush.
+     * <p>
+     * Called by {@link ComponentNotifier} when flushing notifications.
+     */
+    void flushPendingNotifications() {
+        mFlushingObservers.addAll(mPendingObservers);
+        mPendingObservers.clear();
+        for (int i = 0, n = mFlushingObservers.size(); i < n; i++) {
+            mFlushingObservers.get(i).onChange();
+            ComponentNotifier.onNotificationDelivered();
+        }
+        mFlushingObservers.clear();
+    }
+
     /**
      * Gets a component.
      *
@@ -190,6 +227,10 @@ public class ComponentStore<TYPE> {
      */
     public void destroy() {
         mComponents.clear();
+        if (!mPendingObservers.isEmpty()) {
+            mPendingObservers.clear();
+            ComponentNotifier.onStoreClean(this);
+        }
         for (List<Observer> observers : mComponentObservers.values()) {
             for (Observer observer : observers) {
                 observer.onChange();
@@ -236,10 +277,43 @@ public class ComponentStore<TYPE> {
             List<Observer> observers = mComponentObservers.get(apiClass);
             if (observers != null) {
                 for (Observer observer : observers) {
+                    if (!mPendingObservers.isEmpty() && mPendingObservers.remove(observer)) {
+                        // pending notification is superseded by this one
+                        ComponentNotifier.onNotificationCoalesced();
+                        if (mPendingObservers.isEmpty()) {
+                            ComponentNotifier.onStoreClean(this);
+                        }
+                    }
                     observer.onChange();
                 }
             }
             desc = desc.getParentDescriptor();
         } while (desc != null);
     }
+
+    /**
+     * Collects all observers of a component that has been updated, so that they get notified on next flush.
+     * <p>
+     * This method collects all direct observers, and all observers of the parents components.
+     *
+     * @param descriptor descriptor or the component to notify changes
+     */
+    private void postChanged(@NonNull ComponentDescriptor<TYPE, ?> descriptor) {
+        boolean wasClean = mPendingObservers.isEmpty();
+        ComponentDescriptor<TYPE, ?> desc = descriptor;
+        do {
+            List<Observer> observers = mComponentObservers.get(desc.getApiClass());
+            if (observers != null) {
+                for (Observer observer : observers) {
+                    if (!mPendingObservers.add(observer)) {
+                        ComponentNotifier.onNotificationCoalesced();
+                    }
+                }
+            }
+            desc = desc.getParentDescriptor();
+        } while (desc != null);
+        if (wasClean && !mPendingObservers.isEmpty()) {
+            ComponentNotifier.onStoreDirty(this);
+        }
+    }
 }
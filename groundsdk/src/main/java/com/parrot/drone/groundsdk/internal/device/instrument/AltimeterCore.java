@@ -46,7 +46,8 @@ import com.parrot.drone.groundsdk.value.OptionalDouble;
 public final class AltimeterCore extends SingletonComponentCore implements Altimeter {
 
     /** Description of Altimeter. */
-    private static final ComponentDescriptor<Instrument, Altimeter> DESC = ComponentDescriptor.of(Altimeter.class);
+    private static final ComponentDescriptor<Instrument, Altimeter> DESC =
+            ComponentDescriptor.of(Altimeter.class).coalescable();
 
     /** Current altitude of the drone, relative to take off altitude (in meters). */
     private double mTakeOffAltitude;
@@ -45,7 +45,7 @@ public final class AttitudeIndicatorCore extends SingletonComponentCore implemen
 
     /** Description of AttitudeIndicator. */
     private static final ComponentDescriptor<Instrument, AttitudeIndicator> DESC =
-            ComponentDescriptor.of(AttitudeIndicator.class);
+            ComponentDescriptor.of(AttitudeIndicator.class).coalescable();
 
     /** Current pitch angle of the drone, in degrees. */
     private double mPitch;
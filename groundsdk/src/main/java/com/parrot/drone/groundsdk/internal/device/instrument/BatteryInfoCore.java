@@ -49,7 +49,8 @@ import java.util.Objects;
 public final class BatteryInfoCore extends SingletonComponentCore implements BatteryInfo {
 
     /** Description of BatteryInfo. */
-    private static final ComponentDescriptor<Instrument, BatteryInfo> DESC = ComponentDescriptor.of(BatteryInfo.class);
+    private static final ComponentDescriptor<Instrument, BatteryInfo> DESC =
+            ComponentDescriptor.of(BatteryInfo.class).coalescable();
 
     /** Current battery charge percentage. */
     private int mLevel;
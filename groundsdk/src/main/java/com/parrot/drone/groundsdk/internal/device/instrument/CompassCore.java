@@ -44,7 +44,8 @@ import com.parrot.drone.groundsdk.internal.component.SingletonComponentCore;
 public final class CompassCore extends SingletonComponentCore implements Compass {
 
     /** Description of Compass. */
-    private static final ComponentDescriptor<Instrument, Compass> DESC = ComponentDescriptor.of(Compass.class);
+    private static final ComponentDescriptor<Instrument, Compass> DESC =
+            ComponentDescriptor.of(Compass.class).coalescable();
 
     /** Current heading, relative to GPS north (in degrees). */
     private double mHeading;
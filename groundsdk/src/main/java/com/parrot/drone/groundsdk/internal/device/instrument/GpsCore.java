@@ -49,7 +49,8 @@ import com.parrot.drone.groundsdk.value.OptionalDouble;
 public final class GpsCore extends SingletonComponentCore implements Gps {
 
     /** Description of GPS. */
-    private static final ComponentDescriptor<Instrument, Gps> DESC = ComponentDescriptor.of(Gps.class);
+    private static final ComponentDescriptor<Instrument, Gps> DESC =
+            ComponentDescriptor.of(Gps.class).coalescable();
 
     /** Whether current latitude/longitude information can be considered valid. */
     private boolean mHasLocation;
@@ -46,7 +46,8 @@ import com.parrot.drone.groundsdk.value.OptionalDouble;
 public final class SpeedometerCore extends SingletonComponentCore implements Speedometer {
 
     /** Description of Speedometer instrument. */
-    private static final ComponentDescriptor<Instrument, Speedometer> DESC = ComponentDescriptor.of(Speedometer.class);
+    private static final ComponentDescriptor<Instrument, Speedometer> DESC =
+            ComponentDescriptor.of(Speedometer.class).coalescable();
 
     /** Current overall speed of the drone, relative to the ground (in meters/second). */
     private double mGroundSpeed;
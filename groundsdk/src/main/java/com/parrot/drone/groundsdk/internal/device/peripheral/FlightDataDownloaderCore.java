@@ -59,6 +59,18 @@ public final class FlightDataDownloaderCore extends SingletonComponentCore imple
     /** {@code} true when downloading flight data files. */
     private boolean mDownloading;
 
+    /** Latest total flight data files count. */
+    @IntRange(from = 0)
+    private int mTotalCount;
+
+    /** Latest count of transferred flight data files. */
+    @IntRange(from = 0)
+    private int mTransferredCount;
+
+    /** Latest count of flight data files deleted from the device. */
+    @IntRange(from = 0)
+    private int mDeletedCount;
+
     /**
      * Constructor.
      *
@@ -85,6 +97,24 @@ public final class FlightDataDownloaderCore extends SingletonComponentCore imple
         return mCount;
     }
 
+    @Override
+    public int getLatestTotalCount() {
+        return mTotalCount;
+    }
+
+    @Override
+    public int getStageProgress(@NonNull Stage stage) {
+        switch (stage) {
+            case TRANSFER:
+                return mTransferredCount;
+            case CONVERSION:
+                return mCount;
+            case DELETION:
+                return mDeletedCount;
+        }
+        return 0;
+    }
+
     /**
      * Updates downloading flag.
      *
@@ -129,4 +159,49 @@ public final class FlightDataDownloaderCore extends SingletonComponentCore imple
         }
         return this;
     }
+
+    /**
+     * Updates total flight data files count.
+     *
+     * @param count latest total flight data files count
+     *
+     * @return {@code this}, to allow chained calls
+     */
+    public FlightDataDownloaderCore updateTotalCount(@IntRange(from = 0) int count) {
+        if (mTotalCount != count) {
+            mTotalCount = count;
+            mChanged = true;
+        }
+        return this;
+    }
+
+    /**
+     * Updates transferred flight data files count.
+     *
+     * @param count latest transferred flight data files count
+     *
+     * @return {@code this}, to allow chained calls
+     */
+    public FlightDataDownloaderCore updateTransferredCount(@IntRange(from = 0) int count) {
+        if (mTransferredCount != count) {
+            mTransferredCount = count;
+            mChanged = true;
+        }
+        return this;
+    }
+
+    /**
+     * Updates count of flight data files deleted from the device.
+     *
+     * @param count latest deleted flight data files count
+     *
+     * @return {@code this}, to allow chained calls
+     */
+    public FlightDataDownloaderCore updateDeletedCount(@IntRange(from = 0) int count) {
+        if (mDeletedCount != count) {
+            mDeletedCount = count;
+            mChanged = true;
+        }
+        return this;
+    }
 }
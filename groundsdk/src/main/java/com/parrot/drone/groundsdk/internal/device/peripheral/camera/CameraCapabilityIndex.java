@@ -0,0 +1,532 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable index of camera setting capabilities.
+ * <p>
+ * Indexes valid combinations of three setting values, such as recording mode, resolution and framerate, along with
+ * whether HDR is available for each combination. Combinations are stored as bitsets of enum ordinals, so that
+ * membership queries cost constant time and allocate nothing.
+ * <p>
+ * Supported value sets are computed once, when the index is built, and are exposed as shared, read-only views.
+ *
+ * @param <A> type of first level values (e.g. recording mode)
+ * @param <B> type of second level values (e.g. recording resolution)
+ * @param <C> type of third level values (e.g. recording framerate)
+ */
+public final class CameraCapabilityIndex<A extends Enum<A>, B extends Enum<B>, C extends Enum<C>> {
+
+    /** Maximum count of constants in an indexed enum, so that any set of its values fits in a {@code long} bitset. */
+    private static final int MAX_ENUM_SIZE = Long.SIZE;
+
+    /** All first level values, by ordinal. */
+    @NonNull
+    private final A[] mAs;
+
+    /** All second level values, by ordinal. */
+    @NonNull
+    private final B[] mBs;
+
+    /** All third level values, by ordinal. */
+    @NonNull
+    private final C[] mCs;
+
+    /** Supported first level values, as a bitset of ordinals. */
+    private final long mAMask;
+
+    /** Supported second level values, as a bitset of ordinals, indexed by first level value ordinal. */
+    @NonNull
+    private final long[] mBMasks;
+
+    /**
+     * Supported third level values, as a bitset of ordinals, indexed by {@link #pairIndex first and second level
+     * value pair}.
+     */
+    @NonNull
+    private final long[] mCMasks;
+
+    /**
+     * Third level values for which HDR is available, as a bitset of ordinals, indexed by {@link #pairIndex first and
+     * second level value pair}.
+     */
+    @NonNull
+    private final long[] mHdrMasks;
+
+    /** Supported first level values. */
+    @NonNull
+    private final EnumSet<A> mASet;
+
+    /** Supported second level values, indexed by first level value ordinal. */
+    @NonNull
+    private final EnumSet<B>[] mBSets;
+
+    /** Supported third level values, indexed by {@link #pairIndex first and second level value pair}. */
+    @NonNull
+    private final EnumSet<C>[] mCSets;
+
+    /** Read-only view of {@link #mASet}. */
+    @NonNull
+    private final Set<A> mAView;
+
+    /** Read-only views of {@link #mBSets}. */
+    @NonNull
+    private final Set<B>[] mBViews;
+
+    /** Read-only views of {@link #mCSets}. */
+    @NonNull
+    private final Set<C>[] mCViews;
+
+    /**
+     * Builds an empty capability index.
+     *
+     * @param aType type of first level values
+     * @param bType type of second level values
+     * @param cType type of third level values
+     * @param <A>   type of first level values
+     * @param <B>   type of second level values
+     * @param <C>   type of third level values
+     *
+     * @return a new, empty capability index
+     */
+    @NonNull
+    public static <A extends Enum<A>, B extends Enum<B>, C extends Enum<C>> CameraCapabilityIndex<A, B, C> empty(
+            @NonNull Class<A> aType, @NonNull Class<B> bType, @NonNull Class<C> cType) {
+        return new Builder<>(aType, bType, cType).build();
+    }
+
+    /**
+     * Builder for a capability index.
+     *
+     * @param <A> type of first level values
+     * @param <B> type of second level values
+     * @param <C> type of third level values
+     */
+    public static final class Builder<A extends Enum<A>, B extends Enum<B>, C extends Enum<C>> {
+
+        /** Type of first level values. */
+        @NonNull
+        private final Class<A> mAType;
+
+        /** Type of second level values. */
+        @NonNull
+        private final Class<B> mBType;
+
+        /** Type of third level values. */
+        @NonNull
+        private final Class<C> mCType;
+
+        /** Count of second level values. */
+        private final int mBCount;
+
+        /** Supported first level values, as a bitset of ordinals. */
+        private long mAMask;
+
+        /** Supported second level values, as a bitset of ordinals, indexed by first level value ordinal. */
+        @NonNull
+        private final long[] mBMasks;
+
+        /** Supported third level values, as a bitset of ordinals, indexed by first and second level value pair. */
+        @NonNull
+        private final long[] mCMasks;
+
+        /** Third level values for which HDR is available, indexed by first and second level value pair. */
+        @NonNull
+        private final long[] mHdrMasks;
+
+        /**
+         * Constructor.
+         *
+         * @param aType type of first level values
+         * @param bType type of second level values
+         * @param cType type of third level values
+         *
+         * @throws IllegalArgumentException in case any of the given enums has more than 64 constants
+         */
+        public Builder(@NonNull Class<A> aType, @NonNull Class<B> bType, @NonNull Class<C> cType) {
+            mAType = aType;
+            mBType = bType;
+            mCType = cType;
+            int aCount = enumSize(aType);
+            mBCount = enumSize(bType);
+            enumSize(cType);
+            mBMasks = new long[aCount];
+            mCMasks = new long[aCount * mBCount];
+            mHdrMasks = new long[aCount * mBCount];
+        }
+
+        /**
+         * Adds a capability.
+         * <p>
+         * Declares all combinations of the given values as supported. For combinations that were already declared by
+         * a previously added capability, HDR availability is not modified.
+         *
+         * @param as           supported first level values
+         * @param bs           second level values supported in those first level values
+         * @param cs           third level values supported in those first and second level values
+         * @param hdrAvailable availability of HDR for those combinations
+         *
+         * @return {@code this}, to allow chained calls
+         */
+        @NonNull
+        public Builder<A, B, C> add(@NonNull Collection<A> as, @NonNull Collection<B> bs, @NonNull Collection<C> cs,
+                                    boolean hdrAvailable) {
+            long bMask = maskOf(bs);
+            long cMask = maskOf(cs);
+            for (A a : as) {
+                int aOrdinal = a.ordinal();
+                mAMask |= 1L << aOrdinal;
+                mBMasks[aOrdinal] |= bMask;
+                for (B b : bs) {
+                    int pair = aOrdinal * mBCount + b.ordinal();
+                    long added = cMask & ~mCMasks[pair];
+                    mCMasks[pair] |= added;
+                    if (hdrAvailable) {
+                        mHdrMasks[pair] |= added;
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Builds the capability index.
+         *
+         * @return a new capability index
+         */
+        @NonNull
+        public CameraCapabilityIndex<A, B, C> build() {
+            return new CameraCapabilityIndex<>(this);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param builder builder to build the index from
+     */
+    @SuppressWarnings("unchecked")
+    private CameraCapabilityIndex(@NonNull Builder<A, B, C> builder) {
+        mAs = builder.mAType.getEnumConstants();
+        mBs = builder.mBType.getEnumConstants();
+        mCs = builder.mCType.getEnumConstants();
+        mAMask = builder.mAMask;
+        mBMasks = builder.mBMasks.clone();
+        mCMasks = builder.mCMasks.clone();
+        mHdrMasks = builder.mHdrMasks.clone();
+
+        mASet = setOf(builder.mAType, mAs, mAMask);
+        mAView = Collections.unmodifiableSet(mASet);
+        mBSets = new EnumSet[mBMasks.length];
+        mBViews = new Set[mBMasks.length];
+        for (int i = 0; i < mBMasks.length; i++) {
+            mBSets[i] = setOf(builder.mBType, mBs, mBMasks[i]);
+            mBViews[i] = Collections.unmodifiableSet(mBSets[i]);
+        }
+        mCSets = new EnumSet[mCMasks.length];
+        mCViews = new Set[mCMasks.length];
+        for (int i = 0; i < mCMasks.length; i++) {
+            mCSets[i] = setOf(builder.mCType, mCs, mCMasks[i]);
+            mCViews[i] = Collections.unmodifiableSet(mCSets[i]);
+        }
+    }
+
+    /**
+     * Retrieves supported first level values.
+     *
+     * @return a shared, read-only view of supported first level values
+     */
+    @NonNull
+    public Set<A> values() {
+        return mAView;
+    }
+
+    /**
+     * Retrieves second level values supported in a given first level value.
+     *
+     * @param a first level value
+     *
+     * @return a shared, read-only view of supported second level values
+     */
+    @NonNull
+    public Set<B> valuesFor(@NonNull A a) {
+        return mBViews[a.ordinal()];
+    }
+
+    /**
+     * Retrieves third level values supported in a given first and second level values.
+     *
+     * @param a first level value
+     * @param b second level value
+     *
+     * @return a shared, read-only view of supported third level values
+     */
+    @NonNull
+    public Set<C> valuesFor(@NonNull A a, @NonNull B b) {
+        return mCViews[pairIndex(a, b)];
+    }
+
+    /**
+     * Copies supported first level values.
+     *
+     * @return a new set of supported first level values, owned by the caller
+     */
+    @NonNull
+    public EnumSet<A> copyValues() {
+        return mASet.clone();
+    }
+
+    /**
+     * Copies second level values supported in a given first level value.
+     *
+     * @param a first level value
+     *
+     * @return a new set of supported second level values, owned by the caller
+     */
+    @NonNull
+    public EnumSet<B> copyValuesFor(@NonNull A a) {
+        return mBSets[a.ordinal()].clone();
+    }
+
+    /**
+     * Copies third level values supported in a given first and second level values.
+     *
+     * @param a first level value
+     * @param b second level value
+     *
+     * @return a new set of supported third level values, owned by the caller
+     */
+    @NonNull
+    public EnumSet<C> copyValuesFor(@NonNull A a, @NonNull B b) {
+        return mCSets[pairIndex(a, b)].clone();
+    }
+
+    /**
+     * Retrieves the supported first level value with the lowest ordinal.
+     *
+     * @return first supported first level value, or {@code null} if none is supported
+     */
+    @Nullable
+    public A firstValue() {
+        return first(mAs, mAMask);
+    }
+
+    /**
+     * Retrieves the second level value with the lowest ordinal supported in a given first level value.
+     *
+     * @param a first level value
+     *
+     * @return first supported second level value, or {@code null} if none is supported
+     */
+    @Nullable
+    public B firstValueFor(@NonNull A a) {
+        return first(mBs, mBMasks[a.ordinal()]);
+    }
+
+    /**
+     * Retrieves the third level value with the lowest ordinal supported in a given first and second level values.
+     *
+     * @param a first level value
+     * @param b second level value
+     *
+     * @return first supported third level value, or {@code null} if none is supported
+     */
+    @Nullable
+    public C firstValueFor(@NonNull A a, @NonNull B b) {
+        return first(mCs, mCMasks[pairIndex(a, b)]);
+    }
+
+    /**
+     * Tells whether a first level value is supported.
+     *
+     * @param a first level value
+     *
+     * @return {@code true} if the given value is supported, otherwise {@code false}
+     */
+    public boolean contains(@NonNull A a) {
+        return (mAMask & 1L << a.ordinal()) != 0;
+    }
+
+    /**
+     * Tells whether a first and second level value pair is supported.
+     *
+     * @param a first level value
+     * @param b second level value
+     *
+     * @return {@code true} if the given pair is supported, otherwise {@code false}
+     */
+    public boolean contains(@NonNull A a, @NonNull B b) {
+        return (mBMasks[a.ordinal()] & 1L << b.ordinal()) != 0;
+    }
+
+    /**
+     * Tells whether a first, second and third level value triplet is supported.
+     *
+     * @param a first level value
+     * @param b second level value
+     * @param c third level value
+     *
+     * @return {@code true} if the given triplet is supported, otherwise {@code false}
+     */
+    public boolean contains(@NonNull A a, @NonNull B b, @NonNull C c) {
+        return (mCMasks[pairIndex(a, b)] & 1L << c.ordinal()) != 0;
+    }
+
+    /**
+     * Tells whether HDR is available for a first, second and third level value triplet.
+     *
+     * @param a first level value
+     * @param b second level value
+     * @param c third level value
+     *
+     * @return {@code true} if the given triplet is supported and HDR is available for it, otherwise {@code false}
+     */
+    public boolean isHdrAvailable(@NonNull A a, @NonNull B b, @NonNull C c) {
+        return (mHdrMasks[pairIndex(a, b)] & 1L << c.ordinal()) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CameraCapabilityIndex<?, ?, ?> that = (CameraCapabilityIndex<?, ?, ?>) o;
+
+        return mAs.getClass() == that.mAs.getClass()
+               && mBs.getClass() == that.mBs.getClass()
+               && mCs.getClass() == that.mCs.getClass()
+               && mAMask == that.mAMask
+               && Arrays.equals(mBMasks, that.mBMasks)
+               && Arrays.equals(mCMasks, that.mCMasks)
+               && Arrays.equals(mHdrMasks, that.mHdrMasks);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(mAMask);
+        result = 31 * result + Arrays.hashCode(mCMasks);
+        result = 31 * result + Arrays.hashCode(mHdrMasks);
+        return result;
+    }
+
+    /**
+     * Computes the index of a first and second level value pair in pair-indexed tables.
+     *
+     * @param a first level value
+     * @param b second level value
+     *
+     * @return pair index
+     */
+    private int pairIndex(@NonNull A a, @NonNull B b) {
+        return a.ordinal() * mBs.length + b.ordinal();
+    }
+
+    /**
+     * Retrieves the value with the lowest ordinal in a bitset.
+     *
+     * @param values all values, by ordinal
+     * @param mask   bitset of ordinals
+     * @param <E>    type of values
+     *
+     * @return value with the lowest ordinal in the bitset, or {@code null} if the bitset is empty
+     */
+    @Nullable
+    private static <E> E first(@NonNull E[] values, long mask) {
+        return mask == 0 ? null : values[Long.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Builds a set from a bitset of ordinals.
+     *
+     * @param type   type of values
+     * @param values all values, by ordinal
+     * @param mask   bitset of ordinals
+     * @param <E>    type of values
+     *
+     * @return a new set containing values whose ordinal is in the bitset
+     */
+    @NonNull
+    private static <E extends Enum<E>> EnumSet<E> setOf(@NonNull Class<E> type, @NonNull E[] values, long mask) {
+        EnumSet<E> set = EnumSet.noneOf(type);
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            set.add(values[Long.numberOfTrailingZeros(bits)]);
+        }
+        return set;
+    }
+
+    /**
+     * Computes a bitset of ordinals from a collection of values.
+     *
+     * @param values values to compute the bitset of
+     * @param <E>    type of values
+     *
+     * @return bitset of ordinals
+     */
+    private static <E extends Enum<E>> long maskOf(@NonNull Collection<E> values) {
+        long mask = 0;
+        for (E value : values) {
+            mask |= 1L << value.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Retrieves the count of constants in an enum.
+     *
+     * @param type enum type
+     *
+     * @return count of constants in the enum
+     *
+     * @throws IllegalArgumentException in case the enum has more than 64 constants
+     */
+    private static int enumSize(@NonNull Class<? extends Enum<?>> type) {
+        int size = type.getEnumConstants().length;
+        if (size > MAX_ENUM_SIZE) {
+            throw new IllegalArgumentException("Enum too large for capability index: " + type.getName());
+        }
+        return size;
+    }
+}
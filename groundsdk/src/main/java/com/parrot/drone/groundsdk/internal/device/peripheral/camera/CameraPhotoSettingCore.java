@@ -42,7 +42,6 @@ import com.parrot.drone.groundsdk.value.DoubleRange;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -105,12 +104,10 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     /**
      * Supported capabilities.
      * <p>
-     * Map each supported photo mode to supported formats in this mode, which in turn are mapped to supported file
-     * formats in this format (and mode) associated with a flag telling whether HDR is supported in this configuration.
+     * Indexes supported photo mode, format and file format combinations, along with HDR availability for each.
      */
     @NonNull
-    private EnumMap<CameraPhoto.Mode, EnumMap<CameraPhoto.Format, EnumMap<CameraPhoto.FileFormat, Boolean>>>
-            mCapabilities;
+    private CameraCapabilityIndex<CameraPhoto.Mode, CameraPhoto.Format, CameraPhoto.FileFormat> mCapabilities;
 
     /** Current photo mode. */
     @NonNull
@@ -147,7 +144,8 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     CameraPhotoSettingCore(@NonNull SettingController.ChangeListener listener, @NonNull Backend backend) {
         mBackend = backend;
         mController = new SettingController(listener);
-        mCapabilities = new EnumMap<>(CameraPhoto.Mode.class);
+        mCapabilities = CameraCapabilityIndex.empty(CameraPhoto.Mode.class, CameraPhoto.Format.class,
+                CameraPhoto.FileFormat.class);
         mSupportedBurstValues = EnumSet.noneOf(CameraPhoto.BurstValue.class);
         mSupportedBracketingValues = EnumSet.noneOf(CameraPhoto.BracketingValue.class);
         mTimelapseIntervalRange = new DoubleRangeCore(1, 1);
@@ -169,8 +167,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     @NonNull
     @Override
     public EnumSet<CameraPhoto.Mode> supportedModes() {
-        Set<CameraPhoto.Mode> modes = mCapabilities.keySet();
-        return modes.isEmpty() ? EnumSet.noneOf(CameraPhoto.Mode.class) : EnumSet.copyOf(modes);
+        return mCapabilities.copyValues();
     }
 
     @NonNull
@@ -197,9 +194,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     @NonNull
     @Override
     public EnumSet<CameraPhoto.Format> supportedFormatsFor(@NonNull CameraPhoto.Mode mode) {
-        EnumMap<CameraPhoto.Format, ?> formats = mCapabilities.get(mode);
-        return formats == null || formats.isEmpty() ? EnumSet.noneOf(CameraPhoto.Format.class)
-                : EnumSet.copyOf(formats.keySet());
+        return mCapabilities.copyValuesFor(mode);
     }
 
     @NonNull
@@ -233,13 +228,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     @Override
     public EnumSet<CameraPhoto.FileFormat> supportedFileFormatsFor(@NonNull CameraPhoto.Mode mode,
                                                                    @NonNull CameraPhoto.Format format) {
-        EnumMap<CameraPhoto.Format, EnumMap<CameraPhoto.FileFormat, Boolean>> formats = mCapabilities.get(mode);
-        if (formats == null) {
-            return EnumSet.noneOf(CameraPhoto.FileFormat.class);
-        }
-        EnumMap<CameraPhoto.FileFormat, Boolean> fileFormats = formats.get(format);
-        return fileFormats == null || fileFormats.isEmpty() ? EnumSet.noneOf(CameraPhoto.FileFormat.class)
-                : EnumSet.copyOf(fileFormats.keySet());
+        return mCapabilities.copyValuesFor(mode, format);
     }
 
     @NonNull
@@ -349,8 +338,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
     @Override
     public boolean isHdrAvailable(@NonNull CameraPhoto.Mode mode, @NonNull CameraPhoto.Format format,
                                   @NonNull CameraPhoto.FileFormat fileFormat) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode, format, fileFormat) && mCapabilities.get(mode).get(format).get(fileFormat);
+        return mCapabilities.isHdrAvailable(mode, format, fileFormat);
     }
 
     @Override
@@ -477,32 +465,13 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
      */
     @NonNull
     public CameraPhotoSettingCore updateCapabilities(@NonNull Collection<Capability> capabilities) {
-        EnumMap<CameraPhoto.Mode, EnumMap<CameraPhoto.Format, EnumMap<CameraPhoto.FileFormat, Boolean>>> newCaps =
-                new EnumMap<>(CameraPhoto.Mode.class);
-
+        CameraCapabilityIndex.Builder<CameraPhoto.Mode, CameraPhoto.Format, CameraPhoto.FileFormat> builder =
+                new CameraCapabilityIndex.Builder<>(CameraPhoto.Mode.class, CameraPhoto.Format.class,
+                        CameraPhoto.FileFormat.class);
         for (Capability capability : capabilities) {
-            for (CameraPhoto.Mode mode : capability.mModes) {
-                EnumMap<CameraPhoto.Format, EnumMap<CameraPhoto.FileFormat, Boolean>> formats = newCaps.get(mode);
-                if (formats == null) {
-                    formats = new EnumMap<>(CameraPhoto.Format.class);
-                    newCaps.put(mode, formats);
-                }
-                for (CameraPhoto.Format format : capability.mFormats) {
-                    EnumMap<CameraPhoto.FileFormat, Boolean> fileFormats = formats.get(format);
-                    if (fileFormats == null) {
-                        fileFormats = new EnumMap<>(CameraPhoto.FileFormat.class);
-                        formats.put(format, fileFormats);
-                    }
-                    for (CameraPhoto.FileFormat fileFormat : capability.mFileFormats) {
-                        Boolean hdrAvailable = fileFormats.get(fileFormat);
-                        if (hdrAvailable == null) {
-                            hdrAvailable = capability.mHdrAvailable;
-                            fileFormats.put(fileFormat, hdrAvailable);
-                        }
-                    }
-                }
-            }
+            builder.add(capability.mModes, capability.mFormats, capability.mFileFormats, capability.mHdrAvailable);
         }
+        CameraCapabilityIndex<CameraPhoto.Mode, CameraPhoto.Format, CameraPhoto.FileFormat> newCaps = builder.build();
 
         if (!newCaps.equals(mCapabilities)) {
             mCapabilities = newCaps;
@@ -702,6 +671,19 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
         return this;
     }
 
+    /**
+     * Retrieves the index of supported photo mode, format and file format combinations.
+     * <p>
+     * Contrary to {@link #supportedModes()} and similar methods, which return a new set on each call, the index and
+     * the sets it provides are shared and read-only. It is meant for repeated validation of setting values.
+     *
+     * @return photo capability index
+     */
+    @NonNull
+    public CameraCapabilityIndex<CameraPhoto.Mode, CameraPhoto.Format, CameraPhoto.FileFormat> capabilities() {
+        return mCapabilities;
+    }
+
     /**
      * Cancels any pending rollback.
      */
@@ -782,7 +764,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
      * @return {@code true} if the given photo mode is currently supported, otherwise {@code false}
      */
     private boolean isSupported(@NonNull CameraPhoto.Mode mode) {
-        return mCapabilities.containsKey(mode);
+        return mCapabilities.contains(mode);
     }
 
     /**
@@ -795,8 +777,7 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
      *         supported in the given mode, otherwise {@code false}
      */
     private boolean isSupported(@NonNull CameraPhoto.Mode mode, @NonNull CameraPhoto.Format format) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode) && mCapabilities.get(mode).containsKey(format);
+        return mCapabilities.contains(mode, format);
     }
 
     /**
@@ -812,7 +793,6 @@ public final class CameraPhotoSettingCore extends CameraPhoto.Setting {
      */
     private boolean isSupported(@NonNull CameraPhoto.Mode mode, @NonNull CameraPhoto.Format format,
                                 @NonNull CameraPhoto.FileFormat fileFormat) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode, format) && mCapabilities.get(mode).get(format).containsKey(fileFormat);
+        return mCapabilities.contains(mode, format, fileFormat);
     }
 }
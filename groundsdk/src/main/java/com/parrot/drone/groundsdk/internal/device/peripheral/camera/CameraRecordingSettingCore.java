@@ -40,7 +40,6 @@ import com.parrot.drone.groundsdk.internal.value.SettingController;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -84,13 +83,11 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
     /**
      * Supported capabilities.
      * <p>
-     * Map each supported recording mode to supported resolutions in this mode, which in turn are mapped to supported
-     * framerates in this resolution (and mode) associated with a flag telling whether HDR is supported in this
-     * configuration.
+     * Indexes supported recording mode, resolution and framerate combinations, along with HDR availability for each.
      */
     @NonNull
-    private EnumMap<CameraRecording.Mode, EnumMap<CameraRecording.Resolution, EnumMap<CameraRecording.Framerate,
-            Boolean>>> mCapabilities;
+    private CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate>
+            mCapabilities;
 
     /** Current recording mode. */
     @NonNull
@@ -121,7 +118,8 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
         mBackend = backend;
         mController = new SettingController(listener);
         mSupportedHyperlapseValues = EnumSet.noneOf(CameraRecording.HyperlapseValue.class);
-        mCapabilities = new EnumMap<>(CameraRecording.Mode.class);
+        mCapabilities = CameraCapabilityIndex.empty(CameraRecording.Mode.class, CameraRecording.Resolution.class,
+                CameraRecording.Framerate.class);
         mMode = CameraRecording.Mode.STANDARD;
         mResolution = CameraRecording.Resolution.RES_DCI_4K;
         mFramerate = CameraRecording.Framerate.FPS_30;
@@ -136,8 +134,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
     @NonNull
     @Override
     public EnumSet<CameraRecording.Mode> supportedModes() {
-        Set<CameraRecording.Mode> modes = mCapabilities.keySet();
-        return modes.isEmpty() ? EnumSet.noneOf(CameraRecording.Mode.class) : EnumSet.copyOf(modes);
+        return mCapabilities.copyValues();
     }
 
     @NonNull
@@ -164,9 +161,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
     @NonNull
     @Override
     public EnumSet<CameraRecording.Resolution> supportedResolutionsFor(@NonNull CameraRecording.Mode mode) {
-        EnumMap<CameraRecording.Resolution, ?> resolutions = mCapabilities.get(mode);
-        return resolutions == null || resolutions.isEmpty() ? EnumSet.noneOf(CameraRecording.Resolution.class)
-                : EnumSet.copyOf(resolutions.keySet());
+        return mCapabilities.copyValuesFor(mode);
     }
 
     @NonNull
@@ -200,14 +195,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
     @Override
     public EnumSet<CameraRecording.Framerate> supportedFrameratesFor(@NonNull CameraRecording.Mode mode,
                                                                      @NonNull CameraRecording.Resolution resolution) {
-        EnumMap<CameraRecording.Resolution, EnumMap<CameraRecording.Framerate, Boolean>> resolutions
-                = mCapabilities.get(mode);
-        if (resolutions == null) {
-            return EnumSet.noneOf(CameraRecording.Framerate.class);
-        }
-        EnumMap<CameraRecording.Framerate, Boolean> framerates = resolutions.get(resolution);
-        return framerates == null || framerates.isEmpty() ? EnumSet.noneOf(CameraRecording.Framerate.class)
-                : EnumSet.copyOf(framerates.keySet());
+        return mCapabilities.copyValuesFor(mode, resolution);
     }
 
     @NonNull
@@ -233,8 +221,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
     @Override
     public boolean isHdrAvailable(@NonNull CameraRecording.Mode mode, @NonNull CameraRecording.Resolution resolution,
                                   @NonNull CameraRecording.Framerate framerate) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode, resolution, framerate) && mCapabilities.get(mode).get(resolution).get(framerate);
+        return mCapabilities.isHdrAvailable(mode, resolution, framerate);
     }
 
     @NonNull
@@ -376,33 +363,14 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
      */
     @NonNull
     public CameraRecordingSettingCore updateCapabilities(@NonNull Collection<Capability> capabilities) {
-        EnumMap<CameraRecording.Mode, EnumMap<CameraRecording.Resolution, EnumMap<CameraRecording.Framerate, Boolean>>>
-                newCaps = new EnumMap<>(CameraRecording.Mode.class);
-
+        CameraCapabilityIndex.Builder<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate>
+                builder = new CameraCapabilityIndex.Builder<>(CameraRecording.Mode.class,
+                CameraRecording.Resolution.class, CameraRecording.Framerate.class);
         for (Capability capability : capabilities) {
-            for (CameraRecording.Mode mode : capability.mModes) {
-                EnumMap<CameraRecording.Resolution, EnumMap<CameraRecording.Framerate, Boolean>> resolutions
-                        = newCaps.get(mode);
-                if (resolutions == null) {
-                    resolutions = new EnumMap<>(CameraRecording.Resolution.class);
-                    newCaps.put(mode, resolutions);
-                }
-                for (CameraRecording.Resolution resolution : capability.mResolutions) {
-                    EnumMap<CameraRecording.Framerate, Boolean> framerates = resolutions.get(resolution);
-                    if (framerates == null) {
-                        framerates = new EnumMap<>(CameraRecording.Framerate.class);
-                        resolutions.put(resolution, framerates);
-                    }
-                    for (CameraRecording.Framerate framerate : capability.mFramerates) {
-                        Boolean hdrAvailable = framerates.get(framerate);
-                        if (hdrAvailable == null) {
-                            hdrAvailable = capability.mHdrAvailable;
-                            framerates.put(framerate, hdrAvailable);
-                        }
-                    }
-                }
-            }
+            builder.add(capability.mModes, capability.mResolutions, capability.mFramerates, capability.mHdrAvailable);
         }
+        CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate> newCaps =
+                builder.build();
 
         if (!newCaps.equals(mCapabilities)) {
             mCapabilities = newCaps;
@@ -515,6 +483,20 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
         return this;
     }
 
+    /**
+     * Retrieves the index of supported recording mode, resolution and framerate combinations.
+     * <p>
+     * Contrary to {@link #supportedModes()} and similar methods, which return a new set on each call, the index and
+     * the sets it provides are shared and read-only. It is meant for repeated validation of setting values.
+     *
+     * @return recording capability index
+     */
+    @NonNull
+    public CameraCapabilityIndex<CameraRecording.Mode, CameraRecording.Resolution, CameraRecording.Framerate>
+    capabilities() {
+        return mCapabilities;
+    }
+
     /**
      * Cancels any pending rollback.
      */
@@ -573,7 +555,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
      * @return {@code true} if the given recording mode is currently supported, otherwise {@code false}
      */
     private boolean isSupported(@NonNull CameraRecording.Mode mode) {
-        return mCapabilities.containsKey(mode);
+        return mCapabilities.contains(mode);
     }
 
     /**
@@ -586,8 +568,7 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
      *         supported in the given mode, otherwise {@code false}
      */
     private boolean isSupported(@NonNull CameraRecording.Mode mode, @NonNull CameraRecording.Resolution resolution) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode) && mCapabilities.get(mode).containsKey(resolution);
+        return mCapabilities.contains(mode, resolution);
     }
 
     /**
@@ -603,7 +584,6 @@ public final class CameraRecordingSettingCore extends CameraRecording.Setting {
      */
     private boolean isSupported(@NonNull CameraRecording.Mode mode, @NonNull CameraRecording.Resolution resolution,
                                 @NonNull CameraRecording.Framerate framerate) {
-        //noinspection ConstantConditions: asserted by isSupported
-        return isSupported(mode, resolution) && mCapabilities.get(mode).get(resolution).containsKey(framerate);
+        return mCapabilities.contains(mode, resolution, framerate);
     }
 }
@@ -32,6 +32,8 @@
 
 package com.parrot.drone.groundsdk.internal.device.peripheral.media;
 
+import android.os.SystemClock;
+
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -103,6 +105,15 @@ class MediaDownloaderCore implements MediaDownloader {
     /** Completion percentage for the whole task. */
     private int mCurrentOverallProgress;
 
+    /** Amount of data, in bytes, actually transferred since the task started. */
+    private long mTransferredSize;
+
+    /** Time when the task started, in milliseconds since boot. */
+    private long mStartTime;
+
+    /** Aggregate download throughput, in bytes per second. */
+    private long mThroughput;
+
     /** Index of currently processed media. */
     private int mMediaIndex;
 
@@ -196,6 +207,11 @@ class MediaDownloaderCore implements MediaDownloader {
         return mCurrentFileProgress;
     }
 
+    @Override
+    public long getThroughput() {
+        return mThroughput;
+    }
+
     @Override
     public File getDownloadedFile() {
         return mDownloadedFile;
@@ -217,6 +233,7 @@ class MediaDownloaderCore implements MediaDownloader {
      * Executes the download task.
      */
     void execute() {
+        mStartTime = SystemClock.elapsedRealtime();
         downloadNextEntry();
     }
 
@@ -306,6 +323,19 @@ class MediaDownloaderCore implements MediaDownloader {
                     }
                 }
 
+                @Override
+                public void onRequestTransfer(long byteCount) {
+                    if (mCurrentRequest != null) {
+                        mTransferredSize += byteCount;
+                        long elapsed = SystemClock.elapsedRealtime() - mStartTime;
+                        long throughput = elapsed > 0 ? mTransferredSize * 1000 / elapsed : 0;
+                        if (mThroughput != throughput) {
+                            mThroughput = throughput;
+                            mChanged = true; // notified along with subsequent progress
+                        }
+                    }
+                }
+
                 @Override
                 public void onRequestComplete(@NonNull MediaRequest.Status status, @Nullable File result) {
                     mCurrentRequest = null;
@@ -39,8 +39,14 @@ import com.parrot.drone.groundsdk.device.peripheral.MediaStore;
 import com.parrot.drone.groundsdk.device.peripheral.media.MediaItem;
 import com.parrot.drone.groundsdk.internal.session.Session;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A reference on a list of media items.
@@ -59,6 +65,10 @@ final class MediaListRef extends Session.RefBase<List<MediaItem>> {
     @Nullable
     private final MediaStore.StorageType mStorageType;
 
+    /** Latest media list obtained from the store; {@code null} if unknown or if a list request is in progress. */
+    @Nullable
+    private List<MediaItemCore> mMedias;
+
     /**
      * Constructor.
      *
@@ -95,14 +105,68 @@ final class MediaListRef extends Session.RefBase<List<MediaItem>> {
         if (mRequest != null) {
             mRequest.cancel();
         }
+        mMedias = null;
         MediaRequest.ResultCallback<List<? extends MediaItemCore>> callback = (status, list) -> {
             if (status != MediaRequest.Status.CANCELED) {
+                mRequest = null;
+                mMedias = list == null ? null : new ArrayList<>(list);
                 update(list == null ? Collections.emptyList() : Collections.unmodifiableList(list));
             }
         };
-        mRequest = mStore.mBackend.browse(mStorageType, callback);
+        MediaRequest request = mStore.mBackend.browse(mStorageType, callback);
+        if (mMedias == null) {
+            mRequest = request;
+        }
+    }
+
+    /**
+     * Applies an incremental change to the latest media list.
+     *
+     * @param updated    media items that were either added to the store, or whose resources changed
+     * @param removedIds unique identifiers of media items that were removed from the store
+     */
+    private void applyChange(@NonNull Collection<? extends MediaItemCore> updated,
+                             @NonNull Collection<String> removedIds) {
+        assert mMedias != null;
+        Map<String, MediaItemCore> changes = new HashMap<>();
+        for (MediaItemCore media : updated) {
+            changes.put(media.getUid(), media);
+        }
+        Set<String> removed = new HashSet<>(removedIds);
+        List<MediaItemCore> medias = new ArrayList<>(mMedias.size() + changes.size());
+        for (MediaItemCore media : mMedias) {
+            String uid = media.getUid();
+            if (!removed.contains(uid)) {
+                MediaItemCore change = changes.remove(uid);
+                medias.add(change == null ? media : change);
+            }
+        }
+        for (MediaItemCore media : updated) {
+            if (changes.containsKey(media.getUid())) {
+                medias.add(media);
+            }
+        }
+        mMedias = medias;
+        update(Collections.unmodifiableList(medias));
     }
 
-    /** Notified when the media store changes, triggers a new list request. */
-    private final MediaStoreCore.Observer mStoreObserver = this::requestList;
+    /** Notified when the media store changes, either applies the change or triggers a new list request. */
+    private final MediaStoreCore.Observer mStoreObserver = new MediaStoreCore.Observer() {
+
+        @Override
+        public void onChanged() {
+            requestList();
+        }
+
+        @Override
+        public void onChanged(@NonNull Collection<? extends MediaItemCore> updated,
+                              @NonNull Collection<String> removedIds) {
+            // media items do not tell which storage they belong to, so filtered lists are requested again
+            if (mMedias == null || mStorageType != null) {
+                requestList();
+            } else {
+                applyChange(updated, removedIds);
+            }
+        }
+    };
 }
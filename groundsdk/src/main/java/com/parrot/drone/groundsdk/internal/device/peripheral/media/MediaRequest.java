@@ -99,6 +99,18 @@ public interface MediaRequest {
          * @param progress current request progress
          */
         void onRequestProgress(@IntRange(from = 0, to = 100) int progress);
+
+        /**
+         * Called back when some data has been transferred by the request.
+         * <p>
+         * Only accounts for data actually transferred over the network: data that is already available when the
+         * request starts, such as the already downloaded part of a resumed download, is not reported. <br>
+         * Called right before {@link #onRequestProgress}, when progress changes. Default implementation does nothing.
+         *
+         * @param byteCount amount of bytes transferred since last call
+         */
+        default void onRequestTransfer(@IntRange(from = 0) long byteCount) {
+        }
     }
 
     /**
@@ -44,7 +44,10 @@ import com.parrot.drone.groundsdk.internal.component.ComponentStore;
 import com.parrot.drone.groundsdk.internal.session.Session;
 
 import java.io.File;
+import java.io.PrintWriter;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /** Core class for the {@link MediaStore}. */
@@ -152,8 +155,23 @@ public final class MediaStoreCore extends ComponentCore {
 
         /**
          * Called back when the content of the media store changes.
+         * <p>
+         * Observers should consider the whole content as changed and browse it again.
          */
         void onChanged();
+
+        /**
+         * Called back when the content of the media store changes incrementally.
+         * <p>
+         * Default implementation considers the whole content as changed and forwards to {@link #onChanged()}.
+         *
+         * @param updated    media items that were either added to the store, or whose resources changed
+         * @param removedIds unique identifiers of media items that were removed from the store
+         */
+        default void onChanged(@NonNull Collection<? extends MediaItemCore> updated,
+                               @NonNull Collection<String> removedIds) {
+            onChanged();
+        }
     }
 
     /** Engine peripheral backend. */
@@ -190,11 +208,28 @@ public final class MediaStoreCore extends ComponentCore {
      * @param backend         backend used to forward actions to the engine
      */
     public MediaStoreCore(@NonNull ComponentStore<Peripheral> peripheralStore, @NonNull Backend backend) {
+        this(peripheralStore, null, backend);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * When a device uid is provided, fetched thumbnails are also cached on disk, if enabled by configuration.
+     *
+     * @param peripheralStore store where this peripheral belongs
+     * @param deviceUid       uid of the device that provides the media, {@code null} to disable thumbnail disk cache
+     * @param backend         backend used to forward actions to the engine
+     */
+    public MediaStoreCore(@NonNull ComponentStore<Peripheral> peripheralStore, @Nullable String deviceUid,
+                          @NonNull Backend backend) {
         super(DESC, peripheralStore);
         mBackend = backend;
         mObservers = new CopyOnWriteArrayList<>();
         mIndexingState = MediaStore.IndexingState.UNAVAILABLE;
-        mMediaThumbnailCache = new MediaThumbnailCache(mBackend, GroundSdkConfig.get().getThumbnailCacheSize());
+        GroundSdkConfig config = GroundSdkConfig.get();
+        mMediaThumbnailCache = new MediaThumbnailCache(mBackend, config.getThumbnailCacheSize(),
+                deviceUid == null ? null : ThumbnailDiskCache.getInstance(), deviceUid,
+                config.getThumbnailMaxConcurrentFetches());
     }
 
     @Override
@@ -371,6 +406,22 @@ public final class MediaStoreCore extends ComponentCore {
         return new MediaStoreProxy(session, this);
     }
 
+    /**
+     * Removes cached thumbnails of a media that was removed from the device.
+     *
+     * @param mediaUid uid of the removed media
+     */
+    public void evictThumbnails(@NonNull String mediaUid) {
+        mMediaThumbnailCache.evict(mediaUid);
+    }
+
+    /**
+     * Removes all cached thumbnails of the device, when all media were removed from it.
+     */
+    public void evictAllThumbnails() {
+        mMediaThumbnailCache.evictAll();
+    }
+
     /**
      * Notifies all registered observers of a store content change.
      */
@@ -379,4 +430,34 @@ public final class MediaStoreCore extends ComponentCore {
             observer.onChanged();
         }
     }
+
+    /**
+     * Notifies all registered observers of an incremental store content change.
+     * <p>
+     * Media items in {@code updated} replace any known item with the same unique identifier, others are considered
+     * added to the store.
+     *
+     * @param updated    media items that were either added to the store, or whose resources changed
+     * @param removedIds unique identifiers of media items that were removed from the store
+     */
+    public void notifyObservers(@NonNull Collection<? extends MediaItemCore> updated,
+                                @NonNull Collection<String> removedIds) {
+        for (Observer observer : mObservers) {
+            observer.onChanged(updated, removedIds);
+        }
+    }
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param args   command line arguments to process
+     */
+    public static void dump(@NonNull PrintWriter writer, @NonNull Set<String> args) {
+        if (args.isEmpty() || args.contains("--help")) {
+            writer.write("\t--thumbnails: dumps media thumbnails cache info\n");
+        } else if (args.contains("--thumbnails") || args.contains("--all")) {
+            MediaThumbnailCache.dump(writer);
+        }
+    }
 }
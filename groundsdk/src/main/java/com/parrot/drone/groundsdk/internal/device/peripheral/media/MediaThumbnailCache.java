@@ -37,15 +37,25 @@ import android.graphics.Bitmap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.PrintWriter;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An LRU cache of media thumbnails.
+ * <p>
+ * Decoded thumbnails are kept in memory. When configured with a {@link ThumbnailDiskCache disk cache}, fetched
+ * thumbnails are also stored on disk, where they are looked up before being fetched from the device.
+ * <p>
+ * Up to a configurable amount of thumbnails are fetched concurrently; pending thumbnails are processed starting with the
+ * most recently requested one.
  */
 final class MediaThumbnailCache {
 
@@ -119,6 +129,37 @@ final class MediaThumbnailCache {
                                     @NonNull MediaRequest.ResultCallback<Bitmap> callback);
     }
 
+    /** Cache statistics, aggregated over all caches, for debug dump. */
+    static final class Stats {
+
+        /** Count of thumbnail requests served from memory. */
+        static final AtomicLong MEMORY_HITS = new AtomicLong();
+
+        /** Count of thumbnail requests not found in memory. */
+        static final AtomicLong MEMORY_MISSES = new AtomicLong();
+
+        /** Count of thumbnails evicted from memory. */
+        static final AtomicLong MEMORY_EVICTIONS = new AtomicLong();
+
+        /** Count of thumbnails loaded from disk. */
+        static final AtomicLong DISK_HITS = new AtomicLong();
+
+        /** Count of thumbnails not found on disk. */
+        static final AtomicLong DISK_MISSES = new AtomicLong();
+
+        /** Count of thumbnails evicted from disk. */
+        static final AtomicLong DISK_EVICTIONS = new AtomicLong();
+
+        /** Count of thumbnails fetched from the device. */
+        static final AtomicLong FETCHES = new AtomicLong();
+
+        /**
+         * Private constructor for static holder class.
+         */
+        private Stats() {
+        }
+    }
+
     /** Cache entries, by corresponding media item. */
     @NonNull
     private final LinkedHashMap<ThumbnailProvider, Entry> mCache;
@@ -127,9 +168,27 @@ final class MediaThumbnailCache {
     @NonNull
     private final Backend mBackend;
 
-    /** Rest of media requests to be processed. Does not contain the item being currently processed. */
+    /**
+     * Rest of media requests to be processed, most recently requested first. Does not contain the items being
+     * currently processed.
+     */
+    @NonNull
+    private final Deque<ThumbnailProvider> mPendingRequests;
+
+    /** Thumbnail requests being processed, either loading from disk or fetching from the device. */
     @NonNull
-    private final Queue<ThumbnailProvider> mPendingRequests;
+    private final Map<ThumbnailProvider, MediaRequest> mActiveRequests;
+
+    /** Disk cache, {@code null} if thumbnails are only cached in memory. */
+    @Nullable
+    private final ThumbnailDiskCache mDiskCache;
+
+    /** Uid of the device providing the thumbnails, used to index the disk cache. */
+    @Nullable
+    private final String mDeviceUid;
+
+    /** Maximum number of thumbnail requests processed concurrently. */
+    private final int mMaxConcurrentRequests;
 
     /**
      * Maximum size of the cache, in bytes. If the cache grows above this limit, eldest cache entries that contains
@@ -140,21 +199,40 @@ final class MediaThumbnailCache {
     /** Current size of the cache. This is the sum of the size of the bitmap in each completed cache entry. */
     private long mCacheSize;
 
-    /** Current thumbnail request being processed. */
-    @Nullable
-    private MediaRequest mCurrentRequest;
+    /** Incremented each time the cache is cleared, so that results of requests issued before are ignored. */
+    private int mGeneration;
 
     /**
      * Constructor.
+     * <p>
+     * Thumbnails are only cached in memory, and fetched one at a time.
      *
      * @param backend   backend allowing to fetch thumbnails
      * @param cacheSize maximum cache size, in bytes
      */
     MediaThumbnailCache(@NonNull Backend backend, long cacheSize) {
+        this(backend, cacheSize, null, null, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param backend               backend allowing to fetch thumbnails
+     * @param cacheSize             maximum cache size, in bytes
+     * @param diskCache             disk cache, {@code null} to only cache thumbnails in memory
+     * @param deviceUid             uid of the device providing the thumbnails, used to index the disk cache
+     * @param maxConcurrentRequests maximum number of thumbnail requests to process concurrently
+     */
+    MediaThumbnailCache(@NonNull Backend backend, long cacheSize, @Nullable ThumbnailDiskCache diskCache,
+                        @Nullable String deviceUid, int maxConcurrentRequests) {
         mBackend = backend;
         mCache = new LinkedHashMap<>(); // with insertion order
         mCacheMaxSize = cacheSize;
         mPendingRequests = new LinkedList<>();
+        mActiveRequests = new HashMap<>();
+        mDiskCache = deviceUid == null ? null : diskCache;
+        mDeviceUid = deviceUid;
+        mMaxConcurrentRequests = Math.max(1, maxConcurrentRequests);
     }
 
     /**
@@ -168,9 +246,36 @@ final class MediaThumbnailCache {
         }
         mCache.clear();
         mCacheSize = 0;
-        if (mCurrentRequest != null) {
-            mCurrentRequest.cancel();
-            mCurrentRequest = null;
+        mGeneration++;
+        for (MediaRequest request : mActiveRequests.values()) {
+            request.cancel();
+        }
+        mActiveRequests.clear();
+    }
+
+    /**
+     * Removes thumbnails of a media, including those of its resources, from the disk cache.
+     * <p>
+     * To be called when the media is removed from the device.
+     *
+     * @param mediaUid uid of the removed media
+     */
+    void evict(@NonNull String mediaUid) {
+        if (mDiskCache != null) {
+            assert mDeviceUid != null;
+            mDiskCache.remove(mDeviceUid, ThumbnailProvider.mediaKeyPrefix(mediaUid));
+        }
+    }
+
+    /**
+     * Removes all thumbnails of the device from the disk cache.
+     * <p>
+     * To be called when all media are removed from the device.
+     */
+    void evictAll() {
+        if (mDiskCache != null) {
+            assert mDeviceUid != null;
+            mDiskCache.remove(mDeviceUid, null);
         }
     }
 
@@ -193,6 +298,9 @@ final class MediaThumbnailCache {
         Entry entry = mCache.remove(provider);
         if (entry == null) {
             entry = new Entry(provider);
+            Stats.MEMORY_MISSES.incrementAndGet();
+        } else if (entry.mCallbacks == null) {
+            Stats.MEMORY_HITS.incrementAndGet();
         }
 
         mCache.put(provider, entry); // make it a recently accessed cache entry
@@ -287,8 +395,13 @@ final class MediaThumbnailCache {
                 callback.onThumbnailAvailable(mThumbnail);
             } else {
                 if (mCallbacks.isEmpty() & mCallbacks.add(callback)) {
-                    mPendingRequests.add(mProvider);
-                    processNextRequest();
+                    if (!mActiveRequests.containsKey(mProvider)) {
+                        mPendingRequests.addFirst(mProvider);
+                        processNextRequest();
+                    }
+                } else if (mPendingRequests.remove(mProvider)) {
+                    // requested again: move to front
+                    mPendingRequests.addFirst(mProvider);
                 }
                 request = () -> {
                     if (mCallbacks != null && mCallbacks.remove(callback) && mCallbacks.isEmpty()) {
@@ -303,25 +416,84 @@ final class MediaThumbnailCache {
     }
 
     /**
-     * Processes the next pending request, if there isn't a request being process currently.
+     * Processes next pending requests, as long as the maximum number of concurrent requests is not reached.
+     * <p>
+     * Each request first looks up the thumbnail in the disk cache, if any, then fetches it from the device in case of
+     * disk cache miss.
      */
     private void processNextRequest() {
-        if (mCurrentRequest == null && !mPendingRequests.isEmpty()) {
-            ThumbnailProvider next = mPendingRequests.remove();
-            mCurrentRequest = next.fetch(mBackend, (status, thumbnail) -> {
-                mCurrentRequest = null;
-                Entry entry = mCache.get(next);
-                if (entry != null) {
-                    entry.complete(thumbnail);
-                    if (status == MediaRequest.Status.SUCCESS) {
-                        updateCache(entry);
+        while (mActiveRequests.size() < mMaxConcurrentRequests && !mPendingRequests.isEmpty()) {
+            ThumbnailProvider next = mPendingRequests.removeFirst();
+            if (mDiskCache != null) {
+                assert mDeviceUid != null;
+                int generation = mGeneration;
+                mActiveRequests.put(next, mDiskCache.load(mDeviceUid, next.getKey(), thumbnail -> {
+                    if (generation != mGeneration) {
+                        return;
+                    }
+                    if (thumbnail != null) {
+                        Stats.DISK_HITS.incrementAndGet();
+                        onRequestComplete(next, MediaRequest.Status.SUCCESS, thumbnail);
                     } else {
-                        mCache.remove(next);
+                        Stats.DISK_MISSES.incrementAndGet();
+                        mActiveRequests.remove(next);
+                        fetch(next);
                     }
-                }
-                processNextRequest();
-            });
+                }));
+            } else {
+                fetch(next);
+            }
+        }
+    }
+
+    /**
+     * Fetches a thumbnail from the device.
+     * <p>
+     * Successfully fetched thumbnails are stored in the disk cache, if any.
+     *
+     * @param provider media or resource providing the thumbnail
+     */
+    private void fetch(@NonNull ThumbnailProvider provider) {
+        Stats.FETCHES.incrementAndGet();
+        int generation = mGeneration;
+        // register a placeholder first, since backend may complete the request immediately
+        MediaRequest placeholder = () -> {};
+        mActiveRequests.put(provider, placeholder);
+        MediaRequest request = provider.fetch(mBackend, (status, thumbnail) -> {
+            if (generation != mGeneration) {
+                return;
+            }
+            if (mDiskCache != null && status == MediaRequest.Status.SUCCESS && thumbnail != null) {
+                assert mDeviceUid != null;
+                mDiskCache.store(mDeviceUid, provider.getKey(), thumbnail);
+            }
+            onRequestComplete(provider, status, thumbnail);
+        });
+        if (request != null && mActiveRequests.get(provider) == placeholder) {
+            mActiveRequests.put(provider, request);
+        }
+    }
+
+    /**
+     * Called when a thumbnail request completes, either from disk or from the device.
+     *
+     * @param provider  media or resource providing the thumbnail
+     * @param status    request completion status
+     * @param thumbnail obtained thumbnail, {@code null} if none
+     */
+    private void onRequestComplete(@NonNull ThumbnailProvider provider, @NonNull MediaRequest.Status status,
+                                   @Nullable Bitmap thumbnail) {
+        mActiveRequests.remove(provider);
+        Entry entry = mCache.get(provider);
+        if (entry != null) {
+            entry.complete(thumbnail);
+            if (status == MediaRequest.Status.SUCCESS) {
+                updateCache(entry);
+            } else {
+                mCache.remove(provider);
+            }
         }
+        processNextRequest();
     }
 
     /**
@@ -343,7 +515,24 @@ final class MediaThumbnailCache {
                 entry.complete(null);
                 iter.remove();
                 mCacheSize -= entry.size();
+                Stats.MEMORY_EVICTIONS.incrementAndGet();
             }
         }
     }
+
+    /**
+     * Debug dump of cache statistics.
+     *
+     * @param writer writer to dump to
+     */
+    static void dump(@NonNull PrintWriter writer) {
+        writer.write("Media thumbnails cache:\n");
+        writer.write("\tMemory [hits: " + Stats.MEMORY_HITS.get() + ", misses: " + Stats.MEMORY_MISSES.get()
+                     + ", evictions: " + Stats.MEMORY_EVICTIONS.get() + "]\n");
+        ThumbnailDiskCache diskCache = ThumbnailDiskCache.peekInstance();
+        writer.write("\tDisk [hits: " + Stats.DISK_HITS.get() + ", misses: " + Stats.DISK_MISSES.get()
+                     + ", evictions: " + Stats.DISK_EVICTIONS.get() + ", size: "
+                     + (diskCache == null ? "disabled" : diskCache.size() + "/" + diskCache.maxSize()) + "]\n");
+        writer.write("\tFetches: " + Stats.FETCHES.get() + "\n");
+    }
 }
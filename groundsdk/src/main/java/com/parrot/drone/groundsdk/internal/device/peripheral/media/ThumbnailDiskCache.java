@@ -0,0 +1,388 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_INTERNAL;
+
+/**
+ * An LRU disk cache of compressed media thumbnails.
+ * <p>
+ * Thumbnails are stored in one file per thumbnail, in one directory per device. The cache is shared by all devices and
+ * its total size is bounded; least recently used thumbnails are deleted first when the cache goes beyond limit.
+ * <p>
+ * All file operations are performed on a dedicated background thread; results are delivered on the main thread.
+ */
+final class ThumbnailDiskCache {
+
+    /** Name of the cache directory, in the application internal file cache. */
+    private static final String DIRECTORY_NAME = "thumbnails";
+
+    /** Quality used to compress opaque thumbnails to JPEG. */
+    private static final int JPEG_QUALITY = 90;
+
+    /** Allows to be notified when a thumbnail has been loaded from the cache. */
+    interface LoadCallback {
+
+        /**
+         * Called back on main thread when the thumbnail load completes.
+         *
+         * @param thumbnail loaded thumbnail, {@code null} if the thumbnail is not in the cache or could not be decoded
+         */
+        void onLoaded(@Nullable Bitmap thumbnail);
+    }
+
+    /** Shared disk cache instance. */
+    @Nullable
+    private static ThumbnailDiskCache sInstance;
+
+    /**
+     * Gives the shared disk cache instance.
+     *
+     * @return the shared disk cache, or {@code null} if the disk cache is disabled by configuration
+     */
+    @Nullable
+    static ThumbnailDiskCache getInstance() {
+        synchronized (ThumbnailDiskCache.class) {
+            long maxSize = GroundSdkConfig.get().getThumbnailDiskCacheSize();
+            if (sInstance == null && maxSize > 0) {
+                sInstance = new ThumbnailDiskCache(new File(
+                        ApplicationStorageProvider.getInstance().getInternalAppFileCache(), DIRECTORY_NAME), maxSize);
+            }
+            return sInstance;
+        }
+    }
+
+    /**
+     * Gives the shared disk cache instance, if it has been created already.
+     *
+     * @return the shared disk cache, or {@code null} if not created yet or disabled by configuration
+     */
+    @Nullable
+    static ThumbnailDiskCache peekInstance() {
+        synchronized (ThumbnailDiskCache.class) {
+            return sInstance;
+        }
+    }
+
+    /** Cache root directory. */
+    @NonNull
+    private final File mDirectory;
+
+    /** Maximum size of the cache, in bytes. */
+    private final long mMaxSize;
+
+    /** Executes all file operations. */
+    @NonNull
+    private final ExecutorService mExecutor;
+
+    /**
+     * Size of each cached file, by file, in access order. Only accessed from the cache thread.
+     * <p>
+     * {@code null} until the cache directory has been indexed.
+     */
+    @Nullable
+    private LinkedHashMap<File, Long> mIndex;
+
+    /** Current total size of cached files, in bytes. Only accessed from the cache thread. */
+    private long mSize;
+
+    /**
+     * Constructor.
+     *
+     * @param directory cache root directory
+     * @param maxSize   maximum cache size, in bytes
+     */
+    @VisibleForTesting
+    ThumbnailDiskCache(@NonNull File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+        mExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "thumbnail-disk-cache"));
+    }
+
+    /**
+     * Loads a thumbnail from the cache.
+     *
+     * @param deviceUid uid of the device that provides the thumbnail
+     * @param key       key of the thumbnail, unique among the device's thumbnails
+     * @param callback  callback notified on main thread once the load completes, unless canceled
+     *
+     * @return a request that can be canceled
+     */
+    @NonNull
+    MediaRequest load(@NonNull String deviceUid, @NonNull String key, @NonNull LoadCallback callback) {
+        AtomicBoolean canceled = new AtomicBoolean();
+        File file = fileFor(deviceUid, key);
+        mExecutor.execute(() -> {
+            if (canceled.get()) {
+                return;
+            }
+            Map<File, Long> index = index();
+            Long size = index.get(file);
+            Bitmap thumbnail = null;
+            if (size != null) {
+                thumbnail = BitmapFactory.decodeFile(file.getPath());
+                if (thumbnail == null) {
+                    ULog.w(TAG_INTERNAL, "Failed to decode cached thumbnail " + file);
+                    index.remove(file);
+                    mSize -= size;
+                    delete(file);
+                } else if (!file.setLastModified(System.currentTimeMillis()) && ULog.d(TAG_INTERNAL)) {
+                    ULog.d(TAG_INTERNAL, "Could not update thumbnail access time " + file);
+                }
+            }
+            Bitmap result = thumbnail;
+            Executor.postOnMainThread(() -> {
+                if (!canceled.get()) {
+                    callback.onLoaded(result);
+                }
+            });
+        });
+        return () -> canceled.set(true);
+    }
+
+    /**
+     * Stores a thumbnail in the cache.
+     * <p>
+     * The thumbnail is compressed and written in background.
+     *
+     * @param deviceUid uid of the device that provides the thumbnail
+     * @param key       key of the thumbnail, unique among the device's thumbnails
+     * @param thumbnail thumbnail to store
+     */
+    void store(@NonNull String deviceUid, @NonNull String key, @NonNull Bitmap thumbnail) {
+        File file = fileFor(deviceUid, key);
+        mExecutor.execute(() -> {
+            Map<File, Long> index = index();
+            File dir = file.getParentFile();
+            assert dir != null;
+            File tmp = new File(dir, file.getName() + ".tmp");
+            if (!dir.exists() && !dir.mkdirs()) {
+                ULog.e(TAG_INTERNAL, "Could not create thumbnail cache directory " + dir);
+                return;
+            }
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                if (!thumbnail.compress(thumbnail.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG,
+                        JPEG_QUALITY, out)) {
+                    throw new IOException("Compression failed");
+                }
+            } catch (IOException e) {
+                ULog.e(TAG_INTERNAL, "Failed to write thumbnail " + file, e);
+                delete(tmp);
+                return;
+            }
+            Long previousSize = index.remove(file);
+            if (previousSize != null) {
+                mSize -= previousSize;
+            }
+            if (!tmp.renameTo(file)) {
+                ULog.e(TAG_INTERNAL, "Failed to commit thumbnail " + file);
+                delete(tmp);
+                delete(file);
+                return;
+            }
+            long size = file.length();
+            index.put(file, size);
+            mSize += size;
+            trim();
+        });
+    }
+
+    /**
+     * Removes thumbnails from the cache.
+     * <p>
+     * Thumbnails are deleted in background.
+     *
+     * @param deviceUid uid of the device that provides the thumbnails
+     * @param keyPrefix prefix of the keys of the thumbnails to remove, {@code null} to remove all thumbnails of the
+     *                  device
+     */
+    void remove(@NonNull String deviceUid, @Nullable String keyPrefix) {
+        File dir = new File(mDirectory, encode(deviceUid));
+        // encoding preserves prefixes, since each character is encoded independently
+        String namePrefix = keyPrefix == null ? "" : encode(keyPrefix);
+        mExecutor.execute(() -> {
+            Iterator<Map.Entry<File, Long>> iter = index().entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<File, Long> entry = iter.next();
+                File file = entry.getKey();
+                if (dir.equals(file.getParentFile()) && file.getName().startsWith(namePrefix)) {
+                    iter.remove();
+                    mSize -= entry.getValue();
+                    delete(file);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gives current cache size.
+     * <p>
+     * For debug dump purposes; value is read without synchronization and may be slightly outdated.
+     *
+     * @return current cache size, in bytes
+     */
+    long size() {
+        return mSize;
+    }
+
+    /**
+     * Gives the cache maximum size.
+     *
+     * @return cache maximum size, in bytes
+     */
+    long maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Gives the cache file for a thumbnail.
+     *
+     * @param deviceUid uid of the device that provides the thumbnail
+     * @param key       key of the thumbnail
+     *
+     * @return thumbnail cache file
+     */
+    @NonNull
+    private File fileFor(@NonNull String deviceUid, @NonNull String key) {
+        return new File(new File(mDirectory, encode(deviceUid)), encode(key));
+    }
+
+    /**
+     * Gives the cache index, indexing the cache directory first if required.
+     * <p>
+     * Must be called from the cache thread.
+     *
+     * @return cache index
+     */
+    @NonNull
+    private Map<File, Long> index() {
+        if (mIndex == null) {
+            mIndex = new LinkedHashMap<>(16, 0.75f, true);
+            List<File> files = new ArrayList<>();
+            File[] deviceDirs = mDirectory.listFiles(File::isDirectory);
+            if (deviceDirs != null) {
+                for (File deviceDir : deviceDirs) {
+                    File[] thumbnails = deviceDir.listFiles(File::isFile);
+                    if (thumbnails != null) {
+                        files.addAll(Arrays.asList(thumbnails));
+                    }
+                }
+            }
+            files.sort(Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                if (file.getName().endsWith(".tmp")) {
+                    delete(file);
+                } else {
+                    long size = file.length();
+                    mIndex.put(file, size);
+                    mSize += size;
+                }
+            }
+            trim();
+        }
+        return mIndex;
+    }
+
+    /**
+     * Deletes least recently used thumbnails until the cache size goes below limit.
+     * <p>
+     * Must be called from the cache thread.
+     */
+    private void trim() {
+        assert mIndex != null;
+        Iterator<Map.Entry<File, Long>> iter = mIndex.entrySet().iterator();
+        while (mSize > mMaxSize && iter.hasNext()) {
+            Map.Entry<File, Long> entry = iter.next();
+            iter.remove();
+            mSize -= entry.getValue();
+            delete(entry.getKey());
+            MediaThumbnailCache.Stats.DISK_EVICTIONS.incrementAndGet();
+        }
+    }
+
+    /**
+     * Deletes a file, logging failure.
+     *
+     * @param file file to delete
+     */
+    private static void delete(@NonNull File file) {
+        if (file.exists() && !file.delete()) {
+            ULog.w(TAG_INTERNAL, "Could not delete " + file);
+        }
+    }
+
+    /**
+     * Encodes a string so that it can be used as a file name.
+     *
+     * @param name string to encode
+     *
+     * @return encoded string
+     */
+    @NonNull
+    private static String encode(@NonNull String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e); // UTF-8 is always supported
+        }
+    }
+}
@@ -55,6 +55,12 @@ abstract class ThumbnailProvider {
     static ThumbnailProvider wrap(@NonNull MediaItemCore media) {
         return new ThumbnailProvider(media) {
 
+            @NonNull
+            @Override
+            String getKey() {
+                return mediaKeyPrefix(media.getUid()) + "media-" + media.getCreationDate().getTime();
+            }
+
             @Nullable
             @Override
             MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
@@ -75,6 +81,13 @@ abstract class ThumbnailProvider {
     static ThumbnailProvider wrap(@NonNull MediaResourceCore resource) {
         return new ThumbnailProvider(resource) {
 
+            @NonNull
+            @Override
+            String getKey() {
+                return mediaKeyPrefix(resource.getMedia().getUid()) + "resource-" + resource.getUid() + "-"
+                       + resource.getCreationDate().getTime() + "-" + resource.getSize();
+            }
+
             @Nullable
             @Override
             MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
@@ -104,6 +117,31 @@ abstract class ThumbnailProvider {
     abstract MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
                                 @NonNull MediaRequest.ResultCallback<Bitmap> callback);
 
+    /**
+     * Gives a key that uniquely identifies this provider's thumbnail among all thumbnails of the same device.
+     * <p>
+     * Used to index the thumbnail in persistent caches. Since devices may reuse media and resource uids, for instance
+     * once their storage is formatted, the key also identifies the content of the media or resource, so that a cached
+     * thumbnail is never served for another media. The key starts with {@link #mediaKeyPrefix the prefix} of the
+     * media the thumbnail belongs to.
+     *
+     * @return thumbnail key
+     */
+    @NonNull
+    abstract String getKey();
+
+    /**
+     * Gives the prefix of the keys of all thumbnails of a media, including those of its resources.
+     *
+     * @param mediaUid media uid
+     *
+     * @return media thumbnails key prefix
+     */
+    @NonNull
+    static String mediaKeyPrefix(@NonNull String mediaUid) {
+        return mediaUid + "/";
+    }
+
     /** Wrapped item, used for object identity. */
     @NonNull
     private final Object mItem;
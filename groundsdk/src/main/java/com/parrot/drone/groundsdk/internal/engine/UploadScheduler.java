@@ -0,0 +1,527 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.engine;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.http.HttpRequest;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules uploads of report files to a remote server on behalf of an engine.
+ * <p>
+ * The scheduler runs up to a {@link GroundSdkConfig#getReportUploadParallelism() configured amount} of uploads
+ * concurrently, picking candidates in the order provided by the engine, but skipping over those that do not fit in the
+ * remaining {@link GroundSdkConfig#getReportUploadByteBudget() byte budget} as long as some other upload is ongoing.
+ * <p>
+ * When an upload fails, the whole queue is paused for a delay that depends on the {@link Result failure type} and
+ * grows exponentially with consecutive failures of the same type. Backoff state is persisted, so that a server that
+ * was failing is not hammered again when the application restarts.
+ * <p>
+ * All methods must be called from the main thread.
+ *
+ * @param <T> type of uploaded items
+ */
+public final class UploadScheduler<T> {
+
+    /** Upload result, as reported by the engine. */
+    public enum Result {
+
+        /** Item was uploaded, or rejected by the server as invalid; it has been removed from the engine's queue. */
+        SUCCESS,
+
+        /**
+         * Server rejected the request itself; the item has been removed from the engine's queue. The queue backs off to
+         * avoid repeating the same error.
+         */
+        REJECTED,
+
+        /** Server failed to process the request. The queue backs off. */
+        SERVER_ERROR,
+
+        /**
+         * Upload failed for any other reason, usually a network error. The queue backs off, until the delay elapses or
+         * connectivity is {@link #resume() regained}.
+         */
+        NETWORK_ERROR,
+
+        /** Upload was canceled. The queue stops until it is {@link #kick() kicked} again. */
+        CANCELED
+    }
+
+    /** Failure types, each with its own backoff progression. */
+    private enum Failure {
+
+        /** Server rejected a request. */
+        REJECTED(TimeUnit.MINUTES.toMillis(1)),
+
+        /** Server failed to process a request. */
+        SERVER(TimeUnit.SECONDS.toMillis(30)),
+
+        /** Request failed for any other reason. */
+        NETWORK(TimeUnit.SECONDS.toMillis(5));
+
+        /** Delay before the first retry, in milliseconds. */
+        final long mBaseDelay;
+
+        /**
+         * Constructor.
+         *
+         * @param baseDelay delay before the first retry, in milliseconds
+         */
+        Failure(long baseDelay) {
+            mBaseDelay = baseDelay;
+        }
+    }
+
+    /** Engine that provides items to upload and performs uploads. */
+    public interface Backend<T> {
+
+        /**
+         * Gives items that may currently be uploaded, in upload order.
+         * <p>
+         * Items that are being uploaded are ignored. Implementations should return an empty collection when uploading
+         * is not possible, for instance when no network connection is available.
+         *
+         * @return items to upload
+         */
+        @NonNull
+        Collection<T> candidates();
+
+        /**
+         * Gives the size of an item.
+         *
+         * @param item item
+         *
+         * @return item size, in bytes
+         */
+        long sizeOf(@NonNull T item);
+
+        /**
+         * Starts uploading an item.
+         * <p>
+         * The engine is responsible for removing the item from its queue when appropriate, before notifying the upload
+         * result.
+         *
+         * @param item       item to upload
+         * @param completion completion to notify the upload result to
+         *
+         * @return the upload request
+         */
+        @NonNull
+        HttpRequest upload(@NonNull T item, @NonNull Completion completion);
+
+        /**
+         * Notifies that the scheduler state changed.
+         * <p>
+         * Called after any operation that may have changed the count of ongoing uploads, the count of waiting items or
+         * the throughput.
+         */
+        void onStateChanged();
+    }
+
+    /** Receives an upload result. */
+    public interface Completion {
+
+        /**
+         * Notifies the result of an upload.
+         *
+         * @param result upload result
+         */
+        void onUploadComplete(@NonNull Result result);
+    }
+
+    /** Maximum delay to back off for, in milliseconds. */
+    @VisibleForTesting
+    static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(30);
+
+    /** Shared preferences file where backoff state is persisted. */
+    @VisibleForTesting
+    public static final String PREF_FILE = "upload_scheduler";
+
+    /** Key suffix for persisted backoff deadline, as epoch time in milliseconds. */
+    private static final String PREF_KEY_DEADLINE = ".deadline";
+
+    /** Key suffix for persisted failure streak of a given failure type. */
+    private static final String PREF_KEY_STREAK = ".streak.";
+
+    /** Scheduler name, used as persistence key. */
+    @NonNull
+    private final String mName;
+
+    /** Engine backend. */
+    @NonNull
+    private final Backend<T> mBackend;
+
+    /** Shared preferences where backoff state is persisted. */
+    @NonNull
+    private final SharedPreferences mPrefs;
+
+    /** Maximum number of concurrent uploads. */
+    private final int mParallelism;
+
+    /** Maximum cumulated size of concurrent uploads, in bytes. {@code 0} when unlimited. */
+    private final long mByteBudget;
+
+    /** Ongoing uploads, by item. */
+    @NonNull
+    private final Map<T, Upload> mUploads;
+
+    /** Count of consecutive failures, by failure type. */
+    @NonNull
+    private final int[] mStreaks;
+
+    /** Failure type the queue is currently backing off from, {@code null} if not backing off. */
+    @Nullable
+    private Failure mBackoffFailure;
+
+    /** Epoch time, in milliseconds, when current backoff ends. */
+    private long mBackoffDeadline;
+
+    /** Upload throughput, in bytes per second, averaged over recent uploads. */
+    private long mThroughput;
+
+    /** {@code true} while {@link #kick()} is starting uploads. */
+    private boolean mKicking;
+
+    /** {@code true} when {@link #kick()} must run again once it returns. */
+    private boolean mKickPending;
+
+    /**
+     * Constructor.
+     *
+     * @param context application context
+     * @param name    scheduler name, unique among schedulers, used as persistence key
+     * @param backend engine backend
+     */
+    public UploadScheduler(@NonNull Context context, @NonNull String name, @NonNull Backend<T> backend) {
+        this(context, name, backend, GroundSdkConfig.get(context).getReportUploadParallelism(),
+                GroundSdkConfig.get(context).getReportUploadByteBudget());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context     application context
+     * @param name        scheduler name, unique among schedulers, used as persistence key
+     * @param backend     engine backend
+     * @param parallelism maximum number of concurrent uploads
+     * @param byteBudget  maximum cumulated size of concurrent uploads, in bytes, {@code 0} when unlimited
+     */
+    @VisibleForTesting
+    UploadScheduler(@NonNull Context context, @NonNull String name, @NonNull Backend<T> backend,
+                    @IntRange(from = 1) int parallelism, @IntRange(from = 0) long byteBudget) {
+        mName = name;
+        mBackend = backend;
+        mPrefs = context.getSharedPreferences(PREF_FILE, Context.MODE_PRIVATE);
+        mParallelism = parallelism;
+        mByteBudget = byteBudget;
+        mUploads = new HashMap<>();
+        mStreaks = new int[Failure.values().length];
+        for (Failure failure : Failure.values()) {
+            mStreaks[failure.ordinal()] = mPrefs.getInt(mName + PREF_KEY_STREAK + failure, 0);
+        }
+        long deadline = mPrefs.getLong(mName + PREF_KEY_DEADLINE, 0);
+        long delay = deadline - System.currentTimeMillis();
+        if (delay > 0) {
+            // resume backoff from previous run, assuming a server failure since the actual type is not relevant
+            mBackoffFailure = Failure.SERVER;
+            mBackoffDeadline = deadline;
+            Executor.schedule(mBackoffExpiry, Math.min(delay, MAX_BACKOFF));
+        }
+    }
+
+    /**
+     * Starts uploading candidate items, as far as concurrency limits and backoff state allow.
+     * <p>
+     * Engines should call this method whenever items are queued or upload conditions change.
+     */
+    public void kick() {
+        if (mKicking) {
+            mKickPending = true;
+            return;
+        }
+        mKicking = true;
+        try {
+            do {
+                mKickPending = false;
+                if (mBackoffFailure == null) {
+                    startUploads();
+                }
+            } while (mKickPending);
+        } finally {
+            mKicking = false;
+        }
+        mBackend.onStateChanged();
+    }
+
+    /**
+     * Resumes uploading after connectivity has been regained.
+     * <p>
+     * This ends any ongoing backoff caused by network errors, then {@link #kick() kicks} the queue. Backoff caused by
+     * server errors or rejected requests is left untouched.
+     */
+    public void resume() {
+        mStreaks[Failure.NETWORK.ordinal()] = 0;
+        if (mBackoffFailure == Failure.NETWORK) {
+            endBackoff();
+        }
+        kick();
+    }
+
+    /**
+     * Cancels all ongoing uploads and pending retries.
+     * <p>
+     * Backoff state remains persisted. Engines should call this method when they stop.
+     */
+    public void dispose() {
+        Executor.unschedule(mBackoffExpiry);
+        List<Upload> uploads = new ArrayList<>(mUploads.values());
+        mUploads.clear();
+        for (Upload upload : uploads) {
+            upload.mRequest.cancel();
+        }
+    }
+
+    /**
+     * Gives the count of ongoing uploads.
+     *
+     * @return ongoing upload count
+     */
+    @IntRange(from = 0)
+    public int getUploadingCount() {
+        return mUploads.size();
+    }
+
+    /**
+     * Gives the count of items that may be uploaded but are waiting, either for a free upload slot or for backoff to
+     * end.
+     *
+     * @return waiting item count
+     */
+    @IntRange(from = 0)
+    public int getWaitingCount() {
+        int waiting = 0;
+        for (T item : mBackend.candidates()) {
+            if (!mUploads.containsKey(item)) {
+                waiting++;
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Gives upload throughput, averaged over recent successful uploads.
+     *
+     * @return upload throughput, in bytes per second, {@code 0} if unknown
+     */
+    @IntRange(from = 0)
+    public long getThroughput() {
+        return mThroughput;
+    }
+
+    /**
+     * Tells whether the queue is backing off after a failure.
+     *
+     * @return {@code true} if the queue is backing off, otherwise {@code false}
+     */
+    public boolean isBackingOff() {
+        return mBackoffFailure != null;
+    }
+
+    /**
+     * Starts uploads for as many candidates as limits allow.
+     */
+    private void startUploads() {
+        long uploadingBytes = 0;
+        for (Upload upload : mUploads.values()) {
+            uploadingBytes += upload.mSize;
+        }
+        for (T item : mBackend.candidates()) {
+            if (mUploads.size() >= mParallelism || mBackoffFailure != null) {
+                return;
+            }
+            if (mUploads.containsKey(item)) {
+                continue;
+            }
+            long size = mBackend.sizeOf(item);
+            if (mByteBudget > 0 && !mUploads.isEmpty() && uploadingBytes + size > mByteBudget) {
+                // try smaller items first, this one will go as soon as enough budget is available
+                continue;
+            }
+            uploadingBytes += size;
+            Upload upload = new Upload(item, size);
+            mUploads.put(item, upload);
+            upload.mRequest = mBackend.upload(item, result -> onUploadComplete(upload, result));
+        }
+    }
+
+    /**
+     * Called back when an upload completes.
+     *
+     * @param upload completed upload
+     * @param result upload result
+     */
+    private void onUploadComplete(@NonNull Upload upload, @NonNull Result result) {
+        if (mUploads.get(upload.mItem) != upload) {
+            // upload was disposed
+            return;
+        }
+        mUploads.remove(upload.mItem);
+        switch (result) {
+            case SUCCESS:
+                onSuccess(upload);
+                break;
+            case REJECTED:
+                backOff(Failure.REJECTED);
+                break;
+            case SERVER_ERROR:
+                backOff(Failure.SERVER);
+                break;
+            case NETWORK_ERROR:
+                backOff(Failure.NETWORK);
+                break;
+            case CANCELED:
+                // stop until kicked again
+                mBackend.onStateChanged();
+                return;
+        }
+        kick();
+    }
+
+    /**
+     * Processes an upload success.
+     *
+     * @param upload successful upload
+     */
+    private void onSuccess(@NonNull Upload upload) {
+        long elapsed = SystemClock.elapsedRealtime() - upload.mStartTime;
+        if (upload.mSize > 0 && elapsed > 0) {
+            long sample = upload.mSize * 1000 / elapsed;
+            mThroughput = mThroughput == 0 ? sample : (mThroughput + sample) / 2;
+        }
+        boolean hadStreak = false;
+        for (int i = 0; i < mStreaks.length; i++) {
+            hadStreak |= mStreaks[i] != 0;
+            mStreaks[i] = 0;
+        }
+        if (hadStreak) {
+            SharedPreferences.Editor editor = mPrefs.edit();
+            for (Failure failure : Failure.values()) {
+                editor.remove(mName + PREF_KEY_STREAK + failure);
+            }
+            editor.apply();
+        }
+    }
+
+    /**
+     * Pauses the queue after a failure.
+     *
+     * @param failure failure type
+     */
+    private void backOff(@NonNull Failure failure) {
+        int streak = ++mStreaks[failure.ordinal()];
+        long delay = Math.min(MAX_BACKOFF, failure.mBaseDelay << Math.min(streak - 1, 16));
+        long deadline = System.currentTimeMillis() + delay;
+        if (mBackoffFailure == null || deadline > mBackoffDeadline) {
+            mBackoffFailure = failure;
+            mBackoffDeadline = deadline;
+            Executor.unschedule(mBackoffExpiry);
+            Executor.schedule(mBackoffExpiry, delay);
+        }
+        mPrefs.edit()
+              .putInt(mName + PREF_KEY_STREAK + failure, streak)
+              .putLong(mName + PREF_KEY_DEADLINE, mBackoffDeadline)
+              .apply();
+    }
+
+    /**
+     * Ends current backoff.
+     */
+    private void endBackoff() {
+        Executor.unschedule(mBackoffExpiry);
+        mBackoffFailure = null;
+        mBackoffDeadline = 0;
+        mPrefs.edit().remove(mName + PREF_KEY_DEADLINE).apply();
+    }
+
+    /** Called when backoff delay elapses. */
+    private final Runnable mBackoffExpiry = () -> {
+        endBackoff();
+        kick();
+    };
+
+    /** An ongoing upload. */
+    private final class Upload {
+
+        /** Uploaded item. */
+        @NonNull
+        final T mItem;
+
+        /** Item size, in bytes. */
+        final long mSize;
+
+        /** Upload start time, in milliseconds, in the {@link SystemClock#elapsedRealtime()} time base. */
+        final long mStartTime;
+
+        /** Upload request. */
+        HttpRequest mRequest;
+
+        /**
+         * Constructor.
+         *
+         * @param item uploaded item
+         * @param size item size, in bytes
+         */
+        Upload(@NonNull T item, long size) {
+            mItem = item;
+            mSize = size;
+            mStartTime = SystemClock.elapsedRealtime();
+        }
+    }
+}
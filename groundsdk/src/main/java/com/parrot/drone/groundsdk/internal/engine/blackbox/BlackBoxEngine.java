@@ -39,6 +39,7 @@ import androidx.annotation.VisibleForTesting;
 import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.engine.EngineBase;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.facility.BlackBoxReporterCore;
 import com.parrot.drone.groundsdk.internal.http.HttpBlackBoxClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
@@ -53,9 +54,11 @@ import com.parrot.drone.sdkcore.ulog.ULog;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_BLACKBOX;
 
@@ -107,9 +110,9 @@ public class BlackBoxEngine extends EngineBase {
     @Nullable
     private HttpBlackBoxClient mHttpClient;
 
-    /** Current blackbox upload request, {@code null} when no upload is ongoing. */
-    @Nullable
-    private HttpRequest mCurrentUploadRequest;
+    /** Schedules blackbox uploads. */
+    @NonNull
+    private final UploadScheduler<File> mUploadScheduler;
 
     /**
      * Constructor.
@@ -125,6 +128,7 @@ public class BlackBoxEngine extends EngineBase {
         mPublicDir = folder == null ? null : new File(getContext().getExternalFilesDir(null), folder);
         mPendingBlackBoxes = new LinkedList<>();
         mTasks = new TaskGroup();
+        mUploadScheduler = new UploadScheduler<>(getContext(), "blackbox", mUploadBackend);
         publishUtility(BlackBoxStorage.class, new BlackBoxStorageCore(this));
     }
 
@@ -143,6 +147,7 @@ public class BlackBoxEngine extends EngineBase {
         getUtilityOrThrow(SystemConnectivity.class).disposeMonitor(mInternetMonitor);
         mBlackBoxReporter.unpublish();
         mTasks.cancelAll();
+        mUploadScheduler.dispose();
         if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -181,7 +186,7 @@ public class BlackBoxEngine extends EngineBase {
      */
     void queueForUpload(@NonNull Collection<File> blackboxes) {
         mPendingBlackBoxes.addAll(blackboxes);
-        uploadNextBlackBox();
+        mUploadScheduler.kick();
     }
 
     /**
@@ -210,57 +215,71 @@ public class BlackBoxEngine extends EngineBase {
         }
     }
 
-    /**
-     * Tries to uploads the next blackbox file in the pending queue, if any.
-     */
-    private void uploadNextBlackBox() {
-        mBlackBoxReporter.updatePendingCount(mPendingBlackBoxes.size());
-        if (mCurrentUploadRequest != null) {
-            mBlackBoxReporter.notifyUpdated();
-            return;
+    /** Uploads blackboxes from the pending queue. */
+    @NonNull
+    private final UploadScheduler.Backend<File> mUploadBackend = new UploadScheduler.Backend<File>() {
+
+        @NonNull
+        @Override
+        public Collection<File> candidates() {
+            UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
+            if (accountInfo.getAccountIdentifier() == null || mHttpClient == null) {
+                return Collections.emptyList();
+            }
+            long allowanceDate = accountInfo.getPersonalDataAllowanceDate().getTime();
+            return mPendingBlackBoxes
+                    .stream()
+                    .filter(it -> it.lastModified() >= allowanceDate)
+                    .collect(Collectors.toList());
         }
 
-        UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
-        String userAccount = accountInfo.getAccountIdentifier();
-
-        File blackBox = mPendingBlackBoxes
-                .stream()
-                .filter(it -> it.lastModified() >= accountInfo.getPersonalDataAllowanceDate().getTime())
-                .findFirst().orElse(null);
+        @Override
+        public long sizeOf(@NonNull File blackBox) {
+            return blackBox.length();
+        }
 
-        if (userAccount == null || mHttpClient == null || blackBox == null) {
-            mBlackBoxReporter.updateUploadingFlag(false).notifyUpdated();
-            return;
+        @NonNull
+        @Override
+        public HttpRequest upload(@NonNull File blackBox, @NonNull UploadScheduler.Completion completion) {
+            String userAccount = getUtilityOrThrow(UserAccountInfo.class).getAccountIdentifier();
+            assert mHttpClient != null && userAccount != null;
+            return mHttpClient.upload(blackBox, userAccount, status -> {
+                switch (status) {
+                    case SUCCESS:
+                    case BAD_BLACKBOX:
+                        mPendingBlackBoxes.remove(blackBox);
+                        deleteBlackBox(blackBox);
+                        completion.onUploadComplete(UploadScheduler.Result.SUCCESS);
+                        break;
+                    case BAD_REQUEST:
+                        ULog.e(TAG_BLACKBOX, "Bad request sent to the server");
+                        // delete file and back off to avoid multiple errors
+                        mPendingBlackBoxes.remove(blackBox);
+                        deleteBlackBox(blackBox);
+                        completion.onUploadComplete(UploadScheduler.Result.REJECTED);
+                        break;
+                    case SERVER_ERROR:
+                        completion.onUploadComplete(UploadScheduler.Result.SERVER_ERROR);
+                        break;
+                    case CANCELED:
+                        completion.onUploadComplete(UploadScheduler.Result.CANCELED);
+                        break;
+                    case UNKNOWN_ERROR:
+                        completion.onUploadComplete(UploadScheduler.Result.NETWORK_ERROR);
+                        break;
+                }
+            });
         }
 
-        mBlackBoxReporter.updateUploadingFlag(true).notifyUpdated();
-
-        mCurrentUploadRequest = mHttpClient.upload(blackBox, userAccount, status -> {
-            mCurrentUploadRequest = null;
-            switch (status) {
-                case SUCCESS:
-                case BAD_BLACKBOX:
-                    mPendingBlackBoxes.remove(blackBox);
-                    deleteBlackBox(blackBox);
-                    uploadNextBlackBox();
-                    break;
-                case BAD_REQUEST:
-                    ULog.e(TAG_BLACKBOX, "Bad request sent to the server");
-                    // delete file and stop uploading to avoid multiple errors
-                    mPendingBlackBoxes.remove(blackBox);
-                    deleteBlackBox(blackBox);
-                    mBlackBoxReporter.updatePendingCount(mPendingBlackBoxes.size());
-                    mBlackBoxReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-                case SERVER_ERROR:
-                case CANCELED:
-                case UNKNOWN_ERROR:
-                    // stop uploading
-                    mBlackBoxReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-            }
-        });
-    }
+        @Override
+        public void onStateChanged() {
+            mBlackBoxReporter.updatePendingCount(mPendingBlackBoxes.size())
+                             .updateUploadingFlag(mUploadScheduler.getUploadingCount() > 0)
+                             .updateQueueDepth(mUploadScheduler.getWaitingCount())
+                             .updateThroughput(mUploadScheduler.getThroughput())
+                             .notifyUpdated();
+        }
+    };
 
     /**
      * Deletes a blackbox file from internal storage.
@@ -278,7 +297,7 @@ public class BlackBoxEngine extends EngineBase {
     private final SystemConnectivity.Monitor mInternetMonitor = available -> {
         if (available) {
             mHttpClient = createHttpClient();
-            uploadNextBlackBox();
+            mUploadScheduler.resume();
         } else if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -289,7 +308,7 @@ public class BlackBoxEngine extends EngineBase {
     @NonNull
     private final UserAccountInfo.Monitor mAccountMonitor = userAccountInfo -> {
         if (userAccountInfo.getAccountIdentifier() != null) {
-            uploadNextBlackBox();
+            mUploadScheduler.kick();
         }
     };
 
@@ -38,6 +38,7 @@ import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
 import com.parrot.drone.groundsdk.internal.engine.EngineBase;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.facility.CrashReporterCore;
 import com.parrot.drone.groundsdk.internal.http.HttpCrashMlClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
@@ -50,6 +51,7 @@ import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.UUID;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_CRASH;
@@ -95,9 +97,9 @@ public class CrashReportEngine extends EngineBase {
     @Nullable
     private HttpCrashMlClient mHttpClient;
 
-    /** Current report upload request, {@code null} when no upload is ongoing. */
-    @Nullable
-    private HttpRequest mCurrentUploadRequest;
+    /** Schedules report uploads. */
+    @NonNull
+    private final UploadScheduler<CrashReportStorageCore.Report> mUploadScheduler;
 
     /**
      * Constructor.
@@ -111,6 +113,7 @@ public class CrashReportEngine extends EngineBase {
         mCrashReportStorage = new CrashReportStorageCore(this);
         mEngineDir = new File(ApplicationStorageProvider.getInstance().getInternalAppFileCache(), "crash");
         mTasks = new TaskGroup();
+        mUploadScheduler = new UploadScheduler<>(getContext(), "crash", mUploadBackend);
         publishUtility(CrashReportStorage.class, mCrashReportStorage);
     }
 
@@ -129,6 +132,7 @@ public class CrashReportEngine extends EngineBase {
         getUtilityOrThrow(SystemConnectivity.class).disposeMonitor(mInternetMonitor);
         mCrashReporter.unpublish();
         mTasks.cancelAll();
+        mUploadScheduler.dispose();
         if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -167,71 +171,84 @@ public class CrashReportEngine extends EngineBase {
      */
     void queueForUpload(@NonNull Collection<File> reportFiles) {
         mCrashReportStorage.registerReports(reportFiles);
-        uploadNextReport();
+        mUploadScheduler.kick();
     }
 
-    /**
-     * Tries to upload the next report in the pending queue, if any.
-     */
-    private void uploadNextReport() {
-        mCrashReporter.updatePendingCount(mCrashReportStorage.reportCount());
-        if (mCurrentUploadRequest != null) {
-            mCrashReporter.notifyUpdated();
-            return;
-        }
-
-        UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
-        String userAccount = accountInfo.getAccountIdentifier();
-        CrashReportStorageCore.Report report;
+    /** Uploads reports from the crash report storage. */
+    @NonNull
+    private final UploadScheduler.Backend<CrashReportStorageCore.Report> mUploadBackend =
+            new UploadScheduler.Backend<CrashReportStorageCore.Report>() {
 
-        if (userAccount != null) {
-            report = mCrashReportStorage.peekNextPersonalReport(accountInfo.getPersonalDataAllowanceDate());
-        } else if (accountInfo.isAnonymousDataUploadAllowed()) {
-            report = mCrashReportStorage.peekNextAnonymousReport();
-        } else {
-            report = null;
-        }
+                @NonNull
+                @Override
+                public Collection<CrashReportStorageCore.Report> candidates() {
+                    if (mHttpClient == null) {
+                        return Collections.emptyList();
+                    }
+                    UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
+                    if (accountInfo.getAccountIdentifier() != null) {
+                        return mCrashReportStorage.personalReports(accountInfo.getPersonalDataAllowanceDate());
+                    } else if (accountInfo.isAnonymousDataUploadAllowed()) {
+                        return mCrashReportStorage.anonymousReports();
+                    }
+                    return Collections.emptyList();
+                }
 
-        if (report == null || mHttpClient == null) {
-            mCrashReporter.updateUploadingFlag(false).notifyUpdated();
-            return;
-        }
+                @Override
+                public long sizeOf(@NonNull CrashReportStorageCore.Report report) {
+                    return report.file().length();
+                }
 
-        mCrashReporter.updateUploadingFlag(true).notifyUpdated();
+                @NonNull
+                @Override
+                public HttpRequest upload(@NonNull CrashReportStorageCore.Report report,
+                                          @NonNull UploadScheduler.Completion completion) {
+                    String userAccount = getUtilityOrThrow(UserAccountInfo.class).getAccountIdentifier();
+                    assert mHttpClient != null;
+                    return mHttpClient.upload(report.file(), userAccount, status -> {
+                        switch (status) {
+                            case SUCCESS:
+                            case BAD_REPORT:
+                                report.delete();
+                                completion.onUploadComplete(UploadScheduler.Result.SUCCESS);
+                                break;
+                            case BAD_REQUEST:
+                                if (ULog.e(TAG_CRASH)) {
+                                    ULog.e(TAG_CRASH, "Bad request sent to the server");
+                                }
+                                // delete report and back off to avoid multiple errors
+                                report.delete();
+                                completion.onUploadComplete(UploadScheduler.Result.REJECTED);
+                                break;
+                            case SERVER_ERROR:
+                                completion.onUploadComplete(UploadScheduler.Result.SERVER_ERROR);
+                                break;
+                            case CANCELED:
+                                completion.onUploadComplete(UploadScheduler.Result.CANCELED);
+                                break;
+                            case UNKNOWN_ERROR:
+                                completion.onUploadComplete(UploadScheduler.Result.NETWORK_ERROR);
+                                break;
+                        }
+                    });
+                }
 
-        mCurrentUploadRequest = mHttpClient.upload(report.file(), userAccount, status -> {
-            mCurrentUploadRequest = null;
-            switch (status) {
-                case SUCCESS:
-                case BAD_REPORT:
-                    report.delete();
-                    uploadNextReport();
-                    break;
-                case BAD_REQUEST:
-                    if (ULog.e(TAG_CRASH)) {
-                        ULog.e(TAG_CRASH, "Bad request sent to the server");
-                    }
-                    // delete report and stop uploading to avoid multiple errors
-                    report.delete();
-                    mCrashReporter.updatePendingCount(mCrashReportStorage.reportCount());
-                    mCrashReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-                case SERVER_ERROR:
-                case CANCELED:
-                case UNKNOWN_ERROR:
-                    // stop uploading
-                    mCrashReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-            }
-        });
-    }
+                @Override
+                public void onStateChanged() {
+                    mCrashReporter.updatePendingCount(mCrashReportStorage.reportCount())
+                                  .updateUploadingFlag(mUploadScheduler.getUploadingCount() > 0)
+                                  .updateQueueDepth(mUploadScheduler.getWaitingCount())
+                                  .updateThroughput(mUploadScheduler.getThroughput())
+                                  .notifyUpdated();
+                }
+            };
 
     /** Listens to internet connection availability changes. */
     @NonNull
     private final SystemConnectivity.Monitor mInternetMonitor = available -> {
         if (available) {
             mHttpClient = createHttpClient();
-            uploadNextReport();
+            mUploadScheduler.resume();
         } else if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -242,7 +259,7 @@ public class CrashReportEngine extends EngineBase {
     @NonNull
     private final UserAccountInfo.Monitor mAccountMonitor = userAccountInfo -> {
         if (userAccountInfo.getAccountIdentifier() != null || userAccountInfo.isAnonymousDataUploadAllowed()) {
-            uploadNextReport();
+            mUploadScheduler.kick();
         }
     };
 
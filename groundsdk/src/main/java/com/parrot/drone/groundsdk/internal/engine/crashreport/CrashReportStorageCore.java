@@ -43,7 +43,9 @@ import java.io.File;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_CRASH;
 
@@ -167,19 +169,28 @@ public class CrashReportStorageCore implements CrashReportStorage {
          * deleted, if it exists.
          */
         abstract void delete();
+
+        @Override
+        public final boolean equals(Object o) {
+            return this == o || o instanceof Report && mFile.equals(((Report) o).mFile);
+        }
+
+        @Override
+        public final int hashCode() {
+            return mFile.hashCode();
+        }
     }
 
     /**
-     * Retrieves next anonymous report that should be uploaded.
+     * Retrieves anonymous reports that should be uploaded, in upload order.
      *
-     * @return next anonymous report, or {@code null} if no such report exists
+     * @return anonymous reports
      */
-    @Nullable
-    Report peekNextAnonymousReport() {
+    @NonNull
+    List<Report> anonymousReports() {
         return mReports
                 .values().stream()
                 .filter(it -> it.mAnonymousReport != null)
-                .findFirst()
                 .map(entry -> {
                     File file = entry.mAnonymousReport;
                     assert file != null;
@@ -194,23 +205,23 @@ public class CrashReportStorageCore implements CrashReportStorage {
                             }
                         }
                     };
-                }).orElse(null);
+                })
+                .collect(Collectors.toList());
     }
 
     /**
-     * Retrieves next personal report that should be uploaded.
+     * Retrieves personal reports that should be uploaded, in upload order.
      *
      * @param validityDate date starting from which a report is considered valid for upload
      *
-     * @return next personal report, or {@code null} if no such report exists
+     * @return personal reports
      */
-    @Nullable
-    Report peekNextPersonalReport(@NonNull Date validityDate) {
+    @NonNull
+    List<Report> personalReports(@NonNull Date validityDate) {
         return mReports
                 .values().stream()
                 .filter(it -> it.mPersonalReport != null
                               && it.mPersonalReport.lastModified() >= validityDate.getTime())
-                .findFirst()
                 .map(entry -> {
                     File file = entry.mPersonalReport;
                     assert file != null;
@@ -226,7 +237,7 @@ public class CrashReportStorageCore implements CrashReportStorage {
                         }
                     };
                 })
-                .orElse(null);
+                .collect(Collectors.toList());
     }
 
     /**
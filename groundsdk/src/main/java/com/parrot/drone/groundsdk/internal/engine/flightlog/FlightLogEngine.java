@@ -38,6 +38,7 @@ import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
 import com.parrot.drone.groundsdk.internal.engine.EngineBase;
+import com.parrot.drone.groundsdk.internal.engine.UploadScheduler;
 import com.parrot.drone.groundsdk.internal.facility.FlightLogReporterCore;
 import com.parrot.drone.groundsdk.internal.http.HttpFlightLogClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
@@ -50,9 +51,11 @@ import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_FLIGHTLOG;
 
@@ -97,9 +100,9 @@ public class FlightLogEngine extends EngineBase {
     @Nullable
     private HttpFlightLogClient mHttpClient;
 
-    /** Current flight log upload request, {@code null} when no upload is ongoing. */
-    @Nullable
-    private HttpRequest mCurrentUploadRequest;
+    /** Schedules flight log uploads. */
+    @NonNull
+    private final UploadScheduler<File> mUploadScheduler;
 
     /**
      * Constructor.
@@ -114,6 +117,7 @@ public class FlightLogEngine extends EngineBase {
         mEngineDir = new File(ApplicationStorageProvider.getInstance().getInternalAppFileCache(), "flightlog");
         mPendingFlightLogs = new LinkedList<>();
         mTasks = new TaskGroup();
+        mUploadScheduler = new UploadScheduler<>(getContext(), "flightlog", mUploadBackend);
         publishUtility(FlightLogStorage.class, flightLogStorage);
     }
 
@@ -132,6 +136,7 @@ public class FlightLogEngine extends EngineBase {
         getUtilityOrThrow(SystemConnectivity.class).disposeMonitor(mInternetMonitor);
         mFlightLogReporter.unpublish();
         mTasks.cancelAll();
+        mUploadScheduler.dispose();
         if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -170,68 +175,83 @@ public class FlightLogEngine extends EngineBase {
      */
     void queueForUpload(@NonNull Collection<File> flightLogs) {
         mPendingFlightLogs.addAll(flightLogs);
-        uploadNextFlightLog();
+        mUploadScheduler.kick();
     }
 
-    /**
-     * Tries to uploads the next flight log in the pending queue, if any.
-     */
-    private void uploadNextFlightLog() {
-        mFlightLogReporter.updatePendingCount(mPendingFlightLogs.size());
-        if (mCurrentUploadRequest != null) {
-            mFlightLogReporter.notifyUpdated();
-            return;
-        }
+    /** Uploads flight logs from the pending queue. */
+    @NonNull
+    private final UploadScheduler.Backend<File> mUploadBackend = new UploadScheduler.Backend<File>() {
 
-        UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
-        String userAccount = accountInfo.getAccountIdentifier();
-        File flightLog = mPendingFlightLogs
-                .stream()
-                .filter(it -> it.lastModified() >= accountInfo.getPersonalDataAllowanceDate().getTime())
-                .findFirst().orElse(null);
+        @NonNull
+        @Override
+        public Collection<File> candidates() {
+            UserAccountInfo accountInfo = getUtilityOrThrow(UserAccountInfo.class);
+            if (accountInfo.getAccountIdentifier() == null || mHttpClient == null) {
+                return Collections.emptyList();
+            }
+            long allowanceDate = accountInfo.getPersonalDataAllowanceDate().getTime();
+            return mPendingFlightLogs
+                    .stream()
+                    .filter(it -> it.lastModified() >= allowanceDate)
+                    .collect(Collectors.toList());
+        }
 
-        if (userAccount == null || mHttpClient == null || flightLog == null) {
-            mFlightLogReporter.updateUploadingFlag(false).notifyUpdated();
-            return;
+        @Override
+        public long sizeOf(@NonNull File flightLog) {
+            return flightLog.length();
         }
 
-        mFlightLogReporter.updateUploadingFlag(true).notifyUpdated();
+        @NonNull
+        @Override
+        public HttpRequest upload(@NonNull File flightLog, @NonNull UploadScheduler.Completion completion) {
+            String userAccount = getUtilityOrThrow(UserAccountInfo.class).getAccountIdentifier();
+            assert mHttpClient != null && userAccount != null;
+            return mHttpClient.upload(flightLog, userAccount, status -> {
+                switch (status) {
+                    case SUCCESS:
+                    case BAD_FLIGHT_LOG:
+                        mPendingFlightLogs.remove(flightLog);
+                        deleteFlightLog(flightLog);
+                        completion.onUploadComplete(UploadScheduler.Result.SUCCESS);
+                        break;
+                    case BAD_REQUEST:
+                        if (ULog.e(TAG_FLIGHTLOG)) {
+                            ULog.e(TAG_FLIGHTLOG, "Bad request sent to the server");
+                        }
+                        // delete file and back off to avoid multiple errors
+                        mPendingFlightLogs.remove(flightLog);
+                        deleteFlightLog(flightLog);
+                        completion.onUploadComplete(UploadScheduler.Result.REJECTED);
+                        break;
+                    case SERVER_ERROR:
+                        completion.onUploadComplete(UploadScheduler.Result.SERVER_ERROR);
+                        break;
+                    case CANCELED:
+                        completion.onUploadComplete(UploadScheduler.Result.CANCELED);
+                        break;
+                    case UNKNOWN_ERROR:
+                        completion.onUploadComplete(UploadScheduler.Result.NETWORK_ERROR);
+                        break;
+                }
+            });
+        }
 
-        mCurrentUploadRequest = mHttpClient.upload(flightLog, userAccount, status -> {
-            mCurrentUploadRequest = null;
-            switch (status) {
-                case SUCCESS:
-                case BAD_FLIGHT_LOG:
-                    mPendingFlightLogs.remove(flightLog);
-                    deleteFlightLog(flightLog);
-                    uploadNextFlightLog();
-                    break;
-                case BAD_REQUEST:
-                    if (ULog.e(TAG_FLIGHTLOG)) {
-                        ULog.e(TAG_FLIGHTLOG, "Bad request sent to the server");
-                    }
-                    // delete file and stop uploading to avoid multiple errors
-                    mPendingFlightLogs.remove(flightLog);
-                    deleteFlightLog(flightLog);
-                    mFlightLogReporter.updatePendingCount(mPendingFlightLogs.size());
-                    mFlightLogReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-                case SERVER_ERROR:
-                case CANCELED:
-                case UNKNOWN_ERROR:
-                    // stop uploading
-                    mFlightLogReporter.updateUploadingFlag(false).notifyUpdated();
-                    break;
-            }
-        });
-    }
+        @Override
+        public void onStateChanged() {
+            mFlightLogReporter.updatePendingCount(mPendingFlightLogs.size())
+                              .updateUploadingFlag(mUploadScheduler.getUploadingCount() > 0)
+                              .updateQueueDepth(mUploadScheduler.getWaitingCount())
+                              .updateThroughput(mUploadScheduler.getThroughput())
+                              .notifyUpdated();
+        }
+    };
 
     /** Listens to internet connection availability changes. */
     @NonNull
     private final SystemConnectivity.Monitor mInternetMonitor = available -> {
         if (available) {
             mHttpClient = createHttpClient();
-            uploadNextFlightLog();
+            mUploadScheduler.resume();
         } else if (mHttpClient != null) {
             mHttpClient.dispose();
             mHttpClient = null;
@@ -242,7 +262,7 @@ public class FlightLogEngine extends EngineBase {
     @NonNull
     private final UserAccountInfo.Monitor mAccountMonitor = userAccountInfo -> {
         if (userAccountInfo.getAccountIdentifier() != null) {
-            uploadNextFlightLog();
+            mUploadScheduler.kick();
         }
     };
 
@@ -50,6 +50,12 @@ public abstract class ReporterCore extends SingletonComponentCore {
     /** {@code true} when reports are being uploaded. */
     private boolean mUploading;
 
+    /** Count of reports that may be uploaded but wait for an upload slot or for a retry. */
+    private int mQueueDepth;
+
+    /** Upload throughput, in bytes per second. */
+    private long mThroughput;
+
     /**
      * Constructor.
      *
@@ -79,6 +85,27 @@ public abstract class ReporterCore extends SingletonComponentCore {
         return mUploading;
     }
 
+    /**
+     * Retrieves the amount of reports that may be uploaded, but wait for an upload slot or for a retry.
+     * <p>
+     * Reports that cannot be uploaded in the current conditions, for instance because no user account is set, are not
+     * accounted for.
+     *
+     * @return upload queue depth
+     */
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * Retrieves report upload throughput, averaged over recent uploads.
+     *
+     * @return upload throughput, in bytes per second, {@code 0} if unknown
+     */
+    public long getThroughput() {
+        return mThroughput;
+    }
+
     /**
      * Updates pending reports count.
      *
@@ -110,4 +137,36 @@ public abstract class ReporterCore extends SingletonComponentCore {
         }
         return this;
     }
+
+    /**
+     * Updates upload queue depth.
+     *
+     * @param queueDepth new upload queue depth
+     *
+     * @return {@code this}, to allow call chaining
+     */
+    @NonNull
+    public ReporterCore updateQueueDepth(int queueDepth) {
+        if (mQueueDepth != queueDepth) {
+            mQueueDepth = queueDepth;
+            mChanged = true;
+        }
+        return this;
+    }
+
+    /**
+     * Updates upload throughput.
+     *
+     * @param throughput new upload throughput, in bytes per second
+     *
+     * @return {@code this}, to allow call chaining
+     */
+    @NonNull
+    public ReporterCore updateThroughput(long throughput) {
+        if (mThroughput != throughput) {
+            mThroughput = throughput;
+            mChanged = true;
+        }
+        return this;
+    }
 }
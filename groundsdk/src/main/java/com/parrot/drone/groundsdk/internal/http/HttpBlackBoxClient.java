@@ -50,6 +50,7 @@ import retrofit2.Call;
 import retrofit2.Response;
 import retrofit2.http.Body;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_HTTP;
@@ -207,6 +208,7 @@ public class HttpBlackBoxClient extends HttpClient {
          *
          * @return a retrofit call for sending the request out
          */
+        @Headers(HttpTransport.BACKGROUND)
         @POST("apiv1/bbox")
         @NonNull
         Call<Void> upload(@NonNull @Body RequestBody blackbox, @NonNull @Header(HttpHeader.ACCOUNT) String account);
@@ -51,6 +51,7 @@ import retrofit2.Call;
 import retrofit2.Response;
 import retrofit2.http.Body;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_HTTP;
@@ -203,6 +204,7 @@ public class HttpCrashMlClient extends HttpClient {
          *
          * @return a retrofit call for sending the request out
          */
+        @Headers(HttpTransport.BACKGROUND)
         @POST("apiv1/crashml")
         @NonNull
         Call<Void> upload(@NonNull @Body RequestBody file, @Nullable @Header(HttpHeader.ACCOUNT) String account);
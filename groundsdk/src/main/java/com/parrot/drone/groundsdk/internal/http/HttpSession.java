@@ -135,6 +135,10 @@ public class HttpSession {
     @NonNull
     private final OkHttpClient mHttpClient;
 
+    /** Creates HTTP calls, scheduled according to their priority class. */
+    @NonNull
+    private final HttpTransport.CallFactory mCallFactory;
+
     /** Base URL of drone HTTP services. */
     @NonNull
     private final String mBaseUrl;
@@ -160,8 +164,8 @@ public class HttpSession {
     private HttpSession(@NonNull String baseUrl, @Nullable SocketFactory socketFactory,
                         @NonNull Collection<HttpHeader> additionalHeaders) {
         mBaseUrl = baseUrl;
-        // Setup OkHttp
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+        // Setup OkHttp, sharing connection pool and threads with other sessions
+        OkHttpClient.Builder builder = HttpTransport.newClientBuilder()
                 .readTimeout(TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(TIMEOUT, TimeUnit.SECONDS)
                 .addNetworkInterceptor(RequestBodyInterceptor.INSTANCE)
@@ -191,6 +195,7 @@ public class HttpSession {
         }
 
         mHttpClient = builder.build();
+        mCallFactory = HttpTransport.newCallFactory(mHttpClient);
     }
 
     /**
@@ -199,7 +204,7 @@ public class HttpSession {
      * This forcefully aborts all ongoing HTTP requests.
      */
     public void dispose() {
-        mHttpClient.dispatcher().cancelAll();
+        mCallFactory.cancelAll();
     }
 
     /**
@@ -249,7 +254,7 @@ public class HttpSession {
      */
     @NonNull
     public <S> S create(@NonNull Retrofit.Builder retrofitBuilder, @NonNull Class<S> service) {
-        return retrofitBuilder.baseUrl(mBaseUrl).client(mHttpClient).callbackExecutor(Executor::postOnMainThread)
+        return retrofitBuilder.baseUrl(mBaseUrl).callFactory(mCallFactory).callbackExecutor(Executor::postOnMainThread)
                               .build().create(service);
     }
 
@@ -356,6 +361,7 @@ public class HttpSession {
                 .addInterceptor(RequestBodyInterceptor.INSTANCE)
                 .addInterceptor(interceptor)
                 .build();
+        mCallFactory = HttpTransport.unscheduledCallFactory(mHttpClient);
     }
 }
 
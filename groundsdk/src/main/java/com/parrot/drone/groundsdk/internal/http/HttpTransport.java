@@ -0,0 +1,710 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.http;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+
+/**
+ * Process-wide HTTP transport.
+ * <p>
+ * All {@link HttpSession HTTP sessions} derive their HTTP client from a single shared core, so that they share the same
+ * connection pool and thread pool. Each session still has its own dispatcher, so that disposing a session only cancels
+ * its own requests.
+ * <p>
+ * Requests may be assigned a {@link Priority priority class} using the {@link #PRIORITY_HEADER} header, usually through
+ * retrofit {@code @Headers} annotation, for instance {@code @Headers(HttpTransport.BULK)}. The transport enforces a
+ * process-wide concurrency limit for each class, and holds background requests back as long as some interactive
+ * request is being sent. Scheduling happens in the {@link CallFactory call factory} of each session, before calls reach
+ * the session dispatcher.
+ */
+public final class HttpTransport {
+
+    /** Name of header defining the priority class of a request. Removed before the request is sent. */
+    public static final String PRIORITY_HEADER = "Request-Priority";
+
+    /** Header to annotate interactive requests with. */
+    public static final String INTERACTIVE = PRIORITY_HEADER + ": INTERACTIVE";
+
+    /** Header to annotate bulk requests with. */
+    public static final String BULK = PRIORITY_HEADER + ": BULK";
+
+    /** Header to annotate background requests with. */
+    public static final String BACKGROUND = PRIORITY_HEADER + ": BACKGROUND";
+
+    /** Request priority class. */
+    public enum Priority {
+
+        /**
+         * Requests the user is waiting for, such as flight plan upload or thumbnail fetch. Never throttled.
+         * <p>
+         * This is the default for requests that do not specify a priority class.
+         */
+        INTERACTIVE(Integer.MAX_VALUE),
+
+        /** Large transfers, such as media or flight data downloads. */
+        BULK(4),
+
+        /**
+         * Transfers that may be deferred, such as report uploads. Held back as long as some interactive request is
+         * being sent.
+         */
+        BACKGROUND(1);
+
+        /** Maximum count of concurrent requests in this class. */
+        final int mLimit;
+
+        /** Count of ongoing requests in this class. Guarded by {@link #SCHEDULER}. */
+        int mRunning;
+
+        /** Count of requests waiting to start in this class. Guarded by {@link #SCHEDULER}. */
+        int mWaiting;
+
+        /** Total count of requests started in this class. Guarded by {@link #SCHEDULER}. */
+        long mStarted;
+
+        /**
+         * Constructor.
+         *
+         * @param limit maximum count of concurrent requests in this class
+         */
+        Priority(int limit) {
+            mLimit = limit;
+        }
+    }
+
+    /** Interval between two checks of a waiting request cancelation, in milliseconds. */
+    private static final long CANCEL_CHECK_INTERVAL = 100;
+
+    /** Lock guarding scheduling state. */
+    private static final Object SCHEDULER = new Object();
+
+    /** Asynchronous calls waiting to start, in order of submission. Guarded by {@link #SCHEDULER}. */
+    @NonNull
+    private static final List<ScheduledCall> QUEUE = new LinkedList<>();
+
+    /** Calls holding a slot in their priority class. Guarded by {@link #SCHEDULER}. */
+    @NonNull
+    private static final Set<ScheduledCall> HOLDERS = new HashSet<>();
+
+    /** Count of sessions created from the shared core. */
+    private static final AtomicInteger SESSIONS = new AtomicInteger();
+
+    /** Shared thread pool, on which asynchronous requests of all sessions are executed. */
+    @NonNull
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "gsdk-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /** Shared core client, from which all session clients derive. */
+    @NonNull
+    private static final OkHttpClient CORE = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool())
+            .dispatcher(new Dispatcher(EXECUTOR))
+            .build();
+
+    /**
+     * Creates a new client builder for a session.
+     * <p>
+     * The returned builder shares connection pool and thread pool with all other sessions, and has its own dispatcher.
+     * Requests sent directly through the built client are not scheduled; use {@link #newCallFactory} to create calls
+     * that are.
+     *
+     * @return a new client builder
+     */
+    @NonNull
+    static OkHttpClient.Builder newClientBuilder() {
+        SESSIONS.incrementAndGet();
+        return CORE.newBuilder()
+                   .dispatcher(new Dispatcher(EXECUTOR))
+                   .addInterceptor(STRIP_PRIORITY_INTERCEPTOR);
+    }
+
+    /**
+     * Creates a call factory that schedules calls of a session according to their priority class.
+     *
+     * @param client session client, to which scheduled calls are handed over once allowed to start
+     *
+     * @return a new call factory
+     */
+    @NonNull
+    static CallFactory newCallFactory(@NonNull OkHttpClient client) {
+        return new CallFactory(client, true);
+    }
+
+    /**
+     * Creates a call factory that does not schedule calls.
+     * <p>
+     * Used by test sessions, which must not share scheduling state.
+     *
+     * @param client session client
+     *
+     * @return a new call factory
+     */
+    @NonNull
+    static CallFactory unscheduledCallFactory(@NonNull OkHttpClient client) {
+        return new CallFactory(client, false);
+    }
+
+    /**
+     * Interceptor that removes the priority header from requests, without scheduling them.
+     */
+    private static final Interceptor STRIP_PRIORITY_INTERCEPTOR = chain -> {
+        Request request = chain.request();
+        if (request.header(PRIORITY_HEADER) != null) {
+            request = request.newBuilder().removeHeader(PRIORITY_HEADER).build();
+        }
+        return chain.proceed(request);
+    };
+
+    /**
+     * Gives the priority class of a request.
+     *
+     * @param request request
+     *
+     * @return request priority class, {@link Priority#INTERACTIVE} if unspecified or invalid
+     */
+    @NonNull
+    static Priority priorityOf(@NonNull Request request) {
+        String value = request.header(PRIORITY_HEADER);
+        if (value != null) {
+            for (Priority priority : Priority.values()) {
+                if (priority.name().equals(value.trim())) {
+                    return priority;
+                }
+            }
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    /**
+     * Waits, on the calling thread, until a synchronous call is allowed to start, then gives it a slot.
+     *
+     * @param call call to start
+     *
+     * @throws IOException in case the call is canceled or the thread interrupted while waiting
+     */
+    private static void acquire(@NonNull ScheduledCall call) throws IOException {
+        Priority priority = call.mPriority;
+        synchronized (SCHEDULER) {
+            priority.mWaiting++;
+            try {
+                while (!canStart(priority)) {
+                    if (call.isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    SCHEDULER.wait(CANCEL_CHECK_INTERVAL);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to start request");
+            } finally {
+                priority.mWaiting--;
+            }
+            hold(call);
+        }
+    }
+
+    /**
+     * Tells whether a request of the given priority class may start.
+     * <p>
+     * Must be called with the scheduler lock held.
+     *
+     * @param priority request priority class
+     *
+     * @return {@code true} if the request may start, otherwise {@code false}
+     */
+    private static boolean canStart(@NonNull Priority priority) {
+        if (priority.mRunning >= priority.mLimit) {
+            return false;
+        }
+        return priority != Priority.BACKGROUND
+               || (Priority.INTERACTIVE.mRunning == 0 && Priority.INTERACTIVE.mWaiting == 0);
+    }
+
+    /**
+     * Gives a slot to a call.
+     * <p>
+     * Must be called with the scheduler lock held.
+     *
+     * @param call call to give a slot to
+     */
+    private static void hold(@NonNull ScheduledCall call) {
+        call.mHoldingSlot = true;
+        HOLDERS.add(call);
+        call.mPriority.mRunning++;
+        call.mPriority.mStarted++;
+    }
+
+    /**
+     * Releases the slot held by a call, if any, and starts queued calls that are allowed to start in turn.
+     * <p>
+     * May be called multiple times for the same call.
+     *
+     * @param call call whose slot must be released
+     */
+    private static void release(@NonNull ScheduledCall call) {
+        List<Runnable> starts = new ArrayList<>();
+        synchronized (SCHEDULER) {
+            if (!call.mHoldingSlot) {
+                return;
+            }
+            call.mHoldingSlot = false;
+            HOLDERS.remove(call);
+            call.mPriority.mRunning--;
+            for (Iterator<ScheduledCall> it = QUEUE.iterator(); it.hasNext(); ) {
+                ScheduledCall queued = it.next();
+                if (canStart(queued.mPriority)) {
+                    it.remove();
+                    queued.mPriority.mWaiting--;
+                    Callback callback = queued.mCallback;
+                    queued.mCallback = null;
+                    hold(queued);
+                    assert callback != null;
+                    starts.add(() -> queued.start(callback));
+                }
+            }
+            SCHEDULER.notifyAll();
+        }
+        // hand calls over to the dispatcher outside of the lock
+        for (Runnable start : starts) {
+            start.run();
+        }
+    }
+
+    /**
+     * Gives the count of calls holding a slot in the given priority class.
+     *
+     * @param priority priority class
+     *
+     * @return count of running calls
+     */
+    @VisibleForTesting
+    static int runningCount(@NonNull Priority priority) {
+        synchronized (SCHEDULER) {
+            return priority.mRunning;
+        }
+    }
+
+    /**
+     * Gives the count of calls waiting to start in the given priority class.
+     *
+     * @param priority priority class
+     *
+     * @return count of waiting calls
+     */
+    @VisibleForTesting
+    static int waitingCount(@NonNull Priority priority) {
+        synchronized (SCHEDULER) {
+            return priority.mWaiting;
+        }
+    }
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param args   command line arguments to process
+     */
+    public static void dump(@NonNull PrintWriter writer, @NonNull Set<String> args) {
+        if (args.isEmpty() || args.contains("--help")) {
+            writer.write("\t--http: dumps shared HTTP transport info\n");
+        } else if (args.contains("--http") || args.contains("--all")) {
+            writer.write("HTTP transport: " + SESSIONS.get() + " sessions, "
+                         + CORE.connectionPool().connectionCount() + " connections ("
+                         + CORE.connectionPool().idleConnectionCount() + " idle)\n");
+            synchronized (SCHEDULER) {
+                for (Priority priority : Priority.values()) {
+                    writer.write("\t" + priority + ": running: " + priority.mRunning + ", waiting: "
+                                 + priority.mWaiting + ", started: " + priority.mStarted
+                                 + (priority.mLimit == Integer.MAX_VALUE ? "" : ", limit: " + priority.mLimit) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Response body that notifies when it is closed, fully read, or fails to be read.
+     */
+    private static final class ReleasingBody extends ResponseBody {
+
+        /** Wrapped body. */
+        @NonNull
+        private final ResponseBody mBody;
+
+        /** Run once the body is closed, exhausted or failed. */
+        @NonNull
+        private final Runnable mRelease;
+
+        /** Wrapping source, {@code null} until requested. */
+        @Nullable
+        private BufferedSource mSource;
+
+        /**
+         * Constructor.
+         *
+         * @param body    body to wrap
+         * @param release run once the body is closed, exhausted or failed
+         */
+        ReleasingBody(@NonNull ResponseBody body, @NonNull Runnable release) {
+            mBody = body;
+            mRelease = release;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return mBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mBody.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            if (mSource == null) {
+                mSource = Okio.buffer(new ForwardingSource(mBody.source()) {
+
+                    @Override
+                    public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                        long read;
+                        try {
+                            read = super.read(sink, byteCount);
+                        } catch (IOException e) {
+                            mRelease.run();
+                            throw e;
+                        }
+                        if (read == -1) {
+                            mRelease.run();
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        mRelease.run();
+                        super.close();
+                    }
+                });
+            }
+            return mSource;
+        }
+
+        @Override
+        public void close() {
+            mRelease.run();
+            mBody.close();
+        }
+    }
+
+    /**
+     * Creates calls of a session.
+     * <p>
+     * When scheduling is enabled, calls wait for their turn before being handed over to the session client: synchronous
+     * calls wait on the calling thread, asynchronous calls wait in a queue. No dispatcher thread, nor per-host
+     * dispatcher slot, is held while waiting.
+     */
+    static final class CallFactory implements Call.Factory {
+
+        /** Session client. */
+        @NonNull
+        private final OkHttpClient mClient;
+
+        /** {@code true} to schedule calls according to their priority class. */
+        private final boolean mScheduled;
+
+        /**
+         * Constructor.
+         *
+         * @param client    session client
+         * @param scheduled {@code true} to schedule calls according to their priority class
+         */
+        private CallFactory(@NonNull OkHttpClient client, boolean scheduled) {
+            mClient = client;
+            mScheduled = scheduled;
+        }
+
+        @NonNull
+        @Override
+        public Call newCall(@NonNull Request request) {
+            Priority priority = priorityOf(request);
+            if (request.header(PRIORITY_HEADER) != null) {
+                request = request.newBuilder().removeHeader(PRIORITY_HEADER).build();
+            }
+            Call call = mClient.newCall(request);
+            return mScheduled ? new ScheduledCall(this, call, priority) : call;
+        }
+
+        /**
+         * Cancels all calls of the session, including those waiting to start.
+         */
+        void cancelAll() {
+            List<ScheduledCall> calls = new ArrayList<>();
+            synchronized (SCHEDULER) {
+                for (ScheduledCall call : QUEUE) {
+                    if (call.mFactory == this) {
+                        calls.add(call);
+                    }
+                }
+                for (ScheduledCall call : HOLDERS) {
+                    if (call.mFactory == this) {
+                        calls.add(call);
+                    }
+                }
+            }
+            for (ScheduledCall call : calls) {
+                call.cancel();
+            }
+            mClient.dispatcher().cancelAll();
+        }
+    }
+
+    /**
+     * Call scheduled according to its priority class.
+     * <p>
+     * The slot held by the call is released when the response body is closed, exhausted or fails to be read, when the
+     * call fails, or when the call is canceled. Interactive calls release their slot as soon as the response headers
+     * are received.
+     */
+    private static final class ScheduledCall implements Call {
+
+        /** Factory that created this call. */
+        @NonNull
+        final CallFactory mFactory;
+
+        /** Underlying call. */
+        @NonNull
+        private final Call mCall;
+
+        /** Call priority class. */
+        @NonNull
+        final Priority mPriority;
+
+        /** Callback of the call while it waits to start, {@code null} otherwise. Guarded by {@link #SCHEDULER}. */
+        @Nullable
+        Callback mCallback;
+
+        /** {@code true} while the call holds a slot in its priority class. Guarded by {@link #SCHEDULER}. */
+        boolean mHoldingSlot;
+
+        /** {@code true} once the call has been executed or enqueued. Guarded by {@link #SCHEDULER}. */
+        private boolean mExecuted;
+
+        /**
+         * Constructor.
+         *
+         * @param factory  factory that created this call
+         * @param call     underlying call
+         * @param priority call priority class
+         */
+        ScheduledCall(@NonNull CallFactory factory, @NonNull Call call, @NonNull Priority priority) {
+            mFactory = factory;
+            mCall = call;
+            mPriority = priority;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return mCall.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            synchronized (SCHEDULER) {
+                if (mExecuted) {
+                    throw new IllegalStateException("Already Executed");
+                }
+                mExecuted = true;
+            }
+            acquire(this);
+            try {
+                return track(mCall.execute());
+            } catch (IOException | RuntimeException e) {
+                release(this);
+                throw e;
+            }
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback callback) {
+            boolean start;
+            synchronized (SCHEDULER) {
+                if (mExecuted) {
+                    throw new IllegalStateException("Already Executed");
+                }
+                mExecuted = true;
+                // a canceled call is handed over as is, so that the dispatcher reports its failure
+                start = mCall.isCanceled() || canStart(mPriority);
+                if (!start) {
+                    mCallback = callback;
+                    mPriority.mWaiting++;
+                    QUEUE.add(this);
+                } else if (!mCall.isCanceled()) {
+                    hold(this);
+                }
+            }
+            if (start) {
+                start(callback);
+            }
+        }
+
+        /**
+         * Hands the call over to the session dispatcher.
+         *
+         * @param callback callback to notify of the call result
+         */
+        void start(@NonNull Callback callback) {
+            mCall.enqueue(new Callback() {
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    release(ScheduledCall.this);
+                    callback.onFailure(ScheduledCall.this, e);
+                }
+
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    callback.onResponse(ScheduledCall.this, track(response));
+                }
+            });
+        }
+
+        /**
+         * Wraps a response so that the call slot is released once the response body is consumed.
+         *
+         * @param response response to wrap
+         *
+         * @return wrapped response
+         */
+        @NonNull
+        private Response track(@NonNull Response response) {
+            ResponseBody body = response.body();
+            if (mPriority == Priority.INTERACTIVE || body == null) {
+                // interactive requests only hold background requests back while they are being sent
+                release(this);
+                return response;
+            }
+            return response.newBuilder().body(new ReleasingBody(body, () -> release(this))).build();
+        }
+
+        @Override
+        public void cancel() {
+            mCall.cancel();
+            Callback callback;
+            synchronized (SCHEDULER) {
+                callback = mCallback;
+                if (callback != null) {
+                    mCallback = null;
+                    QUEUE.remove(this);
+                    mPriority.mWaiting--;
+                }
+                // wake up synchronous calls waiting to start, so that they notice cancelation
+                SCHEDULER.notifyAll();
+            }
+            release(this);
+            if (callback != null) {
+                EXECUTOR.execute(() -> callback.onFailure(this, new IOException("Canceled")));
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            synchronized (SCHEDULER) {
+                return mExecuted;
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return mCall.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return mCall.timeout();
+        }
+
+        @NonNull
+        @Override
+        public Call clone() {
+            return new ScheduledCall(mFactory, mCall.clone(), mPriority);
+        }
+    }
+
+    /**
+     * Private constructor for static utility class.
+     */
+    private HttpTransport() {
+    }
+}
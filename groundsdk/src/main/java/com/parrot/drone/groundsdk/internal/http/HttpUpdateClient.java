@@ -57,6 +57,7 @@ import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Query;
 import retrofit2.http.Streaming;
 import retrofit2.http.Url;
@@ -154,6 +155,11 @@ public class HttpUpdateClient extends HttpClient {
 
             Response<ResponseBody> response = downloadCall.execute();
             if (downloadCall.isCanceled()) {
+                // release the connection, and the transport slot it holds
+                ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+                if (body != null) {
+                    body.close();
+                }
                 // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
                 // to restore the interruption status after the call
                 throw new InterruptedException("Canceled retrofit call");
@@ -232,6 +238,7 @@ public class HttpUpdateClient extends HttpClient {
          * @return a retrofit call for sending the request out
          */
         @GET
+        @Headers(HttpTransport.BULK)
         @Streaming
         @NonNull
         Call<ResponseBody> download(@NonNull @Url String url);
@@ -0,0 +1,372 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Muxes an H.264 elementary stream into a fragmented MP4 file, without transcoding.
+ * <p>
+ * The file starts with an {@code ftyp} box and a {@code moov} box that describes a single video track with an empty
+ * sample table, followed by one {@code moof}/{@code mdat} fragment per sample. Since each fragment is self-contained,
+ * the file remains playable up to the last written sample even if recording is interrupted, and sample data is written
+ * directly from the provided buffer, without being copied nor buffered in memory.
+ * <p>
+ * Samples must be in AVCC format, i.e. each NAL unit prefixed with its length on 4 bytes.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class FragmentedMp4Writer {
+
+    /** Media timescale, in units per second. Matches RTP video clock rate. */
+    static final int TIMESCALE = 90000;
+
+    /** Identifier of the written video track. */
+    private static final int TRACK_ID = 1;
+
+    /** {@code tfhd} flag: fragment data offsets are relative to the enclosing {@code moof} box. */
+    private static final int TFHD_DEFAULT_BASE_IS_MOOF = 0x020000;
+
+    /** {@code trun} flags: data offset, then sample duration, size and flags are present. */
+    private static final int TRUN_FLAGS = 0x000001 | 0x000100 | 0x000200 | 0x000400;
+
+    /** Sample flags for a sync sample: depends on no other sample. */
+    static final int SAMPLE_FLAGS_SYNC = 0x02000000;
+
+    /** Sample flags for a non-sync sample: depends on other samples, and is not a sync sample. */
+    static final int SAMPLE_FLAGS_NON_SYNC = 0x01010000;
+
+    /** Size of a single-sample {@code moof} box, in bytes. */
+    private static final int MOOF_SIZE = 8 + 16 + 8 + 16 + 20 + 32;
+
+    /** Size of a {@code mdat} box header, in bytes. */
+    private static final int MDAT_HEADER_SIZE = 8;
+
+    /** Channel where the file is written. */
+    @NonNull
+    private final WritableByteChannel mChannel;
+
+    /** Fragment header ({@code moof} box and {@code mdat} box header), reused for all samples. */
+    @NonNull
+    private final ByteBuffer mFragmentHeader;
+
+    /** Sequence number of the next fragment. */
+    private int mSequenceNumber;
+
+    /** {@code true} once the file header is written. */
+    private boolean mHeaderWritten;
+
+    /**
+     * Constructor.
+     *
+     * @param channel channel where to write the file
+     */
+    FragmentedMp4Writer(@NonNull WritableByteChannel channel) {
+        mChannel = channel;
+        mFragmentHeader = ByteBuffer.allocate(MOOF_SIZE + MDAT_HEADER_SIZE);
+        mSequenceNumber = 1;
+    }
+
+    /**
+     * Writes the file header.
+     * <p>
+     * Parameter sets must be provided without start code, as given by {@link H264Sink.StreamInfo}. Their buffer
+     * position is not modified.
+     *
+     * @param sps    H.264 Sequence Parameter Set
+     * @param pps    H.264 Picture Parameter Set
+     * @param width  video width, in pixels
+     * @param height video height, in pixels
+     *
+     * @throws IOException           in case writing to the channel failed
+     * @throws IllegalStateException in case the header is already written
+     */
+    void writeHeader(@NonNull ByteBuffer sps, @NonNull ByteBuffer pps, int width, int height) throws IOException {
+        if (mHeaderWritten) {
+            throw new IllegalStateException("Header already written");
+        }
+        sps = sps.duplicate();
+        pps = pps.duplicate();
+        if (sps.remaining() < 4) {
+            throw new IllegalArgumentException("Invalid SPS");
+        }
+        ByteBuffer header = ByteBuffer.allocate(1024 + sps.remaining() + pps.remaining());
+
+        int ftyp = beginBox(header, "ftyp");
+        putFourCC(header, "iso5");
+        header.putInt(512);
+        putFourCC(header, "iso5");
+        putFourCC(header, "iso6");
+        putFourCC(header, "avc1");
+        putFourCC(header, "mp41");
+        endBox(header, ftyp);
+
+        int moov = beginBox(header, "moov");
+
+        int mvhd = beginFullBox(header, "mvhd", 0);
+        header.putInt(0).putInt(0).putInt(TIMESCALE).putInt(0);
+        header.putInt(0x00010000).putShort((short) 0x0100).putShort((short) 0).putLong(0);
+        putMatrix(header);
+        for (int i = 0; i < 6; i++) {
+            header.putInt(0);
+        }
+        header.putInt(TRACK_ID + 1);
+        endBox(header, mvhd);
+
+        int trak = beginBox(header, "trak");
+
+        int tkhd = beginFullBox(header, "tkhd", 0x000007);
+        header.putInt(0).putInt(0).putInt(TRACK_ID).putInt(0).putInt(0).putLong(0);
+        header.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        putMatrix(header);
+        header.putInt(width << 16).putInt(height << 16);
+        endBox(header, tkhd);
+
+        int mdia = beginBox(header, "mdia");
+
+        int mdhd = beginFullBox(header, "mdhd", 0);
+        header.putInt(0).putInt(0).putInt(TIMESCALE).putInt(0);
+        header.putShort((short) 0x55C4); // 'und' language
+        header.putShort((short) 0);
+        endBox(header, mdhd);
+
+        int hdlr = beginFullBox(header, "hdlr", 0);
+        header.putInt(0);
+        putFourCC(header, "vide");
+        header.putInt(0).putInt(0).putInt(0);
+        header.put("VideoHandler".getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+        endBox(header, hdlr);
+
+        int minf = beginBox(header, "minf");
+
+        int vmhd = beginFullBox(header, "vmhd", 0x000001);
+        header.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        endBox(header, vmhd);
+
+        int dinf = beginBox(header, "dinf");
+        int dref = beginFullBox(header, "dref", 0);
+        header.putInt(1);
+        endBox(header, beginFullBox(header, "url ", 0x000001));
+        endBox(header, dref);
+        endBox(header, dinf);
+
+        int stbl = beginBox(header, "stbl");
+
+        int stsd = beginFullBox(header, "stsd", 0);
+        header.putInt(1);
+        int avc1 = beginBox(header, "avc1");
+        header.putInt(0).putShort((short) 0).putShort((short) 1);
+        header.putShort((short) 0).putShort((short) 0).putInt(0).putInt(0).putInt(0);
+        header.putShort((short) width).putShort((short) height);
+        header.putInt(0x00480000).putInt(0x00480000).putInt(0).putShort((short) 1);
+        header.put(new byte[32]);
+        header.putShort((short) 0x0018).putShort((short) -1);
+        int avcC = beginBox(header, "avcC");
+        header.put((byte) 1)
+              .put(sps.get(sps.position() + 1))
+              .put(sps.get(sps.position() + 2))
+              .put(sps.get(sps.position() + 3))
+              .put((byte) 0xFF)  // 4 bytes NAL unit length
+              .put((byte) 0xE1)  // 1 SPS
+              .putShort((short) sps.remaining())
+              .put(sps)
+              .put((byte) 1)     // 1 PPS
+              .putShort((short) pps.remaining())
+              .put(pps);
+        endBox(header, avcC);
+        endBox(header, avc1);
+        endBox(header, stsd);
+
+        int stts = beginFullBox(header, "stts", 0);
+        header.putInt(0);
+        endBox(header, stts);
+        int stsc = beginFullBox(header, "stsc", 0);
+        header.putInt(0);
+        endBox(header, stsc);
+        int stsz = beginFullBox(header, "stsz", 0);
+        header.putInt(0).putInt(0);
+        endBox(header, stsz);
+        int stco = beginFullBox(header, "stco", 0);
+        header.putInt(0);
+        endBox(header, stco);
+
+        endBox(header, stbl);
+        endBox(header, minf);
+        endBox(header, mdia);
+        endBox(header, trak);
+
+        int mvex = beginBox(header, "mvex");
+        int trex = beginFullBox(header, "trex", 0);
+        header.putInt(TRACK_ID).putInt(1).putInt(0).putInt(0).putInt(0);
+        endBox(header, trex);
+        endBox(header, mvex);
+
+        endBox(header, moov);
+
+        header.flip();
+        writeFully(header);
+        mHeaderWritten = true;
+    }
+
+    /**
+     * Writes a sample, in its own fragment.
+     * <p>
+     * Sample data is written directly from the given buffer, from its position to its limit; buffer position is
+     * advanced accordingly.
+     *
+     * @param data       sample data, in AVCC format
+     * @param decodeTime sample decode time, in {@link #TIMESCALE} units
+     * @param duration   sample duration, in {@link #TIMESCALE} units
+     * @param sync       {@code true} if the sample is a sync (key) sample, otherwise {@code false}
+     *
+     * @throws IOException           in case writing to the channel failed
+     * @throws IllegalStateException in case the header is not written yet
+     */
+    void writeSample(@NonNull ByteBuffer data, long decodeTime, int duration, boolean sync) throws IOException {
+        if (!mHeaderWritten) {
+            throw new IllegalStateException("Header not written");
+        }
+        int size = data.remaining();
+        ByteBuffer header = mFragmentHeader;
+        header.clear();
+
+        int moof = beginBox(header, "moof");
+        int mfhd = beginFullBox(header, "mfhd", 0);
+        header.putInt(mSequenceNumber++);
+        endBox(header, mfhd);
+        int traf = beginBox(header, "traf");
+        int tfhd = beginFullBox(header, "tfhd", TFHD_DEFAULT_BASE_IS_MOOF);
+        header.putInt(TRACK_ID);
+        endBox(header, tfhd);
+        int tfdt = beginFullBox(header, "tfdt", 0x01000000);
+        header.putLong(decodeTime);
+        endBox(header, tfdt);
+        int trun = beginFullBox(header, "trun", TRUN_FLAGS);
+        header.putInt(1)
+              .putInt(MOOF_SIZE + MDAT_HEADER_SIZE)
+              .putInt(duration)
+              .putInt(size)
+              .putInt(sync ? SAMPLE_FLAGS_SYNC : SAMPLE_FLAGS_NON_SYNC);
+        endBox(header, trun);
+        endBox(header, traf);
+        endBox(header, moof);
+
+        header.putInt(MDAT_HEADER_SIZE + size);
+        putFourCC(header, "mdat");
+
+        header.flip();
+        writeFully(header);
+        writeFully(data);
+    }
+
+    /**
+     * Writes a buffer fully to the channel.
+     *
+     * @param buffer buffer to write
+     *
+     * @throws IOException in case writing to the channel failed
+     */
+    private void writeFully(@NonNull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            mChannel.write(buffer);
+        }
+    }
+
+    /**
+     * Begins a box.
+     *
+     * @param buffer buffer to write the box to
+     * @param type   box type
+     *
+     * @return box start position, to be given to {@link #endBox}
+     */
+    private static int beginBox(@NonNull ByteBuffer buffer, @NonNull String type) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        putFourCC(buffer, type);
+        return start;
+    }
+
+    /**
+     * Begins a full box, version 0 unless specified in the most significant byte of {@code versionAndFlags}.
+     *
+     * @param buffer          buffer to write the box to
+     * @param type            box type
+     * @param versionAndFlags box version, on the most significant byte, and flags, on the 3 least significant bytes
+     *
+     * @return box start position, to be given to {@link #endBox}
+     */
+    private static int beginFullBox(@NonNull ByteBuffer buffer, @NonNull String type, int versionAndFlags) {
+        int start = beginBox(buffer, type);
+        buffer.putInt(versionAndFlags);
+        return start;
+    }
+
+    /**
+     * Ends a box, writing its size.
+     *
+     * @param buffer buffer where the box is written
+     * @param start  box start position, as returned by {@link #beginBox} or {@link #beginFullBox}
+     */
+    private static void endBox(@NonNull ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start);
+    }
+
+    /**
+     * Writes a four character code.
+     *
+     * @param buffer buffer to write to
+     * @param code   four character code
+     */
+    private static void putFourCC(@NonNull ByteBuffer buffer, @NonNull String code) {
+        for (int i = 0; i < 4; i++) {
+            buffer.put((byte) code.charAt(i));
+        }
+    }
+
+    /**
+     * Writes an identity transformation matrix.
+     *
+     * @param buffer buffer to write to
+     */
+    private static void putMatrix(@NonNull ByteBuffer buffer) {
+        buffer.putInt(0x00010000).putInt(0).putInt(0)
+              .putInt(0).putInt(0x00010000).putInt(0)
+              .putInt(0).putInt(0).putInt(0x40000000);
+    }
+}
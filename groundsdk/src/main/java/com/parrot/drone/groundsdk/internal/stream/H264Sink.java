@@ -0,0 +1,313 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.os.Looper;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.groundsdk.stream.Stream;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A sink that delivers H.264 encoded access units, without decoding them.
+ */
+public interface H264Sink extends Stream.Sink {
+
+    /** Access unit data format. */
+    enum Format {
+
+        /** Each NAL unit is prefixed with its length, in bytes, on 4 bytes, big endian. Suitable for MP4 samples. */
+        AVCC,
+
+        /** Each NAL unit is prefixed with an annex-b {@code 0x00000001} start code. Suitable for RTP packetization. */
+        BYTE_STREAM
+    }
+
+    /**
+     * Information upon the delivered H.264 video stream.
+     * <p>
+     * Returned buffers are read-only and shared by all accessors; their position is 0 and their limit is the parameter
+     * set length each time they are obtained.
+     */
+    interface StreamInfo {
+
+        /**
+         * Retrieves video width.
+         *
+         * @return video width, in pixels
+         */
+        int width();
+
+        /**
+         * Retrieves video height.
+         *
+         * @return video height, in pixels
+         */
+        int height();
+
+        /**
+         * Retrieves the stream Sequence Parameter Set.
+         *
+         * @return stream SPS, without start code nor length prefix
+         */
+        @NonNull
+        ByteBuffer sps();
+
+        /**
+         * Retrieves the stream Picture Parameter Set.
+         *
+         * @return stream PPS, without start code nor length prefix
+         */
+        @NonNull
+        ByteBuffer pps();
+    }
+
+    /**
+     * An H.264 access unit, that is, all NAL units of an encoded frame.
+     * <p>
+     * Access units are pooled by the sink, following the same contract as {@link YUVSink.Frame YUV frames}: once an
+     * access unit is {@link #release() released}, the same instance may be used to deliver a subsequent one, so client
+     * must neither keep nor access it (nor any buffer obtained from it) after having released it.
+     * <p>
+     * Accessors do not allocate, so that access units can be consumed without creating garbage.
+     */
+    interface AccessUnit {
+
+        /**
+         * Provides access to the access unit's native backend.
+         * <p>
+         * The returned value, if valid, can be used in native code as a pointer onto a {@code struct sdkcore_frame}.
+         *
+         * @return native pointer onto the access unit's backend.
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        long nativePtr();
+
+        /**
+         * Retrieves information upon the stream this access unit belongs to.
+         *
+         * @return stream info
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        @NonNull
+        StreamInfo streamInfo();
+
+        /**
+         * Retrieves access unit data format.
+         *
+         * @return data format
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        @NonNull
+        Format format();
+
+        /**
+         * Gives access to the access unit data.
+         * <p>
+         * The returned buffer is a read-only, direct buffer that maps the native frame memory without any copy. Its
+         * position is 0 and its limit is the data length when the access unit is delivered. It must not be accessed
+         * anymore once the access unit is released.
+         *
+         * @return access unit data
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        @NonNull
+        ByteBuffer data();
+
+        /**
+         * Tells whether the access unit is a key frame (IDR), from which decoding may start.
+         *
+         * @return {@code true} for a key frame, otherwise {@code false}
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        boolean isKeyFrame();
+
+        /**
+         * Tells whether the access unit is complete.
+         * <p>
+         * Incomplete access units miss some slices, which were lost during transmission.
+         *
+         * @return {@code true} if the access unit is complete, otherwise {@code false}
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        boolean isComplete();
+
+        /**
+         * Tells whether the access unit is silent.
+         * <p>
+         * Silent access units carry valid data but should not be displayed.
+         *
+         * @return {@code true} if the access unit is silent, otherwise {@code false}
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        boolean isSilent();
+
+        /**
+         * Retrieves the access unit NTP timestamp.
+         *
+         * @return NTP timestamp, in microseconds
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        long ntpTimestamp();
+
+        /**
+         * Retrieves the access unit capture timestamp, as recorded by the drone.
+         *
+         * @return capture timestamp, in microseconds, {@code 0} if unknown
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        long captureTimestamp();
+
+        /**
+         * Copies access unit data to the given buffer.
+         * <p>
+         * Data is written at the buffer current position, which is advanced accordingly.
+         *
+         * @param dest buffer to copy access unit data to
+         *
+         * @throws IllegalStateException   in case the access unit has been released
+         * @throws BufferOverflowException in case {@code dest} has not enough remaining space
+         */
+        void copyTo(@NonNull ByteBuffer dest);
+
+        /**
+         * Retains the access unit.
+         * <p>
+         * Each call to this method must be balanced by a subsequent call to {@link #release()}. The access unit is
+         * returned to the sink pool once all references are released.
+         *
+         * @return {@code this}, to allow chained calls
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        @NonNull
+        AccessUnit retain();
+
+        /**
+         * Releases the access unit.
+         *
+         * @throws IllegalStateException in case the access unit has already been released
+         */
+        void release();
+    }
+
+    /**
+     * Sink event callbacks.
+     * <p>
+     * All methods are called on the configured looper thread for that sink.
+     */
+    interface Callback {
+
+        /**
+         * Notifies that the sink starts.
+         *
+         * @param sink       sink that did start
+         * @param streamInfo information upon the H.264 stream that will be delivered
+         */
+        void onStart(@NonNull H264Sink sink, @NonNull StreamInfo streamInfo);
+
+        /**
+         * Delivers an access unit from the sink.
+         * <p>
+         * Client owns the delivered access unit and must {@link AccessUnit#release() release} it when no longer needed,
+         * otherwise leaks may occur.
+         *
+         * @param sink       sink that did deliver the access unit
+         * @param accessUnit delivered access unit
+         */
+        void onAccessUnit(@NonNull H264Sink sink, @NonNull AccessUnit accessUnit);
+
+        /**
+         * Notifies that the sink stops.
+         *
+         * @param sink sink that did stop
+         */
+        void onStop(@NonNull H264Sink sink);
+    }
+
+    /** Default maximum count of access units queued for delivery. */
+    int DEFAULT_QUEUE_DEPTH = 30;
+
+    /**
+     * Creates a new {@code H264Sink} config.
+     * <p>
+     * Access units are delivered in {@link Format#AVCC AVCC} format, and up to {@link #DEFAULT_QUEUE_DEPTH} access
+     * units are queued while the client is busy.
+     *
+     * @param looper   looper onto which callbacks will be invoked
+     * @param callback callback notified of sink events.
+     *
+     * @return a new {@code H264Sink} config.
+     */
+    @NonNull
+    static Config config(@NonNull Looper looper, @NonNull Callback callback) {
+        return config(looper, callback, Format.AVCC, DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * Creates a new {@code H264Sink} config.
+     * <p>
+     * The sink queues up to {@code queueDepth} access units while the client is busy; when the queue is full, the
+     * eldest access unit is dropped. Since subsequent access units usually depend on dropped ones, clients should then
+     * wait for the next {@link AccessUnit#isKeyFrame() key frame}; the queue should thus be deep enough to absorb
+     * occasional client latency.
+     *
+     * @param looper     looper onto which callbacks will be invoked
+     * @param callback   callback notified of sink events.
+     * @param format     access unit data format
+     * @param queueDepth maximum count of access units queued for delivery
+     *
+     * @return a new {@code H264Sink} config.
+     */
+    @NonNull
+    static Config config(@NonNull Looper looper, @NonNull Callback callback, @NonNull Format format,
+                         @IntRange(from = 1) int queueDepth) {
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("Invalid queue depth: " + queueDepth);
+        }
+        return new H264SinkCore.Config(looper, callback, format, queueDepth);
+    }
+}
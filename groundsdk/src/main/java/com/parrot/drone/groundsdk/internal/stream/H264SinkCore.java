@@ -0,0 +1,527 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.sdkcore.stream.SdkCoreMediaInfo;
+import com.parrot.drone.sdkcore.stream.SdkCoreSink;
+import com.parrot.drone.sdkcore.stream.SdkCoreStream;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/** Core class for H264Sink. */
+final class H264SinkCore extends StreamCore.Sink implements H264Sink {
+
+    /** Core class for H264Sink config. */
+    static final class Config implements StreamCore.Sink.Config {
+
+        /** Looper onto which callbacks are dispatched. */
+        @NonNull
+        private final Looper mLooper;
+
+        /** Callback notified of sink events. */
+        @NonNull
+        private final Callback mCallback;
+
+        /** Access unit data format. */
+        @NonNull
+        private final Format mFormat;
+
+        /** Maximum count of access units queued for delivery. */
+        private final int mQueueDepth;
+
+        /**
+         * Constructor.
+         *
+         * @param looper     looper onto which callback are dispatched
+         * @param callback   callback notified of stream events
+         * @param format     access unit data format
+         * @param queueDepth maximum count of access units queued for delivery
+         */
+        Config(@NonNull Looper looper, @NonNull Callback callback, @NonNull Format format, int queueDepth) {
+            mLooper = looper;
+            mCallback = callback;
+            mFormat = format;
+            mQueueDepth = queueDepth;
+        }
+
+        @NonNull
+        @Override
+        public StreamCore.Sink newSink(@NonNull StreamCore streamCore) {
+            return new H264SinkCore(streamCore, this);
+        }
+    }
+
+    /** Sink config. */
+    @NonNull
+    private final Config mConfig;
+
+    /** Handler used to dispatch callbacks onto the configured looper. */
+    @NonNull
+    private final Handler mListenerHandler;
+
+    /** SdkCoreStream instance. {@code null} unless the stream is opened. */
+    @Nullable
+    private SdkCoreStream mSdkCoreStream;
+
+    /** Internal SdkCoreSink instance. */
+    @NonNull
+    private final SdkCoreSink mSdkCoreSink;
+
+    /** Info upon the delivered stream. {@code null} until the sink starts. Only accessed on the looper thread. */
+    @Nullable
+    private StreamInfoImpl mStreamInfo;
+
+    /** Released access units, available for delivering subsequent ones. Guarded by itself. */
+    @NonNull
+    private final Deque<AccessUnitImpl> mAccessUnitPool;
+
+    /** Maximum count of released access units kept in pool. */
+    private final int mAccessUnitPoolSize;
+
+    /**
+     * Buffers mapping native access unit data, reused across access units whose data lies at the same native address.
+     * <p>
+     * Contrary to YUV frames, encoded access units differ in length; a mapping is thus reused as long as it is large
+     * enough, so that mappings at each recycled address grow up to the largest access unit and then stay stable.
+     * <p>
+     * Only accessed on the looper thread.
+     */
+    @NonNull
+    private final DataBuffer[] mDataBuffers;
+
+    /** Index of the next data buffer entry to replace when access unit data is not mapped yet. */
+    private int mNextDataBuffer;
+
+    /**
+     * Constructor.
+     *
+     * @param stream sink's stream
+     * @param config sink config
+     */
+    private H264SinkCore(@NonNull StreamCore stream, @NonNull Config config) {
+        super(stream);
+        mConfig = config;
+        mListenerHandler = new Handler(mConfig.mLooper);
+        mSdkCoreSink = new SdkCoreSink(mConfig.mLooper, mSinkListener)
+                .setQueueSize(mConfig.mQueueDepth)
+                .setQueueFullPolicy(SdkCoreSink.QUEUE_FULL_POLICY_DROP_ELDEST)
+                .setFrameFormat(mConfig.mFormat == Format.AVCC ? SdkCoreSink.FRAME_FORMAT_H264_AVCC
+                        : SdkCoreSink.FRAME_FORMAT_H264_BYTE_STREAM);
+        // queued access units, plus the one being processed, plus one retained by the client
+        mAccessUnitPoolSize = mConfig.mQueueDepth + 2;
+        mAccessUnitPool = new ArrayDeque<>(mAccessUnitPoolSize);
+        mDataBuffers = new DataBuffer[mAccessUnitPoolSize * 2];
+    }
+
+    @Override
+    void onSdkCoreStreamAvailable(@NonNull SdkCoreStream stream) {
+        mSdkCoreStream = stream;
+        mStream.subscribeToMedia(SdkCoreMediaInfo.Video.H264.class, mMediaListener);
+    }
+
+    @Override
+    void onSdkCoreStreamUnavailable() {
+        mStream.unsubscribeFromMedia(mMediaListener);
+    }
+
+    /** Listener notified of stream H.264 media availability. */
+    private final MediaListener<SdkCoreMediaInfo.Video.H264> mMediaListener =
+            new MediaListener<SdkCoreMediaInfo.Video.H264>() {
+
+                @Override
+                public void onMediaAvailable(@NonNull SdkCoreMediaInfo.Video.H264 mediaInfo) {
+                    assert mSdkCoreStream != null;
+                    StreamInfoImpl streamInfo = new StreamInfoImpl(mediaInfo);
+                    mListenerHandler.post(() -> {
+                        mStreamInfo = streamInfo;
+                        mConfig.mCallback.onStart(H264SinkCore.this, streamInfo);
+                    });
+                    mSdkCoreStream.startSink(mSdkCoreSink, mediaInfo.mediaId());
+                }
+
+                @Override
+                public void onMediaUnavailable() {
+                    mSdkCoreSink.stop();
+                }
+            };
+
+    /** Listens to internal sink events. */
+    @SuppressWarnings("FieldCanBeLocal")
+    private final SdkCoreSink.Listener mSinkListener = new SdkCoreSink.Listener() {
+
+        @Override
+        public void onFrame(@SdkCoreSink.Frame.Handle long frameHandle) {
+            StreamInfoImpl streamInfo = mStreamInfo;
+            if (streamInfo == null) {
+                SdkCoreSink.Frame.release(frameHandle);
+                return;
+            }
+            AccessUnitImpl accessUnit;
+            synchronized (mAccessUnitPool) {
+                accessUnit = mAccessUnitPool.poll();
+            }
+            if (accessUnit == null) {
+                accessUnit = new AccessUnitImpl();
+            }
+            accessUnit.bind(frameHandle, streamInfo);
+            mConfig.mCallback.onAccessUnit(H264SinkCore.this, accessUnit);
+        }
+
+        @Override
+        public void onStop() {
+            mStreamInfo = null;
+            mConfig.mCallback.onStop(H264SinkCore.this);
+        }
+    };
+
+    /**
+     * Obtains a buffer mapping some access unit data.
+     * <p>
+     * A buffer is reused if the given data address is already mapped with a sufficient capacity, otherwise it is
+     * created and replaces the least recently created buffer.
+     *
+     * @param frameHandle handle on the access unit frame
+     * @param info        access unit info
+     *
+     * @return a read-only buffer over access unit data, or {@code null} if data could not be mapped
+     */
+    @Nullable
+    private ByteBuffer obtainData(@SdkCoreSink.Frame.Handle long frameHandle, @NonNull long[] info) {
+        long address = info[SdkCoreSink.Frame.H264_INFO_DATA_ADDRESS];
+        int length = (int) info[SdkCoreSink.Frame.H264_INFO_DATA_LENGTH];
+        for (DataBuffer buffer : mDataBuffers) {
+            if (buffer != null && buffer.mAddress == address && buffer.mData.capacity() >= length) {
+                buffer.mData.limit(length).position(0);
+                return buffer.mData;
+            }
+        }
+        ByteBuffer data = SdkCoreSink.Frame.getData(frameHandle);
+        if (data == null) {
+            return null;
+        }
+        DataBuffer buffer = new DataBuffer(address, data.asReadOnlyBuffer());
+        mDataBuffers[mNextDataBuffer] = buffer;
+        mNextDataBuffer = (mNextDataBuffer + 1) % mDataBuffers.length;
+        return buffer.mData;
+    }
+
+    /**
+     * A buffer mapping some native access unit data.
+     */
+    private static final class DataBuffer {
+
+        /** Data native address. */
+        final long mAddress;
+
+        /** Read-only buffer mapping data. */
+        @NonNull
+        final ByteBuffer mData;
+
+        /**
+         * Constructor.
+         *
+         * @param address data native address
+         * @param data    read-only buffer mapping data
+         */
+        DataBuffer(long address, @NonNull ByteBuffer data) {
+            mAddress = address;
+            mData = data;
+        }
+    }
+
+    /**
+     * Obtains a parameter set without its annex-b start code, if any.
+     * <p>
+     * {@link StreamInfo#sps()} and {@link StreamInfo#pps()} must not include any start code, whereas the parameter sets
+     * provided by the native media info may be prefixed with a 3 or 4 bytes start code.
+     *
+     * @param buffer buffer containing the parameter set; its position is modified
+     *
+     * @return a read-only buffer over the parameter set NAL unit
+     */
+    @VisibleForTesting
+    @NonNull
+    static ByteBuffer parameterSet(@NonNull ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.remaining() >= 4 && buffer.get(position) == 0 && buffer.get(position + 1) == 0) {
+            if (buffer.get(position + 2) == 1) {
+                buffer.position(position + 3);
+            } else if (buffer.get(position + 2) == 0 && buffer.get(position + 3) == 1) {
+                buffer.position(position + 4);
+            }
+        }
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Stream info implementation.
+     */
+    private static final class StreamInfoImpl implements StreamInfo {
+
+        /** Video width, in pixels. */
+        private final int mWidth;
+
+        /** Video height, in pixels. */
+        private final int mHeight;
+
+        /** Read-only SPS buffer. */
+        @NonNull
+        private final ByteBuffer mSps;
+
+        /** Read-only PPS buffer. */
+        @NonNull
+        private final ByteBuffer mPps;
+
+        /**
+         * Constructor.
+         *
+         * @param mediaInfo H.264 media info
+         */
+        StreamInfoImpl(@NonNull SdkCoreMediaInfo.Video.H264 mediaInfo) {
+            mWidth = mediaInfo.width();
+            mHeight = mediaInfo.height();
+            mSps = parameterSet(mediaInfo.sps());
+            mPps = parameterSet(mediaInfo.pps());
+        }
+
+        @Override
+        public int width() {
+            return mWidth;
+        }
+
+        @Override
+        public int height() {
+            return mHeight;
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer sps() {
+            mSps.clear();
+            return mSps;
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer pps() {
+            mPps.clear();
+            return mPps;
+        }
+    }
+
+    /**
+     * Pooled access unit implementation.
+     */
+    private final class AccessUnitImpl implements AccessUnit {
+
+        /** Access unit info, refreshed each time the access unit is bound to a native frame. */
+        @NonNull
+        private final long[] mInfo;
+
+        /** Handle on the native frame. {@link SdkCoreSink.Frame#INVALID_HANDLE} when the access unit is released. */
+        @SdkCoreSink.Frame.Handle
+        private long mHandle;
+
+        /** Info upon the stream the access unit belongs to. */
+        @Nullable
+        private StreamInfoImpl mStreamInfo;
+
+        /** Buffer mapping access unit data, {@code null} if unavailable. */
+        @Nullable
+        private ByteBuffer mData;
+
+        /** Reference count. Access unit is returned to the pool when it drops to zero. */
+        private int mRefCount;
+
+        /**
+         * Constructor.
+         */
+        AccessUnitImpl() {
+            mInfo = new long[SdkCoreSink.Frame.H264_INFO_SIZE];
+            mHandle = SdkCoreSink.Frame.INVALID_HANDLE;
+        }
+
+        /**
+         * Binds this access unit to a native frame.
+         * <p>
+         * Called on the looper thread.
+         *
+         * @param handle     handle on the native frame
+         * @param streamInfo info upon the stream the access unit belongs to
+         */
+        void bind(@SdkCoreSink.Frame.Handle long handle, @NonNull StreamInfoImpl streamInfo) {
+            mStreamInfo = streamInfo;
+            mData = null;
+            if (SdkCoreSink.Frame.getH264Info(handle, mInfo)) {
+                mData = obtainData(handle, mInfo);
+            } else {
+                Arrays.fill(mInfo, 0);
+            }
+            synchronized (this) {
+                mHandle = handle;
+                mRefCount = 1;
+            }
+        }
+
+        @Override
+        public long nativePtr() {
+            return SdkCoreSink.Frame.nativePtr(checkBound());
+        }
+
+        @NonNull
+        @Override
+        public StreamInfo streamInfo() {
+            checkBound();
+            assert mStreamInfo != null;
+            return mStreamInfo;
+        }
+
+        @NonNull
+        @Override
+        public Format format() {
+            checkBound();
+            return mInfo[SdkCoreSink.Frame.H264_INFO_FORMAT] == SdkCoreSink.FRAME_FORMAT_H264_BYTE_STREAM
+                    ? Format.BYTE_STREAM : Format.AVCC;
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer data() {
+            checkBound();
+            if (mData == null) {
+                throw new IllegalStateException("Access unit data unavailable");
+            }
+            return mData;
+        }
+
+        @Override
+        public boolean isKeyFrame() {
+            return info(SdkCoreSink.Frame.H264_INFO_SYNC) != 0;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return info(SdkCoreSink.Frame.H264_INFO_COMPLETE) != 0;
+        }
+
+        @Override
+        public boolean isSilent() {
+            return info(SdkCoreSink.Frame.H264_INFO_SILENT) != 0;
+        }
+
+        @Override
+        public long ntpTimestamp() {
+            return info(SdkCoreSink.Frame.H264_INFO_NTP_TIMESTAMP);
+        }
+
+        @Override
+        public long captureTimestamp() {
+            return info(SdkCoreSink.Frame.H264_INFO_CAPTURE_TIMESTAMP);
+        }
+
+        @Override
+        public void copyTo(@NonNull ByteBuffer dest) {
+            ByteBuffer data = data();
+            int position = data.position();
+            dest.put(data);
+            data.position(position);
+        }
+
+        @NonNull
+        @Override
+        public AccessUnit retain() {
+            synchronized (this) {
+                checkBound();
+                mRefCount++;
+            }
+            return this;
+        }
+
+        @Override
+        public void release() {
+            long handle;
+            synchronized (this) {
+                handle = checkBound();
+                if (--mRefCount > 0) {
+                    return;
+                }
+                mHandle = SdkCoreSink.Frame.INVALID_HANDLE;
+            }
+            SdkCoreSink.Frame.release(handle);
+            synchronized (mAccessUnitPool) {
+                if (mAccessUnitPool.size() < mAccessUnitPoolSize) {
+                    mAccessUnitPool.push(this);
+                }
+            }
+        }
+
+        /**
+         * Retrieves some access unit info.
+         *
+         * @param index info index
+         *
+         * @return access unit info value
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        private long info(int index) {
+            checkBound();
+            return mInfo[index];
+        }
+
+        /**
+         * Ensures this access unit is bound to a native frame.
+         *
+         * @return handle on the native frame
+         *
+         * @throws IllegalStateException in case the access unit has been released
+         */
+        @SdkCoreSink.Frame.Handle
+        private synchronized long checkBound() {
+            if (mHandle == SdkCoreSink.Frame.INVALID_HANDLE) {
+                throw new IllegalStateException("Access unit released");
+            }
+            return mHandle;
+        }
+    }
+}
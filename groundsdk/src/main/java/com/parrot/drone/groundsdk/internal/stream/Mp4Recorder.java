@@ -0,0 +1,350 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.groundsdk.stream.Stream;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_STREAM;
+
+/**
+ * Records H.264 access units delivered by an {@link H264Sink} to a fragmented MP4 file, without decoding nor
+ * transcoding them.
+ * <p>
+ * The recorder writes the first H.264 session delivered by the sink, from its first key frame until the sink stops
+ * (including when the sink is closed); subsequent sessions are ignored, a new sink must be opened to record another
+ * file.
+ * <p>
+ * Each access unit is kept until the next one is received, so that its duration is known, then written straight from
+ * the sink's native buffer.
+ */
+public final class Mp4Recorder implements H264Sink.Callback {
+
+    /**
+     * Listener notified of recording events.
+     * <p>
+     * All methods are called on the sink looper thread.
+     */
+    public interface Listener {
+
+        /**
+         * Notifies that recording did start.
+         *
+         * @param file file being recorded
+         */
+        void onRecordStarted(@NonNull File file);
+
+        /**
+         * Notifies that recording did stop.
+         *
+         * @param file  recorded file
+         * @param error error that interrupted recording, {@code null} if recording stopped normally
+         */
+        void onRecordStopped(@NonNull File file, @Nullable IOException error);
+    }
+
+    /**
+     * Creates a new sink config that records the stream to a fragmented MP4 file.
+     * <p>
+     * Since the recorder writes to disk, the given looper should not be the main looper.
+     *
+     * @param file     file to record to; overwritten if it exists
+     * @param looper   looper onto which the file is written and the listener is notified
+     * @param listener listener notified of recording events
+     *
+     * @return a new sink config
+     */
+    @NonNull
+    public static Stream.Sink.Config config(@NonNull File file, @NonNull Looper looper, @NonNull Listener listener) {
+        return H264Sink.config(looper, new Mp4Recorder(file, listener, Mp4Recorder::openFile), H264Sink.Format.AVCC,
+                H264Sink.DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * Opens a file channel for recording.
+     */
+    @VisibleForTesting
+    interface ChannelFactory {
+
+        /**
+         * Opens a channel onto the given file.
+         *
+         * @param file file to open
+         *
+         * @return a new channel onto the file
+         *
+         * @throws IOException in case the file could not be opened
+         */
+        @NonNull
+        WritableByteChannel open(@NonNull File file) throws IOException;
+    }
+
+    /** Default duration of a sample whose duration cannot be computed from timestamps, in timescale units. */
+    private static final int DEFAULT_SAMPLE_DURATION = FragmentedMp4Writer.TIMESCALE / 30;
+
+    /** Recorder state. */
+    private enum State {
+
+        /** Waiting for the sink to start. */
+        IDLE,
+
+        /** Sink started; waiting for the first key frame. */
+        WAITING_KEY_FRAME,
+
+        /** Recording. */
+        RECORDING,
+
+        /** Recording done; access units are dropped. */
+        DONE
+    }
+
+    /** File to record to. */
+    @NonNull
+    private final File mFile;
+
+    /** Listener notified of recording events. */
+    @NonNull
+    private final Listener mListener;
+
+    /** Opens file channels. */
+    @NonNull
+    private final ChannelFactory mChannelFactory;
+
+    /** Current state. */
+    @NonNull
+    private State mState;
+
+    /** Channel where the file is written. {@code null} unless recording. */
+    @Nullable
+    private WritableByteChannel mChannel;
+
+    /** File writer. {@code null} unless recording. */
+    @Nullable
+    private FragmentedMp4Writer mWriter;
+
+    /** Stream info, received when the sink starts. */
+    @Nullable
+    private H264Sink.StreamInfo mStreamInfo;
+
+    /** Last received access unit, retained until the next one gives its duration. */
+    @Nullable
+    private H264Sink.AccessUnit mPending;
+
+    /** NTP timestamp of the first recorded access unit, in microseconds. */
+    private long mFirstTimestamp;
+
+    /** Duration of the last written sample, in timescale units. */
+    private int mLastDuration;
+
+    /**
+     * Constructor.
+     *
+     * @param file           file to record to
+     * @param listener       listener notified of recording events
+     * @param channelFactory opens file channels
+     */
+    @VisibleForTesting
+    Mp4Recorder(@NonNull File file, @NonNull Listener listener, @NonNull ChannelFactory channelFactory) {
+        mFile = file;
+        mListener = listener;
+        mChannelFactory = channelFactory;
+        mState = State.IDLE;
+        mLastDuration = DEFAULT_SAMPLE_DURATION;
+    }
+
+    @Override
+    public void onStart(@NonNull H264Sink sink, @NonNull H264Sink.StreamInfo streamInfo) {
+        if (mState == State.IDLE) {
+            mStreamInfo = streamInfo;
+            mState = State.WAITING_KEY_FRAME;
+        }
+    }
+
+    @Override
+    public void onAccessUnit(@NonNull H264Sink sink, @NonNull H264Sink.AccessUnit accessUnit) {
+        switch (mState) {
+            case WAITING_KEY_FRAME:
+                if (accessUnit.isKeyFrame() && startRecording()) {
+                    mFirstTimestamp = accessUnit.ntpTimestamp();
+                    mPending = accessUnit;
+                    return;
+                }
+                break;
+            case RECORDING:
+                assert mPending != null;
+                long duration = toTimescale(accessUnit.ntpTimestamp() - mPending.ntpTimestamp());
+                if (duration > 0 && duration <= Integer.MAX_VALUE) {
+                    mLastDuration = (int) duration;
+                }
+                if (writePending()) {
+                    mPending = accessUnit;
+                    return;
+                }
+                break;
+            case IDLE:
+            case DONE:
+                break;
+        }
+        accessUnit.release();
+    }
+
+    @Override
+    public void onStop(@NonNull H264Sink sink) {
+        switch (mState) {
+            case WAITING_KEY_FRAME:
+                mState = State.DONE;
+                break;
+            case RECORDING:
+                if (writePending()) {
+                    stopRecording(null);
+                }
+                break;
+            case IDLE:
+            case DONE:
+                break;
+        }
+    }
+
+    /**
+     * Opens the file and writes its header.
+     *
+     * @return {@code true} if recording could start, otherwise {@code false}, in which case recording is done
+     */
+    private boolean startRecording() {
+        assert mStreamInfo != null;
+        try {
+            mChannel = mChannelFactory.open(mFile);
+            mWriter = new FragmentedMp4Writer(mChannel);
+            mWriter.writeHeader(mStreamInfo.sps(), mStreamInfo.pps(), mStreamInfo.width(), mStreamInfo.height());
+        } catch (IOException | IllegalArgumentException e) {
+            stopRecording(e instanceof IOException ? (IOException) e : new IOException(e));
+            return false;
+        }
+        mState = State.RECORDING;
+        mListener.onRecordStarted(mFile);
+        return true;
+    }
+
+    /**
+     * Writes and releases the pending access unit.
+     *
+     * @return {@code true} if the access unit could be written, otherwise {@code false}, in which case recording is
+     *         done
+     */
+    private boolean writePending() {
+        assert mWriter != null && mPending != null;
+        H264Sink.AccessUnit accessUnit = mPending;
+        mPending = null;
+        try {
+            ByteBuffer data = accessUnit.data();
+            int position = data.position();
+            mWriter.writeSample(data, toTimescale(accessUnit.ntpTimestamp() - mFirstTimestamp), mLastDuration,
+                    accessUnit.isKeyFrame());
+            data.position(position);
+        } catch (IOException e) {
+            stopRecording(e);
+            return false;
+        } finally {
+            accessUnit.release();
+        }
+        return true;
+    }
+
+    /**
+     * Stops recording and closes the file.
+     *
+     * @param error error that interrupted recording, {@code null} if recording stopped normally
+     */
+    private void stopRecording(@Nullable IOException error) {
+        boolean started = mState == State.RECORDING;
+        mState = State.DONE;
+        mWriter = null;
+        if (mPending != null) {
+            mPending.release();
+            mPending = null;
+        }
+        if (mChannel != null) {
+            try {
+                mChannel.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            mChannel = null;
+        }
+        if (error != null) {
+            ULog.e(TAG_STREAM, "MP4 recording failed [file: " + mFile + "]", error);
+        }
+        if (started || error != null) {
+            mListener.onRecordStopped(mFile, error);
+        }
+    }
+
+    /**
+     * Converts a duration to timescale units.
+     *
+     * @param micros duration, in microseconds
+     *
+     * @return duration in timescale units
+     */
+    private static long toTimescale(long micros) {
+        return micros * FragmentedMp4Writer.TIMESCALE / 1000000;
+    }
+
+    /**
+     * Opens a channel onto a file, truncating it.
+     *
+     * @param file file to open
+     *
+     * @return a new channel onto the file
+     *
+     * @throws IOException in case the file could not be opened
+     */
+    @NonNull
+    private static WritableByteChannel openFile(@NonNull File file) throws IOException {
+        return new FileOutputStream(file).getChannel();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packetizes H.264 access units into RTP packets, as specified by RFC 6184, and writes them to a packet ring.
+ * <p>
+ * NAL units that fit in a packet are sent as single NAL unit packets, others are fragmented in FU-A packets
+ * (packetization mode 1). Sequence and picture parameter sets are sent before each key frame, so that clients may start
+ * decoding from any key frame.
+ * <p>
+ * Packet sequence numbers are the low 16 bits of packet ring indexes, so that packets skipped by a client appear as
+ * losses in its RTP sequence.
+ * <p>
+ * This class is not thread-safe; it must be used by the ring producer only.
+ */
+final class RtpH264Packetizer {
+
+    /** RTP payload type. */
+    static final int PAYLOAD_TYPE = 96;
+
+    /** RTP clock rate, in Hz. */
+    static final int CLOCK_RATE = 90000;
+
+    /** RTP header size, in bytes. */
+    static final int HEADER_SIZE = 12;
+
+    /** FU-A NAL unit type. */
+    private static final int NAL_TYPE_FU_A = 28;
+
+    /** FU-A indicator and header size, in bytes. */
+    private static final int FU_A_HEADER_SIZE = 2;
+
+    /** Ring where packets are written. */
+    @NonNull
+    private final RtpPacketRing mRing;
+
+    /** RTP synchronization source identifier. */
+    private final int mSsrc;
+
+    /**
+     * Constructor.
+     *
+     * @param ring packet ring where to write packets
+     * @param ssrc RTP synchronization source identifier
+     */
+    RtpH264Packetizer(@NonNull RtpPacketRing ring, int ssrc) {
+        mRing = ring;
+        mSsrc = ssrc;
+    }
+
+    /**
+     * Packetizes an access unit, then publishes its packets.
+     * <p>
+     * Access unit data position is left unchanged.
+     *
+     * @param data      access unit data, in AVCC format
+     * @param sps       stream Sequence Parameter Set, sent before key frames
+     * @param pps       stream Picture Parameter Set, sent before key frames
+     * @param timestamp access unit timestamp, in microseconds
+     * @param keyFrame  {@code true} if the access unit is a key frame
+     * @param writeTime time when the access unit was received, in {@link System#nanoTime()} base
+     */
+    void packetize(@NonNull ByteBuffer data, @NonNull ByteBuffer sps, @NonNull ByteBuffer pps, long timestamp,
+                   boolean keyFrame, long writeTime) {
+        int rtpTimestamp = (int) (timestamp * CLOCK_RATE / 1000000);
+        if (keyFrame) {
+            mRing.markKeyFrame();
+            writeNalUnit(sps, sps.position(), sps.remaining(), rtpTimestamp, false, writeTime);
+            writeNalUnit(pps, pps.position(), pps.remaining(), rtpTimestamp, false, writeTime);
+        }
+        int position = data.position(), limit = data.limit();
+        int offset = position;
+        while (offset + 4 <= limit) {
+            int length = data.getInt(offset);
+            offset += 4;
+            if (length <= 0 || length > limit - offset) {
+                break;
+            }
+            writeNalUnit(data, offset, length, rtpTimestamp, offset + length + 4 > limit, writeTime);
+            data.limit(limit);
+            offset += length;
+        }
+        data.limit(limit).position(position);
+        mRing.publish();
+    }
+
+    /**
+     * Writes a NAL unit, either in a single packet, or fragmented in FU-A packets.
+     * <p>
+     * {@code nal} position and limit are modified.
+     *
+     * @param nal          buffer containing the NAL unit
+     * @param offset       NAL unit offset in {@code nal}
+     * @param length       NAL unit length, in bytes
+     * @param rtpTimestamp RTP timestamp
+     * @param last         {@code true} if the NAL unit is the last one of its access unit
+     * @param writeTime    time when the NAL unit was received, in {@link System#nanoTime()} base
+     */
+    private void writeNalUnit(@NonNull ByteBuffer nal, int offset, int length, int rtpTimestamp, boolean last,
+                              long writeTime) {
+        if (length <= RtpPacketRing.MAX_PACKET_SIZE - HEADER_SIZE) {
+            ByteBuffer packet = beginPacket(last, rtpTimestamp);
+            nal.limit(offset + length).position(offset);
+            packet.put(nal);
+            mRing.endPacket(writeTime);
+            return;
+        }
+        byte header = nal.get(offset);
+        byte indicator = (byte) ((header & 0xE0) | NAL_TYPE_FU_A);
+        int type = header & 0x1F;
+        int maxChunk = RtpPacketRing.MAX_PACKET_SIZE - HEADER_SIZE - FU_A_HEADER_SIZE;
+        int end = offset + length;
+        offset++;
+        boolean start = true;
+        while (offset < end) {
+            int chunk = Math.min(maxChunk, end - offset);
+            boolean stop = offset + chunk == end;
+            ByteBuffer packet = beginPacket(last && stop, rtpTimestamp);
+            packet.put(indicator).put((byte) ((start ? 0x80 : 0) | (stop ? 0x40 : 0) | type));
+            nal.limit(offset + chunk).position(offset);
+            packet.put(nal);
+            mRing.endPacket(writeTime);
+            offset += chunk;
+            start = false;
+        }
+    }
+
+    /**
+     * Begins a packet, writing its RTP header.
+     *
+     * @param marker       RTP marker bit, set on the last packet of an access unit
+     * @param rtpTimestamp RTP timestamp
+     *
+     * @return buffer where to write the packet payload
+     */
+    @NonNull
+    private ByteBuffer beginPacket(boolean marker, int rtpTimestamp) {
+        short sequence = (short) mRing.writeIndex();
+        return mRing.beginPacket()
+                    .put((byte) 0x80)
+                    .put((byte) ((marker ? 0x80 : 0) | PAYLOAD_TYPE))
+                    .putShort(sequence)
+                    .putInt(rtpTimestamp)
+                    .putInt(mSsrc);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A ring of RTP packets, written by a single producer and read concurrently by any number of consumers.
+ * <p>
+ * Packets are written once in preallocated direct buffers; consumers send them straight from those buffers through
+ * their own {@link #newViews() views}, so that fanning out a packet to several clients does not copy it.
+ * <p>
+ * Each packet is identified by a monotonic index. Consumers neither lock nor register with the ring: the producer
+ * overwrites the eldest packets regardless of consumers, and a consumer validates, before and after sending a packet,
+ * that the packet's slot still holds the expected index. A consumer that lags too far behind must thus skip ahead,
+ * preferably to the latest {@link #lastKeyFrame() key frame}.
+ */
+final class RtpPacketRing {
+
+    /** Maximum size of a packet, in bytes, so that it fits in an ethernet frame as an UDP datagram. */
+    static final int MAX_PACKET_SIZE = 1500 - 20 - 8;
+
+    /** Slot index value while the slot is being written. */
+    private static final long WRITING = -1;
+
+    /** Packet buffers. */
+    @NonNull
+    private final ByteBuffer[] mSlots;
+
+    /** Index of the packet held by each slot, {@link #WRITING} while the slot is being written. */
+    @NonNull
+    private final AtomicLongArray mIndexes;
+
+    /** Length of the packet held by each slot, in bytes. Published by {@link #mIndexes}. */
+    @NonNull
+    private final int[] mLengths;
+
+    /** Time when the packet held by each slot was written, in {@link System#nanoTime()} base. */
+    @NonNull
+    private final long[] mWriteTimes;
+
+    /** Mask to compute a slot from a packet index. */
+    private final int mMask;
+
+    /** Monitor notified each time packets are published. */
+    @NonNull
+    private final Object mMonitor;
+
+    /** Count of published packets, that is, index of the next packet to be published. */
+    private volatile long mHead;
+
+    /** Index of the first packet of the latest published key frame, {@code -1} if none. */
+    private volatile long mLastKeyFrame;
+
+    /** {@code true} once the ring is closed. Guarded by {@link #mMonitor}. */
+    private boolean mClosed;
+
+    /** Index of the next packet to write. Only accessed by the producer. */
+    private long mWriteIndex;
+
+    /** Index of the first packet of the key frame being written, {@code -1} if none. Only accessed by the producer. */
+    private long mPendingKeyFrame;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity ring capacity, in packets; rounded up to a power of two
+     */
+    RtpPacketRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mSlots = new ByteBuffer[size];
+        ByteBuffer memory = ByteBuffer.allocateDirect(size * MAX_PACKET_SIZE);
+        for (int i = 0; i < size; i++) {
+            memory.limit((i + 1) * MAX_PACKET_SIZE).position(i * MAX_PACKET_SIZE);
+            mSlots[i] = memory.slice();
+        }
+        mIndexes = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            mIndexes.set(i, WRITING);
+        }
+        mLengths = new int[size];
+        mWriteTimes = new long[size];
+        mMask = size - 1;
+        mMonitor = new Object();
+        mLastKeyFrame = -1;
+        mPendingKeyFrame = -1;
+    }
+
+    /**
+     * Retrieves the ring capacity.
+     *
+     * @return ring capacity, in packets
+     */
+    int capacity() {
+        return mSlots.length;
+    }
+
+    //region Producer
+
+    /**
+     * Retrieves the index of the next packet to be written.
+     * <p>
+     * Only called by the producer.
+     *
+     * @return next packet index
+     */
+    long writeIndex() {
+        return mWriteIndex;
+    }
+
+    /**
+     * Marks the next written packet as the first packet of a key frame.
+     * <p>
+     * Only called by the producer. The key frame becomes visible to consumers once {@link #publish() published}.
+     */
+    void markKeyFrame() {
+        mPendingKeyFrame = mWriteIndex;
+    }
+
+    /**
+     * Begins writing the next packet.
+     * <p>
+     * Only called by the producer. The returned buffer is cleared; the packet is written from position 0, and its
+     * length is the buffer position when {@link #endPacket(long)} is called.
+     *
+     * @return buffer where to write the packet
+     */
+    @NonNull
+    ByteBuffer beginPacket() {
+        int slot = (int) (mWriteIndex & mMask);
+        mIndexes.set(slot, WRITING);
+        ByteBuffer buffer = mSlots[slot];
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Ends writing the current packet.
+     * <p>
+     * Only called by the producer.
+     *
+     * @param writeTime time when the packet data was received, in {@link System#nanoTime()} base
+     */
+    void endPacket(long writeTime) {
+        int slot = (int) (mWriteIndex & mMask);
+        mLengths[slot] = mSlots[slot].position();
+        mWriteTimes[slot] = writeTime;
+        mIndexes.set(slot, mWriteIndex++);
+    }
+
+    /**
+     * Publishes all written packets to consumers.
+     * <p>
+     * Only called by the producer, usually once per access unit.
+     */
+    void publish() {
+        if (mPendingKeyFrame >= 0) {
+            mLastKeyFrame = mPendingKeyFrame;
+            mPendingKeyFrame = -1;
+        }
+        mHead = mWriteIndex;
+        synchronized (mMonitor) {
+            mMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Closes the ring, waking up all waiting consumers.
+     */
+    void close() {
+        synchronized (mMonitor) {
+            mClosed = true;
+            mMonitor.notifyAll();
+        }
+    }
+
+    //endregion
+
+    //region Consumers
+
+    /**
+     * Retrieves the count of published packets.
+     *
+     * @return index of the next packet to be published
+     */
+    long head() {
+        return mHead;
+    }
+
+    /**
+     * Retrieves the first packet of the latest published key frame.
+     *
+     * @return index of the first packet of the latest key frame, {@code -1} if none
+     */
+    long lastKeyFrame() {
+        return mLastKeyFrame;
+    }
+
+    /**
+     * Waits until the packet at the given index is published.
+     *
+     * @param index packet index to wait for
+     *
+     * @return current head, which is greater than {@code index} unless the ring is closed
+     *
+     * @throws InterruptedException in case the calling thread is interrupted while waiting
+     */
+    long awaitPacket(long index) throws InterruptedException {
+        long head = mHead;
+        if (head > index) {
+            return head;
+        }
+        synchronized (mMonitor) {
+            while ((head = mHead) <= index && !mClosed) {
+                mMonitor.wait();
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Creates views on all ring slots, for use by one consumer.
+     *
+     * @return a new array of views, one per slot; views are indexed by {@link #slot(long) slot}
+     */
+    @NonNull
+    ByteBuffer[] newViews() {
+        ByteBuffer[] views = new ByteBuffer[mSlots.length];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = mSlots[i].asReadOnlyBuffer();
+        }
+        return views;
+    }
+
+    /**
+     * Computes the slot of a packet.
+     *
+     * @param index packet index
+     *
+     * @return packet slot
+     */
+    int slot(long index) {
+        return (int) (index & mMask);
+    }
+
+    /**
+     * Tells whether the given packet is still held by its slot.
+     *
+     * @param index packet index
+     *
+     * @return {@code true} if the packet is available, {@code false} if it was overwritten, or is not written yet
+     */
+    boolean isAvailable(long index) {
+        return mIndexes.get(slot(index)) == index;
+    }
+
+    /**
+     * Retrieves the length of a packet.
+     * <p>
+     * Returned value is only meaningful if the packet is still {@link #isAvailable(long) available} after this method
+     * returns.
+     *
+     * @param index packet index
+     *
+     * @return packet length, in bytes
+     */
+    int length(long index) {
+        return mLengths[slot(index)];
+    }
+
+    /**
+     * Retrieves the time when a packet was written.
+     * <p>
+     * Returned value is only meaningful if the packet is still {@link #isAvailable(long) available} after this method
+     * returns.
+     *
+     * @param index packet index
+     *
+     * @return packet write time, in {@link System#nanoTime()} base
+     */
+    long writeTime(long index) {
+        return mWriteTimes[slot(index)];
+    }
+
+    //endregion
+}
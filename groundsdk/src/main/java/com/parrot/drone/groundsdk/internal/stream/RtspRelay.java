@@ -0,0 +1,658 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.os.Looper;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.parrot.drone.groundsdk.stream.Stream;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_STREAM;
+
+/**
+ * Relays a video stream to local network clients over RTP/RTSP.
+ * <p>
+ * The relay is fed with H.264 access units by an {@link H264Sink}, opened on any stream, typically the drone
+ * {@code CameraLive} stream:
+ * <pre>{@code
+ * relay.start();
+ * Stream.Sink sink = cameraLive.openSink(relay.sinkConfig(looper));
+ * }</pre>
+ * Clients then play {@code rtsp://<address>:<port>/live}, using either RTP over UDP, or RTP interleaved in the
+ * RTSP TCP connection. Unless configured otherwise, the relay only listens on the device local network interface, and
+ * serves at most {@link #DEFAULT_MAX_SESSIONS} clients at a time; further connections are closed right away.
+ * <p>
+ * Clients must keep their session alive by sending any RTSP request (such as {@code GET_PARAMETER}) or interleaved
+ * RTCP packet at least once per {@link #SESSION_TIMEOUT session timeout}, which is advertised in RTSP responses. A
+ * session whose client stays silent for longer, or that blocks on writing to the client for more than
+ * {@link #WRITE_TIMEOUT}, is closed, releasing its slot.
+ * <p>
+ * Access units are packetized once in a shared {@link RtpPacketRing packet ring}, from which each client session sends
+ * packets on its own thread, without copying them. A client that cannot keep up (slow network, full TCP window) falls
+ * behind the ring head; once it lags by more than half the ring, it skips to the next key frame, instead of slowing
+ * down the other clients or the stream.
+ * <p>
+ * Per-client statistics, including packet latency and drops, are available through {@link #getClientStats()}.
+ */
+public final class RtspRelay {
+
+    /** Path of the relayed stream in RTSP URLs. */
+    public static final String PATH = "/live";
+
+    /** Default packet ring capacity, in packets; about 6 seconds of a 8 Mbit/s stream. */
+    public static final int DEFAULT_RING_CAPACITY = 4096;
+
+    /** Default maximum count of concurrent client sessions. */
+    public static final int DEFAULT_MAX_SESSIONS = 4;
+
+    /** Time after which a session is closed if the client did not send anything, in milliseconds. */
+    public static final long SESSION_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    /** Time after which a session is closed if writing to the client does not complete, in milliseconds. */
+    public static final long WRITE_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    /** Maximum period at which sessions timeouts are checked, in milliseconds. */
+    private static final long WATCHDOG_PERIOD = 1000;
+
+    /**
+     * Statistics on a relay client.
+     */
+    public static final class ClientStats {
+
+        /** Client address. */
+        @NonNull
+        private final InetSocketAddress mAddress;
+
+        /** {@code true} when RTP is interleaved in the RTSP connection, {@code false} when sent over UDP. */
+        private final boolean mInterleaved;
+
+        /** Count of packets sent. */
+        private final long mPacketsSent;
+
+        /** Count of bytes sent. */
+        private final long mBytesSent;
+
+        /** Count of packets dropped. */
+        private final long mPacketsDropped;
+
+        /** Count of times the client skipped to a key frame. */
+        private final long mResyncs;
+
+        /** Mean packet latency, in microseconds. */
+        private final long mMeanLatency;
+
+        /** Maximum packet latency, in microseconds. */
+        private final long mMaxLatency;
+
+        /**
+         * Constructor.
+         *
+         * @param address        client address
+         * @param interleaved    {@code true} for RTP interleaved in the RTSP connection
+         * @param packetsSent    count of packets sent
+         * @param bytesSent      count of bytes sent
+         * @param packetsDropped count of packets dropped
+         * @param resyncs        count of times the client skipped to a key frame
+         * @param meanLatency    mean packet latency, in microseconds
+         * @param maxLatency     maximum packet latency, in microseconds
+         */
+        ClientStats(@NonNull InetSocketAddress address, boolean interleaved, long packetsSent, long bytesSent,
+                    long packetsDropped, long resyncs, long meanLatency, long maxLatency) {
+            mAddress = address;
+            mInterleaved = interleaved;
+            mPacketsSent = packetsSent;
+            mBytesSent = bytesSent;
+            mPacketsDropped = packetsDropped;
+            mResyncs = resyncs;
+            mMeanLatency = meanLatency;
+            mMaxLatency = maxLatency;
+        }
+
+        /**
+         * Retrieves the client address.
+         *
+         * @return client RTSP connection address
+         */
+        @NonNull
+        public InetSocketAddress getAddress() {
+            return mAddress;
+        }
+
+        /**
+         * Tells whether RTP packets are interleaved in the client RTSP connection.
+         *
+         * @return {@code true} for RTP over the RTSP TCP connection, {@code false} for RTP over UDP
+         */
+        public boolean isInterleaved() {
+            return mInterleaved;
+        }
+
+        /**
+         * Retrieves the count of RTP packets sent to the client.
+         *
+         * @return sent packet count
+         */
+        public long getPacketsSent() {
+            return mPacketsSent;
+        }
+
+        /**
+         * Retrieves the count of RTP bytes sent to the client.
+         *
+         * @return sent byte count, RTP headers included
+         */
+        public long getBytesSent() {
+            return mBytesSent;
+        }
+
+        /**
+         * Retrieves the count of RTP packets that were dropped because the client could not keep up.
+         *
+         * @return dropped packet count
+         */
+        public long getPacketsDropped() {
+            return mPacketsDropped;
+        }
+
+        /**
+         * Retrieves the count of times the client, having fallen too far behind, skipped to a key frame.
+         *
+         * @return resynchronization count
+         */
+        public long getResyncs() {
+            return mResyncs;
+        }
+
+        /**
+         * Retrieves the mean latency of sent packets.
+         * <p>
+         * Packet latency is the time between the reception of the access unit by the relay and the transmission of the
+         * packet to the client.
+         *
+         * @return mean packet latency, in microseconds
+         */
+        public long getMeanLatency() {
+            return mMeanLatency;
+        }
+
+        /**
+         * Retrieves the maximum latency of sent packets.
+         *
+         * @return maximum packet latency, in microseconds
+         */
+        public long getMaxLatency() {
+            return mMaxLatency;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ClientStats{" + mAddress + (mInterleaved ? " TCP" : " UDP") + ", sent: " + mPacketsSent
+                   + " (" + mBytesSent + " bytes), dropped: " + mPacketsDropped + ", resyncs: " + mResyncs
+                   + ", latency: " + mMeanLatency + "us (max " + mMaxLatency + "us)}";
+        }
+    }
+
+    /** Local address where the relay listens for RTSP connections, {@code null} for the local network interface. */
+    @Nullable
+    private final InetAddress mBindAddress;
+
+    /** Local port where the relay listens for RTSP connections, {@code 0} for any available port. */
+    private final int mRequestedPort;
+
+    /** Maximum count of concurrent client sessions. */
+    private final int mMaxSessions;
+
+    /** Shared packet ring. */
+    @NonNull
+    private final RtpPacketRing mRing;
+
+    /** Packetizes access units to the ring. Only used on the sink looper thread. */
+    @NonNull
+    private final RtpH264Packetizer mPacketizer;
+
+    /** RTP synchronization source identifier. */
+    private final int mSsrc;
+
+    /** Active client sessions. */
+    @NonNull
+    private final Set<RtspSession> mSessions;
+
+    /** Parameter sets of the relayed stream, {@code null} until the sink starts. */
+    @Nullable
+    private volatile ParameterSets mParameterSets;
+
+    /** Buffer over the relayed stream SPS. Only used on the sink looper thread. */
+    @Nullable
+    private ByteBuffer mSps;
+
+    /** Buffer over the relayed stream PPS. Only used on the sink looper thread. */
+    @Nullable
+    private ByteBuffer mPps;
+
+    /** Server channel accepting RTSP connections, {@code null} unless started. */
+    @Nullable
+    private ServerSocketChannel mServer;
+
+    /** {@code true} once the relay is stopped. */
+    private boolean mStopped;
+
+    /** Checks sessions timeouts, {@code null} unless started. */
+    @Nullable
+    private ScheduledExecutorService mWatchdog;
+
+    /** Session timeout, in milliseconds. */
+    private long mSessionTimeout;
+
+    /** Write timeout, in milliseconds. */
+    private long mWriteTimeout;
+
+    /**
+     * Constructor.
+     *
+     * @param port local port where the relay listens for RTSP connections, {@code 0} for any available port
+     */
+    public RtspRelay(@IntRange(from = 0, to = 65535) int port) {
+        this(port, DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param port         local port where the relay listens for RTSP connections, {@code 0} for any available port
+     * @param ringCapacity packet ring capacity, in packets; bounds how long a client may lag before dropping to the
+     *                     next key frame
+     */
+    public RtspRelay(@IntRange(from = 0, to = 65535) int port, @IntRange(from = 2) int ringCapacity) {
+        this(null, port, ringCapacity, DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bindAddress  local address where the relay listens for RTSP connections, {@code null} for the address of
+     *                     the local network interface
+     * @param port         local port where the relay listens for RTSP connections, {@code 0} for any available port
+     * @param ringCapacity packet ring capacity, in packets; bounds how long a client may lag before dropping to the
+     *                     next key frame
+     * @param maxSessions  maximum count of concurrent client sessions; further connections are closed right away
+     */
+    public RtspRelay(@Nullable InetAddress bindAddress, @IntRange(from = 0, to = 65535) int port,
+                     @IntRange(from = 2) int ringCapacity, @IntRange(from = 1) int maxSessions) {
+        mBindAddress = bindAddress;
+        mRequestedPort = port;
+        mMaxSessions = maxSessions;
+        mRing = new RtpPacketRing(ringCapacity);
+        mSsrc = new SecureRandom().nextInt();
+        mPacketizer = new RtpH264Packetizer(mRing, mSsrc);
+        mSessions = new CopyOnWriteArraySet<>();
+        mSessionTimeout = SESSION_TIMEOUT;
+        mWriteTimeout = WRITE_TIMEOUT;
+    }
+
+    /**
+     * Configures session timeouts.
+     * <p>
+     * Must be called before the relay is started.
+     *
+     * @param sessionTimeout time after which a session is closed if the client did not send anything, in milliseconds
+     * @param writeTimeout   time after which a session is closed if writing to the client does not complete, in
+     *                       milliseconds
+     */
+    @VisibleForTesting
+    synchronized void setTimeouts(@IntRange(from = 1) long sessionTimeout, @IntRange(from = 1) long writeTimeout) {
+        mSessionTimeout = sessionTimeout;
+        mWriteTimeout = writeTimeout;
+    }
+
+    /**
+     * Retrieves the session timeout.
+     *
+     * @return session timeout, in milliseconds
+     */
+    synchronized long sessionTimeout() {
+        return mSessionTimeout;
+    }
+
+    /**
+     * Starts listening for RTSP connections.
+     *
+     * @throws IOException           in case the server socket could not be bound, or no bind address was configured
+     *                               and the device is not connected to any local network
+     * @throws IllegalStateException in case the relay is already started, or was stopped
+     */
+    public synchronized void start() throws IOException {
+        if (mStopped) {
+            throw new IllegalStateException("Relay stopped");
+        }
+        if (mServer != null) {
+            throw new IllegalStateException("Relay started");
+        }
+        InetAddress bindAddress = mBindAddress == null ? lanAddress() : mBindAddress;
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.socket().setReuseAddress(true);
+            server.socket().bind(new InetSocketAddress(bindAddress, mRequestedPort));
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        mServer = server;
+        Thread acceptThread = new Thread(() -> accept(server), "RtspRelay-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        long sessionTimeout = TimeUnit.MILLISECONDS.toNanos(mSessionTimeout);
+        long writeTimeout = TimeUnit.MILLISECONDS.toNanos(mWriteTimeout);
+        long period = Math.min(WATCHDOG_PERIOD, Math.max(1, Math.min(mSessionTimeout, mWriteTimeout) / 4));
+        mWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RtspRelay-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mWatchdog.scheduleWithFixedDelay(() -> checkTimeouts(sessionTimeout, writeTimeout), period, period,
+                TimeUnit.MILLISECONDS);
+        ULog.i(TAG_STREAM, "RTSP relay listening on " + bindAddress.getHostAddress() + ":" + getPort());
+    }
+
+    /**
+     * Retrieves the local address where the relay listens for RTSP connections.
+     *
+     * @return relay address, {@code null} if not started
+     */
+    @Nullable
+    public synchronized InetAddress getAddress() {
+        return mServer == null ? null : mServer.socket().getInetAddress();
+    }
+
+    /**
+     * Retrieves the local port where the relay listens for RTSP connections.
+     *
+     * @return relay port, {@code 0} if not started
+     */
+    public synchronized int getPort() {
+        return mServer == null ? 0 : mServer.socket().getLocalPort();
+    }
+
+    /**
+     * Creates a sink config that feeds the relay.
+     * <p>
+     * Only one sink should feed a given relay at a time.
+     *
+     * @param looper looper onto which access units are packetized
+     *
+     * @return a new sink config
+     */
+    @NonNull
+    public Stream.Sink.Config sinkConfig(@NonNull Looper looper) {
+        return H264Sink.config(looper, mSinkCallback, H264Sink.Format.AVCC, H264Sink.DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * Retrieves statistics on connected clients.
+     *
+     * @return a new list of client statistics, one entry per client that is playing the stream
+     */
+    @NonNull
+    public List<ClientStats> getClientStats() {
+        List<ClientStats> stats = new ArrayList<>();
+        for (RtspSession session : mSessions) {
+            ClientStats sessionStats = session.stats();
+            if (sessionStats != null) {
+                stats.add(sessionStats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Stops the relay, disconnecting all clients.
+     * <p>
+     * A stopped relay cannot be restarted.
+     */
+    public synchronized void stop() {
+        mStopped = true;
+        if (mServer != null) {
+            try {
+                mServer.close();
+            } catch (IOException e) {
+                ULog.w(TAG_STREAM, "Failed to close RTSP relay server", e);
+            }
+            mServer = null;
+        }
+        if (mWatchdog != null) {
+            mWatchdog.shutdownNow();
+            mWatchdog = null;
+        }
+        mRing.close();
+        for (RtspSession session : mSessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * Accepts RTSP connections, until the server channel is closed.
+     * <p>
+     * Called on the accept thread.
+     *
+     * @param server server channel
+     */
+    private void accept(@NonNull ServerSocketChannel server) {
+        try {
+            while (true) {
+                SocketChannel channel = server.accept();
+                if (mSessions.size() >= mMaxSessions) {
+                    ULog.w(TAG_STREAM, "RTSP relay full, rejecting client "
+                                       + channel.socket().getRemoteSocketAddress());
+                    channel.close();
+                    continue;
+                }
+                RtspSession session = new RtspSession(this, channel);
+                mSessions.add(session);
+                session.start();
+            }
+        } catch (ClosedChannelException e) {
+            // relay stopped
+        } catch (IOException e) {
+            ULog.e(TAG_STREAM, "RTSP relay stopped accepting connections", e);
+        }
+    }
+
+    /**
+     * Closes sessions that timed out.
+     * <p>
+     * Called on the watchdog thread.
+     *
+     * @param sessionTimeout session timeout, in nanoseconds
+     * @param writeTimeout   write timeout, in nanoseconds
+     */
+    private void checkTimeouts(long sessionTimeout, long writeTimeout) {
+        long now = System.nanoTime();
+        for (RtspSession session : mSessions) {
+            session.checkTimeouts(now, sessionTimeout, writeTimeout);
+        }
+    }
+
+    /**
+     * Retrieves the address of the local network interface.
+     * <p>
+     * The first site-local IPv4 address of an interface that is up is used, so that the relay is reachable from the
+     * local network only, and not from other networks (such as mobile data) the device may be connected to.
+     *
+     * @return local network interface address
+     *
+     * @throws IOException in case the device is not connected to any local network
+     */
+    @NonNull
+    private static InetAddress lanAddress() throws IOException {
+        for (NetworkInterface netInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!netInterface.isUp() || netInterface.isLoopback() || netInterface.isVirtual()) {
+                continue;
+            }
+            for (InetAddress address : Collections.list(netInterface.getInetAddresses())) {
+                if (address instanceof Inet4Address && address.isSiteLocalAddress()) {
+                    return address;
+                }
+            }
+        }
+        throw new IOException("No local network interface");
+    }
+
+    /**
+     * Retrieves the shared packet ring.
+     *
+     * @return packet ring
+     */
+    @NonNull
+    RtpPacketRing ring() {
+        return mRing;
+    }
+
+    /**
+     * Retrieves the RTP synchronization source identifier.
+     *
+     * @return RTP SSRC
+     */
+    int ssrc() {
+        return mSsrc;
+    }
+
+    /**
+     * Retrieves the parameter sets of the relayed stream.
+     *
+     * @return relayed stream parameter sets, {@code null} if the stream did not start yet
+     */
+    @Nullable
+    ParameterSets parameterSets() {
+        return mParameterSets;
+    }
+
+    /**
+     * H.264 parameter sets of the relayed stream.
+     */
+    static final class ParameterSets {
+
+        /** Sequence Parameter Set. */
+        @NonNull
+        final byte[] mSps;
+
+        /** Picture Parameter Set. */
+        @NonNull
+        final byte[] mPps;
+
+        /**
+         * Constructor.
+         *
+         * @param sps Sequence Parameter Set
+         * @param pps Picture Parameter Set
+         */
+        ParameterSets(@NonNull byte[] sps, @NonNull byte[] pps) {
+            mSps = sps;
+            mPps = pps;
+        }
+    }
+
+    /**
+     * Called back when a client session ends.
+     *
+     * @param session ended session
+     */
+    void onSessionClosed(@NonNull RtspSession session) {
+        mSessions.remove(session);
+    }
+
+    /**
+     * Retrieves the callback feeding the relay from an {@link H264Sink}.
+     *
+     * @return sink callback
+     */
+    @VisibleForTesting
+    @NonNull
+    H264Sink.Callback sinkCallback() {
+        return mSinkCallback;
+    }
+
+    /** Feeds the packet ring with access units received from the sink. */
+    private final H264Sink.Callback mSinkCallback = new H264Sink.Callback() {
+
+        @Override
+        public void onStart(@NonNull H264Sink sink, @NonNull H264Sink.StreamInfo streamInfo) {
+            ByteBuffer sps = streamInfo.sps(), pps = streamInfo.pps();
+            ParameterSets parameterSets = new ParameterSets(new byte[sps.remaining()], new byte[pps.remaining()]);
+            sps.get(parameterSets.mSps);
+            pps.get(parameterSets.mPps);
+            mSps = ByteBuffer.wrap(parameterSets.mSps);
+            mPps = ByteBuffer.wrap(parameterSets.mPps);
+            mParameterSets = parameterSets;
+        }
+
+        @Override
+        public void onAccessUnit(@NonNull H264Sink sink, @NonNull H264Sink.AccessUnit accessUnit) {
+            try {
+                if (mSps != null && mPps != null) {
+                    mPacketizer.packetize(accessUnit.data(), (ByteBuffer) mSps.clear(), (ByteBuffer) mPps.clear(),
+                            accessUnit.ntpTimestamp(), accessUnit.isKeyFrame(), System.nanoTime());
+                }
+            } finally {
+                accessUnit.release();
+            }
+        }
+
+        @Override
+        public void onStop(@NonNull H264Sink sink) {
+        }
+    };
+}
@@ -0,0 +1,809 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.stream;
+
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_STREAM;
+
+/**
+ * An RTSP client session of an {@link RtspRelay}.
+ * <p>
+ * Each session runs a control thread, that serves RTSP requests on the client connection, and, once the client plays
+ * the stream, a sender thread that sends RTP packets from the relay packet ring.
+ */
+final class RtspSession {
+
+    /** Control URL of the relayed track, relative to the stream URL. */
+    private static final String TRACK = "track0";
+
+    /** Maximum size of an RTSP request, in bytes. */
+    private static final int MAX_REQUEST_SIZE = 8192;
+
+    /** Maximum interleaved RTP channel; the following channel, reserved for RTCP, must fit in one byte. */
+    private static final int MAX_INTERLEAVED_CHANNEL = 254;
+
+    /** Maximum client RTP port; the following port, reserved for RTCP, must be a valid port. */
+    private static final int MAX_CLIENT_PORT = 65534;
+
+    /** Random generator for session identifiers. */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Relay this session belongs to. */
+    @NonNull
+    private final RtspRelay mRelay;
+
+    /** RTSP connection channel. */
+    @NonNull
+    private final SocketChannel mChannel;
+
+    /** Client address. */
+    @NonNull
+    private final InetSocketAddress mAddress;
+
+    /** Session identifier. */
+    @NonNull
+    private final String mSessionId;
+
+    /** Lock serializing writes to the RTSP connection, from the control and sender threads. */
+    @NonNull
+    private final Object mWriteLock;
+
+    /** Buffer receiving RTSP requests. Only used on the control thread. */
+    @NonNull
+    private final ByteBuffer mIn;
+
+    /** {@code true} once the transport is set up. Only used on the control thread. */
+    private boolean mSetUp;
+
+    /** {@code true} when RTP is interleaved in the RTSP connection. Set before the sender thread starts. */
+    private boolean mInterleaved;
+
+    /** Interleaved RTP channel. Set before the sender thread starts. */
+    private int mRtpChannel;
+
+    /** Channel where RTP is sent over UDP, {@code null} when interleaved or not set up. */
+    @Nullable
+    private volatile DatagramChannel mDatagram;
+
+    /** Sender thread, {@code null} until the client plays the stream. */
+    @Nullable
+    private volatile Thread mSenderThread;
+
+    /** {@code true} once the session is closed. */
+    private volatile boolean mClosed;
+
+    /** Time when data was last received from the client, in nanoseconds. */
+    private volatile long mLastReceiveTime;
+
+    /** Time when the ongoing write to the RTSP connection started, in nanoseconds. Only valid while writing. */
+    private volatile long mWriteStartTime;
+
+    /** {@code true} while writing to the RTSP connection. */
+    private volatile boolean mWriting;
+
+    /* Statistics; only written by the sender thread */
+
+    /** Count of sent packets. */
+    private volatile long mPacketsSent;
+
+    /** Count of sent bytes. */
+    private volatile long mBytesSent;
+
+    /** Count of dropped packets. */
+    private volatile long mPacketsDropped;
+
+    /** Count of skips to a key frame. */
+    private volatile long mResyncs;
+
+    /** Sum of sent packets latencies, in microseconds. */
+    private volatile long mLatencySum;
+
+    /** Maximum sent packet latency, in microseconds. */
+    private volatile long mMaxLatency;
+
+    /**
+     * Constructor.
+     *
+     * @param relay   relay this session belongs to
+     * @param channel RTSP connection channel
+     *
+     * @throws IOException in case the client address could not be obtained
+     */
+    RtspSession(@NonNull RtspRelay relay, @NonNull SocketChannel channel) throws IOException {
+        mRelay = relay;
+        mChannel = channel;
+        mAddress = (InetSocketAddress) channel.socket().getRemoteSocketAddress();
+        mSessionId = Long.toString(RANDOM.nextLong() & Long.MAX_VALUE);
+        mWriteLock = new Object();
+        mIn = ByteBuffer.allocate(MAX_REQUEST_SIZE);
+        mLastReceiveTime = System.nanoTime();
+    }
+
+    /**
+     * Starts serving the client.
+     */
+    void start() {
+        Thread controlThread = new Thread(this::control, "RtspRelay-" + mAddress);
+        controlThread.setDaemon(true);
+        controlThread.start();
+    }
+
+    /**
+     * Closes the session.
+     * <p>
+     * May be called from any thread.
+     */
+    void close() {
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+        }
+        closeQuietly(mChannel);
+        DatagramChannel datagram = mDatagram;
+        if (datagram != null) {
+            closeQuietly(datagram);
+        }
+        Thread sender = mSenderThread;
+        if (sender != null && sender != Thread.currentThread()) {
+            sender.interrupt();
+        }
+    }
+
+    /**
+     * Closes the session if the client did not send anything for too long, or if writing to the client stalls.
+     * <p>
+     * Closing the connection unblocks both control and sender threads.
+     *
+     * @param now            current time, in nanoseconds
+     * @param sessionTimeout session timeout, in nanoseconds
+     * @param writeTimeout   write timeout, in nanoseconds
+     */
+    void checkTimeouts(long now, long sessionTimeout, long writeTimeout) {
+        if (now - mLastReceiveTime > sessionTimeout) {
+            ULog.i(TAG_STREAM, "RTSP session timed out [" + mAddress + "]");
+            close();
+        } else if (mWriting && now - mWriteStartTime > writeTimeout) {
+            ULog.i(TAG_STREAM, "RTSP session stalled on write [" + mAddress + "]");
+            close();
+        }
+    }
+
+    /**
+     * Retrieves session statistics.
+     *
+     * @return session statistics, {@code null} if the client does not play the stream
+     */
+    @Nullable
+    RtspRelay.ClientStats stats() {
+        if (mSenderThread == null) {
+            return null;
+        }
+        long sent = mPacketsSent;
+        return new RtspRelay.ClientStats(mAddress, mInterleaved, sent, mBytesSent, mPacketsDropped, mResyncs,
+                sent == 0 ? 0 : mLatencySum / sent, mMaxLatency);
+    }
+
+    //region Control
+
+    /**
+     * Serves RTSP requests until the connection is closed.
+     * <p>
+     * Runs on the control thread.
+     */
+    private void control() {
+        ULog.d(TAG_STREAM, "RTSP client connected [" + mAddress + "]");
+        try {
+            Request request = readRequest();
+            while (request != null && handle(request)) {
+                request = readRequest();
+            }
+        } catch (ClosedChannelException e) {
+            // session closed
+        } catch (IOException e) {
+            ULog.w(TAG_STREAM, "RTSP session failed [" + mAddress + "]", e);
+        } finally {
+            close();
+            mRelay.onSessionClosed(this);
+            ULog.d(TAG_STREAM, "RTSP client disconnected [" + mAddress + "]");
+        }
+    }
+
+    /**
+     * Handles an RTSP request.
+     *
+     * @param request request to handle
+     *
+     * @return {@code false} if the session ends, otherwise {@code true}
+     *
+     * @throws IOException in case the response could not be sent
+     */
+    private boolean handle(@NonNull Request request) throws IOException {
+        String cseq = request.header("cseq");
+        String session = request.header("session");
+        if (session != null && !session.startsWith(mSessionId)) {
+            respond(cseq, "454 Session Not Found", "", null);
+            return true;
+        }
+        switch (request.mMethod) {
+            case "OPTIONS":
+                respond(cseq, "200 OK", "Public: OPTIONS, DESCRIBE, SETUP, PLAY, TEARDOWN, GET_PARAMETER\r\n", null);
+                break;
+            case "DESCRIBE":
+                RtspRelay.ParameterSets parameterSets = mRelay.parameterSets();
+                if (!request.mUri.contains(RtspRelay.PATH)) {
+                    respond(cseq, "404 Not Found", "", null);
+                } else if (parameterSets == null) {
+                    respond(cseq, "503 Service Unavailable", "", null);
+                } else {
+                    respond(cseq, "200 OK", "Content-Base: " + request.mUri + "/\r\nContent-Type: application/sdp\r\n",
+                            sdp(parameterSets));
+                }
+                break;
+            case "SETUP":
+                setUp(request, cseq);
+                break;
+            case "PLAY":
+                if (!mSetUp) {
+                    respond(cseq, "455 Method Not Valid in This State", "", null);
+                } else {
+                    respond(cseq, "200 OK", "Range: npt=0.000-\r\n", null);
+                    startSending();
+                }
+                break;
+            case "TEARDOWN":
+                respond(cseq, "200 OK", "", null);
+                return false;
+            case "GET_PARAMETER":
+            case "SET_PARAMETER":
+                respond(cseq, "200 OK", "", null);
+                break;
+            default:
+                respond(cseq, "501 Not Implemented", "", null);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Sets up the RTP transport.
+     *
+     * @param request SETUP request
+     * @param cseq    request sequence number
+     *
+     * @throws IOException in case the response could not be sent
+     */
+    private void setUp(@NonNull Request request, @Nullable String cseq) throws IOException {
+        String transport = request.header("transport");
+        if (mSetUp || mSenderThread != null) {
+            respond(cseq, "455 Method Not Valid in This State", "", null);
+            return;
+        }
+        if (!request.mUri.contains(RtspRelay.PATH)) {
+            respond(cseq, "404 Not Found", "", null);
+            return;
+        }
+        if (transport == null) {
+            respond(cseq, "461 Unsupported Transport", "", null);
+            return;
+        }
+        String ssrc = String.format(Locale.US, "%08X", mRelay.ssrc());
+        if (transport.contains("RTP/AVP/TCP")) {
+            int channel = firstPort(transportParameter(transport, "interleaved"), 0);
+            if (channel < 0 || channel > MAX_INTERLEAVED_CHANNEL) {
+                respond(cseq, "461 Unsupported Transport", "", null);
+                return;
+            }
+            mInterleaved = true;
+            mRtpChannel = channel;
+            mSetUp = true;
+            respond(cseq, "200 OK", "Transport: RTP/AVP/TCP;unicast;interleaved=" + channel + "-" + (channel + 1)
+                                    + ";ssrc=" + ssrc + "\r\n", null);
+            return;
+        }
+        int clientPort = firstPort(transportParameter(transport, "client_port"), -1);
+        if (clientPort < 1 || clientPort > MAX_CLIENT_PORT) {
+            respond(cseq, "461 Unsupported Transport", "", null);
+            return;
+        }
+        DatagramChannel datagram = DatagramChannel.open();
+        datagram.connect(new InetSocketAddress(mAddress.getAddress(), clientPort));
+        mDatagram = datagram;
+        if (mClosed) {
+            closeQuietly(datagram);
+            return;
+        }
+        int serverPort = datagram.socket().getLocalPort();
+        mSetUp = true;
+        respond(cseq, "200 OK", "Transport: RTP/AVP;unicast;client_port=" + clientPort + "-" + (clientPort + 1)
+                                + ";server_port=" + serverPort + "-" + (serverPort + 1) + ";ssrc=" + ssrc + "\r\n",
+                null);
+    }
+
+    /**
+     * Builds the session description of the relayed stream.
+     *
+     * @param parameterSets relayed stream parameter sets
+     *
+     * @return SDP session description
+     */
+    @NonNull
+    private String sdp(@NonNull RtspRelay.ParameterSets parameterSets) {
+        byte[] sps = parameterSets.mSps;
+        StringBuilder fmtp = new StringBuilder("packetization-mode=1");
+        if (sps.length >= 4) {
+            fmtp.append(String.format(Locale.US, ";profile-level-id=%02X%02X%02X", sps[1], sps[2], sps[3]));
+        }
+        fmtp.append(";sprop-parameter-sets=").append(Base64.encodeToString(sps, Base64.NO_WRAP))
+            .append(',').append(Base64.encodeToString(parameterSets.mPps, Base64.NO_WRAP));
+        return "v=0\r\n"
+               + "o=- " + mSessionId + " 1 IN IP4 " + mChannel.socket().getLocalAddress().getHostAddress() + "\r\n"
+               + "s=GroundSdk live stream\r\n"
+               + "c=IN IP4 0.0.0.0\r\n"
+               + "t=0 0\r\n"
+               + "a=control:*\r\n"
+               + "m=video 0 RTP/AVP " + RtpH264Packetizer.PAYLOAD_TYPE + "\r\n"
+               + "a=rtpmap:" + RtpH264Packetizer.PAYLOAD_TYPE + " H264/" + RtpH264Packetizer.CLOCK_RATE + "\r\n"
+               + "a=fmtp:" + RtpH264Packetizer.PAYLOAD_TYPE + " " + fmtp + "\r\n"
+               + "a=control:" + TRACK + "\r\n";
+    }
+
+    /**
+     * Sends an RTSP response.
+     *
+     * @param cseq    sequence number of the request being answered
+     * @param status  response status code and reason
+     * @param headers additional response headers, each terminated by CRLF
+     * @param body    response body, {@code null} if none
+     *
+     * @throws IOException in case the response could not be sent
+     */
+    private void respond(@Nullable String cseq, @NonNull String status, @NonNull String headers,
+                         @Nullable String body) throws IOException {
+        StringBuilder response = new StringBuilder("RTSP/1.0 ").append(status).append("\r\n");
+        if (cseq != null) {
+            response.append("CSeq: ").append(cseq).append("\r\n");
+        }
+        if (mSetUp) {
+            response.append("Session: ").append(mSessionId).append(";timeout=")
+                    .append(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(mRelay.sessionTimeout()))).append("\r\n");
+        }
+        response.append(headers);
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        if (content.length > 0) {
+            response.append("Content-Length: ").append(content.length).append("\r\n");
+        }
+        response.append("\r\n");
+        ByteBuffer head = ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.UTF_8));
+        ByteBuffer[] message = {head, ByteBuffer.wrap(content)};
+        synchronized (mWriteLock) {
+            beginWrite();
+            try {
+                while (message[1].hasRemaining() || head.hasRemaining()) {
+                    mChannel.write(message);
+                }
+            } finally {
+                mWriting = false;
+            }
+        }
+    }
+
+    /**
+     * Reads the next RTSP request.
+     * <p>
+     * RTCP packets interleaved by the client are skipped.
+     *
+     * @return next request, {@code null} if the connection was closed by the client
+     *
+     * @throws IOException in case reading from the connection failed, or the request is malformed
+     */
+    @Nullable
+    private Request readRequest() throws IOException {
+        while (true) {
+            mIn.flip();
+            Request request = parseRequest(mIn);
+            mIn.compact();
+            if (request != null) {
+                return request;
+            }
+            if (!mIn.hasRemaining()) {
+                throw new IOException("RTSP request too large");
+            }
+            if (mChannel.read(mIn) < 0) {
+                return null;
+            }
+            // any request or interleaved RTCP packet keeps the session alive
+            mLastReceiveTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Parses a request.
+     * <p>
+     * Interleaved binary frames are skipped. Buffer position is advanced past consumed data.
+     *
+     * @param in buffer to parse
+     *
+     * @return parsed request, {@code null} if the buffer does not contain a complete request
+     *
+     * @throws IOException in case the request is malformed
+     */
+    @Nullable
+    static Request parseRequest(@NonNull ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            int start = in.position();
+            if (in.get(start) == '$') {
+                if (in.remaining() < 4) {
+                    return null;
+                }
+                int frameEnd = start + 4 + (in.getShort(start + 2) & 0xFFFF);
+                if (frameEnd > in.limit()) {
+                    return null;
+                }
+                in.position(frameEnd);
+                continue;
+            }
+            for (int i = start; i + 3 < in.limit(); i++) {
+                if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                    byte[] head = new byte[i - start];
+                    in.get(head);
+                    Request request = Request.parse(new String(head, StandardCharsets.UTF_8));
+                    String contentLength = request.header("content-length");
+                    int length;
+                    try {
+                        length = contentLength == null ? 0 : Integer.parseInt(contentLength.trim());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid Content-Length: " + contentLength, e);
+                    }
+                    if (length < 0 || length > MAX_REQUEST_SIZE) {
+                        throw new IOException("Invalid Content-Length: " + contentLength);
+                    }
+                    int end = i + 4 + length;
+                    if (end > in.limit()) {
+                        in.position(start);
+                        return null;
+                    }
+                    in.position(end);
+                    return request;
+                }
+            }
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * An RTSP request.
+     */
+    static final class Request {
+
+        /** Request method. */
+        @NonNull
+        final String mMethod;
+
+        /** Request URI. */
+        @NonNull
+        final String mUri;
+
+        /** Request headers, by lower case name. */
+        @NonNull
+        private final Map<String, String> mHeaders;
+
+        /**
+         * Constructor.
+         *
+         * @param method  request method
+         * @param uri     request URI
+         * @param headers request headers, by lower case name
+         */
+        private Request(@NonNull String method, @NonNull String uri, @NonNull Map<String, String> headers) {
+            mMethod = method;
+            mUri = uri;
+            mHeaders = headers;
+        }
+
+        /**
+         * Retrieves a header value.
+         *
+         * @param name lower case header name
+         *
+         * @return header value, {@code null} if absent
+         */
+        @Nullable
+        String header(@NonNull String name) {
+            return mHeaders.get(name);
+        }
+
+        /**
+         * Parses a request head.
+         *
+         * @param head request line and headers, without the terminating empty line
+         *
+         * @return parsed request
+         *
+         * @throws IOException in case the request is malformed
+         */
+        @NonNull
+        static Request parse(@NonNull String head) throws IOException {
+            String[] lines = head.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length < 3 || !requestLine[2].startsWith("RTSP/")) {
+                throw new IOException("Malformed RTSP request: " + lines[0]);
+            }
+            Map<String, String> headers = new HashMap<>();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0) {
+                    headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.US),
+                            lines[i].substring(colon + 1).trim());
+                }
+            }
+            return new Request(requestLine[0], requestLine[1], headers);
+        }
+    }
+
+    /**
+     * Retrieves a transport header parameter.
+     *
+     * @param transport transport header value
+     * @param name      parameter name
+     *
+     * @return parameter value, {@code null} if absent
+     */
+    @Nullable
+    private static String transportParameter(@NonNull String transport, @NonNull String name) {
+        for (String parameter : transport.split(";")) {
+            if (parameter.startsWith(name + "=")) {
+                return parameter.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the first value of a port or channel range.
+     *
+     * @param range        range, such as {@code 5000-5001}; may be {@code null}
+     * @param defaultValue value to return if the range is absent or invalid
+     *
+     * @return first range value
+     */
+    private static int firstPort(@Nullable String range, int defaultValue) {
+        if (range == null) {
+            return defaultValue;
+        }
+        int dash = range.indexOf('-');
+        try {
+            return Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    //endregion
+
+    //region Sending
+
+    /**
+     * Starts the sender thread, unless already started.
+     */
+    private void startSending() {
+        if (mSenderThread != null) {
+            return;
+        }
+        Thread sender = new Thread(this::send, "RtspRelay-send-" + mAddress);
+        sender.setDaemon(true);
+        mSenderThread = sender;
+        if (mClosed) {
+            return;
+        }
+        sender.start();
+    }
+
+    /**
+     * Sends packets from the relay ring until the session is closed.
+     * <p>
+     * The client starts from the latest key frame if it is still recent enough, otherwise from the next one. When the
+     * client lags behind the ring head by more than half the ring, or a packet is overwritten while being sent, pending
+     * packets are dropped and the client skips to the latest key frame, if still recent enough, otherwise to the next
+     * one.
+     * <p>
+     * Runs on the sender thread.
+     */
+    private void send() {
+        RtpPacketRing ring = mRelay.ring();
+        ByteBuffer[] views = ring.newViews();
+        ByteBuffer[] frame = {ByteBuffer.allocate(4), null};
+        long maxLag = ring.capacity() / 2;
+
+        // index of the next packet to send, -1 while waiting for a key frame
+        long cursor = -1;
+        // first packet that a key frame must follow for the client to resume, while waiting for a key frame
+        long resumeFrom = ring.head();
+        // first dropped packet, -1 unless packets are being dropped
+        long dropFrom = -1;
+        long keyFrame = ring.lastKeyFrame();
+        if (keyFrame >= 0 && resumeFrom - keyFrame <= maxLag) {
+            cursor = keyFrame;
+        }
+        try {
+            while (!mClosed) {
+                if (cursor < 0) {
+                    keyFrame = ring.lastKeyFrame();
+                    if (keyFrame >= resumeFrom) {
+                        cursor = keyFrame;
+                        if (dropFrom >= 0) {
+                            mPacketsDropped += keyFrame - dropFrom;
+                            dropFrom = -1;
+                        }
+                    } else {
+                        long head = ring.head();
+                        if (ring.awaitPacket(head) <= head) {
+                            break; // ring closed
+                        }
+                    }
+                    continue;
+                }
+                long head = ring.awaitPacket(cursor);
+                if (head <= cursor) {
+                    break; // ring closed
+                }
+                if (head - cursor > maxLag || !sendPacket(ring, cursor, views, frame)) {
+                    mResyncs++;
+                    dropFrom = cursor;
+                    keyFrame = ring.lastKeyFrame();
+                    if (keyFrame > cursor && head - keyFrame <= maxLag) {
+                        cursor = keyFrame;
+                        mPacketsDropped += keyFrame - dropFrom;
+                        dropFrom = -1;
+                    } else {
+                        resumeFrom = head;
+                        cursor = -1;
+                    }
+                    continue;
+                }
+                cursor++;
+            }
+        } catch (InterruptedException | ClosedChannelException e) {
+            // session closed
+        } catch (IOException e) {
+            ULog.w(TAG_STREAM, "RTSP session failed to send [" + mAddress + "]", e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Sends a packet from the ring.
+     *
+     * @param ring  packet ring
+     * @param index index of the packet to send
+     * @param views sender views on ring slots
+     * @param frame interleaved frame header and payload buffers
+     *
+     * @return {@code true} if the packet was sent, {@code false} if it was overwritten before or while being sent
+     *
+     * @throws IOException in case sending failed
+     */
+    private boolean sendPacket(@NonNull RtpPacketRing ring, long index, @NonNull ByteBuffer[] views,
+                               @NonNull ByteBuffer[] frame) throws IOException {
+        if (!ring.isAvailable(index)) {
+            return false;
+        }
+        int length = ring.length(index);
+        long writeTime = ring.writeTime(index);
+        ByteBuffer packet = views[ring.slot(index)];
+        packet.limit(length).position(0);
+        if (mInterleaved) {
+            ByteBuffer header = frame[0];
+            header.clear();
+            header.put((byte) '$').put((byte) mRtpChannel).putShort((short) length).flip();
+            frame[1] = packet;
+            synchronized (mWriteLock) {
+                beginWrite();
+                try {
+                    while (packet.hasRemaining()) {
+                        mChannel.write(frame);
+                    }
+                } finally {
+                    mWriting = false;
+                }
+            }
+        } else {
+            DatagramChannel datagram = mDatagram;
+            assert datagram != null;
+            try {
+                datagram.write(packet);
+            } catch (PortUnreachableException e) {
+                // client not listening (yet); packet is lost, as any UDP packet may be
+            }
+        }
+        if (!ring.isAvailable(index)) {
+            return false;
+        }
+        long latency = (System.nanoTime() - writeTime) / 1000;
+        mPacketsSent++;
+        mBytesSent += length;
+        mLatencySum += latency;
+        if (latency > mMaxLatency) {
+            mMaxLatency = latency;
+        }
+        return true;
+    }
+
+    /**
+     * Marks the beginning of a write to the RTSP connection.
+     * <p>
+     * Must be called with the write lock held; {@link #mWriting} must be reset once the write completes.
+     */
+    private void beginWrite() {
+        mWriteStartTime = System.nanoTime();
+        mWriting = true;
+    }
+
+    //endregion
+
+    /**
+     * Closes a channel, ignoring errors.
+     *
+     * @param closeable channel to close
+     */
+    private static void closeQuietly(@NonNull Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -32,12 +32,17 @@
 
 package com.parrot.drone.groundsdk.internal.stream;
 
+import android.graphics.Rect;
 import android.os.Looper;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 
 import com.parrot.drone.groundsdk.stream.Stream;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 /**
  * A sink that delivers YUV frames.
  */
@@ -45,9 +50,29 @@ public interface YUVSink extends Stream.Sink {
 
     /**
      * A YUV frame.
+     * <p>
+     * Frames are pooled by the sink: once a frame is {@link #release() released}, the same instance may be used to
+     * deliver a subsequent frame. Client must thus neither keep nor access a frame (nor any buffer obtained from it)
+     * after having released it. To keep a frame beyond some consumer, the frame must be {@link #retain() retained} and
+     * then released once more; to keep frame data beyond the frame lifecycle, data must be {@link #copyTo copied}.
+     * <p>
+     * Frame accessors do not allocate, so that frames can be consumed without creating garbage.
      */
     interface Frame {
 
+        /** YUV frame format. */
+        enum Format {
+
+            /** Unknown format. Frame planes are not accessible. */
+            UNKNOWN,
+
+            /** I420 planar format: Y plane, then U plane, then V plane, with chroma planes subsampled by 2. */
+            I420,
+
+            /** NV12 semi-planar format: Y plane, then interleaved UV plane, subsampled by 2. */
+            NV12
+        }
+
         /**
          * Provides access to a frame's native backend.
          * <p>
@@ -59,6 +84,150 @@ public interface YUVSink extends Stream.Sink {
          */
         long nativePtr();
 
+        /**
+         * Retrieves frame format.
+         *
+         * @return frame format
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        @NonNull
+        Format format();
+
+        /**
+         * Retrieves frame width.
+         *
+         * @return frame width, in pixels
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        int width();
+
+        /**
+         * Retrieves frame height.
+         *
+         * @return frame height, in pixels
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        int height();
+
+        /**
+         * Retrieves frame crop rectangle.
+         * <p>
+         * The crop rectangle delimits the part of the frame that contains actual picture data.
+         *
+         * @param rect rect to fill with the crop rectangle, in pixels
+         *
+         * @return {@code rect}, to allow chained calls
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        @NonNull
+        Rect crop(@NonNull Rect rect);
+
+        /**
+         * Tells whether the frame uses full color range.
+         *
+         * @return {@code true} for full color range, {@code false} for limited range
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        boolean isFullRange();
+
+        /**
+         * Tells whether the frame is silent.
+         * <p>
+         * Silent frames carry valid data but should not be displayed.
+         *
+         * @return {@code true} if the frame is silent, otherwise {@code false}
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        boolean isSilent();
+
+        /**
+         * Retrieves the frame NTP timestamp.
+         *
+         * @return frame NTP timestamp, in microseconds
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        long ntpTimestamp();
+
+        /**
+         * Retrieves the frame capture timestamp, as recorded by the drone.
+         *
+         * @return frame capture timestamp, in microseconds, {@code 0} if unknown
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        long captureTimestamp();
+
+        /**
+         * Retrieves the frame plane count.
+         *
+         * @return plane count, {@code 0} when the format is {@link Format#UNKNOWN unknown}
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        int planeCount();
+
+        /**
+         * Gives access to a frame plane.
+         * <p>
+         * The returned buffer is a read-only, direct buffer that maps the native frame memory without any copy. Its
+         * position is 0 and its limit is the plane length when the frame is delivered. It must not be accessed anymore
+         * once the frame is released.
+         *
+         * @param index plane index, from {@code 0} to {@link #planeCount()} excluded
+         *
+         * @return plane buffer
+         *
+         * @throws IllegalStateException     in case the frame has been released
+         * @throws IndexOutOfBoundsException in case the plane index is invalid
+         */
+        @NonNull
+        ByteBuffer plane(int index);
+
+        /**
+         * Retrieves a frame plane stride.
+         *
+         * @param index plane index, from {@code 0} to {@link #planeCount()} excluded
+         *
+         * @return plane stride, in bytes
+         *
+         * @throws IllegalStateException     in case the frame has been released
+         * @throws IndexOutOfBoundsException in case the plane index is invalid
+         */
+        int stride(int index);
+
+        /**
+         * Copies all frame planes, in order, to the given buffer.
+         * <p>
+         * Planes are copied as is, including stride padding. Data is written at the buffer current position, which is
+         * advanced accordingly.
+         *
+         * @param dest buffer to copy frame data to
+         *
+         * @throws IllegalStateException   in case the frame has been released
+         * @throws BufferOverflowException in case {@code dest} has not enough remaining space
+         */
+        void copyTo(@NonNull ByteBuffer dest);
+
+        /**
+         * Retains the frame.
+         * <p>
+         * Each call to this method must be balanced by a subsequent call to {@link #release()}. The frame is returned
+         * to the sink pool once all references are released.
+         *
+         * @return {@code this}, to allow chained calls
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        @NonNull
+        Frame retain();
+
         /**
          * Releases the frame.
          *
@@ -102,6 +271,8 @@ public interface YUVSink extends Stream.Sink {
 
     /**
      * Creates a new {@code YUVSink} config.
+     * <p>
+     * Sink queue depth is 1: only the most recent frame is kept until the client gets a chance to process it.
      *
      * @param looper   looper onto which callbacks will be invoked
      * @param callback callback notified of sink events.
@@ -110,6 +281,27 @@ public interface YUVSink extends Stream.Sink {
      */
     @NonNull
     static Config config(@NonNull Looper looper, @NonNull Callback callback) {
-        return new YUVSinkCore.Config(looper, callback);
+        return config(looper, callback, 1);
+    }
+
+    /**
+     * Creates a new {@code YUVSink} config.
+     * <p>
+     * The sink queues up to {@code queueDepth} frames while the client is busy; when the queue is full, the eldest
+     * frame is dropped. A deeper queue drops less frames when the client is occasionally late, at the expense of
+     * latency.
+     *
+     * @param looper     looper onto which callbacks will be invoked
+     * @param callback   callback notified of sink events.
+     * @param queueDepth maximum count of frames queued for delivery
+     *
+     * @return a new {@code YUVSink} config.
+     */
+    @NonNull
+    static Config config(@NonNull Looper looper, @NonNull Callback callback, @IntRange(from = 1) int queueDepth) {
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("Invalid queue depth: " + queueDepth);
+        }
+        return new YUVSinkCore.Config(looper, callback, queueDepth);
     }
 }
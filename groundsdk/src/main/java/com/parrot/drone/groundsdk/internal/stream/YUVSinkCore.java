@@ -32,6 +32,7 @@
 
 package com.parrot.drone.groundsdk.internal.stream;
 
+import android.graphics.Rect;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -42,6 +43,11 @@ import com.parrot.drone.sdkcore.stream.SdkCoreMediaInfo;
 import com.parrot.drone.sdkcore.stream.SdkCoreSink;
 import com.parrot.drone.sdkcore.stream.SdkCoreStream;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
 /** Core class for YUVSink. */
 final class YUVSinkCore extends StreamCore.Sink implements YUVSink {
 
@@ -56,15 +62,20 @@ final class YUVSinkCore extends StreamCore.Sink implements YUVSink {
         @NonNull
         private final Callback mCallback;
 
+        /** Maximum count of frames queued for delivery. */
+        private final int mQueueDepth;
+
         /**
          * Constructor.
          *
-         * @param looper   looper onto which callback are dispatched
-         * @param callback callback notified of stream events
+         * @param looper     looper onto which callback are dispatched
+         * @param callback   callback notified of stream events
+         * @param queueDepth maximum count of frames queued for delivery
          */
-        Config(@NonNull Looper looper, @NonNull Callback callback) {
+        Config(@NonNull Looper looper, @NonNull Callback callback, int queueDepth) {
             mLooper = looper;
             mCallback = callback;
+            mQueueDepth = queueDepth;
         }
 
         @NonNull
@@ -90,6 +101,27 @@ final class YUVSinkCore extends StreamCore.Sink implements YUVSink {
     @NonNull
     private final SdkCoreSink mSdkCoreSink;
 
+    /** Released frames, available for delivering subsequent frames. Guarded by itself. */
+    @NonNull
+    private final Deque<FrameImpl> mFramePool;
+
+    /** Maximum count of released frames kept in pool. */
+    private final int mFramePoolSize;
+
+    /**
+     * Buffers mapping native frame data, reused across frames whose data lies at the same native address.
+     * <p>
+     * Native frame memory is recycled by the allocator at a steady frame rate, so frames mostly reuse a small set of
+     * addresses; this allows to map frame data without allocating java buffers for each frame.
+     * <p>
+     * Only accessed on the looper thread.
+     */
+    @NonNull
+    private final DataBuffers[] mDataBuffers;
+
+    /** Index of the next data buffers entry to replace when frame data is not mapped yet. */
+    private int mNextDataBuffers;
+
     /**
      * Constructor.
      *
@@ -101,8 +133,12 @@ final class YUVSinkCore extends StreamCore.Sink implements YUVSink {
         mConfig = config;
         mListenerHandler = new Handler(mConfig.mLooper);
         mSdkCoreSink = new SdkCoreSink(mConfig.mLooper, mSinkListener)
-                .setQueueSize(1)
+                .setQueueSize(mConfig.mQueueDepth)
                 .setQueueFullPolicy(SdkCoreSink.QUEUE_FULL_POLICY_DROP_ELDEST);
+        // queued frames, plus the one being processed, plus one retained by the client
+        mFramePoolSize = mConfig.mQueueDepth + 2;
+        mFramePool = new ArrayDeque<>(mFramePoolSize);
+        mDataBuffers = new DataBuffers[mFramePoolSize * 2];
     }
 
     @Override
@@ -139,35 +175,334 @@ final class YUVSinkCore extends StreamCore.Sink implements YUVSink {
 
         @Override
         public void onFrame(@SdkCoreSink.Frame.Handle long frameHandle) {
-            // TODO : reduce gc pressure.
-            // TODO   One solution is to say that Frame frame in onFrame(frame) is only valid for the duration of the
-            // TODO   callback, so we can reuse a single Frame instance. Then we should provide copy semantics for
-            // TODO   Frame and also a way to allocate 'empty' Frame(s) so that the client can implement a pool if
-            // TODO   necessary.
-            // TODO   Another solution is to pool frames ourselves directly.
-            mConfig.mCallback.onFrame(YUVSinkCore.this, new Frame() {
+            FrameImpl frame;
+            synchronized (mFramePool) {
+                frame = mFramePool.poll();
+            }
+            if (frame == null) {
+                frame = new FrameImpl();
+            }
+            frame.bind(frameHandle);
+            mConfig.mCallback.onFrame(YUVSinkCore.this, frame);
+        }
 
-                /** {@code true} when the frame has been released. */
-                private boolean mReleased;
+        @Override
+        public void onStop() {
+            mConfig.mCallback.onStop(YUVSinkCore.this);
+        }
+    };
 
-                @Override
-                public long nativePtr() {
-                    return mReleased ? 0 : SdkCoreSink.Frame.nativePtr(frameHandle);
+    /**
+     * Obtains buffers mapping some frame data.
+     * <p>
+     * Buffers are reused if the given frame data is already mapped, otherwise they are created and replace the least
+     * recently created buffers.
+     *
+     * @param frameHandle handle on the frame
+     * @param info        frame info
+     *
+     * @return buffers mapping frame data, or {@code null} if frame data could not be mapped
+     */
+    @Nullable
+    private DataBuffers obtainDataBuffers(@SdkCoreSink.Frame.Handle long frameHandle, @NonNull long[] info) {
+        long address = info[SdkCoreSink.Frame.INFO_DATA_ADDRESS];
+        long length = info[SdkCoreSink.Frame.INFO_DATA_LENGTH];
+        for (DataBuffers buffers : mDataBuffers) {
+            if (buffers != null && buffers.mAddress == address && buffers.mLength == length) {
+                buffers.layout(info);
+                return buffers;
+            }
+        }
+        ByteBuffer data = SdkCoreSink.Frame.getData(frameHandle);
+        if (data == null) {
+            return null;
+        }
+        DataBuffers buffers = new DataBuffers(address, length, data);
+        buffers.layout(info);
+        mDataBuffers[mNextDataBuffers] = buffers;
+        mNextDataBuffers = (mNextDataBuffers + 1) % mDataBuffers.length;
+        return buffers;
+    }
+
+    /**
+     * Buffers mapping some native frame data.
+     */
+    private static final class DataBuffers {
+
+        /** Frame data native address. */
+        final long mAddress;
+
+        /** Frame data length, in bytes. */
+        final long mLength;
+
+        /** Buffer mapping frame data. */
+        @NonNull
+        private final ByteBuffer mData;
+
+        /** Read-only views on each frame plane. */
+        @NonNull
+        final ByteBuffer[] mPlanes;
+
+        /** Offset and length of each plane view. */
+        @NonNull
+        private final long[] mLayout;
+
+        /**
+         * Constructor.
+         *
+         * @param address frame data native address
+         * @param length  frame data length, in bytes
+         * @param data    buffer mapping frame data
+         */
+        DataBuffers(long address, long length, @NonNull ByteBuffer data) {
+            mAddress = address;
+            mLength = length;
+            mData = data;
+            mPlanes = new ByteBuffer[3];
+            mLayout = new long[mPlanes.length * 2];
+        }
+
+        /**
+         * Lays out plane views according to frame info.
+         * <p>
+         * Existing plane views are reused when their layout did not change; in any case, each view is rewound so that
+         * it covers the whole plane.
+         *
+         * @param info frame info
+         */
+        void layout(@NonNull long[] info) {
+            int planeCount = (int) info[SdkCoreSink.Frame.INFO_PLANE_COUNT];
+            for (int i = 0; i < planeCount; i++) {
+                long offset = info[SdkCoreSink.Frame.INFO_PLANES + 3 * i];
+                long length = info[SdkCoreSink.Frame.INFO_PLANES + 3 * i + 1];
+                ByteBuffer plane = mPlanes[i];
+                if (plane == null || mLayout[2 * i] != offset || mLayout[2 * i + 1] != length) {
+                    mData.limit((int) (offset + length)).position((int) offset);
+                    plane = mData.slice().asReadOnlyBuffer();
+                    mData.clear();
+                    mPlanes[i] = plane;
+                    mLayout[2 * i] = offset;
+                    mLayout[2 * i + 1] = length;
                 }
+                plane.clear();
+            }
+        }
+    }
 
-                @Override
-                public void release() {
-                    if (!mReleased) {
-                        SdkCoreSink.Frame.release(frameHandle);
-                        mReleased = true;
-                    }
+    /**
+     * Pooled frame implementation.
+     */
+    private final class FrameImpl implements Frame {
+
+        /** Frame info, refreshed each time the frame is bound to a native frame. */
+        @NonNull
+        private final long[] mInfo;
+
+        /** Handle on the native frame. {@link SdkCoreSink.Frame#INVALID_HANDLE} when the frame is released. */
+        @SdkCoreSink.Frame.Handle
+        private long mHandle;
+
+        /** Frame format. */
+        @NonNull
+        private Format mFormat;
+
+        /** Buffers mapping frame data, {@code null} if unavailable. */
+        @Nullable
+        private DataBuffers mBuffers;
+
+        /** Reference count. Frame is returned to the pool when it drops to zero. */
+        private int mRefCount;
+
+        /**
+         * Constructor.
+         */
+        FrameImpl() {
+            mInfo = new long[SdkCoreSink.Frame.INFO_SIZE];
+            mHandle = SdkCoreSink.Frame.INVALID_HANDLE;
+            mFormat = Format.UNKNOWN;
+        }
+
+        /**
+         * Binds this frame to a native frame.
+         * <p>
+         * Called on the looper thread.
+         *
+         * @param handle handle on the native frame
+         */
+        void bind(@SdkCoreSink.Frame.Handle long handle) {
+            mBuffers = null;
+            mFormat = Format.UNKNOWN;
+            if (SdkCoreSink.Frame.getInfo(handle, mInfo)) {
+                switch ((int) mInfo[SdkCoreSink.Frame.INFO_YUV_FORMAT]) {
+                    case SdkCoreSink.Frame.YUV_FORMAT_I420:
+                        mFormat = Format.I420;
+                        break;
+                    case SdkCoreSink.Frame.YUV_FORMAT_NV12:
+                        mFormat = Format.NV12;
+                        break;
+                }
+                if (mFormat != Format.UNKNOWN) {
+                    mBuffers = obtainDataBuffers(handle, mInfo);
                 }
-            });
+            } else {
+                Arrays.fill(mInfo, 0);
+            }
+            synchronized (this) {
+                mHandle = handle;
+                mRefCount = 1;
+            }
         }
 
         @Override
-        public void onStop() {
-            mConfig.mCallback.onStop(YUVSinkCore.this);
+        public long nativePtr() {
+            return SdkCoreSink.Frame.nativePtr(checkBound());
         }
-    };
+
+        @NonNull
+        @Override
+        public Format format() {
+            checkBound();
+            return mFormat;
+        }
+
+        @Override
+        public int width() {
+            return (int) info(SdkCoreSink.Frame.INFO_WIDTH);
+        }
+
+        @Override
+        public int height() {
+            return (int) info(SdkCoreSink.Frame.INFO_HEIGHT);
+        }
+
+        @NonNull
+        @Override
+        public Rect crop(@NonNull Rect rect) {
+            int left = (int) info(SdkCoreSink.Frame.INFO_CROP_LEFT), top = (int) info(SdkCoreSink.Frame.INFO_CROP_TOP);
+            rect.set(left, top, left + (int) info(SdkCoreSink.Frame.INFO_CROP_WIDTH),
+                    top + (int) info(SdkCoreSink.Frame.INFO_CROP_HEIGHT));
+            return rect;
+        }
+
+        @Override
+        public boolean isFullRange() {
+            return info(SdkCoreSink.Frame.INFO_FULL_RANGE) != 0;
+        }
+
+        @Override
+        public boolean isSilent() {
+            return info(SdkCoreSink.Frame.INFO_SILENT) != 0;
+        }
+
+        @Override
+        public long ntpTimestamp() {
+            return info(SdkCoreSink.Frame.INFO_NTP_TIMESTAMP);
+        }
+
+        @Override
+        public long captureTimestamp() {
+            return info(SdkCoreSink.Frame.INFO_CAPTURE_TIMESTAMP);
+        }
+
+        @Override
+        public int planeCount() {
+            checkBound();
+            return mBuffers == null ? 0 : (int) mInfo[SdkCoreSink.Frame.INFO_PLANE_COUNT];
+        }
+
+        @NonNull
+        @Override
+        public ByteBuffer plane(int index) {
+            checkPlane(index);
+            assert mBuffers != null;
+            return mBuffers.mPlanes[index];
+        }
+
+        @Override
+        public int stride(int index) {
+            checkPlane(index);
+            return (int) mInfo[SdkCoreSink.Frame.INFO_PLANES + 3 * index + 2];
+        }
+
+        @Override
+        public void copyTo(@NonNull ByteBuffer dest) {
+            for (int i = 0, count = planeCount(); i < count; i++) {
+                ByteBuffer plane = plane(i);
+                int position = plane.position();
+                dest.put(plane);
+                plane.position(position);
+            }
+        }
+
+        @NonNull
+        @Override
+        public Frame retain() {
+            synchronized (this) {
+                checkBound();
+                mRefCount++;
+            }
+            return this;
+        }
+
+        @Override
+        public void release() {
+            long handle;
+            synchronized (this) {
+                handle = checkBound();
+                if (--mRefCount > 0) {
+                    return;
+                }
+                mHandle = SdkCoreSink.Frame.INVALID_HANDLE;
+            }
+            SdkCoreSink.Frame.release(handle);
+            synchronized (mFramePool) {
+                if (mFramePool.size() < mFramePoolSize) {
+                    mFramePool.push(this);
+                }
+            }
+        }
+
+        /**
+         * Retrieves some frame info.
+         *
+         * @param index info index
+         *
+         * @return frame info value
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        private long info(int index) {
+            checkBound();
+            return mInfo[index];
+        }
+
+        /**
+         * Ensures the given plane is accessible.
+         *
+         * @param index plane index
+         *
+         * @throws IllegalStateException     in case the frame has been released
+         * @throws IndexOutOfBoundsException in case the plane index is invalid
+         */
+        private void checkPlane(int index) {
+            if (index < 0 || index >= planeCount()) {
+                throw new IndexOutOfBoundsException("Invalid plane index: " + index);
+            }
+        }
+
+        /**
+         * Ensures this frame is bound to a native frame.
+         *
+         * @return handle on the native frame
+         *
+         * @throws IllegalStateException in case the frame has been released
+         */
+        @SdkCoreSink.Frame.Handle
+        private synchronized long checkBound() {
+            if (mHandle == SdkCoreSink.Frame.INVALID_HANDLE) {
+                throw new IllegalStateException("Frame released");
+            }
+            return mHandle;
+        }
+    }
 }
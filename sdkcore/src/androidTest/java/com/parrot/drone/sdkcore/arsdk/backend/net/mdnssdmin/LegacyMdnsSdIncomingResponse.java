@@ -42,9 +42,11 @@ import java.util.Locale;
 import java.util.Map;
 
 /**
- * A mdns incoming response message.
+ * Former mdns incoming response message implementation, which decodes all records to objects.
+ * <p>
+ * Kept as a reference for {@link MdnsSdDecoderBenchmark} and {@link MdnsSdResponseParserTests}.
  */
-final class MdnsSdIncomingResponse {
+final class LegacyMdnsSdIncomingResponse {
 
     /** All parsed mEntries, by record. Class of an entry value depends of its type */
     @NonNull
@@ -55,7 +57,7 @@ final class MdnsSdIncomingResponse {
      *
      * @param data udp payload received
      */
-    MdnsSdIncomingResponse(@NonNull byte[] data) {
+    LegacyMdnsSdIncomingResponse(@NonNull byte[] data) {
         mEntries = new HashMap<>();
         new Decoder(data).decode();
     }
@@ -0,0 +1,198 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares {@link MdnsSdResponseParser} and {@link LegacyMdnsSdIncomingResponse} decoding time on mdns traffic
+ * typical of a busy network, where most responses advertise services unrelated to drones.
+ */
+public class MdnsSdDecoderBenchmark {
+
+    private static final String TAG = "MdnsSdDecoderBench";
+
+    private static final String[] SERVICES = {"_arsdk-0914._udp.local.", "_arsdk-0919._udp.local."};
+
+    private static final String[] FOREIGN_SERVICES = {
+            "_googlecast._tcp.local.", "_airplay._tcp.local.", "_raop._tcp.local.", "_spotify-connect._tcp.local.",
+            "_ipp._tcp.local.", "_printer._tcp.local.", "_companion-link._tcp.local.", "_hap._tcp.local."};
+
+    /** One drone response every this many packets. */
+    private static final int DRONE_PACKET_INTERVAL = 50;
+
+    private static final int PACKET_COUNT = 10_000;
+
+    private static final int WARMUP_ITERATIONS = 3;
+
+    private static final int ITERATIONS = 10;
+
+    private static final List<byte[]> sTraffic = new ArrayList<>();
+
+    @BeforeClass
+    public static void generateTraffic() {
+        for (int i = 0; i < PACKET_COUNT; i++) {
+            if (i % DRONE_PACKET_INTERVAL == 0) {
+                sTraffic.add(response(SERVICES[0], "ANAFI-" + i, 44444,
+                        new String[] {"{\"device_id\":\"PI04" + i + "\"}"}));
+            } else {
+                String service = FOREIGN_SERVICES[i % FOREIGN_SERVICES.length];
+                sTraffic.add(response(service, "Living Room " + i, 8009,
+                        new String[] {"id=" + Integer.toHexString(i * 7919), "md=Chromecast", "ve=05",
+                                      "fn=Living Room TV", "ca=201221", "st=0", "rs="}));
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkLegacyDecoder() {
+        run("legacy", new LegacyDecoder());
+    }
+
+    @Test
+    public void benchmarkParser() {
+        run("in place", new ParserDecoder());
+    }
+
+    private interface Decoder {
+
+        /**
+         * Decodes a packet.
+         *
+         * @param packet packet to decode
+         *
+         * @return count of searched services found in the packet
+         */
+        int decode(@NonNull byte[] packet);
+    }
+
+    private static void run(@NonNull String name, @NonNull Decoder decoder) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            decodeAll(decoder);
+        }
+        long totalNanos = 0;
+        int found = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            found = decodeAll(decoder);
+            totalNanos += System.nanoTime() - start;
+        }
+        assertThat(found, is(PACKET_COUNT / DRONE_PACKET_INTERVAL));
+        Log.i(TAG, String.format(Locale.US, "%s: %.1f us per %d packets, %.0f ns per packet", name,
+                totalNanos / 1e3 / ITERATIONS, PACKET_COUNT, (double) totalNanos / ITERATIONS / PACKET_COUNT));
+    }
+
+    private static int decodeAll(@NonNull Decoder decoder) {
+        int found = 0;
+        for (byte[] packet : sTraffic) {
+            found += decoder.decode(packet);
+        }
+        return found;
+    }
+
+    /** Decodes as the former receiver did: full decode to a record map, then lookup of each searched service. */
+    private static final class LegacyDecoder implements Decoder {
+
+        @Override
+        public int decode(@NonNull byte[] packet) {
+            LegacyMdnsSdIncomingResponse response = new LegacyMdnsSdIncomingResponse(packet);
+            int found = 0;
+            for (String question : SERVICES) {
+                String ptr = response.getPtr(question);
+                if (ptr != null) {
+                    MdnsSrvData srv = response.getService(ptr);
+                    if (srv != null && response.getAddress(srv.getTarget()) != null
+                        && response.getTexts(ptr) != null) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    /** Decodes as the current receiver does: packet copied to a reused direct buffer, then parsed in place. */
+    private static final class ParserDecoder implements Decoder, MdnsSdResponseParser.Callback {
+
+        private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(1500);
+
+        private final MdnsSdResponseParser mParser = new MdnsSdResponseParser(SERVICES);
+
+        private int mFound;
+
+        @Override
+        public int decode(@NonNull byte[] packet) {
+            mBuffer.clear();
+            mBuffer.put(packet).flip();
+            mFound = 0;
+            mParser.parse(mBuffer, this);
+            return mFound;
+        }
+
+        @Override
+        public void onService(@NonNull String serviceType, @NonNull String name, @NonNull String address, int port,
+                              long ttl, @NonNull String[] txtRecords) {
+            mFound++;
+        }
+    }
+
+    /**
+     * Builds a mdns response advertising a service with PTR, SRV, TXT and A records, using name compression as
+     * responders do.
+     */
+    @NonNull
+    private static byte[] response(@NonNull String service, @NonNull String instance, int port,
+                                   @NonNull String[] txts) {
+        String name = instance + "." + service;
+        String host = instance.replace(' ', '-') + ".local.";
+        return new MdnsSdMessageBuilder()
+                .ptr(service, name, 120)
+                .srv(name, host, port, 120)
+                .txt(name, 4500, txts)
+                .a(host, "192.168.42.1", 120)
+                .build();
+    }
+}
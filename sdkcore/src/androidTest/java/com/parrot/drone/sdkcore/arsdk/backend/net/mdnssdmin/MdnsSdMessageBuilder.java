@@ -0,0 +1,239 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds mdns response messages for tests.
+ * <p>
+ * Names are compressed as responders do, unless told otherwise: each name suffix that was already written is replaced
+ * by a pointer to its first occurrence.
+ */
+final class MdnsSdMessageBuilder {
+
+    /** Message being built. */
+    @NonNull
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(0xFFFF);
+
+    /** Offset of each name suffix written so far, by name suffix. */
+    @NonNull
+    private final Map<String, Integer> mNames = new HashMap<>();
+
+    /** Message id. */
+    private int mId;
+
+    /** Count of questions. */
+    private int mQuestions;
+
+    /** Count of answers. */
+    private int mAnswers;
+
+    /** Count of additional records. */
+    private int mAdditionals;
+
+    /** {@code true} when following records are additional records. */
+    private boolean mAdditional;
+
+    /** {@code true} to compress names. */
+    private boolean mCompress = true;
+
+    /**
+     * Constructor.
+     */
+    MdnsSdMessageBuilder() {
+        mBuffer.position(12);
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder id(int id) {
+        mId = id;
+        return this;
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder compress(boolean compress) {
+        mCompress = compress;
+        return this;
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder question(@NonNull String name) {
+        writeName(name);
+        mBuffer.putShort((short) 12).putShort((short) 1);
+        mQuestions++;
+        return this;
+    }
+
+    /**
+     * Tells that following records are additional records, instead of answers.
+     *
+     * @return this builder
+     */
+    @NonNull
+    MdnsSdMessageBuilder additional() {
+        mAdditional = true;
+        return this;
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder ptr(@NonNull String name, @NonNull String target, long ttl) {
+        int data = recordHeader(name, 12, ttl);
+        writeName(target);
+        return recordEnd(data);
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder srv(@NonNull String name, @NonNull String target, int port, long ttl) {
+        int data = recordHeader(name, 33, ttl);
+        mBuffer.putShort((short) 0).putShort((short) 0).putShort((short) port);
+        writeName(target);
+        return recordEnd(data);
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder txt(@NonNull String name, long ttl, @NonNull String... txts) {
+        int data = recordHeader(name, 16, ttl);
+        for (String txt : txts) {
+            byte[] bytes = txt.getBytes(StandardCharsets.US_ASCII);
+            mBuffer.put((byte) bytes.length).put(bytes);
+        }
+        return recordEnd(data);
+    }
+
+    @NonNull
+    MdnsSdMessageBuilder a(@NonNull String name, @NonNull String address, long ttl) {
+        int data = recordHeader(name, 1, ttl);
+        for (String value : address.split("\\.")) {
+            mBuffer.put((byte) Integer.parseInt(value));
+        }
+        return recordEnd(data);
+    }
+
+    /**
+     * Adds a record of a type the parser does not index.
+     *
+     * @param name record name
+     * @param type record type
+     * @param data record data
+     *
+     * @return this builder
+     */
+    @NonNull
+    MdnsSdMessageBuilder other(@NonNull String name, int type, @NonNull byte[] data) {
+        int start = recordHeader(name, type, 120);
+        mBuffer.put(data);
+        return recordEnd(start);
+    }
+
+    @NonNull
+    byte[] build() {
+        ByteBuffer message = mBuffer.duplicate();
+        message.flip();
+        message.putShort(0, (short) mId)
+               .putShort(2, (short) 0x8400)
+               .putShort(4, (short) mQuestions)
+               .putShort(6, (short) mAnswers)
+               .putShort(8, (short) 0)
+               .putShort(10, (short) mAdditionals);
+        return Arrays.copyOf(message.array(), message.limit());
+    }
+
+    /**
+     * Writes a record header.
+     *
+     * @param name record name
+     * @param type record type
+     * @param ttl  record time to live
+     *
+     * @return offset of the record data length field
+     */
+    private int recordHeader(@NonNull String name, int type, long ttl) {
+        writeName(name);
+        mBuffer.putShort((short) type).putShort((short) 0x8001).putInt((int) ttl);
+        int dataLen = mBuffer.position();
+        mBuffer.putShort((short) 0);
+        return dataLen;
+    }
+
+    /**
+     * Completes a record, filling its data length field.
+     *
+     * @param dataLen offset of the record data length field
+     *
+     * @return this builder
+     */
+    @NonNull
+    private MdnsSdMessageBuilder recordEnd(int dataLen) {
+        mBuffer.putShort(dataLen, (short) (mBuffer.position() - dataLen - 2));
+        if (mAdditional) {
+            mAdditionals++;
+        } else {
+            mAnswers++;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a name.
+     *
+     * @param name name to write, as a full qualified domain name
+     */
+    private void writeName(@NonNull String name) {
+        String[] labels = name.split("\\.");
+        for (int i = 0; i < labels.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = i; j < labels.length; j++) {
+                sb.append(labels[j]).append('.');
+            }
+            String suffix = sb.toString();
+            Integer offset = mNames.get(suffix);
+            if (mCompress && offset != null) {
+                mBuffer.putShort((short) (0xC000 | offset));
+                return;
+            }
+            if (!mNames.containsKey(suffix)) {
+                mNames.put(suffix, mBuffer.position());
+            }
+            byte[] bytes = labels[i].getBytes(StandardCharsets.US_ASCII);
+            mBuffer.put((byte) bytes.length).put(bytes);
+        }
+        mBuffer.put((byte) 0);
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class MdnsSdResponseParserTests {
+
+    private static final String SERVICE_1 = "_arsdk-0914._udp.local.";
+
+    private static final String SERVICE_2 = "_arsdk-0919._udp.local.";
+
+    private static final String FOREIGN_SERVICE = "_googlecast._tcp.local.";
+
+    private static final String[] SERVICES = {SERVICE_1, SERVICE_2};
+
+    private final MdnsSdResponseParser mParser = new MdnsSdResponseParser(SERVICES);
+
+    @Test
+    public void testService() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120,
+                "{\"device_id\":\"PI040001\"}").build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120,
+                        "{\"device_id\":\"PI040001\"}")));
+    }
+
+    @Test
+    public void testServiceTxtRecords() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "10.0.0.255", 1, 0xFFFFFFFFL, "a=1", "", "b").build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "10.0.0.255", 1, 0xFFFFFFFFL, "a=1", "", "b")));
+    }
+
+    @Test
+    public void testServiceRemoved() {
+        byte[] message = service(SERVICE_2, "ANAFI-2", "192.168.42.1", 44444, 0).build();
+
+        List<Service> services = parse(message);
+        assertThat(services, contains(
+                new Service(SERVICE_2, "ANAFI-2." + SERVICE_2, "192.168.42.1", 44444, 0)));
+
+        // a service with a null ttl is notified as removed
+        List<String> events = new ArrayList<>();
+        MdnsSdMin.Listener listener = new MdnsSdMin.Listener() {
+
+            @Override
+            public void onServiceAdded(@NonNull String name, @NonNull String serviceType, @NonNull String ipAddress,
+                                       int port, @NonNull String[] txtRecord) {
+                events.add("added " + name + " " + serviceType);
+            }
+
+            @Override
+            public void onServiceRemoved(@NonNull String name, @NonNull String serviceType) {
+                events.add("removed " + name + " " + serviceType);
+            }
+        };
+        for (Service service : services) {
+            MdnsSdMin.notifyService(listener, service.mType, service.mName, service.mAddress, service.mPort,
+                    service.mTtl, service.mTxts);
+        }
+        MdnsSdMin.notifyService(listener, SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120,
+                new String[0]);
+
+        assertThat(events, contains("removed ANAFI-2 " + SERVICE_2, "added ANAFI-1 " + SERVICE_1));
+    }
+
+    @Test
+    public void testForeignService() {
+        byte[] message = service(FOREIGN_SERVICE, "Living Room", "192.168.1.12", 8009, 120, "md=Chromecast").build();
+
+        assertThat(parse(message), empty());
+    }
+
+    @Test
+    public void testIncompleteService() {
+        // no A record
+        MdnsSdMessageBuilder builder = new MdnsSdMessageBuilder()
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .txt("ANAFI-1." + SERVICE_1, 120, "txt");
+        assertThat(parse(builder.build()), empty());
+
+        // no TXT record
+        builder = new MdnsSdMessageBuilder()
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .a("ANAFI-1.local.", "192.168.42.1", 120);
+        assertThat(parse(builder.build()), empty());
+
+        // SRV record for another instance
+        builder = new MdnsSdMessageBuilder()
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .srv("ANAFI-2." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .txt("ANAFI-1." + SERVICE_1, 120, "txt")
+                .a("ANAFI-1.local.", "192.168.42.1", 120);
+        assertThat(parse(builder.build()), empty());
+    }
+
+    @Test
+    public void testNonZeroId() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120).id(1).build();
+
+        assertThat(parse(message), empty());
+    }
+
+    @Test
+    public void testUncompressedNames() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "txt").compress(false).build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120, "txt")));
+    }
+
+    @Test
+    public void testQuestionsAndAdditionalRecords() {
+        byte[] message = new MdnsSdMessageBuilder()
+                .question(SERVICE_1)
+                .question(FOREIGN_SERVICE)
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .additional()
+                .other("ANAFI-1.local.", 28, new byte[16])
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .txt("ANAFI-1." + SERVICE_1, 120, "txt")
+                .a("ANAFI-1.local.", "192.168.42.1", 120)
+                .build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120, "txt")));
+    }
+
+    @Test
+    public void testMultipleServices() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "one")
+                .ptr(SERVICE_2, "ANAFI-2." + SERVICE_2, 120)
+                .srv("ANAFI-2." + SERVICE_2, "ANAFI-2.local.", 44445, 120)
+                .txt("ANAFI-2." + SERVICE_2, 120, "two")
+                .a("ANAFI-2.local.", "192.168.43.1", 120)
+                .build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120, "one"),
+                new Service(SERVICE_2, "ANAFI-2." + SERVICE_2, "192.168.43.1", 44445, 120, "two")));
+    }
+
+    @Test
+    public void testLastRecordWins() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "old")
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 55555, 60)
+                .txt("ANAFI-1." + SERVICE_1, 120, "new")
+                .a("ANAFI-1.local.", "192.168.42.2", 120)
+                .build();
+
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.2", 55555, 60, "new")));
+    }
+
+    @Test
+    public void testBufferLimitAndPosition() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "txt").build();
+        // reused receive buffer, with stale data past the message
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MdnsSdMin.MAX_PACKET_SIZE);
+        buffer.put(new byte[MdnsSdMin.MAX_PACKET_SIZE]).clear();
+        buffer.put(message).flip();
+
+        List<Service> services = new ArrayList<>();
+        mParser.parse(buffer, (type, name, address, port, ttl, txts) ->
+                services.add(new Service(type, name, address, port, ttl, txts)));
+
+        assertThat(services, contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120, "txt")));
+        assertThat(buffer.position(), is(0));
+        assertThat(buffer.limit(), is(message.length));
+    }
+
+    @Test
+    public void testTruncatedMessage() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "txt").build();
+
+        // whatever the truncation, parsing fails without notifying any service
+        for (int length = 0; length < message.length; length++) {
+            assertParseFails(Arrays.copyOf(message, length), IndexOutOfBoundsException.class);
+        }
+    }
+
+    @Test
+    public void testOversizedMessage() {
+        String[] txts = new String[8];
+        Arrays.fill(txts, new String(new char[255]).replace('\0', 'x'));
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, txts).build();
+        assertThat(message.length > MdnsSdMin.MAX_PACKET_SIZE, is(true));
+
+        // complete message is parsed
+        assertThat(parse(message), contains(
+                new Service(SERVICE_1, "ANAFI-1." + SERVICE_1, "192.168.42.1", 44444, 120, txts)));
+
+        // message truncated to the receive buffer size is rejected
+        assertParseFails(Arrays.copyOf(message, MdnsSdMin.MAX_PACKET_SIZE), IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testRecordDataBeyondMessage() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "txt").build();
+        // last record is the A record; make its data length exceed the message
+        message[message.length - 6] = (byte) 0xFF;
+        message[message.length - 5] = (byte) 0xFF;
+
+        assertParseFails(message, IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testRecordCountBeyondMessage() {
+        byte[] message = service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "txt").build();
+        message[10] = (byte) 0xFF;
+        message[11] = (byte) 0xFF;
+
+        assertParseFails(message, IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testCompressionPointerLoop() {
+        // PTR record target ends with a pointer to itself
+        int target = pointerLoopPrefixLength() - 2;
+        byte[] message = pointerLoopMessage();
+        setPointer(message, target, target);
+
+        assertParseFails(message, IllegalArgumentException.class);
+
+        // PTR record target ends with a pointer to another pointer, that points back to the first one
+        message = pointerLoopMessage();
+        int other = message.length - 2;
+        setPointer(message, target, other);
+        setPointer(message, other, target);
+
+        assertParseFails(message, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testPointerOutsideMessage() {
+        byte[] message = pointerLoopMessage();
+        setPointer(message, pointerLoopPrefixLength() - 2, 0x3FFF);
+
+        assertParseFails(message, IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testLegacyEquivalence() {
+        List<byte[]> captures = new ArrayList<>();
+        captures.add(service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "{\"device_id\":\"PI04\"}").build());
+        captures.add(service(SERVICE_2, "ANAFI-2", "192.168.53.1", 44444, 0).build());
+        captures.add(service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "a", "b").compress(false).build());
+        captures.add(service(FOREIGN_SERVICE, "Living Room", "192.168.1.12", 8009, 4500, "md=Chromecast").build());
+        captures.add(service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120).id(7).build());
+        captures.add(service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "one")
+                .ptr(SERVICE_2, "ANAFI-2." + SERVICE_2, 120)
+                .srv("ANAFI-2." + SERVICE_2, "ANAFI-2.local.", 44445, 120)
+                .txt("ANAFI-2." + SERVICE_2, 120, "two")
+                .a("ANAFI-2.local.", "192.168.43.1", 120)
+                .build());
+        captures.add(service(SERVICE_1, "ANAFI-1", "192.168.42.1", 44444, 120, "old")
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 55555, 60)
+                .txt("ANAFI-1." + SERVICE_1, 120, "new")
+                .build());
+        captures.add(new MdnsSdMessageBuilder()
+                .question(SERVICE_1)
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .additional()
+                .other("ANAFI-1.local.", 28, new byte[16])
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .txt("ANAFI-1." + SERVICE_1, 120, "txt")
+                .a("ANAFI-1.local.", "192.168.42.1", 120)
+                .build());
+        captures.add(new MdnsSdMessageBuilder()
+                .ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120)
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .a("ANAFI-1.local.", "192.168.42.1", 120)
+                .build());
+
+        for (byte[] capture : captures) {
+            assertThat(parse(capture), is(legacyParse(capture)));
+        }
+    }
+
+    /**
+     * Creates a message builder with PTR, SRV, TXT and A records describing a service, in this order.
+     */
+    @NonNull
+    private static MdnsSdMessageBuilder service(@NonNull String type, @NonNull String instance,
+                                                @NonNull String address, int port, long ttl,
+                                                @NonNull String... txts) {
+        String name = instance + "." + type;
+        String host = instance.replace(' ', '-') + ".local.";
+        return new MdnsSdMessageBuilder()
+                .ptr(type, name, ttl)
+                .srv(name, host, port, ttl)
+                .txt(name, ttl, txts)
+                .a(host, address, ttl);
+    }
+
+    /**
+     * Creates a message whose PTR record target ends with a compression pointer, followed by an uncompressed SRV record
+     * for this target, so that looking up the service compares both names, and by an unindexed record whose data is a
+     * compression pointer.
+     */
+    @NonNull
+    private static byte[] pointerLoopMessage() {
+        return pointerLoopPrefix()
+                .compress(false)
+                .srv("ANAFI-1." + SERVICE_1, "ANAFI-1.local.", 44444, 120)
+                .other("x.", 99, new byte[2])
+                .build();
+    }
+
+    /**
+     * Gives the length of the {@link #pointerLoopMessage()} part that ends with the PTR record.
+     */
+    private static int pointerLoopPrefixLength() {
+        return pointerLoopPrefix().build().length;
+    }
+
+    @NonNull
+    private static MdnsSdMessageBuilder pointerLoopPrefix() {
+        return new MdnsSdMessageBuilder().ptr(SERVICE_1, "ANAFI-1." + SERVICE_1, 120);
+    }
+
+    /**
+     * Writes a name compression pointer in a message.
+     *
+     * @param message message to modify
+     * @param pos     offset to write the pointer at
+     * @param target  offset the pointer refers to
+     */
+    private static void setPointer(@NonNull byte[] message, int pos, int target) {
+        message[pos] = (byte) (0xC0 | target >> 8);
+        message[pos + 1] = (byte) target;
+    }
+
+    @NonNull
+    private List<Service> parse(@NonNull byte[] message) {
+        List<Service> services = new ArrayList<>();
+        mParser.parse(ByteBuffer.wrap(message), (type, name, address, port, ttl, txts) ->
+                services.add(new Service(type, name, address, port, ttl, txts)));
+        return services;
+    }
+
+    /** Decodes a message as the former receiver did, with the legacy decoder. */
+    @NonNull
+    private static List<Service> legacyParse(@NonNull byte[] message) {
+        LegacyMdnsSdIncomingResponse response = new LegacyMdnsSdIncomingResponse(message);
+        List<Service> services = new ArrayList<>();
+        for (String type : SERVICES) {
+            String ptr = response.getPtr(type);
+            if (ptr != null) {
+                MdnsSrvData srv = response.getService(ptr);
+                if (srv != null) {
+                    String address = response.getAddress(srv.getTarget());
+                    String[] txts = response.getTexts(ptr);
+                    if (address != null && txts != null) {
+                        services.add(new Service(type, ptr, address, srv.getPort(), srv.getTtl(), txts));
+                    }
+                }
+            }
+        }
+        return services;
+    }
+
+    private void assertParseFails(@NonNull byte[] message, @NonNull Class<? extends RuntimeException> error) {
+        List<Service> services = new ArrayList<>();
+        try {
+            mParser.parse(ByteBuffer.wrap(message), (type, name, address, port, ttl, txts) ->
+                    services.add(new Service(type, name, address, port, ttl, txts)));
+            throw new AssertionError("Parsing did not fail [length: " + message.length + "]");
+        } catch (RuntimeException e) {
+            assertThat(e.getClass().getName(), error.isInstance(e), is(true));
+        }
+        assertThat(services, is(Collections.emptyList()));
+    }
+
+    /** A service notified by a parser. */
+    private static final class Service {
+
+        @NonNull
+        final String mType;
+
+        @NonNull
+        final String mName;
+
+        @NonNull
+        final String mAddress;
+
+        final int mPort;
+
+        final long mTtl;
+
+        @NonNull
+        final String[] mTxts;
+
+        Service(@NonNull String type, @NonNull String name, @NonNull String address, int port, long ttl,
+                @NonNull String... txts) {
+            mType = type;
+            mName = name;
+            mAddress = address;
+            mPort = port;
+            mTtl = ttl;
+            mTxts = txts;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Service service = (Service) o;
+            return mPort == service.mPort && mTtl == service.mTtl && mType.equals(service.mType)
+                   && mName.equals(service.mName) && mAddress.equals(service.mAddress)
+                   && Arrays.equals(mTxts, service.mTxts);
+        }
+
+        @Override
+        public int hashCode() {
+            return mName.hashCode();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return mType + " " + mName + " " + mAddress + ":" + mPort + " ttl " + mTtl + " " + Arrays.toString(mTxts);
+        }
+    }
+}
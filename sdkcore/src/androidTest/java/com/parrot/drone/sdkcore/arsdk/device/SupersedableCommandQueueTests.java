@@ -0,0 +1,144 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureCommon;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureGimbal;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+
+public class SupersedableCommandQueueTests {
+
+    private List<Runnable> mPompQueue;
+
+    private List<ArsdkCommand> mSent;
+
+    private SupersedableCommandQueue mQueue;
+
+    @Before
+    public void setUp() {
+        mPompQueue = new ArrayList<>();
+        mSent = new ArrayList<>();
+        mQueue = new SupersedableCommandQueue(mPompQueue::add, mSent::add);
+        ArsdkCommandMetrics.get().reset();
+    }
+
+    @After
+    public void teardown() {
+        for (ArsdkCommand command : mSent) {
+            command.release();
+        }
+    }
+
+    @Test
+    public void testSend() {
+        ArsdkCommand command = ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 1, 2, 3);
+
+        mQueue.queue(command, 1);
+
+        // command is sent on pomp thread
+        assertThat(mPompQueue, hasSize(1));
+        assertThat(mSent, empty());
+
+        runPomp();
+
+        assertThat(mSent, contains(command));
+    }
+
+    @Test
+    public void testSupersede() {
+        ArsdkCommand first = ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 1, 2, 3);
+        ArsdkCommand other = ArsdkFeatureCommon.Settings.encodeAllSettings();
+        ArsdkCommand second = ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 4, 5, 6);
+        ArsdkCommand otherKey = ArsdkFeatureGimbal.encodeSetMaxSpeed(1, 7, 8, 9);
+
+        mQueue.queue(first, 1);
+        mQueue.queue(other, 2);
+        mQueue.queue(second, 1);
+        mQueue.queue(otherKey, 3);
+
+        runPomp();
+
+        // first command is dropped, second one is sent in the order it was queued
+        assertThat(mSent, contains(other, second, otherKey));
+    }
+
+    @Test
+    public void testSentCommandNotSuperseded() {
+        ArsdkCommand first = ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 1, 2, 3);
+        ArsdkCommand second = ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 4, 5, 6);
+
+        mQueue.queue(first, 1);
+        runPomp();
+        mQueue.queue(second, 1);
+        runPomp();
+
+        assertThat(mSent, contains(first, second));
+    }
+
+    @Test
+    public void testMetrics() {
+        mQueue.queue(ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 1, 2, 3), 1);
+        mQueue.queue(ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 4, 5, 6), 1);
+        mQueue.queue(ArsdkFeatureGimbal.encodeSetMaxSpeed(0, 7, 8, 9), 1);
+
+        // nothing sent yet
+        assertThat(ArsdkCommandMetrics.get().summary(0), startsWith("rx: 0, tx: 0, superseded: 2"));
+
+        runPomp();
+
+        // superseded commands are not counted as sent
+        assertThat(ArsdkCommandMetrics.get().summary(0), startsWith("rx: 0, tx: 1, superseded: 2"));
+    }
+
+    private void runPomp() {
+        List<Runnable> runnables = new ArrayList<>(mPompQueue);
+        mPompQueue.clear();
+        for (Runnable runnable : runnables) {
+            runnable.run();
+        }
+    }
+}
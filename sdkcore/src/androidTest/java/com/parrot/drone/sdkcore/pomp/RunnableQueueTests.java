@@ -0,0 +1,129 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.pomp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RunnableQueueTests {
+
+    @Test
+    public void testFifo() {
+        RunnableQueue queue = new RunnableQueue(4);
+        assertThat(queue.poll(), nullValue());
+
+        // fill ring, then overflow
+        for (int i = 0; i < 10; i++) {
+            queue.offer(new Sequenced(0, i));
+        }
+        assertThat(((Sequenced) queue.poll()).mSequence, is(0));
+        assertThat(((Sequenced) queue.poll()).mSequence, is(1));
+
+        // runnables offered while overflowing must be polled after overflowing ones, even if the ring has room
+        for (int i = 10; i < 13; i++) {
+            queue.offer(new Sequenced(0, i));
+        }
+        for (int i = 2; i < 13; i++) {
+            assertThat(((Sequenced) queue.poll()).mSequence, is(i));
+        }
+        assertThat(queue.poll(), nullValue());
+
+        // ring should be used again once overflow is drained
+        queue.offer(new Sequenced(0, 13));
+        assertThat(((Sequenced) queue.poll()).mSequence, is(13));
+        assertThat(queue.poll(), nullValue());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producerCount = 4, offerCount = 10000;
+        RunnableQueue queue = new RunnableQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < offerCount; i++) {
+                    queue.offer(new Sequenced(producer, i));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+
+        // each producer runnables must be polled exactly once, in offer order
+        int[] next = new int[producerCount];
+        int polled = 0;
+        while (polled < producerCount * offerCount) {
+            Sequenced runnable = (Sequenced) queue.poll();
+            if (runnable != null) {
+                assertThat(runnable.mSequence, is(next[runnable.mProducer]));
+                next[runnable.mProducer]++;
+                polled++;
+            }
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        assertThat(queue.poll(), nullValue());
+    }
+
+    private static final class Sequenced implements Runnable {
+
+        final int mProducer;
+
+        final int mSequence;
+
+        Sequenced(int producer, int sequence) {
+            mProducer = producer;
+            mSequence = sequence;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
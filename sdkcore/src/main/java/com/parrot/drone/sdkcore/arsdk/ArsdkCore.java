@@ -47,6 +47,7 @@ import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.PrintWriter;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.parrot.drone.sdkcore.arsdk.Logging.TAG;
 
@@ -102,6 +103,9 @@ public class ArsdkCore {
     /** True if the video decoding is enabled. */
     private final boolean mVideoDecodingEnabled;
 
+    /** Maximum time spent dispatching pomp events in one main looper message, in nanoseconds. 0 when unlimited. */
+    private final long mMainSliceBudget;
+
     /** Pomp loop. */
     @Nullable
     private PompLoop mPompLoop;
@@ -130,12 +134,30 @@ public class ArsdkCore {
     public ArsdkCore(@NonNull ArsdkBackendController[] backendControllers, @NonNull Listener listener,
                      @NonNull String controllerDescriptor, @NonNull String controllerVersion,
                      boolean videoDecodingEnabled) {
+        this(backendControllers, listener, controllerDescriptor, controllerVersion, videoDecodingEnabled, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param backendControllers   array of backend controller to use
+     * @param listener             listener notifying device added/removed
+     * @param controllerDescriptor controller descriptor formatted to be send during connection.
+     * @param controllerVersion    controller application version, formatted to be send during connection.
+     * @param videoDecodingEnabled {@code true} to enable the video decoding
+     * @param mainSliceBudget      maximum time spent dispatching pomp events in one main looper message, in
+     *                             nanoseconds, {@code 0} to dispatch all pending events at once
+     */
+    public ArsdkCore(@NonNull ArsdkBackendController[] backendControllers, @NonNull Listener listener,
+                     @NonNull String controllerDescriptor, @NonNull String controllerVersion,
+                     boolean videoDecodingEnabled, long mainSliceBudget) {
         mBackendControllers = backendControllers;
         mListener = listener;
         mControllerDescriptor = controllerDescriptor;
         mControllerVersion = controllerVersion;
         mDevices = new SparseArray<>();
         mVideoDecodingEnabled = videoDecodingEnabled;
+        mMainSliceBudget = mainSliceBudget;
         installExceptionHandler();
     }
 
@@ -144,7 +166,7 @@ public class ArsdkCore {
      */
     public void start() {
         if (mPompLoop == null) {
-            mPompLoop = PompLoop.createOnNewThread("arsdkcore-loop");
+            mPompLoop = PompLoop.createOnNewThread("arsdkcore-loop", mMainSliceBudget);
             mPompLoop.onPomp(() -> {
                 mNativePtr = nativeInit(mPompLoop.nativePtr());
                 if (mNativePtr == 0) {
@@ -319,6 +341,10 @@ public class ArsdkCore {
         } else if (args.contains("--arsdkctl") || args.contains("--all")) {
             writer.write("Arsdkctl:\n");
             writer.write("\tState: " + (mPompLoop == null ? "STOPPED" : "STARTED") + "\n");
+            if (mPompLoop != null) {
+                writer.write("\tMain dispatch: queue depth: " + mPompLoop.getMainQueueDepth() + ", max slice: "
+                             + TimeUnit.NANOSECONDS.toMicros(mPompLoop.getMainMaxSliceTime()) + "us\n");
+            }
             for (ArsdkBackendController controller : mBackendControllers) {
                 controller.dump(writer, args, "\t");
             }
@@ -39,16 +39,21 @@ import android.os.Message;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.MulticastSocket;
 import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 
 import static com.parrot.drone.sdkcore.arsdk.Logging.TAG_MDNS;
 
@@ -121,21 +126,21 @@ public final class MdnsSdMin {
     @NonNull
     private final NetConfig mNetConfig;
 
-    /** Prebuilt mdns mQuery. */
+    /** Prebuilt mdns query, encoded once. Only accessed from the query thread once started. */
     @NonNull
-    private final MdnsSdOutgoingQuery mQuery;
+    private final ByteBuffer mQuery;
 
     /** Client mListener. */
     @NonNull
     private final Listener mListener;
 
-    /** mdns multicast mSocket. */
+    /** mdns multicast channel. */
     @Nullable
-    private MulticastSocket mSocket;
+    private DatagramChannel mChannel;
 
-    /** Thread listening on the multicast mSocket and decoding received mdns packets. */
+    /** Thread listening on the multicast channel and decoding received mdns packets. */
     @Nullable
-    private Thread mReceiveThread;
+    private ReceiverThread mReceiveThread;
 
     /** Thread sending mdns queries. */
     @Nullable
@@ -157,6 +162,10 @@ public final class MdnsSdMin {
     /** mdns multicast port. */
     private static final int MDNS_MULTICAST_PORT = 5353;
 
+    /** Maximum size of a received mdns packet. */
+    @VisibleForTesting
+    static final int MAX_PACKET_SIZE = 1500;
+
     /**
      * Constructor.
      *
@@ -169,7 +178,7 @@ public final class MdnsSdMin {
         mListener = listener;
         mNetConfig = netConfig;
         // create the mQuery
-        mQuery = new MdnsSdOutgoingQuery(services);
+        mQuery = ByteBuffer.wrap(new MdnsSdOutgoingQuery(services).encode());
     }
 
     /**
@@ -179,24 +188,30 @@ public final class MdnsSdMin {
         if (ULog.d(TAG_MDNS)) {
             ULog.d(TAG_MDNS, "Starting mdnsSd");
         }
-        if (mSocket == null) {
-            // create multicast mSocket
+        if (mChannel == null) {
+            // create multicast channel
+            DatagramChannel channel = null;
             try {
-                mSocket = new MulticastSocket(MDNS_MULTICAST_PORT);
-                mSocket.setNetworkInterface(mNetConfig.mNetInterface);
-                mNetConfig.mNetwork.bindSocket(mSocket);
-                mSocket.joinGroup(
-                        new InetSocketAddress(InetAddress.getByName(MDNS_MULTICAST_ADDR), MDNS_MULTICAST_PORT),
-                        mNetConfig.mNetInterface);
-                mSocket.setTimeToLive(255);
+                channel = DatagramChannel.open(StandardProtocolFamily.INET);
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                channel.bind(new InetSocketAddress(MDNS_MULTICAST_PORT));
+                mNetConfig.mNetwork.bindSocket(channel.socket());
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, mNetConfig.mNetInterface);
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, 255);
+                channel.join(InetAddress.getByName(MDNS_MULTICAST_ADDR), mNetConfig.mNetInterface);
+                channel.configureBlocking(false);
                 // start the receiver thread
-                mReceiveThread = new ReceiverThread(mSocket);
+                mReceiveThread = new ReceiverThread(channel);
                 mReceiveThread.start();
                 // start the mQuery thread
-                mQueryThread = new QueryThread(mSocket);
+                mQueryThread = new QueryThread(channel);
                 mQueryThread.start();
+                mChannel = channel;
             } catch (IOException e) {
                 ULog.e(TAG_MDNS, "unable to start MdnsSd", e);
+                if (channel != null) {
+                    closeChannel(channel);
+                }
             }
         }
     }
@@ -208,10 +223,13 @@ public final class MdnsSdMin {
         if (ULog.d(TAG_MDNS)) {
             ULog.d(TAG_MDNS, "Stopping MdnsSd");
         }
-        if (mSocket != null) {
-            mSocket.close();
-            mSocket = null;
-            mReceiveThread = null;
+        if (mChannel != null) {
+            closeChannel(mChannel);
+            mChannel = null;
+            if (mReceiveThread != null) {
+                mReceiveThread.quit();
+                mReceiveThread = null;
+            }
             if (mQueryThread != null) {
                 mQueryThread.quit();
                 mQueryThread = null;
@@ -248,78 +266,129 @@ public final class MdnsSdMin {
         }
     }
 
+    /**
+     * Closes the given channel.
+     *
+     * @param channel channel to close
+     */
+    private static void closeChannel(@NonNull DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            ULog.w(TAG_MDNS, "Failed to close mdns channel", e);
+        }
+    }
+
     /**
      * Thread receiving mdns udp packets.
+     * <p>
+     * Waits on a selector for the channel to be readable, then drains all pending packets into a single reused direct
+     * buffer, which is parsed in place.
      */
-    private class ReceiverThread extends Thread {
+    private class ReceiverThread extends Thread implements MdnsSdResponseParser.Callback {
 
-        /** UDP mSocket. */
+        /** UDP channel. */
         @NonNull
-        private final DatagramSocket mSocket;
+        private final DatagramChannel mChannel;
+
+        /** Selector waiting for the channel to be readable. {@code null} until the thread runs. */
+        @Nullable
+        private volatile Selector mSelector;
 
         /**
          * Constructor.
          *
-         * @param socket udp mSocket (already opened) to use
+         * @param channel udp channel (already opened, non-blocking) to use
          */
-        ReceiverThread(@NonNull DatagramSocket socket) {
+        ReceiverThread(@NonNull DatagramChannel channel) {
             super("MdnsSd-receiver");
-            mSocket = socket;
+            mChannel = channel;
         }
 
-        @Override
-        public void run() {
-            byte[] buffer = new byte[1500];
-            while (!mSocket.isClosed()) {
-                try {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                    mSocket.receive(packet);
-                    MdnsSdIncomingResponse r = new MdnsSdIncomingResponse(packet.getData());
-                    handleResponse(r);
-                } catch (Throwable e) {
-                    // Catch all exceptions, to protect against bad dns packets
-                    ULog.w(TAG_MDNS, "Ignoring received packet due to " + e.getMessage());
-                }
+        /**
+         * Stops receiving.
+         * <p>
+         * Channel must be closed before calling this method.
+         */
+        void quit() {
+            Selector selector = mSelector;
+            if (selector != null) {
+                selector.wakeup();
             }
         }
 
-        /**
-         * Handled a mdns response .
-         *
-         * @param response the response message
-         */
-        private void handleResponse(@NonNull MdnsSdIncomingResponse response) {
-            // iterate expected PTRs
-            for (String question : mServices) {
-                String ptr = response.getPtr(question);
-                if (ptr != null) {
-                    // found a ptr, the corresponding service
-                    MdnsSrvData srv = response.getService(ptr);
-                    if (srv != null) {
-                        String address = response.getAddress(srv.getTarget());
-                        String[] txtRecords = response.getTexts(ptr);
-                        if ((address != null) && (txtRecords != null)) {
-                            // ptr is the full qualified name. extract device and service name
-                            int pos = -1;
-                            if (ptr.endsWith(question)) {
-                                pos = ptr.length() - question.length();
-                            }
-                            String name = ptr.substring(0, pos > 0 ? pos - 1 : ptr.length());
-                            if (srv.getTtl() > 0) {
-                                if (ULog.i(TAG_MDNS)) {
-                                    ULog.i(TAG_MDNS, "New service " + name);
-                                }
-                                mListener.onServiceAdded(name, question, address, srv.getPort(), txtRecords);
-                            } else {
-                                if (ULog.d(TAG_MDNS)) {
-                                    ULog.d(TAG_MDNS, "Service removed " + name);
-                                }
-                                mListener.onServiceRemoved(name, question);
-                            }
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+            MdnsSdResponseParser parser = new MdnsSdResponseParser(mServices);
+            try (Selector selector = Selector.open()) {
+                mSelector = selector;
+                mChannel.register(selector, SelectionKey.OP_READ);
+                while (mChannel.isOpen()) {
+                    if (selector.select() == 0) {
+                        continue;
+                    }
+                    selector.selectedKeys().clear();
+                    buffer.clear();
+                    while (mChannel.receive(buffer) != null) {
+                        buffer.flip();
+                        try {
+                            parser.parse(buffer, this);
+                        } catch (RuntimeException e) {
+                            // protect against bad dns packets
+                            ULog.w(TAG_MDNS, "Ignoring received packet due to " + e.getMessage());
                         }
+                        buffer.clear();
                     }
                 }
+            } catch (ClosedChannelException e) {
+                // channel closed by stop(), exit
+            } catch (IOException e) {
+                ULog.e(TAG_MDNS, "mdns receiver failure", e);
+            } finally {
+                mSelector = null;
+            }
+        }
+
+        @Override
+        public void onService(@NonNull String serviceType, @NonNull String name, @NonNull String address, int port,
+                              long ttl, @NonNull String[] txtRecords) {
+            notifyService(mListener, serviceType, name, address, port, ttl, txtRecords);
+        }
+    }
+
+    /**
+     * Notifies a listener of a service described in a received mdns response.
+     * <p>
+     * A service whose time to live is {@code 0} is notified as removed.
+     *
+     * @param listener    listener to notify
+     * @param serviceType service type
+     * @param name        full qualified service instance name
+     * @param address     service ip address
+     * @param port        service port
+     * @param ttl         service record time to live
+     * @param txtRecords  service additional data
+     */
+    @VisibleForTesting
+    static void notifyService(@NonNull Listener listener, @NonNull String serviceType, @NonNull String name,
+                              @NonNull String address, int port, long ttl, @NonNull String[] txtRecords) {
+        // name is the full qualified name. extract device and service name
+        int pos = -1;
+        if (name.endsWith(serviceType)) {
+            pos = name.length() - serviceType.length();
+        }
+        String shortName = name.substring(0, pos > 0 ? pos - 1 : name.length());
+        if (ttl > 0) {
+            if (ULog.i(TAG_MDNS)) {
+                ULog.i(TAG_MDNS, "New service " + shortName);
+            }
+            listener.onServiceAdded(shortName, serviceType, address, port, txtRecords);
+        } else {
+            if (ULog.d(TAG_MDNS)) {
+                ULog.d(TAG_MDNS, "Service removed " + shortName);
             }
+            listener.onServiceRemoved(shortName, serviceType);
         }
     }
 
@@ -328,24 +397,28 @@ public final class MdnsSdMin {
      */
     private class QueryThread extends HandlerThread {
 
-        /** UDP mSocket. */
+        /** UDP channel. */
         @NonNull
-        private final DatagramSocket mSocket;
+        private final DatagramChannel mChannel;
+
+        /** mdns multicast group socket address. */
+        @Nullable
+        private InetSocketAddress mGroupAddress;
 
         /**
          * Constructor.
          *
-         * @param socket udp mSocket (already opened) to use
+         * @param channel udp channel (already opened) to use
          */
-        QueryThread(@NonNull DatagramSocket socket) {
+        QueryThread(@NonNull DatagramChannel channel) {
             super("MdnsSd-mQuery");
-            mSocket = socket;
+            mChannel = channel;
         }
 
         @Override
         protected void onLooperPrepared() {
-            if (mSocket.isClosed()) {
-                // mSocket has been closed, exit the looper
+            if (!mChannel.isOpen()) {
+                // channel has been closed, exit the looper
                 getLooper().quit();
             } else {
                 mQueryHandler = new Handler(getLooper()) {
@@ -353,10 +426,12 @@ public final class MdnsSdMin {
                     @Override
                     public void handleMessage(Message msg) {
                         try {
-                            byte[] buf = mQuery.encode();
-                            DatagramPacket packet = new DatagramPacket(buf, buf.length,
-                                    InetAddress.getByName(MDNS_MULTICAST_ADDR), MDNS_MULTICAST_PORT);
-                            mSocket.send(packet);
+                            if (mGroupAddress == null) {
+                                mGroupAddress = new InetSocketAddress(InetAddress.getByName(MDNS_MULTICAST_ADDR),
+                                        MDNS_MULTICAST_PORT);
+                            }
+                            mQuery.rewind();
+                            mChannel.send(mQuery, mGroupAddress);
                         } catch (IOException e) {
                             ULog.e(TAG_MDNS, "unable to start mQuery", e);
                         }
@@ -0,0 +1,520 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decodes mdns response messages, looking for a given set of service types.
+ * <p>
+ * The message is parsed in place: resource records are only indexed by their offset in the message, and names are
+ * compared label by label directly against the received bytes. Objects are only built for the PTR, SRV, TXT and A
+ * records that describe one of the searched service types, so that unrelated mdns traffic produces no garbage.
+ * <p>
+ * A parser instance is not thread-safe and is meant to be reused for all messages received by a single thread.
+ */
+final class MdnsSdResponseParser {
+
+    /** Callback notified of services found in a parsed message. */
+    interface Callback {
+
+        /**
+         * Notifies that a message describes a searched service.
+         *
+         * @param serviceType service type, as given at parser construction
+         * @param name        full qualified service instance name
+         * @param address     service ip address
+         * @param port        service port
+         * @param ttl         service record time to live
+         * @param txtRecords  service additional data
+         */
+        void onService(@NonNull String serviceType, @NonNull String name, @NonNull String address, int port,
+                       long ttl, @NonNull String[] txtRecords);
+    }
+
+    /** A record type. */
+    private static final int TYPE_A = 1;
+
+    /** PTR record type. */
+    private static final int TYPE_PTR = 12;
+
+    /** TXT record type. */
+    private static final int TYPE_TXT = 16;
+
+    /** SRV record type. */
+    private static final int TYPE_SRV = 33;
+
+    /** DNS message header size, in bytes. */
+    private static final int HEADER_SIZE = 12;
+
+    /** Offset of the type field in a resource record, relative to the end of the record name. */
+    private static final int RECORD_TYPE_OFFSET = 0;
+
+    /** Offset of the ttl field in a resource record, relative to the end of the record name. */
+    private static final int RECORD_TTL_OFFSET = 4;
+
+    /** Offset of the data length field in a resource record, relative to the end of the record name. */
+    private static final int RECORD_DATA_LEN_OFFSET = 8;
+
+    /** Offset of the data in a resource record, relative to the end of the record name. */
+    private static final int RECORD_DATA_OFFSET = 10;
+
+    /** Offset of the port field in SRV record data. */
+    private static final int SRV_PORT_OFFSET = 4;
+
+    /** Offset of the target name in SRV record data. */
+    private static final int SRV_TARGET_OFFSET = 6;
+
+    /** Initial capacity of the record index. */
+    private static final int INITIAL_RECORD_CAPACITY = 32;
+
+    /** Searched service types. */
+    @NonNull
+    private final String[] mServices;
+
+    /** Searched service types, encoded as DNS labels, without the terminating root label. */
+    @NonNull
+    private final byte[][] mEncodedServices;
+
+    /** Message being parsed. */
+    private ByteBuffer mMessage;
+
+    /** Offset of each indexed record name in the message. */
+    private int[] mRecordNames;
+
+    /** Type of each indexed record. */
+    private int[] mRecordTypes;
+
+    /** Offset of each indexed record data in the message. */
+    private int[] mRecordData;
+
+    /** Data length of each indexed record. */
+    private int[] mRecordDataLengths;
+
+    /** Count of indexed records in the message being parsed. */
+    private int mRecordCount;
+
+    /**
+     * Constructor.
+     *
+     * @param services service types to look for, as full qualified domain names (e.g. {@code _svc._udp.local.})
+     */
+    MdnsSdResponseParser(@NonNull String[] services) {
+        mServices = services;
+        mEncodedServices = new byte[services.length][];
+        for (int i = 0; i < services.length; i++) {
+            mEncodedServices[i] = encodeName(services[i]);
+        }
+        mRecordNames = new int[INITIAL_RECORD_CAPACITY];
+        mRecordTypes = new int[INITIAL_RECORD_CAPACITY];
+        mRecordData = new int[INITIAL_RECORD_CAPACITY];
+        mRecordDataLengths = new int[INITIAL_RECORD_CAPACITY];
+    }
+
+    /**
+     * Parses a mdns message.
+     * <p>
+     * The message is read from the buffer start up to its limit; buffer position is not modified.
+     *
+     * @param message  buffer containing the message to parse
+     * @param callback callback notified of each searched service the message describes
+     *
+     * @throws IndexOutOfBoundsException in case the message is truncated
+     * @throws IllegalArgumentException  in case the message is malformed
+     */
+    void parse(@NonNull ByteBuffer message, @NonNull Callback callback) {
+        mMessage = message;
+        mRecordCount = 0;
+        try {
+            if (indexRecords()) {
+                for (int i = 0; i < mServices.length; i++) {
+                    lookupService(i, callback);
+                }
+            }
+        } finally {
+            mMessage = null;
+        }
+    }
+
+    /**
+     * Indexes all A, PTR, TXT and SRV resource records in the message.
+     *
+     * @return {@code false} if the message is not a valid mdns response, otherwise {@code true}
+     */
+    private boolean indexRecords() {
+        int id = readU16(0);
+        int questionsCnt = readU16(4);
+        int recordsCnt = readU16(6) + readU16(8) + readU16(10);
+        if (id != 0) {
+            return false;
+        }
+        int pos = HEADER_SIZE;
+        // skip questions: name, type, class
+        for (int cnt = 0; cnt < questionsCnt; cnt++) {
+            pos = skipName(pos) + 4;
+        }
+        // index answers, authorities and additional records
+        for (int cnt = 0; cnt < recordsCnt; cnt++) {
+            int name = pos;
+            pos = skipName(pos);
+            int type = readU16(pos + RECORD_TYPE_OFFSET);
+            int dataLen = readU16(pos + RECORD_DATA_LEN_OFFSET);
+            int data = pos + RECORD_DATA_OFFSET;
+            if (data + dataLen > mMessage.limit()) {
+                throw new IndexOutOfBoundsException("Record data exceeds message end at " + pos);
+            }
+            if (type == TYPE_A || type == TYPE_PTR || type == TYPE_TXT || type == TYPE_SRV) {
+                addRecord(name, type, data, dataLen);
+            }
+            pos = data + dataLen;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a record to the index.
+     *
+     * @param name    record name offset
+     * @param type    record type
+     * @param data    record data offset
+     * @param dataLen record data length
+     */
+    private void addRecord(int name, int type, int data, int dataLen) {
+        if (mRecordCount == mRecordNames.length) {
+            int capacity = mRecordCount * 2;
+            mRecordNames = Arrays.copyOf(mRecordNames, capacity);
+            mRecordTypes = Arrays.copyOf(mRecordTypes, capacity);
+            mRecordData = Arrays.copyOf(mRecordData, capacity);
+            mRecordDataLengths = Arrays.copyOf(mRecordDataLengths, capacity);
+        }
+        mRecordNames[mRecordCount] = name;
+        mRecordTypes[mRecordCount] = type;
+        mRecordData[mRecordCount] = data;
+        mRecordDataLengths[mRecordCount] = dataLen;
+        mRecordCount++;
+    }
+
+    /**
+     * Looks up the message records describing a searched service, and notifies the callback if all required records
+     * are found.
+     * <p>
+     * As for a DNS cache, when several records share the same name and type, the last one wins.
+     *
+     * @param serviceIndex index of the searched service
+     * @param callback     callback to notify
+     */
+    private void lookupService(int serviceIndex, @NonNull Callback callback) {
+        byte[] service = mEncodedServices[serviceIndex];
+        int ptr = -1;
+        for (int i = mRecordCount - 1; i >= 0 && ptr == -1; i--) {
+            if (mRecordTypes[i] == TYPE_PTR && nameEquals(mRecordNames[i], service)) {
+                ptr = i;
+            }
+        }
+        if (ptr == -1) {
+            return;
+        }
+        int instance = mRecordData[ptr];
+        int srv = findRecord(TYPE_SRV, instance);
+        if (srv == -1) {
+            return;
+        }
+        int srvData = mRecordData[srv];
+        int a = findRecord(TYPE_A, srvData + SRV_TARGET_OFFSET);
+        int txt = findRecord(TYPE_TXT, instance);
+        if (a == -1 || mRecordDataLengths[a] != 4 || txt == -1) {
+            return;
+        }
+        String[] txtRecords = readStrings(mRecordData[txt], mRecordDataLengths[txt]);
+        callback.onService(mServices[serviceIndex], readName(instance), readAddress(mRecordData[a]),
+                readU16(srvData + SRV_PORT_OFFSET), readTtl(srv), txtRecords);
+    }
+
+    /**
+     * Finds the last record of a given type whose name equals the name at the given offset.
+     *
+     * @param type record type
+     * @param name offset of the name to look for
+     *
+     * @return index of the found record, or {@code -1}
+     */
+    private int findRecord(int type, int name) {
+        for (int i = mRecordCount - 1; i >= 0; i--) {
+            if (mRecordTypes[i] == type && nameEquals(mRecordNames[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the ttl of an indexed record.
+     *
+     * @param record record index
+     *
+     * @return record time to live
+     */
+    private long readTtl(int record) {
+        int ttl = mRecordData[record] - RECORD_DATA_OFFSET + RECORD_TTL_OFFSET;
+        return ((long) readU16(ttl) << 16) | readU16(ttl + 2);
+    }
+
+    /**
+     * Tells whether the name at the given offset in the message equals the given encoded name.
+     *
+     * @param pos     name offset in the message
+     * @param encoded encoded name, without the terminating root label
+     *
+     * @return {@code true} if both names are equal, otherwise {@code false}
+     */
+    private boolean nameEquals(int pos, @NonNull byte[] encoded) {
+        int jumps = 0;
+        int i = 0;
+        while (true) {
+            int len = readU8(pos);
+            if ((len & 0xC0) != 0) {
+                pos = followPointer(pos, ++jumps);
+                continue;
+            }
+            if (i == encoded.length) {
+                return len == 0;
+            }
+            if (len != encoded[i]) {
+                return false;
+            }
+            for (int cnt = 1; cnt <= len; cnt++) {
+                if (mMessage.get(pos + cnt) != encoded[i + cnt]) {
+                    return false;
+                }
+            }
+            pos += len + 1;
+            i += len + 1;
+        }
+    }
+
+    /**
+     * Tells whether the names at the given offsets in the message are equal.
+     *
+     * @param lhs first name offset
+     * @param rhs second name offset
+     *
+     * @return {@code true} if both names are equal, otherwise {@code false}
+     */
+    private boolean nameEquals(int lhs, int rhs) {
+        int jumps = 0;
+        while (true) {
+            int lhsLen = readU8(lhs);
+            if ((lhsLen & 0xC0) != 0) {
+                lhs = followPointer(lhs, ++jumps);
+                continue;
+            }
+            int rhsLen = readU8(rhs);
+            if ((rhsLen & 0xC0) != 0) {
+                rhs = followPointer(rhs, ++jumps);
+                continue;
+            }
+            if (lhs == rhs) {
+                return true;
+            }
+            if (lhsLen != rhsLen) {
+                return false;
+            }
+            if (lhsLen == 0) {
+                return true;
+            }
+            for (int cnt = 1; cnt <= lhsLen; cnt++) {
+                if (mMessage.get(lhs + cnt) != mMessage.get(rhs + cnt)) {
+                    return false;
+                }
+            }
+            lhs += lhsLen + 1;
+            rhs += rhsLen + 1;
+        }
+    }
+
+    /**
+     * Skips a name.
+     *
+     * @param pos name offset
+     *
+     * @return offset of the first byte following the name
+     */
+    private int skipName(int pos) {
+        int len = readU8(pos);
+        while (len != 0) {
+            if ((len & 0xC0) != 0) {
+                // compression pointer ends the name
+                return pos + 2;
+            }
+            pos += len + 1;
+            len = readU8(pos);
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Follows a name compression pointer.
+     *
+     * @param pos   pointer offset
+     * @param jumps count of pointers followed so far for the current name
+     *
+     * @return offset the pointer refers to
+     *
+     * @throws IllegalArgumentException in case too many pointers were followed, which denotes a pointer loop
+     */
+    private int followPointer(int pos, int jumps) {
+        // each pointer takes 2 bytes, so a name cannot legitimately involve more than half the message size pointers
+        if (jumps > mMessage.limit() / 2) {
+            throw new IllegalArgumentException("Name compression loop at " + pos);
+        }
+        return (readU8(pos) & 0x3F) << 8 | readU8(pos + 1);
+    }
+
+    /**
+     * Reads a name.
+     *
+     * @param pos name offset
+     *
+     * @return name, with each label followed by a dot
+     */
+    @NonNull
+    private String readName(int pos) {
+        StringBuilder sb = new StringBuilder();
+        int jumps = 0;
+        int len = readU8(pos);
+        while (len != 0) {
+            if ((len & 0xC0) != 0) {
+                pos = followPointer(pos, ++jumps);
+            } else {
+                for (int cnt = 1; cnt <= len; cnt++) {
+                    sb.append((char) readU8(pos + cnt));
+                }
+                sb.append('.');
+                pos += len + 1;
+            }
+            len = readU8(pos);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads an IPv4 address.
+     *
+     * @param pos address offset
+     *
+     * @return address, in dotted-decimal notation
+     */
+    @NonNull
+    private String readAddress(int pos) {
+        return new StringBuilder(15).append(readU8(pos)).append('.').append(readU8(pos + 1)).append('.')
+                                    .append(readU8(pos + 2)).append('.').append(readU8(pos + 3)).toString();
+    }
+
+    /**
+     * Reads the character strings of a TXT record.
+     *
+     * @param pos     TXT record data offset
+     * @param dataLen TXT record data length
+     *
+     * @return TXT record strings
+     */
+    @NonNull
+    private String[] readStrings(int pos, int dataLen) {
+        int end = pos + dataLen;
+        int count = 0;
+        for (int p = pos; p < end; p += readU8(p) + 1) {
+            count++;
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int len = readU8(pos);
+            char[] chars = new char[len];
+            for (int cnt = 0; cnt < len; cnt++) {
+                chars[cnt] = (char) readU8(pos + 1 + cnt);
+            }
+            strings[i] = new String(chars);
+            pos += len + 1;
+        }
+        return strings;
+    }
+
+    /**
+     * Reads an unsigned 8 bits int.
+     *
+     * @param pos offset to read at
+     *
+     * @return unsigned 8 bits int at given offset
+     */
+    private int readU8(int pos) {
+        return mMessage.get(pos) & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned 16 bits int.
+     *
+     * @param pos offset to read at
+     *
+     * @return unsigned 16 bits int at given offset
+     */
+    private int readU16(int pos) {
+        return readU8(pos) << 8 | readU8(pos + 1);
+    }
+
+    /**
+     * Encodes a name as a sequence of DNS labels.
+     *
+     * @param name name to encode; only US-ASCII characters are supported
+     *
+     * @return encoded name, without the terminating root label
+     */
+    @NonNull
+    private static byte[] encodeName(@NonNull String name) {
+        String[] labels = name.split("\\.");
+        int size = 0;
+        for (String label : labels) {
+            size += label.length() + 1;
+        }
+        byte[] encoded = new byte[size];
+        int pos = 0;
+        for (String label : labels) {
+            encoded[pos++] = (byte) label.length();
+            for (int i = 0; i < label.length(); i++) {
+                encoded[pos++] = (byte) label.charAt(i);
+            }
+        }
+        return encoded;
+    }
+}
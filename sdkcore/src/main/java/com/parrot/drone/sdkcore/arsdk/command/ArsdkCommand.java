@@ -34,7 +34,6 @@ package com.parrot.drone.sdkcore.arsdk.command;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
-import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.sdkcore.PooledObject;
 
@@ -189,6 +188,20 @@ public final class ArsdkCommand extends PooledObject {
         nativeCopy(mNativePtr, destCmdPtr);
     }
 
+    /**
+     * Resets the command.
+     * <p>
+     * This clears any content previously encoded in the native command, so that it can be encoded again without
+     * having to release the command and obtain a new one from the pool.
+     */
+    public void reset() {
+        if (mNativePtr != 0) {
+            nativeReset(mNativePtr);
+            mFeatureId = -1;
+            mCommandId = -1;
+        }
+    }
+
     /**
      * Gets the native command pointer.
      *
@@ -250,6 +263,8 @@ public final class ArsdkCommand extends PooledObject {
 
     private static native void nativeCopy(long srcCmdPtr, long destCmdPtr);
 
+    private static native void nativeReset(long nativePtr);
+
     private static native int nativeGetFeatureId(long nativePtr);
 
     private static native int nativeGetCommandId(long nativePtr);
@@ -267,11 +282,11 @@ public final class ArsdkCommand extends PooledObject {
     /**
      * Gets native command data as ByteBuffer.
      * <p>
-     * Used only for testing.
+     * Used for testing and by {@link ArsdkCommandCapture}. Returned buffer directly maps native command data, hence
+     * must not be used after the command is released.
      *
      * @return command data
      */
-    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     @NonNull
     public ByteBuffer getData() {
         return nativeGetData(mNativePtr);
@@ -280,11 +295,10 @@ public final class ArsdkCommand extends PooledObject {
     /**
      * Set native command data from ByteBuffer.
      * <p>
-     * Used only for testing.
+     * Used for testing and by {@link ArsdkCommandCapture}. Data is copied, so the buffer may be reused afterwards.
      *
-     * @param buffer command data
+     * @param buffer command data, must be a direct buffer whose capacity is the command data length
      */
-    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     public void setData(@NonNull ByteBuffer buffer) {
         nativeSetData(mNativePtr, buffer);
     }
@@ -0,0 +1,364 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.command;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary capture of the command stream exchanged with a device.
+ * <p>
+ * A capture file starts with a header:
+ * <ul>
+ * <li>magic, 4 bytes: {@code 'A' 'C' 'A' 'P'},</li>
+ * <li>format version, 1 byte,</li>
+ * <li>device type, 4 bytes,</li>
+ * <li>device uid then device name, each as a modified UTF-8 string (2 bytes length, then chars).</li>
+ * </ul>
+ * followed by one record per command:
+ * <ul>
+ * <li>direction, 1 byte: one of {@link Direction},</li>
+ * <li>time elapsed since previous record, in microseconds, 4 bytes,</li>
+ * <li>raw command data length, 2 bytes, then raw command data.</li>
+ * </ul>
+ * All multi-byte values are big endian.
+ */
+public final class ArsdkCommandCapture {
+
+    /** Int definition of a command direction. */
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({DIRECTION_RECEIVED, DIRECTION_SENT})
+    public @interface Direction {}
+
+    /** Command received from the device. */
+    public static final int DIRECTION_RECEIVED = 0;
+
+    /** Command sent to the device. */
+    public static final int DIRECTION_SENT = 1;
+
+    /** Capture file magic. */
+    private static final int MAGIC = 0x41434150;
+
+    /** Capture file format version. */
+    private static final int VERSION = 1;
+
+    /** Maximum raw command data length. */
+    private static final int MAX_DATA_LENGTH = 0xFFFF;
+
+    /**
+     * Writes a command capture file.
+     * <p>
+     * Not thread-safe; all methods must be called from the same thread, which is the <strong>POMP</strong> thread when
+     * used from {@code ArsdkDevice}.
+     */
+    public static final class Writer implements Closeable {
+
+        /** Capture output stream. */
+        @NonNull
+        private final DataOutputStream mStream;
+
+        /** Scratch buffer where raw command data is copied before being written. */
+        @NonNull
+        private final byte[] mScratch;
+
+        /** Time of the last written record, in nanoseconds, from {@link System#nanoTime()}. */
+        private long mLastRecordTime;
+
+        /**
+         * Creates a capture file and writes its header.
+         *
+         * @param file capture file to create; parent directories are created if needed
+         * @param uid  captured device uid
+         * @param type captured device type
+         * @param name captured device name
+         *
+         * @return a new capture writer
+         *
+         * @throws IOException in case the capture file could not be created
+         */
+        @NonNull
+        public static Writer create(@NonNull File file, @NonNull String uid, int type, @NonNull String name)
+                throws IOException {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create capture directory: " + parent);
+            }
+            DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                stream.writeInt(MAGIC);
+                stream.writeByte(VERSION);
+                stream.writeInt(type);
+                stream.writeUTF(uid);
+                stream.writeUTF(name);
+            } catch (IOException e) {
+                stream.close();
+                throw e;
+            }
+            return new Writer(stream);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param stream capture output stream, positioned after the header
+         */
+        private Writer(@NonNull DataOutputStream stream) {
+            mStream = stream;
+            mScratch = new byte[MAX_DATA_LENGTH];
+            mLastRecordTime = System.nanoTime();
+        }
+
+        /**
+         * Writes a command record.
+         *
+         * @param direction command direction
+         * @param command   command to record
+         *
+         * @throws IOException in case the record could not be written
+         */
+        public void record(@Direction int direction, @NonNull ArsdkCommand command) throws IOException {
+            long now = System.nanoTime();
+            long delay = TimeUnit.NANOSECONDS.toMicros(now - mLastRecordTime);
+            mLastRecordTime = now;
+
+            ByteBuffer data = command.getData();
+            int length = data.remaining();
+            if (length > MAX_DATA_LENGTH) {
+                throw new IOException("Command too large to be captured: " + length);
+            }
+            data.get(mScratch, 0, length);
+
+            mStream.writeByte(direction);
+            mStream.writeInt((int) Math.min(delay, Integer.MAX_VALUE));
+            mStream.writeShort(length);
+            mStream.write(mScratch, 0, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            mStream.close();
+        }
+    }
+
+    /**
+     * Reads a command capture file.
+     * <p>
+     * Records are read one at a time using {@link #next()}; accessors describe the last read record.
+     */
+    public static final class Reader implements Closeable {
+
+        /** Capture input stream. */
+        @NonNull
+        private final DataInputStream mStream;
+
+        /** Captured device uid. */
+        @NonNull
+        private final String mUid;
+
+        /** Captured device type. */
+        private final int mType;
+
+        /** Captured device name. */
+        @NonNull
+        private final String mName;
+
+        /** Last read record raw command data, in {@code [0, mDataLength[}. */
+        @NonNull
+        private final byte[] mData;
+
+        /** Last read record raw command data length. */
+        private int mDataLength;
+
+        /** Last read record direction. */
+        @Direction
+        private int mDirection;
+
+        /** Time elapsed between the previous record and the last read record, in microseconds. */
+        private long mDelay;
+
+        /**
+         * Opens a capture file and reads its header.
+         *
+         * @param file capture file to open
+         *
+         * @return a new capture reader
+         *
+         * @throws IOException in case the file could not be opened or is not a valid capture file
+         */
+        @NonNull
+        public static Reader open(@NonNull File file) throws IOException {
+            DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (stream.readInt() != MAGIC) {
+                    throw new IOException("Not a command capture file: " + file);
+                }
+                int version = stream.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported command capture version: " + version);
+                }
+                int type = stream.readInt();
+                String uid = stream.readUTF();
+                String name = stream.readUTF();
+                return new Reader(stream, uid, type, name);
+            } catch (IOException e) {
+                stream.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param stream capture input stream, positioned after the header
+         * @param uid    captured device uid
+         * @param type   captured device type
+         * @param name   captured device name
+         */
+        private Reader(@NonNull DataInputStream stream, @NonNull String uid, int type, @NonNull String name) {
+            mStream = stream;
+            mUid = uid;
+            mType = type;
+            mName = name;
+            mData = new byte[MAX_DATA_LENGTH];
+        }
+
+        /**
+         * Gets the captured device uid.
+         *
+         * @return captured device uid
+         */
+        @NonNull
+        public String getUid() {
+            return mUid;
+        }
+
+        /**
+         * Gets the captured device type.
+         *
+         * @return captured device type
+         */
+        public int getType() {
+            return mType;
+        }
+
+        /**
+         * Gets the captured device name.
+         *
+         * @return captured device name
+         */
+        @NonNull
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return {@code true} if a record was read, {@code false} if the end of the capture is reached
+         *
+         * @throws IOException in case the record could not be read
+         */
+        public boolean next() throws IOException {
+            int direction = mStream.read();
+            if (direction == -1) {
+                return false;
+            }
+            try {
+                mDirection = direction == DIRECTION_SENT ? DIRECTION_SENT : DIRECTION_RECEIVED;
+                mDelay = mStream.readInt() & 0xFFFFFFFFL;
+                mDataLength = mStream.readUnsignedShort();
+                mStream.readFully(mData, 0, mDataLength);
+            } catch (EOFException e) {
+                // capture was not closed properly, the last record is truncated
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Gets the last read record direction.
+         *
+         * @return last read record direction
+         */
+        @Direction
+        public int getDirection() {
+            return mDirection;
+        }
+
+        /**
+         * Gets the time elapsed between the previous record and the last read record.
+         *
+         * @return elapsed time, in microseconds
+         */
+        public long getDelay() {
+            return mDelay;
+        }
+
+        /**
+         * Decodes the last read record into a command.
+         *
+         * @param command command to decode the record into
+         */
+        public void decodeTo(@NonNull ArsdkCommand command) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(mDataLength);
+            buffer.put(mData, 0, mDataLength).flip();
+            command.setData(buffer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            mStream.close();
+        }
+    }
+
+    /**
+     * Private constructor for static scope class.
+     */
+    private ArsdkCommandCapture() {
+    }
+}
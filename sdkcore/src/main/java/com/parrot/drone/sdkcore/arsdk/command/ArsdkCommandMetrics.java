@@ -0,0 +1,343 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.command;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on command traffic metrics.
+ * <p>
+ * Counts received, sent and superseded commands by feature and command id, and records the delay received commands
+ * wait between the pomp thread, where they are received, and the main thread, where they are processed.
+ * <p>
+ * Counters are kept in a fixed-size, open-addressed table; recording never locks nor allocates and may be performed
+ * from any thread.
+ */
+public final class ArsdkCommandMetrics {
+
+    /** Log2 of the maximum count of distinct (feature, command) counted. */
+    private static final int CAPACITY_BITS = 10;
+
+    /** Maximum count of distinct (feature, command) counted. */
+    private static final int CAPACITY = 1 << CAPACITY_BITS;
+
+    /** Key of an unused table slot. Cannot collide with any command key, since command ids fit on 8 bits. */
+    private static final int EMPTY = -1;
+
+    /** Singleton instance. */
+    private static final ArsdkCommandMetrics INSTANCE = new ArsdkCommandMetrics();
+
+    /**
+     * Gets the metrics singleton.
+     *
+     * @return command metrics
+     */
+    @NonNull
+    public static ArsdkCommandMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Command key, by table slot: feature id in 16 upper bits, command id in 16 lower bits. */
+    @NonNull
+    private final AtomicIntegerArray mKeys;
+
+    /** Received commands count, by table slot. */
+    @NonNull
+    private final AtomicLongArray mRxCounts;
+
+    /** Sent commands count, by table slot. */
+    @NonNull
+    private final AtomicLongArray mTxCounts;
+
+    /** Superseded commands count, by table slot. */
+    @NonNull
+    private final AtomicLongArray mSupersededCounts;
+
+    /** Count of commands that could not be counted because the table is full. */
+    @NonNull
+    private final AtomicLong mOverflowCount;
+
+    /** Delay between reception of commands on pomp thread and their processing on main thread. */
+    @NonNull
+    private final LatencyHistogram mRxQueueDelay;
+
+    /**
+     * Constructor.
+     */
+    private ArsdkCommandMetrics() {
+        mKeys = new AtomicIntegerArray(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            mKeys.set(i, EMPTY);
+        }
+        mRxCounts = new AtomicLongArray(CAPACITY);
+        mTxCounts = new AtomicLongArray(CAPACITY);
+        mSupersededCounts = new AtomicLongArray(CAPACITY);
+        mOverflowCount = new AtomicLong();
+        mRxQueueDelay = new LatencyHistogram();
+    }
+
+    /**
+     * Records a received command.
+     *
+     * @param command    received command
+     * @param queueDelay delay between command reception on pomp thread and its processing, in nanoseconds
+     */
+    public void onCommandReceived(@NonNull ArsdkCommand command, long queueDelay) {
+        onCommandReceived(command);
+        mRxQueueDelay.record(queueDelay);
+    }
+
+    /**
+     * Records a received command, without recording its queueing delay.
+     * <p>
+     * Used for commands that are not processed through the regular main thread dispatch; their queueing delay, if they
+     * get processed at all, is recorded separately through {@link #onCommandProcessed}.
+     *
+     * @param command received command
+     */
+    public void onCommandReceived(@NonNull ArsdkCommand command) {
+        int slot = slot(command);
+        if (slot >= 0) {
+            mRxCounts.incrementAndGet(slot);
+        }
+    }
+
+    /**
+     * Records the queueing delay of a command recorded by {@link #onCommandReceived(ArsdkCommand)}, once processed on
+     * main thread.
+     *
+     * @param queueDelay delay between command reception on pomp thread and its processing, in nanoseconds
+     */
+    public void onCommandProcessed(long queueDelay) {
+        mRxQueueDelay.record(queueDelay);
+    }
+
+    /**
+     * Records a sent command.
+     *
+     * @param command sent command
+     */
+    public void onCommandSent(@NonNull ArsdkCommand command) {
+        int slot = slot(command);
+        if (slot >= 0) {
+            mTxCounts.incrementAndGet(slot);
+        }
+    }
+
+    /**
+     * Records a command that was dropped before being sent, because superseded by a more recent command.
+     * <p>
+     * Superseded commands are never sent, hence not counted by {@link #onCommandSent}.
+     *
+     * @param command superseded command
+     */
+    public void onCommandSuperseded(@NonNull ArsdkCommand command) {
+        int slot = slot(command);
+        if (slot >= 0) {
+            mSupersededCounts.incrementAndGet(slot);
+        }
+    }
+
+    /**
+     * Gets the delay between reception of commands on pomp thread and their processing on main thread.
+     * <p>
+     * Commands dropped before being processed, such as intercepted commands superseded by a more recent one, are not
+     * recorded.
+     *
+     * @return received commands queueing delay histogram
+     */
+    @NonNull
+    public LatencyHistogram getRxQueueDelay() {
+        return mRxQueueDelay;
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public void reset() {
+        for (int i = 0; i < CAPACITY; i++) {
+            mRxCounts.set(i, 0);
+            mTxCounts.set(i, 0);
+            mSupersededCounts.set(i, 0);
+        }
+        mOverflowCount.set(0);
+        mRxQueueDelay.reset();
+    }
+
+    /**
+     * Gives a short, human-readable summary of the metrics.
+     *
+     * @param topCount count of most received commands to list
+     *
+     * @return metrics summary
+     */
+    @NonNull
+    public String summary(int topCount) {
+        List<Entry> entries = snapshot();
+        long rx = 0, tx = 0, superseded = 0;
+        for (Entry entry : entries) {
+            rx += entry.mRx;
+            tx += entry.mTx;
+            superseded += entry.mSuperseded;
+        }
+        StringBuilder summary = new StringBuilder()
+                .append("rx: ").append(rx).append(", tx: ").append(tx).append(", superseded: ").append(superseded)
+                .append('\n')
+                .append("rx queue delay: ").append(mRxQueueDelay);
+        Collections.sort(entries, (lhs, rhs) -> Long.compare(rhs.mRx, lhs.mRx));
+        for (int i = 0, N = Math.min(topCount, entries.size()); i < N && entries.get(i).mRx > 0; i++) {
+            summary.append('\n').append(entries.get(i).name()).append(": ").append(entries.get(i).mRx);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    public void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "Rx queue delay: " + mRxQueueDelay + "\n");
+        List<Entry> entries = snapshot();
+        Collections.sort(entries, (lhs, rhs) -> Long.compare(rhs.mRx + rhs.mTx, lhs.mRx + lhs.mTx));
+        writer.write(prefix + "Commands: " + entries.size() + " [overflow: " + mOverflowCount.get() + "]\n");
+        for (Entry entry : entries) {
+            writer.write(prefix + "\t" + String.format(Locale.US, "0x%04X:0x%04X", entry.mFeatureId, entry.mCommandId)
+                         + " " + entry.name() + " [rx: " + entry.mRx + ", tx: " + entry.mTx
+                         + (entry.mSuperseded == 0 ? "" : ", superseded: " + entry.mSuperseded) + "]\n");
+        }
+    }
+
+    /**
+     * Finds or allocates the table slot where to count a command.
+     *
+     * @param command command to count
+     *
+     * @return command table slot, {@code -1} if the table is full or the command is empty
+     */
+    private int slot(@NonNull ArsdkCommand command) {
+        int featureId = command.getFeatureId();
+        int commandId = command.getCommandId();
+        if (featureId < 0 || commandId < 0) {
+            return -1;
+        }
+        int key = featureId << 16 | commandId;
+        int slot = (key * 0x9E3779B9) >>> (Integer.SIZE - CAPACITY_BITS);
+        for (int probe = 0; probe < CAPACITY; probe++) {
+            int current = mKeys.get(slot);
+            if (current == key || (current == EMPTY && (mKeys.compareAndSet(slot, EMPTY, key)
+                                                        || mKeys.get(slot) == key))) {
+                return slot;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+        mOverflowCount.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Takes a snapshot of all counted commands.
+     *
+     * @return a new list of counted commands
+     */
+    @NonNull
+    private List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            int key = mKeys.get(i);
+            if (key != EMPTY) {
+                entries.add(new Entry(key >>> 16, key & 0xFFFF, mRxCounts.get(i), mTxCounts.get(i),
+                        mSupersededCounts.get(i)));
+            }
+        }
+        return entries;
+    }
+
+    /** Counters of a command. */
+    private static final class Entry {
+
+        /** Command feature id. */
+        final int mFeatureId;
+
+        /** Command id. */
+        final int mCommandId;
+
+        /** Received commands count. */
+        final long mRx;
+
+        /** Sent commands count. */
+        final long mTx;
+
+        /** Superseded commands count. */
+        final long mSuperseded;
+
+        /**
+         * Constructor.
+         *
+         * @param featureId  command feature id
+         * @param commandId  command id
+         * @param rx         received commands count
+         * @param tx         sent commands count
+         * @param superseded superseded commands count
+         */
+        Entry(int featureId, int commandId, long rx, long tx, long superseded) {
+            mFeatureId = featureId;
+            mCommandId = commandId;
+            mRx = rx;
+            mTx = tx;
+            mSuperseded = superseded;
+        }
+
+        /**
+         * Gets the command name.
+         *
+         * @return command name
+         */
+        @NonNull
+        String name() {
+            //noinspection ConstantConditions: native returns null for unknown commands
+            String name = ArsdkCommand.getName((short) mFeatureId, (short) mCommandId);
+            return name == null ? "unknown" : name;
+        }
+    }
+}
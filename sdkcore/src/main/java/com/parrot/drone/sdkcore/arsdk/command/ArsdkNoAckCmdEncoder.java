@@ -32,6 +32,7 @@
 
 package com.parrot.drone.sdkcore.arsdk.command;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 /**
@@ -41,6 +42,10 @@ import androidx.annotation.Nullable;
  * non-acknowledged command.
  * <p>
  * Implementation must encode an appropriate non-acknowledged command that will be sent to the device.
+ * <p>
+ * The command loop calls {@link #encodeNoAckCmd(ArsdkCommand)} with a command that the loop owns and reuses from one
+ * tick to the next. Implementations that may encode directly into that command should override this method to avoid
+ * obtaining and releasing a pooled command at each tick.
  */
 public interface ArsdkNoAckCmdEncoder {
 
@@ -51,5 +56,27 @@ public interface ArsdkNoAckCmdEncoder {
      */
     @Nullable
     ArsdkCommand encodeNoAckCmd();
+
+    /**
+     * Encode a non-acknowledged command to be sent to the device into the given command.
+     * <p>
+     * Provided command is {@link ArsdkCommand#reset() reset} and owned by the caller; it must not be released by the
+     * implementation.
+     * <p>
+     * Default implementation {@link #encodeNoAckCmd() encodes} a pooled command and copies it to the provided command.
+     *
+     * @param command command to encode the non-acknowledged command into
+     *
+     * @return {@code true} if a command was encoded and must be sent, otherwise {@code false}
+     */
+    default boolean encodeNoAckCmd(@NonNull ArsdkCommand command) {
+        ArsdkCommand cmd = encodeNoAckCmd();
+        if (cmd == null) {
+            return false;
+        }
+        cmd.copyTo(command.getNativePtr());
+        cmd.release();
+        return true;
+    }
 }
 
@@ -0,0 +1,209 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.command;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram.
+ * <p>
+ * Latencies are recorded with microsecond resolution in log-linear buckets: each power of two range is split in
+ * {@value #SUB_BUCKET_COUNT} linear sub-buckets, so that any recorded value is reported with a relative error below
+ * {@code 1 / }{@value #SUB_BUCKET_COUNT}, from 1 microsecond up to more than an hour, using a fixed amount of memory.
+ * <p>
+ * Recording never allocates and may be performed concurrently from any thread. Reads may be performed concurrently
+ * with recording, in which case they may not account for the latest recorded values.
+ */
+public final class LatencyHistogram {
+
+    /** Log2 of the count of linear sub-buckets in each power of two range. */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Count of linear sub-buckets in each power of two range. */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Log2 of the lowest untracked value, in microseconds. Higher values are accounted in the last bucket. */
+    private static final int MAX_VALUE_BITS = 32;
+
+    /** Total count of buckets. */
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /** Count of recorded values, by bucket. */
+    @NonNull
+    private final AtomicLongArray mCounts;
+
+    /** Total count of recorded values. */
+    @NonNull
+    private final AtomicLong mTotalCount;
+
+    /** Sum of all recorded values, in microseconds. */
+    @NonNull
+    private final AtomicLong mSum;
+
+    /** Highest recorded value, in microseconds. */
+    @NonNull
+    private final AtomicLong mMax;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        mCounts = new AtomicLongArray(BUCKET_COUNT);
+        mTotalCount = new AtomicLong();
+        mSum = new AtomicLong();
+        mMax = new AtomicLong();
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency to record, in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        mCounts.incrementAndGet(bucketIndex(micros));
+        mTotalCount.incrementAndGet();
+        mSum.addAndGet(micros);
+        long max;
+        do {
+            max = mMax.get();
+        } while (micros > max && !mMax.compareAndSet(max, micros));
+    }
+
+    /**
+     * Gets the count of recorded latencies.
+     *
+     * @return recorded latencies count
+     */
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    /**
+     * Gets the highest recorded latency.
+     *
+     * @return highest recorded latency, in microseconds, {@code 0} if no latency was recorded
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Gets the mean recorded latency.
+     *
+     * @return mean latency, in microseconds, {@code 0} if no latency was recorded
+     */
+    public long getMean() {
+        long count = mTotalCount.get();
+        return count == 0 ? 0 : mSum.get() / count;
+    }
+
+    /**
+     * Gets the latency below which a given percentage of recorded latencies fall.
+     *
+     * @param percentile percentage of recorded latencies, in [0, 100] range
+     *
+     * @return latency at the given percentile, in microseconds, {@code 0} if no latency was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long target = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * mTotalCount.get());
+        long cumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulated += mCounts.get(i);
+            if (cumulated > 0 && cumulated >= target) {
+                return Math.min(bucketHighestValue(i), mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * Clears all recorded latencies.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "count: %d, mean: %dus, p50: %dus, p90: %dus, p99: %dus, max: %dus",
+                getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getMax());
+    }
+
+    /**
+     * Computes the index of the bucket accounting for a value.
+     *
+     * @param value value, in microseconds
+     *
+     * @return bucket index
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_VALUE_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Computes the highest value accounted for in a bucket.
+     *
+     * @param index bucket index
+     *
+     * @return bucket highest value, in microseconds
+     */
+    private static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
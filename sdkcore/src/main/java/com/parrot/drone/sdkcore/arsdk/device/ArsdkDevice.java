@@ -43,6 +43,8 @@ import com.parrot.drone.sdkcore.arsdk.backend.ArsdkBackendController;
 import com.parrot.drone.sdkcore.arsdk.backend.net.ArsdkWifiBackendController;
 import com.parrot.drone.sdkcore.arsdk.blackbox.ArsdkBlackBoxRequest;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandCapture;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
 import com.parrot.drone.sdkcore.arsdk.crashml.ArsdkCrashmlDownloadRequest;
 import com.parrot.drone.sdkcore.arsdk.firmware.ArsdkFirmwareUploadRequest;
@@ -51,11 +53,12 @@ import com.parrot.drone.sdkcore.arsdk.stream.ArsdkDeviceStreamController;
 import com.parrot.drone.sdkcore.stream.SdkCoreStream;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.net.SocketFactory;
 
@@ -157,6 +160,28 @@ public class ArsdkDevice {
         void onCommandReceived(@NonNull ArsdkCommand command);
     }
 
+    /**
+     * Intercepts commands received from the device before they get dispatched on the main thread.
+     */
+    public interface CommandInterceptor {
+
+        /**
+         * Called when a command is received from the device.
+         * <p>
+         * Called on <strong>POMP</strong> thread. The command is only valid for the duration of this call; an
+         * interceptor that needs the command afterwards must {@link ArsdkCommand.Pool#obtain(long) copy} it.
+         * <p>
+         * Consumed commands are counted as received, but their queueing delay is not recorded; the interceptor should
+         * record it through {@link ArsdkCommandMetrics#onCommandProcessed} when it processes the command.
+         *
+         * @param command received command
+         *
+         * @return {@code true} if the interceptor consumed the command, which is then not dispatched to the device
+         *         {@link Listener listener}, otherwise {@code false}
+         */
+        boolean interceptCommand(@NonNull ArsdkCommand command);
+    }
+
     /**
      * Obtains an ArsdkDevice.
      * <p>
@@ -210,7 +235,14 @@ public class ArsdkDevice {
 
     /** Non-acknowledged command encoders, run on POMP thread. */
     @NonNull
-    private final Set<ArsdkNoAckCmdEncoder> mNoAckEncoders;
+    private final NoAckCmdEncoderRegistry mNoAckEncoders;
+
+    /**
+     * Command reused by the non-acknowledged command loop to encode each non-acknowledged command, POMP thread only.
+     * {@code null} when the device is disposed.
+     */
+    @Nullable
+    private ArsdkCommand mNoAckCommand;
 
     /** Provides and manges access to video streams. */
     @NonNull
@@ -219,6 +251,20 @@ public class ArsdkDevice {
     /** Current non-acknowledged loop period, in milliseconds. {@code 0} when disabled. */
     private int mNoAckLoopPeriod;
 
+    /** Intercepts received commands, POMP thread only. {@code null} when commands are not intercepted. */
+    @Nullable
+    private CommandInterceptor mCommandInterceptor;
+
+    /** Queues commands sent with a supersede key to the pomp thread. */
+    @NonNull
+    private final SupersedableCommandQueue mSupersedableCommands = new SupersedableCommandQueue(
+            runnable -> mArsdkCore.dispatchToPomp(runnable),
+            command -> mSendCommandRunnablePool.obtainEntry().init(command).run());
+
+    /** Writes captured commands, POMP thread only. {@code null} when commands are not being captured. */
+    @Nullable
+    private ArsdkCommandCapture.Writer mCommandCapture;
+
     /**
      * Constructor.
      * <p>
@@ -243,7 +289,8 @@ public class ArsdkDevice {
         if (mNativePtr == 0) {
             throw new AssertionError("Failed to create ArsdkDevice native backend");
         }
-        mNoAckEncoders = new CopyOnWriteArraySet<>();
+        mNoAckEncoders = new NoAckCmdEncoderRegistry();
+        mNoAckCommand = ArsdkCommand.Pool.DEFAULT.obtain();
         mStreamController = new ArsdkDeviceStreamController(mArsdkCore, mNativeHandle);
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice init [handle: " + this + " ,uid: " + mUid
@@ -348,9 +395,29 @@ public class ArsdkDevice {
      * @param command command to send
      */
     public void sendCommand(@NonNull ArsdkCommand command) {
+        ArsdkCommandMetrics.get().onCommandSent(command);
         mArsdkCore.dispatchToPomp(mSendCommandRunnablePool.obtainEntry().init(command));
     }
 
+    /**
+     * Sends a command to the device, superseding any command with the same supersede key not sent yet.
+     * <p>
+     * If a command sent previously with the same key is still waiting for the pomp thread, it is dropped; the given
+     * command is queued after any other command sent in the meantime. Commands already handed over to the native
+     * command interface are not superseded.
+     * <p>
+     * Only commands that carry a complete setting value, making any previous value of the same setting obsolete, should
+     * be sent using this method.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param command      command to send
+     * @param supersedeKey key identifying the setting that the command sets
+     */
+    public void sendCommand(@NonNull ArsdkCommand command, long supersedeKey) {
+        mSupersedableCommands.queue(command, supersedeKey);
+    }
+
     /**
      * Configures the non-acknowledged command loop period.
      * <p>
@@ -414,6 +481,56 @@ public class ArsdkDevice {
         }
     }
 
+    /**
+     * Starts capturing all commands sent to and received from the device into a file.
+     * <p>
+     * Does nothing if commands are already being captured. Capture is stopped when the device is disposed.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param file capture file to create
+     *
+     * @see ArsdkCommandCapture
+     */
+    public void startCommandCapture(@NonNull File file) {
+        mArsdkCore.dispatchToPomp(() -> {
+            if (mNativePtr == 0 || mCommandCapture != null) {
+                return;
+            }
+            try {
+                mCommandCapture = ArsdkCommandCapture.Writer.create(file, mUid, mType, mName);
+                if (ULog.i(TAG_DEVICE)) {
+                    ULog.i(TAG_DEVICE, "Capturing commands [handle: " + this + ", file: " + file + "]");
+                }
+            } catch (IOException e) {
+                ULog.e(TAG_DEVICE, "Failed to start command capture [handle: " + this + "]", e);
+            }
+        });
+    }
+
+    /**
+     * Stops capturing commands.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     */
+    public void stopCommandCapture() {
+        mArsdkCore.dispatchToPomp(this::closeCommandCapture);
+    }
+
+    /**
+     * Sets the interceptor of received commands.
+     * <p>
+     * The interceptor applies to commands received after it has been installed on the pomp thread; commands already
+     * queued for dispatch on the main thread are still dispatched to the device listener.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param interceptor interceptor to install, {@code null} to stop intercepting commands
+     */
+    public void setCommandInterceptor(@Nullable CommandInterceptor interceptor) {
+        mArsdkCore.dispatchToPomp(() -> mCommandInterceptor = interceptor);
+    }
+
     /**
      * Requests a video stream to be opened from the connected device.
      *
@@ -537,6 +654,11 @@ public class ArsdkDevice {
         }
         nativeDispose(mNativePtr);
         mNativePtr = 0;
+        closeCommandCapture();
+        if (mNoAckCommand != null) {
+            mNoAckCommand.release();
+            mNoAckCommand = null;
+        }
         mArsdkCore.dispatchToMain(() -> {
             if (mListener != null) {
                 mListener.onConnectionCanceled(REASON_CANCELED_LOCALLY, true);
@@ -583,9 +705,10 @@ public class ArsdkDevice {
     private final CommandRunnablePool mSendCommandRunnablePool = new CommandRunnablePool("SendCmdPool") {
 
         @Override
-        void doWithCommand(@NonNull ArsdkCommand command) {
+        void doWithCommand(@NonNull ArsdkCommand command, long queueTime) {
             if (mNativePtr != 0) {
                 nativeSendCommand(mNativePtr, command.getNativePtr());
+                captureCommand(ArsdkCommandCapture.DIRECTION_SENT, command);
             } else if (ULog.i(TAG_DEVICE)) {
                 ULog.i(TAG_DEVICE, "Device destroyed");
             }
@@ -596,12 +719,50 @@ public class ArsdkDevice {
     private final CommandRunnablePool mRecvCommandRunnablePool = new CommandRunnablePool("RecvCmdPool") {
 
         @Override
-        void doWithCommand(@NonNull ArsdkCommand command) {
+        void doWithCommand(@NonNull ArsdkCommand command, long queueTime) {
+            ArsdkCommandMetrics.get().onCommandReceived(command, System.nanoTime() - queueTime);
             assert mListener != null;
             mListener.onCommandReceived(command);
         }
     };
 
+    /**
+     * Records a command in the current capture, if any.
+     * <p>
+     * Capture is stopped if the command cannot be recorded.
+     * <p>
+     * Must be called on <strong>POMP</strong> thread.
+     *
+     * @param direction command direction
+     * @param command   command to record
+     */
+    private void captureCommand(@ArsdkCommandCapture.Direction int direction, @NonNull ArsdkCommand command) {
+        if (mCommandCapture != null) {
+            try {
+                mCommandCapture.record(direction, command);
+            } catch (IOException e) {
+                ULog.e(TAG_DEVICE, "Failed to capture command, stopping capture [handle: " + this + "]", e);
+                closeCommandCapture();
+            }
+        }
+    }
+
+    /**
+     * Closes the current capture, if any.
+     * <p>
+     * Must be called on <strong>POMP</strong> thread.
+     */
+    private void closeCommandCapture() {
+        if (mCommandCapture != null) {
+            try {
+                mCommandCapture.close();
+            } catch (IOException e) {
+                ULog.e(TAG_DEVICE, "Failed to close command capture [handle: " + this + "]", e);
+            }
+            mCommandCapture = null;
+        }
+    }
+
     /**
      * Starts the non-acknowledged command loop.
      * <p>
@@ -704,19 +865,33 @@ public class ArsdkDevice {
 
     @SuppressWarnings("unused") /* native-cb */
     private void onCommandReceived(long cmdNativePtr) {
-        mArsdkCore.dispatchToMain(
-                mRecvCommandRunnablePool.obtainEntry().init(ArsdkCommand.Pool.DEFAULT.obtain(cmdNativePtr)));
+        ArsdkCommand command = ArsdkCommand.Pool.DEFAULT.obtain(cmdNativePtr);
+        captureCommand(ArsdkCommandCapture.DIRECTION_RECEIVED, command);
+        if (mCommandInterceptor != null && mCommandInterceptor.interceptCommand(command)) {
+            // queueing delay is recorded by the interceptor, if and when it processes the command
+            ArsdkCommandMetrics.get().onCommandReceived(command);
+            command.release();
+            return;
+        }
+        mArsdkCore.dispatchToMain(mRecvCommandRunnablePool.obtainEntry().init(command));
     }
 
     @SuppressWarnings("unused") /* native-cb */
     private void onNoAckCmdTimerTick() {
-        // TODO: better use classic for-loop, otherwise an iterator is allocated for each tick.
-        // TODO  However, to do this we need to abandon COWArraySet and synchronize access manually.
-        for (ArsdkNoAckCmdEncoder encoder : mNoAckEncoders) {
-            ArsdkCommand cmd = encoder.encodeNoAckCmd();
-            if (cmd != null) {
-                nativeSendCommand(mNativePtr, cmd.getNativePtr());
-                cmd.release();
+        ArsdkCommand cmd = mNoAckCommand;
+        if (cmd == null) {
+            return;
+        }
+        // Note: intentional classic for-loop over registry slots, so that no iterator is allocated for each tick.
+        for (int i = 0; i < NoAckCmdEncoderRegistry.CAPACITY; i++) {
+            ArsdkNoAckCmdEncoder encoder = mNoAckEncoders.get(i);
+            if (encoder != null) {
+                cmd.reset();
+                if (encoder.encodeNoAckCmd(cmd)) {
+                    nativeSendCommand(mNativePtr, cmd.getNativePtr());
+                    ArsdkCommandMetrics.get().onCommandSent(cmd);
+                    captureCommand(ArsdkCommandCapture.DIRECTION_SENT, cmd);
+                }
             }
         }
     }
@@ -774,7 +949,7 @@ public class ArsdkDevice {
         mType = type;
         mName = name;
         mBackendType = backendType;
-        mNoAckEncoders = new CopyOnWriteArraySet<>();
+        mNoAckEncoders = new NoAckCmdEncoderRegistry();
         mStreamController = new ArsdkDeviceStreamController(mArsdkCore, nativeHandle);
     }
 }
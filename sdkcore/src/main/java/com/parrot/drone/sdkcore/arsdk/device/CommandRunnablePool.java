@@ -53,6 +53,9 @@ abstract class CommandRunnablePool extends PooledObject.Pool<CommandRunnablePool
         @Nullable
         private ArsdkCommand mCommand;
 
+        /** Time at which the entry was initialized, in nanoseconds, from {@link System#nanoTime()}. */
+        private long mQueueTime;
+
         /**
          * Initializes the pool entry by setting its associated command.
          *
@@ -62,6 +65,7 @@ abstract class CommandRunnablePool extends PooledObject.Pool<CommandRunnablePool
          */
         Entry init(@NonNull ArsdkCommand command) {
             mCommand = command;
+            mQueueTime = System.nanoTime();
             return this;
         }
 
@@ -84,7 +88,7 @@ abstract class CommandRunnablePool extends PooledObject.Pool<CommandRunnablePool
             if (mCommand == null) {
                 throw new IllegalStateException("Command not set");
             }
-            doWithCommand(mCommand);
+            doWithCommand(mCommand, mQueueTime);
             release();
         }
     }
@@ -110,7 +114,9 @@ abstract class CommandRunnablePool extends PooledObject.Pool<CommandRunnablePool
      * This method is called from a pool's entry run() method. The provided command is the command that is associated
      * with the processed pool entry.
      *
-     * @param command arsdk command to process
+     * @param command   arsdk command to process
+     * @param queueTime time at which the command was queued for processing, in nanoseconds, from {@link
+     *                  System#nanoTime()}
      */
-    abstract void doWithCommand(@NonNull ArsdkCommand command);
+    abstract void doWithCommand(@NonNull ArsdkCommand command, long queueTime);
 }
@@ -0,0 +1,165 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity registry of non-acknowledged command encoders.
+ * <p>
+ * Encoders are registered and unregistered from the <strong>MAIN</strong> thread, while they are read by the
+ * non-acknowledged command loop on the <strong>POMP</strong> thread. Each encoder occupies one slot of a fixed size
+ * array; reading a slot is lock-free and does not allocate, so that the command loop can walk the registry at each
+ * tick without creating any iterator.
+ */
+final class NoAckCmdEncoderRegistry {
+
+    /** Registry capacity. A device does not register more than a few encoders at the same time. */
+    static final int CAPACITY = 8;
+
+    /** Encoder slots. A {@code null} slot is free. */
+    @NonNull
+    private final AtomicReferenceArray<ArsdkNoAckCmdEncoder> mSlots;
+
+    /** Number of registered encoders. Only accessed from <strong>MAIN</strong> thread. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     */
+    NoAckCmdEncoderRegistry() {
+        mSlots = new AtomicReferenceArray<>(CAPACITY);
+    }
+
+    /**
+     * Registers an encoder.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param encoder encoder to register
+     *
+     * @return {@code true} if the encoder was registered, {@code false} if it was already registered
+     *
+     * @throws IllegalStateException in case the registry is full
+     */
+    boolean add(@NonNull ArsdkNoAckCmdEncoder encoder) {
+        int freeSlot = -1;
+        for (int i = 0; i < CAPACITY; i++) {
+            ArsdkNoAckCmdEncoder registered = mSlots.get(i);
+            if (registered == encoder) {
+                return false;
+            } else if (registered == null && freeSlot == -1) {
+                freeSlot = i;
+            }
+        }
+        if (freeSlot == -1) {
+            throw new IllegalStateException("Cannot register more than " + CAPACITY + " no-ack command encoders");
+        }
+        mSlots.set(freeSlot, encoder);
+        mSize++;
+        return true;
+    }
+
+    /**
+     * Unregisters an encoder.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param encoder encoder to unregister
+     *
+     * @return {@code true} if the encoder was unregistered, {@code false} if it was not registered
+     */
+    boolean remove(@NonNull ArsdkNoAckCmdEncoder encoder) {
+        for (int i = 0; i < CAPACITY; i++) {
+            if (mSlots.get(i) == encoder) {
+                mSlots.set(i, null);
+                mSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unregisters all encoders.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     */
+    void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            mSlots.set(i, null);
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Gives the count of registered encoders.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @return registered encoders count
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Tells whether no encoder is registered.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @return {@code true} if the registry is empty, otherwise {@code false}
+     */
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Retrieves the encoder registered in a given slot.
+     * <p>
+     * May be called from any thread.
+     *
+     * @param slot slot to read, in range [0, {@link #CAPACITY}[
+     *
+     * @return the encoder registered in that slot, or {@code null} if the slot is free
+     */
+    @Nullable
+    ArsdkNoAckCmdEncoder get(int slot) {
+        return mSlots.get(slot);
+    }
+}
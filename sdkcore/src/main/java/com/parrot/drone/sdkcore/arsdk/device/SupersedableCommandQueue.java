@@ -0,0 +1,161 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandMetrics;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Queues commands to send on the pomp thread, dropping those superseded by a more recent command with the same
+ * supersede key before they get a chance to be sent.
+ * <p>
+ * When a command is queued while another one with the same key is still waiting for the pomp thread, the waiting
+ * command is dropped, and the new command is queued after any other command queued in the meantime, so that commands
+ * are sent in the order they were queued.
+ * <p>
+ * Only commands waiting for the pomp thread may be superseded; once handed over to the native command interface,
+ * commands are sent to the device, even if a more recent command with the same key is queued afterwards.
+ */
+final class SupersedableCommandQueue {
+
+    /**
+     * Sends commands.
+     */
+    interface Sender {
+
+        /**
+         * Sends a command.
+         * <p>
+         * Called on <strong>POMP</strong> thread. The sender takes ownership of the command.
+         *
+         * @param command command to send
+         */
+        void send(@NonNull ArsdkCommand command);
+    }
+
+    /** Dispatches runnables on the pomp thread. */
+    @NonNull
+    private final Executor mPompDispatcher;
+
+    /** Sends commands, on the pomp thread. */
+    @NonNull
+    private final Sender mSender;
+
+    /** Commands waiting for the pomp thread, by supersede key. Access is synchronized on the array. */
+    @NonNull
+    private final LongSparseArray<Send> mPending;
+
+    /**
+     * Constructor.
+     *
+     * @param pompDispatcher dispatches runnables on the pomp thread
+     * @param sender         sends commands, on the pomp thread
+     */
+    SupersedableCommandQueue(@NonNull Executor pompDispatcher, @NonNull Sender sender) {
+        mPompDispatcher = pompDispatcher;
+        mSender = sender;
+        mPending = new LongSparseArray<>();
+    }
+
+    /**
+     * Queues a command, superseding any command with the same supersede key that is still waiting for the pomp thread.
+     * <p>
+     * The superseded command, if any, is released and counted as {@link ArsdkCommandMetrics#onCommandSuperseded
+     * superseded}. Queued commands are counted as {@link ArsdkCommandMetrics#onCommandSent sent} once actually
+     * sent.
+     *
+     * @param command      command to send
+     * @param supersedeKey key identifying the setting that the command sets
+     */
+    void queue(@NonNull ArsdkCommand command, long supersedeKey) {
+        Send send = new Send(supersedeKey, command);
+        ArsdkCommand superseded = null;
+        synchronized (mPending) {
+            Send previous = mPending.get(supersedeKey);
+            if (previous != null) {
+                superseded = previous.mCommand;
+                previous.mCommand = null;
+            }
+            mPending.put(supersedeKey, send);
+        }
+        if (superseded != null) {
+            ArsdkCommandMetrics.get().onCommandSuperseded(superseded);
+            superseded.release();
+        }
+        mPompDispatcher.execute(send);
+    }
+
+    /** Sends a queued command on the pomp thread, unless superseded in the meantime. */
+    private final class Send implements Runnable {
+
+        /** Supersede key. */
+        private final long mKey;
+
+        /** Command to send, {@code null} once superseded. Access is synchronized on {@link #mPending}. */
+        @Nullable
+        ArsdkCommand mCommand;
+
+        /**
+         * Constructor.
+         *
+         * @param key     supersede key
+         * @param command command to send
+         */
+        Send(long key, @NonNull ArsdkCommand command) {
+            mKey = key;
+            mCommand = command;
+        }
+
+        @Override
+        public void run() {
+            ArsdkCommand command;
+            synchronized (mPending) {
+                command = mCommand;
+                if (command == null) {
+                    return;
+                }
+                mCommand = null;
+                mPending.remove(mKey);
+            }
+            ArsdkCommandMetrics.get().onCommandSent(command);
+            mSender.send(command);
+        }
+    }
+}
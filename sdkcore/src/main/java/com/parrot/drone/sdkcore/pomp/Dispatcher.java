@@ -35,23 +35,45 @@ package com.parrot.drone.sdkcore.pomp;
 import android.os.Handler;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Allows to dispatch {@link Runnable runnables} from a thread to the client looper thread.
+ * <p>
+ * Posting a runnable does not lock and does not allocate; a message is posted to the client looper only when the
+ * dispatcher goes from idle to busy. Posted runnables are then processed in slices: when a slice time budget is
+ * configured and a slice exceeds it, remaining runnables are processed in a subsequent looper message, so that long
+ * bursts do not prevent the client looper from processing other messages in the meantime.
  */
 class Dispatcher {
 
+    /** Capacity of the lock-free part of the queue. */
+    private static final int QUEUE_CAPACITY = 1024;
+
     /** Collects all posted runnables that have not been processed yet. */
     @NonNull
-    private final Deque<Runnable> mQueue;
+    private final RunnableQueue mQueue;
+
+    /**
+     * Count of posted runnables that have not been processed yet. Incremented after a runnable is queued, so that it
+     * may transiently be negative.
+     */
+    @NonNull
+    private final AtomicInteger mPendingCount;
 
-    /** Android Handler that will process runnables. {@code null} when dispatcher is closed. */
-    @Nullable
-    private Handler mHandler;
+    /** Android Handler that will process runnables. */
+    @NonNull
+    private final Handler mHandler;
+
+    /** Maximum time spent processing runnables in one looper message, in nanoseconds. {@code 0} when unlimited. */
+    private final long mSliceBudget;
+
+    /** {@code true} once the dispatcher is closed. */
+    private volatile boolean mClosed;
+
+    /** Longest time spent processing runnables in one looper message, in nanoseconds. */
+    private volatile long mMaxSliceTime;
 
     /**
      * Constructor.
@@ -59,10 +81,22 @@ class Dispatcher {
      * Calling thread <strong>MUST</strong> have a looper.
      */
     Dispatcher() {
-        // Use an array-backed collection as we don't want to pay for node allocation of linked-list variants each time
-        // we post an element, which may occur quite frequently.
-        mQueue = new ArrayDeque<>();
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Calling thread <strong>MUST</strong> have a looper.
+     *
+     * @param sliceBudget maximum time spent processing runnables in one looper message, in nanoseconds, {@code 0} to
+     *                    process all posted runnables at once
+     */
+    Dispatcher(long sliceBudget) {
+        mQueue = new RunnableQueue(QUEUE_CAPACITY);
+        mPendingCount = new AtomicInteger();
         mHandler = new Handler();
+        mSliceBudget = sliceBudget;
     }
 
     /**
@@ -87,24 +121,19 @@ class Dispatcher {
      * @return {@code true} in case the runnable could be dispatched, otherwise {@code false}
      */
     final boolean post(@NonNull Runnable runnable) {
-        synchronized (this) {
-            if (mHandler == null) {
-                return false;
-            }
-            mQueue.addLast(runnable);
-            mHandler.removeCallbacksAndMessages(null);
-            if (mHandler.post(mDispatch)) {
-                return true;
-            }
-            mQueue.removeLast();
+        if (mClosed) {
             return false;
         }
+        mQueue.offer(runnable);
+        // only the runnable that makes the dispatcher busy needs to wake the looper up
+        return mPendingCount.getAndIncrement() != 0 || mHandler.post(mDispatch);
     }
 
     /**
      * Closes the dispatcher.
      * <p>
-     * All posted runnable that have not yet been processed are processed synchronously from this method. <br/>
+     * All posted runnable that have not yet been processed are processed synchronously from this method, regardless
+     * of the slice time budget. <br/>
      * Note that {@link #handle(Runnable)} is still called for each such pending runnable as a result.
      * <p>
      * This method <strong>MUST</strong> be called on the client looper thread.
@@ -112,37 +141,86 @@ class Dispatcher {
      * Once closed, this {@code Dispatcher} instance cannot be re-used.
      */
     final void close() {
-        synchronized (this) {
-            if (mHandler == null) {
-                throw new IllegalStateException("Already closed");
-            }
-            mHandler.removeCallbacksAndMessages(null);
-            mHandler = null;
+        if (mClosed) {
+            throw new IllegalStateException("Already closed");
         }
-        processQueue();
+        mClosed = true;
+        mHandler.removeCallbacks(mDispatch);
+        processQueue(0);
     }
 
     /**
-     * Runnable wrapping call to {@link #processQueue()}.
+     * Gives the count of posted runnables that have not been processed yet.
+     * <p>
+     * This method may be called from any thread.
+     *
+     * @return queue depth
+     */
+    final int getQueueDepth() {
+        return Math.max(0, mPendingCount.get());
+    }
+
+    /**
+     * Gives the longest time spent processing runnables in one looper message since this dispatcher was created.
+     * <p>
+     * This method may be called from any thread.
+     *
+     * @return max slice time, in nanoseconds
+     */
+    final long getMaxSliceTime() {
+        return mMaxSliceTime;
+    }
+
+    /**
+     * Runnable wrapping call to {@link #processSlice()}.
      * <p>
      * Allows not to allocate a lambda each time {@link #mHandler}.{@link Handler#post post()} is called, as would be
      * the case if the method reference was passed to {@code post()} directly.
      */
     @NonNull
-    private final Runnable mDispatch = this::processQueue;
+    private final Runnable mDispatch = this::processSlice;
 
     /**
-     * Process all queued runnables in post order.
+     * Process queued runnables in post order, within the slice time budget.
      */
-    private void processQueue() {
-        Runnable next;
-        do {
-            synchronized (this) {
-                next = mQueue.pollFirst();
-            }
+    private void processSlice() {
+        processQueue(mSliceBudget);
+    }
+
+    /**
+     * Process queued runnables in post order.
+     * <p>
+     * Processing stops when the queue is empty or when the given time budget is exceeded, in which case another
+     * looper message is posted to process remaining runnables.
+     *
+     * @param budget maximum processing time, in nanoseconds, {@code 0} to process all queued runnables
+     */
+    private void processQueue(long budget) {
+        long start = System.nanoTime(), elapsed = 0;
+        int processed = 0;
+        while (true) {
+            Runnable next = mQueue.poll();
             if (next != null) {
                 handle(next);
+                processed++;
+                elapsed = System.nanoTime() - start;
+                if (budget > 0 && elapsed >= budget) {
+                    if (mPendingCount.addAndGet(-processed) > 0) {
+                        mHandler.post(mDispatch);
+                    }
+                    break;
+                }
+            } else if (mPendingCount.addAndGet(-processed) <= 0) {
+                // runnables that are queued but not yet counted will be processed when their poster wakes us up
+                break;
+            } else {
+                // some runnable is still being queued by its poster, wait for it
+                processed = 0;
+                Thread.yield();
             }
-        } while (next != null);
+        }
+        if (elapsed > mMaxSliceTime) {
+            mMaxSliceTime = elapsed;
+        }
     }
 }
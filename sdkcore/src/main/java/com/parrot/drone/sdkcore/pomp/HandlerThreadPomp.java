@@ -68,11 +68,13 @@ final class HandlerThreadPomp implements PompLoop {
      * <p>
      * Caller thread <strong>MUST</strong> have a looper; it is considered to be the main thread.
      *
-     * @param name background loop thread name
+     * @param name            background loop thread name
+     * @param mainSliceBudget maximum time spent processing runnables posted to the main loop in one main looper
+     *                        message, in nanoseconds, {@code 0} to process all posted runnables at once
      */
-    HandlerThreadPomp(@NonNull String name) {
+    HandlerThreadPomp(@NonNull String name, long mainSliceBudget) {
         mMainThread = Thread.currentThread();
-        mMainDispatcher = new Dispatcher();
+        mMainDispatcher = new Dispatcher(mainSliceBudget);
         mPompThread = new HandlerThread(name) {
 
             /** Condition unlocked once native SdkCorePomp has been initialized. */
@@ -155,6 +157,16 @@ final class HandlerThreadPomp implements PompLoop {
         return mPompPtr;
     }
 
+    @Override
+    public int getMainQueueDepth() {
+        return mMainDispatcher.getQueueDepth();
+    }
+
+    @Override
+    public long getMainMaxSliceTime() {
+        return mMainDispatcher.getMaxSliceTime();
+    }
+
     @Override
     public void dispose() {
         if (!inMain()) {
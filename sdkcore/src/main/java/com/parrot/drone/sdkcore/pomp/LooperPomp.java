@@ -119,6 +119,16 @@ final class LooperPomp implements PompLoop {
         return mPompPtr;
     }
 
+    @Override
+    public int getMainQueueDepth() {
+        return mMainDispatcher.getQueueDepth();
+    }
+
+    @Override
+    public long getMainMaxSliceTime() {
+        return mMainDispatcher.getMaxSliceTime();
+    }
+
     @Override
     public void dispose() {
         if (!inMain()) {
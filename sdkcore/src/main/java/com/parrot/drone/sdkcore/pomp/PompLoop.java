@@ -48,7 +48,24 @@ public interface PompLoop {
      */
     @NonNull
     static PompLoop createOnNewThread(@NonNull String name) {
-        return new HandlerThreadPomp(name);
+        return new HandlerThreadPomp(name, 0);
+    }
+
+    /**
+     * Creates a new pomp loop running on a dedicated, new background thread.
+     * <p>
+     * Runnables posted to the main loop are processed in slices that do not exceed the given time budget, so that
+     * long bursts of runnables yield back to the main looper between slices.
+     *
+     * @param name            loop thread name
+     * @param mainSliceBudget maximum time spent processing runnables posted to the main loop in one main looper
+     *                        message, in nanoseconds, {@code 0} to process all posted runnables at once
+     *
+     * @return a new {@code PompLoop} instance
+     */
+    @NonNull
+    static PompLoop createOnNewThread(@NonNull String name, long mainSliceBudget) {
+        return new HandlerThreadPomp(name, mainSliceBudget);
     }
 
     /**
@@ -105,6 +122,24 @@ public interface PompLoop {
      */
     long nativePtr();
 
+    /**
+     * Gives the count of runnables posted to the main loop that have not been processed yet.
+     * <p>
+     * This method may be called from any thread.
+     *
+     * @return main loop queue depth
+     */
+    int getMainQueueDepth();
+
+    /**
+     * Gives the longest time spent processing runnables posted to the main loop in one main looper message.
+     * <p>
+     * This method may be called from any thread.
+     *
+     * @return main loop max slice time, in nanoseconds
+     */
+    long getMainMaxSliceTime();
+
     /**
      * Disposes this {@code PompLoop} instance.
      * <p>
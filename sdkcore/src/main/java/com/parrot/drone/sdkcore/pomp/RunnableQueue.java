@@ -0,0 +1,178 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.pomp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Multiple producers, single consumer queue of runnables.
+ * <p>
+ * Runnables are stored in a fixed-size ring buffer that producers fill without locking and without allocating. In
+ * the unlikely event where the ring is full, runnables are stored in a locked overflow queue instead, until the
+ * consumer drains it; runnables offered by a same thread are always polled in offer order.
+ * <p>
+ * {@link #offer} may be called from any thread. {@link #poll} <strong>MUST</strong> always be called from the same
+ * thread.
+ */
+final class RunnableQueue {
+
+    /** Ring buffer slots. */
+    @NonNull
+    private final AtomicReferenceArray<Runnable> mRing;
+
+    /**
+     * Ring buffer slots sequence numbers. A slot is free for the producer that claims position {@code pos} when its
+     * sequence is {@code pos}, and contains the runnable at position {@code pos} once its sequence is {@code pos + 1}.
+     */
+    @NonNull
+    private final AtomicLongArray mSequences;
+
+    /** Mask applied to a position to obtain the corresponding ring slot index. */
+    private final int mMask;
+
+    /** Next position to be claimed by a producer. */
+    @NonNull
+    private final AtomicLong mTail;
+
+    /** Next position to be polled by the consumer. Only accessed by the consumer. */
+    private long mHead;
+
+    /** Collects runnables offered while the ring is full. Access must be synchronized on this deque. */
+    @NonNull
+    private final Deque<Runnable> mOverflow;
+
+    /** {@code true} when the overflow queue may contain runnables, in which case producers must also use it. */
+    private volatile boolean mOverflowing;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity ring buffer capacity, must be a power of two
+     */
+    RunnableQueue(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mRing = new AtomicReferenceArray<>(capacity);
+        mSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mSequences.set(i, i);
+        }
+        mMask = capacity - 1;
+        mTail = new AtomicLong();
+        mOverflow = new ArrayDeque<>();
+    }
+
+    /**
+     * Appends a runnable to the queue.
+     * <p>
+     * This method may be called from any thread.
+     *
+     * @param runnable runnable to append
+     */
+    void offer(@NonNull Runnable runnable) {
+        if (mOverflowing || !offerToRing(runnable)) {
+            synchronized (mOverflow) {
+                mOverflowing = true;
+                mOverflow.addLast(runnable);
+            }
+        }
+    }
+
+    /**
+     * Removes the runnable at the head of the queue.
+     * <p>
+     * This method <strong>MUST</strong> always be called from the same, consumer thread.
+     *
+     * @return the runnable at the head of the queue, {@code null} if the queue is empty or if the runnable at the head
+     *         of the queue is still being offered by its producer
+     */
+    @Nullable
+    Runnable poll() {
+        int index = (int) mHead & mMask;
+        if (mSequences.get(index) == mHead + 1) {
+            Runnable runnable = mRing.get(index);
+            mRing.lazySet(index, null);
+            // slot becomes free for the producer that will claim the same index on next ring turn
+            mSequences.set(index, mHead + mMask + 1);
+            mHead++;
+            return runnable;
+        }
+        // overflow may only be polled once the ring is empty, otherwise runnables from a producer that claimed a slot
+        // but did not store its runnable yet could be polled after more recent runnables from the overflow
+        if (mOverflowing && mTail.get() == mHead) {
+            synchronized (mOverflow) {
+                Runnable runnable = mOverflow.pollFirst();
+                if (runnable == null) {
+                    mOverflowing = false;
+                }
+                return runnable;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a runnable to the ring buffer.
+     *
+     * @param runnable runnable to append
+     *
+     * @return {@code true} if the runnable could be appended, {@code false} if the ring is full
+     */
+    private boolean offerToRing(@NonNull Runnable runnable) {
+        long position = mTail.get();
+        while (true) {
+            int index = (int) position & mMask;
+            long available = mSequences.get(index) - position;
+            if (available == 0) {
+                if (mTail.compareAndSet(position, position + 1)) {
+                    mRing.lazySet(index, runnable);
+                    mSequences.set(index, position + 1);
+                    return true;
+                }
+                position = mTail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = mTail.get();
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ import com.parrot.drone.sdkcore.pomp.PompLoop;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
 
 /**
  * Allows to receive frames from a stream.
@@ -89,6 +90,157 @@ public class SdkCoreSink {
             nativeRelease(handle);
         }
 
+        /* Indexes in frame info array. MUST be kept in sync with C INFO_* defines in sdkcore_sink_frame_jni.c */
+
+        /** Index of frame data native address in frame info. */
+        public static final int INFO_DATA_ADDRESS = 0;
+
+        /** Index of frame data length, in bytes, in frame info. */
+        public static final int INFO_DATA_LENGTH = 1;
+
+        /** Index of frame {@link YuvFormat YUV format} in frame info. */
+        public static final int INFO_YUV_FORMAT = 2;
+
+        /** Index of frame width, in pixels, in frame info. */
+        public static final int INFO_WIDTH = 3;
+
+        /** Index of frame height, in pixels, in frame info. */
+        public static final int INFO_HEIGHT = 4;
+
+        /** Index of frame crop rectangle left offset, in pixels, in frame info. */
+        public static final int INFO_CROP_LEFT = 5;
+
+        /** Index of frame crop rectangle top offset, in pixels, in frame info. */
+        public static final int INFO_CROP_TOP = 6;
+
+        /** Index of frame crop rectangle width, in pixels, in frame info. */
+        public static final int INFO_CROP_WIDTH = 7;
+
+        /** Index of frame crop rectangle height, in pixels, in frame info. */
+        public static final int INFO_CROP_HEIGHT = 8;
+
+        /** Index of frame full range flag in frame info; {@code 1} for full color range, otherwise {@code 0}. */
+        public static final int INFO_FULL_RANGE = 9;
+
+        /** Index of frame silent flag in frame info; {@code 1} if the frame must not be displayed, otherwise {@code 0}. */
+        public static final int INFO_SILENT = 10;
+
+        /** Index of frame NTP timestamp, in microseconds, in frame info. */
+        public static final int INFO_NTP_TIMESTAMP = 11;
+
+        /** Index of frame capture timestamp, in microseconds, in frame info. */
+        public static final int INFO_CAPTURE_TIMESTAMP = 12;
+
+        /** Index of frame plane count in frame info. */
+        public static final int INFO_PLANE_COUNT = 13;
+
+        /**
+         * Index of first plane layout in frame info.
+         * <p>
+         * Each plane layout is made of 3 consecutive values: plane offset in frame data, plane length and plane stride,
+         * all in bytes.
+         */
+        public static final int INFO_PLANES = 14;
+
+        /** Size of frame info array. */
+        public static final int INFO_SIZE = INFO_PLANES + 3 * 3;
+
+        /** Int definition of a YUV frame format. */
+        @Retention(RetentionPolicy.SOURCE)
+        @IntDef({YUV_FORMAT_UNKNOWN, YUV_FORMAT_I420, YUV_FORMAT_NV12})
+        public @interface YuvFormat {}
+
+        /* Numerical YuvFormat values MUST be kept in sync with C YUV_FORMAT_* defines in sdkcore_sink_frame_jni.c */
+
+        /** Unknown YUV format. */
+        public static final int YUV_FORMAT_UNKNOWN = 0;
+
+        /** I420 planar format: Y plane, then U plane, then V plane. */
+        public static final int YUV_FORMAT_I420 = 1;
+
+        /** NV12 semi-planar format: Y plane, then interleaved UV plane. */
+        public static final int YUV_FORMAT_NV12 = 2;
+
+        /**
+         * Retrieves YUV frame info.
+         * <p>
+         * This method does not allocate; the provided array can be reused across frames.
+         *
+         * @param handle handle on the frame
+         * @param info   array to fill with frame info, of at least {@link #INFO_SIZE} elements, see {@code INFO_*}
+         *               constants for the meaning of each element
+         *
+         * @return {@code true} if info could be retrieved, otherwise {@code false}, in which case the array content is
+         *         undefined
+         */
+        public static boolean getInfo(@Handle long handle, @NonNull long[] info) {
+            return nativeGetInfo(handle, info);
+        }
+
+        /* Indexes in H.264 frame info array. MUST be kept in sync with C H264_INFO_* defines in
+           sdkcore_sink_frame_jni.c */
+
+        /** Index of frame data native address in H.264 frame info. */
+        public static final int H264_INFO_DATA_ADDRESS = 0;
+
+        /** Index of frame data length, in bytes, in H.264 frame info. */
+        public static final int H264_INFO_DATA_LENGTH = 1;
+
+        /** Index of frame data {@link FrameFormat format} in H.264 frame info. */
+        public static final int H264_INFO_FORMAT = 2;
+
+        /** Index of frame sync flag in H.264 frame info; {@code 1} for an IDR frame, otherwise {@code 0}. */
+        public static final int H264_INFO_SYNC = 3;
+
+        /** Index of frame complete flag in H.264 frame info; {@code 0} if some slices are missing. */
+        public static final int H264_INFO_COMPLETE = 4;
+
+        /** Index of frame reference flag in H.264 frame info; {@code 1} for a reference frame, otherwise {@code 0}. */
+        public static final int H264_INFO_REF = 5;
+
+        /** Index of frame silent flag in H.264 frame info; {@code 1} if the frame must not be displayed. */
+        public static final int H264_INFO_SILENT = 6;
+
+        /** Index of frame NTP timestamp, in microseconds, in H.264 frame info. */
+        public static final int H264_INFO_NTP_TIMESTAMP = 7;
+
+        /** Index of frame capture timestamp, in microseconds, in H.264 frame info. */
+        public static final int H264_INFO_CAPTURE_TIMESTAMP = 8;
+
+        /** Size of H.264 frame info array. */
+        public static final int H264_INFO_SIZE = 9;
+
+        /**
+         * Retrieves H.264 frame info.
+         * <p>
+         * This method does not allocate; the provided array can be reused across frames.
+         *
+         * @param handle handle on the frame
+         * @param info   array to fill with frame info, of at least {@link #H264_INFO_SIZE} elements, see
+         *               {@code H264_INFO_*} constants for the meaning of each element
+         *
+         * @return {@code true} if info could be retrieved, otherwise {@code false}, in which case the array content is
+         *         undefined
+         */
+        public static boolean getH264Info(@Handle long handle, @NonNull long[] info) {
+            return nativeGetH264Info(handle, info);
+        }
+
+        /**
+         * Wraps frame data in a direct byte buffer.
+         * <p>
+         * The returned buffer maps the native frame memory directly, without copy. It must not be accessed anymore once
+         * the frame is {@link #release(long) released}.
+         *
+         * @param handle handle on the frame
+         *
+         * @return a direct byte buffer over frame data, or {@code null} in case of failure
+         */
+        @Nullable
+        public static ByteBuffer getData(@Handle long handle) {
+            return nativeGetData(handle);
+        }
+
         /**
          * Private constructor for static utility class.
          */
@@ -97,6 +249,13 @@ public class SdkCoreSink {
 
         /* JNI declarations and setup */
         private static native void nativeRelease(long frameNativePtr);
+
+        private static native boolean nativeGetInfo(long frameNativePtr, @NonNull long[] info);
+
+        private static native boolean nativeGetH264Info(long frameNativePtr, @NonNull long[] info);
+
+        @Nullable
+        private static native ByteBuffer nativeGetData(long frameNativePtr);
     }
 
     /**
@@ -83,6 +83,23 @@ Java_com_parrot_drone_sdkcore_arsdk_command_ArsdkCommand_nativeCopy(
 	arsdk_cmd_copy(dst, src);
 }
 
+/**
+ * Resets an ArsdkCommand, so that it can be encoded again.
+ * @param[in] env: JNI env pointer
+ * @param[in] clazz: class where this static java method is defined
+ * @param[in] nativePtr: pointer to the native arsdk command to reset
+ */
+JNIEXPORT void JNICALL
+Java_com_parrot_drone_sdkcore_arsdk_command_ArsdkCommand_nativeReset(
+		JNIEnv *env, jclass clazz, jlong nativePtr)
+{
+	struct arsdk_cmd *command = (struct arsdk_cmd *) (uintptr_t) nativePtr;
+	RETURN_IF_FAILED(command != NULL, -EINVAL);
+
+	arsdk_cmd_clear(command);
+	arsdk_cmd_init(command);
+}
+
 /**
  * Gets the feature identifier of an ArsdkCommand.
  * @param[in] env: JNI env pointer
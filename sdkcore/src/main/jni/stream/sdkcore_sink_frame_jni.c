@@ -46,3 +46,232 @@ Java_com_parrot_drone_sdkcore_stream_SdkCoreSink_00024Frame_nativeRelease(
 
 	LOG_IF_ERR(sdkcore_frame_destroy(self));
 }
+
+/* Indexes in frame info array. MUST be kept in sync with SdkCoreSink.Frame.INFO_* constants */
+
+/** Frame data native address. */
+#define INFO_DATA_ADDRESS 0
+/** Frame data length, in bytes. */
+#define INFO_DATA_LENGTH 1
+/** YUV format, as a SdkCoreSink.Frame.YUV_FORMAT_* value. */
+#define INFO_YUV_FORMAT 2
+/** Frame width, in pixels. */
+#define INFO_WIDTH 3
+/** Frame height, in pixels. */
+#define INFO_HEIGHT 4
+/** Crop rectangle left offset, in pixels. */
+#define INFO_CROP_LEFT 5
+/** Crop rectangle top offset, in pixels. */
+#define INFO_CROP_TOP 6
+/** Crop rectangle width, in pixels. */
+#define INFO_CROP_WIDTH 7
+/** Crop rectangle height, in pixels. */
+#define INFO_CROP_HEIGHT 8
+/** 1 if the frame uses full color range, 0 otherwise. */
+#define INFO_FULL_RANGE 9
+/** 1 if the frame is silent (must not be displayed), 0 otherwise. */
+#define INFO_SILENT 10
+/** Frame NTP timestamp, in microseconds. */
+#define INFO_NTP_TIMESTAMP 11
+/** Frame capture timestamp, in microseconds. */
+#define INFO_CAPTURE_TIMESTAMP 12
+/** Number of planes. */
+#define INFO_PLANE_COUNT 13
+/** First plane offset in frame data; then plane length and stride, for each plane. */
+#define INFO_PLANES 14
+/** Size of frame info array. */
+#define INFO_SIZE (INFO_PLANES + 3 * 3)
+
+/* Numerical YUV format values MUST be kept in sync with SdkCoreSink.Frame.YUV_FORMAT_* constants */
+
+/** Unknown YUV format. */
+#define YUV_FORMAT_UNKNOWN 0
+/** I420 planar YUV format. */
+#define YUV_FORMAT_I420 1
+/** NV12 semi-planar YUV format. */
+#define YUV_FORMAT_NV12 2
+
+/**
+ * Fills a frame info array.
+ * Info array is provided by the caller and may thus be reused across calls,
+ * so that obtaining frame info does not allocate any java object.
+ * @param[in] env: JNI env
+ * @param[in] clazz: SdkCoreSink.Frame class
+ * @param[in] nativePtr: frame native backend
+ * @param[out] jinfo: long array to fill, of at least INFO_SIZE elements
+ * @return JNI_TRUE if the array could be filled, otherwise JNI_FALSE
+ */
+JNIEXPORT jboolean JNICALL
+Java_com_parrot_drone_sdkcore_stream_SdkCoreSink_00024Frame_nativeGetInfo(
+		JNIEnv *env, jclass clazz, jlong nativePtr, jlongArray jinfo)
+{
+	struct sdkcore_frame *self = (struct sdkcore_frame *) (uintptr_t) nativePtr;
+	RETURN_VAL_IF_FAILED(self != NULL, -EINVAL, JNI_FALSE);
+	RETURN_VAL_IF_FAILED((*env)->GetArrayLength(env, jinfo) >= INFO_SIZE,
+			-EINVAL, JNI_FALSE);
+
+	const struct pdraw_video_frame *frame =
+			sdkcore_frame_get_pdraw_frame(self);
+	RETURN_VAL_IF_FAILED(frame != NULL, -EPROTO, JNI_FALSE);
+	RETURN_VAL_IF_FAILED(frame->format == PDRAW_VIDEO_MEDIA_FORMAT_YUV,
+			-EPROTO, JNI_FALSE);
+
+	const uint8_t *data = sdkcore_frame_get_data(self);
+	RETURN_VAL_IF_FAILED(data != NULL, -EPROTO, JNI_FALSE);
+
+	ssize_t len = sdkcore_frame_get_data_len(self);
+	RETURN_VAL_IF_FAILED(len >= 0, (int) len, JNI_FALSE);
+
+	const struct pdraw_video_yuv_frame *yuv = &frame->yuv;
+
+	jlong info[INFO_SIZE] = {
+		[INFO_DATA_ADDRESS] = (jlong) (uintptr_t) data,
+		[INFO_DATA_LENGTH] = (jlong) len,
+		[INFO_WIDTH] = yuv->width,
+		[INFO_HEIGHT] = yuv->height,
+		[INFO_CROP_LEFT] = yuv->crop_left,
+		[INFO_CROP_TOP] = yuv->crop_top,
+		[INFO_CROP_WIDTH] = yuv->crop_width,
+		[INFO_CROP_HEIGHT] = yuv->crop_height,
+		[INFO_FULL_RANGE] = yuv->full_range ? 1 : 0,
+		[INFO_SILENT] = frame->is_silent ? 1 : 0,
+		[INFO_NTP_TIMESTAMP] = (jlong) frame->ntp_timestamp,
+		[INFO_CAPTURE_TIMESTAMP] = (jlong) frame->capture_timestamp,
+	};
+
+	/* chroma planes are subsampled vertically in both supported formats */
+	size_t heights[3] = { yuv->height, yuv->height / 2, yuv->height / 2 };
+	int plane_count = 0;
+	switch (yuv->format) {
+	case PDRAW_YUV_FORMAT_I420:
+		info[INFO_YUV_FORMAT] = YUV_FORMAT_I420;
+		plane_count = 3;
+		break;
+	case PDRAW_YUV_FORMAT_NV12:
+		info[INFO_YUV_FORMAT] = YUV_FORMAT_NV12;
+		plane_count = 2;
+		break;
+	default:
+		info[INFO_YUV_FORMAT] = YUV_FORMAT_UNKNOWN;
+		break;
+	}
+	info[INFO_PLANE_COUNT] = plane_count;
+
+	for (int i = 0; i < plane_count; i++) {
+		ptrdiff_t offset = yuv->plane[i] - data;
+		RETURN_VAL_IF_FAILED(offset >= 0 && offset <= len, -EPROTO,
+				JNI_FALSE);
+		size_t plane_len = yuv->stride[i] * heights[i];
+		if (plane_len > (size_t) (len - offset)) {
+			/* last plane may omit trailing stride padding */
+			plane_len = (size_t) (len - offset);
+		}
+		info[INFO_PLANES + 3 * i] = (jlong) offset;
+		info[INFO_PLANES + 3 * i + 1] = (jlong) plane_len;
+		info[INFO_PLANES + 3 * i + 2] = (jlong) yuv->stride[i];
+	}
+
+	(*env)->SetLongArrayRegion(env, jinfo, 0, INFO_SIZE, info);
+
+	return JNI_TRUE;
+}
+
+/* Indexes in H.264 frame info array.
+ * MUST be kept in sync with SdkCoreSink.Frame.H264_INFO_* constants */
+
+/** Frame data native address. */
+#define H264_INFO_DATA_ADDRESS 0
+/** Frame data length, in bytes. */
+#define H264_INFO_DATA_LENGTH 1
+/** Frame data format, as a SdkCoreSink.FRAME_FORMAT_* value. */
+#define H264_INFO_FORMAT 2
+/** 1 if the frame is a synchronization (IDR) frame, 0 otherwise. */
+#define H264_INFO_SYNC 3
+/** 1 if the frame is complete, 0 if some slices are missing. */
+#define H264_INFO_COMPLETE 4
+/** 1 if the frame is a reference frame, 0 otherwise. */
+#define H264_INFO_REF 5
+/** 1 if the frame is silent (must not be displayed), 0 otherwise. */
+#define H264_INFO_SILENT 6
+/** Frame NTP timestamp, in microseconds. */
+#define H264_INFO_NTP_TIMESTAMP 7
+/** Frame capture timestamp, in microseconds. */
+#define H264_INFO_CAPTURE_TIMESTAMP 8
+/** Size of H.264 frame info array. */
+#define H264_INFO_SIZE 9
+
+/**
+ * Fills an H.264 frame info array.
+ * Info array is provided by the caller and may thus be reused across calls,
+ * so that obtaining frame info does not allocate any java object.
+ * @param[in] env: JNI env
+ * @param[in] clazz: SdkCoreSink.Frame class
+ * @param[in] nativePtr: frame native backend
+ * @param[out] jinfo: long array to fill, of at least H264_INFO_SIZE elements
+ * @return JNI_TRUE if the array could be filled, otherwise JNI_FALSE
+ */
+JNIEXPORT jboolean JNICALL
+Java_com_parrot_drone_sdkcore_stream_SdkCoreSink_00024Frame_nativeGetH264Info(
+		JNIEnv *env, jclass clazz, jlong nativePtr, jlongArray jinfo)
+{
+	struct sdkcore_frame *self = (struct sdkcore_frame *) (uintptr_t) nativePtr;
+	RETURN_VAL_IF_FAILED(self != NULL, -EINVAL, JNI_FALSE);
+	RETURN_VAL_IF_FAILED((*env)->GetArrayLength(env, jinfo) >= H264_INFO_SIZE,
+			-EINVAL, JNI_FALSE);
+
+	const struct pdraw_video_frame *frame =
+			sdkcore_frame_get_pdraw_frame(self);
+	RETURN_VAL_IF_FAILED(frame != NULL, -EPROTO, JNI_FALSE);
+	RETURN_VAL_IF_FAILED(frame->format == PDRAW_VIDEO_MEDIA_FORMAT_H264,
+			-EPROTO, JNI_FALSE);
+
+	const uint8_t *data = sdkcore_frame_get_data(self);
+	RETURN_VAL_IF_FAILED(data != NULL, -EPROTO, JNI_FALSE);
+
+	ssize_t len = sdkcore_frame_get_data_len(self);
+	RETURN_VAL_IF_FAILED(len >= 0, (int) len, JNI_FALSE);
+
+	const struct pdraw_video_h264_frame *h264 = &frame->h264;
+
+	jlong info[H264_INFO_SIZE] = {
+		[H264_INFO_DATA_ADDRESS] = (jlong) (uintptr_t) data,
+		[H264_INFO_DATA_LENGTH] = (jlong) len,
+		[H264_INFO_FORMAT] = (jlong) h264->format,
+		[H264_INFO_SYNC] = h264->is_sync ? 1 : 0,
+		[H264_INFO_COMPLETE] = h264->is_complete ? 1 : 0,
+		[H264_INFO_REF] = h264->is_ref ? 1 : 0,
+		[H264_INFO_SILENT] = frame->is_silent ? 1 : 0,
+		[H264_INFO_NTP_TIMESTAMP] = (jlong) frame->ntp_timestamp,
+		[H264_INFO_CAPTURE_TIMESTAMP] = (jlong) frame->capture_timestamp,
+	};
+
+	(*env)->SetLongArrayRegion(env, jinfo, 0, H264_INFO_SIZE, info);
+
+	return JNI_TRUE;
+}
+
+/**
+ * Wraps frame data in a direct byte buffer.
+ * Returned buffer directly maps native frame memory and thus MUST NOT be
+ * accessed once the frame is released.
+ * @param[in] env: JNI env
+ * @param[in] clazz: SdkCoreSink.Frame class
+ * @param[in] nativePtr: frame native backend
+ * @return a new direct byte buffer over frame data in case of success,
+ *         otherwise NULL
+ */
+JNIEXPORT jobject JNICALL
+Java_com_parrot_drone_sdkcore_stream_SdkCoreSink_00024Frame_nativeGetData(
+		JNIEnv *env, jclass clazz, jlong nativePtr)
+{
+	struct sdkcore_frame *self = (struct sdkcore_frame *) (uintptr_t) nativePtr;
+	RETURN_VAL_IF_FAILED(self != NULL, -EINVAL, NULL);
+
+	const uint8_t *data = sdkcore_frame_get_data(self);
+	RETURN_VAL_IF_FAILED(data != NULL, -EPROTO, NULL);
+
+	ssize_t len = sdkcore_frame_get_data_len(self);
+	RETURN_VAL_IF_FAILED(len >= 0, (int) len, NULL);
+
+	return (*env)->NewDirectByteBuffer(env, (void *) data, (jlong) len);
+}
@@ -0,0 +1,171 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommandCapture;
+import com.parrot.drone.sdkcore.arsdk.device.ReplayArsdkDevice;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a command capture into a {@link MockArsdkCore}.
+ * <p>
+ * Opening a replay adds a {@link ReplayArsdkDevice} with the captured device identity to the mock core. Once the
+ * device is connected, {@link #run} feeds each captured received command to the engine in capture order, on the
+ * calling thread, so that any replay of the same capture produces the same sequence of events. Captured sent commands
+ * are not replayed but counted, so that their count may be compared with the commands that the engine actually sent.
+ */
+public final class ArsdkCommandReplay implements Closeable {
+
+    /** Replay speed to feed commands as fast as possible, ignoring captured timings. */
+    public static final double SPEED_UNLIMITED = 0;
+
+    /** Capture reader. */
+    @NonNull
+    private final ArsdkCommandCapture.Reader mReader;
+
+    /** Device replaying the capture. */
+    @NonNull
+    private final ReplayArsdkDevice mDevice;
+
+    /** Count of captured sent commands encountered so far. */
+    private int mCapturedSentCount;
+
+    /**
+     * Opens a capture for replay.
+     *
+     * @param arsdkCore   mock core to replay the capture into
+     * @param handle      handle of the replay device
+     * @param backendType backend type of the replay device
+     * @param capture     capture file to replay
+     *
+     * @return a new replay
+     *
+     * @throws IOException in case the capture could not be opened
+     */
+    @NonNull
+    public static ArsdkCommandReplay open(@NonNull MockArsdkCore arsdkCore, int handle, @Backend.Type int backendType,
+                                          @NonNull File capture) throws IOException {
+        ArsdkCommandCapture.Reader reader = ArsdkCommandCapture.Reader.open(capture);
+        ReplayArsdkDevice device = new ReplayArsdkDevice(arsdkCore, (short) handle, reader.getUid(),
+                reader.getType(), reader.getName(), backendType);
+        arsdkCore.addDevice(device);
+        arsdkCore.mListener.onDeviceAdded(device);
+        return new ArsdkCommandReplay(reader, device);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reader capture reader
+     * @param device device replaying the capture
+     */
+    private ArsdkCommandReplay(@NonNull ArsdkCommandCapture.Reader reader, @NonNull ReplayArsdkDevice device) {
+        mReader = reader;
+        mDevice = device;
+    }
+
+    /**
+     * Gets the device replaying the capture.
+     *
+     * @return replay device
+     */
+    @NonNull
+    public ReplayArsdkDevice getDevice() {
+        return mDevice;
+    }
+
+    /**
+     * Gets the count of captured sent commands encountered so far.
+     *
+     * @return captured sent commands count
+     */
+    public int getCapturedSentCount() {
+        return mCapturedSentCount;
+    }
+
+    /**
+     * Replays the capture until its end.
+     * <p>
+     * The replay device must be connected.
+     *
+     * @param speed replay speed, relative to captured timings: {@code 1} to replay in real time, {@code N} to replay
+     *              N times faster, {@link #SPEED_UNLIMITED} to replay as fast as possible
+     *
+     * @return count of replayed received commands
+     *
+     * @throws IOException          in case the capture could not be read
+     * @throws InterruptedException in case the calling thread is interrupted while waiting for the next command
+     */
+    public int run(double speed) throws IOException, InterruptedException {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Invalid replay speed: " + speed);
+        }
+        int replayedCount = 0;
+        long start = System.nanoTime();
+        long capturedTime = 0;
+        while (mReader.next()) {
+            if (speed != SPEED_UNLIMITED) {
+                capturedTime += TimeUnit.MICROSECONDS.toNanos(mReader.getDelay());
+                long wait = start + (long) (capturedTime / speed) - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            if (mReader.getDirection() == ArsdkCommandCapture.DIRECTION_SENT) {
+                mCapturedSentCount++;
+            } else {
+                ArsdkCommand command = ArsdkCommand.Pool.DEFAULT.obtain();
+                try {
+                    mReader.decodeTo(command);
+                    mDevice.commandReceived(command);
+                } finally {
+                    command.release();
+                }
+                replayedCount++;
+            }
+        }
+        return replayedCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+}
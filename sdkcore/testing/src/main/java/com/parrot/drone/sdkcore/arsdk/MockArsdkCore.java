@@ -150,6 +150,14 @@ public final class MockArsdkCore extends ArsdkCore {
         mDevices.get(handle).pollNoAckCommands(encoderType);
     }
 
+    public void holdCommands(int handle) {
+        mDevices.get(handle).holdCommands();
+    }
+
+    public void releaseCommands(int handle) {
+        mDevices.get(handle).releaseCommands();
+    }
+
     public void removeDevice(int handle) {
         MockArsdkDevice device = mDevices.get(handle);
         mListener.onDeviceRemoved(device);
@@ -45,7 +45,10 @@ import com.parrot.drone.sdkcore.arsdk.firmware.ArsdkFirmwareUploadRequest;
 import com.parrot.drone.sdkcore.arsdk.flightlog.ArsdkFlightLogDownloadRequest;
 import com.parrot.drone.sdkcore.stream.SdkCoreStream;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.parrot.drone.sdkcore.arsdk.Expectation.hasCrashmlsPath;
@@ -61,6 +64,16 @@ public class MockArsdkDevice extends ArsdkDevice {
 
     private final Set<ArsdkNoAckCmdEncoder> mNoAckEncoders;
 
+    @Nullable
+    private CommandInterceptor mCommandInterceptor;
+
+    /** Sends held until {@link #releaseCommands()} is called, {@code null} when sent commands are not held. */
+    @Nullable
+    private List<Runnable> mHeldSends;
+
+    private final SupersedableCommandQueue mSupersedableCommands =
+            new SupersedableCommandQueue(this::dispatchSend, this::assertCommandSent);
+
     public MockArsdkDevice(@NonNull MockArsdkCore arsdkCore, short nativeHandle, @NonNull String uid,
                            @ArsdkDevice.Type int type, @NonNull String name, @Backend.Type int backendType) {
         super(nativeHandle, uid, type, name, backendType);
@@ -88,6 +101,47 @@ public class MockArsdkDevice extends ArsdkDevice {
 
     @Override
     public void sendCommand(@NonNull ArsdkCommand command) {
+        dispatchSend(() -> assertCommandSent(command));
+    }
+
+    @Override
+    public void sendCommand(@NonNull ArsdkCommand command, long supersedeKey) {
+        mSupersedableCommands.queue(command, supersedeKey);
+    }
+
+    /**
+     * Holds sent commands, as if the pomp thread was busy, until {@link #releaseCommands()} is called.
+     * <p>
+     * Held commands sent with a supersede key may be superseded by more recent ones.
+     */
+    public void holdCommands() {
+        if (mHeldSends == null) {
+            mHeldSends = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Releases held commands, checking them against expectations in the order they were sent.
+     */
+    public void releaseCommands() {
+        List<Runnable> sends = mHeldSends;
+        mHeldSends = null;
+        if (sends != null) {
+            for (Runnable send : sends) {
+                send.run();
+            }
+        }
+    }
+
+    private void dispatchSend(@NonNull Runnable send) {
+        if (mHeldSends != null) {
+            mHeldSends.add(send);
+        } else {
+            send.run();
+        }
+    }
+
+    private void assertCommandSent(@NonNull ArsdkCommand command) {
         mMockArsdkCore.assertExpectation(Expectation.Command.class, allOf(hasHandle(getHandle()), isCommand(command)));
     }
 
@@ -105,6 +159,19 @@ public class MockArsdkDevice extends ArsdkDevice {
         mNoAckEncoders.remove(encoder);
     }
 
+    @Override
+    public void setCommandInterceptor(@Nullable CommandInterceptor interceptor) {
+        mCommandInterceptor = interceptor;
+    }
+
+    @Override
+    public void startCommandCapture(@NonNull File file) {
+    }
+
+    @Override
+    public void stopCommandCapture() {
+    }
+
     public void pollNoAckCommands(@NonNull Class<? extends ArsdkNoAckCmdEncoder> encoderType) {
         for (ArsdkNoAckCmdEncoder encoder : mNoAckEncoders) {
             if (encoderType.isInstance(encoder)) {
@@ -183,6 +250,9 @@ public class MockArsdkDevice extends ArsdkDevice {
 
     public void commandReceived(@NonNull ArsdkCommand command) {
         assert mListener != null;
+        if (mCommandInterceptor != null && mCommandInterceptor.interceptCommand(command)) {
+            return;
+        }
         mListener.onCommandReceived(command);
     }
 }
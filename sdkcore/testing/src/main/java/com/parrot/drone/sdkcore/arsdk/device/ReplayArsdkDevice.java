@@ -0,0 +1,82 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.MockArsdkCore;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+
+/**
+ * A mock device used to replay a command capture.
+ * <p>
+ * Unlike {@link MockArsdkDevice}, this device expects nothing: it connects as soon as requested and accepts, then
+ * counts, any command sent to it.
+ */
+public final class ReplayArsdkDevice extends MockArsdkDevice {
+
+    /** Count of commands sent to this device. */
+    private int mSentCount;
+
+    public ReplayArsdkDevice(@NonNull MockArsdkCore arsdkCore, short nativeHandle, @NonNull String uid,
+                             @ArsdkDevice.Type int type, @NonNull String name, @Backend.Type int backendType) {
+        super(arsdkCore, nativeHandle, uid, type, name, backendType);
+    }
+
+    @Override
+    public void connect(@NonNull Listener listener) {
+        mListener = listener;
+        deviceConnecting();
+        deviceConnected();
+    }
+
+    @Override
+    public void disconnect() {
+        deviceDisconnected(false);
+    }
+
+    @Override
+    public void sendCommand(@NonNull ArsdkCommand command) {
+        mSentCount++;
+    }
+
+    /**
+     * Gets the count of commands sent to this device.
+     *
+     * @return sent commands count
+     */
+    public int getSentCount() {
+        return mSentCount;
+    }
+}
@@ -7,12 +7,14 @@ from common import *
 import textwrap
 
 
-def make_cmd_javadoc(cmd, indent = ""):
+def make_cmd_javadoc(cmd, indent = "", params = ()):
     doc = indent + "/**\n"
     wrapper = textwrap.TextWrapper(width = 120, initial_indent = indent + " * ", subsequent_indent = indent + " * ")
     doc += wrapper.fill(cmd.doc.desc.replace('>', '&gt;'))
-    if len(cmd.args) > 0:
+    if len(cmd.args) > 0 or len(params) > 0:
         doc += "\n" + indent + " * "
+    for (name, desc) in params:
+        doc += "\n" + wrapper.fill("@param %s: %s" % (name, desc))
     for arg in cmd.args:
         doc += "\n" + wrapper.fill("@param %s: %s" % (java_arg_name(arg), arg.doc.replace('>', '&gt;')))
     return doc + "\n" + indent + " */"
@@ -225,6 +227,23 @@ def gen_java_feature_encode(indent, cmds, out):
         out.write("%s    return cmd;\n", indent)
         out.write("%s}\n\n", indent)
 
+        # non-acknowledged commands may also be encoded into a reusable command, which the caller owns
+        if cmd.bufferType == arsdkparser.ArCmdBufferType.NON_ACK:
+            out.write("%s\n", make_cmd_javadoc(cmd, indent,
+                    [("cmd", "reset command to encode into, owned by the caller")]))
+            if cmd.isDeprecated:
+                out.write("%s@Deprecated\n", indent)
+            out.write("%spublic static void %s(%s) {\n", indent, java_method_name("encode_" + cmd.name),
+                      ", ".join(["@NonNull ArsdkCommand cmd"] + [formatArg(arg) for arg in cmd.args]))
+            out.write("%s    %s(cmd.getNativePtr()", indent, java_method_name("native_encode_" + cmd.name))
+            for arg in cmd.args:
+               if isinstance(arg.argType, arsdkparser.ArEnum):
+                   out.write(", %s.value", java_arg_name(arg))
+               else:
+                   out.write(", %s", java_arg_name(arg))
+            out.write(");\n")
+            out.write("%s}\n\n", indent)
+
 #===============================================================================
 
 def gen_java_feature_encode_native(indent, cmds, out):
@@ -99,6 +99,8 @@ public class MockHttpService {
                 }
                 mPutSink = null;
             }
+            // wait for the next request to be asserted before processing it
+            mRequest = null;
             if (chain.call().isCanceled()) {
                 throw new InterruptedIOException();
             }
@@ -123,6 +125,9 @@ public class MockHttpService {
             }
             assertThat(request.method(), is(mRequest.method()));
             assertThat(request.url(), is(mRequest.url()));
+            for (String header : request.headers().names()) {
+                assertThat(header, mRequest.header(header), is(request.header(header)));
+            }
 
             RequestBody expectedBody = request.body(), actualBody = mRequest.body();
             if (actualBody == null) {
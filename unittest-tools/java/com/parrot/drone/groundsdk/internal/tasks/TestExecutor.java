@@ -34,9 +34,9 @@ package com.parrot.drone.groundsdk.internal.tasks;
 
 import androidx.annotation.NonNull;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.AbstractExecutorService;
@@ -152,13 +152,15 @@ public final class TestExecutor {
         }
 
         void mockTimePasses(long milliseconds) {
-            for (Iterator<Runnable> iter = mSchedule.keySet().iterator(); iter.hasNext(); ) {
-                Runnable runnable = iter.next();
-                //noinspection ConstantConditions
-                long schedule = mSchedule.get(runnable);
+            // iterate over a copy, since scheduled runnables may schedule or cancel runnables when run
+            for (Runnable runnable : new ArrayList<>(mSchedule.keySet())) {
+                Long schedule = mSchedule.get(runnable);
+                if (schedule == null) {
+                    continue;
+                }
                 schedule -= milliseconds;
                 if (schedule <= 0) {
-                    iter.remove();
+                    mSchedule.remove(runnable);
                     runnable.run();
                 } else {
                     mSchedule.put(runnable, schedule);